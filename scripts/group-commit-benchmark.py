@@ -0,0 +1,216 @@
+#!/usr/bin/env python3
+"""
+Group commit benchmark: throughput against latency of balance-changing requests for a sweep of batch windows
+(app.payments.group-commit.window-micros), with the JPA engine's one-commit-per-request as the baseline.
+
+For every engine configuration it starts the jar against MySQL and a stub authorizer that approves everything, then
+for each concurrency level runs REQUESTS deposits and REQUESTS balance payments spread over USERS payers (so every
+shard gets work) and prints one CSV row per phase:
+  config, phase, concurrency, ops/s, p50 ms, p99 ms, mean batch (commands per group commit), fsyncs/op
+fsyncs/op is the growth of InnoDB's Innodb_os_log_fsyncs per request, which is what group commit is meant to cut;
+it is left empty when the MySQL client cannot run. Plotting ops/s against p99 per config gives the trade-off curves.
+
+Needs a reachable MySQL, by default the one from docker-compose.yml (docker compose up -d mysql), and a built jar
+(mvn -B package -DskipTests).
+
+Usage: scripts/group-commit-benchmark.py
+  JAR            application jar (default target/Nimble-Gateway-*.jar)
+  PORT           port the application listens on (default 18080), STUB_PORT for the authorizer (default 18081)
+  WINDOWS        batch windows in µs to sweep (default 0,200,500,1000,2000,5000)
+  CONCURRENCIES  concurrent clients per run (default 8,32,128)
+  REQUESTS       operations per phase (default 2000)
+  USERS          payers the operations are spread over (default 64)
+  SHARDS         app.payments.group-commit.shards (default 4)
+  MYSQL          client command for the fsync count (default: mysql on 127.0.0.1:3307 as in docker-compose.yml)
+  SPRING_DATASOURCE_URL / SPRING_DATASOURCE_USERNAME / SPRING_DATASOURCE_PASSWORD  override the database
+"""
+
+import glob
+import http.server
+import json
+import os
+import random
+import shlex
+import subprocess
+import sys
+import threading
+import time
+import urllib.error
+import urllib.request
+from concurrent.futures import ThreadPoolExecutor
+
+ROOT = os.path.dirname(os.path.dirname(os.path.abspath(__file__)))
+JAR = os.environ.get("JAR") or next(iter(sorted(glob.glob(os.path.join(ROOT, "target", "Nimble-Gateway-*.jar")))), None)
+PORT = int(os.environ.get("PORT", "18080"))
+STUB_PORT = int(os.environ.get("STUB_PORT", "18081"))
+BASE_URL = f"http://localhost:{PORT}"
+WINDOWS = [int(w) for w in os.environ.get("WINDOWS", "0,200,500,1000,2000,5000").split(",")]
+CONCURRENCIES = [int(c) for c in os.environ.get("CONCURRENCIES", "8,32,128").split(",")]
+REQUESTS = int(os.environ.get("REQUESTS", "2000"))
+USERS = int(os.environ.get("USERS", "64"))
+SHARDS = int(os.environ.get("SHARDS", "4"))
+MYSQL = shlex.split(os.environ.get("MYSQL", "mysql -h 127.0.0.1 -P 3307 -uroot -proot123"))
+JAVA = os.path.join(os.environ["JAVA_HOME"], "bin", "java") if os.environ.get("JAVA_HOME") else "java"
+PASSWORD = "benchmark-123"
+
+os.environ.setdefault("SPRING_DATASOURCE_URL",
+                      "jdbc:mysql://localhost:3307/nimble?useSSL=false&serverTimezone=UTC&allowPublicKeyRetrieval=true")
+os.environ.setdefault("SPRING_DATASOURCE_USERNAME", "root")
+os.environ.setdefault("SPRING_DATASOURCE_PASSWORD", "root123")
+
+
+class Authorizer(http.server.BaseHTTPRequestHandler):
+    def do_GET(self):
+        body = b'{"status":"success","data":{"authorized":true}}'
+        self.send_response(200)
+        self.send_header("Content-Type", "application/json")
+        self.send_header("Content-Length", str(len(body)))
+        self.end_headers()
+        self.wfile.write(body)
+
+    def log_message(self, *args):
+        pass
+
+
+def call(method, path, body=None, token=None):
+    request = urllib.request.Request(BASE_URL + path, method=method,
+                                     data=json.dumps(body).encode() if body is not None else None)
+    request.add_header("Content-Type", "application/json")
+    if token:
+        request.add_header("Authorization", f"Bearer {token}")
+    # Every request from its own address, so the per-IP rate limits do not cut the run short
+    request.add_header("X-Forwarded-For", f"10.{random.randrange(256)}.{random.randrange(256)}.{random.randrange(1, 255)}")
+    try:
+        with urllib.request.urlopen(request, timeout=30) as response:
+            return response.status, json.loads(response.read() or b"null")
+    except urllib.error.HTTPError as error:
+        return error.code, None
+
+
+def expect(expected, result, what):
+    status, body = result
+    if status != expected:
+        sys.exit(f"FAIL: {what} returned {status}, expected {expected}")
+    return body
+
+
+def metric(name, statistic):
+    status, body = call("GET", f"/actuator/metrics/{name}")
+    if status != 200:
+        return 0.0
+    return next((m["value"] for m in body["measurements"] if m["statistic"] == statistic), 0.0)
+
+
+def fsyncs():
+    try:
+        output = subprocess.run(MYSQL + ["-N", "-B", "-e", "SHOW GLOBAL STATUS LIKE 'Innodb_os_log_fsyncs'"],
+                                capture_output=True, text=True, timeout=10, check=True).stdout
+        return int(output.split()[1])
+    except (OSError, subprocess.SubprocessError, IndexError, ValueError):
+        return None
+
+
+def start(label, *arguments):
+    log = open(os.path.join(ROOT, "target", f"group-commit-benchmark-{label}.log"), "w")
+    process = subprocess.Popen([JAVA, "-jar", JAR, f"--server.port={PORT}",
+                                f"--external.authorizer.url=http://localhost:{STUB_PORT}", *arguments],
+                               stdout=log, stderr=subprocess.STDOUT)
+    while not healthy():
+        if process.poll() is not None:
+            sys.exit(f"FAIL: the application exited before becoming healthy, see {log.name}")
+        time.sleep(0.2)
+    return process
+
+
+def healthy():
+    try:
+        with urllib.request.urlopen(BASE_URL + "/actuator/health", timeout=1) as response:
+            return response.status == 200
+    except OSError:
+        return False
+
+
+def register(name):
+    cpf = f"{random.randrange(10 ** 11):011d}"
+    email = f"group-commit-{cpf}@nimble.com"
+    user = expect(201, call("POST", "/api/auth/register", {"name": name, "cpf": cpf, "email": email,
+                                                         "password": PASSWORD}), "register")
+    token = expect(200, call("POST", "/api/auth/login", {"username": email, "password": PASSWORD}),
+                   "login")["token"]
+    return user, token
+
+
+def timed(work):
+    begin = time.perf_counter()
+    work()
+    return (time.perf_counter() - begin) * 1000
+
+
+def phase(pool, label, name, concurrency, operations):
+    before_batches = metric("payment.group_commit.batch.size", "COUNT")
+    before_commands = metric("payment.group_commit.batch.size", "TOTAL")
+    before_fsyncs = fsyncs()
+    begin = time.perf_counter()
+    latencies = sorted(pool.map(timed, operations))
+    elapsed = time.perf_counter() - begin
+    after_fsyncs = fsyncs()
+    batches = metric("payment.group_commit.batch.size", "COUNT") - before_batches
+    commands = metric("payment.group_commit.batch.size", "TOTAL") - before_commands
+
+    mean_batch = f"{commands / batches:.1f}" if batches else "1.0"
+    fsyncs_per_op = f"{(after_fsyncs - before_fsyncs) / len(latencies):.2f}" \
+        if before_fsyncs is not None and after_fsyncs is not None else ""
+    print(f"{label},{name},{concurrency},{len(latencies) / elapsed:.1f},{latencies[len(latencies) // 2]:.2f},"
+          f"{latencies[min(len(latencies) - 1, int(0.99 * len(latencies)))]:.2f},{mean_batch},{fsyncs_per_op}",
+          flush=True)
+
+
+def run(label, *arguments):
+    process = start(label, *arguments)
+    try:
+        originator, originator_token = register("Group Commit Originator")
+        payers = [register(f"Group Commit Payer {i}") for i in range(USERS)]
+
+        def deposit(i):
+            user, token = payers[i % USERS]
+            return lambda: expect(201, call("POST", f"/api/payments/deposit?userId={user['id']}", {"amount": 10.00},
+                                            token=token), "deposit")
+
+        def create_charge(i):
+            user, _ = payers[i % USERS]
+            return i, expect(201, call("POST", f"/api/charges?originatorId={originator['id']}",
+                                       {"recipientCpf": user["cpf"], "amount": 1.00},
+                                       token=originator_token), "create charge")["id"]
+
+        def pay(i, charge_id):
+            user, token = payers[i % USERS]
+            return lambda: expect(201, call("POST", f"/api/payments/pay?payerId={user['id']}",
+                                            {"chargeId": charge_id, "method": "BALANCE"}, token=token), "pay")
+
+        for concurrency in CONCURRENCIES:
+            with ThreadPoolExecutor(max_workers=concurrency) as pool:
+                # Warms both paths at this concurrency before anything is measured
+                list(pool.map(lambda work: work(), [deposit(i) for i in range(concurrency)]))
+                phase(pool, label, "deposit", concurrency, [deposit(i) for i in range(REQUESTS)])
+                charges = list(pool.map(create_charge, range(REQUESTS)))
+                phase(pool, label, "pay", concurrency, [pay(i, charge_id) for i, charge_id in charges])
+    finally:
+        process.terminate()
+        process.wait(timeout=60)
+
+
+def main():
+    if JAR is None:
+        sys.exit("FAIL: no jar found, run mvn -B package -DskipTests or set JAR")
+    stub = http.server.ThreadingHTTPServer(("127.0.0.1", STUB_PORT), Authorizer)
+    threading.Thread(target=stub.serve_forever, daemon=True).start()
+
+    print("config,phase,concurrency,ops_per_s,p50_ms,p99_ms,mean_batch,fsyncs_per_op", flush=True)
+    run("jpa", "--app.payments.engine=jpa")
+    for window in WINDOWS:
+        run(f"window-{window}us", "--app.payments.engine=group-commit",
+            f"--app.payments.group-commit.window-micros={window}", f"--app.payments.group-commit.shards={SHARDS}")
+
+
+if __name__ == "__main__":
+    main()
@@ -0,0 +1,141 @@
+#!/usr/bin/env python3
+"""
+Login flood test: measures payment latency on a running gateway, first alone and then while a flood of logins
+hammers /api/auth/login, to check that password hashing stays inside its own pool and leaves payments alone.
+
+Each phase runs a few payment workers that create a charge (not timed) and pay it with the balance (timed). The
+flood phase adds login workers that send wrong passwords for a real account, so every attempt costs a full
+BCrypt verification; each request comes from its own X-Forwarded-For address so the per-IP login limit does not
+absorb the flood before it reaches the hashing pool.
+
+Reports count, p50, p95, p99 and max payment latency per phase, and the login status codes seen during the flood
+(401 means hashed and rejected, 503 means shed by the hashing pool). Exits with 1 when the flood p99 exceeds the
+baseline p99 by more than MAX_P99_RATIO.
+
+Needs the application running with an authorizer that approves (docker compose up, or the stub authorizer of
+scripts/native-smoke-test.sh).
+
+Usage: scripts/login-flood-test.py
+  BASE_URL        application to test (default http://localhost:8080)
+  DURATION        seconds per phase (default 30)
+  PAYERS          concurrent payment workers (default 4)
+  FLOODERS        concurrent login workers during the flood (default 64)
+  MAX_P99_RATIO   allowed flood p99 / baseline p99 (default 1.5)
+"""
+
+import json
+import os
+import random
+import sys
+import time
+import urllib.error
+import urllib.request
+from collections import Counter
+from concurrent.futures import ThreadPoolExecutor
+
+BASE_URL = os.environ.get("BASE_URL", "http://localhost:8080")
+DURATION = float(os.environ.get("DURATION", "30"))
+PAYERS = int(os.environ.get("PAYERS", "4"))
+FLOODERS = int(os.environ.get("FLOODERS", "64"))
+MAX_P99_RATIO = float(os.environ.get("MAX_P99_RATIO", "1.5"))
+PASSWORD = "flood-test-123"
+
+
+def call(method, path, body=None, token=None, client_ip=None):
+    request = urllib.request.Request(BASE_URL + path, method=method,
+                                     data=json.dumps(body).encode() if body is not None else None)
+    request.add_header("Content-Type", "application/json")
+    if token:
+        request.add_header("Authorization", "Bearer " + token)
+    if client_ip:
+        request.add_header("X-Forwarded-For", client_ip)
+    try:
+        with urllib.request.urlopen(request, timeout=30) as response:
+            return response.status, json.loads(response.read() or b"null")
+    except urllib.error.HTTPError as error:
+        return error.code, None
+
+
+def expect(expected, result, what):
+    status, body = result
+    if status != expected:
+        sys.exit(f"FAIL: {what} returned {status}, expected {expected}")
+    return body
+
+
+def register(name):
+    cpf = f"{random.randrange(10 ** 11):011d}"
+    email = f"flood-{cpf}@nimble.com"
+    user = expect(201, call("POST", "/api/auth/register",
+                            {"name": name, "cpf": cpf, "email": email, "password": PASSWORD}), "register " + name)
+    login = expect(200, call("POST", "/api/auth/login", {"username": email, "password": PASSWORD},
+                             client_ip=random_ip()), "login " + name)
+    user["token"] = login["token"]
+    return user
+
+
+def random_ip():
+    return f"10.{random.randrange(256)}.{random.randrange(256)}.{random.randrange(1, 255)}"
+
+
+def pay_until(deadline, originator, payer, latencies):
+    while time.monotonic() < deadline:
+        charge = expect(201, call("POST", f"/api/charges?originatorId={originator['id']}",
+                                  {"recipientCpf": payer["cpf"], "amount": 0.01}, originator["token"]), "charge")
+        start = time.perf_counter()
+        expect(201, call("POST", f"/api/payments/pay?payerId={payer['id']}",
+                         {"chargeId": charge["id"], "method": "BALANCE"}, payer["token"]), "payment")
+        latencies.append((time.perf_counter() - start) * 1000)
+
+
+def flood_until(deadline, email, statuses):
+    while time.monotonic() < deadline:
+        status, _ = call("POST", "/api/auth/login", {"username": email, "password": "wrong-password"},
+                         client_ip=random_ip())
+        statuses[status] += 1
+
+
+def percentile(values, share):
+    ordered = sorted(values)
+    return ordered[min(len(ordered) - 1, int(share * len(ordered)))]
+
+
+def phase(name, originators, payer, flood_email=None):
+    latencies, statuses = [], Counter()
+    deadline = time.monotonic() + DURATION
+    workers = PAYERS + (FLOODERS if flood_email else 0)
+    with ThreadPoolExecutor(max_workers=workers) as pool:
+        futures = [pool.submit(pay_until, deadline, originator, payer, latencies) for originator in originators]
+        # One counter per flooder, merged once they are done
+        counters = [Counter() for _ in range(FLOODERS if flood_email else 0)]
+        futures += [pool.submit(flood_until, deadline, flood_email, counter) for counter in counters]
+        for future in futures:
+            future.result()
+    for counter in counters:
+        statuses.update(counter)
+
+    print(f"{name:<9} payments={len(latencies):<6} p50={percentile(latencies, 0.50):7.1f}ms "
+          f"p95={percentile(latencies, 0.95):7.1f}ms p99={percentile(latencies, 0.99):7.1f}ms "
+          f"max={max(latencies):7.1f}ms")
+    if flood_email:
+        print(f"{'':<9} logins={sum(statuses.values())} by status {dict(sorted(statuses.items()))}")
+    return percentile(latencies, 0.99)
+
+
+def main():
+    payer = register("payer")
+    originators = [register(f"originator-{i}") for i in range(PAYERS)]
+    victim = register("victim")
+    expect(201, call("POST", f"/api/payments/deposit?userId={payer['id']}", {"amount": 100000.00}, payer["token"]),
+           "deposit")
+
+    baseline = phase("baseline", originators, payer)
+    flooded = phase("flood", originators, payer, victim["email"])
+
+    ratio = flooded / baseline
+    print(f"p99 flood/baseline = {ratio:.2f} (allowed {MAX_P99_RATIO})")
+    sys.exit(0 if ratio <= MAX_P99_RATIO else 1)
+
+
+if __name__ == "__main__":
+    main()
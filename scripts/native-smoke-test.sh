@@ -0,0 +1,172 @@
+#!/usr/bin/env bash
+#
+# Native image smoke test: runs the native binary against MySQL and a stub authorizer and walks the main flow
+# (register, login, deposit, charge, balance and card payment, cancellation, summary), failing on the first
+# unexpected status. The same flow is then run on the JVM jar from the same build for comparison.
+#
+# For each variant it reports:
+#   startup  - Spring's own "Started ... in" time
+#   ready    - wall clock from launch to the first 200 from /actuator/health
+#   rss      - resident memory once the flow has run
+#
+# Needs a reachable MySQL, by default the one from docker-compose.yml (docker compose up -d mysql), and python3
+# for the stub authorizer.
+#
+# Usage: scripts/native-smoke-test.sh
+#   SPRING_DATASOURCE_URL / SPRING_DATASOURCE_USERNAME / SPRING_DATASOURCE_PASSWORD  override the database
+#   PORT, STUB_PORT  ports of the application and of the stub authorizer (default 18080, 18081)
+#   SKIP_BUILD=1     use target/nimble-gateway and the jar from a previous mvn -Pnative package
+#   SKIP_JVM=1       only run the native binary
+
+set -euo pipefail
+
+PORT="${PORT:-18080}"
+STUB_PORT="${STUB_PORT:-18081}"
+ROOT="$(cd "$(dirname "$0")/.." && pwd)"
+WORK="$ROOT/target/native-smoke-test"
+JAVA="${JAVA_HOME:+$JAVA_HOME/bin/}java"
+BASE="http://localhost:$PORT"
+
+export SPRING_DATASOURCE_URL="${SPRING_DATASOURCE_URL:-jdbc:mysql://localhost:3307/nimble?useSSL=false&serverTimezone=UTC&allowPublicKeyRetrieval=true}"
+export SPRING_DATASOURCE_USERNAME="${SPRING_DATASOURCE_USERNAME:-root}"
+export SPRING_DATASOURCE_PASSWORD="${SPRING_DATASOURCE_PASSWORD:-root123}"
+
+APP_PID=""
+STUB_PID=""
+
+cleanup() {
+    [ -n "$APP_PID" ] && kill "$APP_PID" 2>/dev/null || true
+    [ -n "$STUB_PID" ] && kill "$STUB_PID" 2>/dev/null || true
+}
+trap cleanup EXIT
+
+now_ms() {
+    date +%s%3N
+}
+
+# Approves everything, the way the real authorizer answers
+start_stub() {
+    python3 - "$STUB_PORT" <<'PY' >"$WORK/stub.log" 2>&1 &
+import http.server, sys
+
+class Authorizer(http.server.BaseHTTPRequestHandler):
+    def do_GET(self):
+        body = b'{"status":"success","data":{"authorized":true}}'
+        self.send_response(200 if self.path.startswith("/authorizer") else 404)
+        self.send_header("Content-Type", "application/json")
+        self.send_header("Content-Length", str(len(body)))
+        self.end_headers()
+        self.wfile.write(body)
+
+http.server.ThreadingHTTPServer(("127.0.0.1", int(sys.argv[1])), Authorizer).serve_forever()
+PY
+    STUB_PID=$!
+}
+
+json() {
+    python3 -c "import json, sys; print(json.load(sys.stdin)$1)"
+}
+
+# Fails the test unless the response status is the expected one; prints the body
+call() {
+    local expected="$1" method="$2" path="$3" token="${4:-}" body="${5:-}"
+    local response status
+    response=$(curl -s -w '\n%{http_code}' -X "$method" "$BASE$path" \
+        -H 'Content-Type: application/json' \
+        ${token:+-H "Authorization: Bearer $token"} \
+        ${body:+-d "$body"})
+    status="${response##*$'\n'}"
+    if [ "$status" != "$expected" ]; then
+        echo "FAIL: $method $path returned $status, expected $expected: ${response%$'\n'*}" >&2
+        exit 1
+    fi
+    echo "${response%$'\n'*}"
+}
+
+register() {
+    local name="$1" cpf email
+    cpf=$(printf '%011d' "$(( ($(now_ms) * 1000 + RANDOM) % 100000000000 ))")
+    email="smoke-$cpf@nimble.com"
+    call 201 POST /api/auth/register "" \
+        "{\"name\":\"$name\",\"cpf\":\"$cpf\",\"email\":\"$email\",\"password\":\"smoke-test-123\"}" >"$WORK/$name.json"
+    call 200 POST /api/auth/login "" "{\"username\":\"$email\",\"password\":\"smoke-test-123\"}" | json '["token"]' >"$WORK/$name.token"
+}
+
+flow() {
+    local originator recipient originator_token recipient_token charge
+    register originator
+    register recipient
+    originator=$(json '["id"]' <"$WORK/originator.json")
+    recipient=$(json '["id"]' <"$WORK/recipient.json")
+    originator_token=$(cat "$WORK/originator.token")
+    recipient_token=$(cat "$WORK/recipient.token")
+
+    call 201 POST "/api/payments/deposit?userId=$recipient" "$recipient_token" '{"amount":100.00}' >/dev/null
+
+    charge=$(call 201 POST "/api/charges?originatorId=$originator" "$originator_token" \
+        "{\"recipientCpf\":\"$(json '["cpf"]' <"$WORK/recipient.json")\",\"amount\":25.00}" | json '["id"]')
+    call 201 POST "/api/payments/pay?payerId=$recipient" "$recipient_token" "{\"chargeId\":\"$charge\",\"method\":\"BALANCE\"}" >/dev/null
+    call 200 POST "/api/payments/cancel/$charge?userId=$originator" "$originator_token" >/dev/null
+
+    charge=$(call 201 POST "/api/charges?originatorId=$originator" "$originator_token" \
+        "{\"recipientCpf\":\"$(json '["cpf"]' <"$WORK/recipient.json")\",\"amount\":10.00}" | json '["id"]')
+    call 201 POST "/api/payments/pay?payerId=$recipient" "$recipient_token" \
+        "{\"chargeId\":\"$charge\",\"method\":\"CREDIT_CARD\",\"cardNumber\":\"4111111111111111\",\"expiryDate\":\"12/30\",\"cvv\":\"123\"}" >/dev/null
+
+    call 200 GET "/api/users/$originator/summary" "$originator_token" >/dev/null
+    call 200 GET /v3/api-docs >/dev/null
+}
+
+# Writes "startup ready rss" (ms, ms, MB) for one variant to target/native-smoke-test/<variant>.result
+run() {
+    local name="$1"
+    local log="$WORK/$name.log"
+    shift
+    local start ready startup rss
+
+    start=$(now_ms)
+    "$@" --server.port="$PORT" --external.authorizer.url="http://localhost:$STUB_PORT" >"$log" 2>&1 &
+    APP_PID=$!
+    until [ "$(curl -s -o /dev/null -w '%{http_code}' "$BASE/actuator/health")" = "200" ]; do
+        if ! kill -0 "$APP_PID" 2>/dev/null; then
+            echo "FAIL: the application exited before becoming healthy, see $log" >&2
+            exit 1
+        fi
+        sleep 0.01
+    done
+    ready=$(( $(now_ms) - start ))
+
+    flow
+    rss=$(( $(ps -o rss= -p "$APP_PID") / 1024 ))
+    kill "$APP_PID" && wait "$APP_PID" 2>/dev/null || true
+    APP_PID=""
+
+    startup=$(grep -oE 'Started [A-Za-z]+ in [0-9.]+ seconds' "$log" | grep -oE '[0-9.]+' | head -1)
+    printf '%d %d %d\n' "$(awk -v s="$startup" 'BEGIN { printf "%d", s * 1000 }')" "$ready" "$rss" >"$WORK/$name.result"
+    echo "$name: flow passed"
+}
+
+report() {
+    [ -f "$WORK/$1.result" ] || return 0
+    read -r startup ready rss <"$WORK/$1.result"
+    printf '%-7s startup %6d ms   ready %6d ms   rss %5d MB\n' "$1" "$startup" "$ready" "$rss"
+}
+
+rm -rf "$WORK" && mkdir -p "$WORK"
+if [ "${SKIP_BUILD:-0}" != "1" ]; then
+    echo "Building the native image..."
+    (cd "$ROOT" && ./mvnw -B -q clean package -DskipTests -Pnative)
+fi
+
+start_stub
+echo "Running the native binary..."
+run native "$ROOT/target/nimble-gateway"
+
+if [ "${SKIP_JVM:-0}" != "1" ]; then
+    echo "Running the JVM jar..."
+    run jvm "$JAVA" -Dspring.aot.enabled=true -jar "$(ls "$ROOT"/target/Nimble-Gateway-*.jar | head -1)"
+fi
+
+echo
+report native
+report jvm
@@ -0,0 +1,178 @@
+#!/usr/bin/env python3
+"""
+Payment engine benchmark: balance payments and deposits on the JPA engine against the stored-procedure engine
+(app.payments.engine), which runs each as one CALL of sp_process_payment / sp_process_deposit.
+
+Run it once per engine against the same MySQL, restarting the application in between:
+  java -jar target/Nimble-Gateway-*.jar --app.payments.engine=jpa               then  ENGINE=jpa scripts/payment-engine-benchmark.py
+  java -jar target/Nimble-Gateway-*.jar --app.payments.engine=stored-procedure  then  ENGINE=stored-procedure scripts/payment-engine-benchmark.py
+
+For each phase (REQUESTS deposits, then REQUESTS balance payments from CONCURRENCY workers) it reports client-side
+latency (p50, p99, mean) and throughput, the server-side mean from payment.processing.time / deposit.processing.time,
+the JDBC time per request from http.server.requests.db, and the round trips per operation: the growth of MySQL's
+Questions counter, which counts statements sent by clients but not the ones a procedure runs, less the background
+rate (outbox relay, schedulers) measured while idle just before the phase.
+
+No results are recorded with it yet: it has not been run against MySQL, so neither engine has a measured advantage.
+
+Deposits need an authorizer that approves them; scripts/native-smoke-test.sh has a stub that approves everything.
+
+Usage: scripts/payment-engine-benchmark.py
+  BASE_URL      application to test (default http://localhost:8080)
+  ENGINE        label for the report, the app.payments.engine the application runs with (default unknown)
+  REQUESTS      operations per phase (default 400)
+  CONCURRENCY   concurrent clients (default 8)
+  MYSQL         client command for the round trip count (default: mysql on 127.0.0.1:3307 as in docker-compose.yml);
+                round trips are skipped when it cannot run
+"""
+
+import json
+import os
+import random
+import shlex
+import subprocess
+import sys
+import time
+import urllib.error
+import urllib.request
+from concurrent.futures import ThreadPoolExecutor
+
+BASE_URL = os.environ.get("BASE_URL", "http://localhost:8080")
+ENGINE = os.environ.get("ENGINE", "unknown")
+REQUESTS = int(os.environ.get("REQUESTS", "400"))
+CONCURRENCY = int(os.environ.get("CONCURRENCY", "8"))
+MYSQL = shlex.split(os.environ.get("MYSQL", "mysql -h 127.0.0.1 -P 3307 -uroot -proot123"))
+PASSWORD = "benchmark-123"
+IDLE_SECONDS = 2
+
+
+def call(method, path, body=None, token=None):
+    request = urllib.request.Request(BASE_URL + path, method=method,
+                                     data=json.dumps(body).encode() if body is not None else None)
+    request.add_header("Content-Type", "application/json")
+    if token:
+        request.add_header("Authorization", f"Bearer {token}")
+    # Every request from its own address, so the per-IP rate limits do not cut the run short
+    request.add_header("X-Forwarded-For", random_ip())
+    try:
+        with urllib.request.urlopen(request, timeout=30) as response:
+            return response.status, json.loads(response.read() or b"null")
+    except urllib.error.HTTPError as error:
+        return error.code, None
+
+
+def expect(expected, result, what):
+    status, body = result
+    if status != expected:
+        sys.exit(f"FAIL: {what} returned {status}, expected {expected}")
+    return body
+
+
+def random_ip():
+    return f"10.{random.randrange(256)}.{random.randrange(256)}.{random.randrange(1, 255)}"
+
+
+def metric(name, statistic, *tags):
+    path = f"/actuator/metrics/{name}" + ("?" + "&".join(f"tag={tag}" for tag in tags) if tags else "")
+    status, body = call("GET", path)
+    if status != 200:
+        return 0.0
+    return next((m["value"] for m in body["measurements"] if m["statistic"] == statistic), 0.0)
+
+
+def timer_totals(name, *tags):
+    return metric(name, "COUNT", *tags), metric(name, "TOTAL_TIME", *tags)
+
+
+def questions():
+    try:
+        output = subprocess.run(MYSQL + ["-N", "-B", "-e", "SHOW GLOBAL STATUS LIKE 'Questions'"],
+                                capture_output=True, text=True, timeout=10, check=True).stdout
+        return int(output.split()[1])
+    except (OSError, subprocess.SubprocessError, IndexError, ValueError):
+        return None
+
+
+def background_rate():
+    first = questions()
+    if first is None:
+        return None
+    time.sleep(IDLE_SECONDS)
+    second = questions()
+    # One question is the second SHOW STATUS itself
+    return (second - first - 1) / IDLE_SECONDS
+
+
+def register(name):
+    cpf = f"{random.randrange(10 ** 11):011d}"
+    email = f"engine-{cpf}@nimble.com"
+    user = expect(201, call("POST", "/api/auth/register", {"name": name, "cpf": cpf, "email": email,
+                                                         "password": PASSWORD}), "register")
+    token = expect(200, call("POST", "/api/auth/login", {"username": email, "password": PASSWORD}),
+                   "login")["token"]
+    return user, token
+
+
+def timed(work):
+    start = time.perf_counter()
+    work()
+    return (time.perf_counter() - start) * 1000
+
+
+def phase(pool, name, operations, timer, uri):
+    rate = background_rate()
+    before_questions = questions()
+    before_timer = timer_totals(*timer)
+    before_db = timer_totals("http.server.requests.db", f"uri:{uri}")
+    start = time.perf_counter()
+    latencies = list(pool.map(timed, operations))
+    elapsed = time.perf_counter() - start
+    after_questions = questions()
+    after_timer = timer_totals(*timer)
+    after_db = timer_totals("http.server.requests.db", f"uri:{uri}")
+
+    ordered = sorted(latencies)
+    server_ms = (after_timer[1] - before_timer[1]) / max(1, after_timer[0] - before_timer[0]) * 1000
+    db_ms = (after_db[1] - before_db[1]) / max(1, after_db[0] - before_db[0]) * 1000
+    round_trips = "n/a"
+    if rate is not None and before_questions is not None and after_questions is not None:
+        statements = after_questions - before_questions - 1 - rate * elapsed
+        round_trips = f"{statements / len(ordered):.1f}"
+    print(f"{ENGINE:<16} {name:<8} n={len(ordered):<5} p50={ordered[len(ordered) // 2]:7.1f}ms "
+          f"p99={ordered[min(len(ordered) - 1, int(0.99 * len(ordered)))]:7.1f}ms "
+          f"mean={sum(ordered) / len(ordered):7.1f}ms rate={len(ordered) / elapsed:7.1f}/s "
+          f"server-mean={server_ms:6.2f}ms db/request={db_ms:6.2f}ms round-trips/op={round_trips}")
+
+
+def main():
+    originator, originator_token = register("Engine Originator")
+    recipient, recipient_token = register("Engine Recipient")
+
+    def deposit():
+        expect(201, call("POST", f"/api/payments/deposit?userId={recipient['id']}", {"amount": 10.00},
+                         token=recipient_token), "deposit")
+
+    def create_charge(_):
+        return expect(201, call("POST", f"/api/charges?originatorId={originator['id']}",
+                                {"recipientCpf": recipient["cpf"], "amount": 1.00},
+                                token=originator_token), "create charge")["id"]
+
+    def pay(charge_id):
+        return lambda: expect(201, call("POST", f"/api/payments/pay?payerId={recipient['id']}",
+                                        {"chargeId": charge_id, "method": "BALANCE"},
+                                        token=recipient_token), "pay")
+
+    with ThreadPoolExecutor(max_workers=CONCURRENCY) as pool:
+        # Warms up both paths before anything is measured
+        deposit()
+        pay(create_charge(0))()
+
+        phase(pool, "deposit", [deposit] * REQUESTS,
+              ("deposit.processing.time", "outcome:success"), "/api/payments/deposit")
+        charge_ids = list(pool.map(create_charge, range(REQUESTS)))
+        phase(pool, "pay", [pay(charge_id) for charge_id in charge_ids],
+              ("payment.processing.time", "method:BALANCE", "outcome:success"), "/api/payments/pay")
+
+
+if __name__ == "__main__":
+    main()
@@ -0,0 +1,133 @@
+#!/usr/bin/env python3
+"""
+Refresh vs login benchmark: compares getting a new access token by logging in again (BCrypt verification and
+two user reads) with rotating a refresh token at /api/auth/refresh (a signature check, one insert, no password).
+
+Runs REQUESTS logins and as many chained refreshes from CONCURRENCY workers, then reports client-side latency
+(p50, p99, mean) and throughput for each, plus the server-side mean from the user.login.time and
+user.token.refresh.time timers and the process CPU time spent per request while each phase ran.
+
+Every login comes from its own X-Forwarded-For address so the per-IP login limit does not cut the run short.
+
+Usage: scripts/refresh-vs-login-benchmark.py
+  BASE_URL      application to test (default http://localhost:8080)
+  REQUESTS      requests per phase (default 400)
+  CONCURRENCY   concurrent clients (default 8)
+"""
+
+import json
+import os
+import random
+import sys
+import time
+import urllib.error
+import urllib.request
+from concurrent.futures import ThreadPoolExecutor
+
+BASE_URL = os.environ.get("BASE_URL", "http://localhost:8080")
+REQUESTS = int(os.environ.get("REQUESTS", "400"))
+CONCURRENCY = int(os.environ.get("CONCURRENCY", "8"))
+PASSWORD = "benchmark-123"
+
+
+def call(method, path, body=None, client_ip=None):
+    request = urllib.request.Request(BASE_URL + path, method=method,
+                                     data=json.dumps(body).encode() if body is not None else None)
+    request.add_header("Content-Type", "application/json")
+    if client_ip:
+        request.add_header("X-Forwarded-For", client_ip)
+    try:
+        with urllib.request.urlopen(request, timeout=30) as response:
+            return response.status, json.loads(response.read() or b"null")
+    except urllib.error.HTTPError as error:
+        return error.code, None
+
+
+def expect(expected, result, what):
+    status, body = result
+    if status != expected:
+        sys.exit(f"FAIL: {what} returned {status}, expected {expected}")
+    return body
+
+
+def random_ip():
+    return f"10.{random.randrange(256)}.{random.randrange(256)}.{random.randrange(1, 255)}"
+
+
+def metric(name, statistic, tag=None):
+    path = f"/actuator/metrics/{name}" + (f"?tag={tag}" if tag else "")
+    status, body = call("GET", path)
+    if status != 200:
+        return 0.0
+    return next((m["value"] for m in body["measurements"] if m["statistic"] == statistic), 0.0)
+
+
+def server_mean_ms(timer):
+    count = metric(timer, "COUNT", "outcome:success")
+    return metric(timer, "TOTAL_TIME", "outcome:success") / count * 1000 if count else float("nan")
+
+
+def login(email):
+    start = time.perf_counter()
+    body = expect(200, call("POST", "/api/auth/login", {"username": email, "password": PASSWORD},
+                            client_ip=random_ip()), "login")
+    return (time.perf_counter() - start) * 1000, body
+
+
+def refresh_chain(refresh_token, count):
+    latencies = []
+    for _ in range(count):
+        start = time.perf_counter()
+        body = expect(200, call("POST", "/api/auth/refresh", {"refreshToken": refresh_token}), "refresh")
+        latencies.append((time.perf_counter() - start) * 1000)
+        refresh_token = body["refreshToken"]
+    return latencies
+
+
+def report(name, latencies, elapsed, cpu_nanos, server_ms):
+    ordered = sorted(latencies)
+    print(f"{name:<8} n={len(ordered):<5} p50={ordered[len(ordered) // 2]:7.1f}ms "
+          f"p99={ordered[min(len(ordered) - 1, int(0.99 * len(ordered)))]:7.1f}ms "
+          f"mean={sum(ordered) / len(ordered):7.1f}ms rate={len(ordered) / elapsed:7.1f}/s "
+          f"server-mean={server_ms:6.2f}ms cpu/request={cpu_nanos / len(ordered) / 1e6:6.2f}ms")
+    return sum(ordered) / len(ordered)
+
+
+def cpu_nanos():
+    # A counter in nanoseconds
+    return metric("process.cpu.time", "COUNT")
+
+
+def phase(work):
+    cpu_before = cpu_nanos()
+    start = time.perf_counter()
+    latencies = work()
+    elapsed = time.perf_counter() - start
+    return latencies, elapsed, cpu_nanos() - cpu_before
+
+
+def main():
+    cpf = f"{random.randrange(10 ** 11):011d}"
+    email = f"benchmark-{cpf}@nimble.com"
+    expect(201, call("POST", "/api/auth/register", {"name": "Benchmark", "cpf": cpf, "email": email,
+                                                    "password": PASSWORD}), "register")
+
+    with ThreadPoolExecutor(max_workers=CONCURRENCY) as pool:
+        login(email)
+        logins, login_elapsed, login_cpu = phase(
+            lambda: [latency for latency, _ in pool.map(lambda _: login(email), range(REQUESTS))])
+
+        # One token family per worker, each refreshed in a chain since every refresh token works only once
+        seeds = [login(email)[1]["refreshToken"] for _ in range(CONCURRENCY)]
+        per_worker = max(1, REQUESTS // CONCURRENCY)
+        refreshes, refresh_elapsed, refresh_cpu = phase(
+            lambda: [latency for chain in pool.map(lambda seed: refresh_chain(seed, per_worker), seeds)
+                     for latency in chain])
+
+    login_mean = report("login", logins, login_elapsed, login_cpu, server_mean_ms("user.login.time"))
+    refresh_mean = report("refresh", refreshes, refresh_elapsed, refresh_cpu, server_mean_ms("user.token.refresh.time"))
+    print(f"refresh is {login_mean / refresh_mean:.1f}x faster than login on mean client latency")
+
+
+if __name__ == "__main__":
+    main()
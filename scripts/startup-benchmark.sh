@@ -0,0 +1,121 @@
+#!/usr/bin/env bash
+#
+# Startup benchmark: the plain fat jar against the fast-startup build (Spring AOT + class data sharing archive +
+# lazy non-critical beans), both run from the extracted jar layout the Dockerfile uses.
+#
+# For each variant and run it reports:
+#   startup  - Spring's own "Started ... in" time
+#   ready    - wall clock from launching the JVM to the first 200 from /actuator/health
+#   first    - latency of the first API request (a failed login: security filters, JPA and BCrypt all involved)
+# and the median of each over the runs.
+#
+# Needs a reachable MySQL, by default the one from docker-compose.yml (docker compose up -d mysql).
+#
+# Usage: scripts/startup-benchmark.sh [runs]
+#   SPRING_DATASOURCE_URL / SPRING_DATASOURCE_USERNAME / SPRING_DATASOURCE_PASSWORD  override the database
+#   PORT      port the application listens on while measured (default 18080)
+#   SKIP_BUILD=1  reuse target/startup-benchmark from a previous run
+
+set -euo pipefail
+
+RUNS="${1:-5}"
+PORT="${PORT:-18080}"
+ROOT="$(cd "$(dirname "$0")/.." && pwd)"
+WORK="$ROOT/target/startup-benchmark"
+JAVA="${JAVA_HOME:+$JAVA_HOME/bin/}java"
+
+export SPRING_DATASOURCE_URL="${SPRING_DATASOURCE_URL:-jdbc:mysql://localhost:3307/nimble?useSSL=false&serverTimezone=UTC&allowPublicKeyRetrieval=true}"
+export SPRING_DATASOURCE_USERNAME="${SPRING_DATASOURCE_USERNAME:-root}"
+export SPRING_DATASOURCE_PASSWORD="${SPRING_DATASOURCE_PASSWORD:-root123}"
+
+now_ms() {
+    date +%s%3N
+}
+
+extract() {
+    local destination="$1"
+    rm -rf "$destination"
+    mkdir -p "$destination"
+    cp "$ROOT"/target/Nimble-Gateway-*.jar "$destination/app.jar"
+    (cd "$destination" && "$JAVA" -Djarmode=tools -jar app.jar extract --destination extracted >/dev/null)
+    mv "$destination/extracted/app.jar" "$destination/extracted/lib" "$destination/" && rm -rf "$destination/extracted"
+}
+
+build() {
+    echo "Building the baseline jar..."
+    (cd "$ROOT" && ./mvnw -B -q clean package -DskipTests)
+    extract "$WORK/baseline"
+
+    echo "Building the fast-startup jar..."
+    (cd "$ROOT" && ./mvnw -B -q clean package -DskipTests -Pfast-startup)
+    extract "$WORK/fast"
+
+    # Same training run as the Dockerfile
+    echo "Training the class data sharing archive..."
+    (cd "$WORK/fast" && "$JAVA" -XX:ArchiveClassesAtExit=application.jsa \
+        -Dspring.aot.enabled=true \
+        -Dspring.context.exit=onRefresh \
+        -Dspring.jpa.properties.hibernate.boot.allow_jdbc_metadata_access=false \
+        -jar app.jar >"$WORK/training.log" 2>&1)
+}
+
+# Prints "startup ready first" in milliseconds for one run
+measure() {
+    local directory="$1"
+    shift
+    local log="$WORK/run.log"
+    local start pid ready first_start first startup
+
+    start=$(now_ms)
+    (cd "$directory" && exec "$JAVA" "$@" -Dserver.port="$PORT" -jar app.jar >"$log" 2>&1) &
+    pid=$!
+
+    until [ "$(curl -s -o /dev/null -w '%{http_code}' "http://localhost:$PORT/actuator/health")" = "200" ]; do
+        if ! kill -0 "$pid" 2>/dev/null; then
+            echo "The application exited before becoming healthy, see $log" >&2
+            exit 1
+        fi
+        sleep 0.05
+    done
+    ready=$(( $(now_ms) - start ))
+
+    first_start=$(now_ms)
+    curl -s -o /dev/null -X POST -H 'Content-Type: application/json' \
+        -d '{"username":"benchmark@nimble.com","password":"not-the-password"}' \
+        "http://localhost:$PORT/api/auth/login"
+    first=$(( $(now_ms) - first_start ))
+
+    kill "$pid" && wait "$pid" 2>/dev/null || true
+
+    startup=$(grep -oE 'Started [A-Za-z]+ in [0-9.]+ seconds' "$log" | grep -oE '[0-9.]+' | head -1)
+    echo "$(awk -v s="$startup" 'BEGIN { printf "%d", s * 1000 }') $ready $first"
+}
+
+median() {
+    sort -n | awk '{ values[NR] = $1 } END { print (NR % 2) ? values[(NR + 1) / 2] : int((values[NR / 2] + values[NR / 2 + 1]) / 2) }'
+}
+
+report() {
+    local name="$1"
+    local results="$2"
+    printf '%-10s startup %6d ms   ready %6d ms   first request %5d ms\n' "$name" \
+        "$(cut -d' ' -f1 <"$results" | median)" \
+        "$(cut -d' ' -f2 <"$results" | median)" \
+        "$(cut -d' ' -f3 <"$results" | median)"
+}
+
+[ "${SKIP_BUILD:-0}" = "1" ] || build
+
+: >"$WORK/baseline.txt"
+: >"$WORK/fast.txt"
+for run in $(seq 1 "$RUNS"); do
+    echo "Run $run of $RUNS"
+    # Alternated so that a noisy neighbour or a warming disk cache does not favour one variant
+    measure "$WORK/baseline" -Dapp.startup.lazy-non-critical=false | tee -a "$WORK/baseline.txt"
+    measure "$WORK/fast" -XX:SharedArchiveFile=application.jsa -Dspring.aot.enabled=true | tee -a "$WORK/fast.txt"
+done
+
+echo
+echo "Median of $RUNS runs"
+report baseline "$WORK/baseline.txt"
+report fast "$WORK/fast.txt"
@@ -0,0 +1,23 @@
+package com.nimble.gateway.application.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchPaymentDTO {
+    private UUID payerId;
+    private String mode;
+    private int paidCount;
+    private int failedCount;
+    private BigDecimal paidAmount;
+    private List<BatchPaymentResultDTO> results;
+}
@@ -0,0 +1,26 @@
+package com.nimble.gateway.application.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchPaymentResultDTO {
+    
+    private UUID chargeId;
+    private Status status;
+    private UUID paymentId;
+    private BigDecimal amount;
+    private String reason;
+    
+    public enum Status {
+        PAID, FAILED, NOT_APPLIED
+    }
+}
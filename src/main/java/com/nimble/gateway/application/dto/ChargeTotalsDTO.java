@@ -0,0 +1,21 @@
+package com.nimble.gateway.application.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChargeTotalsDTO {
+    private long pendingCount;
+    private BigDecimal pendingAmount;
+    private long paidCount;
+    private BigDecimal paidAmount;
+    private long cancelledCount;
+    private BigDecimal cancelledAmount;
+}
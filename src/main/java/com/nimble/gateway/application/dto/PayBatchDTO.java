@@ -0,0 +1,28 @@
+package com.nimble.gateway.application.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Size;
+import java.util.List;
+import java.util.UUID;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PayBatchDTO {
+    
+    @NotEmpty(message = "At least one charge ID is required")
+    @Size(max = 100, message = "A batch must not exceed 100 charges")
+    private List<@NotNull(message = "Charge ID is required") UUID> chargeIds;
+    
+    @Pattern(regexp = "ALL_OR_NOTHING|BEST_EFFORT", message = "Mode must be ALL_OR_NOTHING or BEST_EFFORT")
+    @Builder.Default
+    private String mode = "ALL_OR_NOTHING";
+}
@@ -0,0 +1,18 @@
+package com.nimble.gateway.application.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import jakarta.validation.constraints.NotBlank;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RefreshTokenDTO {
+    
+    @NotBlank(message = "Refresh token is required")
+    private String refreshToken;
+}
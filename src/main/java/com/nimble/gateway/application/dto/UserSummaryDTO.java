@@ -0,0 +1,21 @@
+package com.nimble.gateway.application.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.UUID;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserSummaryDTO {
+    private UUID userId;
+    private LocalDate from;
+    private LocalDate to;
+    private ChargeTotalsDTO sent;
+    private ChargeTotalsDTO received;
+}
@@ -14,6 +14,7 @@ public interface UserMapper {
     @Mapping(target = "createdAt", ignore = true)
     @Mapping(target = "updatedAt", ignore = true)
     @Mapping(target = "isActive", ignore = true)
+    @Mapping(target = "version", ignore = true)
     User toEntity(CreateUserDTO createUserDTO);
     
     UserDTO toDTO(User user);
@@ -4,14 +4,22 @@ import com.nimble.gateway.application.dto.ChargeDTO;
 import com.nimble.gateway.application.dto.CreateChargeDTO;
 import com.nimble.gateway.domain.entity.Charge;
 import com.nimble.gateway.domain.entity.User;
+import com.nimble.gateway.domain.event.ChargeEvent;
+import com.nimble.gateway.domain.exception.BusinessRuleException;
 import com.nimble.gateway.domain.exception.UserNotFoundException;
 import com.nimble.gateway.domain.repository.ChargeRepository;
 import com.nimble.gateway.domain.repository.UserRepository;
+import com.nimble.gateway.domain.valueobject.UserIdentity;
+import com.nimble.gateway.infrastructure.cache.UserIdentityCache;
+import com.nimble.gateway.infrastructure.metrics.PaymentMetrics;
+import com.nimble.gateway.infrastructure.outbox.ChargeEventOutbox;
+import com.nimble.gateway.infrastructure.persistence.ReplicaRead;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.UUID;
 import java.util.stream.Collectors;
@@ -21,38 +29,47 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class ChargeUseCase {
     
+    // Open-ended history ranges start here; TIMESTAMP columns cannot hold anything earlier
+    private static final LocalDateTime HISTORY_START = LocalDateTime.of(1970, 1, 1, 0, 0);
+    
     private final ChargeRepository chargeRepository;
     private final UserRepository userRepository;
+    private final UserIdentityCache userIdentityCache;
+    private final ChargeEventOutbox chargeEventOutbox;
+    private final PaymentMetrics paymentMetrics;
     
     @Transactional
     public ChargeDTO createCharge(CreateChargeDTO createChargeDTO, UUID originatorId) {
         log.info("Creating charge from user {} to CPF {}", originatorId, createChargeDTO.getRecipientCpf());
         
-        User originator = userRepository.findById(originatorId)
+        UserIdentity originator = userIdentityCache.findById(originatorId)
                 .orElseThrow(() -> new UserNotFoundException("Originator not found"));
         
-        User recipient = userRepository.findByCpf(createChargeDTO.getRecipientCpf())
+        UserIdentity recipient = userIdentityCache.findByCpf(createChargeDTO.getRecipientCpf())
                 .orElseThrow(() -> new UserNotFoundException("Recipient not found with CPF: " + createChargeDTO.getRecipientCpf()));
         
-        if (originator.getId().equals(recipient.getId())) throw new IllegalArgumentException("Cannot create charge to yourself");
+        if (originator.id().equals(recipient.id())) throw new BusinessRuleException("Cannot create charge to yourself");
         
+        // Only the foreign keys are needed, so reference proxies avoid loading either user row
         Charge charge = Charge.builder()
-                .originator(originator)
-                .recipient(recipient)
+                .originator(userRepository.getReferenceById(originator.id()))
+                .recipient(userRepository.getReferenceById(recipient.id()))
                 .amount(createChargeDTO.getAmount())
                 .description(createChargeDTO.getDescription())
                 .status(Charge.ChargeStatus.PENDING)
                 .build();
         
         Charge savedCharge = chargeRepository.save(charge);
+        chargeEventOutbox.record(savedCharge, ChargeEvent.Type.CREATED);
+        paymentMetrics.recordChargeCreated();
         log.info("Charge created successfully with ID: {}", savedCharge.getId());
         
         return ChargeDTO.builder()
                 .id(savedCharge.getId())
-                .originatorId(savedCharge.getOriginator().getId())
-                .originatorName(savedCharge.getOriginator().getName())
-                .recipientId(savedCharge.getRecipient().getId())
-                .recipientName(savedCharge.getRecipient().getName())
+                .originatorId(originator.id())
+                .originatorName(originator.name())
+                .recipientId(recipient.id())
+                .recipientName(recipient.name())
                 .amount(savedCharge.getAmount())
                 .description(savedCharge.getDescription())
                 .status(savedCharge.getStatus().name())
@@ -62,14 +79,27 @@ public class ChargeUseCase {
                 .build();
     }
     
+    @ReplicaRead
+    @Transactional(readOnly = true)
     public List<ChargeDTO> getChargesByOriginator(UUID originatorId, String status) {
-        log.info("Getting charges by originator {} with status {}", originatorId, status);
+        return getChargesByOriginator(originatorId, status, null, null);
+    }
+    
+    @ReplicaRead
+    @Transactional(readOnly = true)
+    public List<ChargeDTO> getChargesByOriginator(UUID originatorId, String status, LocalDateTime from, LocalDateTime to) {
+        log.info("Getting charges by originator {} with status {} created between {} and {}", originatorId, status, from, to);
         
-        User originator = userRepository.findById(originatorId)
+        UserIdentity originatorIdentity = userIdentityCache.findById(originatorId)
                 .orElseThrow(() -> new UserNotFoundException("User not found with ID: " + originatorId));
+        User originator = userRepository.getReferenceById(originatorIdentity.id());
         
         List<Charge> charges;
-        if (status != null && !status.isEmpty()) {
+        if (from != null || to != null) {
+            // Only date-ranged reads can reach settled charges that were moved to the archive
+            charges = withStatus(chargeRepository.findHistoryByOriginator(originator,
+                    from != null ? from : HISTORY_START, to != null ? to : LocalDateTime.now()), status);
+        } else if (status != null && !status.isEmpty()) {
             Charge.ChargeStatus chargeStatus = Charge.ChargeStatus.valueOf(status.toUpperCase());
             charges = chargeRepository.findByOriginatorAndStatus(originator, chargeStatus);
         } else {
@@ -81,14 +111,27 @@ public class ChargeUseCase {
                 .collect(Collectors.toList());
     }
     
+    @ReplicaRead
+    @Transactional(readOnly = true)
     public List<ChargeDTO> getChargesByRecipient(UUID recipientId, String status) {
-        log.info("Getting charges by recipient {} with status {}", recipientId, status);
+        return getChargesByRecipient(recipientId, status, null, null);
+    }
+    
+    @ReplicaRead
+    @Transactional(readOnly = true)
+    public List<ChargeDTO> getChargesByRecipient(UUID recipientId, String status, LocalDateTime from, LocalDateTime to) {
+        log.info("Getting charges by recipient {} with status {} created between {} and {}", recipientId, status, from, to);
         
-        User recipient = userRepository.findById(recipientId)
+        UserIdentity recipientIdentity = userIdentityCache.findById(recipientId)
                 .orElseThrow(() -> new UserNotFoundException("Recipient not found"));
+        User recipient = userRepository.getReferenceById(recipientIdentity.id());
         
         List<Charge> charges;
-        if (status != null && !status.isEmpty()) {
+        if (from != null || to != null) {
+            // Only date-ranged reads can reach settled charges that were moved to the archive
+            charges = withStatus(chargeRepository.findHistoryByRecipient(recipient,
+                    from != null ? from : HISTORY_START, to != null ? to : LocalDateTime.now()), status);
+        } else if (status != null && !status.isEmpty()) {
             Charge.ChargeStatus chargeStatus = Charge.ChargeStatus.valueOf(status.toUpperCase());
             charges = chargeRepository.findByRecipientAndStatus(recipient, chargeStatus);
         } else {
@@ -100,19 +143,30 @@ public class ChargeUseCase {
                 .collect(Collectors.toList());
     }
     
+    @ReplicaRead
+    @Transactional(readOnly = true)
     public ChargeDTO getChargeById(UUID chargeId, UUID userId) {
         log.info("Getting charge {} for user {}", chargeId, userId);
         
         Charge charge = chargeRepository.findById(chargeId)
-                .orElseThrow(() -> new IllegalArgumentException("Charge not found"));
+                .orElseThrow(() -> new BusinessRuleException("Charge not found"));
         
         if (!charge.getOriginator().getId().equals(userId) && !charge.getRecipient().getId().equals(userId)) {
-            throw new IllegalArgumentException("Access denied to this charge");
+            throw new BusinessRuleException("Access denied to this charge");
         }
         
         return mapToDTO(charge);
     }
     
+    private List<Charge> withStatus(List<Charge> charges, String status) {
+        if (status == null || status.isEmpty()) return charges;
+        
+        Charge.ChargeStatus chargeStatus = Charge.ChargeStatus.valueOf(status.toUpperCase());
+        return charges.stream()
+                .filter(charge -> charge.getStatus() == chargeStatus)
+                .collect(Collectors.toList());
+    }
+    
     private ChargeDTO mapToDTO(Charge charge) {
         return ChargeDTO.builder()
                 .id(charge.getId())
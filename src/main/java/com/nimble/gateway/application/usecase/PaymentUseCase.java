@@ -1,26 +1,46 @@
 package com.nimble.gateway.application.usecase;
 
+import com.nimble.gateway.application.dto.BatchPaymentDTO;
+import com.nimble.gateway.application.dto.BatchPaymentResultDTO;
 import com.nimble.gateway.application.dto.DepositDTO;
+import com.nimble.gateway.application.dto.PayBatchDTO;
 import com.nimble.gateway.application.dto.PayChargeDTO;
 import com.nimble.gateway.application.dto.PaymentDTO;
 import com.nimble.gateway.domain.entity.Charge;
 import com.nimble.gateway.domain.entity.Payment;
 import com.nimble.gateway.domain.entity.User;
-import com.nimble.gateway.domain.exception.InsufficientBalanceException;
+import com.nimble.gateway.domain.event.ChargeEvent;
+import com.nimble.gateway.domain.exception.BusinessRuleException;
 import com.nimble.gateway.domain.exception.UserNotFoundException;
 import com.nimble.gateway.domain.exception.ConflictException;
 import com.nimble.gateway.domain.exception.PaymentAuthorizationException;
 import com.nimble.gateway.domain.repository.ChargeRepository;
 import com.nimble.gateway.domain.repository.PaymentRepository;
 import com.nimble.gateway.domain.repository.UserRepository;
+import com.nimble.gateway.infrastructure.cache.PendingChargeIndex;
 import com.nimble.gateway.infrastructure.external.AuthorizerService;
+import com.nimble.gateway.infrastructure.metrics.PaymentMetrics;
+import com.nimble.gateway.infrastructure.outbox.ChargeEventOutbox;
+import com.nimble.gateway.infrastructure.persistence.ConflictRetry;
+import com.nimble.gateway.infrastructure.persistence.PaymentEngine;
+import com.nimble.gateway.infrastructure.profiling.PaymentEvent;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionOperations;
 import reactor.core.publisher.Mono;
+import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Slf4j
 @Service
@@ -31,19 +51,38 @@ public class PaymentUseCase {
     private final PaymentRepository paymentRepository;
     private final UserRepository userRepository;
     private final AuthorizerService authorizerService;
+    private final ChargeEventOutbox chargeEventOutbox;
+    private final TransactionOperations transactionOperations;
+    private final PaymentMetrics paymentMetrics;
+    private final PendingChargeIndex pendingChargeIndex;
+    private final ConflictRetry conflictRetry;
+    private final PaymentEngine paymentEngine;
     
     @Transactional
     public Mono<PaymentDTO> payCharge(PayChargeDTO payChargeDTO, UUID payerId) {
         log.info("Processing payment for charge {} by user {}", payChargeDTO.getChargeId(), payerId);
         
-        return Mono.fromCallable(() -> chargeRepository.findById(payChargeDTO.getChargeId()))
+        // The engine reads and checks the charge and payer its own way; the index refuses what it can before that
+        if (Payment.PaymentMethod.BALANCE.name().equals(payChargeDTO.getMethod())) {
+            return paymentMetrics.timePayment(payChargeDTO.getMethod(), refuseFromIndex(payChargeDTO.getChargeId(), payerId)
+                    .then(Mono.defer(() -> paymentEngine.payWithBalance(payChargeDTO.getChargeId(), payerId)))
+                    .map(savedPayment -> {
+                        log.info("Payment with balance successful for charge {}", savedPayment.getCharge().getId());
+                        return toPaymentDTO(savedPayment);
+                    }));
+        }
+        
+        // A conflicting write runs the pay again from the index check: every step before it only reads
+        return paymentMetrics.timePayment(payChargeDTO.getMethod(), conflictRetry.execute("pay", attempt -> refuseFromIndex(payChargeDTO.getChargeId(), payerId)
+                .then(Mono.fromCallable(() -> chargeRepository.findById(payChargeDTO.getChargeId())))
                 .flatMap(chargeOpt -> {
-                    if (chargeOpt.isEmpty()) return Mono.error(new IllegalArgumentException("Charge not found"));
+                    if (chargeOpt.isEmpty()) return Mono.error(new BusinessRuleException("Charge not found"));
+                    pendingChargeIndex.reconcile(chargeOpt.get());
                     return Mono.just(chargeOpt.get());
                 })
                 .flatMap(charge -> {
                     if (charge.getStatus() != Charge.ChargeStatus.PENDING) {
-                        return Mono.error(new IllegalArgumentException("Charge is not pending"));
+                        return Mono.error(new BusinessRuleException("Charge is not pending"));
                     }
                     return Mono.just(charge);
                 })
@@ -54,48 +93,116 @@ public class PaymentUseCase {
                         })
                         .flatMap(payer -> {
                             if (!charge.getRecipient().getId().equals(payerId)) {
-                                return Mono.error(new IllegalArgumentException("Only the recipient can pay this charge"));
+                                return Mono.error(new BusinessRuleException("Only the recipient can pay this charge"));
                             }
                             return Mono.just(payer);
                         })
                         .flatMap(payer -> {
                             Payment.PaymentMethod method = Payment.PaymentMethod.valueOf(payChargeDTO.getMethod());
                             
-                            if (method == Payment.PaymentMethod.BALANCE) {
-                                return payWithBalance(charge, payer);
-                            } else if (method == Payment.PaymentMethod.CREDIT_CARD) {
+                            if (method == Payment.PaymentMethod.CREDIT_CARD) {
                                 return payWithCreditCard(charge, payer, payChargeDTO);
                             } else {
-                                return Mono.error(new IllegalArgumentException("Invalid payment method"));
+                                return Mono.error(new BusinessRuleException("Invalid payment method"));
                             }
-                        }));
+                        }))));
+    }
+    
+    // Balance only: card payments need one authorizer round trip per charge, which a batch cannot amortize
+    @Transactional
+    public Mono<BatchPaymentDTO> payBatch(PayBatchDTO payBatchDTO, UUID payerId) {
+        boolean allOrNothing = !"BEST_EFFORT".equals(payBatchDTO.getMode());
+        log.info("Processing batch payment of {} charges by user {} ({})", payBatchDTO.getChargeIds().size(), payerId, payBatchDTO.getMode());
+        
+        long start = paymentMetrics.startBatch();
+        // Payer and charges are locked, but recipients are not: a concurrent change to one of them reruns the batch
+        return PaymentEvent.record("batch", "BALANCE", conflictRetry.execute("pay-batch", attempt -> Mono.fromCallable(() -> transactionOperations.execute(status -> {
+            // The payer row lock serializes concurrent batches of the same payer before any charge is read
+            User payer = userRepository.findByIdForUpdate(payerId)
+                    .orElseThrow(() -> new UserNotFoundException("Payer not found"));
+            Map<UUID, Charge> charges = chargeRepository.findAllByIdForUpdate(payBatchDTO.getChargeIds()).stream()
+                    .collect(Collectors.toMap(Charge::getId, Function.identity()));
+            
+            List<BatchPaymentResultDTO> results = new ArrayList<>();
+            List<Charge> payable = new ArrayList<>();
+            Set<UUID> seen = new HashSet<>();
+            BigDecimal available = paymentEngine.balanceOf(payer);
+            for (UUID chargeId : payBatchDTO.getChargeIds()) {
+                Charge charge = charges.get(chargeId);
+                String reason = rejectionReason(charge, payerId, available, seen.add(chargeId));
+                results.add(BatchPaymentResultDTO.builder()
+                        .chargeId(chargeId)
+                        .amount(charge != null ? charge.getAmount() : null)
+                        .status(reason != null ? BatchPaymentResultDTO.Status.FAILED : null)
+                        .reason(reason)
+                        .build());
+                if (reason != null) continue;
+                
+                // Checked against the balance left by the charges before it, as if they were paid one by one
+                available = available.subtract(charge.getAmount());
+                if (charge.getRecipient().getId().equals(payerId)) available = available.add(charge.getAmount());
+                payable.add(charge);
+            }
+            
+            boolean apply = !allOrNothing || payable.size() == results.size();
+            Map<UUID, Payment> payments = apply && !payable.isEmpty() ? applyBatch(payer, payable) : Map.of();
+            
+            BigDecimal paidAmount = BigDecimal.ZERO;
+            for (BatchPaymentResultDTO result : results) {
+                if (result.getStatus() != null) continue;
+                Payment payment = payments.get(result.getChargeId());
+                if (payment != null) {
+                    result.setStatus(BatchPaymentResultDTO.Status.PAID);
+                    result.setPaymentId(payment.getId());
+                    paidAmount = paidAmount.add(payment.getAmount());
+                } else {
+                    result.setStatus(BatchPaymentResultDTO.Status.NOT_APPLIED);
+                    result.setReason("Batch rejected");
+                }
+            }
+            
+            log.info("Batch payment by user {}: {} of {} charges paid", payerId, payments.size(), results.size());
+            paymentMetrics.recordBatch(start, payments.size());
+            
+            return BatchPaymentDTO.builder()
+                    .payerId(payerId)
+                    .mode(allOrNothing ? "ALL_OR_NOTHING" : "BEST_EFFORT")
+                    .paidCount(payments.size())
+                    .failedCount(results.size() - payments.size())
+                    .paidAmount(paidAmount)
+                    .results(results)
+                    .build();
+        }))));
     }
     
     @Transactional
     public Mono<PaymentDTO> deposit(DepositDTO depositDTO, UUID userId) {
         log.info("Processing deposit of {} for user {}", depositDTO.getAmount(), userId);
         
-        return Mono.fromCallable(() -> userRepository.findById(userId))
+        return paymentMetrics.timeDeposit(Mono.fromCallable(() -> userRepository.findById(userId))
                 .flatMap(userOpt -> {
                     if (userOpt.isEmpty()) return Mono.error(new UserNotFoundException("User not found"));
                     return Mono.just(userOpt.get());
                 })
                 .flatMap(user -> authorizerService.authorizeDeposit(depositDTO.getAmount())
                         .flatMap(authorized -> {
-                            if (authorized) {
-                                return processDeposit(user, depositDTO.getAmount());
-                            } else {
+                            if (!authorized) {
                                 log.warn("Deposit authorization failed for user {}", userId);
                                 return Mono.error(new PaymentAuthorizationException("Deposit authorization failed"));
                             }
-                        }));
+                            return paymentEngine.deposit(user, depositDTO.getAmount())
+                                    .map(savedPayment -> {
+                                        log.info("Deposit successful for user {}: {}", userId, depositDTO.getAmount());
+                                        return toPaymentDTO(savedPayment);
+                                    });
+                        })));
     }
     
     @Transactional
     public Mono<Void> cancelCharge(UUID chargeId, UUID userId) {
         log.info("Cancelling charge {} by user {}", chargeId, userId);
         
-        return Mono.fromCallable(() -> chargeRepository.findById(chargeId))
+        return paymentMetrics.timeCancellation(conflictRetry.execute("cancel", attempt -> Mono.fromCallable(() -> chargeRepository.findById(chargeId))
                 .flatMap(chargeOpt -> {
                     if (chargeOpt.isEmpty()) return Mono.error(new UserNotFoundException("Charge not found"));
                     return Mono.just(chargeOpt.get());
@@ -114,10 +221,7 @@ public class PaymentUseCase {
                 })
                 .flatMap(charge -> {
                     if (charge.getStatus() == Charge.ChargeStatus.PAID) {
-                        if (charge.getPaymentMethod() == Charge.PaymentMethod.BALANCE) {
-                            return Mono.fromRunnable(() -> refundPayment(charge))
-                                    .then(Mono.just(charge));
-                        } else if (charge.getPaymentMethod() == Charge.PaymentMethod.CREDIT_CARD) {
+                        if (charge.getPaymentMethod() == Charge.PaymentMethod.CREDIT_CARD) {
                             return authorizerService.authorizeCancellation(charge.getAmount())
                                     .flatMap(authorized -> {
                                         if (authorized) {
@@ -131,64 +235,81 @@ public class PaymentUseCase {
                     return Mono.just(charge);
                 })
                 .flatMap(charge -> {
-                    charge.cancel();
-                    chargeRepository.save(charge);
-                    log.info("Charge {} cancelled successfully", chargeId);
-                    return Mono.empty();
-                });
+                    boolean authorizedByCard = charge.getStatus() == Charge.ChargeStatus.PAID && charge.getPaymentMethod() == Charge.PaymentMethod.CREDIT_CARD;
+                    Mono<Void> cancellation = Mono.fromRunnable(() -> transactionOperations.executeWithoutResult(status -> {
+                        // The refund joins the cancellation so both users and the charge flush in one batch
+                        if (charge.getStatus() == Charge.ChargeStatus.PAID && charge.getPaymentMethod() == Charge.PaymentMethod.BALANCE) {
+                            refundPayment(charge);
+                        }
+                        charge.cancel();
+                        chargeRepository.save(charge);
+                        chargeEventOutbox.record(charge, ChargeEvent.Type.CANCELLED);
+                    }));
+                    // The authorizer has approved this cancellation, so a conflicting write is reported rather than rerun
+                    return (authorizedByCard ? conflictRetry.detect("cancel", cancellation) : cancellation)
+                            .doOnSuccess(ignored -> log.info("Charge {} cancelled successfully", chargeId));
+                })));
     }
     
-    private Mono<PaymentDTO> payWithBalance(Charge charge, User payer) {
-        return Mono.fromCallable(() -> {
-            if (payer.getBalance().compareTo(charge.getAmount()) < 0) throw new InsufficientBalanceException("Insufficient balance");
-            return null;
-        })
-        .then(Mono.fromRunnable(() -> {
-            payer.setBalance(payer.getBalance().subtract(charge.getAmount()));
-            payer.setUpdatedAt(LocalDateTime.now());
-            
-            User recipient = charge.getRecipient();
-            recipient.setBalance(recipient.getBalance().add(charge.getAmount()));
-            recipient.setUpdatedAt(LocalDateTime.now());
-            
-            userRepository.save(payer);
-            userRepository.save(recipient);
-            
+    // Pays the index can already refuse never reach the database; the rest are decided by the row
+    private Mono<Void> refuseFromIndex(UUID chargeId, UUID payerId) {
+        return Mono.defer(() -> {
+            PendingChargeIndex.Verdict verdict = pendingChargeIndex.check(chargeId, payerId);
+            if (verdict == PendingChargeIndex.Verdict.NOT_PENDING) return Mono.error(new BusinessRuleException("Charge is not pending"));
+            if (verdict == PendingChargeIndex.Verdict.NOT_RECIPIENT) return Mono.error(new BusinessRuleException("Only the recipient can pay this charge"));
+            return Mono.empty();
+        });
+    }
+    
+    private static PaymentDTO toPaymentDTO(Payment payment) {
+        return PaymentDTO.builder()
+                .id(payment.getId())
+                .chargeId(payment.getCharge() != null ? payment.getCharge().getId() : null)
+                .payerId(payment.getPayer().getId())
+                .payerName(payment.getPayer().getName())
+                .amount(payment.getAmount())
+                .method(payment.getMethod().name())
+                .paymentDate(payment.getPaymentDate())
+                .build();
+    }
+    
+    // Same checks, in the same order, as a single balance payment
+    private static String rejectionReason(Charge charge, UUID payerId, BigDecimal available, boolean firstOccurrence) {
+        if (!firstOccurrence) return "Duplicate charge in batch";
+        if (charge == null) return "Charge not found";
+        if (charge.getStatus() != Charge.ChargeStatus.PENDING) return "Charge is not pending";
+        if (!charge.getRecipient().getId().equals(payerId)) return "Only the recipient can pay this charge";
+        if (available.compareTo(charge.getAmount()) < 0) return "Insufficient balance";
+        return null;
+    }
+    
+    // The engine moves the balances once the payments are saved; charges, payments and outbox rows flush as JDBC batches
+    private Map<UUID, Payment> applyBatch(User payer, List<Charge> charges) {
+        LocalDateTime now = LocalDateTime.now();
+        Map<UUID, Payment> payments = new LinkedHashMap<>();
+        for (Charge charge : charges) {
             charge.setStatus(Charge.ChargeStatus.PAID);
-            charge.setPaidAt(LocalDateTime.now());
+            charge.setPaidAt(now);
             charge.setPaymentMethod(Charge.PaymentMethod.BALANCE);
             chargeRepository.save(charge);
-        }))
-        .then(Mono.fromCallable(() -> {
-            Payment payment = Payment.builder()
+            
+            payments.put(charge.getId(), paymentRepository.save(Payment.builder()
                     .charge(charge)
                     .payer(payer)
                     .amount(charge.getAmount())
                     .method(Payment.PaymentMethod.BALANCE)
-                    .paymentDate(LocalDateTime.now())
-                    .build();
-            
-            return paymentRepository.save(payment);
-        }))
-        .map(savedPayment -> {
-            log.info("Payment with balance successful for charge {}", charge.getId());
-            
-            return PaymentDTO.builder()
-                    .id(savedPayment.getId())
-                    .chargeId(savedPayment.getCharge().getId())
-                    .payerId(savedPayment.getPayer().getId())
-                    .payerName(savedPayment.getPayer().getName())
-                    .amount(savedPayment.getAmount())
-                    .method(savedPayment.getMethod().name())
-                    .paymentDate(savedPayment.getPaymentDate())
-                    .build();
-        });
+                    .paymentDate(now)
+                    .build()));
+        }
+        paymentEngine.payBatch(payer, List.copyOf(payments.values()));
+        chargeEventOutbox.recordAll(charges, ChargeEvent.Type.PAID);
+        return payments;
     }
     
     private Mono<PaymentDTO> payWithCreditCard(Charge charge, User payer, PayChargeDTO payChargeDTO) {
         return Mono.defer(() -> {
             if (payChargeDTO.getCardNumber() == null || payChargeDTO.getExpiryDate() == null || payChargeDTO.getCvv() == null) {
-                return Mono.error(new IllegalArgumentException("Credit card information is required"));
+                return Mono.error(new BusinessRuleException("Credit card information is required"));
             }
             return authorizerService.authorizePayment(charge.getAmount());
         })
@@ -198,18 +319,14 @@ public class PaymentUseCase {
             }
             return Mono.just(authorized);
         })
-        .then(Mono.fromRunnable(() -> {
-            User recipient = charge.getRecipient();
-            recipient.setBalance(recipient.getBalance().add(charge.getAmount()));
-            recipient.setUpdatedAt(LocalDateTime.now());
-            userRepository.save(recipient);
-            
+        // The card is authorized by now, so a conflicting write is reported rather than rerun with a second authorization
+        .then(conflictRetry.detect("pay", Mono.fromCallable(() -> transactionOperations.execute(status -> {
             charge.setStatus(Charge.ChargeStatus.PAID);
             charge.setPaidAt(LocalDateTime.now());
             charge.setPaymentMethod(Charge.PaymentMethod.CREDIT_CARD);
             chargeRepository.save(charge);
-        }))
-        .then(Mono.fromCallable(() -> {
+            chargeEventOutbox.record(charge, ChargeEvent.Type.PAID);
+            
             Payment payment = Payment.builder()
                     .charge(charge)
                     .payer(payer)
@@ -218,8 +335,10 @@ public class PaymentUseCase {
                     .paymentDate(LocalDateTime.now())
                     .build();
             
-            return paymentRepository.save(payment);
-        }))
+            Payment saved = paymentRepository.save(payment);
+            paymentEngine.credit(charge.getRecipient(), saved);
+            return saved;
+        }))))
         .map(savedPayment -> {
             log.info("Payment with credit card successful for charge {}", charge.getId());
             
@@ -235,50 +354,12 @@ public class PaymentUseCase {
         });
     }
     
-    private Mono<PaymentDTO> processDeposit(User user, java.math.BigDecimal amount) {
-        return Mono.fromRunnable(() -> {
-            user.setBalance(user.getBalance().add(amount));
-            user.setUpdatedAt(LocalDateTime.now());
-            userRepository.save(user);
-        })
-        .then(Mono.fromCallable(() -> {
-            Payment payment = Payment.builder()
-                    .payer(user)
-                    .amount(amount)
-                    .method(Payment.PaymentMethod.BALANCE)
-                    .paymentDate(LocalDateTime.now())
-                    .build();
-            
-            return paymentRepository.save(payment);
-        }))
-        .map(savedPayment -> {
-            log.info("Deposit successful for user {}: {}", user.getId(), amount);
-            
-            return PaymentDTO.builder()
-                    .id(savedPayment.getId())
-                    .payerId(savedPayment.getPayer().getId())
-                    .payerName(savedPayment.getPayer().getName())
-                    .amount(savedPayment.getAmount())
-                    .method(savedPayment.getMethod().name())
-                    .paymentDate(savedPayment.getPaymentDate())
-                    .build();
-        });
-    }
-    
     private void refundPayment(Charge charge) {
         Payment payment = paymentRepository.findByCharge(charge)
-                .orElseThrow(() -> new IllegalArgumentException("Payment not found"));
+                .orElseThrow(() -> new BusinessRuleException("Payment not found"));
         
         if (payment.getMethod() == Payment.PaymentMethod.BALANCE) {
-            User payer = payment.getPayer();
-            payer.setBalance(payer.getBalance().add(payment.getAmount()));
-            payer.setUpdatedAt(LocalDateTime.now());
-            userRepository.save(payer);
-            
-            User recipient = charge.getRecipient();
-            recipient.setBalance(recipient.getBalance().subtract(payment.getAmount()));
-            recipient.setUpdatedAt(LocalDateTime.now());
-            userRepository.save(recipient);
+            paymentEngine.refund(charge.getRecipient(), payment);
             
             log.info("Payment refunded for charge {}", charge.getId());
         }
@@ -1,23 +1,39 @@
 package com.nimble.gateway.application.usecase;
 
 import com.nimble.gateway.application.dto.AuthResponseDTO;
+import com.nimble.gateway.application.dto.ChargeTotalsDTO;
 import com.nimble.gateway.application.dto.CreateUserDTO;
 import com.nimble.gateway.application.dto.LoginDTO;
+import com.nimble.gateway.application.dto.RefreshTokenDTO;
 import com.nimble.gateway.application.dto.UserDTO;
+import com.nimble.gateway.application.dto.UserSummaryDTO;
 import com.nimble.gateway.domain.entity.User;
+import com.nimble.gateway.domain.entity.UserChargeSummary;
+import com.nimble.gateway.domain.exception.BusinessRuleException;
 import com.nimble.gateway.domain.exception.UserNotFoundException;
+import com.nimble.gateway.domain.repository.UserChargeSummaryRepository;
 import com.nimble.gateway.domain.repository.UserRepository;
+import com.nimble.gateway.domain.valueobject.UserIdentity;
+import com.nimble.gateway.infrastructure.cache.UserIdentityCache;
+import com.nimble.gateway.infrastructure.metrics.UserMetrics;
+import com.nimble.gateway.infrastructure.persistence.PaymentEngine;
+import com.nimble.gateway.infrastructure.persistence.ReplicaRead;
 import com.nimble.gateway.infrastructure.security.JwtTokenProvider;
+import com.nimble.gateway.infrastructure.security.PasswordHashingBusyException;
+import com.nimble.gateway.infrastructure.security.RefreshTokenRevocations;
+import io.jsonwebtoken.JwtException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.util.Optional;
+import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.util.UUID;
 
 @Slf4j
@@ -26,9 +42,14 @@ import java.util.UUID;
 public class UserUseCase {
     
     private final UserRepository userRepository;
+    private final UserIdentityCache userIdentityCache;
+    private final UserChargeSummaryRepository userChargeSummaryRepository;
     private final PasswordEncoder passwordEncoder;
     private final JwtTokenProvider jwtTokenProvider;
     private final AuthenticationManager authenticationManager;
+    private final UserMetrics userMetrics;
+    private final RefreshTokenRevocations refreshTokenRevocations;
+    private final PaymentEngine paymentEngine;
     
     @Transactional
     public UserDTO createUser(CreateUserDTO createUserDTO) {
@@ -47,6 +68,7 @@ public class UserUseCase {
                 .build();
         
         User savedUser = userRepository.save(user);
+        userMetrics.recordUserRegistered();
         log.info("User created successfully with ID: {}", savedUser.getId());
         
         return UserDTO.builder()
@@ -64,6 +86,7 @@ public class UserUseCase {
     public AuthResponseDTO login(LoginDTO loginDTO) {
         log.info("Attempting login for username: {}", loginDTO.getUsername());
         
+        long start = userMetrics.startLogin();
         try {
             Authentication authentication = authenticationManager.authenticate(
                     new UsernamePasswordAuthenticationToken(
@@ -72,12 +95,13 @@ public class UserUseCase {
                     )
             );
             
-            String token = jwtTokenProvider.generateToken(authentication);
-            String refreshToken = jwtTokenProvider.generateRefreshToken(authentication.getName());
-            
             User user = findUserByUsername(loginDTO.getUsername());
             
+            String token = jwtTokenProvider.generateToken(authentication);
+            String refreshToken = jwtTokenProvider.generateRefreshToken(user.getId(), authentication.getName());
+            
             log.info("Login successful for user: {}", user.getEmail());
+            userMetrics.recordLogin(start, true);
             
             return AuthResponseDTO.builder()
                     .token(token)
@@ -89,22 +113,69 @@ public class UserUseCase {
                             .name(user.getName())
                             .cpf(user.getCpf())
                             .email(user.getEmail())
-                            .balance(user.getBalance())
+                            .balance(balanceOf(user))
                             .createdAt(user.getCreatedAt())
                             .updatedAt(user.getUpdatedAt())
                             .isActive(user.getIsActive())
                             .build())
                     .build();
-                    
+            
         } catch (org.springframework.security.core.AuthenticationException e) {
+            userMetrics.recordLogin(start, false);
             log.error("Login failed for username: {}", loginDTO.getUsername(), e);
             throw new org.springframework.security.authentication.BadCredentialsException("Invalid credentials");
+        } catch (PasswordHashingBusyException e) {
+            userMetrics.recordLogin(start, false);
+            throw e;
         } catch (Exception e) {
+            userMetrics.recordLogin(start, false);
             log.error("Login failed for username: {}", loginDTO.getUsername(), e);
             throw new IllegalArgumentException("Invalid credentials");
         }
     }
     
+    // No password check and no row read: the refresh token is the credential, used once and then rotated.
+    // Not transactional, so a failed rotation insert does not leave a rollback-only transaction behind
+    public AuthResponseDTO refresh(RefreshTokenDTO refreshTokenDTO) {
+        long start = userMetrics.startRefresh();
+        try {
+            JwtTokenProvider.RefreshToken presented = jwtTokenProvider.parseRefreshToken(refreshTokenDTO.getRefreshToken());
+            
+            if (refreshTokenRevocations.isRevoked(presented.familyId())) {
+                throw new BadCredentialsException("Refresh token revoked");
+            }
+            if (!refreshTokenRevocations.consume(presented.id(), presented.userId(), presented.expiresAt())) {
+                // Someone holds a copy of a token that was already rotated: end the whole session, whoever uses it next
+                log.warn("Refresh token reuse detected for user {}, revoking its family", presented.userId());
+                refreshTokenRevocations.revokeFamily(presented.familyId(), presented.userId());
+                throw new BadCredentialsException("Refresh token already used");
+            }
+            
+            UserIdentity identity = userIdentityCache.findById(presented.userId())
+                    .filter(UserIdentity::active)
+                    .orElseThrow(() -> new BadCredentialsException("User no longer active"));
+            
+            AuthResponseDTO response = AuthResponseDTO.builder()
+                    .token(jwtTokenProvider.generateToken(identity.id(), identity.email()))
+                    .refreshToken(jwtTokenProvider.generateRefreshToken(identity.id(), identity.email(), presented.familyId()))
+                    .type("Bearer")
+                    .expiresIn(jwtTokenProvider.getExpirationMs())
+                    .build();
+            userMetrics.recordRefresh(start, true);
+            return response;
+            
+        } catch (JwtException | IllegalArgumentException e) {
+            userMetrics.recordRefresh(start, false);
+            log.warn("Invalid refresh token: {}", e.getMessage());
+            throw new BadCredentialsException("Invalid refresh token");
+        } catch (RuntimeException e) {
+            userMetrics.recordRefresh(start, false);
+            throw e;
+        }
+    }
+    
+    @ReplicaRead
+    @Transactional(readOnly = true)
     public UserDTO getUserById(UUID userId) {
         log.info("Getting user by ID: {}", userId);
         
@@ -116,13 +187,15 @@ public class UserUseCase {
                 .name(user.getName())
                 .cpf(user.getCpf())
                 .email(user.getEmail())
-                .balance(user.getBalance())
+                .balance(balanceOf(user))
                 .createdAt(user.getCreatedAt())
                 .updatedAt(user.getUpdatedAt())
                 .isActive(user.getIsActive())
                 .build();
     }
     
+    @ReplicaRead
+    @Transactional(readOnly = true)
     public UserDTO getUserByUsername(String username) {
         log.info("Getting user by username: {}", username);
         
@@ -133,18 +206,66 @@ public class UserUseCase {
                 .name(user.getName())
                 .cpf(user.getCpf())
                 .email(user.getEmail())
-                .balance(user.getBalance())
+                .balance(balanceOf(user))
                 .createdAt(user.getCreatedAt())
                 .updatedAt(user.getUpdatedAt())
                 .isActive(user.getIsActive())
                 .build();
     }
     
-    private User findUserByUsername(String username) {
-        Optional<User> user = userRepository.findByEmail(username);
+    // Reads one pre-aggregated row per day and role instead of scanning the user's charges
+    @ReplicaRead
+    @Transactional(readOnly = true)
+    public UserSummaryDTO getUserSummary(UUID userId, LocalDate from, LocalDate to) {
+        LocalDate end = to != null ? to : LocalDate.now();
+        LocalDate start = from != null ? from : end.withDayOfMonth(1);
+        log.info("Getting charge summary for user {} between {} and {}", userId, start, end);
         
-        if (user.isEmpty() && username.matches("\\d{11}")) user = userRepository.findByCpf(username);
+        if (start.isAfter(end)) {
+            throw new BusinessRuleException("Summary start date must not be after its end date");
+        }
+        
+        userIdentityCache.findById(userId)
+                .orElseThrow(() -> new UserNotFoundException("User not found with ID: " + userId));
+        
+        UserChargeSummary sent = UserChargeSummary.of(userId, UserChargeSummary.Role.SENT, null);
+        UserChargeSummary received = UserChargeSummary.of(userId, UserChargeSummary.Role.RECEIVED, null);
+        for (UserChargeSummary day : userChargeSummaryRepository.findByUserIdAndSummaryDateBetween(userId, start, end)) {
+            (day.getRole() == UserChargeSummary.Role.SENT ? sent : received).add(day);
+        }
         
-        return user.orElseThrow(() -> new UserNotFoundException("User not found"));
+        return UserSummaryDTO.builder()
+                .userId(userId)
+                .from(start)
+                .to(end)
+                .sent(toTotals(sent))
+                .received(toTotals(received))
+                .build();
+    }
+    
+    private ChargeTotalsDTO toTotals(UserChargeSummary summary) {
+        return ChargeTotalsDTO.builder()
+                .pendingCount(summary.getPendingCount())
+                .pendingAmount(summary.getPendingAmount())
+                .paidCount(summary.getPaidCount())
+                .paidAmount(summary.getPaidAmount())
+                .cancelledCount(summary.getCancelledCount())
+                .cancelledAmount(summary.getCancelledAmount())
+                .build();
+    }
+    
+    private User findUserByUsername(String username) {
+        // Resolve the id from the identity cache, but always read the row itself so the balance is fresh
+        UUID userId = userIdentityCache.findByUsername(username)
+                .map(UserIdentity::id)
+                .orElseThrow(() -> new UserNotFoundException("User not found"));
+        
+        return userRepository.findById(userId)
+                .orElseThrow(() -> new UserNotFoundException("User not found"));
+    }
+    
+    // With the in-memory engine the row's balance trails by the projection interval, so the engine answers
+    private BigDecimal balanceOf(User user) {
+        return paymentEngine.balanceOf(user);
     }
 }
\ No newline at end of file
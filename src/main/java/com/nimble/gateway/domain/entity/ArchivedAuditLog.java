@@ -0,0 +1,66 @@
+package com.nimble.gateway.domain.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Entity
+@Table(name = "audit_logs_archive", indexes = {
+    @Index(name = "idx_audit_archive_created_at", columnList = "created_at")
+})
+@Getter
+@NoArgsConstructor
+public class ArchivedAuditLog {
+    
+    @Id
+    @Column(columnDefinition = "BINARY(16)")
+    private UUID id;
+    
+    @Column(name = "user_id", columnDefinition = "BINARY(16)")
+    private UUID userId;
+    
+    @Column(name = "action", nullable = false, length = 100)
+    private String action;
+    
+    @Column(name = "entity_type", nullable = false, length = 50)
+    private String entityType;
+    
+    @Column(name = "entity_id", nullable = false, length = 100)
+    private String entityId;
+    
+    @Column(name = "old_values", columnDefinition = "JSON")
+    private String oldValues;
+    
+    @Column(name = "new_values", columnDefinition = "JSON")
+    private String newValues;
+    
+    @Column(name = "ip_address", length = 45)
+    private String ipAddress;
+    
+    @Column(name = "user_agent", columnDefinition = "TEXT")
+    private String userAgent;
+    
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+    
+    @Column(name = "archived_at", nullable = false)
+    private LocalDateTime archivedAt;
+    
+    public AuditLog toAuditLog(User user) {
+        return AuditLog.builder()
+                .id(id)
+                .user(user)
+                .action(action)
+                .entityType(entityType)
+                .entityId(entityId)
+                .oldValues(oldValues)
+                .newValues(newValues)
+                .ipAddress(ipAddress)
+                .userAgent(userAgent)
+                .createdAt(createdAt)
+                .build();
+    }
+}
@@ -0,0 +1,76 @@
+package com.nimble.gateway.domain.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Entity
+@Table(name = "charges_archive", indexes = {
+    @Index(name = "idx_charge_archive_originator", columnList = "originator_id, created_at"),
+    @Index(name = "idx_charge_archive_recipient", columnList = "recipient_id, created_at"),
+    @Index(name = "idx_charge_archive_created_at", columnList = "created_at")
+})
+@Getter
+@NoArgsConstructor
+public class ArchivedCharge {
+    
+    @Id
+    @Column(columnDefinition = "BINARY(16)")
+    private UUID id;
+    
+    @Column(name = "originator_id", nullable = false, columnDefinition = "BINARY(16)")
+    private UUID originatorId;
+    
+    @Column(name = "recipient_id", nullable = false, columnDefinition = "BINARY(16)")
+    private UUID recipientId;
+    
+    @Column(nullable = false, precision = 10, scale = 2)
+    private BigDecimal amount;
+    
+    @Column(length = 500)
+    private String description;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private Charge.ChargeStatus status;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(name = "payment_method", length = 20)
+    private Charge.PaymentMethod paymentMethod;
+    
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+    
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+    
+    @Column(name = "paid_at")
+    private LocalDateTime paidAt;
+    
+    @Column(name = "cancelled_at")
+    private LocalDateTime cancelledAt;
+    
+    @Column(name = "archived_at", nullable = false)
+    private LocalDateTime archivedAt;
+    
+    // Archived charges are settled history: the result is detached and never written back
+    public Charge toCharge(User originator, User recipient) {
+        return Charge.builder()
+                .id(id)
+                .originator(originator)
+                .recipient(recipient)
+                .amount(amount)
+                .description(description)
+                .status(status)
+                .paymentMethod(paymentMethod)
+                .createdAt(createdAt)
+                .updatedAt(updatedAt)
+                .paidAt(paidAt)
+                .cancelledAt(cancelledAt)
+                .build();
+    }
+}
@@ -0,0 +1,64 @@
+package com.nimble.gateway.domain.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Entity
+@Table(name = "payments_archive", indexes = {
+    @Index(name = "idx_payment_archive_charge", columnList = "charge_id"),
+    @Index(name = "idx_payment_archive_payer", columnList = "payer_id, created_at")
+})
+@Getter
+@NoArgsConstructor
+public class ArchivedPayment {
+    
+    @Id
+    @Column(columnDefinition = "BINARY(16)")
+    private UUID id;
+    
+    @Column(name = "charge_id", columnDefinition = "BINARY(16)")
+    private UUID chargeId;
+    
+    @Column(name = "payer_id", nullable = false, columnDefinition = "BINARY(16)")
+    private UUID payerId;
+    
+    @Column(nullable = false, precision = 10, scale = 2)
+    private BigDecimal amount;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private Payment.PaymentStatus status;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private Payment.PaymentMethod method;
+    
+    @Column(name = "external_transaction_id", length = 100)
+    private String externalTransactionId;
+    
+    @Column(name = "authorization_code", length = 50)
+    private String authorizationCode;
+    
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+    
+    @Column(name = "payment_date", nullable = false)
+    private LocalDateTime paymentDate;
+    
+    @Column(name = "processed_at")
+    private LocalDateTime processedAt;
+    
+    @Column(name = "failed_at")
+    private LocalDateTime failedAt;
+    
+    @Column(name = "failure_reason", length = 500)
+    private String failureReason;
+    
+    @Column(name = "archived_at", nullable = false)
+    private LocalDateTime archivedAt;
+}
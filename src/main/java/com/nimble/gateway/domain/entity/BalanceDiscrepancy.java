@@ -0,0 +1,49 @@
+package com.nimble.gateway.domain.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+// A user whose stored balance did not match the one recomputed from their history in a reconciliation run
+@Entity
+@Table(name = "balance_discrepancies", indexes = {
+    @Index(name = "idx_balance_discrepancy_run", columnList = "run_id"),
+    @Index(name = "idx_balance_discrepancy_user", columnList = "user_id, detected_at")
+})
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BalanceDiscrepancy {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    @Column(columnDefinition = "BINARY(16)")
+    private UUID id;
+    
+    @Column(name = "run_id", nullable = false, columnDefinition = "BINARY(16)")
+    private UUID runId;
+    
+    @Column(name = "user_id", nullable = false, columnDefinition = "BINARY(16)")
+    private UUID userId;
+    
+    @Column(name = "recorded_balance", nullable = false, precision = 14, scale = 2)
+    private BigDecimal recordedBalance;
+    
+    @Column(name = "expected_balance", nullable = false, precision = 14, scale = 2)
+    private BigDecimal expectedBalance;
+    
+    // recorded - expected: positive means the user holds more than their history explains
+    @Column(nullable = false, precision = 14, scale = 2)
+    private BigDecimal difference;
+    
+    @Column(name = "detected_at", nullable = false)
+    @Builder.Default
+    private LocalDateTime detectedAt = LocalDateTime.now();
+}
@@ -12,8 +12,8 @@ import java.util.UUID;
 
 @Entity
 @Table(name = "charges", indexes = {
-    @Index(name = "idx_charge_originator", columnList = "originator_id"),
-    @Index(name = "idx_charge_recipient", columnList = "recipient_id"),
+    @Index(name = "idx_charge_originator", columnList = "originator_id, created_at"),
+    @Index(name = "idx_charge_recipient", columnList = "recipient_id, created_at"),
     @Index(name = "idx_charge_status", columnList = "status"),
     @Index(name = "idx_charge_created_at", columnList = "created_at")
 })
@@ -65,6 +65,11 @@ public class Charge {
     @Builder.Default
     private PaymentMethod paymentMethod = PaymentMethod.BALANCE;
     
+    // Checked on every update, so a pay or cancellation decided on a stale read fails instead of overwriting another
+    @Version
+    @Column(nullable = false)
+    private Long version;
+    
     @PreUpdate
     protected void onUpdate() {
         this.updatedAt = LocalDateTime.now();
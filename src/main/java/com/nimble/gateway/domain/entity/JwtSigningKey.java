@@ -0,0 +1,59 @@
+package com.nimble.gateway.domain.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.domain.Persistable;
+
+import java.time.LocalDateTime;
+
+// One key of the JWT key ring: it signs from activatesAt until a newer key activates, and verifies until expiresAt
+@Entity
+@Table(name = "jwt_signing_keys", indexes = {
+    @Index(name = "idx_jwt_signing_key_expiry", columnList = "expires_at")
+})
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class JwtSigningKey implements Persistable<String> {
+    
+    @Id
+    @Column(length = 36)
+    private String kid;
+    
+    // JWA name: ES256 or EdDSA
+    @Column(nullable = false, length = 10)
+    private String algorithm;
+    
+    // X.509 SubjectPublicKeyInfo
+    @Column(name = "public_key", nullable = false, length = 512)
+    private byte[] publicKey;
+    
+    // PKCS#8, AES-GCM encrypted with a key derived from app.jwt.secret
+    @Column(name = "private_key", nullable = false, length = 512)
+    private byte[] privateKey;
+    
+    @Column(name = "created_at", nullable = false)
+    @Builder.Default
+    private LocalDateTime createdAt = LocalDateTime.now();
+    
+    @Column(name = "activates_at", nullable = false)
+    private LocalDateTime activatesAt;
+    
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+    
+    // Kids are fresh UUIDs, so a key is only ever inserted
+    @Override
+    public String getId() {
+        return kid;
+    }
+    
+    @Override
+    public boolean isNew() {
+        return true;
+    }
+}
@@ -0,0 +1,50 @@
+package com.nimble.gateway.domain.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Entity
+@Table(name = "outbox_events", indexes = {
+    @Index(name = "idx_outbox_unpublished", columnList = "published_at, id"),
+    @Index(name = "idx_outbox_aggregate", columnList = "aggregate_id, id")
+})
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OutboxEvent {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(name = "aggregate_id", nullable = false, columnDefinition = "BINARY(16)")
+    private UUID aggregateId;
+    
+    @Column(name = "event_type", nullable = false, length = 20)
+    private String eventType;
+    
+    @Column(nullable = false, length = 128)
+    private byte[] payload;
+    
+    @Column(name = "created_at", nullable = false, updatable = false)
+    @Builder.Default
+    private LocalDateTime createdAt = LocalDateTime.now();
+    
+    @Column(name = "published_at")
+    private LocalDateTime publishedAt;
+    
+    public void markAsPublished() {
+        this.publishedAt = LocalDateTime.now();
+    }
+    
+    public boolean isPublished() {
+        return this.publishedAt != null;
+    }
+}
@@ -13,7 +13,7 @@ import java.util.UUID;
 @Entity
 @Table(name = "payments", indexes = {
     @Index(name = "idx_payment_charge", columnList = "charge_id"),
-    @Index(name = "idx_payment_payer", columnList = "payer_id"),
+    @Index(name = "idx_payment_payer", columnList = "payer_id, created_at"),
     @Index(name = "idx_payment_status", columnList = "status"),
     @Index(name = "idx_payment_created_at", columnList = "created_at")
 })
@@ -0,0 +1,53 @@
+package com.nimble.gateway.domain.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.domain.Persistable;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+// A rotated refresh token, or a whole token family revoked because one of its tokens was presented twice
+@Entity
+@Table(name = "revoked_refresh_tokens", indexes = {
+    @Index(name = "idx_revoked_refresh_token_expiry", columnList = "expires_at")
+})
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RevokedRefreshToken implements Persistable<UUID> {
+    
+    // The token id for TOKEN, the family id for FAMILY
+    @Id
+    @Column(columnDefinition = "BINARY(16)")
+    private UUID id;
+    
+    @Column(name = "user_id", nullable = false, columnDefinition = "BINARY(16)")
+    private UUID userId;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 10)
+    private Kind kind;
+    
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+    
+    @Column(name = "revoked_at", nullable = false)
+    @Builder.Default
+    private LocalDateTime revokedAt = LocalDateTime.now();
+    
+    // Always inserted, never merged: a second revocation of the same id must fail on the primary key
+    @Override
+    public boolean isNew() {
+        return true;
+    }
+    
+    public enum Kind {
+        TOKEN,
+        FAMILY
+    }
+}
@@ -58,6 +58,11 @@ public class User implements UserDetails {
     @Column(name = "updated_at")
     private LocalDateTime updatedAt;
     
+    // Checked on every update, so two balance changes decided on the same read cannot both be applied
+    @Version
+    @Column(nullable = false)
+    private Long version;
+    
     @PreUpdate
     protected void onUpdate() {
         this.updatedAt = LocalDateTime.now();
@@ -0,0 +1,110 @@
+package com.nimble.gateway.domain.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.UUID;
+
+// Per-user daily charge counts and sums by status, bucketed by the day the charge was created
+@Entity
+@Table(name = "user_charge_summaries", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_user_charge_summary", columnNames = {"user_id", "role", "summary_date"})
+}, indexes = {
+    @Index(name = "idx_user_charge_summary_date", columnList = "summary_date")
+})
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserChargeSummary {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(name = "user_id", nullable = false, columnDefinition = "BINARY(16)")
+    private UUID userId;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 10)
+    private Role role;
+    
+    @Column(name = "summary_date", nullable = false)
+    private LocalDate summaryDate;
+    
+    @Column(name = "pending_count", nullable = false)
+    @Builder.Default
+    private long pendingCount = 0;
+    
+    @Column(name = "pending_amount", nullable = false, precision = 14, scale = 2)
+    @Builder.Default
+    private BigDecimal pendingAmount = BigDecimal.ZERO;
+    
+    @Column(name = "paid_count", nullable = false)
+    @Builder.Default
+    private long paidCount = 0;
+    
+    @Column(name = "paid_amount", nullable = false, precision = 14, scale = 2)
+    @Builder.Default
+    private BigDecimal paidAmount = BigDecimal.ZERO;
+    
+    @Column(name = "cancelled_count", nullable = false)
+    @Builder.Default
+    private long cancelledCount = 0;
+    
+    @Column(name = "cancelled_amount", nullable = false, precision = 14, scale = 2)
+    @Builder.Default
+    private BigDecimal cancelledAmount = BigDecimal.ZERO;
+    
+    public static UserChargeSummary of(UUID userId, Role role, LocalDate summaryDate) {
+        return UserChargeSummary.builder()
+                .userId(userId)
+                .role(role)
+                .summaryDate(summaryDate)
+                .build();
+    }
+    
+    public UserChargeSummary add(Charge.ChargeStatus status, long count, BigDecimal amount) {
+        switch (status) {
+            case PENDING -> {
+                pendingCount += count;
+                pendingAmount = pendingAmount.add(amount);
+            }
+            case PAID -> {
+                paidCount += count;
+                paidAmount = paidAmount.add(amount);
+            }
+            case CANCELLED -> {
+                cancelledCount += count;
+                cancelledAmount = cancelledAmount.add(amount);
+            }
+        }
+        return this;
+    }
+    
+    public UserChargeSummary add(UserChargeSummary other) {
+        pendingCount += other.pendingCount;
+        pendingAmount = pendingAmount.add(other.pendingAmount);
+        paidCount += other.paidCount;
+        paidAmount = paidAmount.add(other.paidAmount);
+        cancelledCount += other.cancelledCount;
+        cancelledAmount = cancelledAmount.add(other.cancelledAmount);
+        return this;
+    }
+    
+    // Same counters regardless of row identity or BigDecimal scale
+    public boolean sameTotals(UserChargeSummary other) {
+        return pendingCount == other.pendingCount && pendingAmount.compareTo(other.pendingAmount) == 0
+                && paidCount == other.paidCount && paidAmount.compareTo(other.paidAmount) == 0
+                && cancelledCount == other.cancelledCount && cancelledAmount.compareTo(other.cancelledAmount) == 0;
+    }
+    
+    public enum Role {
+        SENT, RECEIVED
+    }
+}
@@ -0,0 +1,38 @@
+package com.nimble.gateway.domain.event;
+
+import com.nimble.gateway.domain.entity.Charge;
+import lombok.Builder;
+import lombok.Value;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.UUID;
+
+@Value
+@Builder
+public class ChargeEvent {
+    
+    Type type;
+    UUID chargeId;
+    UUID originatorId;
+    UUID recipientId;
+    BigDecimal amount;
+    Charge.PaymentMethod paymentMethod;
+    Instant occurredAt;
+    
+    public static ChargeEvent of(Charge charge, Type type) {
+        return ChargeEvent.builder()
+                .type(type)
+                .chargeId(charge.getId())
+                .originatorId(charge.getOriginator().getId())
+                .recipientId(charge.getRecipient().getId())
+                .amount(charge.getAmount())
+                .paymentMethod(type == Type.PAID ? charge.getPaymentMethod() : null)
+                .occurredAt(Instant.now())
+                .build();
+    }
+    
+    public enum Type {
+        CREATED, PAID, CANCELLED
+    }
+}
@@ -1,12 +1,13 @@
 package com.nimble.gateway.domain.exception;
 
+// Routine business outcomes, raised on every rejected request: no stack trace is captured and none is needed
 public abstract class DomainException extends RuntimeException {
     
     protected DomainException(String message) {
-        super(message);
+        super(message, null, false, false);
     }
     
     protected DomainException(String message, Throwable cause) {
-        super(message, cause);
+        super(message, cause, false, false);
     }
-}
\ No newline at end of file
+}
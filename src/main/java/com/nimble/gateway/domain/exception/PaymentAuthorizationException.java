@@ -1,6 +1,6 @@
 package com.nimble.gateway.domain.exception;
 
-public class PaymentAuthorizationException extends RuntimeException {
+public class PaymentAuthorizationException extends DomainException {
     
     public PaymentAuthorizationException(String message) {
         super(message);
@@ -14,4 +14,5 @@ public interface AuditLogRepository {
     List<AuditLog> findByAction(String action);
     List<AuditLog> findByEntityTypeAndEntityId(String entityType, String entityId);
     List<AuditLog> findByCreatedAtBetween(LocalDateTime startDate, LocalDateTime endDate);
+    int archiveCreatedBefore(LocalDateTime cutoff, int batchSize);
 }
@@ -0,0 +1,13 @@
+package com.nimble.gateway.domain.repository;
+
+import com.nimble.gateway.domain.entity.BalanceDiscrepancy;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+public interface BalanceDiscrepancyRepository {
+    
+    void saveAllDiscrepancies(Collection<BalanceDiscrepancy> discrepancies);
+    List<BalanceDiscrepancy> findByRunId(UUID runId);
+}
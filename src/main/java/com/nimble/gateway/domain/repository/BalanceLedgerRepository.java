@@ -0,0 +1,14 @@
+package com.nimble.gateway.domain.repository;
+
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.UUID;
+
+// Read-only view over users.balance and the history that should explain it, for user ids in [from, to]
+public interface BalanceLedgerRepository {
+    
+    Map<UUID, BigDecimal> findBalances(UUID from, UUID to);
+    
+    // Deposits, plus charges credited to the user, minus balance payments that were not refunded; live and archived
+    Map<UUID, BigDecimal> computeExpectedBalances(UUID from, UUID to);
+}
@@ -2,7 +2,10 @@ package com.nimble.gateway.domain.repository;
 
 import com.nimble.gateway.domain.entity.Charge;
 import com.nimble.gateway.domain.entity.User;
+import com.nimble.gateway.domain.valueobject.PendingCharge;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -11,9 +14,23 @@ public interface ChargeRepository {
     
     Charge save(Charge charge);
     Optional<Charge> findById(UUID id);
+    List<Charge> findAllById(Iterable<UUID> ids);
     List<Charge> findByOriginator(User originator);
     List<Charge> findByRecipient(User recipient);
     List<Charge> findByOriginatorAndStatus(User originator, Charge.ChargeStatus status);
     List<Charge> findByRecipientAndStatus(User recipient, Charge.ChargeStatus status);
     void deleteById(UUID id);
+    
+    // Locks the charges found among the ids and fetches their recipients in the same query
+    List<Charge> findAllByIdForUpdate(Collection<UUID> ids);
+    
+    // Id, recipient, amount and version of every pending charge, without loading the entities
+    List<PendingCharge> findAllPending();
+    
+    // Charges created in [from, to), newest first, including settled charges already moved to the archive
+    List<Charge> findHistoryByOriginator(User originator, LocalDateTime from, LocalDateTime to);
+    List<Charge> findHistoryByRecipient(User recipient, LocalDateTime from, LocalDateTime to);
+    
+    // Moves up to batchSize settled charges created before the cutoff, with their payments, to the archive
+    int archiveSettledBefore(LocalDateTime cutoff, int batchSize);
 }
\ No newline at end of file
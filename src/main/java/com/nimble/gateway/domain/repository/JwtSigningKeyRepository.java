@@ -0,0 +1,13 @@
+package com.nimble.gateway.domain.repository;
+
+import com.nimble.gateway.domain.entity.JwtSigningKey;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface JwtSigningKeyRepository {
+    
+    void insert(JwtSigningKey key);
+    List<JwtSigningKey> findUnexpired(LocalDateTime now);
+    int deleteExpiredBefore(LocalDateTime now);
+}
@@ -0,0 +1,16 @@
+package com.nimble.gateway.domain.repository;
+
+import com.nimble.gateway.domain.entity.OutboxEvent;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+public interface OutboxEventRepository {
+    
+    OutboxEvent save(OutboxEvent outboxEvent);
+    List<OutboxEvent> lockNextBatch(int batchSize);
+    List<OutboxEvent> findByAggregateIdOrderByIdAsc(UUID aggregateId);
+    long countByPublishedAtIsNull();
+    int deletePublishedBefore(LocalDateTime threshold);
+}
@@ -0,0 +1,16 @@
+package com.nimble.gateway.domain.repository;
+
+import com.nimble.gateway.domain.entity.RevokedRefreshToken;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+public interface RevokedRefreshTokenRepository {
+    
+    // Fails with a DataIntegrityViolationException when the id is already revoked
+    void insert(RevokedRefreshToken revocation);
+    boolean existsById(UUID id);
+    List<UUID> findIdsExpiringAfter(LocalDateTime now);
+    int deleteExpiredBefore(LocalDateTime now);
+}
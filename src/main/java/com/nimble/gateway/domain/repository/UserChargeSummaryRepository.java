@@ -0,0 +1,23 @@
+package com.nimble.gateway.domain.repository;
+
+import com.nimble.gateway.domain.entity.UserChargeSummary;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+public interface UserChargeSummaryRepository {
+    
+    // Atomically adds the delta's counters to its (user, role, day) row; false when that row does not exist yet
+    boolean addDelta(UserChargeSummary delta);
+    
+    List<UserChargeSummary> findByUserIdAndSummaryDateBetween(UUID userId, LocalDate from, LocalDate to);
+    List<UserChargeSummary> findBySummaryDateBetween(LocalDate from, LocalDate to);
+    int deleteBySummaryDateBetween(LocalDate from, LocalDate to);
+    void saveAllSummaries(Collection<UserChargeSummary> summaries);
+    
+    // Daily rows for [from, to] computed from scratch out of live and archived charges
+    Collection<UserChargeSummary> recompute(LocalDate from, LocalDate to);
+    LocalDate findEarliestChargeDate();
+}
@@ -2,6 +2,7 @@ package com.nimble.gateway.domain.repository;
 
 import com.nimble.gateway.domain.entity.User;
 
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -9,10 +10,16 @@ public interface UserRepository {
     
     User save(User user);
     Optional<User> findById(UUID id);
+    List<User> findAllById(Iterable<UUID> ids);
+    // Row lock on the user, held until the surrounding transaction ends
+    Optional<User> findByIdForUpdate(UUID id);
+    User getReferenceById(UUID id);
     Optional<User> findByCpf(String cpf);
     Optional<User> findByEmail(String email);
     boolean existsByCpf(String cpf);
     boolean existsByEmail(String email);
+    // Touches only the hash, so a concurrent balance update is never overwritten by a stale copy of the row
+    int updatePassword(UUID id, String password);
     void deleteById(UUID id);
     void deleteAll();
 }
\ No newline at end of file
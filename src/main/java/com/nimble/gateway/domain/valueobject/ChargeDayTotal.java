@@ -0,0 +1,11 @@
+package com.nimble.gateway.domain.valueobject;
+
+import com.nimble.gateway.domain.entity.Charge;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.UUID;
+
+// One (user, day, status) aggregate row as read from the charges tables
+public record ChargeDayTotal(UUID userId, LocalDate day, Charge.ChargeStatus status, Long count, BigDecimal amount) {
+}
@@ -0,0 +1,8 @@
+package com.nimble.gateway.domain.valueobject;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+// What a pay needs to know about a pending charge before touching the row
+public record PendingCharge(UUID id, UUID recipientId, BigDecimal amount, long version) {
+}
@@ -0,0 +1,8 @@
+package com.nimble.gateway.domain.valueobject;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+// A per-user money aggregate as read from the ledger tables
+public record UserAmount(UUID userId, BigDecimal amount) {
+}
@@ -0,0 +1,24 @@
+package com.nimble.gateway.domain.valueobject;
+
+import com.nimble.gateway.domain.entity.User;
+
+import java.util.UUID;
+
+// Immutable identity attributes only: no balance or password, so it is safe to cache
+public record UserIdentity(UUID id, String name, String cpf, String email, boolean active) {
+    
+    public static UserIdentity of(User user) {
+        return new UserIdentity(user.getId(), user.getName(), user.getCpf(), user.getEmail(), Boolean.TRUE.equals(user.getIsActive()));
+    }
+    
+    public User toPrincipal() {
+        return User.builder()
+                .id(id)
+                .name(name)
+                .cpf(cpf)
+                .email(email)
+                .isActive(active)
+                .balance(null)
+                .build();
+    }
+}
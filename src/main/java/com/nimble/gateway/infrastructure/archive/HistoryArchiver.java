@@ -0,0 +1,60 @@
+package com.nimble.gateway.infrastructure.archive;
+
+import com.nimble.gateway.domain.repository.AuditLogRepository;
+import com.nimble.gateway.domain.repository.ChargeRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.time.LocalDateTime;
+import java.util.function.IntSupplier;
+
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "app.archive.enabled", havingValue = "true", matchIfMissing = true)
+public class HistoryArchiver {
+    
+    private final ChargeRepository chargeRepository;
+    private final AuditLogRepository auditLogRepository;
+    private final TransactionOperations transactionOperations;
+    private final long retentionDays;
+    private final int batchSize;
+    
+    public HistoryArchiver(
+            ChargeRepository chargeRepository,
+            AuditLogRepository auditLogRepository,
+            TransactionOperations transactionOperations,
+            @Value("${app.archive.retention-days:90}") long retentionDays,
+            @Value("${app.archive.batch-size:500}") int batchSize) {
+        this.chargeRepository = chargeRepository;
+        this.auditLogRepository = auditLogRepository;
+        this.transactionOperations = transactionOperations;
+        this.retentionDays = retentionDays;
+        this.batchSize = batchSize;
+    }
+    
+    @Scheduled(cron = "${app.archive.cron:0 30 3 * * *}")
+    public void archive() {
+        LocalDateTime cutoff = LocalDateTime.now().minusDays(retentionDays);
+        int charges = drain(() -> chargeRepository.archiveSettledBefore(cutoff, batchSize));
+        int auditLogs = drain(() -> auditLogRepository.archiveCreatedBefore(cutoff, batchSize));
+        
+        if (charges > 0 || auditLogs > 0) {
+            log.info("Archived {} settled charges and {} audit log entries created before {}", charges, auditLogs, cutoff);
+        }
+    }
+    
+    // One transaction per batch keeps row locks and undo short while the job runs next to live traffic
+    private int drain(IntSupplier batch) {
+        int total = 0;
+        Integer moved;
+        do {
+            moved = transactionOperations.execute(status -> batch.getAsInt());
+            total += moved != null ? moved : 0;
+        } while (moved != null && moved == batchSize);
+        return total;
+    }
+}
@@ -0,0 +1,73 @@
+package com.nimble.gateway.infrastructure.archive;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Keeps monthly range partitions (see V004) created ahead of time by splitting them off the catch-all p_future
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "app.archive.partitions.enabled", havingValue = "true")
+public class PartitionMaintainer {
+    
+    static final List<String> PARTITIONED_TABLES = List.of("charges", "payments", "audit_logs");
+    
+    private static final Pattern MONTHLY_PARTITION = Pattern.compile("p(\\d{4})_(\\d{2})");
+    private static final DateTimeFormatter PARTITION_NAME = DateTimeFormatter.ofPattern("'p'yyyy_MM");
+    
+    private final JdbcTemplate jdbcTemplate;
+    private final int monthsAhead;
+    
+    public PartitionMaintainer(
+            JdbcTemplate jdbcTemplate,
+            @Value("${app.archive.partitions.months-ahead:3}") int monthsAhead) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.monthsAhead = monthsAhead;
+    }
+    
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${app.archive.partitions.cron:0 0 2 * * *}")
+    public void ensureFuturePartitions() {
+        YearMonth horizon = YearMonth.now().plusMonths(monthsAhead);
+        for (String table : PARTITIONED_TABLES) {
+            YearMonth last = lastMonthlyPartition(table);
+            if (last == null) {
+                log.warn("Table {} has no monthly partitions, skipping partition maintenance", table);
+                continue;
+            }
+            
+            for (YearMonth month = last.plusMonths(1); !month.isAfter(horizon); month = month.plusMonths(1)) {
+                jdbcTemplate.execute("ALTER TABLE " + table + " REORGANIZE PARTITION p_future INTO (" +
+                        "PARTITION " + month.format(PARTITION_NAME) + " VALUES LESS THAN (UNIX_TIMESTAMP('" + month.plusMonths(1).atDay(1) + " 00:00:00')), " +
+                        "PARTITION p_future VALUES LESS THAN MAXVALUE)");
+                log.info("Created partition {} on {}", month.format(PARTITION_NAME), table);
+            }
+        }
+    }
+    
+    private YearMonth lastMonthlyPartition(String table) {
+        List<String> partitions = jdbcTemplate.queryForList(
+                "SELECT partition_name FROM information_schema.partitions " +
+                "WHERE table_schema = DATABASE() AND table_name = ? AND partition_name IS NOT NULL", String.class, table);
+        
+        YearMonth last = null;
+        for (String partition : partitions) {
+            Matcher matcher = MONTHLY_PARTITION.matcher(partition);
+            if (!matcher.matches()) continue;
+            YearMonth month = YearMonth.of(Integer.parseInt(matcher.group(1)), Integer.parseInt(matcher.group(2)));
+            if (last == null || month.isAfter(last)) last = month;
+        }
+        return last;
+    }
+}
@@ -0,0 +1,178 @@
+package com.nimble.gateway.infrastructure.balance;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+// Append-only write-ahead log of balance transfers in memory-mapped segment files. Entries have a fixed size, a
+// sequence number, the kind of transfer and the payment it belongs to, and their own checksum, so recovery reads forward until the sequence breaks or a checksum fails:
+// that is where a crash cut the last write short, and where appending resumes. A write lands in the page cache as
+// soon as it is copied into the mapping, so it survives the process dying; flush() also forces it to the disk
+final class BalanceJournal implements Closeable {
+    
+    static final int ENTRY_BYTES = 72;
+    
+    private static final int SEQUENCE = 0;
+    private static final int FROM_HI = 8;
+    private static final int FROM_LO = 16;
+    private static final int TO_HI = 24;
+    private static final int TO_LO = 32;
+    private static final int CENTS = 40;
+    private static final int REFERENCE_HI = 48;
+    private static final int REFERENCE_LO = 56;
+    private static final int KIND = 64;
+    private static final int CHECKSUM = 68;
+    private static final int CHECKED_BYTES = CHECKSUM;
+    private static final String PREFIX = "journal-";
+    private static final String SUFFIX = ".log";
+    
+    private final Path directory;
+    private final int segmentEntries;
+    private final boolean fsync;
+    private final CRC32C checksum = new CRC32C();
+    // The writer appends and rolls, the snapshot thread deletes: both hold the journal's monitor for the list
+    private final List<Segment> segments = new ArrayList<>();
+    private Segment current;
+    private int position;
+    private int flushed;
+    
+    BalanceJournal(Path directory, int segmentEntries, boolean fsync) {
+        this.directory = directory;
+        this.segmentEntries = segmentEntries;
+        this.fsync = fsync;
+    }
+    
+    interface Replay {
+        void entry(long sequence, int kind, long referenceHi, long referenceLo, long fromHi, long fromLo, long toHi, long toLo, long cents);
+    }
+    
+    // Replays every valid entry still on disk and returns the sequence appending resumes after. Entries up to the
+    // covered sequence are in a snapshot already, so a gap or a torn tail below it is not an error
+    synchronized long open(long covered, Replay replay) throws IOException {
+        Files.createDirectories(directory);
+        List<Path> files;
+        try (Stream<Path> listing = Files.list(directory)) {
+            files = listing.filter(BalanceJournal::isSegment).sorted().toList();
+        }
+        
+        long last = covered;
+        for (int i = 0; i < files.size(); i++) {
+            Segment segment = Segment.open(files.get(i), firstSequence(files.get(i)), segmentEntries);
+            if (segment.first > last + 1) {
+                throw new IllegalStateException("Balance journal is missing entries " + (last + 1) + " to " + (segment.first - 1) + " before " + segment.path);
+            }
+            segments.add(segment);
+            int entry = 0;
+            for (; entry < segmentEntries; entry++) {
+                int offset = entry * ENTRY_BYTES;
+                long sequence = segment.buffer.getLong(offset + SEQUENCE);
+                if (sequence != segment.first + entry || !valid(segment.buffer, offset)) break;
+                replay.entry(sequence, segment.buffer.getInt(offset + KIND), segment.buffer.getLong(offset + REFERENCE_HI),
+                        segment.buffer.getLong(offset + REFERENCE_LO), segment.buffer.getLong(offset + FROM_HI), segment.buffer.getLong(offset + FROM_LO),
+                        segment.buffer.getLong(offset + TO_HI), segment.buffer.getLong(offset + TO_LO), segment.buffer.getLong(offset + CENTS));
+                last = Math.max(last, sequence);
+            }
+            current = segment;
+            position = entry;
+            if (entry < segmentEntries && i < files.size() - 1 && segment.first + entry > covered) {
+                throw new IllegalStateException("Balance journal is torn at entry " + (segment.first + entry) + " of " + segment.path
+                        + " but has later segments; move them away to recover up to that point");
+            }
+        }
+        flushed = position;
+        return last;
+    }
+    
+    void append(long sequence, int kind, long referenceHi, long referenceLo, long fromHi, long fromLo, long toHi, long toLo, long cents) throws IOException {
+        // A new segment starts when the last one is full, or when recovery left nothing to continue from
+        if (current == null || position == segmentEntries || current.first + position != sequence) roll(sequence);
+        
+        MappedByteBuffer buffer = current.buffer;
+        int offset = position * ENTRY_BYTES;
+        buffer.putLong(offset + SEQUENCE, sequence);
+        buffer.putLong(offset + FROM_HI, fromHi);
+        buffer.putLong(offset + FROM_LO, fromLo);
+        buffer.putLong(offset + TO_HI, toHi);
+        buffer.putLong(offset + TO_LO, toLo);
+        buffer.putLong(offset + CENTS, cents);
+        buffer.putLong(offset + REFERENCE_HI, referenceHi);
+        buffer.putLong(offset + REFERENCE_LO, referenceLo);
+        buffer.putInt(offset + KIND, kind);
+        buffer.putInt(offset + CHECKSUM, checksum(buffer, offset));
+        position++;
+    }
+    
+    // One force for everything appended since the last call: the writer calls it once per batch
+    void flush() {
+        if (!fsync || current == null || flushed == position) return;
+        current.buffer.force(flushed * ENTRY_BYTES, (position - flushed) * ENTRY_BYTES);
+        flushed = position;
+    }
+    
+    // Segments whose every entry is at or below the sequence are covered by a snapshot and projected, so they go
+    synchronized int deleteThrough(long sequence) throws IOException {
+        int deleted = 0;
+        while (segments.size() > 1 && segments.get(1).first - 1 <= sequence) {
+            Files.deleteIfExists(segments.remove(0).path);
+            deleted++;
+        }
+        return deleted;
+    }
+    
+    @Override
+    public void close() {
+        flush();
+    }
+    
+    private synchronized void roll(long sequence) throws IOException {
+        if (current != null && fsync) current.buffer.force();
+        current = Segment.create(directory.resolve(String.format("%s%020d%s", PREFIX, sequence, SUFFIX)), sequence, segmentEntries);
+        segments.add(current);
+        position = 0;
+        flushed = 0;
+    }
+    
+    private boolean valid(MappedByteBuffer buffer, int offset) {
+        return buffer.getInt(offset + CHECKSUM) == checksum(buffer, offset);
+    }
+    
+    private int checksum(MappedByteBuffer buffer, int offset) {
+        checksum.reset();
+        checksum.update(buffer.slice(offset, CHECKED_BYTES));
+        return (int) checksum.getValue();
+    }
+    
+    private static boolean isSegment(Path path) {
+        String name = path.getFileName().toString();
+        return name.startsWith(PREFIX) && name.endsWith(SUFFIX);
+    }
+    
+    private static long firstSequence(Path path) {
+        String name = path.getFileName().toString();
+        return Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+    }
+    
+    private record Segment(Path path, long first, MappedByteBuffer buffer) {
+        
+        static Segment create(Path path, long first, int entries) throws IOException {
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                return new Segment(path, first, channel.map(FileChannel.MapMode.READ_WRITE, 0, (long) entries * ENTRY_BYTES));
+            }
+        }
+        
+        // The mapping outlives the channel, so no file handle stays open per segment
+        static Segment open(Path path, long first, int entries) throws IOException {
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                return new Segment(path, first, channel.map(FileChannel.MapMode.READ_WRITE, 0, (long) entries * ENTRY_BYTES));
+            }
+        }
+    }
+}
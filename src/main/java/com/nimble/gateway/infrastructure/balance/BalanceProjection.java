@@ -0,0 +1,96 @@
+package com.nimble.gateway.infrastructure.balance;
+
+import com.nimble.gateway.infrastructure.persistence.PaymentEngine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+
+// Copies the balances the in-memory engine changed back to users.balance, one JDBC batch per pass. The version is
+// bumped with each write, so a JPA update of a user read before it fails as a conflict and rereads instead of
+// putting an older balance back. A failed pass hands its balances back to be written by the next one; the journal
+// keeps every transfer after the last projected sequence, so a crash in between loses nothing either
+@Slf4j
+@Component
+@ConditionalOnProperty(name = PaymentEngine.PROPERTY, havingValue = PaymentEngine.IN_MEMORY)
+public class BalanceProjection {
+    
+    private static final String UPDATE_BALANCE = "UPDATE users SET balance = ?, version = version + 1, updated_at = ? WHERE id = ?";
+    
+    private final InMemoryBalanceEngine engine;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionOperations transactionOperations;
+    private final Counter projected;
+    private final Counter failures;
+    // Reused across passes; the scheduler never runs two at once
+    private final BalanceSequencer.Drain drain = new BalanceSequencer.Drain();
+    
+    public BalanceProjection(InMemoryBalanceEngine engine,
+                             JdbcTemplate jdbcTemplate,
+                             TransactionOperations transactionOperations,
+                             MeterRegistry meterRegistry) {
+        this.engine = engine;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionOperations = transactionOperations;
+        this.projected = Counter.builder("payment.in_memory.projected")
+                .description("Balances written back to the users table")
+                .register(meterRegistry);
+        this.failures = Counter.builder("payment.in_memory.projection.failures")
+                .description("Projection passes that failed and were handed back to the next one")
+                .register(meterRegistry);
+    }
+    
+    @Scheduled(fixedDelayString = "${app.payments.in-memory.projection-interval-ms:200}")
+    public synchronized void project() {
+        if (!engine.isRecovered()) return;
+        
+        engine.drainDirty(drain);
+        if (drain.count > 0) {
+            try {
+                transactionOperations.executeWithoutResult(status -> jdbcTemplate.batchUpdate(UPDATE_BALANCE, new BalanceSetter(drain)));
+            } catch (DataAccessException e) {
+                failures.increment();
+                log.warn("Projection of {} balances at sequence {} failed, retrying with the next pass: {}", drain.count, drain.sequence, e.getMessage());
+                engine.requeue(drain);
+                return;
+            }
+            projected.increment(drain.count);
+        }
+        // Nothing changed up to this sequence is left unwritten, so the journal before it may go
+        engine.projected(drain.sequence);
+    }
+    
+    @PreDestroy
+    public void flush() {
+        project();
+    }
+    
+    private record BalanceSetter(BalanceSequencer.Drain drain) implements BatchPreparedStatementSetter {
+        
+        @Override
+        public void setValues(PreparedStatement statement, int i) throws SQLException {
+            statement.setBigDecimal(1, BigDecimal.valueOf(drain.cents[i], 2));
+            statement.setTimestamp(2, Timestamp.valueOf(LocalDateTime.now()));
+            statement.setBytes(3, ByteBuffer.allocate(16).putLong(drain.his[i]).putLong(drain.los[i]).array());
+        }
+        
+        @Override
+        public int getBatchSize() {
+            return drain.count;
+        }
+    }
+}
@@ -0,0 +1,480 @@
+package com.nimble.gateway.infrastructure.balance;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+// The single writer of the balance table. Callers claim a slot of a preallocated ring, fill it in place and publish
+// it; one thread takes whatever is published as a batch, journals and applies each transfer in ring order, forces
+// the journal once and only then answers the whole batch. Nothing is locked and nothing is allocated per command but
+// the record of a hold, so a transfer costs a hash lookup and a 72-byte copy into the mapped journal. An I/O failure
+// stops the writer: from then on every command fails, and a restart recovers from the snapshot and the journal
+@Slf4j
+final class BalanceSequencer implements Runnable {
+    
+    static final long REFUSED = -1;
+    
+    // Kinds of journal entries. A hold debits its payer into the holding account while its payment's transaction is
+    // open and keeps the recipient it is meant for; the credit or the release that settles it moves it on from there
+    static final int MOVE = 0;
+    static final int HOLD = 1;
+    static final int CREDIT = 2;
+    static final int RELEASE = 3;
+    // Marks a refund's hold and its settlement, which commit with the charge's cancellation rather than the payment row
+    static final int REFUND = 4;
+    static final long HELD_HI = 0;
+    static final long HELD_LO = 1;
+    
+    private static final int TRANSFER = 1;
+    private static final int BALANCE = 2;
+    private static final int DRAIN = 3;
+    private static final int PROJECTED = 4;
+    private static final int REQUEUE = 5;
+    private static final int SETTLE = 6;
+    private static final int SPINS = 100;
+    private static final int YIELDS = 200;
+    private static final long PARK_NANOS = 50_000;
+    
+    private final Path directory;
+    private final BalanceJournal journal;
+    private final long snapshotEvery;
+    private final Command[] ring;
+    private final int mask;
+    // The ring sequence each slot was last published for, so the writer can tell a filled slot from a stale one
+    private final AtomicLongArray published;
+    private final AtomicLong claimed = new AtomicLong();
+    private final AtomicBoolean snapshotting = new AtomicBoolean();
+    private final ExecutorService snapshots = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "balance-snapshot");
+        thread.setDaemon(true);
+        return thread;
+    });
+    
+    // Owned by the writer thread once it runs
+    private final BalanceTable table;
+    private final BalanceTable dirty = new BalanceTable(1024);
+    private final Map<Reference, Hold> holds = new LinkedHashMap<>();
+    private long sequence;
+    private long projected;
+    private long sinceSnapshot;
+    
+    private volatile long consumed;
+    private volatile long applied;
+    private volatile Throwable failure;
+    private volatile boolean running = true;
+    private Thread writer;
+    
+    BalanceSequencer(Path directory, int segmentEntries, boolean fsync, int ringSize, long snapshotEvery, int expectedUsers) {
+        if (Integer.bitCount(ringSize) != 1) throw new IllegalArgumentException("Ring size must be a power of two, was " + ringSize);
+        this.directory = directory;
+        this.journal = new BalanceJournal(directory, segmentEntries, fsync);
+        this.snapshotEvery = snapshotEvery;
+        this.table = new BalanceTable(expectedUsers);
+        this.ring = new Command[ringSize];
+        this.mask = ringSize - 1;
+        this.published = new AtomicLongArray(ringSize);
+        for (int i = 0; i < ringSize; i++) {
+            ring[i] = new Command();
+            published.set(i, -1);
+        }
+    }
+    
+    interface Completion {
+        void complete(long value);
+        
+        void fail(Throwable error);
+    }
+    
+    interface Seed {
+        void into(BalanceTable table);
+    }
+    
+    interface Settlement {
+        // Whether the transaction the hold was made in committed
+        boolean committed(Hold hold);
+    }
+    
+    // The payment a hold belongs to; a refund holds under the payment it gives back
+    record Reference(long hi, long lo, boolean refund) {
+    }
+    
+    record Hold(Reference reference, long fromHi, long fromLo, long toHi, long toLo, long cents) {
+    }
+    
+    // What changed since the last drain: the current balance of every user a transfer touched, as of one sequence
+    static final class Drain {
+        long sequence;
+        int count;
+        long[] his = new long[256];
+        long[] los = new long[256];
+        long[] cents = new long[256];
+        
+        private void add(long hi, long lo, long value) {
+            if (count == his.length) {
+                his = Arrays.copyOf(his, count * 2);
+                los = Arrays.copyOf(los, count * 2);
+                cents = Arrays.copyOf(cents, count * 2);
+            }
+            his[count] = hi;
+            los[count] = lo;
+            cents[count++] = value;
+        }
+    }
+    
+    // Loads the latest snapshot and replays the journal after it. Balances the projection had not written yet are
+    // marked dirty again, and holds whose transaction was still open when the process stopped are settled as the
+    // database says it ended; with no snapshot and no journal at all, the seed fills the table and is snapshotted first
+    long recover(Seed seed, Settlement settlement) throws IOException {
+        BalanceSnapshot snapshot = BalanceSnapshot.readLatest(directory);
+        if (snapshot == null) {
+            long last = journal.open(0, (seq, kind, referenceHi, referenceLo, fromHi, fromLo, toHi, toLo, cents) -> {
+                throw new IllegalStateException("Balance journal in " + directory + " has entries but no snapshot to replay them on");
+            });
+            seed.into(table);
+            new BalanceSnapshot(last, last, table.copy(), List.of()).write(directory);
+            sequence = projected = last;
+            applied = last;
+            return last;
+        }
+        
+        snapshot.table().forEach(table::put);
+        snapshot.holds().forEach(hold -> holds.put(hold.reference(), hold));
+        long covered = snapshot.sequence();
+        projected = snapshot.projected();
+        long[] unprojected = new long[1];
+        long last = journal.open(covered, (seq, kind, referenceHi, referenceLo, fromHi, fromLo, toHi, toLo, cents) -> {
+            if (seq > covered) apply(kind, referenceHi, referenceLo, fromHi, fromLo, toHi, toLo, cents);
+            if (seq > projected) {
+                markDirty(fromHi, fromLo, toHi, toLo);
+                if (seq <= covered) unprojected[0]++;
+            }
+        });
+        // The journal no longer holds every transfer the projection missed, so every balance is written again
+        if (unprojected[0] < covered - projected) {
+            log.warn("Balance journal does not reach back to projected sequence {}, projecting every balance again", projected);
+            table.forEach((hi, lo, cents) -> dirty.put(hi, lo, 1));
+        }
+        sequence = Math.max(last, covered);
+        log.info("Recovered {} balances at sequence {} from snapshot {} and {} journal entries", table.size(), sequence, covered, sequence - covered);
+        settleOpen(settlement);
+        applied = sequence;
+        return sequence;
+    }
+    
+    void start() {
+        writer = new Thread(this, "balance-sequencer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+    
+    void transfer(long fromHi, long fromLo, long toHi, long toLo, long cents, boolean checked, Completion completion) {
+        hold(null, fromHi, fromLo, toHi, toLo, cents, checked, completion);
+    }
+    
+    // Debits from into the holding account under the payment's reference, until settle moves it on to `to` or back;
+    // without a reference it is a plain transfer
+    void hold(Reference reference, long fromHi, long fromLo, long toHi, long toLo, long cents, boolean checked, Completion completion) {
+        long slot = claim();
+        Command command = ring[(int) slot & mask];
+        command.type = TRANSFER;
+        command.reference = reference;
+        command.fromHi = fromHi;
+        command.fromLo = fromLo;
+        command.toHi = toHi;
+        command.toLo = toLo;
+        command.cents = cents;
+        command.checked = checked;
+        command.completion = completion;
+        published.lazySet((int) slot & mask, slot);
+    }
+    
+    // Answers REFUSED when no hold is open under the reference
+    void settle(Reference reference, boolean credit, Completion completion) {
+        long slot = claim();
+        Command command = ring[(int) slot & mask];
+        command.type = SETTLE;
+        command.reference = reference;
+        command.checked = credit;
+        command.completion = completion;
+        published.lazySet((int) slot & mask, slot);
+    }
+    
+    void balance(long hi, long lo, Completion completion) {
+        long slot = claim();
+        Command command = ring[(int) slot & mask];
+        command.type = BALANCE;
+        command.toHi = hi;
+        command.toLo = lo;
+        command.completion = completion;
+        published.lazySet((int) slot & mask, slot);
+    }
+    
+    void drain(Drain drain, Completion completion) {
+        submit(DRAIN, 0, drain, completion);
+    }
+    
+    void projected(long sequence, Completion completion) {
+        submit(PROJECTED, sequence, null, completion);
+    }
+    
+    void requeue(Drain drain, Completion completion) {
+        submit(REQUEUE, 0, drain, completion);
+    }
+    
+    long applied() {
+        return applied;
+    }
+    
+    boolean isFailed() {
+        return failure != null;
+    }
+    
+    // Stops taking commands once the ring is empty, then snapshots what the writer left so the next start replays nothing
+    void close() throws IOException {
+        running = false;
+        if (writer != null) {
+            try {
+                writer.join(TimeUnit.SECONDS.toMillis(5));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        snapshots.shutdown();
+        try {
+            snapshots.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (writer != null && writer.isAlive()) {
+            log.warn("Balance sequencer did not stop in time, leaving recovery to the journal");
+            return;
+        }
+        journal.close();
+        if (failure == null) {
+            new BalanceSnapshot(sequence, projected, table, List.copyOf(holds.values())).write(directory);
+            journal.deleteThrough(Math.min(sequence, projected));
+        }
+    }
+    
+    @Override
+    public void run() {
+        int idle = 0;
+        while (running || claimed.get() != consumed) {
+            long next = consumed;
+            long end = next;
+            while (end - next < ring.length && published.get((int) end & mask) == end) end++;
+            if (end == next) {
+                idle = idle(idle);
+                continue;
+            }
+            idle = 0;
+            
+            Throwable error = failure;
+            for (long slot = next; slot < end && error == null; slot++) {
+                try {
+                    execute(ring[(int) slot & mask]);
+                } catch (IOException | RuntimeException e) {
+                    error = e;
+                }
+            }
+            if (error == null) {
+                try {
+                    journal.flush();
+                } catch (RuntimeException e) {
+                    error = e;
+                }
+            }
+            if (error != null && failure == null) {
+                log.error("Balance sequencer stopped at sequence {}; restart to recover from the journal", sequence, error);
+                failure = error;
+            }
+            
+            applied = sequence;
+            for (long slot = next; slot < end; slot++) {
+                Command command = ring[(int) slot & mask];
+                Completion completion = command.completion;
+                long result = command.result;
+                command.clear();
+                if (error != null) completion.fail(new IllegalStateException("Balance sequencer has stopped", error));
+                else completion.complete(result);
+            }
+            consumed = end;
+            if (error == null) snapshotIfDue();
+        }
+    }
+    
+    private void execute(Command command) throws IOException {
+        switch (command.type) {
+            case TRANSFER -> {
+                if (command.checked && table.get(command.fromHi, command.fromLo) < command.cents) {
+                    command.result = REFUSED;
+                    return;
+                }
+                Reference reference = command.reference;
+                int kind = reference == null ? MOVE : reference.refund() ? HOLD | REFUND : HOLD;
+                long referenceHi = reference == null ? 0 : reference.hi();
+                long referenceLo = reference == null ? 0 : reference.lo();
+                // Journaled before it is applied: the table never holds a transfer the journal could lose
+                journal.append(++sequence, kind, referenceHi, referenceLo, command.fromHi, command.fromLo, command.toHi, command.toLo, command.cents);
+                apply(kind, referenceHi, referenceLo, command.fromHi, command.fromLo, command.toHi, command.toLo, command.cents);
+                markDirty(command.fromHi, command.fromLo, command.toHi, command.toLo);
+                sinceSnapshot++;
+                command.result = sequence;
+            }
+            case SETTLE -> {
+                Hold hold = holds.get(command.reference);
+                command.result = hold == null ? REFUSED : settle(hold, command.checked);
+            }
+            case BALANCE -> command.result = table.get(command.toHi, command.toLo);
+            case DRAIN -> {
+                Drain drain = command.drain;
+                drain.count = 0;
+                drain.sequence = sequence;
+                dirty.forEach((hi, lo, ignored) -> drain.add(hi, lo, table.get(hi, lo)));
+                dirty.clear();
+                command.result = sequence;
+            }
+            case PROJECTED -> {
+                projected = Math.max(projected, command.cents);
+                command.result = projected;
+            }
+            case REQUEUE -> {
+                Drain drain = command.drain;
+                for (int i = 0; i < drain.count; i++) dirty.put(drain.his[i], drain.los[i], 1);
+                command.result = drain.count;
+            }
+            default -> throw new IllegalStateException("Unknown balance command " + command.type);
+        }
+    }
+    
+    // Shared by the writer and the replay, so both leave the same balances and the same open holds
+    private void apply(int kind, long referenceHi, long referenceLo, long fromHi, long fromLo, long toHi, long toLo, long cents) {
+        Reference reference = kind == MOVE ? null : new Reference(referenceHi, referenceLo, (kind & REFUND) != 0);
+        switch (kind & ~REFUND) {
+            case HOLD -> {
+                apply(fromHi, fromLo, HELD_HI, HELD_LO, cents);
+                holds.put(reference, new Hold(reference, fromHi, fromLo, toHi, toLo, cents));
+            }
+            case CREDIT, RELEASE -> {
+                holds.remove(reference);
+                apply(fromHi, fromLo, toHi, toLo, cents);
+            }
+            default -> apply(fromHi, fromLo, toHi, toLo, cents);
+        }
+    }
+    
+    // A credit moves the hold on to its recipient, a release back to its payer; one from outside goes back outside
+    private long settle(Hold hold, boolean credit) throws IOException {
+        Reference reference = hold.reference();
+        int kind = (credit ? CREDIT : RELEASE) | (reference.refund() ? REFUND : 0);
+        long toHi = credit ? hold.toHi() : hold.fromHi();
+        long toLo = credit ? hold.toLo() : hold.fromLo();
+        journal.append(++sequence, kind, reference.hi(), reference.lo(), HELD_HI, HELD_LO, toHi, toLo, hold.cents());
+        apply(kind, reference.hi(), reference.lo(), HELD_HI, HELD_LO, toHi, toLo, hold.cents());
+        markDirty(HELD_HI, HELD_LO, toHi, toLo);
+        sinceSnapshot++;
+        return sequence;
+    }
+    
+    // Runs before the writer starts: a restart means every transaction the last process had open has ended
+    private void settleOpen(Settlement settlement) throws IOException {
+        if (holds.isEmpty()) return;
+        int credited = 0;
+        List<Hold> open = List.copyOf(holds.values());
+        for (Hold hold : open) {
+            boolean committed = settlement.committed(hold);
+            settle(hold, committed);
+            if (committed) credited++;
+        }
+        journal.flush();
+        log.info("Settled {} holds left open by the last run: {} credited, {} released", open.size(), credited, open.size() - credited);
+    }
+    
+    private void apply(long fromHi, long fromLo, long toHi, long toLo, long cents) {
+        if (fromHi != 0 || fromLo != 0) table.add(fromHi, fromLo, -cents);
+        if (toHi != 0 || toLo != 0) table.add(toHi, toLo, cents);
+    }
+    
+    private void markDirty(long fromHi, long fromLo, long toHi, long toLo) {
+        if (fromHi != 0 || fromLo != 0) dirty.put(fromHi, fromLo, 1);
+        if (toHi != 0 || toLo != 0) dirty.put(toHi, toLo, 1);
+    }
+    
+    // The copy is taken on the writer between batches; writing it out and trimming the journal happen beside it
+    private void snapshotIfDue() {
+        if (sinceSnapshot < snapshotEvery || !snapshotting.compareAndSet(false, true)) return;
+        BalanceSnapshot snapshot = new BalanceSnapshot(sequence, projected, table.copy(), List.copyOf(holds.values()));
+        sinceSnapshot = 0;
+        snapshots.execute(() -> {
+            try {
+                snapshot.write(directory);
+                int deleted = journal.deleteThrough(Math.min(snapshot.sequence(), snapshot.projected()));
+                log.debug("Balance snapshot at sequence {} written, {} journal segments deleted", snapshot.sequence(), deleted);
+            } catch (IOException | RuntimeException e) {
+                log.warn("Balance snapshot at sequence {} failed, the journal keeps every entry after the last one", snapshot.sequence(), e);
+            } finally {
+                snapshotting.set(false);
+            }
+        });
+    }
+    
+    private void submit(int type, long argument, Drain drain, Completion completion) {
+        long slot = claim();
+        Command command = ring[(int) slot & mask];
+        command.type = type;
+        command.cents = argument;
+        command.drain = drain;
+        command.completion = completion;
+        published.lazySet((int) slot & mask, slot);
+    }
+    
+    // Waits while the ring is full: the slot is free again once the writer has answered the command it last held
+    private long claim() {
+        if (failure != null) throw new IllegalStateException("Balance sequencer has stopped", failure);
+        if (!running) throw new IllegalStateException("Balance sequencer is closed");
+        long slot = claimed.getAndIncrement();
+        int idle = 0;
+        while (slot - ring.length >= consumed) idle = idle(idle);
+        return slot;
+    }
+    
+    private static int idle(int attempt) {
+        if (attempt < SPINS) Thread.onSpinWait();
+        else if (attempt < YIELDS) Thread.yield();
+        else LockSupport.parkNanos(PARK_NANOS);
+        return attempt + 1;
+    }
+    
+    private static final class Command {
+        int type;
+        long fromHi;
+        long fromLo;
+        long toHi;
+        long toLo;
+        long cents;
+        boolean checked;
+        Reference reference;
+        Drain drain;
+        Completion completion;
+        long result;
+        
+        void clear() {
+            reference = null;
+            drain = null;
+            completion = null;
+            result = 0;
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.nimble.gateway.infrastructure.balance;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+// Every balance and every open hold as of one journal sequence, so recovery replays only what came after it and the
+// journal can drop what came before. Written beside the last one and renamed into place, so a crash mid-write leaves the previous
+// snapshot as the latest valid one; the trailing checksum catches a file the rename made visible before its bytes
+@Slf4j
+record BalanceSnapshot(long sequence, long projected, BalanceTable table, List<BalanceSequencer.Hold> holds) {
+    
+    private static final long MAGIC = 0x4E494D424C424132L;
+    private static final int HEADER_BYTES = 3 * Long.BYTES + 2 * Integer.BYTES;
+    private static final int ENTRY_BYTES = 3 * Long.BYTES;
+    private static final int HOLD_BYTES = 8 * Long.BYTES;
+    private static final String PREFIX = "snapshot-";
+    private static final String SUFFIX = ".bin";
+    
+    void write(Path directory) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + table.size() * ENTRY_BYTES + holds.size() * HOLD_BYTES + Integer.BYTES);
+        buffer.putLong(MAGIC).putLong(sequence).putLong(projected).putInt(table.size()).putInt(holds.size());
+        table.forEach((hi, lo, cents) -> buffer.putLong(hi).putLong(lo).putLong(cents));
+        for (BalanceSequencer.Hold hold : holds) {
+            buffer.putLong(hold.reference().hi()).putLong(hold.reference().lo()).putLong(hold.reference().refund() ? 1 : 0)
+                    .putLong(hold.fromHi()).putLong(hold.fromLo()).putLong(hold.toHi()).putLong(hold.toLo()).putLong(hold.cents());
+        }
+        CRC32C checksum = new CRC32C();
+        checksum.update(buffer.array(), 0, buffer.position());
+        buffer.putInt((int) checksum.getValue()).flip();
+        
+        Path target = directory.resolve(String.format("%s%020d%s", PREFIX, sequence, SUFFIX));
+        Path temporary = directory.resolve(target.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            while (buffer.hasRemaining()) channel.write(buffer);
+            channel.force(true);
+        }
+        Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        
+        try (Stream<Path> listing = Files.list(directory)) {
+            for (Path older : listing.filter(BalanceSnapshot::isSnapshot).filter(path -> path.compareTo(target) < 0).toList()) {
+                Files.deleteIfExists(older);
+            }
+        }
+    }
+    
+    // The newest snapshot that reads back whole, or null when there is none
+    static BalanceSnapshot readLatest(Path directory) throws IOException {
+        if (!Files.isDirectory(directory)) return null;
+        List<Path> snapshots;
+        try (Stream<Path> listing = Files.list(directory)) {
+            snapshots = listing.filter(BalanceSnapshot::isSnapshot).sorted().toList().reversed();
+        }
+        for (Path path : snapshots) {
+            BalanceSnapshot snapshot = read(path);
+            if (snapshot != null) return snapshot;
+            log.warn("Skipping unreadable balance snapshot {}", path);
+        }
+        return null;
+    }
+    
+    private static BalanceSnapshot read(Path path) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(path));
+        if (buffer.remaining() < HEADER_BYTES + Integer.BYTES || buffer.getLong() != MAGIC) return null;
+        long sequence = buffer.getLong();
+        long projected = buffer.getLong();
+        int count = buffer.getInt();
+        int held = buffer.getInt();
+        if (count < 0 || held < 0 || buffer.capacity() != HEADER_BYTES + (long) count * ENTRY_BYTES + (long) held * HOLD_BYTES + Integer.BYTES) return null;
+        
+        CRC32C checksum = new CRC32C();
+        checksum.update(buffer.array(), 0, buffer.capacity() - Integer.BYTES);
+        if (buffer.getInt(buffer.capacity() - Integer.BYTES) != (int) checksum.getValue()) return null;
+        
+        BalanceTable table = new BalanceTable(count);
+        for (int i = 0; i < count; i++) table.put(buffer.getLong(), buffer.getLong(), buffer.getLong());
+        List<BalanceSequencer.Hold> holds = new ArrayList<>(held);
+        for (int i = 0; i < held; i++) {
+            BalanceSequencer.Reference reference = new BalanceSequencer.Reference(buffer.getLong(), buffer.getLong(), buffer.getLong() == 1);
+            holds.add(new BalanceSequencer.Hold(reference, buffer.getLong(), buffer.getLong(), buffer.getLong(), buffer.getLong(), buffer.getLong()));
+        }
+        return new BalanceSnapshot(sequence, projected, table, holds);
+    }
+    
+    private static boolean isSnapshot(Path path) {
+        String name = path.getFileName().toString();
+        return name.startsWith(PREFIX) && name.endsWith(SUFFIX);
+    }
+}
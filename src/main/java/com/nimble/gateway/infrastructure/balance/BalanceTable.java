@@ -0,0 +1,148 @@
+package com.nimble.gateway.infrastructure.balance;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+
+// Open-addressing hash table from the two halves of a user id to a balance in cents, kept off the heap in one direct
+// buffer: no boxed keys, no entry objects and nothing for the collector to trace however many users it holds.
+// Only the sequencer thread touches it, so unlike the charge slot table it takes no lock
+final class BalanceTable {
+    
+    private static final int STRIDE = 3;
+    private static final int KEY_HI = 0;
+    private static final int KEY_LO = 1;
+    private static final int VALUE = 2;
+    
+    private LongBuffer slots;
+    private int capacity;
+    private int size;
+    
+    BalanceTable(int expectedSize) {
+        this.capacity = capacityFor(expectedSize);
+        this.slots = allocate(capacity);
+    }
+    
+    private BalanceTable(BalanceTable source) {
+        this.capacity = source.capacity;
+        this.size = source.size;
+        this.slots = allocate(capacity);
+        this.slots.put(0, source.slots, 0, capacity * STRIDE);
+    }
+    
+    // Zero for a user the table has never seen
+    long get(long hi, long lo) {
+        int slot = find(hi, lo);
+        return slot < 0 ? 0 : slots.get(slot + VALUE);
+    }
+    
+    boolean contains(long hi, long lo) {
+        return find(hi, lo) >= 0;
+    }
+    
+    void put(long hi, long lo, long value) {
+        // Slot first: finding it may resize, and the write must land in the buffer that resize leaves behind
+        int slot = slotFor(hi, lo);
+        slots.put(slot + VALUE, value);
+    }
+    
+    long add(long hi, long lo, long delta) {
+        int slot = slotFor(hi, lo);
+        long value = slots.get(slot + VALUE) + delta;
+        slots.put(slot + VALUE, value);
+        return value;
+    }
+    
+    int size() {
+        return size;
+    }
+    
+    void clear() {
+        if (size == 0) return;
+        for (int i = 0; i < capacity * STRIDE; i++) slots.put(i, 0);
+        size = 0;
+    }
+    
+    // A point-in-time copy for a snapshot, so the sequencer can go on while it is written out
+    BalanceTable copy() {
+        return new BalanceTable(this);
+    }
+    
+    void forEach(Entry entry) {
+        for (int slot = 0; slot < capacity * STRIDE; slot += STRIDE) {
+            if (!isEmpty(slot)) entry.accept(slots.get(slot + KEY_HI), slots.get(slot + KEY_LO), slots.get(slot + VALUE));
+        }
+    }
+    
+    interface Entry {
+        void accept(long hi, long lo, long value);
+    }
+    
+    private int slotFor(long hi, long lo) {
+        int slot = find(hi, lo);
+        if (slot >= 0) return slot;
+        
+        if ((size + 1) * 2 > capacity) resize(capacity * 2);
+        slot = insertionSlot(slots, capacity, hi, lo);
+        slots.put(slot + KEY_HI, hi);
+        slots.put(slot + KEY_LO, lo);
+        size++;
+        return slot;
+    }
+    
+    private void resize(int newCapacity) {
+        LongBuffer old = slots;
+        int oldCapacity = capacity;
+        slots = allocate(newCapacity);
+        capacity = newCapacity;
+        for (int slot = 0; slot < oldCapacity * STRIDE; slot += STRIDE) {
+            long hi = old.get(slot + KEY_HI);
+            long lo = old.get(slot + KEY_LO);
+            if (hi == 0 && lo == 0) continue;
+            int target = insertionSlot(slots, capacity, hi, lo);
+            slots.put(target + KEY_HI, hi);
+            slots.put(target + KEY_LO, lo);
+            slots.put(target + VALUE, old.get(slot + VALUE));
+        }
+    }
+    
+    private int find(long hi, long lo) {
+        int index = home(hi, lo, capacity);
+        for (int probes = 0; probes < capacity; probes++) {
+            int slot = index * STRIDE;
+            if (isEmpty(slot)) return -1;
+            if (slots.get(slot + KEY_HI) == hi && slots.get(slot + KEY_LO) == lo) return slot;
+            index = (index + 1) & (capacity - 1);
+        }
+        return -1;
+    }
+    
+    private static int insertionSlot(LongBuffer slots, int capacity, long hi, long lo) {
+        int index = home(hi, lo, capacity);
+        while (slots.get(index * STRIDE + KEY_HI) != 0 || slots.get(index * STRIDE + KEY_LO) != 0) index = (index + 1) & (capacity - 1);
+        return index * STRIDE;
+    }
+    
+    // The nil UUID marks an empty slot; it is also the outside world in a transfer, which never gets a balance
+    private boolean isEmpty(int slot) {
+        return slots.get(slot + KEY_HI) == 0 && slots.get(slot + KEY_LO) == 0;
+    }
+    
+    private static LongBuffer allocate(int capacity) {
+        return ByteBuffer.allocateDirect(capacity * STRIDE * Long.BYTES).order(ByteOrder.nativeOrder()).asLongBuffer();
+    }
+    
+    private static int home(long hi, long lo, int capacity) {
+        long h = hi * 0x9E3779B97F4A7C15L ^ lo;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        return (int) h & (capacity - 1);
+    }
+    
+    private static int capacityFor(int expectedSize) {
+        int capacity = 16;
+        while (capacity < expectedSize * 2) capacity <<= 1;
+        return capacity;
+    }
+}
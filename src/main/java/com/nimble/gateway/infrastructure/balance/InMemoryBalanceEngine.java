@@ -0,0 +1,229 @@
+package com.nimble.gateway.infrastructure.balance;
+
+import com.nimble.gateway.domain.exception.InsufficientBalanceException;
+import com.nimble.gateway.infrastructure.persistence.PaymentEngine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+
+// The in-memory balance engine: user balances live in an off-heap table owned by one sequencer thread, every change
+// is a transfer journaled to a memory-mapped write-ahead log before it is applied, and the projection copies changed
+// balances back to users.balance in the background. Charges and payments are still written by the use case in its
+// own transaction; a transfer made inside it holds the debit at once and credits only if that transaction commits.
+// Holds are journaled with their payment's id, so a restart settles the ones a crash left open against the database.
+// users.balance trails the engine by the projection interval, so balances are read here. InMemoryPaymentEngine
+// moves the payments' balances through it
+@Slf4j
+@Component
+@ConditionalOnProperty(name = PaymentEngine.PROPERTY, havingValue = PaymentEngine.IN_MEMORY)
+public class InMemoryBalanceEngine {
+    
+    private static final UUID OUTSIDE = new UUID(0, 0);
+    private static final long WAIT_SECONDS = 10;
+    private static final String PAID = "SELECT COUNT(*) FROM payments WHERE id = ?";
+    private static final String REFUNDED = "SELECT COUNT(*) FROM payments p JOIN charges c ON c.id = p.charge_id WHERE p.id = ? AND c.status = 'CANCELLED'";
+    
+    private final JdbcTemplate jdbcTemplate;
+    private final BalanceSequencer sequencer;
+    private final CountDownLatch recovered = new CountDownLatch(1);
+    private final Counter refused;
+    private final Counter compensated;
+    
+    public InMemoryBalanceEngine(JdbcTemplate jdbcTemplate,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${app.payments.in-memory.directory:./data/balance-journal}") String directory,
+                                 @Value("${app.payments.in-memory.journal-segment-entries:1048576}") int segmentEntries,
+                                 @Value("${app.payments.in-memory.ring-size:65536}") int ringSize,
+                                 @Value("${app.payments.in-memory.snapshot-every:1000000}") long snapshotEvery,
+                                 @Value("${app.payments.in-memory.fsync:true}") boolean fsync,
+                                 @Value("${app.payments.in-memory.expected-users:100000}") int expectedUsers) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.sequencer = new BalanceSequencer(Path.of(directory), segmentEntries, fsync, ringSize, snapshotEvery, expectedUsers);
+        this.refused = Counter.builder("payment.in_memory.refused")
+                .description("Checked transfers refused for insufficient balance")
+                .register(meterRegistry);
+        this.compensated = Counter.builder("payment.in_memory.compensated")
+                .description("Transfer holds returned because the transaction they were made in rolled back")
+                .register(meterRegistry);
+        Gauge.builder("payment.in_memory.sequence", this, e -> e.sequencer.applied())
+                .description("Last journal sequence applied to the in-memory balances")
+                .register(meterRegistry);
+        
+        log.info("In-memory balance engine enabled, journal in {} (fsync {})", Path.of(directory).toAbsolutePath(), fsync);
+    }
+    
+    // Recovered once the schema is in place; requests that arrive before then wait for it
+    @EventListener(ApplicationReadyEvent.class)
+    public void recover() throws IOException {
+        long start = System.nanoTime();
+        long sequence = sequencer.recover(this::seed, hold -> committed(hold.reference()));
+        sequencer.start();
+        recovered.countDown();
+        log.info("In-memory balances ready at journal sequence {} in {} ms", sequence, (System.nanoTime() - start) / 1_000_000);
+    }
+    
+    // The transfer of a payment: from the outside world (a deposit or a card) when from is null, checked against
+    // from's balance when asked. Inside a transaction the amount is only held now, debited into the holding account
+    // under the payment's id so the same balance cannot be spent twice; the credit follows once the transaction
+    // commits and a rollback releases the hold. Money a transaction receives therefore cannot be spent before that
+    // transaction has committed
+    public void transfer(UUID payment, UUID from, UUID to, BigDecimal amount, boolean checked) {
+        transfer(reference(payment, false), from, to, amount, checked);
+    }
+    
+    // A balance payment given back to its payer, held under the payment until the charge's cancellation commits
+    public void refund(UUID payment, UUID from, UUID to, BigDecimal amount) {
+        transfer(reference(payment, true), from, to, amount, false);
+    }
+    
+    public BigDecimal balanceOf(UUID userId) {
+        long cents = await(completion -> sequencer.balance(userId.getMostSignificantBits(), userId.getLeastSignificantBits(), completion));
+        return BigDecimal.valueOf(cents, 2);
+    }
+    
+    BalanceSequencer.Drain drainDirty(BalanceSequencer.Drain drain) {
+        await(completion -> sequencer.drain(drain, completion));
+        return drain;
+    }
+    
+    void projected(long sequence) {
+        await(completion -> sequencer.projected(sequence, completion));
+    }
+    
+    void requeue(BalanceSequencer.Drain drain) {
+        await(completion -> sequencer.requeue(drain, completion));
+    }
+    
+    boolean isRecovered() {
+        return recovered.getCount() == 0 && !sequencer.isFailed();
+    }
+    
+    @PreDestroy
+    public void close() throws IOException {
+        if (recovered.getCount() > 0) return;
+        sequencer.close();
+    }
+    
+    private void transfer(BalanceSequencer.Reference reference, UUID from, UUID to, BigDecimal amount, boolean checked) {
+        UUID source = from != null ? from : OUTSIDE;
+        long cents = toCents(amount);
+        // A charge paid to oneself changes no balance, so there is nothing to hold: only the check
+        if (!TransactionSynchronizationManager.isSynchronizationActive() || source.equals(to)) {
+            move(null, source, to, cents, checked && from != null);
+            return;
+        }
+        
+        move(reference, source, to, cents, checked && from != null);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                boolean committed = status == STATUS_COMMITTED;
+                if (status == STATUS_UNKNOWN) {
+                    committed = committed(reference);
+                    log.error("Transaction of payment {} ended with an unknown outcome, {} its hold as the database says",
+                            payment(reference), committed ? "crediting" : "releasing");
+                }
+                settle(reference, committed);
+            }
+        });
+    }
+    
+    // A hold when given a reference, a plain transfer otherwise
+    private void move(BalanceSequencer.Reference reference, UUID from, UUID to, long cents, boolean checked) {
+        long sequence = await(completion -> sequencer.hold(reference, from.getMostSignificantBits(), from.getLeastSignificantBits(),
+                to.getMostSignificantBits(), to.getLeastSignificantBits(), cents, checked, completion));
+        if (sequence == BalanceSequencer.REFUSED) {
+            refused.increment();
+            throw new InsufficientBalanceException("Insufficient balance");
+        }
+    }
+    
+    // After completion the transaction is over, so a failure here can only be logged: the hold stays open in the
+    // journal and the next recovery settles it
+    private void settle(BalanceSequencer.Reference reference, boolean credit) {
+        try {
+            long sequence = await(completion -> sequencer.settle(reference, credit, completion));
+            if (sequence == BalanceSequencer.REFUSED) log.error("No open hold for payment {} to settle", payment(reference));
+            else if (!credit) compensated.increment();
+        } catch (RuntimeException e) {
+            log.error("Could not {} the hold of payment {} after its transaction completed", credit ? "credit" : "release", payment(reference), e);
+        }
+    }
+    
+    // A payment's hold committed with its row, a refund's with the cancellation of the charge it paid
+    private boolean committed(BalanceSequencer.Reference reference) {
+        byte[] id = ByteBuffer.allocate(16).putLong(reference.hi()).putLong(reference.lo()).array();
+        Integer rows = jdbcTemplate.queryForObject(reference.refund() ? REFUNDED : PAID, Integer.class, (Object) id);
+        return rows != null && rows > 0;
+    }
+    
+    private void seed(BalanceTable table) {
+        jdbcTemplate.query("SELECT id, balance FROM users", rs -> {
+            ByteBuffer id = ByteBuffer.wrap(rs.getBytes("id"));
+            table.put(id.getLong(), id.getLong(), toCents(rs.getBigDecimal("balance")));
+        });
+        log.info("Seeded {} in-memory balances from the users table", table.size());
+    }
+    
+    private long await(Consumer<BalanceSequencer.Completion> submit) {
+        try {
+            if (!recovered.await(WAIT_SECONDS, TimeUnit.SECONDS)) throw new IllegalStateException("In-memory balances are still recovering");
+            CompletableFuture<Long> result = new CompletableFuture<>();
+            submit.accept(new BalanceSequencer.Completion() {
+                @Override
+                public void complete(long value) {
+                    result.complete(value);
+                }
+                
+                @Override
+                public void fail(Throwable error) {
+                    result.completeExceptionally(error);
+                }
+            });
+            return result.get(WAIT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted waiting for the balance sequencer", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) throw runtime;
+            throw new IllegalStateException("Balance sequencer failed", e.getCause());
+        } catch (TimeoutException e) {
+            throw new IllegalStateException("Balance sequencer did not answer within " + WAIT_SECONDS + " s", e);
+        }
+    }
+    
+    private static BalanceSequencer.Reference reference(UUID payment, boolean refund) {
+        return new BalanceSequencer.Reference(payment.getMostSignificantBits(), payment.getLeastSignificantBits(), refund);
+    }
+    
+    private static UUID payment(BalanceSequencer.Reference reference) {
+        return new UUID(reference.hi(), reference.lo());
+    }
+    
+    private static long toCents(BigDecimal amount) {
+        return amount.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+}
@@ -0,0 +1,79 @@
+package com.nimble.gateway.infrastructure.balance;
+
+import com.nimble.gateway.domain.entity.Payment;
+import com.nimble.gateway.domain.entity.User;
+import com.nimble.gateway.domain.exception.InsufficientBalanceException;
+import com.nimble.gateway.domain.repository.ChargeRepository;
+import com.nimble.gateway.domain.repository.PaymentRepository;
+import com.nimble.gateway.domain.repository.UserRepository;
+import com.nimble.gateway.infrastructure.cache.PendingChargeIndex;
+import com.nimble.gateway.infrastructure.outbox.ChargeEventOutbox;
+import com.nimble.gateway.infrastructure.persistence.ConflictRetry;
+import com.nimble.gateway.infrastructure.persistence.EntityPaymentEngine;
+import com.nimble.gateway.infrastructure.persistence.PaymentEngine;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+// The in-memory engine: every balance change is a transfer of InMemoryBalanceEngine, which leaves users.balance to
+// its projection. Charges and payments are written as on the JPA path
+@Component
+@ConditionalOnProperty(name = PaymentEngine.PROPERTY, havingValue = PaymentEngine.IN_MEMORY)
+public class InMemoryPaymentEngine extends EntityPaymentEngine {
+    
+    private final InMemoryBalanceEngine balances;
+    
+    public InMemoryPaymentEngine(InMemoryBalanceEngine balances,
+                                 UserRepository userRepository,
+                                 ChargeRepository chargeRepository,
+                                 PaymentRepository paymentRepository,
+                                 ChargeEventOutbox chargeEventOutbox,
+                                 PendingChargeIndex pendingChargeIndex,
+                                 TransactionOperations transactionOperations,
+                                 ConflictRetry conflictRetry) {
+        super(userRepository, chargeRepository, paymentRepository, chargeEventOutbox, pendingChargeIndex, transactionOperations, conflictRetry);
+        this.balances = balances;
+    }
+    
+    // The row's balance trails by the projection interval, so the engine answers
+    @Override
+    public BigDecimal balanceOf(User user) {
+        return balances.balanceOf(user.getId());
+    }
+    
+    @Override
+    public void payBatch(User payer, List<Payment> payments) {
+        for (Payment payment : payments) {
+            try {
+                balances.transfer(payment.getId(), payer.getId(), payment.getCharge().getRecipient().getId(), payment.getAmount(), true);
+            } catch (InsufficientBalanceException e) {
+                // Another payment spent the balance after it was read: rerun the batch, as a version conflict would
+                throw new ObjectOptimisticLockingFailureException(User.class, payer.getId());
+            }
+        }
+    }
+    
+    @Override
+    public void credit(User recipient, Payment payment) {
+        balances.transfer(payment.getId(), null, recipient.getId(), payment.getAmount(), false);
+    }
+    
+    @Override
+    public void refund(User recipient, Payment payment) {
+        balances.refund(payment.getId(), recipient.getId(), payment.getPayer().getId(), payment.getAmount());
+    }
+    
+    // The engine checks the balance itself, in the same step as the debit
+    @Override
+    protected void checkBalance(User payer, BigDecimal amount) {
+    }
+    
+    @Override
+    protected void transfer(User payer, User recipient, Payment payment) {
+        balances.transfer(payment.getId(), payer.getId(), recipient.getId(), payment.getAmount(), true);
+    }
+}
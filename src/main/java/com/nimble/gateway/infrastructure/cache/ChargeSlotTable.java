@@ -0,0 +1,154 @@
+package com.nimble.gateway.infrastructure.cache;
+
+import java.util.concurrent.locks.StampedLock;
+
+// Open-addressing hash table keyed by the two halves of a charge id, with every value packed into the same long[]:
+// no boxed keys, no entry objects. Writers take the lock; readers only take an optimistic stamp and retry under
+// the read lock in the rare case a write overlapped, so lookups never block each other
+final class ChargeSlotTable {
+    
+    static final long SETTLED = -1;
+    
+    private static final int STRIDE = 6;
+    private static final int KEY_HI = 0;
+    private static final int KEY_LO = 1;
+    private static final int RECIPIENT_HI = 2;
+    private static final int RECIPIENT_LO = 3;
+    private static final int AMOUNT = 4;
+    // The charge version while it is pending, SETTLED once paid or cancelled
+    private static final int STATE = 5;
+    
+    private final StampedLock lock = new StampedLock();
+    private long[] slots;
+    private int size;
+    private int settled;
+    
+    ChargeSlotTable(int expectedSize) {
+        this.slots = new long[capacityFor(expectedSize) * STRIDE];
+    }
+    
+    // Copies the slot into out (recipient hi, recipient lo, amount, state) and returns true, or returns false
+    boolean get(long hi, long lo, long[] out) {
+        long stamp = lock.tryOptimisticRead();
+        boolean found = read(slots, hi, lo, out);
+        if (lock.validate(stamp)) return found;
+        
+        stamp = lock.readLock();
+        try {
+            return read(slots, hi, lo, out);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+    
+    void put(long hi, long lo, long recipientHi, long recipientLo, long amount, long state, boolean onlyIfAbsent) {
+        long stamp = lock.writeLock();
+        try {
+            int slot = find(slots, hi, lo);
+            if (slot >= 0) {
+                if (onlyIfAbsent) return;
+                if (slots[slot + STATE] == SETTLED) settled--;
+            } else {
+                if ((size + 1) * 2 > slots.length / STRIDE) resize(slots.length / STRIDE * 2);
+                slot = insertionSlot(slots, hi, lo);
+                size++;
+            }
+            slots[slot + KEY_HI] = hi;
+            slots[slot + KEY_LO] = lo;
+            slots[slot + RECIPIENT_HI] = recipientHi;
+            slots[slot + RECIPIENT_LO] = recipientLo;
+            slots[slot + AMOUNT] = amount;
+            slots[slot + STATE] = state;
+            if (state == SETTLED) settled++;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+    
+    // Drops every settled slot; pending ones keep their place in a rebuilt array
+    void clearSettled() {
+        long stamp = lock.writeLock();
+        try {
+            long[] old = slots;
+            slots = new long[old.length];
+            size = 0;
+            settled = 0;
+            for (int slot = 0; slot < old.length; slot += STRIDE) {
+                if (isEmpty(old, slot) || old[slot + STATE] == SETTLED) continue;
+                copy(old, slot, slots, insertionSlot(slots, old[slot + KEY_HI], old[slot + KEY_LO]));
+                size++;
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+    
+    int size() {
+        return size;
+    }
+    
+    int settled() {
+        return settled;
+    }
+    
+    private void resize(int capacity) {
+        long[] old = slots;
+        slots = new long[capacity * STRIDE];
+        for (int slot = 0; slot < old.length; slot += STRIDE) {
+            if (!isEmpty(old, slot)) copy(old, slot, slots, insertionSlot(slots, old[slot + KEY_HI], old[slot + KEY_LO]));
+        }
+    }
+    
+    // Bounded by the capacity, so a torn view during an optimistic read can return garbage but never loop forever
+    private static boolean read(long[] slots, long hi, long lo, long[] out) {
+        int slot = find(slots, hi, lo);
+        if (slot < 0) return false;
+        out[0] = slots[slot + RECIPIENT_HI];
+        out[1] = slots[slot + RECIPIENT_LO];
+        out[2] = slots[slot + AMOUNT];
+        out[3] = slots[slot + STATE];
+        return true;
+    }
+    
+    private static int find(long[] slots, long hi, long lo) {
+        int capacity = slots.length / STRIDE;
+        int index = home(hi, lo, capacity);
+        for (int probes = 0; probes < capacity; probes++) {
+            int slot = index * STRIDE;
+            if (isEmpty(slots, slot)) return -1;
+            if (slots[slot + KEY_HI] == hi && slots[slot + KEY_LO] == lo) return slot;
+            index = (index + 1) & (capacity - 1);
+        }
+        return -1;
+    }
+    
+    private static int insertionSlot(long[] slots, long hi, long lo) {
+        int capacity = slots.length / STRIDE;
+        int index = home(hi, lo, capacity);
+        while (!isEmpty(slots, index * STRIDE)) index = (index + 1) & (capacity - 1);
+        return index * STRIDE;
+    }
+    
+    // The nil UUID marks an empty slot; generated charge ids are never nil
+    private static boolean isEmpty(long[] slots, int slot) {
+        return slots[slot + KEY_HI] == 0 && slots[slot + KEY_LO] == 0;
+    }
+    
+    private static void copy(long[] from, int fromSlot, long[] to, int toSlot) {
+        System.arraycopy(from, fromSlot, to, toSlot, STRIDE);
+    }
+    
+    private static int home(long hi, long lo, int capacity) {
+        long h = hi * 0x9E3779B97F4A7C15L ^ lo;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        return (int) h & (capacity - 1);
+    }
+    
+    private static int capacityFor(int expectedSize) {
+        int capacity = 16;
+        while (capacity < expectedSize * 2) capacity <<= 1;
+        return capacity;
+    }
+}
@@ -0,0 +1,157 @@
+package com.nimble.gateway.infrastructure.cache;
+
+import com.nimble.gateway.domain.entity.Charge;
+import com.nimble.gateway.domain.event.ChargeEvent;
+import com.nimble.gateway.domain.repository.ChargeRepository;
+import com.nimble.gateway.domain.valueobject.PendingCharge;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+// Pending charges (recipient, amount, version) and the charges settled since startup, so a pay that cannot succeed
+// is turned away without touching the database. Only answers that hold on every instance are trusted: a charge's
+// recipient never changes and a settled charge never becomes payable again. A miss may be a charge another instance
+// just created, and a pending entry may be stale, so both go on to the database, which decides
+@Slf4j
+@Component
+public class PendingChargeIndex {
+    
+    private final ChargeRepository chargeRepository;
+    private final boolean enabled;
+    private final int maxSettled;
+    private final ChargeSlotTable table;
+    private final Map<Verdict, Counter> lookups = new EnumMap<>(Verdict.class);
+    private final Counter corrections;
+    
+    public PendingChargeIndex(ChargeRepository chargeRepository,
+                              MeterRegistry meterRegistry,
+                              @Value("${app.charges.pending-index.enabled:true}") boolean enabled,
+                              @Value("${app.charges.pending-index.expected-size:10000}") int expectedSize,
+                              @Value("${app.charges.pending-index.max-settled:100000}") int maxSettled) {
+        this.chargeRepository = chargeRepository;
+        this.enabled = enabled;
+        this.maxSettled = maxSettled;
+        this.table = new ChargeSlotTable(expectedSize);
+        
+        for (Verdict verdict : Verdict.values()) {
+            lookups.put(verdict, Counter.builder("charge.pending.index.lookups")
+                    .description("Pay requests checked against the pending charge index, by verdict")
+                    .tag("verdict", verdict.name().toLowerCase())
+                    .register(meterRegistry));
+        }
+        this.corrections = Counter.builder("charge.pending.index.corrections")
+                .description("Index entries the database contradicted on the pay path, e.g. charges settled by another instance")
+                .register(meterRegistry);
+        Gauge.builder("charge.pending.index.size", table, t -> t.size() - t.settled())
+                .description("Pending charges held in the index")
+                .register(meterRegistry);
+    }
+    
+    // Loaded once the application is ready rather than during startup, so the context starts without the database;
+    // until then every lookup misses and goes to the database as before
+    @EventListener(ApplicationReadyEvent.class)
+    public void warm() {
+        if (!enabled) return;
+        
+        long start = System.nanoTime();
+        List<PendingCharge> pending = chargeRepository.findAllPending();
+        // A transition committed while the query ran already wrote its slot and wins over the snapshot
+        for (PendingCharge charge : pending) put(charge.id(), charge.recipientId(), charge.amount(), charge.version(), true);
+        log.info("Pending charge index warmed with {} charges in {} ms", pending.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+    
+    public Verdict check(UUID chargeId, UUID payerId) {
+        Verdict verdict = verdict(chargeId, payerId);
+        lookups.get(verdict).increment();
+        return verdict;
+    }
+    
+    // The pay path has just read the charge from the database, which wins over the slot; a version that moved on
+    // means the index missed a transition, e.g. one made by another instance
+    public void reconcile(Charge charge) {
+        if (!enabled) return;
+        
+        UUID id = charge.getId();
+        long version = charge.getStatus() == Charge.ChargeStatus.PENDING ? (charge.getVersion() != null ? charge.getVersion() : 0) : ChargeSlotTable.SETTLED;
+        long[] slot = new long[4];
+        boolean indexed = table.get(id.getMostSignificantBits(), id.getLeastSignificantBits(), slot);
+        if (indexed && slot[3] == version) return;
+        
+        if (indexed) corrections.increment();
+        if (version == ChargeSlotTable.SETTLED) settle(id, charge.getRecipient().getId());
+        else put(id, charge.getRecipient().getId(), charge.getAmount(), version, false);
+    }
+    
+    // Applied only once the transition is durable; a rolled back pay leaves the charge pending
+    public void applyAfterCommit(Collection<Charge> charges, ChargeEvent.Type type) {
+        if (!enabled) return;
+        
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    apply(charges, type);
+                }
+            });
+        } else {
+            apply(charges, type);
+        }
+    }
+    
+    private void apply(Collection<Charge> charges, ChargeEvent.Type type) {
+        for (Charge charge : charges) {
+            if (type == ChargeEvent.Type.CREATED) {
+                put(charge.getId(), charge.getRecipient().getId(), charge.getAmount(), charge.getVersion() != null ? charge.getVersion() : 0, false);
+            } else {
+                settle(charge.getId(), charge.getRecipient().getId());
+            }
+        }
+    }
+    
+    private Verdict verdict(UUID chargeId, UUID payerId) {
+        if (!enabled) return Verdict.UNKNOWN;
+        
+        long[] slot = new long[4];
+        if (!table.get(chargeId.getMostSignificantBits(), chargeId.getLeastSignificantBits(), slot)) return Verdict.UNKNOWN;
+        if (slot[3] == ChargeSlotTable.SETTLED) return Verdict.NOT_PENDING;
+        if (slot[0] != payerId.getMostSignificantBits() || slot[1] != payerId.getLeastSignificantBits()) return Verdict.NOT_RECIPIENT;
+        return Verdict.PENDING;
+    }
+    
+    private void put(UUID chargeId, UUID recipientId, BigDecimal amount, long version, boolean onlyIfAbsent) {
+        table.put(chargeId.getMostSignificantBits(), chargeId.getLeastSignificantBits(),
+                recipientId.getMostSignificantBits(), recipientId.getLeastSignificantBits(),
+                amount.movePointRight(2).longValue(), version, onlyIfAbsent);
+    }
+    
+    private void settle(UUID chargeId, UUID recipientId) {
+        table.put(chargeId.getMostSignificantBits(), chargeId.getLeastSignificantBits(),
+                recipientId.getMostSignificantBits(), recipientId.getLeastSignificantBits(),
+                0, ChargeSlotTable.SETTLED, false);
+        // Settled slots only save a round trip for repeated pays of the same charge, so they are the ones let go
+        if (table.settled() > maxSettled) table.clearSettled();
+    }
+    
+    public enum Verdict {
+        // Not in the index: the database decides
+        UNKNOWN,
+        // Pending with this payer as recipient as far as the index knows: the database confirms
+        PENDING,
+        NOT_PENDING,
+        NOT_RECIPIENT
+    }
+}
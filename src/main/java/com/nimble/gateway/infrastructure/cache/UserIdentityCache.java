@@ -0,0 +1,155 @@
+package com.nimble.gateway.infrastructure.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.nimble.gateway.domain.entity.User;
+import com.nimble.gateway.domain.repository.UserRepository;
+import com.nimble.gateway.domain.valueobject.UserIdentity;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Function;
+
+@Slf4j
+@Component
+public class UserIdentityCache {
+    
+    private final UserRepository userRepository;
+    private final Cache<UUID, UserIdentity> identities;
+    private final Cache<String, UUID> idsByEmail;
+    private final Cache<String, UUID> idsByCpf;
+    private final Map<Lookup, Counter> hits = new EnumMap<>(Lookup.class);
+    private final Map<Lookup, Counter> misses = new EnumMap<>(Lookup.class);
+    
+    public UserIdentityCache(UserRepository userRepository,
+                             MeterRegistry meterRegistry,
+                             @Value("${app.users.identity-cache.maximum-size:10000}") long maximumSize,
+                             @Value("${app.users.identity-cache.ttl-seconds:600}") long ttlSeconds) {
+        this.userRepository = userRepository;
+        this.identities = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .build();
+        this.idsByEmail = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .build();
+        this.idsByCpf = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .build();
+        
+        for (Lookup lookup : Lookup.values()) {
+            hits.put(lookup, lookupCounter(meterRegistry, lookup, "hit"));
+            misses.put(lookup, lookupCounter(meterRegistry, lookup, "miss"));
+        }
+        Gauge.builder("user.identity.cache.size", identities, Cache::estimatedSize)
+                .description("Number of cached user identities")
+                .register(meterRegistry);
+    }
+    
+    public Optional<UserIdentity> findById(UUID id) {
+        UserIdentity cached = identities.getIfPresent(id);
+        if (cached != null) {
+            hits.get(Lookup.ID).increment();
+            return Optional.of(cached);
+        }
+        
+        misses.get(Lookup.ID).increment();
+        return userRepository.findById(id).map(this::put);
+    }
+    
+    public Optional<UserIdentity> findByEmail(String email) {
+        return findByKey(Lookup.EMAIL, idsByEmail, email, UserIdentity::email, userRepository::findByEmail);
+    }
+    
+    public Optional<UserIdentity> findByCpf(String cpf) {
+        return findByKey(Lookup.CPF, idsByCpf, cpf, UserIdentity::cpf, userRepository::findByCpf);
+    }
+    
+    public Optional<UserIdentity> findByUsername(String username) {
+        Optional<UserIdentity> identity = findByEmail(username);
+        
+        if (identity.isEmpty() && username.matches("\\d{11}")) identity = findByCpf(username);
+        
+        return identity;
+    }
+    
+    public void evict(UUID id) {
+        UserIdentity cached = identities.getIfPresent(id);
+        identities.invalidate(id);
+        if (cached != null) {
+            idsByEmail.invalidate(cached.email());
+            idsByCpf.invalidate(cached.cpf());
+        }
+    }
+    
+    public void evictIfChanged(User user) {
+        UserIdentity cached = identities.getIfPresent(user.getId());
+        if (cached == null || cached.equals(UserIdentity.of(user))) return;
+        
+        log.debug("Identity of user {} changed, evicting cached entry", user.getId());
+        evict(user.getId());
+        evictAfterCompletion(user.getId());
+    }
+    
+    public void evictAfterCompletion(UUID id) {
+        // A concurrent reader may have re-cached the old row before the writer committed
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    evict(id);
+                }
+            });
+        }
+    }
+    
+    private Optional<UserIdentity> findByKey(Lookup lookup, Cache<String, UUID> index, String key,
+                                             Function<UserIdentity, String> attribute,
+                                             Function<String, Optional<User>> loader) {
+        UUID id = index.getIfPresent(key);
+        if (id != null) {
+            UserIdentity cached = identities.getIfPresent(id);
+            if (cached != null && key.equals(attribute.apply(cached))) {
+                hits.get(lookup).increment();
+                return Optional.of(cached);
+            }
+            index.invalidate(key);
+        }
+        
+        misses.get(lookup).increment();
+        return loader.apply(key).map(this::put);
+    }
+    
+    private UserIdentity put(User user) {
+        UserIdentity identity = UserIdentity.of(user);
+        identities.put(identity.id(), identity);
+        idsByEmail.put(identity.email(), identity.id());
+        idsByCpf.put(identity.cpf(), identity.id());
+        return identity;
+    }
+    
+    private static Counter lookupCounter(MeterRegistry meterRegistry, Lookup lookup, String result) {
+        return Counter.builder("user.identity.cache.lookups")
+                .description("User identity cache lookups by key and result")
+                .tag("key", lookup.name().toLowerCase())
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+    
+    private enum Lookup {
+        ID, EMAIL, CPF
+    }
+}
@@ -0,0 +1,72 @@
+package com.nimble.gateway.infrastructure.cache;
+
+import com.nimble.gateway.domain.entity.User;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.boot.Metadata;
+import org.hibernate.boot.spi.BootstrapContext;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.integrator.spi.Integrator;
+import org.hibernate.jpa.boot.spi.IntegratorProvider;
+import org.hibernate.jpa.boot.spi.JpaSettings;
+import org.hibernate.persister.entity.EntityPersister;
+import org.hibernate.service.spi.SessionFactoryServiceRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+
+// Registered with Hibernate by an integrator rather than as a JPA entity listener, so the User entity knows
+// nothing of the cache
+@Component
+@RequiredArgsConstructor
+public class UserIdentityCacheListener implements PostUpdateEventListener, PostDeleteEventListener, HibernatePropertiesCustomizer {
+    
+    // Resolved lazily: the cache depends on the repository, which depends on the entity manager this listener is part of
+    private final ObjectProvider<UserIdentityCache> userIdentityCache;
+    
+    @Override
+    public void customize(Map<String, Object> hibernateProperties) {
+        hibernateProperties.put(JpaSettings.INTEGRATOR_PROVIDER, (IntegratorProvider) () -> List.of(new Integrator() {
+            @Override
+            public void integrate(Metadata metadata, BootstrapContext bootstrapContext, SessionFactoryImplementor sessionFactory) {
+                EventListenerRegistry listeners = sessionFactory.getServiceRegistry().requireService(EventListenerRegistry.class);
+                listeners.appendListeners(EventType.POST_UPDATE, UserIdentityCacheListener.this);
+                listeners.appendListeners(EventType.POST_DELETE, UserIdentityCacheListener.this);
+            }
+            
+            @Override
+            public void disintegrate(SessionFactoryImplementor sessionFactory, SessionFactoryServiceRegistry serviceRegistry) {
+            }
+        }));
+    }
+    
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        if (event.getEntity() instanceof User user) {
+            userIdentityCache.ifAvailable(cache -> cache.evictIfChanged(user));
+        }
+    }
+    
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        if (event.getEntity() instanceof User user) {
+            userIdentityCache.ifAvailable(cache -> {
+                cache.evict(user.getId());
+                cache.evictAfterCompletion(user.getId());
+            });
+        }
+    }
+    
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        return false;
+    }
+}
@@ -0,0 +1,84 @@
+package com.nimble.gateway.infrastructure.config;
+
+import org.springframework.aot.AotDetector;
+import org.springframework.beans.factory.aot.BeanFactoryInitializationAotContribution;
+import org.springframework.beans.factory.aot.BeanFactoryInitializationAotProcessor;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.env.EnvironmentPostProcessor;
+import org.springframework.core.env.ConfigurableEnvironment;
+import org.springframework.core.env.Environment;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.support.PropertiesLoaderUtils;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.Objects;
+import java.util.Properties;
+
+// The properties @ConditionalOnProperty beans are decided on. Under an AOT build (the fast-startup profile, the
+// Dockerfile with SPRING_AOT=true, the native image) process-aot decides those conditions once and the jar keeps the
+// answer, so a different value at runtime would be silently ignored. process-aot records the values it saw, and a
+// start with spring.aot.enabled=true and other values fails instead. Registered in META-INF/spring.factories and
+// META-INF/spring/aot.factories, since it has to run before and outside the context
+public class AotBuildProperties implements BeanFactoryInitializationAotProcessor, EnvironmentPostProcessor {
+    
+    static final String RESOURCE = "META-INF/nimble/aot-build.properties";
+    
+    static final List<String> BUILD_TIME = List.of(
+            "app.startup.lazy-non-critical",
+            "app.reconciliation.enabled",
+            "app.users.summary.check.enabled",
+            "app.payments.engine",
+            "app.outbox.relay.enabled",
+            "app.outbox.sink",
+            "app.archive.enabled",
+            "app.archive.partitions.enabled");
+    
+    @Override
+    public BeanFactoryInitializationAotContribution processAheadOfTime(ConfigurableListableBeanFactory beanFactory) {
+        String recorded = record(beanFactory.getBean(Environment.class));
+        return (generationContext, code) -> generationContext.getGeneratedFiles().addResourceFile(RESOURCE, recorded);
+    }
+    
+    @Override
+    public void postProcessEnvironment(ConfigurableEnvironment environment, SpringApplication application) {
+        if (!AotDetector.useGeneratedArtifacts()) return;
+        ClassPathResource resource = new ClassPathResource(RESOURCE, application.getClassLoader());
+        if (!resource.exists()) return;
+        try {
+            check(PropertiesLoaderUtils.loadProperties(resource), environment);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+    
+    static String record(Environment environment) {
+        Properties properties = new Properties();
+        for (String name : BUILD_TIME) {
+            String value = environment.getProperty(name);
+            if (value != null) properties.setProperty(name, value);
+        }
+        StringWriter writer = new StringWriter();
+        try {
+            properties.store(writer, "Build-time values of the conditional bean properties");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return writer.toString();
+    }
+    
+    static void check(Properties built, Environment environment) {
+        List<String> changed = BUILD_TIME.stream()
+                .filter(name -> !Objects.equals(built.getProperty(name), environment.getProperty(name)))
+                .map(name -> name + " (built with " + built.getProperty(name) + ", set to " + environment.getProperty(name) + ")")
+                .toList();
+        if (!changed.isEmpty()) {
+            throw new IllegalStateException("These properties were decided when the AOT build ran and cannot change at runtime: "
+                    + String.join(", ", changed) + ". Rebuild with them (-Dspring-boot.aot.jvmArguments, or the "
+                    + "AOT_JVM_ARGUMENTS build argument of the image), or start without -Dspring.aot.enabled=true");
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.nimble.gateway.infrastructure.config;
+
+import com.nimble.gateway.infrastructure.persistence.ReadWriteRoutingDataSource;
+import com.nimble.gateway.infrastructure.persistence.ReplicaRead;
+import com.nimble.gateway.infrastructure.persistence.ReplicaReads;
+import com.nimble.gateway.infrastructure.persistence.ReplicaDataSources;
+import com.nimble.gateway.infrastructure.persistence.ReplicaLagMonitor;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.aop.Advisor;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.aop.support.annotation.AnnotationMatchingPointcut;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Role;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@Configuration
+public class DataSourceConfig {
+    
+    public static final String WRITE_POOL = "write-pool";
+    public static final String READ_POOL = "read-pool";
+    
+    @Bean(destroyMethod = "close")
+    public HikariDataSource writeDataSource(DataSourceProperties properties, Environment environment, MeterRegistry meterRegistry) {
+        return pool(properties, environment, meterRegistry, WRITE_POOL, "app.datasource.write");
+    }
+    
+    @Bean(destroyMethod = "close")
+    public ReplicaDataSources readDataSources(DataSourceProperties properties, Environment environment, MeterRegistry meterRegistry) {
+        List<Replica> replicas = Binder.get(environment)
+                .bind("app.datasource.replicas", Bindable.listOf(Replica.class))
+                .orElse(List.of());
+        
+        // Without replicas the read pool points at the primary, which still keeps reads off the write pool
+        if (replicas.isEmpty()) {
+            HikariDataSource pool = pool(properties, environment, meterRegistry, READ_POOL, "app.datasource.read");
+            return new ReplicaDataSources(Map.of(READ_POOL, pool), true);
+        }
+        
+        Map<String, HikariDataSource> pools = new LinkedHashMap<>();
+        for (Replica replica : replicas) {
+            HikariDataSource pool = pool(properties, environment, meterRegistry, READ_POOL + "-" + replica.name(), "app.datasource.read");
+            pool.setJdbcUrl(replica.url());
+            if (replica.username() != null) pool.setUsername(replica.username());
+            if (replica.password() != null) pool.setPassword(replica.password());
+            pools.put(pool.getPoolName(), pool);
+        }
+        return new ReplicaDataSources(pools, false);
+    }
+    
+    // The lazy proxy defers the physical connection until the first statement, when the transaction's
+    // read-only flag is known, so read-only work never competes with payments for write-pool connections
+    @Bean
+    @Primary
+    public DataSource dataSource(HikariDataSource writeDataSource, ReplicaDataSources readDataSources,
+                                 ReplicaLagMonitor replicaLagMonitor, MeterRegistry meterRegistry) {
+        ReadWriteRoutingDataSource routingDataSource = new ReadWriteRoutingDataSource(
+                writeDataSource, readDataSources.pools(), replicaLagMonitor::isEligible, meterRegistry);
+        routingDataSource.afterPropertiesSet();
+        return new LazyConnectionDataSourceProxy(routingDataSource);
+    }
+    
+    // Outermost, ahead of the transaction advice, so the mark is in place before the transaction takes its connection
+    @Bean
+    @Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+    public static Advisor replicaReadAdvisor() {
+        DefaultPointcutAdvisor advisor = new DefaultPointcutAdvisor(
+                AnnotationMatchingPointcut.forMethodAnnotation(ReplicaRead.class), new ReplicaReads());
+        advisor.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return advisor;
+    }
+    
+    // Replica pools are not beans, so pool metrics are wired here rather than by the actuator auto-configuration
+    private HikariDataSource pool(DataSourceProperties properties, Environment environment, MeterRegistry meterRegistry,
+                                  String poolName, String prefix) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        Binder binder = Binder.get(environment);
+        binder.bind("spring.datasource.hikari", Bindable.ofInstance(dataSource));
+        binder.bind(prefix, Bindable.ofInstance(dataSource));
+        dataSource.setPoolName(poolName);
+        dataSource.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+        return dataSource;
+    }
+    
+    public record Replica(String name, String url, String username, String password) {
+    }
+}
@@ -0,0 +1,69 @@
+package com.nimble.gateway.infrastructure.config;
+
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.AnnotatedBeanDefinition;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.BeanFactoryPostProcessor;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.core.type.MethodMetadata;
+import org.springframework.util.ClassUtils;
+
+import java.util.List;
+
+// Marks the beans nothing on the request path needs - the OpenAPI docs and the /api/health checks - as lazy, so they
+// are created on their first request instead of during startup. Under the fast-startup build this runs at build time
+// and the lazy flags end up in the generated bean definitions.
+// Beans that must run at startup to work (lifecycle, listeners, post-initialization callbacks) are left alone
+public class LazyNonCriticalBeans implements BeanFactoryPostProcessor {
+    
+    static final List<String> NON_CRITICAL = List.of(
+            "org.springdoc.",
+            "com.nimble.gateway.infrastructure.config.OpenApiConfig",
+            "com.nimble.gateway.infrastructure.health.",
+            "com.nimble.gateway.presentation.controller.HealthController");
+    
+    private static final List<Class<?>> EAGER = List.of(SmartInitializingSingleton.class, ApplicationListener.class,
+            SmartLifecycle.class, BeanFactoryPostProcessor.class);
+    
+    @Override
+    public void postProcessBeanFactory(ConfigurableListableBeanFactory beanFactory) {
+        for (String name : beanFactory.getBeanDefinitionNames()) {
+            BeanDefinition definition = beanFactory.getBeanDefinition(name);
+            if (definition.getRole() == BeanDefinition.ROLE_INFRASTRUCTURE || definition.isLazyInit()) continue;
+            
+            String declaringClass = declaringClass(definition);
+            if (declaringClass == null || !isNonCritical(declaringClass)) continue;
+            if (mustRunAtStartup(typeName(definition), beanFactory.getBeanClassLoader())) continue;
+            
+            definition.setLazyInit(true);
+        }
+    }
+    
+    static boolean isNonCritical(String className) {
+        return NON_CRITICAL.stream().anyMatch(className::startsWith);
+    }
+    
+    // @Bean methods are matched by the configuration class declaring them, components by their own class
+    private static String declaringClass(BeanDefinition definition) {
+        MethodMetadata factoryMethod = definition instanceof AnnotatedBeanDefinition annotated ? annotated.getFactoryMethodMetadata() : null;
+        return factoryMethod != null ? factoryMethod.getDeclaringClassName() : definition.getBeanClassName();
+    }
+    
+    private static String typeName(BeanDefinition definition) {
+        MethodMetadata factoryMethod = definition instanceof AnnotatedBeanDefinition annotated ? annotated.getFactoryMethodMetadata() : null;
+        return factoryMethod != null ? factoryMethod.getReturnTypeName() : definition.getBeanClassName();
+    }
+    
+    // A type that cannot be resolved is not risked
+    private static boolean mustRunAtStartup(String typeName, ClassLoader classLoader) {
+        if (typeName == null) return true;
+        try {
+            Class<?> type = ClassUtils.forName(typeName, classLoader);
+            return EAGER.stream().anyMatch(eager -> eager.isAssignableFrom(type));
+        } catch (ClassNotFoundException | LinkageError e) {
+            return true;
+        }
+    }
+}
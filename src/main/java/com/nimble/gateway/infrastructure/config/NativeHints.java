@@ -0,0 +1,76 @@
+package com.nimble.gateway.infrastructure.config;
+
+import com.nimble.gateway.domain.event.ChargeEvent;
+import com.nimble.gateway.infrastructure.external.AuthorizerResponse;
+import com.nimble.gateway.infrastructure.external.AuthorizerService;
+import com.nimble.gateway.infrastructure.profiling.FlightRecorderEndpoint;
+import com.nimble.gateway.infrastructure.profiling.RecordingSummary;
+import com.nimble.gateway.infrastructure.tracing.TracesEndpoint;
+import org.springframework.aot.hint.BindingReflectionHintsRegistrar;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+
+import java.util.List;
+
+// What the native image needs beyond what Spring AOT derives from the bean definitions by itself. Entities, their
+// listeners, MapStruct mappers, controller DTOs, Flyway migrations and springdoc are already covered by Spring Boot
+// and springdoc, the MySQL driver, Hibernate and Caffeine by the GraalVM reachability metadata; Lombok leaves nothing
+// behind at runtime
+public class NativeHints implements RuntimeHintsRegistrar {
+    
+    // jjwt-api finds its implementation by class name, and jjwt-impl loads the Jackson serializer as a service
+    static final List<String> JJWT_IMPLEMENTATIONS = List.of(
+            "io.jsonwebtoken.impl.DefaultClaimsBuilder",
+            "io.jsonwebtoken.impl.DefaultJwtBuilder",
+            "io.jsonwebtoken.impl.DefaultJwtHeaderBuilder",
+            "io.jsonwebtoken.impl.DefaultJwtParserBuilder",
+            "io.jsonwebtoken.impl.io.StandardCompressionAlgorithms",
+            "io.jsonwebtoken.impl.security.DefaultDynamicJwkBuilder",
+            "io.jsonwebtoken.impl.security.KeysBridge",
+            "io.jsonwebtoken.impl.security.StandardEncryptionAlgorithms",
+            "io.jsonwebtoken.impl.security.StandardHashAlgorithms",
+            "io.jsonwebtoken.impl.security.StandardKeyAlgorithms",
+            "io.jsonwebtoken.impl.security.StandardKeyOperations",
+            "io.jsonwebtoken.impl.security.StandardCurves",
+            "io.jsonwebtoken.impl.security.StandardSecureDigestAlgorithms",
+            "io.jsonwebtoken.jackson.io.JacksonSerializer",
+            "io.jsonwebtoken.jackson.io.JacksonDeserializer");
+    
+    // Spring Boot registers the classes named in logback-spring.xml; the logstash providers are nested elements
+    // without a class attribute, which Joran resolves and calls the adders of reflectively
+    static final List<String> LOGSTASH_PROVIDERS = List.of(
+            "net.logstash.logback.composite.loggingevent.LoggingEventJsonProviders",
+            "net.logstash.logback.composite.loggingevent.LoggingEventFormattedTimestampJsonProvider",
+            "net.logstash.logback.composite.loggingevent.LogLevelJsonProvider",
+            "net.logstash.logback.composite.loggingevent.LoggerNameJsonProvider",
+            "net.logstash.logback.composite.loggingevent.MessageJsonProvider",
+            "net.logstash.logback.composite.loggingevent.MdcJsonProvider",
+            "net.logstash.logback.composite.loggingevent.StackTraceJsonProvider");
+    
+    @Override
+    public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+        for (String type : JJWT_IMPLEMENTATIONS) {
+            hints.reflection().registerTypeIfPresent(classLoader, type,
+                    MemberCategory.INVOKE_DECLARED_CONSTRUCTORS, MemberCategory.INVOKE_PUBLIC_METHODS);
+        }
+        hints.resources().registerPattern("META-INF/services/io.jsonwebtoken.*");
+        // What the conditional beans were decided with, checked at startup
+        hints.resources().registerPattern(AotBuildProperties.RESOURCE);
+        
+        for (String type : LOGSTASH_PROVIDERS) {
+            hints.reflection().registerTypeIfPresent(classLoader, type,
+                    MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS, MemberCategory.INTROSPECT_PUBLIC_METHODS, MemberCategory.INVOKE_PUBLIC_METHODS);
+        }
+        
+        // Serialized outside of controller signatures: the authorizer's responses, charge events on the SSE stream
+        // and the outbox file, and the responses of the custom actuator endpoints
+        BindingReflectionHintsRegistrar bindings = new BindingReflectionHintsRegistrar();
+        bindings.registerReflectionHints(hints.reflection(), AuthorizerResponse.class, ChargeEvent.class,
+                TracesEndpoint.Traces.class, FlightRecorderEndpoint.RecordingView.class, RecordingSummary.class);
+        
+        // The Resilience4j annotations only take effect once its aspects are on the classpath, which needs AspectJ.
+        // Their fallback is then looked up by name, so it stays reachable for that day
+        hints.reflection().registerType(AuthorizerService.class, MemberCategory.INVOKE_PUBLIC_METHODS);
+    }
+}
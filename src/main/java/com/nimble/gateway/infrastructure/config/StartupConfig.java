@@ -0,0 +1,45 @@
+package com.nimble.gateway.infrastructure.config;
+
+import com.nimble.gateway.infrastructure.persistence.PaymentEngineSelection;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.flyway.FlywayMigrationStrategy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.ImportRuntimeHints;
+import org.springframework.core.env.Environment;
+
+@Slf4j
+@Configuration
+@ImportRuntimeHints(NativeHints.class)
+public class StartupConfig {
+    
+    // Static: a BeanFactoryPostProcessor has to exist before the configuration class is instantiated.
+    // Turned off by scripts/startup-benchmark.sh for its baseline
+    @Bean
+    @ConditionalOnProperty(name = "app.startup.lazy-non-critical", havingValue = "true", matchIfMissing = true)
+    public static LazyNonCriticalBeans lazyNonCriticalBeans() {
+        return new LazyNonCriticalBeans();
+    }
+    
+    // Static for the same reason
+    @Bean
+    public static PaymentEngineSelection paymentEngineSelection(Environment environment) {
+        return new PaymentEngineSelection(environment);
+    }
+    
+    // The class data sharing training run (spring.context.exit=onRefresh, see Dockerfile) starts the context and
+    // exits without serving traffic, during the image build where there is no database. spring.flyway.enabled cannot
+    // turn the migration off there: under the fast-startup build that condition was already decided at build time
+    @Bean
+    public FlywayMigrationStrategy flywayMigrationStrategy(Environment environment) {
+        boolean trainingRun = "onRefresh".equals(environment.getProperty("spring.context.exit"));
+        return flyway -> {
+            if (trainingRun) {
+                log.info("Skipping database migration: the application exits once the context is refreshed");
+                return;
+            }
+            flyway.migrate();
+        };
+    }
+}
@@ -1,5 +1,7 @@
 package com.nimble.gateway.infrastructure.external;
 
+import com.nimble.gateway.infrastructure.profiling.AuthorizationEvent;
+import com.nimble.gateway.infrastructure.tracing.Tracing;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 import org.springframework.web.reactive.function.client.WebClient;
@@ -26,7 +28,7 @@ public class AuthorizerClient {
     }
     
     public Mono<AuthorizerResponse> authorize(String transactionType, BigDecimal amount) {
-        return webClient
+        return AuthorizationEvent.record(transactionType, Tracing.remote(Tracing.AUTHORIZER, "GET /authorizer?type=" + transactionType, webClient
                 .get()
                 .uri(uriBuilder -> {
                     var builder = uriBuilder.path("/authorizer");
@@ -37,7 +39,7 @@ public class AuthorizerClient {
                 .retrieve()
                 .bodyToMono(AuthorizerResponse.class)
                 .timeout(Duration.ofSeconds(10))
-                .onErrorReturn(createErrorResponse("Authorization service unavailable"));
+                .onErrorReturn(createErrorResponse("Authorization service unavailable"))), AuthorizerResponse::isApproved);
     }
     
     public Mono<AuthorizerResponse> authorizePayment(BigDecimal amount) {
@@ -1,5 +1,6 @@
 package com.nimble.gateway.infrastructure.external;
 
+import com.nimble.gateway.infrastructure.metrics.PaymentMetrics;
 import io.github.resilience4j.circuitbreaker.annotation.CircuitBreaker;
 import io.github.resilience4j.retry.annotation.Retry;
 import lombok.RequiredArgsConstructor;
@@ -15,6 +16,7 @@ import java.math.BigDecimal;
 public class AuthorizerService {
     
     private final AuthorizerClient authorizerClient;
+    private final PaymentMetrics paymentMetrics;
     
     @CircuitBreaker(name = "authorizerService", fallbackMethod = "handleAuthorizationFallback")
     @Retry(name = "authorizerService")
@@ -61,12 +63,12 @@ public class AuthorizerService {
     private Mono<Boolean> authorize(String transactionType, BigDecimal amount) {
         log.debug("Starting {} authorization process with amount: {}", transactionType, amount);
         
-        return authorizerClient.authorize(transactionType, amount)
+        return paymentMetrics.timeAuthorization(transactionType, authorizerClient.authorize(transactionType, amount)
                 .doOnNext(response -> log.info("{} authorization completed successfully: {} (amount: {})", 
                         capitalize(transactionType), response.isApproved(), amount))
                 .doOnError(error -> log.error("{} authorization failed with error: {} (amount: {})", 
                         capitalize(transactionType), error.getMessage(), amount))
-                .map(AuthorizerResponse::isApproved);
+                .map(AuthorizerResponse::isApproved));
     }
     
     public Mono<Boolean> handleAuthorizationFallback(Exception ex) {
@@ -0,0 +1,75 @@
+package com.nimble.gateway.infrastructure.health;
+
+import com.nimble.gateway.infrastructure.persistence.ReplicaDataSources;
+import com.nimble.gateway.infrastructure.persistence.ReplicaLagMonitor;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+@Component
+@RequiredArgsConstructor
+public class DatabasePoolMonitor {
+    
+    private final HikariDataSource writeDataSource;
+    private final ReplicaDataSources readDataSources;
+    private final ReplicaLagMonitor replicaLagMonitor;
+    private final MeterRegistry meterRegistry;
+    
+    public Map<String, Object> snapshot() {
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put(writeDataSource.getPoolName(), describe(writeDataSource));
+        readDataSources.pools().forEach((replica, pool) -> {
+            Map<String, Object> info = describe(pool);
+            info.put("replicaLagMs", replicaLagMonitor.lagMillis(replica));
+            info.put("eligible", replicaLagMonitor.isEligible(replica));
+            snapshot.put(pool.getPoolName(), info);
+        });
+        return snapshot;
+    }
+    
+    private Map<String, Object> describe(HikariDataSource pool) {
+        Map<String, Object> info = new LinkedHashMap<>();
+        info.put("maximumPoolSize", pool.getMaximumPoolSize());
+        info.put("minimumIdle", pool.getMinimumIdle());
+        info.put("maxLifetimeMs", pool.getMaxLifetime());
+        info.put("leakDetectionThresholdMs", pool.getLeakDetectionThreshold());
+        
+        // The MXBean is only available once the pool has handed out its first connection
+        HikariPoolMXBean mxBean = pool.getHikariPoolMXBean();
+        info.put("started", mxBean != null);
+        info.put("active", mxBean != null ? mxBean.getActiveConnections() : 0);
+        info.put("idle", mxBean != null ? mxBean.getIdleConnections() : 0);
+        info.put("total", mxBean != null ? mxBean.getTotalConnections() : 0);
+        info.put("pending", mxBean != null ? mxBean.getThreadsAwaitingConnection() : 0);
+        
+        Counter timeouts = meterRegistry.find("hikaricp.connections.timeout").tag("pool", pool.getPoolName()).counter();
+        info.put("timeouts", timeouts != null ? (long) timeouts.count() : 0L);
+        info.put("acquisition", latency(meterRegistry.find("hikaricp.connections.acquire").tag("pool", pool.getPoolName()).timer()));
+        info.put("usage", latency(meterRegistry.find("hikaricp.connections.usage").tag("pool", pool.getPoolName()).timer()));
+        return info;
+    }
+    
+    private Map<String, Object> latency(Timer timer) {
+        Map<String, Object> latency = new LinkedHashMap<>();
+        if (timer == null) return latency;
+        
+        HistogramSnapshot histogram = timer.takeSnapshot();
+        latency.put("count", histogram.count());
+        latency.put("meanMs", histogram.mean(TimeUnit.MILLISECONDS));
+        latency.put("maxMs", histogram.max(TimeUnit.MILLISECONDS));
+        for (ValueAtPercentile percentile : histogram.percentileValues()) {
+            latency.put("p" + Math.round(percentile.percentile() * 100) + "Ms", percentile.value(TimeUnit.MILLISECONDS));
+        }
+        return latency;
+    }
+}
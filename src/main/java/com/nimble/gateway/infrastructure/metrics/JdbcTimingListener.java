@@ -0,0 +1,61 @@
+package com.nimble.gateway.infrastructure.metrics;
+
+import com.nimble.gateway.infrastructure.profiling.JdbcEvent;
+import org.hibernate.SessionEventListener;
+
+// Registered through hibernate.session.events.auto, so Hibernate creates one per session. Adds the time spent
+// acquiring connections and preparing and executing statements and batches to the current request's profile,
+// and emits each as a JFR event while a recording is running
+public class JdbcTimingListener implements SessionEventListener {
+    
+    private long start;
+    private JdbcEvent event;
+    
+    @Override
+    public void jdbcConnectionAcquisitionStart() {
+        event = JdbcEvent.begin("connect");
+        start = System.nanoTime();
+    }
+    
+    @Override
+    public void jdbcConnectionAcquisitionEnd() {
+        JdbcEvent.end(event);
+        RequestProfile.addDbNanos(System.nanoTime() - start);
+    }
+    
+    @Override
+    public void jdbcPrepareStatementStart() {
+        event = JdbcEvent.begin("prepare");
+        start = System.nanoTime();
+    }
+    
+    @Override
+    public void jdbcPrepareStatementEnd() {
+        JdbcEvent.end(event);
+        RequestProfile.addDbNanos(System.nanoTime() - start);
+    }
+    
+    @Override
+    public void jdbcExecuteStatementStart() {
+        event = JdbcEvent.begin("execute");
+        start = System.nanoTime();
+    }
+    
+    @Override
+    public void jdbcExecuteStatementEnd() {
+        JdbcEvent.end(event);
+        RequestProfile.addDbNanos(System.nanoTime() - start);
+    }
+    
+    @Override
+    public void jdbcExecuteBatchStart() {
+        event = JdbcEvent.begin("batch");
+        start = System.nanoTime();
+    }
+    
+    @Override
+    public void jdbcExecuteBatchEnd() {
+        JdbcEvent.end(event);
+        RequestProfile.addDbNanos(System.nanoTime() - start);
+    }
+}
@@ -1,97 +1,136 @@
 package com.nimble.gateway.infrastructure.metrics;
 
+import com.nimble.gateway.infrastructure.profiling.PaymentEvent;
+import io.micrometer.core.instrument.Clock;
 import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
 import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.Timer;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
 
-import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
+// Every meter is registered up front, so recording on the payment path is a map lookup and an atomic add.
+// Histogram buckets and SLOs come from management.metrics.distribution in application.yml
 @Slf4j
 @Component
-@RequiredArgsConstructor
 public class PaymentMetrics {
     
-    private final MeterRegistry meterRegistry;
+    private static final List<String> PAYMENT_METHODS = List.of("BALANCE", "CREDIT_CARD");
+    private static final List<String> AUTHORIZATION_TYPES = List.of("payment", "deposit", "cancellation");
     
-    public void recordPaymentSuccess(String method) {
-        Counter.builder("payment.success")
-                .description("Number of successful payments")
-                .register(meterRegistry)
-                .increment();
-        
-        if ("BALANCE".equals(method)) {
-            Counter.builder("payment.method.balance")
-                    .description("Number of payments by balance")
-                    .register(meterRegistry)
-                    .increment();
-        } else if ("CREDIT_CARD".equals(method)) {
-            Counter.builder("payment.method.credit_card")
-                    .description("Number of payments by credit card")
-                    .register(meterRegistry)
-                    .increment();
+    private final Clock clock;
+    private final Map<String, Outcomes> payments = new HashMap<>();
+    private final Map<String, Authorizations> authorizations = new HashMap<>();
+    private final Outcomes deposits;
+    private final Outcomes cancellations;
+    private final Timer batchTime;
+    private final DistributionSummary batchCharges;
+    private final Counter chargesCreated;
+    
+    public PaymentMetrics(MeterRegistry meterRegistry) {
+        this.clock = meterRegistry.config().clock();
+        for (String method : PAYMENT_METHODS) {
+            payments.put(method, new Outcomes(
+                    timer(meterRegistry, "payment.processing.time", "Time taken to process payments", "method", method, "outcome", "success"),
+                    timer(meterRegistry, "payment.processing.time", "Time taken to process payments", "method", method, "outcome", "failure")));
         }
-        
-        log.info("Payment success recorded for method: {}", method);
+        for (String type : AUTHORIZATION_TYPES) {
+            authorizations.put(type, new Authorizations(
+                    timer(meterRegistry, "authorization.time", "Time taken for external authorization", "type", type, "outcome", "approved"),
+                    timer(meterRegistry, "authorization.time", "Time taken for external authorization", "type", type, "outcome", "declined"),
+                    timer(meterRegistry, "authorization.time", "Time taken for external authorization", "type", type, "outcome", "error")));
+        }
+        this.deposits = new Outcomes(
+                timer(meterRegistry, "deposit.processing.time", "Time taken to process deposits", "outcome", "success"),
+                timer(meterRegistry, "deposit.processing.time", "Time taken to process deposits", "outcome", "failure"));
+        this.cancellations = new Outcomes(
+                timer(meterRegistry, "charge.cancellation.time", "Time taken to cancel charges", "outcome", "success"),
+                timer(meterRegistry, "charge.cancellation.time", "Time taken to cancel charges", "outcome", "failure"));
+        this.batchTime = timer(meterRegistry, "payment.batch.time", "Time taken to process batch payments");
+        this.batchCharges = DistributionSummary.builder("payment.batch.charges")
+                .description("Charges paid per batch payment")
+                .register(meterRegistry);
+        // Not "charge.created": the Prometheus client treats a _created suffix as reserved and strips it
+        this.chargesCreated = Counter.builder("charge.creations")
+                .description("Number of charges created")
+                .register(meterRegistry);
     }
     
-    public void recordPaymentFailure(String reason) {
-        Counter.builder("payment.failure")
-                .description("Number of failed payments")
-                .register(meterRegistry)
-                .increment();
-        
-        log.warn("Payment failure recorded: {}", reason);
+    // Methods outside the pre-registered set are not timed rather than registering meters on the fly
+    public <T> Mono<T> timePayment(String method, Mono<T> payment) {
+        Outcomes outcomes = method != null ? payments.get(method) : null;
+        return outcomes != null ? time("payment", method, payment, outcomes) : payment;
     }
     
-    public void recordChargeCreated() {
-        Counter.builder("charge.created")
-                .description("Number of charges created")
-                .register(meterRegistry)
-                .increment();
-        
-        log.info("Charge created metric recorded");
+    public <T> Mono<T> timeCancellation(Mono<T> cancellation) {
+        return time("cancellation", null, cancellation, cancellations);
     }
     
-    public void recordChargeCancelled() {
-        Counter.builder("charge.cancelled")
-                .description("Number of charges cancelled")
-                .register(meterRegistry)
-                .increment();
-        
-        log.info("Charge cancelled metric recorded");
+    public <T> Mono<T> timeDeposit(Mono<T> deposit) {
+        return time("deposit", null, deposit, deposits);
     }
     
-    public void recordDepositSuccess(BigDecimal amount) {
-        Counter.builder("deposit.success")
-                .description("Number of successful deposits")
-                .register(meterRegistry)
-                .increment();
+    public Mono<Boolean> timeAuthorization(String type, Mono<Boolean> authorization) {
+        Authorizations timers = authorizations.get(type);
+        if (timers == null) return authorization;
         
-        log.info("Deposit success recorded for amount: {}", amount);
+        return Mono.defer(() -> {
+            // Captured on the request thread; the response may complete on a client thread
+            RequestProfile profile = RequestProfile.current();
+            long start = clock.monotonicTime();
+            return authorization
+                    .doOnSuccess(approved -> {
+                        long elapsed = clock.monotonicTime() - start;
+                        (Boolean.TRUE.equals(approved) ? timers.approved() : timers.declined()).record(elapsed, TimeUnit.NANOSECONDS);
+                        if (profile != null) profile.addAuthorizerNanos(elapsed);
+                    })
+                    .doOnError(error -> {
+                        long elapsed = clock.monotonicTime() - start;
+                        timers.error().record(elapsed, TimeUnit.NANOSECONDS);
+                        if (profile != null) profile.addAuthorizerNanos(elapsed);
+                    });
+        });
     }
     
-    public Timer.Sample startPaymentProcessingTimer() {
-        return Timer.start(meterRegistry);
+    public long startBatch() {
+        return clock.monotonicTime();
     }
     
-    public void stopPaymentProcessingTimer(Timer.Sample sample) {
-        Timer timer = Timer.builder("payment.processing.time")
-                .description("Time taken to process payments")
-                .register(meterRegistry);
-        sample.stop(timer);
+    public void recordBatch(long start, int chargesPaid) {
+        batchTime.record(clock.monotonicTime() - start, TimeUnit.NANOSECONDS);
+        batchCharges.record(chargesPaid);
+    }
+    
+    public void recordChargeCreated() {
+        chargesCreated.increment();
     }
     
-    public Timer.Sample startAuthorizationTimer() {
-        return Timer.start(meterRegistry);
+    // Also emitted as a JFR event, so a recording shows each operation next to the samples taken during it
+    private <T> Mono<T> time(String name, String method, Mono<T> operation, Outcomes outcomes) {
+        return PaymentEvent.record(name, method, Mono.defer(() -> {
+            long start = clock.monotonicTime();
+            return operation
+                    .doOnSuccess(result -> outcomes.success().record(clock.monotonicTime() - start, TimeUnit.NANOSECONDS))
+                    .doOnError(error -> outcomes.failure().record(clock.monotonicTime() - start, TimeUnit.NANOSECONDS));
+        }));
     }
     
-    public void stopAuthorizationTimer(Timer.Sample sample) {
-        Timer timer = Timer.builder("authorization.time")
-                .description("Time taken for external authorization")
+    private static Timer timer(MeterRegistry meterRegistry, String name, String description, String... tags) {
+        return Timer.builder(name)
+                .description(description)
+                .tags(tags)
                 .register(meterRegistry);
-        sample.stop(timer);
     }
-}
\ No newline at end of file
+    
+    private record Outcomes(Timer success, Timer failure) {
+    }
+    
+    private record Authorizations(Timer approved, Timer declined, Timer error) {
+    }
+}
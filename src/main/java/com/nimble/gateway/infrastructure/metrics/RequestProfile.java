@@ -0,0 +1,53 @@
+package com.nimble.gateway.infrastructure.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+// Where the current request's wall time went besides its own CPU: JDBC calls and authorizer round trips.
+// One instance per servlet thread, reset at the start of every request
+public final class RequestProfile {
+    
+    private static final ThreadLocal<RequestProfile> PROFILES = ThreadLocal.withInitial(RequestProfile::new);
+    
+    private boolean active;
+    private long dbNanos;
+    // Authorizer responses can complete on a client thread while the request thread is blocked on them
+    private final AtomicLong authorizerNanos = new AtomicLong();
+    
+    private RequestProfile() {
+    }
+    
+    static RequestProfile begin() {
+        RequestProfile profile = PROFILES.get();
+        profile.active = true;
+        profile.dbNanos = 0;
+        profile.authorizerNanos.set(0);
+        return profile;
+    }
+    
+    void end() {
+        active = false;
+    }
+    
+    // Null outside a profiled request, e.g. on scheduler threads
+    public static RequestProfile current() {
+        RequestProfile profile = PROFILES.get();
+        return profile.active ? profile : null;
+    }
+    
+    static void addDbNanos(long nanos) {
+        RequestProfile profile = PROFILES.get();
+        if (profile.active) profile.dbNanos += nanos;
+    }
+    
+    public void addAuthorizerNanos(long nanos) {
+        authorizerNanos.addAndGet(nanos);
+    }
+    
+    long dbNanos() {
+        return dbNanos;
+    }
+    
+    long authorizerNanos() {
+        return authorizerNanos.get();
+    }
+}
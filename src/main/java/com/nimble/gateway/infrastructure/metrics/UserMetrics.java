@@ -0,0 +1,66 @@
+package com.nimble.gateway.infrastructure.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+// Logins are dominated by password hashing, so their latency is tracked apart from the HTTP timer
+@Component
+public class UserMetrics {
+    
+    private final MeterRegistry meterRegistry;
+    private final Counter usersRegistered;
+    private final Timer loginSuccess;
+    private final Timer loginFailure;
+    private final Timer refreshSuccess;
+    private final Timer refreshFailure;
+    
+    public UserMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        this.usersRegistered = Counter.builder("user.registered")
+                .description("Number of users registered")
+                .register(meterRegistry);
+        this.loginSuccess = loginTimer(meterRegistry, "success");
+        this.loginFailure = loginTimer(meterRegistry, "failure");
+        this.refreshSuccess = refreshTimer(meterRegistry, "success");
+        this.refreshFailure = refreshTimer(meterRegistry, "failure");
+    }
+    
+    public void recordUserRegistered() {
+        usersRegistered.increment();
+    }
+    
+    public long startLogin() {
+        return meterRegistry.config().clock().monotonicTime();
+    }
+    
+    public void recordLogin(long start, boolean success) {
+        (success ? loginSuccess : loginFailure).record(meterRegistry.config().clock().monotonicTime() - start, TimeUnit.NANOSECONDS);
+    }
+    
+    public long startRefresh() {
+        return meterRegistry.config().clock().monotonicTime();
+    }
+    
+    // Kept next to the login timer so the two costs can be compared directly
+    public void recordRefresh(long start, boolean success) {
+        (success ? refreshSuccess : refreshFailure).record(meterRegistry.config().clock().monotonicTime() - start, TimeUnit.NANOSECONDS);
+    }
+    
+    private static Timer refreshTimer(MeterRegistry meterRegistry, String outcome) {
+        return Timer.builder("user.token.refresh.time")
+                .description("Time taken to rotate refresh tokens")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+    
+    private static Timer loginTimer(MeterRegistry meterRegistry, String outcome) {
+        return Timer.builder("user.login.time")
+                .description("Time taken to authenticate users")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+}
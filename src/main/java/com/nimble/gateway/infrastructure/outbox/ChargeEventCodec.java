@@ -0,0 +1,67 @@
+package com.nimble.gateway.infrastructure.outbox;
+
+import com.nimble.gateway.domain.entity.Charge;
+import com.nimble.gateway.domain.event.ChargeEvent;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.util.UUID;
+
+public final class ChargeEventCodec {
+    
+    private static final byte VERSION = 1;
+    private static final byte NO_PAYMENT_METHOD = -1;
+    static final int ENCODED_SIZE = 3 + 3 * 16 + 9 + 8;
+    
+    private ChargeEventCodec() {
+    }
+    
+    public static byte[] encode(ChargeEvent event) {
+        ByteBuffer buffer = ByteBuffer.allocate(ENCODED_SIZE);
+        buffer.put(VERSION);
+        buffer.put((byte) event.getType().ordinal());
+        buffer.put(event.getPaymentMethod() != null ? (byte) event.getPaymentMethod().ordinal() : NO_PAYMENT_METHOD);
+        putUuid(buffer, event.getChargeId());
+        putUuid(buffer, event.getOriginatorId());
+        putUuid(buffer, event.getRecipientId());
+        buffer.put((byte) event.getAmount().scale());
+        buffer.putLong(event.getAmount().unscaledValue().longValueExact());
+        buffer.putLong(event.getOccurredAt().toEpochMilli());
+        return buffer.array();
+    }
+    
+    public static ChargeEvent decode(byte[] payload) {
+        ByteBuffer buffer = ByteBuffer.wrap(payload);
+        byte version = buffer.get();
+        if (version != VERSION) throw new IllegalArgumentException("Unsupported charge event version: " + version);
+        
+        ChargeEvent.Type type = ChargeEvent.Type.values()[buffer.get()];
+        byte method = buffer.get();
+        UUID chargeId = getUuid(buffer);
+        UUID originatorId = getUuid(buffer);
+        UUID recipientId = getUuid(buffer);
+        int scale = buffer.get();
+        BigDecimal amount = BigDecimal.valueOf(buffer.getLong(), scale);
+        Instant occurredAt = Instant.ofEpochMilli(buffer.getLong());
+        
+        return ChargeEvent.builder()
+                .type(type)
+                .chargeId(chargeId)
+                .originatorId(originatorId)
+                .recipientId(recipientId)
+                .amount(amount)
+                .paymentMethod(method == NO_PAYMENT_METHOD ? null : Charge.PaymentMethod.values()[method])
+                .occurredAt(occurredAt)
+                .build();
+    }
+    
+    private static void putUuid(ByteBuffer buffer, UUID uuid) {
+        buffer.putLong(uuid.getMostSignificantBits());
+        buffer.putLong(uuid.getLeastSignificantBits());
+    }
+    
+    private static UUID getUuid(ByteBuffer buffer) {
+        return new UUID(buffer.getLong(), buffer.getLong());
+    }
+}
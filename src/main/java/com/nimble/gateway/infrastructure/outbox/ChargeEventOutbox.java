@@ -0,0 +1,63 @@
+package com.nimble.gateway.infrastructure.outbox;
+
+import com.nimble.gateway.domain.entity.Charge;
+import com.nimble.gateway.domain.entity.OutboxEvent;
+import com.nimble.gateway.domain.event.ChargeEvent;
+import com.nimble.gateway.domain.repository.OutboxEventRepository;
+import com.nimble.gateway.infrastructure.cache.PendingChargeIndex;
+import com.nimble.gateway.infrastructure.stream.ChargeStatusHub;
+import com.nimble.gateway.infrastructure.summary.ChargeSummaryRecorder;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ChargeEventOutbox {
+    
+    private final OutboxEventRepository outboxEventRepository;
+    private final ChargeStatusHub chargeStatusHub;
+    private final ChargeSummaryRecorder chargeSummaryRecorder;
+    private final PendingChargeIndex pendingChargeIndex;
+    
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void record(Charge charge, ChargeEvent.Type type) {
+        ChargeEvent event = ChargeEvent.of(charge, type);
+        
+        outboxEventRepository.save(OutboxEvent.builder()
+                .aggregateId(event.getChargeId())
+                .eventType(type.name())
+                .payload(ChargeEventCodec.encode(event))
+                .build());
+        // Every transition passes through here, so the per-user daily summaries are kept in step
+        chargeSummaryRecorder.record(charge, type);
+        chargeStatusHub.publishAfterCommit(event);
+        pendingChargeIndex.applyAfterCommit(List.of(charge), type);
+        
+        log.debug("Charge event {} recorded in outbox for charge {}", type, event.getChargeId());
+    }
+    
+    // Batched transitions: one outbox row and one stream event per charge, summary deltas merged per user and day
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordAll(Collection<Charge> charges, ChargeEvent.Type type) {
+        for (Charge charge : charges) {
+            ChargeEvent event = ChargeEvent.of(charge, type);
+            outboxEventRepository.save(OutboxEvent.builder()
+                    .aggregateId(event.getChargeId())
+                    .eventType(type.name())
+                    .payload(ChargeEventCodec.encode(event))
+                    .build());
+            chargeStatusHub.publishAfterCommit(event);
+        }
+        chargeSummaryRecorder.recordAll(charges, type);
+        pendingChargeIndex.applyAfterCommit(charges, type);
+        
+        log.debug("Charge event {} recorded in outbox for {} charges", type, charges.size());
+    }
+}
@@ -0,0 +1,10 @@
+package com.nimble.gateway.infrastructure.outbox;
+
+import com.nimble.gateway.domain.event.ChargeEvent;
+
+import java.util.List;
+
+public interface ChargeEventSink {
+    
+    void publish(List<ChargeEvent> events);
+}
@@ -0,0 +1,63 @@
+package com.nimble.gateway.infrastructure.outbox;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nimble.gateway.domain.event.ChargeEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static java.nio.file.StandardOpenOption.APPEND;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "app.outbox.sink", havingValue = "file")
+public class FileChargeEventSink implements ChargeEventSink {
+    
+    private final ObjectMapper objectMapper;
+    private final Path path;
+    
+    public FileChargeEventSink(
+            ObjectMapper objectMapper,
+            @Value("${app.outbox.file.path:logs/charge-events.ndjson}") String path) {
+        this.objectMapper = objectMapper;
+        this.path = Path.of(path);
+    }
+    
+    @Override
+    public synchronized void publish(List<ChargeEvent> events) {
+        StringBuilder lines = new StringBuilder(events.size() * 256);
+        for (ChargeEvent event : events) {
+            try {
+                lines.append(objectMapper.writeValueAsString(event)).append('\n');
+            } catch (JsonProcessingException e) {
+                throw new IllegalStateException("Could not serialize charge event " + event.getChargeId(), e);
+            }
+        }
+        
+        try {
+            if (path.getParent() != null) Files.createDirectories(path.getParent());
+            try (FileChannel channel = FileChannel.open(path, CREATE, WRITE, APPEND)) {
+                ByteBuffer buffer = ByteBuffer.wrap(lines.toString().getBytes(StandardCharsets.UTF_8));
+                while (buffer.hasRemaining()) channel.write(buffer);
+                channel.force(false);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not append charge events to " + path, e);
+        }
+        
+        log.debug("Appended {} charge events to {}", events.size(), path);
+    }
+}
@@ -0,0 +1,59 @@
+package com.nimble.gateway.infrastructure.outbox;
+
+import com.nimble.gateway.domain.event.ChargeEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "app.outbox.sink", havingValue = "broker")
+public class InMemoryBrokerChargeEventSink implements ChargeEventSink {
+    
+    private final List<BlockingQueue<ChargeEvent>> partitions;
+    private final long offerTimeoutMs;
+    
+    public InMemoryBrokerChargeEventSink(
+            @Value("${app.outbox.broker.partitions:8}") int partitionCount,
+            @Value("${app.outbox.broker.partition-capacity:10000}") int partitionCapacity,
+            @Value("${app.outbox.broker.offer-timeout-ms:100}") long offerTimeoutMs) {
+        this.partitions = new ArrayList<>(partitionCount);
+        for (int i = 0; i < partitionCount; i++) partitions.add(new ArrayBlockingQueue<>(partitionCapacity));
+        this.offerTimeoutMs = offerTimeoutMs;
+    }
+    
+    @Override
+    public void publish(List<ChargeEvent> events) {
+        for (ChargeEvent event : events) {
+            try {
+                if (!partitionFor(event).offer(event, offerTimeoutMs, TimeUnit.MILLISECONDS)) {
+                    throw new IllegalStateException("Broker partition full, charge event " + event.getChargeId() + " not accepted");
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while publishing charge events", e);
+            }
+        }
+    }
+    
+    public List<ChargeEvent> poll(int partition, int maxEvents) {
+        List<ChargeEvent> events = new ArrayList<>(maxEvents);
+        partitions.get(partition).drainTo(events, maxEvents);
+        return events;
+    }
+    
+    public int partitionCount() {
+        return partitions.size();
+    }
+    
+    private BlockingQueue<ChargeEvent> partitionFor(ChargeEvent event) {
+        return partitions.get(Math.floorMod(event.getChargeId().hashCode(), partitions.size()));
+    }
+}
@@ -0,0 +1,22 @@
+package com.nimble.gateway.infrastructure.outbox;
+
+import com.nimble.gateway.domain.event.ChargeEvent;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "app.outbox.sink", havingValue = "in-process", matchIfMissing = true)
+public class InProcessChargeEventSink implements ChargeEventSink {
+    
+    private final ApplicationEventPublisher eventPublisher;
+    
+    @Override
+    public void publish(List<ChargeEvent> events) {
+        events.forEach(eventPublisher::publishEvent);
+    }
+}
@@ -0,0 +1,72 @@
+package com.nimble.gateway.infrastructure.outbox;
+
+import com.nimble.gateway.domain.entity.OutboxEvent;
+import com.nimble.gateway.domain.event.ChargeEvent;
+import com.nimble.gateway.domain.repository.OutboxEventRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "app.outbox.relay.enabled", havingValue = "true", matchIfMissing = true)
+public class OutboxRelay {
+    
+    private final OutboxEventRepository outboxEventRepository;
+    private final ChargeEventSink chargeEventSink;
+    private final TransactionOperations transactionOperations;
+    private final int batchSize;
+    private final long retentionHours;
+    
+    public OutboxRelay(
+            OutboxEventRepository outboxEventRepository,
+            ChargeEventSink chargeEventSink,
+            TransactionOperations transactionOperations,
+            @Value("${app.outbox.relay.batch-size:200}") int batchSize,
+            @Value("${app.outbox.relay.retention-hours:168}") long retentionHours) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.chargeEventSink = chargeEventSink;
+        this.transactionOperations = transactionOperations;
+        this.batchSize = batchSize;
+        this.retentionHours = retentionHours;
+    }
+    
+    @Scheduled(fixedDelayString = "${app.outbox.relay.poll-interval-ms:500}")
+    public void relay() {
+        int relayed;
+        do {
+            relayed = relayBatch();
+        } while (relayed > 0);
+    }
+    
+    public int relayBatch() {
+        Integer relayed = transactionOperations.execute(status -> {
+            List<OutboxEvent> batch = outboxEventRepository.lockNextBatch(batchSize);
+            if (batch.isEmpty()) return 0;
+            
+            List<ChargeEvent> events = batch.stream()
+                    .map(outboxEvent -> ChargeEventCodec.decode(outboxEvent.getPayload()))
+                    .toList();
+            
+            chargeEventSink.publish(events);
+            batch.forEach(OutboxEvent::markAsPublished);
+            return batch.size();
+        });
+        
+        if (relayed != null && relayed > 0) log.debug("Relayed {} charge events from outbox", relayed);
+        return relayed != null ? relayed : 0;
+    }
+    
+    @Scheduled(cron = "${app.outbox.relay.purge-cron:0 0 * * * *}")
+    public void purgePublished() {
+        Integer purged = transactionOperations.execute(status ->
+                outboxEventRepository.deletePublishedBefore(LocalDateTime.now().minusHours(retentionHours)));
+        if (purged != null && purged > 0) log.info("Purged {} published outbox events", purged);
+    }
+}
@@ -1,13 +1,21 @@
 package com.nimble.gateway.infrastructure.persistence;
 
+import com.nimble.gateway.domain.entity.ArchivedAuditLog;
 import com.nimble.gateway.domain.entity.AuditLog;
+import com.nimble.gateway.domain.entity.User;
 import com.nimble.gateway.domain.repository.AuditLogRepository;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
 import java.util.List;
 import java.util.UUID;
 
@@ -26,7 +34,50 @@ public interface AuditLogRepositoryImpl extends JpaRepository<AuditLog, UUID>, A
     @Query("SELECT a FROM AuditLog a WHERE a.entityType = :entityType AND a.entityId = :entityId ORDER BY a.createdAt DESC")
     List<AuditLog> findByEntityTypeAndEntityId(@Param("entityType") String entityType, @Param("entityId") String entityId);
     
-    @Override
     @Query("SELECT a FROM AuditLog a WHERE a.createdAt BETWEEN :startDate AND :endDate ORDER BY a.createdAt DESC")
-    List<AuditLog> findByCreatedAtBetween(@Param("startDate") LocalDateTime startDate, @Param("endDate") LocalDateTime endDate);
+    List<AuditLog> findLiveByCreatedAtBetween(@Param("startDate") LocalDateTime startDate, @Param("endDate") LocalDateTime endDate);
+    
+    @Query("SELECT a, u FROM ArchivedAuditLog a LEFT JOIN User u ON u.id = a.userId WHERE a.createdAt BETWEEN :startDate AND :endDate")
+    List<Object[]> findArchivedByCreatedAtBetween(@Param("startDate") LocalDateTime startDate, @Param("endDate") LocalDateTime endDate);
+    
+    @Query("SELECT MAX(a.createdAt) FROM ArchivedAuditLog a")
+    LocalDateTime findNewestArchivedCreatedAt();
+    
+    // The archive only holds entries up to its newest one, so recent ranges never touch it
+    @Override
+    default List<AuditLog> findByCreatedAtBetween(LocalDateTime startDate, LocalDateTime endDate) {
+        List<AuditLog> live = findLiveByCreatedAtBetween(startDate, endDate);
+        LocalDateTime newestArchived = findNewestArchivedCreatedAt();
+        if (newestArchived == null || newestArchived.isBefore(startDate)) return live;
+        
+        List<AuditLog> auditLogs = new ArrayList<>(live);
+        for (Object[] row : findArchivedByCreatedAtBetween(startDate, endDate)) {
+            auditLogs.add(((ArchivedAuditLog) row[0]).toAuditLog((User) row[1]));
+        }
+        auditLogs.sort(Comparator.comparing(AuditLog::getCreatedAt).reversed());
+        return auditLogs;
+    }
+    
+    @Query("SELECT a.id FROM AuditLog a WHERE a.createdAt < :cutoff ORDER BY a.createdAt")
+    List<UUID> findIdsCreatedBefore(@Param("cutoff") LocalDateTime cutoff, Pageable pageable);
+    
+    @Modifying
+    @Query("INSERT INTO ArchivedAuditLog (id, userId, action, entityType, entityId, oldValues, newValues, ipAddress, userAgent, createdAt, archivedAt) " +
+           "SELECT a.id, a.user.id, a.action, a.entityType, a.entityId, a.oldValues, a.newValues, a.ipAddress, a.userAgent, a.createdAt, :archivedAt " +
+           "FROM AuditLog a WHERE a.id IN :ids")
+    int copyToArchive(@Param("ids") Collection<UUID> ids, @Param("archivedAt") LocalDateTime archivedAt);
+    
+    @Modifying
+    @Query("DELETE FROM AuditLog a WHERE a.id IN :ids")
+    int deleteByIds(@Param("ids") Collection<UUID> ids);
+    
+    @Override
+    default int archiveCreatedBefore(LocalDateTime cutoff, int batchSize) {
+        List<UUID> ids = findIdsCreatedBefore(cutoff, PageRequest.of(0, batchSize));
+        if (ids.isEmpty()) return 0;
+        
+        copyToArchive(ids, LocalDateTime.now());
+        deleteByIds(ids);
+        return ids.size();
+    }
 }
@@ -0,0 +1,22 @@
+package com.nimble.gateway.infrastructure.persistence;
+
+import com.nimble.gateway.domain.entity.BalanceDiscrepancy;
+import com.nimble.gateway.domain.repository.BalanceDiscrepancyRepository;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface BalanceDiscrepancyRepositoryImpl extends JpaRepository<BalanceDiscrepancy, UUID>, BalanceDiscrepancyRepository {
+    
+    @Override
+    List<BalanceDiscrepancy> findByRunId(UUID runId);
+    
+    @Override
+    default void saveAllDiscrepancies(Collection<BalanceDiscrepancy> discrepancies) {
+        saveAll(discrepancies);
+    }
+}
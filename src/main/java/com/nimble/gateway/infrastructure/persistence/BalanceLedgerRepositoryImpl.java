@@ -0,0 +1,87 @@
+package com.nimble.gateway.infrastructure.persistence;
+
+import com.nimble.gateway.domain.entity.User;
+import com.nimble.gateway.domain.repository.BalanceLedgerRepository;
+import com.nimble.gateway.domain.valueobject.UserAmount;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+@org.springframework.stereotype.Repository
+public interface BalanceLedgerRepositoryImpl extends org.springframework.data.repository.Repository<User, UUID>, BalanceLedgerRepository {
+    
+    @Query("SELECT new com.nimble.gateway.domain.valueobject.UserAmount(u.id, u.balance) FROM User u WHERE u.id BETWEEN :from AND :to")
+    List<UserAmount> findUserBalances(@Param("from") UUID from, @Param("to") UUID to);
+    
+    // Deposits are payments without a charge
+    @Query("SELECT new com.nimble.gateway.domain.valueobject.UserAmount(p.payer.id, SUM(p.amount)) FROM Payment p " +
+           "WHERE p.charge IS NULL AND p.status <> com.nimble.gateway.domain.entity.Payment.PaymentStatus.FAILED " +
+           "AND p.payer.id BETWEEN :from AND :to GROUP BY p.payer.id")
+    List<UserAmount> sumDepositPayments(@Param("from") UUID from, @Param("to") UUID to);
+    
+    @Query("SELECT new com.nimble.gateway.domain.valueobject.UserAmount(d.user.id, SUM(d.amount)) FROM Deposit d " +
+           "WHERE d.status = com.nimble.gateway.domain.entity.Deposit.DepositStatus.APPROVED " +
+           "AND d.user.id BETWEEN :from AND :to GROUP BY d.user.id")
+    List<UserAmount> sumApprovedDeposits(@Param("from") UUID from, @Param("to") UUID to);
+    
+    // Balance payments of cancelled charges were refunded to the payer, so only charges still PAID count
+    @Query("SELECT new com.nimble.gateway.domain.valueobject.UserAmount(p.payer.id, SUM(p.amount)) FROM Payment p JOIN p.charge c " +
+           "WHERE p.method = com.nimble.gateway.domain.entity.Payment.PaymentMethod.BALANCE " +
+           "AND c.status = com.nimble.gateway.domain.entity.Charge.ChargeStatus.PAID " +
+           "AND p.payer.id BETWEEN :from AND :to GROUP BY p.payer.id")
+    List<UserAmount> sumLiveBalancePayments(@Param("from") UUID from, @Param("to") UUID to);
+    
+    @Query("SELECT new com.nimble.gateway.domain.valueobject.UserAmount(a.payerId, SUM(a.amount)) FROM ArchivedPayment a " +
+           "JOIN ArchivedCharge c ON c.id = a.chargeId " +
+           "WHERE a.method = com.nimble.gateway.domain.entity.Payment.PaymentMethod.BALANCE " +
+           "AND c.status = com.nimble.gateway.domain.entity.Charge.ChargeStatus.PAID " +
+           "AND a.payerId BETWEEN :from AND :to GROUP BY a.payerId")
+    List<UserAmount> sumArchivedBalancePayments(@Param("from") UUID from, @Param("to") UUID to);
+    
+    // Cancelling a card-paid charge refunds the card through the authorizer but leaves the credited balance alone
+    @Query("SELECT new com.nimble.gateway.domain.valueobject.UserAmount(c.recipient.id, SUM(c.amount)) FROM Charge c " +
+           "WHERE (c.status = com.nimble.gateway.domain.entity.Charge.ChargeStatus.PAID " +
+           "OR (c.status = com.nimble.gateway.domain.entity.Charge.ChargeStatus.CANCELLED AND c.paidAt IS NOT NULL " +
+           "AND c.paymentMethod = com.nimble.gateway.domain.entity.Charge.PaymentMethod.CREDIT_CARD)) " +
+           "AND c.recipient.id BETWEEN :from AND :to GROUP BY c.recipient.id")
+    List<UserAmount> sumLiveChargeCredits(@Param("from") UUID from, @Param("to") UUID to);
+    
+    @Query("SELECT new com.nimble.gateway.domain.valueobject.UserAmount(a.recipientId, SUM(a.amount)) FROM ArchivedCharge a " +
+           "WHERE (a.status = com.nimble.gateway.domain.entity.Charge.ChargeStatus.PAID " +
+           "OR (a.status = com.nimble.gateway.domain.entity.Charge.ChargeStatus.CANCELLED AND a.paidAt IS NOT NULL " +
+           "AND a.paymentMethod = com.nimble.gateway.domain.entity.Charge.PaymentMethod.CREDIT_CARD)) " +
+           "AND a.recipientId BETWEEN :from AND :to GROUP BY a.recipientId")
+    List<UserAmount> sumArchivedChargeCredits(@Param("from") UUID from, @Param("to") UUID to);
+    
+    @Override
+    default Map<UUID, BigDecimal> findBalances(UUID from, UUID to) {
+        Map<UUID, BigDecimal> balances = new HashMap<>();
+        for (UserAmount balance : findUserBalances(from, to)) {
+            balances.put(balance.userId(), balance.amount());
+        }
+        return balances;
+    }
+    
+    @Override
+    default Map<UUID, BigDecimal> computeExpectedBalances(UUID from, UUID to) {
+        Map<UUID, BigDecimal> expected = new HashMap<>();
+        accumulate(expected, sumDepositPayments(from, to), false);
+        accumulate(expected, sumApprovedDeposits(from, to), false);
+        accumulate(expected, sumLiveChargeCredits(from, to), false);
+        accumulate(expected, sumArchivedChargeCredits(from, to), false);
+        accumulate(expected, sumLiveBalancePayments(from, to), true);
+        accumulate(expected, sumArchivedBalancePayments(from, to), true);
+        return expected;
+    }
+    
+    private static void accumulate(Map<UUID, BigDecimal> expected, List<UserAmount> amounts, boolean debit) {
+        for (UserAmount amount : amounts) {
+            expected.merge(amount.userId(), debit ? amount.amount().negate() : amount.amount(), BigDecimal::add);
+        }
+    }
+}
@@ -1,15 +1,28 @@
 package com.nimble.gateway.infrastructure.persistence;
 
+import com.nimble.gateway.domain.entity.ArchivedCharge;
 import com.nimble.gateway.domain.entity.Charge;
 import com.nimble.gateway.domain.entity.User;
 import com.nimble.gateway.domain.repository.ChargeRepository;
+import com.nimble.gateway.domain.valueobject.PendingCharge;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
 import java.util.List;
 import java.util.UUID;
+import java.util.function.BiFunction;
+import java.util.function.Supplier;
 
 @Repository
 public interface ChargeRepositoryImpl extends JpaRepository<Charge, UUID>, ChargeRepository {
@@ -26,9 +39,109 @@ public interface ChargeRepositoryImpl extends JpaRepository<Charge, UUID>, Charg
     @Override
     List<Charge> findByRecipientAndStatus(User recipient, Charge.ChargeStatus status);
     
+    @Override
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT c FROM Charge c JOIN FETCH c.recipient WHERE c.id IN :ids")
+    List<Charge> findAllByIdForUpdate(@Param("ids") Collection<UUID> ids);
+    
+    @Query("SELECT new com.nimble.gateway.domain.valueobject.PendingCharge(c.id, c.recipient.id, c.amount, c.version) " +
+           "FROM Charge c WHERE c.status = :status")
+    List<PendingCharge> findPendingChargesByStatus(@Param("status") Charge.ChargeStatus status);
+    
+    @Override
+    default List<PendingCharge> findAllPending() {
+        return findPendingChargesByStatus(Charge.ChargeStatus.PENDING);
+    }
+    
     @Query("SELECT c FROM Charge c WHERE c.originator = :originator ORDER BY c.createdAt DESC")
     List<Charge> findChargesCreatedByUser(@Param("originator") User originator);
     
     @Query("SELECT c FROM Charge c WHERE c.recipient = :recipient ORDER BY c.createdAt DESC")
     List<Charge> findChargesReceivedByUser(@Param("recipient") User recipient);
-}
\ No newline at end of file
+    
+    @Query("SELECT c FROM Charge c WHERE c.originator = :originator AND c.createdAt >= :from AND c.createdAt < :to ORDER BY c.createdAt DESC")
+    List<Charge> findLiveByOriginator(@Param("originator") User originator, @Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+    
+    @Query("SELECT c FROM Charge c WHERE c.recipient = :recipient AND c.createdAt >= :from AND c.createdAt < :to ORDER BY c.createdAt DESC")
+    List<Charge> findLiveByRecipient(@Param("recipient") User recipient, @Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+    
+    @Query("SELECT a, u FROM ArchivedCharge a JOIN User u ON u.id = a.recipientId " +
+           "WHERE a.originatorId = :originatorId AND a.createdAt >= :from AND a.createdAt < :to")
+    List<Object[]> findArchivedByOriginator(@Param("originatorId") UUID originatorId, @Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+    
+    @Query("SELECT a, u FROM ArchivedCharge a JOIN User u ON u.id = a.originatorId " +
+           "WHERE a.recipientId = :recipientId AND a.createdAt >= :from AND a.createdAt < :to")
+    List<Object[]> findArchivedByRecipient(@Param("recipientId") UUID recipientId, @Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+    
+    @Query("SELECT MAX(a.createdAt) FROM ArchivedCharge a")
+    LocalDateTime findNewestArchivedCreatedAt();
+    
+    @Override
+    default List<Charge> findHistoryByOriginator(User originator, LocalDateTime from, LocalDateTime to) {
+        List<Charge> live = findLiveByOriginator(originator, from, to);
+        return withArchived(live, from, () -> findArchivedByOriginator(originator.getId(), from, to),
+                (archived, recipient) -> archived.toCharge(originator, recipient));
+    }
+    
+    @Override
+    default List<Charge> findHistoryByRecipient(User recipient, LocalDateTime from, LocalDateTime to) {
+        List<Charge> live = findLiveByRecipient(recipient, from, to);
+        return withArchived(live, from, () -> findArchivedByRecipient(recipient.getId(), from, to),
+                (archived, originator) -> archived.toCharge(originator, recipient));
+    }
+    
+    // The archive only holds charges up to its newest entry (an index lookup), so recent ranges never touch it
+    private List<Charge> withArchived(List<Charge> live, LocalDateTime from, Supplier<List<Object[]>> archivedRows,
+                                      BiFunction<ArchivedCharge, User, Charge> toCharge) {
+        LocalDateTime newestArchived = findNewestArchivedCreatedAt();
+        if (newestArchived == null || newestArchived.isBefore(from)) return live;
+        
+        List<Charge> charges = new ArrayList<>(live);
+        for (Object[] row : archivedRows.get()) {
+            charges.add(toCharge.apply((ArchivedCharge) row[0], (User) row[1]));
+        }
+        charges.sort(Comparator.comparing(Charge::getCreatedAt).reversed());
+        return charges;
+    }
+    
+    @Query("SELECT c.id FROM Charge c WHERE c.status IN :statuses AND c.createdAt < :cutoff ORDER BY c.createdAt")
+    List<UUID> findIdsByStatusCreatedBefore(@Param("statuses") Collection<Charge.ChargeStatus> statuses,
+                                            @Param("cutoff") LocalDateTime cutoff, Pageable pageable);
+    
+    // Card data is deliberately left behind: archived payments keep only what reconciliation needs
+    @Modifying
+    @Query("INSERT INTO ArchivedPayment (id, chargeId, payerId, amount, status, method, externalTransactionId, authorizationCode, " +
+           "createdAt, paymentDate, processedAt, failedAt, failureReason, archivedAt) " +
+           "SELECT p.id, p.charge.id, p.payer.id, p.amount, p.status, p.method, p.externalTransactionId, p.authorizationCode, " +
+           "p.createdAt, p.paymentDate, p.processedAt, p.failedAt, p.failureReason, :archivedAt FROM Payment p WHERE p.charge.id IN :chargeIds")
+    int copyPaymentsToArchive(@Param("chargeIds") Collection<UUID> chargeIds, @Param("archivedAt") LocalDateTime archivedAt);
+    
+    @Modifying
+    @Query("DELETE FROM Payment p WHERE p.charge.id IN :chargeIds")
+    int deletePaymentsOfCharges(@Param("chargeIds") Collection<UUID> chargeIds);
+    
+    @Modifying
+    @Query("INSERT INTO ArchivedCharge (id, originatorId, recipientId, amount, description, status, paymentMethod, " +
+           "createdAt, updatedAt, paidAt, cancelledAt, archivedAt) " +
+           "SELECT c.id, c.originator.id, c.recipient.id, c.amount, c.description, c.status, c.paymentMethod, " +
+           "c.createdAt, c.updatedAt, c.paidAt, c.cancelledAt, :archivedAt FROM Charge c WHERE c.id IN :ids")
+    int copyToArchive(@Param("ids") Collection<UUID> ids, @Param("archivedAt") LocalDateTime archivedAt);
+    
+    @Modifying
+    @Query("DELETE FROM Charge c WHERE c.id IN :ids")
+    int deleteByIds(@Param("ids") Collection<UUID> ids);
+    
+    @Override
+    default int archiveSettledBefore(LocalDateTime cutoff, int batchSize) {
+        List<UUID> ids = findIdsByStatusCreatedBefore(
+                List.of(Charge.ChargeStatus.PAID, Charge.ChargeStatus.CANCELLED), cutoff, PageRequest.of(0, batchSize));
+        if (ids.isEmpty()) return 0;
+        
+        LocalDateTime archivedAt = LocalDateTime.now();
+        copyPaymentsToArchive(ids, archivedAt);
+        deletePaymentsOfCharges(ids);
+        copyToArchive(ids, archivedAt);
+        deleteByIds(ids);
+        return ids.size();
+    }
+}
@@ -0,0 +1,84 @@
+package com.nimble.gateway.infrastructure.persistence;
+
+import com.nimble.gateway.domain.exception.ConflictException;
+import io.github.resilience4j.core.IntervalFunction;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.IntFunction;
+
+// Optimistic locking for the use cases: a write decided on a stale read fails its version check, and the whole
+// read-decide-write attempt runs again from a fresh read after a short randomized pause, a bounded number of times.
+// The pause is taken on the calling thread rather than a timer thread, so the retry keeps the request's
+// persistence context, which the failed transaction's rollback has already cleared
+@Slf4j
+@Component
+public class ConflictRetry {
+    
+    private static final List<String> OPERATIONS = List.of("pay", "pay-batch", "deposit", "cancel");
+    
+    private final int maxAttempts;
+    private final IntervalFunction backoff;
+    private final Map<String, Counter> retried = new HashMap<>();
+    private final Map<String, Counter> exhausted = new HashMap<>();
+    
+    public ConflictRetry(MeterRegistry meterRegistry,
+                         @Value("${app.conflict-retry.max-attempts:4}") int maxAttempts,
+                         @Value("${app.conflict-retry.initial-backoff-ms:5}") long initialBackoffMs,
+                         @Value("${app.conflict-retry.max-backoff-ms:100}") long maxBackoffMs) {
+        if (maxAttempts < 1) throw new IllegalArgumentException("app.conflict-retry.max-attempts must be at least 1");
+        this.maxAttempts = maxAttempts;
+        // Doubling, randomized by half either way, so writers that collided once do not collide again in lockstep
+        this.backoff = IntervalFunction.ofExponentialRandomBackoff(initialBackoffMs, 2.0, 0.5, maxBackoffMs);
+        
+        for (String operation : OPERATIONS) {
+            retried.put(operation, counter(meterRegistry, operation, "retried"));
+            exhausted.put(operation, counter(meterRegistry, operation, "exhausted"));
+        }
+    }
+    
+    // attempt receives 0 on the first run and the retry number afterwards, for callers that must reload what they hold
+    public <T> Mono<T> execute(String operation, IntFunction<Mono<T>> attempt) {
+        return attempt(operation, attempt, 0);
+    }
+    
+    // For writes that follow a call that must not be repeated, e.g. a card authorization: reported, never retried
+    public <T> Mono<T> detect(String operation, Mono<T> write) {
+        return write.onErrorMap(OptimisticLockingFailureException.class, ex -> conflict(operation, ex));
+    }
+    
+    private <T> Mono<T> attempt(String operation, IntFunction<Mono<T>> attempt, int retry) {
+        return Mono.defer(() -> attempt.apply(retry))
+                .onErrorResume(OptimisticLockingFailureException.class, ex -> {
+                    if (retry + 1 >= maxAttempts) return Mono.error(conflict(operation, ex));
+                    
+                    retried.get(operation).increment();
+                    log.debug("Retrying {} after a concurrent update ({} of {})", operation, retry + 1, maxAttempts - 1);
+                    LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(backoff.apply(retry + 1)));
+                    return attempt(operation, attempt, retry + 1);
+                });
+    }
+    
+    private ConflictException conflict(String operation, OptimisticLockingFailureException ex) {
+        exhausted.get(operation).increment();
+        return new ConflictException("The resource was modified concurrently, please retry", ex);
+    }
+    
+    private static Counter counter(MeterRegistry meterRegistry, String operation, String outcome) {
+        return Counter.builder("persistence.conflicts")
+                .description("Optimistic locking conflicts, by operation and whether the attempt was retried or given up")
+                .tag("operation", operation)
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,174 @@
+package com.nimble.gateway.infrastructure.persistence;
+
+import com.nimble.gateway.domain.entity.Charge;
+import com.nimble.gateway.domain.entity.Payment;
+import com.nimble.gateway.domain.entity.User;
+import com.nimble.gateway.domain.event.ChargeEvent;
+import com.nimble.gateway.domain.exception.BusinessRuleException;
+import com.nimble.gateway.domain.exception.InsufficientBalanceException;
+import com.nimble.gateway.domain.exception.UserNotFoundException;
+import com.nimble.gateway.domain.repository.ChargeRepository;
+import com.nimble.gateway.domain.repository.PaymentRepository;
+import com.nimble.gateway.domain.repository.UserRepository;
+import com.nimble.gateway.infrastructure.cache.PendingChargeIndex;
+import com.nimble.gateway.infrastructure.outbox.ChargeEventOutbox;
+import org.springframework.transaction.support.TransactionOperations;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+// The JPA path: the charge and the users are read as entities, checked, and their new balances flushed with the
+// charge, the payment and the outbox row in one transaction. The other engines extend it and replace only the
+// operations they do their own way
+public abstract class EntityPaymentEngine implements PaymentEngine {
+    
+    protected final UserRepository userRepository;
+    protected final ChargeRepository chargeRepository;
+    protected final PaymentRepository paymentRepository;
+    protected final ChargeEventOutbox chargeEventOutbox;
+    protected final PendingChargeIndex pendingChargeIndex;
+    protected final TransactionOperations transactionOperations;
+    protected final ConflictRetry conflictRetry;
+    
+    protected EntityPaymentEngine(UserRepository userRepository,
+                                  ChargeRepository chargeRepository,
+                                  PaymentRepository paymentRepository,
+                                  ChargeEventOutbox chargeEventOutbox,
+                                  PendingChargeIndex pendingChargeIndex,
+                                  TransactionOperations transactionOperations,
+                                  ConflictRetry conflictRetry) {
+        this.userRepository = userRepository;
+        this.chargeRepository = chargeRepository;
+        this.paymentRepository = paymentRepository;
+        this.chargeEventOutbox = chargeEventOutbox;
+        this.pendingChargeIndex = pendingChargeIndex;
+        this.transactionOperations = transactionOperations;
+        this.conflictRetry = conflictRetry;
+    }
+    
+    // A conflicting write runs the pay again from a fresh read: every step before the transaction only reads
+    @Override
+    public Mono<Payment> payWithBalance(UUID chargeId, UUID payerId) {
+        return conflictRetry.execute("pay", attempt -> Mono.fromCallable(() -> {
+            Charge charge = chargeRepository.findById(chargeId)
+                    .orElseThrow(() -> new BusinessRuleException("Charge not found"));
+            pendingChargeIndex.reconcile(charge);
+            if (charge.getStatus() != Charge.ChargeStatus.PENDING) throw new BusinessRuleException("Charge is not pending");
+            
+            User payer = userRepository.findById(payerId)
+                    .orElseThrow(() -> new UserNotFoundException("Payer not found"));
+            if (!charge.getRecipient().getId().equals(payerId)) throw new BusinessRuleException("Only the recipient can pay this charge");
+            checkBalance(payer, charge.getAmount());
+            
+            // All writes share one transaction so they flush together as a JDBC batch at commit
+            return transactionOperations.execute(status -> {
+                Payment payment = paymentRepository.save(Payment.builder()
+                        .charge(charge)
+                        .payer(payer)
+                        .amount(charge.getAmount())
+                        .method(Payment.PaymentMethod.BALANCE)
+                        .paymentDate(LocalDateTime.now())
+                        .build());
+                transfer(payer, charge.getRecipient(), payment);
+                
+                charge.setStatus(Charge.ChargeStatus.PAID);
+                charge.setPaidAt(LocalDateTime.now());
+                charge.setPaymentMethod(Charge.PaymentMethod.BALANCE);
+                chargeRepository.save(charge);
+                chargeEventOutbox.record(charge, ChargeEvent.Type.PAID);
+                return payment;
+            });
+        }));
+    }
+    
+    // Authorized once: only the balance update is retried, from a fresh read of the user
+    @Override
+    public Mono<Payment> deposit(User user, BigDecimal amount) {
+        return conflictRetry.execute("deposit", attempt -> Mono.fromCallable(() -> {
+            User depositor = attempt == 0 ? user : userRepository.findById(user.getId())
+                    .orElseThrow(() -> new UserNotFoundException("User not found"));
+            
+            return transactionOperations.execute(status -> {
+                Payment payment = paymentRepository.save(Payment.builder()
+                        .payer(depositor)
+                        .amount(amount)
+                        .method(Payment.PaymentMethod.BALANCE)
+                        .paymentDate(LocalDateTime.now())
+                        .build());
+                credit(depositor, payment);
+                return payment;
+            });
+        }));
+    }
+    
+    @Override
+    public BigDecimal balanceOf(User user) {
+        return user.getBalance();
+    }
+    
+    // One debit for the payer and one credit per recipient
+    @Override
+    public void payBatch(User payer, List<Payment> payments) {
+        LocalDateTime now = LocalDateTime.now();
+        BigDecimal debit = BigDecimal.ZERO;
+        Map<UUID, User> recipients = new LinkedHashMap<>();
+        Map<UUID, BigDecimal> credits = new HashMap<>();
+        for (Payment payment : payments) {
+            User recipient = payment.getCharge().getRecipient();
+            debit = debit.add(payment.getAmount());
+            recipients.putIfAbsent(recipient.getId(), recipient);
+            credits.merge(recipient.getId(), payment.getAmount(), BigDecimal::add);
+        }
+        
+        payer.setBalance(payer.getBalance().subtract(debit));
+        payer.setUpdatedAt(now);
+        userRepository.save(payer);
+        recipients.forEach((recipientId, recipient) -> {
+            recipient.setBalance(recipient.getBalance().add(credits.get(recipientId)));
+            recipient.setUpdatedAt(now);
+            userRepository.save(recipient);
+        });
+    }
+    
+    @Override
+    public void credit(User recipient, Payment payment) {
+        recipient.setBalance(recipient.getBalance().add(payment.getAmount()));
+        recipient.setUpdatedAt(LocalDateTime.now());
+        userRepository.save(recipient);
+    }
+    
+    @Override
+    public void refund(User recipient, Payment payment) {
+        User payer = payment.getPayer();
+        payer.setBalance(payer.getBalance().add(payment.getAmount()));
+        payer.setUpdatedAt(LocalDateTime.now());
+        userRepository.save(payer);
+        
+        recipient.setBalance(recipient.getBalance().subtract(payment.getAmount()));
+        recipient.setUpdatedAt(LocalDateTime.now());
+        userRepository.save(recipient);
+    }
+    
+    // Before the transaction opens, against the balance just read
+    protected void checkBalance(User payer, BigDecimal amount) {
+        if (payer.getBalance().compareTo(amount) < 0) throw new InsufficientBalanceException("Insufficient balance");
+    }
+    
+    // Inside the pay's transaction, once its payment is saved
+    protected void transfer(User payer, User recipient, Payment payment) {
+        payer.setBalance(payer.getBalance().subtract(payment.getAmount()));
+        payer.setUpdatedAt(LocalDateTime.now());
+        
+        recipient.setBalance(recipient.getBalance().add(payment.getAmount()));
+        recipient.setUpdatedAt(LocalDateTime.now());
+        
+        userRepository.save(payer);
+        userRepository.save(recipient);
+    }
+}
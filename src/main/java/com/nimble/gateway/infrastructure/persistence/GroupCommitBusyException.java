@@ -0,0 +1,9 @@
+package com.nimble.gateway.infrastructure.persistence;
+
+// A full shard queue under load, answered with 503 like a saturated hashing pool, so no stack trace is captured
+public class GroupCommitBusyException extends RuntimeException {
+    
+    public GroupCommitBusyException(String message) {
+        super(message, null, false, false);
+    }
+}
@@ -0,0 +1,343 @@
+package com.nimble.gateway.infrastructure.persistence;
+
+import com.nimble.gateway.domain.entity.Charge;
+import com.nimble.gateway.domain.entity.Payment;
+import com.nimble.gateway.domain.entity.User;
+import com.nimble.gateway.domain.event.ChargeEvent;
+import com.nimble.gateway.domain.exception.BusinessRuleException;
+import com.nimble.gateway.domain.exception.InsufficientBalanceException;
+import com.nimble.gateway.domain.exception.UserNotFoundException;
+import com.nimble.gateway.domain.repository.ChargeRepository;
+import com.nimble.gateway.domain.repository.PaymentRepository;
+import com.nimble.gateway.domain.repository.UserRepository;
+import com.nimble.gateway.infrastructure.cache.PendingChargeIndex;
+import com.nimble.gateway.infrastructure.outbox.ChargeEventOutbox;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionOperations;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+// The group-commit payment engine: balance payments and authorized deposits queue on a shard picked by the payer's
+// id, and the shard's single writer applies whatever arrives within the batch window in one transaction, so a burst
+// costs one commit (one redo log flush) instead of one per request and repeated updates of a user flush as one
+// UPDATE. Each command is checked against the state the commands before it left, like a batch payment, so a refused
+// command never rolls back its neighbours; a batch that fails to commit runs again one command per transaction, and
+// a command alone that hits a version conflict is retried from a fresh read like the JPA path's writes.
+// GroupCommitPaymentEngine hands it the balance pays and deposits
+@Slf4j
+@Component
+@ConditionalOnProperty(name = PaymentEngine.PROPERTY, havingValue = PaymentEngine.GROUP_COMMIT)
+public class GroupCommitExecutor {
+    
+    private static final long IDLE_POLL_MILLIS = 100;
+    private static final long SHUTDOWN_WAIT_MILLIS = 5_000;
+    
+    private final UserRepository userRepository;
+    private final ChargeRepository chargeRepository;
+    private final PaymentRepository paymentRepository;
+    private final ChargeEventOutbox chargeEventOutbox;
+    private final PendingChargeIndex pendingChargeIndex;
+    private final TransactionOperations transactionOperations;
+    private final ConflictRetry conflictRetry;
+    private final int maxBatch;
+    private final long windowNanos;
+    private final List<Shard> shards = new ArrayList<>();
+    private final DistributionSummary batchSize;
+    private final Counter isolated;
+    private final Counter rejected;
+    private volatile boolean running = true;
+    
+    public GroupCommitExecutor(UserRepository userRepository,
+                               ChargeRepository chargeRepository,
+                               PaymentRepository paymentRepository,
+                               ChargeEventOutbox chargeEventOutbox,
+                               PendingChargeIndex pendingChargeIndex,
+                               TransactionOperations transactionOperations,
+                               ConflictRetry conflictRetry,
+                               MeterRegistry meterRegistry,
+                               @Value("${app.payments.group-commit.shards:4}") int shards,
+                               @Value("${app.payments.group-commit.max-batch:64}") int maxBatch,
+                               @Value("${app.payments.group-commit.window-micros:500}") long windowMicros,
+                               @Value("${app.payments.group-commit.queue-capacity:1024}") int queueCapacity) {
+        this.userRepository = userRepository;
+        this.chargeRepository = chargeRepository;
+        this.paymentRepository = paymentRepository;
+        this.chargeEventOutbox = chargeEventOutbox;
+        this.pendingChargeIndex = pendingChargeIndex;
+        this.transactionOperations = transactionOperations;
+        this.conflictRetry = conflictRetry;
+        this.maxBatch = Math.max(1, maxBatch);
+        this.windowNanos = TimeUnit.MICROSECONDS.toNanos(Math.max(0, windowMicros));
+        this.batchSize = DistributionSummary.builder("payment.group_commit.batch.size")
+                .description("Commands applied per group commit")
+                .register(meterRegistry);
+        this.isolated = Counter.builder("payment.group_commit.isolated")
+                .description("Group commits that failed and were run again one command per transaction")
+                .register(meterRegistry);
+        this.rejected = Counter.builder("payment.group_commit.rejected")
+                .description("Commands refused because their shard queue was full")
+                .register(meterRegistry);
+        Gauge.builder("payment.group_commit.queued", this, GroupCommitExecutor::queued)
+                .description("Commands waiting for their shard writer")
+                .register(meterRegistry);
+        
+        for (int i = 0; i < Math.max(1, shards); i++) this.shards.add(new Shard(i, queueCapacity));
+        log.info("Group commit enabled with {} shards, batches of up to {} commands within {} µs", this.shards.size(), this.maxBatch, windowMicros);
+    }
+    
+    public CompletableFuture<Payment> payWithBalance(UUID chargeId, UUID payerId) {
+        return submit(new PayCommand(chargeId, payerId, new CompletableFuture<>()));
+    }
+    
+    public CompletableFuture<Payment> deposit(UUID userId, BigDecimal amount) {
+        return submit(new DepositCommand(userId, amount, new CompletableFuture<>()));
+    }
+    
+    int queued() {
+        return shards.stream().mapToInt(shard -> shard.queue.size()).sum();
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        for (Shard shard : shards) {
+            try {
+                // The batch in flight is let finish; what is still queued is refused by the writer on its way out
+                shard.writer.join(SHUTDOWN_WAIT_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            shard.writer.interrupt();
+        }
+    }
+    
+    // Every command of a payer lands on the same shard, so one payer's balance changes apply in arrival order
+    private CompletableFuture<Payment> submit(Command command) {
+        Shard shard = shards.get(Math.floorMod(command.userId().hashCode(), shards.size()));
+        if (!running || !shard.queue.offer(command)) {
+            rejected.increment();
+            command.result().completeExceptionally(new GroupCommitBusyException("Too many payments in progress, try again shortly"));
+        } else if (!running && shard.queue.remove(command)) {
+            // Shut down between the check and the offer, maybe after the writer's last drain: nobody would take it.
+            // If the remove finds nothing, the writer took the command and completes it
+            command.result().completeExceptionally(new GroupCommitBusyException("Shutting down, try again shortly"));
+        }
+        return command.result();
+    }
+    
+    private void commit(List<Command> batch) {
+        if (batch.size() == 1) {
+            commitAlone(batch.get(0));
+            return;
+        }
+        
+        List<Outcome> outcomes;
+        try {
+            outcomes = transactionOperations.execute(status -> apply(batch));
+        } catch (RuntimeException e) {
+            // A write failed the whole batch, e.g. a version conflict with the JPA path; alone, only its command fails
+            isolated.increment();
+            log.warn("Group commit of {} commands failed, committing them one by one: {}", batch.size(), e.getMessage());
+            for (Command command : batch) commitAlone(command);
+            return;
+        }
+        complete(batch, outcomes);
+    }
+    
+    // Each attempt reads the users and charges again in a new transaction. The backoff is taken on the writer, so
+    // the rest of the shard waits it out: the payer's later commands must not overtake this one
+    private void commitAlone(Command command) {
+        List<Command> batch = List.of(command);
+        String operation = command instanceof PayCommand ? "pay" : "deposit";
+        List<Outcome> outcomes;
+        try {
+            outcomes = conflictRetry.execute(operation, attempt -> Mono.fromCallable(() -> transactionOperations.execute(status -> apply(batch))))
+                    .block();
+        } catch (RuntimeException e) {
+            command.result().completeExceptionally(e);
+            return;
+        }
+        complete(batch, outcomes);
+    }
+    
+    private void complete(List<Command> batch, List<Outcome> outcomes) {
+        batchSize.record(batch.size());
+        for (int i = 0; i < batch.size(); i++) {
+            Outcome outcome = outcomes.get(i);
+            if (outcome.refusal() != null) batch.get(i).result().completeExceptionally(outcome.refusal());
+            else batch.get(i).result().complete(outcome.payment());
+        }
+    }
+    
+    private List<Outcome> apply(List<Command> batch) {
+        Set<UUID> userIds = new HashSet<>();
+        Set<UUID> chargeIds = new HashSet<>();
+        for (Command command : batch) {
+            userIds.add(command.userId());
+            if (command instanceof PayCommand pay) chargeIds.add(pay.chargeId());
+        }
+        // Users first, so the charges' recipients resolve from the persistence context rather than their own selects
+        Map<UUID, User> users = new HashMap<>();
+        for (User user : userRepository.findAllById(userIds)) users.put(user.getId(), user);
+        Map<UUID, Charge> charges = new HashMap<>();
+        if (!chargeIds.isEmpty()) {
+            for (Charge charge : chargeRepository.findAllById(chargeIds)) {
+                pendingChargeIndex.reconcile(charge);
+                charges.put(charge.getId(), charge);
+            }
+        }
+        
+        LocalDateTime now = LocalDateTime.now();
+        List<Outcome> outcomes = new ArrayList<>(batch.size());
+        List<Charge> paid = new ArrayList<>();
+        for (Command command : batch) {
+            outcomes.add(switch (command) {
+                case PayCommand pay -> pay(charges.get(pay.chargeId()), pay.payerId(), users.get(pay.payerId()), now, paid);
+                case DepositCommand deposit -> deposit(users.get(deposit.userId()), deposit.amount(), now);
+            });
+        }
+        if (!paid.isEmpty()) chargeEventOutbox.recordAll(paid, ChargeEvent.Type.PAID);
+        return outcomes;
+    }
+    
+    // Same checks, in the same order, as the JPA path; a charge paid earlier in the batch is no longer pending
+    private Outcome pay(Charge charge, UUID payerId, User payer, LocalDateTime now, List<Charge> paid) {
+        if (charge == null) return Outcome.refused(new BusinessRuleException("Charge not found"));
+        if (charge.getStatus() != Charge.ChargeStatus.PENDING) return Outcome.refused(new BusinessRuleException("Charge is not pending"));
+        if (payer == null) return Outcome.refused(new UserNotFoundException("Payer not found"));
+        if (!charge.getRecipient().getId().equals(payerId)) return Outcome.refused(new BusinessRuleException("Only the recipient can pay this charge"));
+        if (payer.getBalance().compareTo(charge.getAmount()) < 0) return Outcome.refused(new InsufficientBalanceException("Insufficient balance"));
+        
+        payer.setBalance(payer.getBalance().subtract(charge.getAmount()));
+        payer.setUpdatedAt(now);
+        User recipient = charge.getRecipient();
+        recipient.setBalance(recipient.getBalance().add(charge.getAmount()));
+        recipient.setUpdatedAt(now);
+        
+        charge.setStatus(Charge.ChargeStatus.PAID);
+        charge.setPaidAt(now);
+        charge.setPaymentMethod(Charge.PaymentMethod.BALANCE);
+        paid.add(charge);
+        
+        return Outcome.applied(paymentRepository.save(Payment.builder()
+                .charge(charge)
+                .payer(payer)
+                .amount(charge.getAmount())
+                .method(Payment.PaymentMethod.BALANCE)
+                .paymentDate(now)
+                .build()));
+    }
+    
+    private Outcome deposit(User user, BigDecimal amount, LocalDateTime now) {
+        if (user == null) return Outcome.refused(new UserNotFoundException("User not found"));
+        
+        user.setBalance(user.getBalance().add(amount));
+        user.setUpdatedAt(now);
+        
+        return Outcome.applied(paymentRepository.save(Payment.builder()
+                .payer(user)
+                .amount(amount)
+                .method(Payment.PaymentMethod.BALANCE)
+                .paymentDate(now)
+                .build()));
+    }
+    
+    private sealed interface Command permits PayCommand, DepositCommand {
+        
+        UUID userId();
+        
+        CompletableFuture<Payment> result();
+    }
+    
+    private record PayCommand(UUID chargeId, UUID payerId, CompletableFuture<Payment> result) implements Command {
+        
+        @Override
+        public UUID userId() {
+            return payerId;
+        }
+    }
+    
+    private record DepositCommand(UUID userId, BigDecimal amount, CompletableFuture<Payment> result) implements Command {
+    }
+    
+    private record Outcome(Payment payment, RuntimeException refusal) {
+        
+        static Outcome applied(Payment payment) {
+            return new Outcome(payment, null);
+        }
+        
+        static Outcome refused(RuntimeException refusal) {
+            return new Outcome(null, refusal);
+        }
+    }
+    
+    private final class Shard implements Runnable {
+        
+        private final BlockingQueue<Command> queue;
+        private final Thread writer;
+        
+        Shard(int index, int queueCapacity) {
+            this.queue = new ArrayBlockingQueue<>(Math.max(1, queueCapacity));
+            this.writer = new Thread(this, "group-commit-" + index);
+            this.writer.setDaemon(true);
+            this.writer.start();
+        }
+        
+        @Override
+        public void run() {
+            List<Command> batch = new ArrayList<>(maxBatch);
+            try {
+                while (running) {
+                    Command first = queue.poll(IDLE_POLL_MILLIS, TimeUnit.MILLISECONDS);
+                    if (first == null) continue;
+                    batch.add(first);
+                    fill(batch);
+                    commit(batch);
+                    batch.clear();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            
+            // Shutting down: nothing left here was applied, so the callers can safely try again
+            queue.drainTo(batch);
+            for (Command command : batch) command.result().completeExceptionally(new GroupCommitBusyException("Shutting down, try again shortly"));
+        }
+        
+        // Takes what is already queued without waiting, then waits out what is left of the window for more
+        private void fill(List<Command> batch) throws InterruptedException {
+            long deadline = System.nanoTime() + windowNanos;
+            while (batch.size() < maxBatch) {
+                Command next = queue.poll();
+                if (next == null) {
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) return;
+                    next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) return;
+                }
+                batch.add(next);
+            }
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.nimble.gateway.infrastructure.persistence;
+
+import com.nimble.gateway.domain.entity.Payment;
+import com.nimble.gateway.domain.entity.User;
+import com.nimble.gateway.domain.repository.ChargeRepository;
+import com.nimble.gateway.domain.repository.PaymentRepository;
+import com.nimble.gateway.domain.repository.UserRepository;
+import com.nimble.gateway.infrastructure.cache.PendingChargeIndex;
+import com.nimble.gateway.infrastructure.outbox.ChargeEventOutbox;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionOperations;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+// The group-commit engine: balance pays and authorized deposits go to the shard writers of GroupCommitExecutor.
+// Card payments, batches and refunds stay on the JPA path
+@Component
+@ConditionalOnProperty(name = PaymentEngine.PROPERTY, havingValue = PaymentEngine.GROUP_COMMIT)
+public class GroupCommitPaymentEngine extends EntityPaymentEngine {
+    
+    private final GroupCommitExecutor groupCommitExecutor;
+    
+    public GroupCommitPaymentEngine(GroupCommitExecutor groupCommitExecutor,
+                                    UserRepository userRepository,
+                                    ChargeRepository chargeRepository,
+                                    PaymentRepository paymentRepository,
+                                    ChargeEventOutbox chargeEventOutbox,
+                                    PendingChargeIndex pendingChargeIndex,
+                                    TransactionOperations transactionOperations,
+                                    ConflictRetry conflictRetry) {
+        super(userRepository, chargeRepository, paymentRepository, chargeEventOutbox, pendingChargeIndex, transactionOperations, conflictRetry);
+        this.groupCommitExecutor = groupCommitExecutor;
+    }
+    
+    // The shard writer checks the charge and payer itself and runs a failed batch again command by command
+    @Override
+    public Mono<Payment> payWithBalance(UUID chargeId, UUID payerId) {
+        return Mono.fromFuture(() -> groupCommitExecutor.payWithBalance(chargeId, payerId));
+    }
+    
+    @Override
+    public Mono<Payment> deposit(User user, BigDecimal amount) {
+        return Mono.fromFuture(() -> groupCommitExecutor.deposit(user.getId(), amount));
+    }
+}
@@ -0,0 +1,26 @@
+package com.nimble.gateway.infrastructure.persistence;
+
+import com.nimble.gateway.domain.repository.ChargeRepository;
+import com.nimble.gateway.domain.repository.PaymentRepository;
+import com.nimble.gateway.domain.repository.UserRepository;
+import com.nimble.gateway.infrastructure.cache.PendingChargeIndex;
+import com.nimble.gateway.infrastructure.outbox.ChargeEventOutbox;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionOperations;
+
+// The default engine: the JPA path for everything
+@Component
+@ConditionalOnProperty(name = PaymentEngine.PROPERTY, havingValue = PaymentEngine.JPA, matchIfMissing = true)
+public class JpaPaymentEngine extends EntityPaymentEngine {
+    
+    public JpaPaymentEngine(UserRepository userRepository,
+                            ChargeRepository chargeRepository,
+                            PaymentRepository paymentRepository,
+                            ChargeEventOutbox chargeEventOutbox,
+                            PendingChargeIndex pendingChargeIndex,
+                            TransactionOperations transactionOperations,
+                            ConflictRetry conflictRetry) {
+        super(userRepository, chargeRepository, paymentRepository, chargeEventOutbox, pendingChargeIndex, transactionOperations, conflictRetry);
+    }
+}
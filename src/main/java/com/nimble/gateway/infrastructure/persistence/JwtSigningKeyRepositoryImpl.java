@@ -0,0 +1,30 @@
+package com.nimble.gateway.infrastructure.persistence;
+
+import com.nimble.gateway.domain.entity.JwtSigningKey;
+import com.nimble.gateway.domain.repository.JwtSigningKeyRepository;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface JwtSigningKeyRepositoryImpl extends JpaRepository<JwtSigningKey, String>, JwtSigningKeyRepository {
+    
+    @Override
+    default void insert(JwtSigningKey key) {
+        saveAndFlush(key);
+    }
+    
+    @Override
+    @Query("SELECT k FROM JwtSigningKey k WHERE k.expiresAt > :now ORDER BY k.activatesAt")
+    List<JwtSigningKey> findUnexpired(@Param("now") LocalDateTime now);
+    
+    @Override
+    @Modifying
+    @Query("DELETE FROM JwtSigningKey k WHERE k.expiresAt <= :now")
+    int deleteExpiredBefore(@Param("now") LocalDateTime now);
+}
@@ -0,0 +1,28 @@
+package com.nimble.gateway.infrastructure.persistence;
+
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.Optional;
+
+@Component
+public class MySqlReplicaLagProbe implements ReplicaLagProbe {
+    
+    @Override
+    public Optional<Duration> lag(String replica, DataSource dataSource) throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("SHOW REPLICA STATUS")) {
+            if (!resultSet.next()) return Optional.empty();
+            
+            // NULL while the SQL thread is stopped or the replica is disconnected from the source
+            long seconds = resultSet.getLong("Seconds_Behind_Source");
+            return resultSet.wasNull() ? Optional.empty() : Optional.of(Duration.ofSeconds(seconds));
+        }
+    }
+}
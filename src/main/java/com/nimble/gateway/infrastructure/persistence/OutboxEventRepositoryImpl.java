@@ -0,0 +1,48 @@
+package com.nimble.gateway.infrastructure.persistence;
+
+import com.nimble.gateway.domain.entity.OutboxEvent;
+import com.nimble.gateway.domain.repository.OutboxEventRepository;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface OutboxEventRepositoryImpl extends JpaRepository<OutboxEvent, Long>, OutboxEventRepository {
+    
+    // Only the oldest unpublished event of each charge is eligible, so replicas relaying in
+    // parallel can never publish a later transition of a charge before an earlier one.
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("SELECT e FROM OutboxEvent e WHERE e.publishedAt IS NULL AND NOT EXISTS " +
+           "(SELECT p.id FROM OutboxEvent p WHERE p.aggregateId = e.aggregateId AND p.publishedAt IS NULL AND p.id < e.id) " +
+           "ORDER BY e.id")
+    List<OutboxEvent> findNextUnpublished(Pageable pageable);
+    
+    @Override
+    default List<OutboxEvent> lockNextBatch(int batchSize) {
+        return findNextUnpublished(PageRequest.of(0, batchSize));
+    }
+    
+    @Override
+    List<OutboxEvent> findByAggregateIdOrderByIdAsc(UUID aggregateId);
+    
+    @Override
+    long countByPublishedAtIsNull();
+    
+    @Override
+    @Modifying
+    @Query("DELETE FROM OutboxEvent e WHERE e.publishedAt < :threshold")
+    int deletePublishedBefore(@Param("threshold") LocalDateTime threshold);
+}
@@ -0,0 +1,44 @@
+package com.nimble.gateway.infrastructure.persistence;
+
+import com.nimble.gateway.domain.entity.Payment;
+import com.nimble.gateway.domain.entity.User;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+
+// How payments move balances. Selected with app.payments.engine: every engine is one implementation,
+// @ConditionalOnProperty on its value, so exactly one is a bean and the use cases never ask which
+public interface PaymentEngine {
+    
+    String PROPERTY = "app.payments.engine";
+    
+    String JPA = "jpa";
+    String STORED_PROCEDURE = "stored-procedure";
+    String GROUP_COMMIT = "group-commit";
+    String IN_MEMORY = "in-memory";
+    
+    List<String> ENGINES = List.of(JPA, STORED_PROCEDURE, GROUP_COMMIT, IN_MEMORY);
+    
+    // A pending charge paid from its recipient's balance, with every check a single payment makes
+    Mono<Payment> payWithBalance(UUID chargeId, UUID payerId);
+    
+    // An already authorized deposit
+    Mono<Payment> deposit(User user, BigDecimal amount);
+    
+    // What the user can spend now
+    BigDecimal balanceOf(User user);
+    
+    // The rest run inside the caller's transaction and only move balances. The caller writes the charges and the
+    // payments, and saves a payment before asking, so every balance change can name the payment it belongs to
+    
+    // The payments of a batch, each with its charge, already checked one by one against balanceOf
+    void payBatch(User payer, List<Payment> payments);
+    
+    // A card payment, which only credits
+    void credit(User recipient, Payment payment);
+    
+    // A balance payment given back to its payer
+    void refund(User recipient, Payment payment);
+}
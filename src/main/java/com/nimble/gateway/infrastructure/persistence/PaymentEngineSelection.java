@@ -0,0 +1,27 @@
+package com.nimble.gateway.infrastructure.persistence;
+
+import org.springframework.beans.factory.config.BeanFactoryPostProcessor;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.core.env.Environment;
+
+// The one place app.payments.engine is checked, before any bean is created: an unknown value matches none of the
+// engines' conditions and would otherwise only surface as a missing PaymentEngine bean
+public class PaymentEngineSelection implements BeanFactoryPostProcessor {
+    
+    private final Environment environment;
+    
+    public PaymentEngineSelection(Environment environment) {
+        this.environment = environment;
+    }
+    
+    @Override
+    public void postProcessBeanFactory(ConfigurableListableBeanFactory beanFactory) {
+        check(environment.getProperty(PaymentEngine.PROPERTY, PaymentEngine.JPA));
+    }
+    
+    static void check(String engine) {
+        if (!PaymentEngine.ENGINES.contains(engine)) {
+            throw new IllegalArgumentException(PaymentEngine.PROPERTY + " must be one of " + String.join(", ", PaymentEngine.ENGINES) + ", was " + engine);
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.nimble.gateway.infrastructure.persistence;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+    
+    public static final String PRIMARY = "primary";
+    
+    private final List<String> replicas;
+    private final Predicate<String> eligibleReplica;
+    private final AtomicInteger nextReplica = new AtomicInteger();
+    private final Counter lagFallbacks;
+    private final Counter readYourWritesFallbacks;
+    
+    public ReadWriteRoutingDataSource(DataSource primary, Map<String, ? extends DataSource> replicas,
+                                      Predicate<String> eligibleReplica, MeterRegistry meterRegistry) {
+        Map<Object, Object> targets = new HashMap<>(replicas);
+        targets.put(PRIMARY, primary);
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+        
+        this.replicas = List.copyOf(replicas.keySet());
+        this.eligibleReplica = eligibleReplica;
+        this.lagFallbacks = fallbackCounter(meterRegistry, "replication-lag");
+        this.readYourWritesFallbacks = fallbackCounter(meterRegistry, "read-your-writes");
+    }
+    
+    @Override
+    protected Object determineCurrentLookupKey() {
+        // Spring Data's own read-only methods run inside commands too, so read-only alone is not enough
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly() || !ReplicaReads.allowed()) return PRIMARY;
+        
+        if (ReadYourWrites.requiresPrimary()) {
+            readYourWritesFallbacks.increment();
+            return PRIMARY;
+        }
+        
+        // Round-robin over the replicas, skipping any that have fallen too far behind
+        int start = Math.floorMod(nextReplica.getAndIncrement(), replicas.size());
+        for (int i = 0; i < replicas.size(); i++) {
+            String replica = replicas.get((start + i) % replicas.size());
+            if (eligibleReplica.test(replica)) return replica;
+        }
+        
+        lagFallbacks.increment();
+        return PRIMARY;
+    }
+    
+    private static Counter fallbackCounter(MeterRegistry meterRegistry, String reason) {
+        return Counter.builder("datasource.read.fallbacks")
+                .description("Read-only transactions routed to the primary instead of a replica")
+                .tag("reason", reason)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,23 @@
+package com.nimble.gateway.infrastructure.persistence;
+
+// Per-request deadline until which reads must see the caller's own writes, set from the consistency token
+public final class ReadYourWrites {
+    
+    private static final ThreadLocal<Long> PRIMARY_UNTIL = new ThreadLocal<>();
+    
+    private ReadYourWrites() {
+    }
+    
+    public static boolean requiresPrimary() {
+        Long primaryUntil = PRIMARY_UNTIL.get();
+        return primaryUntil != null && System.currentTimeMillis() < primaryUntil;
+    }
+    
+    static void primaryUntil(long epochMillis) {
+        PRIMARY_UNTIL.set(epochMillis);
+    }
+    
+    static void clear() {
+        PRIMARY_UNTIL.remove();
+    }
+}
@@ -0,0 +1,58 @@
+package com.nimble.gateway.infrastructure.persistence;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.Set;
+
+@Component
+public class ReadYourWritesFilter extends OncePerRequestFilter {
+    
+    public static final String CONSISTENCY_TOKEN_HEADER = "X-Consistency-Token";
+    
+    private static final Set<String> SAFE_METHODS = Set.of("GET", "HEAD", "OPTIONS", "TRACE");
+    
+    private final long windowMs;
+    
+    public ReadYourWritesFilter(@Value("${app.datasource.replica-lag.read-your-writes-window-ms:5000}") long windowMs) {
+        this.windowMs = windowMs;
+    }
+    
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        long now = System.currentTimeMillis();
+        
+        // Stamped before the write commits, so the window also has to cover the request itself
+        if (!SAFE_METHODS.contains(request.getMethod())) {
+            response.setHeader(CONSISTENCY_TOKEN_HEADER, Long.toString(now + windowMs));
+        }
+        
+        // Tokens further ahead than one window were not issued by us and would pin reads to the primary
+        Long primaryUntil = parse(request.getHeader(CONSISTENCY_TOKEN_HEADER));
+        if (primaryUntil != null && primaryUntil > now && primaryUntil <= now + windowMs) {
+            ReadYourWrites.primaryUntil(primaryUntil);
+        }
+        
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            ReadYourWrites.clear();
+        }
+    }
+    
+    private Long parse(String token) {
+        if (token == null) return null;
+        try {
+            return Long.parseLong(token.trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.nimble.gateway.infrastructure.persistence;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import java.util.Map;
+
+// Read pools keyed by pool name; primaryBacked means no replica is configured and the single read pool points at the primary
+public record ReplicaDataSources(Map<String, HikariDataSource> pools, boolean primaryBacked) implements AutoCloseable {
+    
+    @Override
+    public void close() {
+        pools.values().forEach(HikariDataSource::close);
+    }
+}
@@ -0,0 +1,80 @@
+package com.nimble.gateway.infrastructure.persistence;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Slf4j
+@Component
+public class ReplicaLagMonitor {
+    
+    private static final long UNKNOWN = -1;
+    
+    private final ReplicaDataSources readDataSources;
+    private final ReplicaLagProbe replicaLagProbe;
+    private final long maxLagMs;
+    private final Map<String, Long> lagMs = new ConcurrentHashMap<>();
+    
+    public ReplicaLagMonitor(
+            ReplicaDataSources readDataSources,
+            ReplicaLagProbe replicaLagProbe,
+            MeterRegistry meterRegistry,
+            @Value("${app.datasource.replica-lag.max-lag-ms:1000}") long maxLagMs) {
+        this.readDataSources = readDataSources;
+        this.replicaLagProbe = replicaLagProbe;
+        this.maxLagMs = maxLagMs;
+        
+        // Replicas are not trusted until their lag has been measured once
+        for (String replica : readDataSources.pools().keySet()) {
+            lagMs.put(replica, readDataSources.primaryBacked() ? 0L : UNKNOWN);
+            Gauge.builder("datasource.replica.lag", lagMs, lags -> lags.getOrDefault(replica, UNKNOWN))
+                    .tag("replica", replica)
+                    .baseUnit("milliseconds")
+                    .register(meterRegistry);
+        }
+    }
+    
+    @Scheduled(fixedDelayString = "${app.datasource.replica-lag.check-interval-ms:1000}",
+            initialDelayString = "${app.datasource.replica-lag.check-interval-ms:1000}")
+    public void check() {
+        if (readDataSources.primaryBacked()) return;
+        
+        readDataSources.pools().forEach((replica, dataSource) -> {
+            long lag = probe(replica, dataSource);
+            boolean wasEligible = isEligible(replica);
+            lagMs.put(replica, lag);
+            if (wasEligible && !isEligible(replica)) {
+                log.warn("Replica {} lag is {} ms (max {} ms), routing its reads to the primary",
+                        replica, lag == UNKNOWN ? "unknown" : lag, maxLagMs);
+            } else if (!wasEligible && isEligible(replica)) {
+                log.info("Replica {} caught up ({} ms behind), routing reads to it", replica, lag);
+            }
+        });
+    }
+    
+    public boolean isEligible(String replica) {
+        long lag = lagMillis(replica);
+        return lag != UNKNOWN && lag <= maxLagMs;
+    }
+    
+    public long lagMillis(String replica) {
+        return lagMs.getOrDefault(replica, UNKNOWN);
+    }
+    
+    private long probe(String replica, DataSource dataSource) {
+        try {
+            return replicaLagProbe.lag(replica, dataSource).map(Duration::toMillis).orElse(UNKNOWN);
+        } catch (Exception e) {
+            log.debug("Failed to read replication lag of {}: {}", replica, e.getMessage());
+            return UNKNOWN;
+        }
+    }
+}
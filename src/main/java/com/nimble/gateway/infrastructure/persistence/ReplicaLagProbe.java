@@ -0,0 +1,13 @@
+package com.nimble.gateway.infrastructure.persistence;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.Optional;
+
+@FunctionalInterface
+public interface ReplicaLagProbe {
+    
+    // Empty when the replica is not applying changes from the primary
+    Optional<Duration> lag(String replica, DataSource dataSource) throws SQLException;
+}
@@ -0,0 +1,15 @@
+package com.nimble.gateway.infrastructure.persistence;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+// Marks a query-side use case whose read-only transaction may be served by a replica. Everything else, including
+// the read-only repository calls a command makes before it writes, reads the primary
+@Documented
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface ReplicaRead {
+}
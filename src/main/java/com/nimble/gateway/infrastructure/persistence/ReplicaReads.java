@@ -0,0 +1,27 @@
+package com.nimble.gateway.infrastructure.persistence;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+
+// Whether the current thread is inside a @ReplicaRead method. Set around the call, outside its transaction, so the
+// routing data source sees it when the lazy connection is first used
+public final class ReplicaReads implements MethodInterceptor {
+    
+    private static final ThreadLocal<Boolean> ALLOWED = new ThreadLocal<>();
+    
+    static boolean allowed() {
+        return Boolean.TRUE.equals(ALLOWED.get());
+    }
+    
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        Boolean previous = ALLOWED.get();
+        ALLOWED.set(Boolean.TRUE);
+        try {
+            return invocation.proceed();
+        } finally {
+            if (previous == null) ALLOWED.remove();
+            else ALLOWED.set(previous);
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.nimble.gateway.infrastructure.persistence;
+
+import com.nimble.gateway.domain.entity.RevokedRefreshToken;
+import com.nimble.gateway.domain.repository.RevokedRefreshTokenRepository;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface RevokedRefreshTokenRepositoryImpl extends JpaRepository<RevokedRefreshToken, UUID>, RevokedRefreshTokenRepository {
+    
+    @Override
+    default void insert(RevokedRefreshToken revocation) {
+        saveAndFlush(revocation);
+    }
+    
+    @Override
+    boolean existsById(UUID id);
+    
+    @Override
+    @Query("SELECT r.id FROM RevokedRefreshToken r WHERE r.expiresAt > :now")
+    List<UUID> findIdsExpiringAfter(@Param("now") LocalDateTime now);
+    
+    @Override
+    @Modifying
+    @Query("DELETE FROM RevokedRefreshToken r WHERE r.expiresAt <= :now")
+    int deleteExpiredBefore(@Param("now") LocalDateTime now);
+}
@@ -0,0 +1,180 @@
+package com.nimble.gateway.infrastructure.persistence;
+
+import com.nimble.gateway.domain.entity.Charge;
+import com.nimble.gateway.domain.entity.Payment;
+import com.nimble.gateway.domain.entity.User;
+import com.nimble.gateway.domain.event.ChargeEvent;
+import com.nimble.gateway.domain.exception.BusinessRuleException;
+import com.nimble.gateway.domain.exception.InsufficientBalanceException;
+import com.nimble.gateway.domain.exception.UserNotFoundException;
+import com.nimble.gateway.domain.repository.ChargeRepository;
+import com.nimble.gateway.domain.repository.PaymentRepository;
+import com.nimble.gateway.domain.repository.UserRepository;
+import com.nimble.gateway.infrastructure.cache.PendingChargeIndex;
+import com.nimble.gateway.infrastructure.outbox.ChargeEventOutbox;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionOperations;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.UUID;
+
+// The stored-procedure payment engine: a balance payment or an authorized deposit is one CALL of the V011
+// procedures, which lock, check and write server-side, instead of reading the entities and flushing their updates.
+// The charge event is still recorded by the outbox in the same transaction. Card payments, batches and refunds stay
+// on the JPA path
+@Component
+@ConditionalOnProperty(name = PaymentEngine.PROPERTY, havingValue = PaymentEngine.STORED_PROCEDURE)
+public class StoredProcedurePaymentEngine extends EntityPaymentEngine {
+    
+    private static final String PROCESS_PAYMENT = "CALL sp_process_payment(?, ?, ?, ?)";
+    private static final String PROCESS_DEPOSIT = "CALL sp_process_deposit(?, ?, ?, ?)";
+    
+    private final JdbcTemplate jdbcTemplate;
+    
+    public StoredProcedurePaymentEngine(JdbcTemplate jdbcTemplate,
+                                        UserRepository userRepository,
+                                        ChargeRepository chargeRepository,
+                                        PaymentRepository paymentRepository,
+                                        ChargeEventOutbox chargeEventOutbox,
+                                        PendingChargeIndex pendingChargeIndex,
+                                        TransactionOperations transactionOperations,
+                                        ConflictRetry conflictRetry) {
+        super(userRepository, chargeRepository, paymentRepository, chargeEventOutbox, pendingChargeIndex, transactionOperations, conflictRetry);
+        this.jdbcTemplate = jdbcTemplate;
+    }
+    
+    // The procedure locks the rows it checks, so a pay through it has no version conflict to retry
+    @Override
+    public Mono<Payment> payWithBalance(UUID chargeId, UUID payerId) {
+        return Mono.fromCallable(() -> processPayment(chargeId, payerId));
+    }
+    
+    @Override
+    public Mono<Payment> deposit(User user, BigDecimal amount) {
+        return Mono.fromCallable(() -> processDeposit(user.getId(), amount));
+    }
+    
+    // The returned payment and its charge are detached views built from the procedure's outcome row
+    private Payment processPayment(UUID chargeId, UUID payerId) {
+        UUID paymentId = UUID.randomUUID();
+        // The column keeps whole seconds; the event and the response carry what was stored
+        LocalDateTime paidAt = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+        
+        return transactionOperations.execute(status -> {
+            PaymentOutcome outcome = jdbcTemplate.queryForObject(PROCESS_PAYMENT, StoredProcedurePaymentEngine::paymentOutcome,
+                    toBytes(paymentId), toBytes(chargeId), toBytes(payerId), Timestamp.valueOf(paidAt));
+            
+            Charge charge = outcome.charge(chargeId, paidAt);
+            // A refused pay returns the charge as read, which corrects the index like the JPA path's read does
+            if (charge != null && !outcome.processed()) pendingChargeIndex.reconcile(charge);
+            switch (outcome.outcome()) {
+                case "PROCESSED" -> { }
+                case "CHARGE_NOT_FOUND" -> throw new BusinessRuleException("Charge not found");
+                case "NOT_PENDING" -> throw new BusinessRuleException("Charge is not pending");
+                case "PAYER_NOT_FOUND" -> throw new UserNotFoundException("Payer not found");
+                case "NOT_RECIPIENT" -> throw new BusinessRuleException("Only the recipient can pay this charge");
+                case "INSUFFICIENT_BALANCE" -> throw new InsufficientBalanceException("Insufficient balance");
+                default -> throw new IllegalStateException("Unexpected outcome " + outcome.outcome() + " from sp_process_payment");
+            }
+            chargeEventOutbox.record(charge, ChargeEvent.Type.PAID);
+            
+            return Payment.builder()
+                    .id(paymentId)
+                    .charge(charge)
+                    .payer(User.builder().id(payerId).name(outcome.payerName()).build())
+                    .amount(charge.getAmount())
+                    .status(Payment.PaymentStatus.PROCESSED)
+                    .method(Payment.PaymentMethod.BALANCE)
+                    .paymentDate(paidAt)
+                    .build();
+        });
+    }
+    
+    private Payment processDeposit(UUID userId, BigDecimal amount) {
+        UUID paymentId = UUID.randomUUID();
+        LocalDateTime depositedAt = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+        
+        return transactionOperations.execute(status -> {
+            DepositOutcome outcome = jdbcTemplate.queryForObject(PROCESS_DEPOSIT,
+                    (rs, row) -> new DepositOutcome(rs.getString("outcome"), rs.getString("payer_name")),
+                    toBytes(paymentId), toBytes(userId), amount, Timestamp.valueOf(depositedAt));
+            
+            switch (outcome.outcome()) {
+                case "PROCESSED" -> { }
+                case "USER_NOT_FOUND" -> throw new UserNotFoundException("User not found");
+                default -> throw new IllegalStateException("Unexpected outcome " + outcome.outcome() + " from sp_process_deposit");
+            }
+            
+            return Payment.builder()
+                    .id(paymentId)
+                    .payer(User.builder().id(userId).name(outcome.payerName()).build())
+                    .amount(amount)
+                    .status(Payment.PaymentStatus.PROCESSED)
+                    .method(Payment.PaymentMethod.BALANCE)
+                    .paymentDate(depositedAt)
+                    .build();
+        });
+    }
+    
+    private static PaymentOutcome paymentOutcome(ResultSet rs, int row) throws SQLException {
+        Timestamp createdAt = rs.getTimestamp("created_at");
+        return new PaymentOutcome(
+                rs.getString("outcome"),
+                fromBytes(rs.getBytes("originator_id")),
+                fromBytes(rs.getBytes("recipient_id")),
+                rs.getBigDecimal("amount"),
+                rs.getString("status"),
+                createdAt != null ? createdAt.toLocalDateTime() : null,
+                rs.getObject("version") != null ? rs.getLong("version") : null,
+                rs.getString("payer_name"));
+    }
+    
+    private record PaymentOutcome(String outcome, UUID originatorId, UUID recipientId, BigDecimal amount, String status,
+                                  LocalDateTime createdAt, Long version, String payerName) {
+        
+        boolean processed() {
+            return "PROCESSED".equals(outcome);
+        }
+        
+        // Null when the charge does not exist
+        Charge charge(UUID chargeId, LocalDateTime paidAt) {
+            if (status == null) return null;
+            return Charge.builder()
+                    .id(chargeId)
+                    .originator(User.builder().id(originatorId).build())
+                    .recipient(User.builder().id(recipientId).build())
+                    .amount(amount)
+                    .status(Charge.ChargeStatus.valueOf(status))
+                    .createdAt(createdAt)
+                    .paidAt(processed() ? paidAt : null)
+                    .version(version)
+                    .build();
+        }
+    }
+    
+    private record DepositOutcome(String outcome, String payerName) {
+    }
+    
+    // Same BINARY(16) layout Hibernate writes for UUID ids
+    private static byte[] toBytes(UUID id) {
+        return ByteBuffer.allocate(16)
+                .putLong(id.getMostSignificantBits())
+                .putLong(id.getLeastSignificantBits())
+                .array();
+    }
+    
+    private static UUID fromBytes(byte[] bytes) {
+        if (bytes == null) return null;
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        return new UUID(buffer.getLong(), buffer.getLong());
+    }
+}
@@ -0,0 +1,116 @@
+package com.nimble.gateway.infrastructure.persistence;
+
+import com.nimble.gateway.domain.entity.UserChargeSummary;
+import com.nimble.gateway.domain.repository.UserChargeSummaryRepository;
+import com.nimble.gateway.domain.valueobject.ChargeDayTotal;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+@Repository
+public interface UserChargeSummaryRepositoryImpl extends JpaRepository<UserChargeSummary, Long>, UserChargeSummaryRepository {
+    
+    @Modifying
+    @Query("UPDATE UserChargeSummary s SET " +
+           "s.pendingCount = s.pendingCount + :pendingCount, s.pendingAmount = s.pendingAmount + :pendingAmount, " +
+           "s.paidCount = s.paidCount + :paidCount, s.paidAmount = s.paidAmount + :paidAmount, " +
+           "s.cancelledCount = s.cancelledCount + :cancelledCount, s.cancelledAmount = s.cancelledAmount + :cancelledAmount " +
+           "WHERE s.userId = :userId AND s.role = :role AND s.summaryDate = :summaryDate")
+    int increment(@Param("userId") UUID userId, @Param("role") UserChargeSummary.Role role, @Param("summaryDate") LocalDate summaryDate,
+                  @Param("pendingCount") long pendingCount, @Param("pendingAmount") BigDecimal pendingAmount,
+                  @Param("paidCount") long paidCount, @Param("paidAmount") BigDecimal paidAmount,
+                  @Param("cancelledCount") long cancelledCount, @Param("cancelledAmount") BigDecimal cancelledAmount);
+    
+    @Override
+    default boolean addDelta(UserChargeSummary delta) {
+        return increment(delta.getUserId(), delta.getRole(), delta.getSummaryDate(),
+                delta.getPendingCount(), delta.getPendingAmount(),
+                delta.getPaidCount(), delta.getPaidAmount(),
+                delta.getCancelledCount(), delta.getCancelledAmount()) > 0;
+    }
+    
+    @Override
+    @Query("SELECT s FROM UserChargeSummary s WHERE s.userId = :userId AND s.summaryDate BETWEEN :from AND :to ORDER BY s.summaryDate")
+    List<UserChargeSummary> findByUserIdAndSummaryDateBetween(@Param("userId") UUID userId, @Param("from") LocalDate from, @Param("to") LocalDate to);
+    
+    @Override
+    @Query("SELECT s FROM UserChargeSummary s WHERE s.summaryDate BETWEEN :from AND :to")
+    List<UserChargeSummary> findBySummaryDateBetween(@Param("from") LocalDate from, @Param("to") LocalDate to);
+    
+    @Override
+    @Modifying
+    @Query("DELETE FROM UserChargeSummary s WHERE s.summaryDate BETWEEN :from AND :to")
+    int deleteBySummaryDateBetween(@Param("from") LocalDate from, @Param("to") LocalDate to);
+    
+    @Override
+    default void saveAllSummaries(Collection<UserChargeSummary> summaries) {
+        saveAll(summaries);
+    }
+    
+    @Query("SELECT new com.nimble.gateway.domain.valueobject.ChargeDayTotal(c.originator.id, cast(c.createdAt as LocalDate), c.status, COUNT(c), SUM(c.amount)) " +
+           "FROM Charge c WHERE c.createdAt >= :from AND c.createdAt < :to " +
+           "GROUP BY c.originator.id, cast(c.createdAt as LocalDate), c.status")
+    List<ChargeDayTotal> sumLiveByOriginator(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+    
+    @Query("SELECT new com.nimble.gateway.domain.valueobject.ChargeDayTotal(c.recipient.id, cast(c.createdAt as LocalDate), c.status, COUNT(c), SUM(c.amount)) " +
+           "FROM Charge c WHERE c.createdAt >= :from AND c.createdAt < :to " +
+           "GROUP BY c.recipient.id, cast(c.createdAt as LocalDate), c.status")
+    List<ChargeDayTotal> sumLiveByRecipient(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+    
+    @Query("SELECT new com.nimble.gateway.domain.valueobject.ChargeDayTotal(a.originatorId, cast(a.createdAt as LocalDate), a.status, COUNT(a), SUM(a.amount)) " +
+           "FROM ArchivedCharge a WHERE a.createdAt >= :from AND a.createdAt < :to " +
+           "GROUP BY a.originatorId, cast(a.createdAt as LocalDate), a.status")
+    List<ChargeDayTotal> sumArchivedByOriginator(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+    
+    @Query("SELECT new com.nimble.gateway.domain.valueobject.ChargeDayTotal(a.recipientId, cast(a.createdAt as LocalDate), a.status, COUNT(a), SUM(a.amount)) " +
+           "FROM ArchivedCharge a WHERE a.createdAt >= :from AND a.createdAt < :to " +
+           "GROUP BY a.recipientId, cast(a.createdAt as LocalDate), a.status")
+    List<ChargeDayTotal> sumArchivedByRecipient(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+    
+    @Override
+    default Collection<UserChargeSummary> recompute(LocalDate from, LocalDate to) {
+        LocalDateTime start = from.atStartOfDay();
+        LocalDateTime end = to.plusDays(1).atStartOfDay();
+        
+        Map<String, UserChargeSummary> summaries = new LinkedHashMap<>();
+        accumulate(summaries, UserChargeSummary.Role.SENT, sumLiveByOriginator(start, end));
+        accumulate(summaries, UserChargeSummary.Role.SENT, sumArchivedByOriginator(start, end));
+        accumulate(summaries, UserChargeSummary.Role.RECEIVED, sumLiveByRecipient(start, end));
+        accumulate(summaries, UserChargeSummary.Role.RECEIVED, sumArchivedByRecipient(start, end));
+        return summaries.values();
+    }
+    
+    private static void accumulate(Map<String, UserChargeSummary> summaries, UserChargeSummary.Role role, List<ChargeDayTotal> totals) {
+        for (ChargeDayTotal total : totals) {
+            summaries.computeIfAbsent(total.userId() + "|" + role + "|" + total.day(),
+                            key -> UserChargeSummary.of(total.userId(), role, total.day()))
+                    .add(total.status(), total.count(), total.amount());
+        }
+    }
+    
+    @Query("SELECT MIN(c.createdAt) FROM Charge c")
+    LocalDateTime findEarliestLiveCreatedAt();
+    
+    @Query("SELECT MIN(a.createdAt) FROM ArchivedCharge a")
+    LocalDateTime findEarliestArchivedCreatedAt();
+    
+    @Override
+    default LocalDate findEarliestChargeDate() {
+        LocalDateTime live = findEarliestLiveCreatedAt();
+        LocalDateTime archived = findEarliestArchivedCreatedAt();
+        if (live == null && archived == null) return null;
+        if (live == null || (archived != null && archived.isBefore(live))) return archived.toLocalDate();
+        return live.toLocalDate();
+    }
+}
@@ -2,7 +2,12 @@ package com.nimble.gateway.infrastructure.persistence;
 
 import com.nimble.gateway.domain.entity.User;
 import com.nimble.gateway.domain.repository.UserRepository;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.Optional;
@@ -11,6 +16,11 @@ import java.util.UUID;
 @Repository
 public interface UserRepositoryImpl extends JpaRepository<User, UUID>, UserRepository {
     
+    @Override
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT u FROM User u WHERE u.id = :id")
+    Optional<User> findByIdForUpdate(@Param("id") UUID id);
+    
     @Override
     Optional<User> findByCpf(String cpf);
     
@@ -22,4 +32,9 @@ public interface UserRepositoryImpl extends JpaRepository<User, UUID>, UserRepos
     
     @Override
     boolean existsByEmail(String email);
+    
+    @Override
+    @Modifying
+    @Query("UPDATE User u SET u.password = :password WHERE u.id = :id")
+    int updatePassword(@Param("id") UUID id, @Param("password") String password);
 }
\ No newline at end of file
@@ -0,0 +1,44 @@
+package com.nimble.gateway.infrastructure.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import reactor.core.publisher.Mono;
+
+import java.util.function.Predicate;
+
+@Name("com.nimble.gateway.Authorization")
+@Label("Authorization")
+@Category({"Nimble Gateway"})
+@Description("A round trip to the external authorizer, from subscription to response or timeout")
+@StackTrace(false)
+public class AuthorizationEvent extends Event {
+    
+    private static final EventType TYPE = EventType.getEventType(AuthorizationEvent.class);
+    
+    @Label("Type")
+    String type;
+    
+    @Label("Approved")
+    boolean approved;
+    
+    public static <T> Mono<T> record(String type, Mono<T> mono, Predicate<T> approved) {
+        return Mono.defer(() -> {
+            if (!TYPE.isEnabled()) return mono;
+            
+            AuthorizationEvent event = new AuthorizationEvent();
+            event.type = type;
+            event.begin();
+            return mono
+                    .doOnSuccess(response -> {
+                        event.approved = response != null && approved.test(response);
+                        event.commit();
+                    })
+                    .doOnError(error -> event.commit());
+        });
+    }
+}
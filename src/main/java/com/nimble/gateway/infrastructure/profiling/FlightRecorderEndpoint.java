@@ -0,0 +1,65 @@
+package com.nimble.gateway.infrastructure.profiling;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.boot.actuate.endpoint.web.WebEndpointResponse;
+import org.springframework.boot.actuate.endpoint.web.annotation.WebEndpoint;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.List;
+
+// Admin only, see SecurityConfig.
+// POST /actuator/jfr {"seconds": n} starts a recording, DELETE /actuator/jfr stops it and returns the summary,
+// GET /actuator/jfr lists the retained recordings and GET /actuator/jfr/{id} downloads one for JDK Mission Control
+@Component
+@WebEndpoint(id = "jfr")
+@RequiredArgsConstructor
+public class FlightRecorderEndpoint {
+    
+    private static final int STATUS_CONFLICT = 409;
+    
+    private final FlightRecordings flightRecordings;
+    
+    @ReadOperation
+    public List<RecordingView> recordings() {
+        return flightRecordings.list().stream()
+                .map(FlightRecorderEndpoint::view)
+                .toList();
+    }
+    
+    @WriteOperation
+    public WebEndpointResponse<RecordingView> start(@Nullable Integer seconds) {
+        return flightRecordings.start(seconds)
+                .map(entry -> new WebEndpointResponse<>(view(entry), WebEndpointResponse.STATUS_OK))
+                .orElseGet(() -> new WebEndpointResponse<>(STATUS_CONFLICT));
+    }
+    
+    @DeleteOperation
+    public WebEndpointResponse<RecordingSummary> stop() {
+        return flightRecordings.stop()
+                .map(summary -> new WebEndpointResponse<>(summary, WebEndpointResponse.STATUS_OK))
+                .orElseGet(() -> new WebEndpointResponse<>(WebEndpointResponse.STATUS_NOT_FOUND));
+    }
+    
+    @ReadOperation(produces = "application/octet-stream")
+    public WebEndpointResponse<Resource> download(@Selector long id) {
+        return flightRecordings.file(id)
+                .<WebEndpointResponse<Resource>>map(file -> new WebEndpointResponse<>(new FileSystemResource(file), WebEndpointResponse.STATUS_OK))
+                .orElseGet(() -> new WebEndpointResponse<>(WebEndpointResponse.STATUS_NOT_FOUND));
+    }
+    
+    private static RecordingView view(FlightRecordings.Entry entry) {
+        return new RecordingView(entry.id(), entry.recording().getState().name(), entry.startedAt(),
+                entry.duration().toSeconds(), entry.recording().getSize());
+    }
+    
+    public record RecordingView(long id, String state, Instant startedAt, long durationSeconds, long sizeBytes) {
+    }
+}
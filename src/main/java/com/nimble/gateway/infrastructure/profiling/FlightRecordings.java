@@ -0,0 +1,171 @@
+package com.nimble.gateway.infrastructure.profiling;
+
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.Name;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+// One JFR recording at a time with a curated event set: CPU samples, throttled allocation samples, lock and
+// park waits, socket I/O and GC above a threshold, plus the gateway's own payment, authorization and JDBC events.
+// The last few recordings are kept on disk for download and older files are deleted
+@Slf4j
+@Component
+public class FlightRecordings {
+    
+    private static final Map<String, String> SETTINGS = settings();
+    
+    private final Path directory;
+    private final Duration defaultDuration;
+    private final Duration maxDuration;
+    private final int retained;
+    private final Deque<Entry> recordings = new ArrayDeque<>();
+    
+    public FlightRecordings(
+            @Value("${app.profiling.directory:${java.io.tmpdir}/nimble-jfr}") Path directory,
+            @Value("${app.profiling.default-duration-seconds:60}") int defaultDurationSeconds,
+            @Value("${app.profiling.max-duration-seconds:300}") int maxDurationSeconds,
+            @Value("${app.profiling.retained:5}") int retained) {
+        this.directory = directory;
+        this.defaultDuration = Duration.ofSeconds(defaultDurationSeconds);
+        this.maxDuration = Duration.ofSeconds(maxDurationSeconds);
+        this.retained = Math.max(1, retained);
+    }
+    
+    // Empty while another recording is still running
+    public synchronized Optional<Entry> start(Integer seconds) {
+        if (running().isPresent()) return Optional.empty();
+        
+        Duration duration = seconds != null && seconds > 0 ? Duration.ofSeconds(seconds) : defaultDuration;
+        if (duration.compareTo(maxDuration) > 0) duration = maxDuration;
+        
+        Recording recording = new Recording(SETTINGS);
+        recording.setName("nimble-gateway");
+        recording.setToDisk(true);
+        // Stops by itself when the duration elapses, writing the destination file, if nobody stops it earlier
+        recording.setDuration(duration);
+        try {
+            Files.createDirectories(directory);
+            recording.setDestination(directory.resolve("nimble-" + recording.getId() + ".jfr"));
+        } catch (IOException e) {
+            recording.close();
+            throw new UncheckedIOException("Cannot write flight recordings to " + directory, e);
+        }
+        recording.start();
+        
+        Entry entry = new Entry(recording, Instant.now(), duration);
+        recordings.addLast(entry);
+        evict();
+        log.info("Flight recording {} started for {}s into {}", recording.getId(), duration.toSeconds(), recording.getDestination());
+        return Optional.of(entry);
+    }
+    
+    // Stops the running recording, or picks the last one if it already ran its duration, and summarizes it
+    public synchronized Optional<RecordingSummary> stop() {
+        Entry entry = recordings.peekLast();
+        if (entry == null) return Optional.empty();
+        
+        if (entry.recording().getState() == RecordingState.RUNNING) {
+            entry.recording().stop();
+            log.info("Flight recording {} stopped", entry.recording().getId());
+        }
+        if (!Files.exists(entry.file())) return Optional.empty();
+        
+        try {
+            return Optional.of(RecordingSummarizer.summarize(entry.id(), entry.startedAt(), entry.file()));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read flight recording " + entry.file(), e);
+        }
+    }
+    
+    public synchronized List<Entry> list() {
+        return List.copyOf(recordings);
+    }
+    
+    // Only finished recordings can be downloaded; a running one has not written its file yet
+    public synchronized Optional<Path> file(long id) {
+        return recordings.stream()
+                .filter(entry -> entry.id() == id && entry.recording().getState() != RecordingState.RUNNING)
+                .map(Entry::file)
+                .filter(Files::exists)
+                .findFirst();
+    }
+    
+    @PreDestroy
+    public synchronized void close() {
+        recordings.forEach(entry -> entry.recording().close());
+    }
+    
+    private Optional<Entry> running() {
+        return recordings.stream()
+                .filter(entry -> entry.recording().getState() == RecordingState.RUNNING
+                        || entry.recording().getState() == RecordingState.DELAYED)
+                .findFirst();
+    }
+    
+    private void evict() {
+        while (recordings.size() > retained) {
+            Entry oldest = recordings.removeFirst();
+            oldest.recording().close();
+            try {
+                Files.deleteIfExists(oldest.file());
+            } catch (IOException e) {
+                log.warn("Could not delete flight recording {}: {}", oldest.file(), e.getMessage());
+            }
+        }
+    }
+    
+    private static Map<String, String> settings() {
+        Map<String, String> settings = new HashMap<>();
+        settings.put("jdk.ExecutionSample#enabled", "true");
+        settings.put("jdk.ExecutionSample#period", "20 ms");
+        // Sampled allocations are cheap enough for production traffic; every-allocation events are not
+        settings.put("jdk.ObjectAllocationSample#enabled", "true");
+        settings.put("jdk.ObjectAllocationSample#throttle", "150/s");
+        settings.put("jdk.ObjectAllocationSample#stackTrace", "true");
+        for (String event : List.of("jdk.JavaMonitorEnter", "jdk.JavaMonitorWait", "jdk.ThreadPark")) {
+            settings.put(event + "#enabled", "true");
+            settings.put(event + "#threshold", "10 ms");
+            settings.put(event + "#stackTrace", "true");
+        }
+        for (String event : List.of("jdk.SocketRead", "jdk.SocketWrite")) {
+            settings.put(event + "#enabled", "true");
+            settings.put(event + "#threshold", "10 ms");
+            settings.put(event + "#stackTrace", "true");
+        }
+        settings.put("jdk.GarbageCollection#enabled", "true");
+        settings.put("jdk.GarbageCollection#threshold", "0 ms");
+        for (Class<?> event : List.of(PaymentEvent.class, AuthorizationEvent.class, JdbcEvent.class)) {
+            String name = event.getAnnotation(Name.class).value();
+            settings.put(name + "#enabled", "true");
+            settings.put(name + "#threshold", "0 ms");
+        }
+        return Map.copyOf(settings);
+    }
+    
+    public record Entry(Recording recording, Instant startedAt, Duration duration) {
+        
+        public long id() {
+            return recording.getId();
+        }
+        
+        public Path file() {
+            return recording.getDestination();
+        }
+    }
+}
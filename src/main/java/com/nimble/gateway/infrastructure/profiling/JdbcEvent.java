@@ -0,0 +1,34 @@
+package com.nimble.gateway.infrastructure.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("com.nimble.gateway.Jdbc")
+@Label("JDBC")
+@Category({"Nimble Gateway"})
+@Description("Connection acquisition, statement preparation, execution or batch execution, as seen by Hibernate")
+public class JdbcEvent extends Event {
+    
+    private static final EventType TYPE = EventType.getEventType(JdbcEvent.class);
+    
+    @Label("Phase")
+    String phase;
+    
+    // Null while no recording has the event enabled, so the JDBC path allocates nothing
+    public static JdbcEvent begin(String phase) {
+        if (!TYPE.isEnabled()) return null;
+        
+        JdbcEvent event = new JdbcEvent();
+        event.phase = phase;
+        event.begin();
+        return event;
+    }
+    
+    public static void end(JdbcEvent event) {
+        if (event != null) event.commit();
+    }
+}
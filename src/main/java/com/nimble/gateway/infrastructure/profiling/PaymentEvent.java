@@ -0,0 +1,47 @@
+package com.nimble.gateway.infrastructure.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import reactor.core.publisher.Mono;
+
+@Name("com.nimble.gateway.Payment")
+@Label("Payment")
+@Category({"Nimble Gateway"})
+@Description("A charge payment, deposit, cancellation or batch payment, from subscription to completion")
+@StackTrace(false)
+public class PaymentEvent extends Event {
+    
+    private static final EventType TYPE = EventType.getEventType(PaymentEvent.class);
+    
+    @Label("Operation")
+    String operation;
+    
+    @Label("Method")
+    String method;
+    
+    @Label("Success")
+    boolean success;
+    
+    // Nothing is allocated unless a recording has the event enabled
+    public static <T> Mono<T> record(String operation, String method, Mono<T> mono) {
+        return Mono.defer(() -> {
+            if (!TYPE.isEnabled()) return mono;
+            
+            PaymentEvent event = new PaymentEvent();
+            event.operation = operation;
+            event.method = method;
+            event.begin();
+            return mono
+                    .doOnSuccess(result -> {
+                        event.success = true;
+                        event.commit();
+                    })
+                    .doOnError(error -> event.commit());
+        });
+    }
+}
@@ -0,0 +1,134 @@
+package com.nimble.gateway.infrastructure.profiling;
+
+import jdk.jfr.consumer.RecordedClass;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingFile;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiFunction;
+
+// Streams a recording once and keeps counters per key, so even a long recording is summarized in bounded memory
+final class RecordingSummarizer {
+    
+    static final int TOP = 10;
+    
+    private static final String APPLICATION_PACKAGE = "com.nimble.";
+    
+    private RecordingSummarizer() {
+    }
+    
+    static RecordingSummary summarize(long id, Instant startedAt, Path file) throws IOException {
+        Map<String, long[]> hotMethods = new HashMap<>();
+        Map<String, long[]> allocations = new HashMap<>();
+        Map<String, long[]> contention = new HashMap<>();
+        Map<String, long[]> operations = new HashMap<>();
+        Instant first = null;
+        Instant last = null;
+        long events = 0;
+        
+        try (RecordingFile recording = new RecordingFile(file)) {
+            while (recording.hasMoreEvents()) {
+                RecordedEvent event = recording.readEvent();
+                events++;
+                if (first == null || event.getStartTime().isBefore(first)) first = event.getStartTime();
+                if (last == null || event.getEndTime().isAfter(last)) last = event.getEndTime();
+                
+                switch (event.getEventType().getName()) {
+                    case "jdk.ExecutionSample" -> add(hotMethods, frame(topFrame(event.getStackTrace())), 0);
+                    case "jdk.ObjectAllocationSample" -> add(allocations,
+                            className(event, "objectClass") + " @ " + frame(applicationFrame(event.getStackTrace())),
+                            event.getLong("weight"));
+                    case "jdk.JavaMonitorEnter", "jdk.JavaMonitorWait" -> add(contention,
+                            className(event, "monitorClass") + " @ " + frame(applicationFrame(event.getStackTrace())),
+                            event.getDuration().toNanos());
+                    // Idle pool threads park too; only parks under application code are contention
+                    case "jdk.ThreadPark" -> {
+                        RecordedFrame frame = applicationFrameOrNull(event.getStackTrace());
+                        if (frame != null) add(contention, className(event, "parkedClass") + " @ " + frame(frame), event.getDuration().toNanos());
+                    }
+                    case "com.nimble.gateway.Payment" -> add(operations,
+                            "Payment " + event.getString("operation") + label(event.getString("method")) + (event.getBoolean("success") ? "" : " (failed)"),
+                            event.getDuration().toNanos());
+                    case "com.nimble.gateway.Authorization" -> add(operations,
+                            "Authorization " + event.getString("type") + (event.getBoolean("approved") ? "" : " (declined)"),
+                            event.getDuration().toNanos());
+                    case "com.nimble.gateway.Jdbc" -> add(operations, "JDBC " + event.getString("phase"), event.getDuration().toNanos());
+                    default -> {
+                    }
+                }
+            }
+        }
+        
+        Duration span = first != null ? Duration.between(first, last) : Duration.ZERO;
+        return new RecordingSummary(id, startedAt, span.toMillis() / 1_000.0, events,
+                top(operations, (key, counts) -> new RecordingSummary.Operation(key, counts[0], millis(counts[1]), millis(counts[2]))),
+                top(hotMethods, (key, counts) -> new RecordingSummary.HotMethod(key, counts[0])),
+                top(allocations, (key, counts) -> new RecordingSummary.AllocationSite(key, counts[0], counts[1])),
+                top(contention, (key, counts) -> new RecordingSummary.ContendedMonitor(key, counts[0], millis(counts[1]), millis(counts[2]))));
+    }
+    
+    // counts: occurrences, total of the value, max of the value
+    private static void add(Map<String, long[]> counters, String key, long value) {
+        long[] counts = counters.computeIfAbsent(key, k -> new long[3]);
+        counts[0]++;
+        counts[1] += value;
+        counts[2] = Math.max(counts[2], value);
+    }
+    
+    // Ranked by the total value where there is one, by occurrences otherwise
+    private static <T> List<T> top(Map<String, long[]> counters, BiFunction<String, long[], T> view) {
+        return counters.entrySet().stream()
+                .sorted(Comparator.<Map.Entry<String, long[]>>comparingLong(entry -> entry.getValue()[1])
+                        .thenComparingLong(entry -> entry.getValue()[0])
+                        .reversed())
+                .limit(TOP)
+                .map(entry -> view.apply(entry.getKey(), entry.getValue()))
+                .toList();
+    }
+    
+    private static RecordedFrame topFrame(RecordedStackTrace stackTrace) {
+        return stackTrace != null && !stackTrace.getFrames().isEmpty() ? stackTrace.getFrames().get(0) : null;
+    }
+    
+    // The allocating JDK or library frame says little; the first gateway frame above it says where to look
+    private static RecordedFrame applicationFrame(RecordedStackTrace stackTrace) {
+        RecordedFrame frame = applicationFrameOrNull(stackTrace);
+        return frame != null ? frame : topFrame(stackTrace);
+    }
+    
+    private static RecordedFrame applicationFrameOrNull(RecordedStackTrace stackTrace) {
+        if (stackTrace == null) return null;
+        for (RecordedFrame frame : stackTrace.getFrames()) {
+            if (frame.isJavaFrame() && frame.getMethod().getType().getName().startsWith(APPLICATION_PACKAGE)) return frame;
+        }
+        return null;
+    }
+    
+    private static String frame(RecordedFrame frame) {
+        if (frame == null) return "unknown";
+        String method = frame.getMethod().getType().getName() + "." + frame.getMethod().getName();
+        return frame.getLineNumber() > 0 ? method + ":" + frame.getLineNumber() : method;
+    }
+    
+    private static String className(RecordedEvent event, String field) {
+        RecordedClass recordedClass = event.hasField(field) ? event.getClass(field) : null;
+        return recordedClass != null ? recordedClass.getName() : "unknown";
+    }
+    
+    private static String label(String value) {
+        return value != null ? " " + value : "";
+    }
+    
+    private static double millis(long nanos) {
+        return Math.round(nanos / 1_000.0) / 1_000.0;
+    }
+}
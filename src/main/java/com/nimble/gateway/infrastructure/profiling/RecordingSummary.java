@@ -0,0 +1,22 @@
+package com.nimble.gateway.infrastructure.profiling;
+
+import java.time.Instant;
+import java.util.List;
+
+public record RecordingSummary(long id, Instant startedAt, double durationSeconds, long events, List<Operation> operations,
+                               List<HotMethod> hotMethods, List<AllocationSite> allocationSites,
+                               List<ContendedMonitor> contendedMonitors) {
+    
+    public record Operation(String name, long count, double totalMs, double maxMs) {
+    }
+    
+    public record HotMethod(String frame, long samples) {
+    }
+    
+    // bytes is the sampled weight: an estimate of everything allocated there, not just the sampled objects
+    public record AllocationSite(String site, long samples, long bytes) {
+    }
+    
+    public record ContendedMonitor(String monitor, long events, double totalMs, double maxMs) {
+    }
+}
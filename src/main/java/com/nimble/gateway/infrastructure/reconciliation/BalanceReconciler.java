@@ -0,0 +1,209 @@
+package com.nimble.gateway.infrastructure.reconciliation;
+
+import com.nimble.gateway.domain.entity.BalanceDiscrepancy;
+import com.nimble.gateway.domain.repository.BalanceDiscrepancyRepository;
+import com.nimble.gateway.domain.repository.BalanceLedgerRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionOperations;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Recomputes every user's balance from their history and reports the users whose users.balance disagrees.
+// The user id space is cut into key ranges that a ForkJoin pool reconciles in parallel; each range is read
+// in its own short read-only snapshot, so no locks are taken and a replica can serve it.
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "app.reconciliation.enabled", havingValue = "true", matchIfMissing = true)
+public class BalanceReconciler {
+    
+    private static final int KEY_PREFIXES = 1 << 16;
+    
+    private final BalanceLedgerRepository balanceLedgerRepository;
+    private final BalanceDiscrepancyRepository balanceDiscrepancyRepository;
+    private final TransactionOperations transactionOperations;
+    private final TransactionTemplate snapshot;
+    private final int partitions;
+    private final int parallelism;
+    private final BigDecimal tolerance;
+    
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final AtomicInteger partitionsCompleted = new AtomicInteger();
+    private final AtomicInteger lastDiscrepancies = new AtomicInteger();
+    private final Counter usersChecked;
+    private final Timer partitionDuration;
+    
+    public BalanceReconciler(
+            BalanceLedgerRepository balanceLedgerRepository,
+            BalanceDiscrepancyRepository balanceDiscrepancyRepository,
+            TransactionOperations transactionOperations,
+            PlatformTransactionManager transactionManager,
+            MeterRegistry meterRegistry,
+            @Value("${app.reconciliation.partitions:256}") int partitions,
+            @Value("${app.reconciliation.parallelism:4}") int parallelism,
+            @Value("${app.reconciliation.tolerance:0.00}") BigDecimal tolerance) {
+        if (partitions < 1 || partitions > KEY_PREFIXES) {
+            throw new IllegalArgumentException("app.reconciliation.partitions must be between 1 and " + KEY_PREFIXES);
+        }
+        this.balanceLedgerRepository = balanceLedgerRepository;
+        this.balanceDiscrepancyRepository = balanceDiscrepancyRepository;
+        this.transactionOperations = transactionOperations;
+        this.snapshot = new TransactionTemplate(transactionManager);
+        this.snapshot.setReadOnly(true);
+        this.partitions = partitions;
+        this.parallelism = parallelism;
+        this.tolerance = tolerance;
+        
+        Gauge.builder("reconciliation.partitions.total", () -> partitions)
+                .description("Key-range partitions per reconciliation run")
+                .register(meterRegistry);
+        Gauge.builder("reconciliation.partitions.completed", partitionsCompleted, AtomicInteger::get)
+                .description("Partitions reconciled so far in the current or last run")
+                .register(meterRegistry);
+        Gauge.builder("reconciliation.discrepancies", lastDiscrepancies, AtomicInteger::get)
+                .description("Users with a balance discrepancy in the last completed run")
+                .register(meterRegistry);
+        this.usersChecked = Counter.builder("reconciliation.users.checked")
+                .description("User balances compared against their history")
+                .register(meterRegistry);
+        this.partitionDuration = Timer.builder("reconciliation.partition.duration")
+                .description("Time to reconcile one key-range partition")
+                .register(meterRegistry);
+    }
+    
+    @Scheduled(cron = "${app.reconciliation.cron:0 0 1 * * *}")
+    public void scheduledRun() {
+        reconcile();
+    }
+    
+    // Empty when a run is already in progress
+    public Optional<ReconciliationReport> reconcile() {
+        if (!running.compareAndSet(false, true)) {
+            log.warn("Balance reconciliation already running, skipping");
+            return Optional.empty();
+        }
+        
+        try {
+            UUID runId = UUID.randomUUID();
+            long started = System.nanoTime();
+            partitionsCompleted.set(0);
+            
+            ForkJoinPool pool = new ForkJoinPool(parallelism);
+            PartitionResult result;
+            try {
+                result = pool.invoke(new PartitionTask(runId, 0, partitions));
+            } finally {
+                pool.shutdown();
+            }
+            
+            transactionOperations.executeWithoutResult(status -> balanceDiscrepancyRepository.saveAllDiscrepancies(result.discrepancies()));
+            lastDiscrepancies.set(result.discrepancies().size());
+            
+            ReconciliationReport report = new ReconciliationReport(runId, partitions, result.usersChecked(),
+                    result.discrepancies(), (System.nanoTime() - started) / 1_000_000);
+            if (report.discrepancies().isEmpty()) {
+                log.info("Balance reconciliation {} checked {} users in {} ms, no discrepancies", runId, report.usersChecked(), report.elapsedMs());
+            } else {
+                log.warn("Balance reconciliation {} checked {} users in {} ms, {} discrepancies", runId, report.usersChecked(),
+                        report.elapsedMs(), report.discrepancies().size());
+            }
+            return Optional.of(report);
+        } finally {
+            running.set(false);
+        }
+    }
+    
+    private PartitionResult reconcilePartition(UUID runId, int partition) {
+        UUID from = lowerBound(partition);
+        UUID to = upperBound(partition);
+        
+        PartitionResult result = partitionDuration.record(() -> snapshot.execute(status -> {
+            // Under InnoDB's default REPEATABLE READ, balances and history come from one consistent snapshot,
+            // so payments committing meanwhile cannot show up as drift
+            Map<UUID, BigDecimal> balances = balanceLedgerRepository.findBalances(from, to);
+            Map<UUID, BigDecimal> expected = balanceLedgerRepository.computeExpectedBalances(from, to);
+            
+            List<BalanceDiscrepancy> discrepancies = new ArrayList<>();
+            balances.forEach((userId, recorded) -> {
+                BigDecimal expectedBalance = expected.getOrDefault(userId, BigDecimal.ZERO);
+                BigDecimal difference = recorded.subtract(expectedBalance);
+                if (difference.abs().compareTo(tolerance) > 0) {
+                    discrepancies.add(BalanceDiscrepancy.builder()
+                            .runId(runId)
+                            .userId(userId)
+                            .recordedBalance(recorded)
+                            .expectedBalance(expectedBalance)
+                            .difference(difference)
+                            .build());
+                }
+            });
+            return new PartitionResult(balances.size(), discrepancies);
+        }));
+        
+        usersChecked.increment(result.usersChecked());
+        partitionsCompleted.incrementAndGet();
+        return result;
+    }
+    
+    // Partitions split the first two bytes of the id evenly; ids are random, so partitions hold similar user counts
+    private UUID lowerBound(int partition) {
+        long prefix = (long) partition * KEY_PREFIXES / partitions;
+        return new UUID(prefix << 48, 0L);
+    }
+    
+    private UUID upperBound(int partition) {
+        long prefix = (long) (partition + 1) * KEY_PREFIXES / partitions - 1;
+        return new UUID((prefix << 48) | 0x0000FFFFFFFFFFFFL, -1L);
+    }
+    
+    private record PartitionResult(long usersChecked, List<BalanceDiscrepancy> discrepancies) {
+        
+        PartitionResult merge(PartitionResult other) {
+            List<BalanceDiscrepancy> merged = new ArrayList<>(discrepancies);
+            merged.addAll(other.discrepancies);
+            return new PartitionResult(usersChecked + other.usersChecked, merged);
+        }
+    }
+    
+    private class PartitionTask extends RecursiveTask<PartitionResult> {
+        
+        private final UUID runId;
+        private final int from;
+        private final int to;
+        
+        PartitionTask(UUID runId, int from, int to) {
+            this.runId = runId;
+            this.from = from;
+            this.to = to;
+        }
+        
+        @Override
+        protected PartitionResult compute() {
+            if (to - from == 1) return reconcilePartition(runId, from);
+            
+            int middle = (from + to) >>> 1;
+            PartitionTask left = new PartitionTask(runId, from, middle);
+            left.fork();
+            PartitionResult right = new PartitionTask(runId, middle, to).compute();
+            return left.join().merge(right);
+        }
+    }
+}
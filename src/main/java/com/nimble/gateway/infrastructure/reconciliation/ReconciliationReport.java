@@ -0,0 +1,10 @@
+package com.nimble.gateway.infrastructure.reconciliation;
+
+import com.nimble.gateway.domain.entity.BalanceDiscrepancy;
+
+import java.util.List;
+import java.util.UUID;
+
+public record ReconciliationReport(UUID runId, int partitions, long usersChecked,
+                                   List<BalanceDiscrepancy> discrepancies, long elapsedMs) {
+}
@@ -0,0 +1,44 @@
+package com.nimble.gateway.infrastructure.security;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.authorization.AuthorizationDecision;
+import org.springframework.security.authorization.AuthorizationManager;
+import org.springframework.security.authorization.AuthorizationResult;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.web.access.intercept.RequestAuthorizationContext;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Set;
+import java.util.function.Supplier;
+
+// Every account has the same role, so operator-only endpoints are granted by e-mail from app.admin.emails
+@Component
+public class AdminUsers implements AuthorizationManager<RequestAuthorizationContext> {
+    
+    private final Set<String> emails;
+    
+    public AdminUsers(@Value("${app.admin.emails:}") List<String> emails) {
+        this.emails = Set.copyOf(emails.stream().map(String::trim).filter(email -> !email.isEmpty()).toList());
+    }
+    
+    public boolean isAdmin(Authentication authentication) {
+        return authentication != null
+                && authentication.isAuthenticated()
+                && !(authentication instanceof AnonymousAuthenticationToken)
+                && emails.contains(authentication.getName());
+    }
+    
+    @Override
+    public AuthorizationResult authorize(Supplier<Authentication> authentication, RequestAuthorizationContext context) {
+        return new AuthorizationDecision(isAdmin(authentication.get()));
+    }
+    
+    // Still abstract in Spring Security 6.4; deprecated here too so overriding it does not warn
+    @Deprecated
+    @Override
+    public AuthorizationDecision check(Supplier<Authentication> authentication, RequestAuthorizationContext context) {
+        return new AuthorizationDecision(isAdmin(authentication.get()));
+    }
+}
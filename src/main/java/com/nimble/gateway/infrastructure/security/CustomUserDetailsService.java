@@ -2,21 +2,26 @@ package com.nimble.gateway.infrastructure.security;
 
 import com.nimble.gateway.domain.entity.User;
 import com.nimble.gateway.domain.repository.UserRepository;
+import com.nimble.gateway.domain.valueobject.UserIdentity;
+import com.nimble.gateway.infrastructure.cache.UserIdentityCache;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Optional;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
-public class CustomUserDetailsService implements UserDetailsService {
+public class CustomUserDetailsService implements UserDetailsService, UserDetailsPasswordService {
     
     private final UserRepository userRepository;
+    private final UserIdentityCache userIdentityCache;
     
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
@@ -34,4 +39,27 @@ public class CustomUserDetailsService implements UserDetailsService {
         log.debug("User found: {} with authorities: {}", foundUser.getEmail(), foundUser.getAuthorities());
         return foundUser;
     }
+    
+    // Token-authenticated requests only need identity, so the principal is served from the cache without a password or balance
+    public UserDetails loadPrincipalByUsername(String username) throws UsernameNotFoundException {
+        log.debug("Loading principal by username: {}", username);
+        
+        return userIdentityCache.findByUsername(username)
+                .map(UserIdentity::toPrincipal)
+                .orElseThrow(() -> {
+                    log.warn("User not found with username: {}", username);
+                    return new UsernameNotFoundException("User not found: " + username);
+                });
+    }
+    
+    // Called by the authentication provider after a successful login whose stored hash is weaker than the configured encoder
+    @Override
+    @Transactional
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        User found = (User) user;
+        userRepository.updatePassword(found.getId(), newPassword);
+        found.setPassword(newPassword);
+        log.info("Password hash upgraded for user: {}", found.getEmail());
+        return found;
+    }
 }
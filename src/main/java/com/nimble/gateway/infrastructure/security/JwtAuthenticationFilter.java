@@ -1,5 +1,7 @@
 package com.nimble.gateway.infrastructure.security;
 
+import com.nimble.gateway.infrastructure.tracing.Span;
+import com.nimble.gateway.infrastructure.tracing.Tracing;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -20,10 +22,12 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     
     private final JwtTokenProvider jwtTokenProvider;
     private final UserDetailsService userDetailsService;
+    private final RouteTable routeTable;
     
-    public JwtAuthenticationFilter(JwtTokenProvider jwtTokenProvider, UserDetailsService userDetailsService) {
+    public JwtAuthenticationFilter(JwtTokenProvider jwtTokenProvider, UserDetailsService userDetailsService, RouteTable routeTable) {
         this.jwtTokenProvider = jwtTokenProvider;
         this.userDetailsService = userDetailsService;
+        this.routeTable = routeTable;
     }
     
     @Override
@@ -33,21 +37,20 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         String requestURI = request.getRequestURI();
         log.debug("Processing JWT authentication for request: {}", requestURI);
         
-        if (isPublicEndpoint(requestURI)) {
+        if (routeTable.classify(request).isPublic()) {
             log.debug("Skipping JWT validation for public endpoint: {}", requestURI);
             filterChain.doFilter(request, response);
             return;
         }
         
-        try {
+        try (Span span = Tracing.start(Tracing.FILTER, "JwtAuthenticationFilter")) {
             String jwt = getJwtFromRequest(request);
             
             if (StringUtils.hasText(jwt)) {
                 log.debug("JWT token found, validating...");
-                boolean isValid = jwtTokenProvider.validateToken(jwt);
+                String username = jwtTokenProvider.resolveUsername(jwt);
                 
-                if (isValid) {
-                    String username = jwtTokenProvider.getUsernameFromToken(jwt);
+                if (username != null) {
                     log.debug("JWT token valid for user: {}", username);
                     
                     UserDetails userDetails = userDetailsService.loadUserByUsername(username);
@@ -75,15 +78,4 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         if (StringUtils.hasText(bearerToken) && bearerToken.startsWith("Bearer ")) return bearerToken.substring(7);
         return null;
     }
-    
-    private boolean isPublicEndpoint(String requestURI) {
-        return requestURI.equals("/api/auth/login") || 
-               requestURI.equals("/api/auth/register") ||
-               requestURI.startsWith("/actuator/") || 
-               requestURI.startsWith("/swagger-ui") || 
-               requestURI.equals("/swagger-ui.html") ||
-               requestURI.startsWith("/v3/api-docs") ||
-               requestURI.startsWith("/swagger-resources") ||
-               requestURI.startsWith("/webjars");
-    }
 }
\ No newline at end of file
@@ -0,0 +1,218 @@
+package com.nimble.gateway.infrastructure.security;
+
+import com.nimble.gateway.domain.entity.JwtSigningKey;
+import com.nimble.gateway.domain.repository.JwtSigningKeyRepository;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Jwks;
+import io.jsonwebtoken.security.SignatureAlgorithm;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.KeyPair;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+// Asymmetric signing keys shared by every instance through the database. A new key is published ahead of
+// signing with it, so services that cache /.well-known/jwks.json know it before the first token arrives, and
+// a replaced key keeps verifying for the overlap window, so the tokens it signed live out their lifetime.
+// Each key gets one immutable parser, looked up by kid
+@Slf4j
+@Component
+public class JwtKeyRing {
+    
+    private static final Duration MIN_RELOAD_SPACING = Duration.ofSeconds(1);
+    
+    private final JwtSigningKeyRepository repository;
+    private final PrivateKeyCipher cipher;
+    private final String algorithm;
+    private final Duration rotationPeriod;
+    private final Duration publishAhead;
+    private final Duration overlap;
+    
+    private volatile Ring ring;
+    
+    public JwtKeyRing(JwtSigningKeyRepository repository,
+                      @Value("${app.jwt.secret:mySecretKey123456789012345678901234567890}") String secret,
+                      @Value("${app.jwt.signing.algorithm:ES256}") String algorithm,
+                      @Value("${app.jwt.signing.rotation-period:7d}") Duration rotationPeriod,
+                      @Value("${app.jwt.signing.publish-ahead:10m}") Duration publishAhead,
+                      @Value("${app.jwt.signing.overlap:7d}") Duration overlap) {
+        this.repository = repository;
+        this.cipher = new PrivateKeyCipher(secret);
+        this.algorithm = signatureAlgorithm(algorithm).getId();
+        this.rotationPeriod = rotationPeriod;
+        this.publishAhead = publishAhead;
+        this.overlap = overlap;
+    }
+    
+    // The newest active key; rotates on the spot if the schedule fell so far behind that tokens signed now
+    // would outlive their key
+    public SigningKey signingKey() {
+        // Read the clock after the ring, which may just have bootstrapped a key activating this instant
+        Ring snapshot = current();
+        Instant now = Instant.now();
+        SigningKey signer = snapshot.signerAt(now);
+        if (signer != null && signer.expiresAt().isAfter(now.plus(overlap))) return signer;
+        
+        synchronized (this) {
+            signer = current().signerAt(now);
+            if (signer != null && signer.expiresAt().isAfter(now.plus(overlap))) return signer;
+            
+            log.warn("No JWT signing key valid long enough, activating a new one immediately");
+            create(now);
+            reload();
+            return current().signerAt(now);
+        }
+    }
+    
+    // Null for a kid this instance has never seen, even after looking for keys other instances added
+    public JwtParser parser(String kid) {
+        Ring snapshot = current();
+        JwtParser parser = snapshot.parsers().get(kid);
+        if (parser != null || Instant.now().isBefore(snapshot.loadedAt().plus(MIN_RELOAD_SPACING))) return parser;
+        
+        synchronized (this) {
+            if (ring == snapshot) reload();
+        }
+        return ring.parsers().get(kid);
+    }
+    
+    // Every key that can still verify, including the next one before it starts signing
+    public List<Map<String, ?>> publishedKeys() {
+        return current().keys().stream()
+                .<Map<String, ?>>map(key -> Jwks.builder()
+                        .key(key.publicKey())
+                        .id(key.kid())
+                        .algorithm(key.algorithm().getId())
+                        .publicKeyUse("sig")
+                        .build())
+                .toList();
+    }
+    
+    // Verifiers that cache the key set for less than the publication lead never meet an unknown kid
+    public Duration publishedKeysMaxAge() {
+        return publishAhead.dividedBy(2);
+    }
+    
+    @Scheduled(fixedDelayString = "${app.jwt.signing.check-interval-ms:60000}",
+            initialDelayString = "${app.jwt.signing.check-interval-ms:60000}")
+    @Transactional
+    public synchronized void maintain() {
+        Instant now = Instant.now();
+        repository.deleteExpiredBefore(LocalDateTime.ofInstant(now, ZoneId.systemDefault()));
+        reload();
+        
+        Ring snapshot = current();
+        SigningKey newest = snapshot.keys().isEmpty() ? null : snapshot.keys().get(snapshot.keys().size() - 1);
+        if (newest == null) {
+            create(now);
+        } else if (!newest.activatesAt().isAfter(now) && !now.isBefore(newest.activatesAt().plus(rotationPeriod).minus(publishAhead))) {
+            create(now.plus(publishAhead));
+            log.info("Published the next JWT signing key, signing with it from {}", now.plus(publishAhead));
+        } else {
+            return;
+        }
+        reload();
+    }
+    
+    private Ring current() {
+        Ring snapshot = ring;
+        if (snapshot != null) return snapshot;
+        
+        // Loaded on first use rather than at startup, so the context starts without touching the database
+        synchronized (this) {
+            if (ring == null) {
+                reload();
+                if (ring.keys().isEmpty()) {
+                    create(Instant.now());
+                    reload();
+                }
+            }
+            return ring;
+        }
+    }
+    
+    private synchronized void reload() {
+        Instant now = Instant.now();
+        List<SigningKey> keys = repository.findUnexpired(LocalDateTime.ofInstant(now, ZoneId.systemDefault())).stream()
+                .map(this::decode)
+                .sorted(Comparator.comparing(SigningKey::activatesAt))
+                .toList();
+        Map<String, JwtParser> parsers = new HashMap<>();
+        for (SigningKey key : keys) {
+            JwtParser existing = ring == null ? null : ring.parsers().get(key.kid());
+            parsers.put(key.kid(), existing != null ? existing : Jwts.parser().verifyWith(key.publicKey()).build());
+        }
+        ring = new Ring(keys, Map.copyOf(parsers), now);
+    }
+    
+    private void create(Instant activatesAt) {
+        String kid = UUID.randomUUID().toString();
+        KeyPair keyPair = algorithm.equals(Jwts.SIG.EdDSA.getId())
+                ? Jwks.CRV.Ed25519.keyPair().build()
+                : Jwts.SIG.ES256.keyPair().build();
+        // A replaced key stops signing about rotationPeriod after activating, then verifies for the overlap
+        Instant expiresAt = activatesAt.plus(rotationPeriod).plus(publishAhead).plus(overlap);
+        repository.insert(JwtSigningKey.builder()
+                .kid(kid)
+                .algorithm(algorithm)
+                .publicKey(keyPair.getPublic().getEncoded())
+                .privateKey(cipher.encrypt(keyPair.getPrivate().getEncoded(), kid))
+                .activatesAt(LocalDateTime.ofInstant(activatesAt, ZoneId.systemDefault()))
+                .expiresAt(LocalDateTime.ofInstant(expiresAt, ZoneId.systemDefault()))
+                .build());
+        log.info("Created {} JWT signing key {}, active from {}", algorithm, kid, activatesAt);
+    }
+    
+    private SigningKey decode(JwtSigningKey key) {
+        SignatureAlgorithm signatureAlgorithm = signatureAlgorithm(key.getAlgorithm());
+        try {
+            KeyFactory keyFactory = KeyFactory.getInstance(signatureAlgorithm == Jwts.SIG.EdDSA ? "EdDSA" : "EC");
+            return new SigningKey(
+                    key.getKid(),
+                    signatureAlgorithm,
+                    keyFactory.generatePublic(new X509EncodedKeySpec(key.getPublicKey())),
+                    keyFactory.generatePrivate(new PKCS8EncodedKeySpec(cipher.decrypt(key.getPrivateKey(), key.getKid()))),
+                    key.getActivatesAt().atZone(ZoneId.systemDefault()).toInstant(),
+                    key.getExpiresAt().atZone(ZoneId.systemDefault()).toInstant());
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Unreadable JWT signing key " + key.getKid(), e);
+        }
+    }
+    
+    private static SignatureAlgorithm signatureAlgorithm(String name) {
+        if (Jwts.SIG.ES256.getId().equals(name)) return Jwts.SIG.ES256;
+        if (Jwts.SIG.EdDSA.getId().equals(name)) return Jwts.SIG.EdDSA;
+        throw new IllegalArgumentException("Unsupported JWT signing algorithm " + name + ", expected ES256 or EdDSA");
+    }
+    
+    public record SigningKey(String kid, SignatureAlgorithm algorithm, PublicKey publicKey, PrivateKey privateKey,
+                             Instant activatesAt, Instant expiresAt) {
+    }
+    
+    private record Ring(List<SigningKey> keys, Map<String, JwtParser> parsers, Instant loadedAt) {
+        
+        SigningKey signerAt(Instant now) {
+            SigningKey signer = null;
+            for (SigningKey key : keys) if (!key.activatesAt().isAfter(now)) signer = key;
+            return signer;
+        }
+    }
+}
@@ -1,5 +1,8 @@
 package com.nimble.gateway.infrastructure.security;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nimble.gateway.domain.entity.User;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
 import lombok.extern.slf4j.Slf4j;
@@ -8,87 +11,164 @@ import org.springframework.security.core.Authentication;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 
-import javax.crypto.SecretKey;
+import java.io.IOException;
+import java.time.Instant;
+import java.util.Base64;
 import java.util.Date;
+import java.util.UUID;
 
 @Slf4j
 @Component
 public class JwtTokenProvider {
     
-    private final SecretKey secretKey;
+    private static final String TYPE_CLAIM = "typ";
+    private static final String REFRESH_TYPE = "refresh";
+    private static final String USER_ID_CLAIM = "uid";
+    private static final String FAMILY_CLAIM = "fam";
+    private static final ObjectMapper HEADER_READER = new ObjectMapper();
+    
+    private final JwtKeyRing keyRing;
+    // Tokens signed with the shared secret before the switch to the key ring carry no kid; null once they are refused
+    private final JwtParser legacyParser;
     private final long jwtExpirationMs;
     private final long refreshExpirationMs;
     
     public JwtTokenProvider(
+            JwtKeyRing keyRing,
             @Value("${app.jwt.secret:mySecretKey123456789012345678901234567890}") String jwtSecret,
+            @Value("${app.jwt.signing.accept-hs512:true}") boolean acceptHs512,
             @Value("${app.jwt.expiration:86400000}") long jwtExpirationMs,
             @Value("${app.jwt.refresh-expiration:604800000}") long refreshExpirationMs) {
-        this.secretKey = Keys.hmacShaKeyFor(jwtSecret.getBytes());
+        this.keyRing = keyRing;
+        this.legacyParser = acceptHs512 ? Jwts.parser().verifyWith(Keys.hmacShaKeyFor(jwtSecret.getBytes())).build() : null;
         this.jwtExpirationMs = jwtExpirationMs;
         this.refreshExpirationMs = refreshExpirationMs;
     }
     
     public String generateToken(Authentication authentication) {
         UserDetails userPrincipal = (UserDetails) authentication.getPrincipal();
-        return generateTokenFromUsername(userPrincipal.getUsername());
+        UUID userId = userPrincipal instanceof User user ? user.getId() : null;
+        return generateToken(userId, userPrincipal.getUsername());
     }
     
     public String generateTokenFromUsername(String username) {
+        return generateToken(null, username);
+    }
+    
+    // Carries the user id so a refresh can issue it again without looking the user up
+    public String generateToken(UUID userId, String username) {
         Date expiryDate = new Date(System.currentTimeMillis() + jwtExpirationMs);
         
-        return Jwts.builder()
+        JwtBuilder builder = Jwts.builder()
                 .subject(username)
                 .issuedAt(new Date())
-                .expiration(expiryDate)
-                .signWith(secretKey, Jwts.SIG.HS512)
-                .compact();
+                .expiration(expiryDate);
+        if (userId != null) builder.claim(USER_ID_CLAIM, userId.toString());
+        return sign(builder);
     }
     
-    public String generateRefreshToken(String username) {
+    // Starts a new token family
+    public String generateRefreshToken(UUID userId, String username) {
+        return generateRefreshToken(userId, username, UUID.randomUUID());
+    }
+    
+    // Each refresh token has its own id so it can be used once; the family links it to the login it descends from
+    public String generateRefreshToken(UUID userId, String username, UUID familyId) {
         Date expiryDate = new Date(System.currentTimeMillis() + refreshExpirationMs);
         
-        return Jwts.builder()
+        return sign(Jwts.builder()
+                .id(UUID.randomUUID().toString())
                 .subject(username)
+                .claim(TYPE_CLAIM, REFRESH_TYPE)
+                .claim(USER_ID_CLAIM, userId.toString())
+                .claim(FAMILY_CLAIM, familyId.toString())
                 .issuedAt(new Date())
-                .expiration(expiryDate)
-                .signWith(secretKey, Jwts.SIG.HS512)
-                .compact();
+                .expiration(expiryDate));
     }
     
-    public String getUsernameFromToken(String token) {
-        Claims claims = Jwts.parser()
-                .verifyWith(secretKey)
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
+    public RefreshToken parseRefreshToken(String token) {
+        Claims claims = verify(token);
         
-        return claims.getSubject();
+        if (!REFRESH_TYPE.equals(claims.get(TYPE_CLAIM, String.class)) || claims.getId() == null) {
+            throw new MalformedJwtException("Not a refresh token");
+        }
+        try {
+            return new RefreshToken(
+                    UUID.fromString(claims.getId()),
+                    UUID.fromString(claims.get(FAMILY_CLAIM, String.class)),
+                    UUID.fromString(claims.get(USER_ID_CLAIM, String.class)),
+                    claims.getSubject(),
+                    claims.getExpiration().toInstant());
+        } catch (IllegalArgumentException | NullPointerException e) {
+            throw new MalformedJwtException("Malformed refresh token claims", e);
+        }
     }
     
-    public boolean validateToken(String token) {
+    public long getExpirationMs() {
+        return jwtExpirationMs;
+    }
+    
+    // One signature check per request: the username of a valid access token, or null
+    public String resolveUsername(String token) {
         try {
-            Jwts.parser()
-                    .verifyWith(secretKey)
-                    .build()
-                    .parseSignedClaims(token);
-            return true;
+            Claims claims = verify(token);
+            if (REFRESH_TYPE.equals(claims.get(TYPE_CLAIM, String.class))) {
+                log.warn("Refresh token presented as an access token");
+                return null;
+            }
+            return claims.getSubject();
         } catch (JwtException | IllegalArgumentException e) {
             log.error("Invalid JWT token: {}", e.getMessage());
-            return false;
+            return null;
         }
     }
     
+    public String getUsernameFromToken(String token) {
+        return verify(token).getSubject();
+    }
+    
+    // Refresh tokens are only good at /api/auth/refresh, never as bearer tokens
+    public boolean validateToken(String token) {
+        return resolveUsername(token) != null;
+    }
+    
     public boolean isTokenExpired(String token) {
         try {
-            Claims claims = Jwts.parser()
-                    .verifyWith(secretKey)
-                    .build()
-                    .parseSignedClaims(token)
-                    .getPayload();
-            
-            return claims.getExpiration().before(new Date());
+            return verify(token).getExpiration().before(new Date());
         } catch (JwtException | IllegalArgumentException e) {
             return true;
         }
     }
-}
\ No newline at end of file
+    
+    private String sign(JwtBuilder builder) {
+        JwtKeyRing.SigningKey key = keyRing.signingKey();
+        return builder
+                .header().keyId(key.kid()).and()
+                .signWith(key.privateKey(), key.algorithm())
+                .compact();
+    }
+    
+    // The kid picks the key's cached parser directly instead of trying every key
+    private Claims verify(String token) {
+        String kid = keyIdOf(token);
+        JwtParser parser = kid != null ? keyRing.parser(kid) : legacyParser;
+        if (parser == null) throw new UnsupportedJwtException(kid != null ? "Unknown signing key " + kid : "Token without a key id");
+        
+        return parser.parseSignedClaims(token).getPayload();
+    }
+    
+    // Only reads the header; nothing in it is trusted until the signature has been checked with the key it names
+    private static String keyIdOf(String token) {
+        int dot = token.indexOf('.');
+        if (dot <= 0) throw new MalformedJwtException("Not a signed JWT");
+        try {
+            JsonNode kid = HEADER_READER.readTree(Base64.getUrlDecoder().decode(token.substring(0, dot))).get("kid");
+            return kid != null && kid.isTextual() ? kid.asText() : null;
+        } catch (IOException e) {
+            throw new MalformedJwtException("Unreadable JWT header", e);
+        }
+    }
+    
+    public record RefreshToken(UUID id, UUID familyId, UUID userId, String username, Instant expiresAt) {
+    }
+}
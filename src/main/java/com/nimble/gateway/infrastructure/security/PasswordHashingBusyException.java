@@ -0,0 +1,9 @@
+package com.nimble.gateway.infrastructure.security;
+
+// Expected under load and answered with 503, so the stack trace is not worth capturing
+public class PasswordHashingBusyException extends RuntimeException {
+    
+    public PasswordHashingBusyException(String message) {
+        super(message, null, false, false);
+    }
+}
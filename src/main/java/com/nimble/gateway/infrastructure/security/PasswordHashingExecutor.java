@@ -0,0 +1,125 @@
+package com.nimble.gateway.infrastructure.security;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+// Password hashing runs on a few dedicated threads, so a login flood queues here instead of taking every core from payments
+@Slf4j
+@Component
+public class PasswordHashingExecutor {
+    
+    private final ThreadPoolExecutor executor;
+    private final Semaphore capacity;
+    private final long queueTimeoutNanos;
+    private final int threads;
+    private final Counter queueFull;
+    private final Counter timedOut;
+    
+    public PasswordHashingExecutor(@Value("${app.security.password-hashing.threads:0}") int threads,
+                                   @Value("${app.security.password-hashing.cpu-share:0.25}") double cpuShare,
+                                   @Value("${app.security.password-hashing.max-queued:16}") int maxQueued,
+                                   @Value("${app.security.password-hashing.queue-timeout-ms:1000}") long queueTimeoutMs,
+                                   MeterRegistry meterRegistry) {
+        this.threads = threads > 0 ? threads : threadsFor(cpuShare, Runtime.getRuntime().availableProcessors());
+        this.capacity = new Semaphore(this.threads + Math.max(0, maxQueued));
+        this.queueTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(queueTimeoutMs);
+        this.executor = new ThreadPoolExecutor(this.threads, this.threads, 0, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), daemonThreads());
+        this.queueFull = rejections(meterRegistry, "queue_full");
+        this.timedOut = rejections(meterRegistry, "timed_out");
+        Gauge.builder("password.hashing.pending", this, PasswordHashingExecutor::pending)
+                .description("Password hashes running or waiting for a hashing thread")
+                .register(meterRegistry);
+        log.info("Password hashing limited to {} threads and {} queued", this.threads, Math.max(0, maxQueued));
+    }
+    
+    static int threadsFor(double cpuShare, int cores) {
+        return Math.max(1, (int) Math.floor(cores * cpuShare));
+    }
+    
+    public <T> T execute(Supplier<T> hashing) {
+        if (!capacity.tryAcquire()) {
+            queueFull.increment();
+            throw new PasswordHashingBusyException("Too many logins in progress, try again shortly");
+        }
+        
+        long submitted = System.nanoTime();
+        Future<T> result;
+        try {
+            result = executor.submit(() -> {
+                try {
+                    // The caller has most likely given up by now, so the hash would be wasted work
+                    if (System.nanoTime() - submitted > queueTimeoutNanos) {
+                        timedOut.increment();
+                        throw new PasswordHashingBusyException("Login timed out waiting for a hashing thread, try again shortly");
+                    }
+                    return hashing.get();
+                } finally {
+                    capacity.release();
+                }
+            });
+        } catch (RuntimeException e) {
+            capacity.release();
+            throw e;
+        }
+        
+        return await(result);
+    }
+    
+    int threads() {
+        return threads;
+    }
+    
+    int pending() {
+        return executor.getActiveCount() + executor.getQueue().size();
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+    
+    private static <T> T await(Future<T> result) {
+        try {
+            return result.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) throw runtime;
+            if (e.getCause() instanceof Error error) throw error;
+            throw new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            // Not cancelled: a task cancelled before it starts would never give its permit back
+            Thread.currentThread().interrupt();
+            throw new PasswordHashingBusyException("Interrupted while waiting for a hashing thread");
+        }
+    }
+    
+    private static ThreadFactory daemonThreads() {
+        AtomicInteger sequence = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "password-hashing-" + sequence.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+    
+    private static Counter rejections(MeterRegistry meterRegistry, String reason) {
+        return Counter.builder("password.hashing.rejected")
+                .description("Password hashes refused because the hashing pool was saturated")
+                .tag("reason", reason)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,57 @@
+package com.nimble.gateway.infrastructure.security;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+
+// Signing keys rest in the database encrypted under a key derived from app.jwt.secret, so a dump of the table
+// alone cannot mint tokens. The kid is bound as associated data, so a ciphertext cannot be moved to another row
+class PrivateKeyCipher {
+    
+    private static final String TRANSFORMATION = "AES/GCM/NoPadding";
+    private static final int IV_BYTES = 12;
+    private static final int TAG_BITS = 128;
+    
+    private final SecretKeySpec key;
+    private final SecureRandom random = new SecureRandom();
+    
+    PrivateKeyCipher(String secret) {
+        try {
+            byte[] derived = MessageDigest.getInstance("SHA-256")
+                    .digest(("nimble-gateway/jwt-signing-keys:" + secret).getBytes(StandardCharsets.UTF_8));
+            this.key = new SecretKeySpec(derived, "AES");
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("SHA-256 unavailable", e);
+        }
+    }
+    
+    byte[] encrypt(byte[] plaintext, String kid) {
+        try {
+            byte[] iv = new byte[IV_BYTES];
+            random.nextBytes(iv);
+            Cipher cipher = Cipher.getInstance(TRANSFORMATION);
+            cipher.init(Cipher.ENCRYPT_MODE, key, new GCMParameterSpec(TAG_BITS, iv));
+            cipher.updateAAD(kid.getBytes(StandardCharsets.UTF_8));
+            byte[] ciphertext = cipher.doFinal(plaintext);
+            return ByteBuffer.allocate(IV_BYTES + ciphertext.length).put(iv).put(ciphertext).array();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Could not encrypt signing key " + kid, e);
+        }
+    }
+    
+    byte[] decrypt(byte[] sealed, String kid) {
+        try {
+            Cipher cipher = Cipher.getInstance(TRANSFORMATION);
+            cipher.init(Cipher.DECRYPT_MODE, key, new GCMParameterSpec(TAG_BITS, sealed, 0, IV_BYTES));
+            cipher.updateAAD(kid.getBytes(StandardCharsets.UTF_8));
+            return cipher.doFinal(sealed, IV_BYTES, sealed.length - IV_BYTES);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Could not decrypt signing key " + kid + ", was app.jwt.secret changed?", e);
+        }
+    }
+}
@@ -1,9 +1,12 @@
 package com.nimble.gateway.infrastructure.security;
 
+import com.nimble.gateway.infrastructure.tracing.Span;
+import com.nimble.gateway.infrastructure.tracing.Tracing;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Component;
@@ -15,8 +18,10 @@ import java.util.concurrent.atomic.AtomicInteger;
 
 @Slf4j
 @Component
+@RequiredArgsConstructor
 public class RateLimitingFilter extends OncePerRequestFilter {
     
+    private final RouteTable routeTable;
     private final ConcurrentHashMap<String, AtomicInteger> requestCounts = new ConcurrentHashMap<>();
     private final ConcurrentHashMap<String, AtomicInteger> loginAttempts = new ConcurrentHashMap<>();
     
@@ -27,33 +32,41 @@ public class RateLimitingFilter extends OncePerRequestFilter {
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, 
                                  FilterChain filterChain) throws ServletException, IOException {
         
-        String clientIp = getClientIpAddress(request);
-        String requestPath = request.getRequestURI();
+        RouteTable.Route route = routeTable.classify(request);
         
-        if (isPublicEndpoint(requestPath)) {
+        if (route.rateLimit() == RouteTable.RateLimit.NONE) {
             filterChain.doFilter(request, response);
             return;
         }
         
-        if (requestPath.contains("/api/auth/login")) {
+        String rejection;
+        try (Span span = Tracing.start(Tracing.FILTER, "RateLimitingFilter")) {
+            rejection = rejection(getClientIpAddress(request), route);
+        }
+        if (rejection != null) {
+            response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+            response.getWriter().write(rejection);
+            response.setContentType("application/json");
+            return;
+        }
+        
+        filterChain.doFilter(request, response);
+    }
+    
+    private String rejection(String clientIp, RouteTable.Route route) {
+        if (route.rateLimit() == RouteTable.RateLimit.LOGIN) {
             if (isLoginRateLimited(clientIp)) {
                 log.warn("Login rate limit exceeded for IP: {}", clientIp);
-                response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
-                response.getWriter().write("{\"error\":\"Too many login attempts. Please try again later.\"}");
-                response.setContentType("application/json");
-                return;
+                return "{\"error\":\"Too many login attempts. Please try again later.\"}";
             }
         }
         
         if (isGeneralRateLimited(clientIp)) {
             log.warn("Rate limit exceeded for IP: {}", clientIp);
-            response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
-            response.getWriter().write("{\"error\":\"Rate limit exceeded. Please try again later.\"}");
-            response.setContentType("application/json");
-            return;
+            return "{\"error\":\"Rate limit exceeded. Please try again later.\"}";
         }
         
-        filterChain.doFilter(request, response);
+        return null;
     }
     
     private boolean isLoginRateLimited(String clientIp) {
@@ -77,14 +90,4 @@ public class RateLimitingFilter extends OncePerRequestFilter {
         
         return request.getRemoteAddr();
     }
-    
-    private boolean isPublicEndpoint(String requestPath) {
-        return requestPath.startsWith("/actuator/") || 
-               requestPath.startsWith("/swagger-ui") || 
-               requestPath.equals("/swagger-ui.html") ||
-               requestPath.startsWith("/v3/api-docs") ||
-               requestPath.startsWith("/swagger-resources") ||
-               requestPath.startsWith("/webjars") ||
-               (requestPath.startsWith("/api/auth/") && !requestPath.contains("/login"));
-    }
 }
\ No newline at end of file
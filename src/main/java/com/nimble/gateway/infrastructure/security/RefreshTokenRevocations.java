@@ -0,0 +1,133 @@
+package com.nimble.gateway.infrastructure.security;
+
+import com.nimble.gateway.domain.entity.RevokedRefreshToken;
+import com.nimble.gateway.domain.repository.RevokedRefreshTokenRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+// Revoked refresh tokens and families, kept in a Bloom filter rebuilt from the database: an id the filter has
+// never seen is answered without a query, and only possible hits are confirmed against the table
+@Slf4j
+@Component
+public class RefreshTokenRevocations {
+    
+    private final RevokedRefreshTokenRepository repository;
+    private final int expectedRevocations;
+    private final double falsePositiveRate;
+    private final long refreshExpirationMs;
+    private final Counter lookups;
+    private final Counter falsePositives;
+    
+    private volatile UuidBloomFilter filter;
+    private volatile boolean loaded;
+    private volatile int loadedRevocations;
+    private List<UUID> addedDuringReload;
+    
+    public RefreshTokenRevocations(RevokedRefreshTokenRepository repository,
+                                   MeterRegistry meterRegistry,
+                                   @Value("${app.jwt.revocations.expected:100000}") int expectedRevocations,
+                                   @Value("${app.jwt.revocations.false-positive-rate:0.01}") double falsePositiveRate,
+                                   @Value("${app.jwt.refresh-expiration:604800000}") long refreshExpirationMs) {
+        this.repository = repository;
+        this.expectedRevocations = expectedRevocations;
+        this.falsePositiveRate = falsePositiveRate;
+        this.refreshExpirationMs = refreshExpirationMs;
+        this.filter = new UuidBloomFilter(expectedRevocations, falsePositiveRate);
+        this.lookups = Counter.builder("jwt.revocations.lookups")
+                .description("Revocation checks that had to query the database")
+                .register(meterRegistry);
+        this.falsePositives = Counter.builder("jwt.revocations.false.positives")
+                .description("Revocation checks the filter flagged but the database did not confirm")
+                .register(meterRegistry);
+        Gauge.builder("jwt.revocations.loaded", this, revocations -> revocations.loadedRevocations)
+                .description("Unexpired revocations loaded into the filter by the last reload")
+                .register(meterRegistry);
+    }
+    
+    // Until the first reload the filter knows nothing, so every check goes to the database
+    public boolean isRevoked(UUID id) {
+        boolean filtered = loaded;
+        if (filtered && !filter.mightContain(id)) return false;
+        
+        lookups.increment();
+        boolean revoked = repository.existsById(id);
+        if (filtered && !revoked) falsePositives.increment();
+        return revoked;
+    }
+    
+    // Marks a refresh token as used; false when it already was, i.e. it is being replayed
+    public boolean consume(UUID tokenId, UUID userId, Instant expiresAt) {
+        return revoke(tokenId, userId, RevokedRefreshToken.Kind.TOKEN, expiresAt);
+    }
+    
+    // Kept until the last token the family may have issued expires, not the replayed one: that is the oldest of the
+    // chain, and once reload() purged the family its younger tokens would be accepted again
+    public void revokeFamily(UUID familyId, UUID userId) {
+        revoke(familyId, userId, RevokedRefreshToken.Kind.FAMILY, Instant.now().plusMillis(refreshExpirationMs));
+    }
+    
+    // Other instances' revocations reach this one's filter here, so the interval bounds how long they go unseen
+    @Scheduled(fixedDelayString = "${app.jwt.revocations.reload-interval-ms:10000}")
+    @Transactional
+    public void reload() {
+        LocalDateTime now = LocalDateTime.now();
+        int purged = repository.deleteExpiredBefore(now);
+        
+        synchronized (this) {
+            addedDuringReload = new ArrayList<>();
+        }
+        try {
+            List<UUID> ids = repository.findIdsExpiringAfter(now);
+            // Grows with the table, so a busier week costs memory rather than false positives
+            UuidBloomFilter next = new UuidBloomFilter(Math.max(expectedRevocations, 2 * ids.size()), falsePositiveRate);
+            ids.forEach(next::put);
+            synchronized (this) {
+                addedDuringReload.forEach(next::put);
+                filter = next;
+                loaded = true;
+                loadedRevocations = ids.size();
+            }
+            if (purged > 0) log.debug("Reloaded {} refresh token revocations, purged {} expired", ids.size(), purged);
+        } finally {
+            synchronized (this) {
+                addedDuringReload = null;
+            }
+        }
+    }
+    
+    private boolean revoke(UUID id, UUID userId, RevokedRefreshToken.Kind kind, Instant expiresAt) {
+        boolean inserted;
+        try {
+            repository.insert(RevokedRefreshToken.builder()
+                    .id(id)
+                    .userId(userId)
+                    .kind(kind)
+                    .expiresAt(LocalDateTime.ofInstant(expiresAt, ZoneId.systemDefault()))
+                    .build());
+            inserted = true;
+        } catch (DataIntegrityViolationException e) {
+            inserted = false;
+        }
+        remember(id);
+        return inserted;
+    }
+    
+    private synchronized void remember(UUID id) {
+        filter.put(id);
+        if (addedDuringReload != null) addedDuringReload.add(id);
+    }
+}
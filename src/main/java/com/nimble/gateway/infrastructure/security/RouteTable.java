@@ -0,0 +1,139 @@
+package com.nimble.gateway.infrastructure.security;
+
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.security.web.util.matcher.RequestMatcher;
+import org.springframework.stereotype.Component;
+import org.springframework.web.util.UrlPathHelper;
+
+import java.util.Arrays;
+import java.util.List;
+
+// The one list of which endpoints are public, admin only or authenticated, and how they are rate limited.
+// SecurityConfig, RateLimitingFilter and JwtAuthenticationFilter all read it, so they cannot disagree.
+// Patterns are compiled into a trie of path segments at startup; a request is classified once, by walking its
+// path in place without splitting it, and the route is kept as a request attribute for the filters after it
+@Component
+public class RouteTable {
+    
+    public static final String ROUTE_ATTRIBUTE = RouteTable.class.getName() + ".route";
+    
+    public enum Access { PUBLIC, AUTHENTICATED, ADMIN }
+    
+    public enum RateLimit { NONE, GENERAL, LOGIN }
+    
+    public record Route(String pattern, Access access, RateLimit rateLimit) {
+        
+        public boolean isPublic() {
+            return access == Access.PUBLIC;
+        }
+    }
+    
+    // "/a/b" matches that path only; "/a/**" matches /a and everything below it. The most specific pattern wins
+    static final List<Route> ROUTES = List.of(
+            new Route("/api/auth/login", Access.PUBLIC, RateLimit.LOGIN),
+            new Route("/api/auth/register", Access.PUBLIC, RateLimit.NONE),
+            new Route("/api/auth/refresh", Access.PUBLIC, RateLimit.NONE),
+            new Route("/api/auth/**", Access.AUTHENTICATED, RateLimit.NONE),
+            new Route("/.well-known/jwks.json", Access.PUBLIC, RateLimit.GENERAL),
+            new Route("/api/health/**", Access.PUBLIC, RateLimit.GENERAL),
+            // Flight recordings expose stack traces and can be started at will, so they are admin only
+            new Route("/actuator/jfr/**", Access.ADMIN, RateLimit.NONE),
+            // Request traces name internal methods and time every step of a request, which is the operator's business
+            new Route("/actuator/traces/**", Access.ADMIN, RateLimit.NONE),
+            new Route("/actuator/**", Access.PUBLIC, RateLimit.NONE),
+            new Route("/swagger-ui.html", Access.PUBLIC, RateLimit.NONE),
+            new Route("/swagger-ui/**", Access.PUBLIC, RateLimit.NONE),
+            new Route("/v3/api-docs/**", Access.PUBLIC, RateLimit.NONE),
+            new Route("/swagger-resources/**", Access.PUBLIC, RateLimit.NONE),
+            new Route("/webjars/**", Access.PUBLIC, RateLimit.NONE));
+    
+    static final Route DEFAULT = new Route("/**", Access.AUTHENTICATED, RateLimit.GENERAL);
+    
+    private final Node root = new Node();
+    
+    public RouteTable() {
+        this(ROUTES);
+    }
+    
+    RouteTable(List<Route> routes) {
+        root.below = DEFAULT;
+        for (Route route : routes) add(route);
+    }
+    
+    // Filters before and after share the first classification; other dispatches (errors, forwards) have their own path
+    public Route classify(HttpServletRequest request) {
+        boolean initial = request.getDispatcherType() == DispatcherType.REQUEST;
+        if (initial && request.getAttribute(ROUTE_ATTRIBUTE) instanceof Route route) return route;
+        
+        Route route = classify(path(request));
+        if (initial) request.setAttribute(ROUTE_ATTRIBUTE, route);
+        return route;
+    }
+    
+    public RequestMatcher matcher(Access access) {
+        return request -> classify(request).access() == access;
+    }
+    
+    // Decoded and without ;parameters, as the dispatcher sees it: on the raw URI /actuator/%6Afr/... or
+    // /actuator/jfr;x/... would miss /actuator/jfr/**. Dot segments and encoded slashes never get this far, the
+    // firewall in front of the security filters rejects them. Returns the URI itself when there is nothing to undo
+    private static String path(HttpServletRequest request) {
+        return UrlPathHelper.defaultInstance.getPathWithinApplication(request);
+    }
+    
+    Route classify(String uri) {
+        Node node = root;
+        Route match = root.below;
+        int start = 1;
+        if (uri.isEmpty() || uri.charAt(0) != '/') return match;
+        
+        while (true) {
+            int end = uri.indexOf('/', start);
+            if (end < 0) end = uri.length();
+            
+            node = node.child(uri, start, end - start);
+            if (node == null) return match;
+            if (node.below != null) match = node.below;
+            if (end == uri.length()) return node.exact != null ? node.exact : match;
+            start = end + 1;
+        }
+    }
+    
+    private void add(Route route) {
+        String pattern = route.pattern();
+        boolean below = pattern.endsWith("/**");
+        String path = below ? pattern.substring(0, pattern.length() - 3) : pattern;
+        
+        Node node = root;
+        for (String segment : path.substring(1).split("/")) node = node.childOrCreate(segment);
+        if (below) node.below = route;
+        else node.exact = route;
+    }
+    
+    // Few children per node, so a scan comparing in place beats hashing a substring of the URI
+    private static final class Node {
+        
+        private String[] segments = new String[0];
+        private Node[] children = new Node[0];
+        private Route exact;
+        private Route below;
+        
+        Node child(String uri, int offset, int length) {
+            for (int i = 0; i < segments.length; i++) {
+                String segment = segments[i];
+                if (segment.length() == length && uri.regionMatches(offset, segment, 0, length)) return children[i];
+            }
+            return null;
+        }
+        
+        Node childOrCreate(String segment) {
+            for (int i = 0; i < segments.length; i++) if (segments[i].equals(segment)) return children[i];
+            
+            segments = Arrays.copyOf(segments, segments.length + 1);
+            children = Arrays.copyOf(children, children.length + 1);
+            segments[segments.length - 1] = segment;
+            return children[children.length - 1] = new Node();
+        }
+    }
+}
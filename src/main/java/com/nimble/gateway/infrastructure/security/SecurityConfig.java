@@ -1,6 +1,10 @@
 package com.nimble.gateway.infrastructure.security;
 
+import com.nimble.gateway.infrastructure.persistence.ReadYourWritesFilter;
+import com.nimble.gateway.infrastructure.tracing.TracedPasswordEncoder;
+import jakarta.servlet.DispatcherType;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -33,6 +37,8 @@ public class SecurityConfig {
     private final SecurityHeadersFilter securityHeadersFilter;
     private final RateLimitingFilter rateLimitingFilter;
     private final CustomUserDetailsService customUserDetailsService;
+    private final AdminUsers adminUsers;
+    private final RouteTable routeTable;
     
     @Bean
     public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
@@ -41,16 +47,11 @@ public class SecurityConfig {
             .cors(cors -> cors.configurationSource(corsConfigurationSource()))
             .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
             .authorizeHttpRequests(authz -> authz
-                // Public endpoints
-                .requestMatchers("/api/auth/login").permitAll()
-                .requestMatchers("/api/auth/register").permitAll()
-                .requestMatchers("/api/health/**").permitAll()
-                .requestMatchers("/actuator/**").permitAll()
-                .requestMatchers("/swagger-ui.html").permitAll()
-                .requestMatchers("/swagger-ui/**").permitAll()
-                .requestMatchers("/v3/api-docs/**").permitAll()
-                .requestMatchers("/swagger-resources/**").permitAll()
-                .requestMatchers("/webjars/**").permitAll()
+                // Async dispatches (SSE completion) were already authorized on the initial request
+                .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
+                // Public and admin endpoints come from the same route table the filters classify requests with
+                .requestMatchers(routeTable.matcher(RouteTable.Access.PUBLIC)).permitAll()
+                .requestMatchers(routeTable.matcher(RouteTable.Access.ADMIN)).access(adminUsers)
                 // Protected endpoints
                 .anyRequest().authenticated()
             )
@@ -71,13 +72,15 @@ public class SecurityConfig {
     }
     
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(PasswordHashingExecutor passwordHashingExecutor,
+                                           @Value("${app.security.password-hashing.bcrypt-strength:10}") int strength) {
+        // Hashes below the configured strength are re-encoded on the next successful login
+        return new TracedPasswordEncoder(new BoundedPasswordEncoder(new BCryptPasswordEncoder(strength), passwordHashingExecutor));
     }
     
     @Bean
     public JwtAuthenticationFilter jwtAuthenticationFilter() {
-        return new JwtAuthenticationFilter(jwtTokenProvider, customUserDetailsService);
+        return new JwtAuthenticationFilter(jwtTokenProvider, customUserDetailsService::loadPrincipalByUsername, routeTable);
     }
     
     @Bean
@@ -85,7 +88,8 @@ public class SecurityConfig {
         CorsConfiguration configuration = new CorsConfiguration();
         configuration.setAllowedOriginPatterns(List.of("*"));
         configuration.setAllowedMethods(Arrays.asList("GET", "POST", "PUT", "DELETE", "OPTIONS"));
-        configuration.setAllowedHeaders(Arrays.asList("Authorization", "Cache-Control", "Content-Type"));
+        configuration.setAllowedHeaders(Arrays.asList("Authorization", "Cache-Control", "Content-Type", ReadYourWritesFilter.CONSISTENCY_TOKEN_HEADER));
+        configuration.setExposedHeaders(List.of(ReadYourWritesFilter.CONSISTENCY_TOKEN_HEADER));
         configuration.setAllowCredentials(true);
         configuration.setMaxAge(3600L);
         UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
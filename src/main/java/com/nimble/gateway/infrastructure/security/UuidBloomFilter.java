@@ -0,0 +1,47 @@
+package com.nimble.gateway.infrastructure.security;
+
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Token ids are random UUIDs, so their two halves already are the independent hashes double hashing needs
+class UuidBloomFilter {
+    
+    private final AtomicLongArray words;
+    private final long bits;
+    private final int hashes;
+    
+    UuidBloomFilter(int expectedInsertions, double falsePositiveRate) {
+        long optimalBits = (long) Math.ceil(-Math.max(1, expectedInsertions) * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        this.words = new AtomicLongArray((int) ((optimalBits + 63) / 64));
+        this.bits = words.length() * 64L;
+        this.hashes = Math.max(1, (int) Math.round((double) bits / Math.max(1, expectedInsertions) * Math.log(2)));
+    }
+    
+    void put(UUID id) {
+        long h1 = id.getMostSignificantBits();
+        long h2 = id.getLeastSignificantBits();
+        for (int i = 0; i < hashes; i++) {
+            long bit = Math.floorMod(h1 + i * h2, bits);
+            int word = (int) (bit >>> 6);
+            long mask = 1L << bit;
+            long current;
+            do {
+                current = words.get(word);
+            } while ((current & mask) == 0 && !words.compareAndSet(word, current, current | mask));
+        }
+    }
+    
+    boolean mightContain(UUID id) {
+        long h1 = id.getMostSignificantBits();
+        long h2 = id.getLeastSignificantBits();
+        for (int i = 0; i < hashes; i++) {
+            long bit = Math.floorMod(h1 + i * h2, bits);
+            if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) return false;
+        }
+        return true;
+    }
+    
+    long bitSize() {
+        return bits;
+    }
+}
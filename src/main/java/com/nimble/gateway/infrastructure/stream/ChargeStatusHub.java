@@ -0,0 +1,162 @@
+package com.nimble.gateway.infrastructure.stream;
+
+import com.nimble.gateway.domain.event.ChargeEvent;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+@Slf4j
+@Component
+public class ChargeStatusHub {
+    
+    private static final String EVENT_NAME = "charge-status";
+    
+    private final Map<UUID, Set<Subscription>> subscriptions = new ConcurrentHashMap<>();
+    private final ExecutorService senders = Executors.newVirtualThreadPerTaskExecutor();
+    private final int bufferSize;
+    private final long emitterTimeoutMs;
+    
+    public ChargeStatusHub(
+            @Value("${app.charges.stream.buffer-size:32}") int bufferSize,
+            @Value("${app.charges.stream.timeout-ms:1800000}") long emitterTimeoutMs) {
+        this.bufferSize = bufferSize;
+        this.emitterTimeoutMs = emitterTimeoutMs;
+    }
+    
+    public SseEmitter subscribe(UUID userId) {
+        SseEmitter emitter = new SseEmitter(emitterTimeoutMs);
+        register(userId, emitter);
+        return emitter;
+    }
+    
+    void register(UUID userId, SseEmitter emitter) {
+        Subscription subscription = new Subscription(userId, emitter, new ArrayBlockingQueue<>(bufferSize));
+        subscriptions.computeIfAbsent(userId, id -> ConcurrentHashMap.newKeySet()).add(subscription);
+        
+        emitter.onCompletion(() -> remove(subscription));
+        emitter.onTimeout(() -> remove(subscription));
+        emitter.onError(error -> remove(subscription));
+        log.debug("User {} subscribed to charge status stream", userId);
+    }
+    
+    public void publishAfterCommit(ChargeEvent event) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    publish(event);
+                }
+            });
+        } else {
+            publish(event);
+        }
+    }
+    
+    public void publish(ChargeEvent event) {
+        deliverTo(event.getOriginatorId(), event);
+        if (!event.getRecipientId().equals(event.getOriginatorId())) deliverTo(event.getRecipientId(), event);
+    }
+    
+    public int connectionCount() {
+        return subscriptions.values().stream().mapToInt(Set::size).sum();
+    }
+    
+    @Scheduled(fixedDelayString = "${app.charges.stream.heartbeat-ms:15000}")
+    public void heartbeat() {
+        subscriptions.values().forEach(userSubscriptions -> userSubscriptions.forEach(subscription -> {
+            if (subscription.buffer.isEmpty() && !subscription.draining.get()) {
+                senders.execute(() -> send(subscription, SseEmitter.event().comment("keep-alive")));
+            }
+        }));
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        subscriptions.values().forEach(userSubscriptions -> userSubscriptions.forEach(subscription -> subscription.emitter.complete()));
+        senders.shutdownNow();
+    }
+    
+    private void deliverTo(UUID userId, ChargeEvent event) {
+        Set<Subscription> userSubscriptions = subscriptions.get(userId);
+        if (userSubscriptions == null) return;
+        
+        for (Subscription subscription : userSubscriptions) {
+            if (subscription.buffer.offer(event)) {
+                scheduleDrain(subscription);
+            } else {
+                log.warn("Evicting slow charge status consumer for user {}", subscription.userId);
+                remove(subscription);
+                subscription.emitter.complete();
+            }
+        }
+    }
+    
+    private void scheduleDrain(Subscription subscription) {
+        if (subscription.draining.compareAndSet(false, true)) senders.execute(() -> drain(subscription));
+    }
+    
+    private void drain(Subscription subscription) {
+        do {
+            ChargeEvent event;
+            while ((event = subscription.buffer.poll()) != null) {
+                if (!send(subscription, SseEmitter.event()
+                        .name(EVENT_NAME)
+                        .id(event.getChargeId() + ":" + event.getType())
+                        .data(event, MediaType.APPLICATION_JSON))) {
+                    return;
+                }
+            }
+            subscription.draining.set(false);
+        } while (!subscription.buffer.isEmpty() && subscription.draining.compareAndSet(false, true));
+    }
+    
+    private boolean send(Subscription subscription, SseEmitter.SseEventBuilder event) {
+        try {
+            subscription.emitter.send(event);
+            return true;
+        } catch (IOException | IllegalStateException e) {
+            log.debug("Charge status stream for user {} closed: {}", subscription.userId, e.getMessage());
+            remove(subscription);
+            subscription.emitter.completeWithError(e);
+            return false;
+        }
+    }
+    
+    private void remove(Subscription subscription) {
+        subscriptions.computeIfPresent(subscription.userId, (id, userSubscriptions) -> {
+            userSubscriptions.remove(subscription);
+            return userSubscriptions.isEmpty() ? null : userSubscriptions;
+        });
+    }
+    
+    private static final class Subscription {
+        
+        private final UUID userId;
+        private final SseEmitter emitter;
+        private final BlockingQueue<ChargeEvent> buffer;
+        private final AtomicBoolean draining = new AtomicBoolean();
+        
+        private Subscription(UUID userId, SseEmitter emitter, BlockingQueue<ChargeEvent> buffer) {
+            this.userId = userId;
+            this.emitter = emitter;
+            this.buffer = buffer;
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.nimble.gateway.infrastructure.summary;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.Set;
+
+// Compares recent closed days of user_charge_summaries with the raw charges and rebuilds the days that drifted
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "app.users.summary.check.enabled", havingValue = "true", matchIfMissing = true)
+public class ChargeSummaryConsistencyChecker {
+    
+    private final ChargeSummaryRebuilder chargeSummaryRebuilder;
+    private final Counter driftedDays;
+    private final int days;
+    private final boolean repair;
+    
+    public ChargeSummaryConsistencyChecker(
+            ChargeSummaryRebuilder chargeSummaryRebuilder,
+            MeterRegistry meterRegistry,
+            @Value("${app.users.summary.check.days:35}") int days,
+            @Value("${app.users.summary.check.repair:true}") boolean repair) {
+        this.chargeSummaryRebuilder = chargeSummaryRebuilder;
+        this.driftedDays = Counter.builder("user.summary.drifted.days")
+                .description("Days whose charge summaries did not match the charges tables")
+                .register(meterRegistry);
+        this.days = days;
+        this.repair = repair;
+    }
+    
+    // Today is skipped: it is still taking transitions, which would show up as transient drift
+    @Scheduled(cron = "${app.users.summary.check.cron:0 15 4 * * *}")
+    public Set<LocalDate> check() {
+        LocalDate to = LocalDate.now().minusDays(1);
+        Set<LocalDate> drifted = chargeSummaryRebuilder.findDrift(to.minusDays(days - 1L), to);
+        if (drifted.isEmpty()) return drifted;
+        
+        driftedDays.increment(drifted.size());
+        log.warn("Charge summaries drifted on {}", drifted);
+        if (repair) {
+            drifted.forEach(day -> chargeSummaryRebuilder.rebuild(day, day));
+        }
+        return drifted;
+    }
+}
@@ -0,0 +1,101 @@
+package com.nimble.gateway.infrastructure.summary;
+
+import com.nimble.gateway.domain.entity.Charge;
+import com.nimble.gateway.domain.entity.UserChargeSummary;
+import com.nimble.gateway.domain.event.ChargeEvent;
+import com.nimble.gateway.domain.repository.UserChargeSummaryRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.ByteBuffer;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+// Moves a charge between status buckets of both parties' daily summaries, in the transaction of the transition
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ChargeSummaryRecorder {
+    
+    private static final String INSERT_EMPTY_ROW = "INSERT INTO user_charge_summaries (user_id, role, summary_date, " +
+            "pending_count, pending_amount, paid_count, paid_amount, cancelled_count, cancelled_amount) VALUES (?, ?, ?, 0, 0, 0, 0, 0, 0)";
+    
+    private final UserChargeSummaryRepository userChargeSummaryRepository;
+    private final JdbcTemplate jdbcTemplate;
+    
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void record(Charge charge, ChargeEvent.Type type) {
+        LocalDate day = charge.getCreatedAt().toLocalDate();
+        Charge.ChargeStatus previous = previousStatus(charge, type);
+        
+        apply(delta(charge.getOriginator().getId(), UserChargeSummary.Role.SENT, day, charge, previous));
+        apply(delta(charge.getRecipient().getId(), UserChargeSummary.Role.RECEIVED, day, charge, previous));
+    }
+    
+    // Same as recording each charge, but deltas landing on the same summary row are merged into one update
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordAll(Collection<Charge> charges, ChargeEvent.Type type) {
+        Map<List<Object>, UserChargeSummary> deltas = new LinkedHashMap<>();
+        for (Charge charge : charges) {
+            LocalDate day = charge.getCreatedAt().toLocalDate();
+            Charge.ChargeStatus previous = previousStatus(charge, type);
+            
+            merge(deltas, delta(charge.getOriginator().getId(), UserChargeSummary.Role.SENT, day, charge, previous));
+            merge(deltas, delta(charge.getRecipient().getId(), UserChargeSummary.Role.RECEIVED, day, charge, previous));
+        }
+        deltas.values().forEach(this::apply);
+    }
+    
+    private static void merge(Map<List<Object>, UserChargeSummary> deltas, UserChargeSummary delta) {
+        deltas.merge(List.of(delta.getUserId(), delta.getRole(), delta.getSummaryDate()), delta, UserChargeSummary::add);
+    }
+    
+    // Charges are only paid from PENDING and keep paidAt once cancelled, so the event type tells where they came from
+    private static Charge.ChargeStatus previousStatus(Charge charge, ChargeEvent.Type type) {
+        return switch (type) {
+            case CREATED -> null;
+            case PAID -> Charge.ChargeStatus.PENDING;
+            case CANCELLED -> charge.getPaidAt() != null ? Charge.ChargeStatus.PAID : Charge.ChargeStatus.PENDING;
+        };
+    }
+    
+    private static UserChargeSummary delta(UUID userId, UserChargeSummary.Role role, LocalDate day,
+                                           Charge charge, Charge.ChargeStatus previous) {
+        UserChargeSummary delta = UserChargeSummary.of(userId, role, day).add(charge.getStatus(), 1, charge.getAmount());
+        if (previous != null) delta.add(previous, -1, charge.getAmount().negate());
+        return delta;
+    }
+    
+    private void apply(UserChargeSummary delta) {
+        if (userChargeSummaryRepository.addDelta(delta)) return;
+        
+        // First charge of the day for this party. The insert runs on the transaction's own connection but outside
+        // Hibernate, so a concurrent transition creating the same row fails only this statement, not the transaction
+        try {
+            jdbcTemplate.update(INSERT_EMPTY_ROW, toBytes(delta.getUserId()), delta.getRole().name(), delta.getSummaryDate());
+        } catch (DuplicateKeyException e) {
+            log.debug("Summary row for user {} {} on {} created concurrently", delta.getUserId(), delta.getRole(), delta.getSummaryDate());
+        }
+        
+        if (!userChargeSummaryRepository.addDelta(delta)) {
+            throw new IllegalStateException("Summary row for user " + delta.getUserId() + " on " + delta.getSummaryDate() + " is missing");
+        }
+    }
+    
+    // Same BINARY(16) layout Hibernate writes for UUID ids
+    private static byte[] toBytes(UUID id) {
+        return ByteBuffer.allocate(16)
+                .putLong(id.getMostSignificantBits())
+                .putLong(id.getLeastSignificantBits())
+                .array();
+    }
+}
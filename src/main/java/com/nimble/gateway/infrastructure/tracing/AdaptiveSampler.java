@@ -0,0 +1,48 @@
+package com.nimble.gateway.infrastructure.tracing;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Aims for a fixed number of traces per second whatever the load: each second samples with the probability that
+// would have yielded the target in the previous second, and never records more than the target within a second,
+// so quiet periods trace every request and a burst costs no more than a steady stream
+@Component
+public class AdaptiveSampler {
+    
+    private static final long WINDOW_NANOS = 1_000_000_000L;
+    
+    private final int targetPerSecond;
+    private final AtomicLong windowStart = new AtomicLong(System.nanoTime());
+    private final AtomicInteger seen = new AtomicInteger();
+    private final AtomicInteger sampled = new AtomicInteger();
+    private volatile double probability = 1.0;
+    
+    public AdaptiveSampler(@Value("${app.tracing.sampling.per-second:20}") int targetPerSecond) {
+        this.targetPerSecond = targetPerSecond;
+    }
+    
+    public boolean sample() {
+        if (targetPerSecond <= 0) return false;
+        
+        long now = System.nanoTime();
+        long start = windowStart.get();
+        if (now - start >= WINDOW_NANOS && windowStart.compareAndSet(start, now)) {
+            int requests = seen.getAndSet(0);
+            probability = requests <= targetPerSecond ? 1.0 : (double) targetPerSecond / requests;
+            sampled.set(0);
+        }
+        seen.incrementAndGet();
+        
+        if (sampled.get() >= targetPerSecond) return false;
+        if (probability < 1.0 && ThreadLocalRandom.current().nextDouble() >= probability) return false;
+        return sampled.incrementAndGet() <= targetPerSecond;
+    }
+    
+    public double probability() {
+        return probability;
+    }
+}
@@ -0,0 +1,23 @@
+package com.nimble.gateway.infrastructure.tracing;
+
+// Handle for an open span; closing it records the duration. Untraced requests all share the no-op instance
+public final class Span implements AutoCloseable {
+    
+    static final Span NOOP = new Span(null, -1);
+    
+    private final Trace trace;
+    private final int index;
+    
+    Span(Trace trace, int index) {
+        this.trace = trace;
+        this.index = index;
+    }
+    
+    @Override
+    public void close() {
+        if (trace != null) trace.close(index, System.nanoTime());
+    }
+    
+    public record View(String stage, String name, int depth, long offsetNanos, long durationNanos) {
+    }
+}
@@ -0,0 +1,133 @@
+package com.nimble.gateway.infrastructure.tracing;
+
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+// One sampled request: a flat array of spans, each pointing at its parent by index. The request thread and the
+// thread delivering an authorizer response never record at the same time, but the methods are synchronized anyway
+public final class Trace {
+    
+    public static final String OTHER = "other";
+    
+    @Getter
+    private final String id;
+    @Getter
+    private final String method;
+    @Getter
+    private final long startedAtMillis;
+    private final long startNanos;
+    @Getter
+    private String uri;
+    @Getter
+    private int status;
+    @Getter
+    private long durationNanos = -1;
+    @Getter
+    private int droppedSpans;
+    
+    private String[] stages;
+    private String[] names;
+    private int[] parents;
+    private long[] starts;
+    private long[] durations;
+    private int count;
+    private int current = -1;
+    
+    Trace(String method, int maxSpans) {
+        this.id = Long.toHexString(ThreadLocalRandom.current().nextLong());
+        this.method = method;
+        this.startedAtMillis = System.currentTimeMillis();
+        this.startNanos = System.nanoTime();
+        this.stages = new String[maxSpans];
+        this.names = new String[maxSpans];
+        this.parents = new int[maxSpans];
+        this.starts = new long[maxSpans];
+        this.durations = new long[maxSpans];
+    }
+    
+    // Index of the new span, which becomes the parent of spans opened until it closes; -1 once the trace is full
+    synchronized int open(String stage, String name, long now) {
+        int index = add(stage, name, current, now, -1);
+        if (index >= 0) current = index;
+        return index;
+    }
+    
+    synchronized void close(int index, long now) {
+        if (index < 0 || durations[index] >= 0) return;
+        durations[index] = now - starts[index];
+        if (current == index) current = parents[index];
+    }
+    
+    // A finished span that never becomes a parent, e.g. a remote call completing on another thread
+    synchronized void record(String stage, String name, int parent, long start, long now) {
+        add(stage, name, parent, start, now - start);
+    }
+    
+    synchronized int current() {
+        return current;
+    }
+    
+    synchronized void finish(String uri, int status, long now) {
+        this.uri = uri;
+        this.status = status;
+        this.durationNanos = now - startNanos;
+        for (int i = 0; i < count; i++) {
+            if (durations[i] < 0) durations[i] = now - starts[i];
+        }
+        // Finished traces stay in the store for a while, so they only keep the spans they used
+        stages = Arrays.copyOf(stages, count);
+        names = Arrays.copyOf(names, count);
+        parents = Arrays.copyOf(parents, count);
+        starts = Arrays.copyOf(starts, count);
+        durations = Arrays.copyOf(durations, count);
+    }
+    
+    private int add(String stage, String name, int parent, long start, long duration) {
+        if (count == stages.length) {
+            droppedSpans++;
+            return -1;
+        }
+        int index = count++;
+        stages[index] = stage;
+        names[index] = name;
+        parents[index] = parent;
+        starts[index] = start;
+        durations[index] = duration;
+        return index;
+    }
+    
+    public synchronized List<Span.View> spans() {
+        List<Span.View> spans = new ArrayList<>(count);
+        int[] depths = new int[count];
+        for (int i = 0; i < count; i++) {
+            depths[i] = parents[i] < 0 ? 0 : depths[parents[i]] + 1;
+            spans.add(new Span.View(stages[i], names[i], depths[i], starts[i] - startNanos, durations[i]));
+        }
+        return spans;
+    }
+    
+    // Exclusive time per stage: each span minus its children, and the request minus its top-level spans as "other"
+    public synchronized Map<String, Long> stageNanos() {
+        long[] self = Arrays.copyOf(durations, count);
+        long other = durationNanos;
+        for (int i = 0; i < count; i++) {
+            if (parents[i] < 0) {
+                other -= durations[i];
+            } else {
+                self[parents[i]] -= durations[i];
+            }
+        }
+        Map<String, Long> stageNanos = new LinkedHashMap<>();
+        for (int i = 0; i < count; i++) {
+            stageNanos.merge(stages[i], Math.max(self[i], 0), Long::sum);
+        }
+        stageNanos.put(OTHER, Math.max(other, 0));
+        return stageNanos;
+    }
+}
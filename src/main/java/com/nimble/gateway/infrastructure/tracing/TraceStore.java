@@ -0,0 +1,38 @@
+package com.nimble.gateway.infrastructure.tracing;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+// The most recent finished traces in a fixed ring; adding one is a slot write, and ranking happens only when read
+@Component
+public class TraceStore {
+    
+    private final AtomicReferenceArray<Trace> traces;
+    private final AtomicLong next = new AtomicLong();
+    
+    public TraceStore(@Value("${app.tracing.buffer-size:1024}") int bufferSize) {
+        this.traces = new AtomicReferenceArray<>(bufferSize);
+    }
+    
+    void add(Trace trace) {
+        traces.set((int) (next.getAndIncrement() % traces.length()), trace);
+    }
+    
+    public List<Trace> slowest(int limit, String uri, long sinceMillis) {
+        List<Trace> matching = new ArrayList<>();
+        for (int i = 0; i < traces.length(); i++) {
+            Trace trace = traces.get(i);
+            if (trace == null || trace.getStartedAtMillis() < sinceMillis) continue;
+            if (uri != null && !uri.equals(trace.getUri())) continue;
+            matching.add(trace);
+        }
+        matching.sort(Comparator.comparingLong(Trace::getDurationNanos).reversed());
+        return matching.size() > limit ? matching.subList(0, limit) : matching;
+    }
+}
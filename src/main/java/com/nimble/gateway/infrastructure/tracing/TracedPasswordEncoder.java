@@ -0,0 +1,30 @@
+package com.nimble.gateway.infrastructure.tracing;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+// Hashing is deliberately slow, so logins and registrations get it as its own stage
+@RequiredArgsConstructor
+public class TracedPasswordEncoder implements PasswordEncoder {
+    
+    private final PasswordEncoder delegate;
+    
+    @Override
+    public String encode(CharSequence rawPassword) {
+        try (Span span = Tracing.start(Tracing.BCRYPT, "PasswordEncoder.encode")) {
+            return delegate.encode(rawPassword);
+        }
+    }
+    
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        try (Span span = Tracing.start(Tracing.BCRYPT, "PasswordEncoder.matches")) {
+            return delegate.matches(rawPassword, encodedPassword);
+        }
+    }
+    
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+}
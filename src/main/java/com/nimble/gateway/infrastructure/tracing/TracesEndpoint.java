@@ -0,0 +1,60 @@
+package com.nimble.gateway.infrastructure.tracing;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// GET /actuator/traces?limit=&uri=&minutes= lists the slowest sampled requests of the last minutes with the
+// exclusive time per stage and the span tree. Admin only, see RouteTable
+@Component
+@Endpoint(id = "traces")
+@RequiredArgsConstructor
+public class TracesEndpoint {
+    
+    private static final int DEFAULT_LIMIT = 20;
+    private static final int DEFAULT_MINUTES = 15;
+    
+    private final TraceStore traceStore;
+    private final AdaptiveSampler sampler;
+    
+    @ReadOperation
+    public Traces slowest(@Nullable Integer limit, @Nullable String uri, @Nullable Integer minutes) {
+        long since = System.currentTimeMillis() - Duration.ofMinutes(minutes != null ? minutes : DEFAULT_MINUTES).toMillis();
+        List<TraceView> traces = traceStore.slowest(limit != null ? limit : DEFAULT_LIMIT, uri, since).stream()
+                .map(TracesEndpoint::view)
+                .toList();
+        return new Traces(sampler.probability(), traces);
+    }
+    
+    private static TraceView view(Trace trace) {
+        Map<String, Double> stages = new LinkedHashMap<>();
+        trace.stageNanos().forEach((stage, nanos) -> stages.put(stage, millis(nanos)));
+        List<SpanView> spans = trace.spans().stream()
+                .map(span -> new SpanView(span.stage(), span.name(), span.depth(), millis(span.offsetNanos()), millis(span.durationNanos())))
+                .toList();
+        return new TraceView(trace.getId(), trace.getMethod(), trace.getUri(), trace.getStatus(),
+                Instant.ofEpochMilli(trace.getStartedAtMillis()), millis(trace.getDurationNanos()), stages, spans, trace.getDroppedSpans());
+    }
+    
+    private static double millis(long nanos) {
+        return Math.round(nanos / 1_000.0) / 1_000.0;
+    }
+    
+    public record Traces(double samplingProbability, List<TraceView> traces) {
+    }
+    
+    public record TraceView(String id, String method, String uri, int status, Instant startedAt, double durationMs,
+                            Map<String, Double> stagesMs, List<SpanView> spans, int droppedSpans) {
+    }
+    
+    public record SpanView(String stage, String name, int depth, double offsetMs, double durationMs) {
+    }
+}
@@ -0,0 +1,164 @@
+package com.nimble.gateway.infrastructure.tracing;
+
+import org.reactivestreams.Subscription;
+import reactor.core.CoreSubscriber;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Operators;
+import reactor.util.context.Context;
+
+// Entry points for recording spans into the current thread's trace. Everything is a no-op outside a sampled
+// request, so unsampled requests pay one ThreadLocal read per instrumented call
+public final class Tracing {
+    
+    public static final String FILTER = "filter";
+    public static final String USE_CASE = "usecase";
+    public static final String REPOSITORY = "repository";
+    public static final String AUTHORIZER = "authorizer";
+    public static final String BCRYPT = "bcrypt";
+    
+    private static final ThreadLocal<Trace> CURRENT = new ThreadLocal<>();
+    
+    private Tracing() {
+    }
+    
+    static Trace begin(String method, int maxSpans) {
+        Trace trace = new Trace(method, maxSpans);
+        CURRENT.set(trace);
+        return trace;
+    }
+    
+    static void end() {
+        CURRENT.remove();
+    }
+    
+    public static Trace current() {
+        return CURRENT.get();
+    }
+    
+    public static Span start(String stage, String name) {
+        Trace trace = CURRENT.get();
+        if (trace == null) return Span.NOOP;
+        return new Span(trace, trace.open(stage, name, System.nanoTime()));
+    }
+    
+    // The span runs from subscription to the terminal signal, which is when the work of a use case Mono happens
+    public static <T> Mono<T> span(String stage, String name, Mono<T> mono) {
+        Trace trace = CURRENT.get();
+        if (trace == null) return mono;
+        
+        return Mono.defer(() -> {
+            int index = trace.open(stage, name, System.nanoTime());
+            return mono.doFinally(signal -> trace.close(index, System.nanoTime()));
+        });
+    }
+    
+    // For calls answered on another thread: records the call as a leaf span and makes the trace current on the
+    // thread that delivers the answer, so whatever the chain does next (saving the payment) stays in the trace
+    public static <T> Mono<T> remote(String stage, String name, Mono<T> mono) {
+        Trace trace = CURRENT.get();
+        if (trace == null) return mono;
+        
+        return Mono.defer(() -> {
+            int parent = trace.current();
+            long start = System.nanoTime();
+            return mono.transform(Operators.<T, T>lift((scannable, actual) -> new Restoring<>(trace, parent, stage, name, start, actual)));
+        });
+    }
+    
+    // Makes the trace current while delivering each signal downstream, and ends the remote span on the first signal
+    // or on cancellation
+    private static final class Restoring<T> implements CoreSubscriber<T>, Subscription {
+        
+        private final Trace trace;
+        private final int parent;
+        private final String stage;
+        private final String name;
+        private final long start;
+        private final CoreSubscriber<? super T> actual;
+        private Subscription subscription;
+        private boolean recorded;
+        
+        Restoring(Trace trace, int parent, String stage, String name, long start, CoreSubscriber<? super T> actual) {
+            this.trace = trace;
+            this.parent = parent;
+            this.stage = stage;
+            this.name = name;
+            this.start = start;
+            this.actual = actual;
+        }
+        
+        @Override
+        public void onSubscribe(Subscription subscription) {
+            this.subscription = subscription;
+            // Passed as this rather than the upstream subscription so downstream cannot fuse past onNext
+            actual.onSubscribe(this);
+        }
+        
+        @Override
+        public void onNext(T value) {
+            Trace previous = enter();
+            try {
+                actual.onNext(value);
+            } finally {
+                exit(previous);
+            }
+        }
+        
+        @Override
+        public void onError(Throwable error) {
+            Trace previous = enter();
+            try {
+                actual.onError(error);
+            } finally {
+                exit(previous);
+            }
+        }
+        
+        @Override
+        public void onComplete() {
+            Trace previous = enter();
+            try {
+                actual.onComplete();
+            } finally {
+                exit(previous);
+            }
+        }
+        
+        @Override
+        public void request(long n) {
+            subscription.request(n);
+        }
+        
+        @Override
+        public void cancel() {
+            recordOnce();
+            subscription.cancel();
+        }
+        
+        @Override
+        public Context currentContext() {
+            return actual.currentContext();
+        }
+        
+        private void recordOnce() {
+            if (recorded) return;
+            recorded = true;
+            trace.record(stage, name, parent, start, System.nanoTime());
+        }
+        
+        private Trace enter() {
+            recordOnce();
+            Trace previous = CURRENT.get();
+            CURRENT.set(trace);
+            return previous;
+        }
+        
+        private void exit(Trace previous) {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.nimble.gateway.infrastructure.tracing;
+
+import com.nimble.gateway.application.usecase.PaymentUseCase;
+import com.nimble.gateway.domain.repository.UserRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.aop.framework.Advised;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ClassUtils;
+import reactor.core.publisher.Mono;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Puts a span around every use case and repository method. Most of these beans are already proxies (transactions,
+// Spring Data), so the interceptor joins the existing advice chain, outermost so commit time counts; the rest get
+// a plain ProxyFactory proxy. No AspectJ involved, which keeps the Resilience4j annotations as they are
+@Slf4j
+@Component
+public class TracingBeanPostProcessor implements BeanPostProcessor {
+    
+    private static final String USE_CASE_PACKAGE = PaymentUseCase.class.getPackageName();
+    private static final String REPOSITORY_PACKAGE = UserRepository.class.getPackageName();
+    
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        Class<?> targetClass = AopUtils.getTargetClass(bean);
+        if (USE_CASE_PACKAGE.equals(targetClass.getPackageName())) {
+            return trace(bean, beanName, new TracingInterceptor(Tracing.USE_CASE, targetClass.getSimpleName()));
+        }
+        for (Class<?> type : ClassUtils.getAllInterfacesForClassAsSet(bean.getClass())) {
+            Class<?> repository = repositoryInterface(type);
+            if (repository != null) {
+                return trace(bean, beanName, new TracingInterceptor(Tracing.REPOSITORY, repository.getSimpleName()));
+            }
+        }
+        return bean;
+    }
+    
+    // Spring Data proxies implement the infrastructure interface, which extends the domain repository
+    private static Class<?> repositoryInterface(Class<?> type) {
+        if (REPOSITORY_PACKAGE.equals(type.getPackageName())) return type;
+        for (Class<?> parent : type.getInterfaces()) {
+            Class<?> repository = repositoryInterface(parent);
+            if (repository != null) return repository;
+        }
+        return null;
+    }
+    
+    private Object trace(Object bean, String beanName, TracingInterceptor interceptor) {
+        if (bean instanceof Advised advised && !advised.isFrozen()) {
+            advised.addAdvice(0, interceptor);
+            return bean;
+        }
+        if (bean instanceof Advised || Modifier.isFinal(bean.getClass().getModifiers())) {
+            log.debug("Bean {} cannot be traced", beanName);
+            return bean;
+        }
+        ProxyFactory proxyFactory = new ProxyFactory(bean);
+        proxyFactory.setProxyTargetClass(true);
+        proxyFactory.addAdvice(interceptor);
+        return proxyFactory.getProxy(bean.getClass().getClassLoader());
+    }
+    
+    private static final class TracingInterceptor implements MethodInterceptor {
+        
+        private final String stage;
+        private final String component;
+        private final Map<Method, String> names = new ConcurrentHashMap<>();
+        
+        TracingInterceptor(String stage, String component) {
+            this.stage = stage;
+            this.component = component;
+        }
+        
+        @Override
+        public Object invoke(MethodInvocation invocation) throws Throwable {
+            if (Tracing.current() == null) return invocation.proceed();
+            
+            Method method = invocation.getMethod();
+            String name = names.computeIfAbsent(method, m -> component + "." + m.getName());
+            if (Mono.class.isAssignableFrom(method.getReturnType())) {
+                return Tracing.span(stage, name, (Mono<?>) invocation.proceed());
+            }
+            try (Span span = Tracing.start(stage, name)) {
+                return invocation.proceed();
+            }
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.nimble.gateway.infrastructure.tracing;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+
+// Opens a trace for sampled requests ahead of every other filter, so the security filters' time is inside it
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 5)
+public class TracingFilter extends OncePerRequestFilter {
+    
+    private static final String UNMATCHED = "UNMATCHED";
+    
+    private final AdaptiveSampler sampler;
+    private final TraceStore traceStore;
+    private final int maxSpans;
+    
+    public TracingFilter(AdaptiveSampler sampler, TraceStore traceStore, @Value("${app.tracing.max-spans:256}") int maxSpans) {
+        this.sampler = sampler;
+        this.traceStore = traceStore;
+        this.maxSpans = maxSpans;
+    }
+    
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        if (!sampler.sample()) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        
+        Trace trace = Tracing.begin(request.getMethod(), maxSpans);
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            Tracing.end();
+            Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            trace.finish(pattern instanceof String uri ? uri : UNMATCHED, response.getStatus(), System.nanoTime());
+            traceStore.add(trace);
+        }
+    }
+    
+    // Reading the traces should not push the traces being looked for out of the buffer
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return request.getRequestURI().startsWith("/actuator/");
+    }
+}
@@ -3,6 +3,7 @@ package com.nimble.gateway.presentation.controller;
 import com.nimble.gateway.application.dto.AuthResponseDTO;
 import com.nimble.gateway.application.dto.CreateUserDTO;
 import com.nimble.gateway.application.dto.LoginDTO;
+import com.nimble.gateway.application.dto.RefreshTokenDTO;
 import com.nimble.gateway.application.dto.UserDTO;
 import com.nimble.gateway.application.usecase.UserUseCase;
 import io.swagger.v3.oas.annotations.Operation;
@@ -60,6 +61,22 @@ public class AuthController {
         return ResponseEntity.ok(authResponse);
     }
     
+    @PostMapping("/refresh")
+    @Operation(summary = "Refresh tokens", description = "Exchange a refresh token for a new access token and a new refresh token; each refresh token works once")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Tokens rotated",
+                    content = @Content(schema = @Schema(implementation = AuthResponseDTO.class))),
+            @ApiResponse(responseCode = "401", description = "Refresh token invalid, expired, revoked or already used"),
+            @ApiResponse(responseCode = "400", description = "Invalid input data")
+    })
+    public ResponseEntity<AuthResponseDTO> refresh(@Valid @RequestBody RefreshTokenDTO refreshTokenDTO) {
+        log.debug("Refreshing tokens");
+        
+        AuthResponseDTO authResponse = userUseCase.refresh(refreshTokenDTO);
+        
+        return ResponseEntity.ok(authResponse);
+    }
+    
     @GetMapping("/me")
     @Operation(summary = "Get current user", description = "Get details of the authenticated user")
     @ApiResponses(value = {
@@ -0,0 +1,72 @@
+package com.nimble.gateway.presentation.controller;
+
+import org.reactivestreams.Subscription;
+import reactor.core.CoreSubscriber;
+import reactor.core.Exceptions;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.CountDownLatch;
+
+// Waits for a use case's Mono like block() does, but rethrows its error as is: block() attaches a freshly created,
+// stack-filled "#block terminated with an error" to every error, which undoes stackless domain exceptions
+final class Await {
+    
+    private Await() {
+    }
+    
+    static <T> T result(Mono<T> mono) {
+        Outcome<T> outcome = new Outcome<>();
+        mono.subscribe(outcome);
+        return outcome.get();
+    }
+    
+    // The latch orders the fields written by whichever thread completes the Mono before the caller reads them
+    private static final class Outcome<T> extends CountDownLatch implements CoreSubscriber<T> {
+        
+        private Subscription subscription;
+        private T value;
+        private Throwable error;
+        
+        Outcome() {
+            super(1);
+        }
+        
+        @Override
+        public void onSubscribe(Subscription subscription) {
+            this.subscription = subscription;
+            subscription.request(Long.MAX_VALUE);
+        }
+        
+        @Override
+        public void onNext(T value) {
+            this.value = value;
+        }
+        
+        @Override
+        public void onError(Throwable error) {
+            this.error = error;
+            countDown();
+        }
+        
+        @Override
+        public void onComplete() {
+            countDown();
+        }
+        
+        T get() {
+            if (getCount() != 0) {
+                try {
+                    await();
+                } catch (InterruptedException e) {
+                    subscription.cancel();
+                    Thread.currentThread().interrupt();
+                    throw Exceptions.propagate(e);
+                }
+            }
+            if (error instanceof RuntimeException runtimeException) throw runtimeException;
+            if (error instanceof Error fatal) throw fatal;
+            if (error != null) throw Exceptions.propagate(error);
+            return value;
+        }
+    }
+}
@@ -3,6 +3,8 @@ package com.nimble.gateway.presentation.controller;
 import com.nimble.gateway.application.dto.ChargeDTO;
 import com.nimble.gateway.application.dto.CreateChargeDTO;
 import com.nimble.gateway.application.usecase.ChargeUseCase;
+import com.nimble.gateway.domain.entity.User;
+import com.nimble.gateway.infrastructure.stream.ChargeStatusHub;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
@@ -14,10 +16,15 @@ import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.UUID;
 
@@ -30,6 +37,7 @@ import java.util.UUID;
 public class ChargeController {
     
     private final ChargeUseCase chargeUseCase;
+    private final ChargeStatusHub chargeStatusHub;
     
     @PostMapping
     @Operation(summary = "Create charge", description = "Create a new charge for a recipient")
@@ -54,11 +62,15 @@ public class ChargeController {
     @GetMapping("/sent")
     public ResponseEntity<List<ChargeDTO>> getSentCharges(
             @RequestParam UUID userId,
-            @RequestParam(required = false) String status) {
+            @RequestParam(required = false) String status,
+            @Parameter(description = "Created at or after (ISO date-time)")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @Parameter(description = "Created before (ISO date-time)")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
         
-        log.info("Getting sent charges for user {} with status {}", userId, status);
+        log.info("Getting sent charges for user {} with status {} created between {} and {}", userId, status, from, to);
         
-        List<ChargeDTO> charges = chargeUseCase.getChargesByOriginator(userId, status);
+        List<ChargeDTO> charges = chargeUseCase.getChargesByOriginator(userId, status, from, to);
         
         return ResponseEntity.ok(charges);
     }
@@ -66,15 +78,28 @@ public class ChargeController {
     @GetMapping("/received")
     public ResponseEntity<List<ChargeDTO>> getReceivedCharges(
             @RequestParam UUID userId,
-            @RequestParam(required = false) String status) {
+            @RequestParam(required = false) String status,
+            @Parameter(description = "Created at or after (ISO date-time)")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @Parameter(description = "Created before (ISO date-time)")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
         
-        log.info("Getting received charges for user {} with status {}", userId, status);
+        log.info("Getting received charges for user {} with status {} created between {} and {}", userId, status, from, to);
         
-        List<ChargeDTO> charges = chargeUseCase.getChargesByRecipient(userId, status);
+        List<ChargeDTO> charges = chargeUseCase.getChargesByRecipient(userId, status, from, to);
         
         return ResponseEntity.ok(charges);
     }
     
+    @GetMapping(path = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "Stream charge status updates",
+            description = "Server-Sent Events stream of status transitions for charges where the caller is originator or recipient")
+    public SseEmitter streamChargeStatus(@AuthenticationPrincipal User user) {
+        log.info("Opening charge status stream for user {}", user.getId());
+        
+        return chargeStatusHub.subscribe(user.getId());
+    }
+    
     @GetMapping("/{chargeId}")
     public ResponseEntity<ChargeDTO> getChargeById(
             @PathVariable UUID chargeId,
@@ -1,6 +1,7 @@
 package com.nimble.gateway.presentation.controller;
 
 import com.nimble.gateway.infrastructure.health.AuthorizerHealthIndicator;
+import com.nimble.gateway.infrastructure.health.DatabasePoolMonitor;
 import io.github.resilience4j.circuitbreaker.CircuitBreaker;
 import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
 import io.swagger.v3.oas.annotations.Operation;
@@ -24,6 +25,7 @@ public class HealthController {
     
     private final AuthorizerHealthIndicator authorizerHealthIndicator;
     private final CircuitBreakerRegistry circuitBreakerRegistry;
+    private final DatabasePoolMonitor databasePoolMonitor;
     
     @GetMapping("/authorizer")
     @Operation(summary = "Check authorizer service health")
@@ -90,4 +92,14 @@ public class HealthController {
             return ResponseEntity.status(500).body(response);
         }
     }
+    
+    @GetMapping("/db-pool")
+    @Operation(summary = "Get database connection pool status")
+    public ResponseEntity<Map<String, Object>> getDatabasePoolStatus() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("pools", databasePoolMonitor.snapshot());
+        response.put("timestamp", System.currentTimeMillis());
+        
+        return ResponseEntity.ok(response);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,29 @@
+package com.nimble.gateway.presentation.controller;
+
+import com.nimble.gateway.infrastructure.security.JwtKeyRing;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequiredArgsConstructor
+@Tag(name = "Authentication", description = "User authentication and registration")
+public class JwksController {
+    
+    private final JwtKeyRing jwtKeyRing;
+    
+    @GetMapping(value = "/.well-known/jwks.json", produces = "application/jwk-set+json")
+    @Operation(summary = "JSON Web Key Set", description = "Public keys other services verify this gateway's tokens with, selected by the kid header")
+    public ResponseEntity<Map<String, List<Map<String, ?>>>> jwks() {
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.maxAge(jwtKeyRing.publishedKeysMaxAge()).cachePublic())
+                .body(Map.of("keys", jwtKeyRing.publishedKeys()));
+    }
+}
@@ -1,6 +1,8 @@
 package com.nimble.gateway.presentation.controller;
 
+import com.nimble.gateway.application.dto.BatchPaymentDTO;
 import com.nimble.gateway.application.dto.DepositDTO;
+import com.nimble.gateway.application.dto.PayBatchDTO;
 import com.nimble.gateway.application.dto.PayChargeDTO;
 import com.nimble.gateway.application.dto.PaymentDTO;
 import com.nimble.gateway.application.usecase.PaymentUseCase;
@@ -32,11 +34,25 @@ public class PaymentController {
         
         log.info("Processing payment for charge {} by user {}", payChargeDTO.getChargeId(), payerId);
         
-        PaymentDTO paymentDTO = paymentUseCase.payCharge(payChargeDTO, payerId).block();
+        PaymentDTO paymentDTO = Await.result(paymentUseCase.payCharge(payChargeDTO, payerId));
         
         return ResponseEntity.status(HttpStatus.CREATED).body(paymentDTO);
     }
     
+    // 201 when at least one charge was paid, 422 with the per-charge results otherwise
+    @PostMapping("/pay-batch")
+    public ResponseEntity<BatchPaymentDTO> payBatch(
+            @Valid @RequestBody PayBatchDTO payBatchDTO,
+            @RequestParam UUID payerId) {
+        
+        log.info("Processing batch payment of {} charges by user {}", payBatchDTO.getChargeIds().size(), payerId);
+        
+        BatchPaymentDTO batchPaymentDTO = Await.result(paymentUseCase.payBatch(payBatchDTO, payerId));
+        
+        HttpStatus status = batchPaymentDTO.getPaidCount() > 0 ? HttpStatus.CREATED : HttpStatus.UNPROCESSABLE_ENTITY;
+        return ResponseEntity.status(status).body(batchPaymentDTO);
+    }
+    
     @PostMapping("/deposit")
     public ResponseEntity<PaymentDTO> deposit(
             @Valid @RequestBody DepositDTO depositDTO,
@@ -44,7 +60,7 @@ public class PaymentController {
         
         log.info("Processing deposit of {} for user {}", depositDTO.getAmount(), userId);
         
-        PaymentDTO paymentDTO = paymentUseCase.deposit(depositDTO, userId).block();
+        PaymentDTO paymentDTO = Await.result(paymentUseCase.deposit(depositDTO, userId));
         
         return ResponseEntity.status(HttpStatus.CREATED).body(paymentDTO);
     }
@@ -56,7 +72,7 @@ public class PaymentController {
         
         log.info("Cancelling charge {} by user {}", chargeId, userId);
         
-        paymentUseCase.cancelCharge(chargeId, userId).block();
+        Await.result(paymentUseCase.cancelCharge(chargeId, userId));
         
         return ResponseEntity.ok().build();
     }
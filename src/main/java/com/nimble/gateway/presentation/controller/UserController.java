@@ -0,0 +1,52 @@
+package com.nimble.gateway.presentation.controller;
+
+import com.nimble.gateway.application.dto.UserSummaryDTO;
+import com.nimble.gateway.application.usecase.UserUseCase;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.util.UUID;
+
+@Slf4j
+@RestController
+@RequestMapping("/api/users")
+@RequiredArgsConstructor
+@Tag(name = "Users", description = "User account information")
+@SecurityRequirement(name = "bearer-key")
+public class UserController {
+    
+    private final UserUseCase userUseCase;
+    
+    @GetMapping("/{id}/summary")
+    @Operation(summary = "Charge summary", description = "Counts and sums of sent and received charges per status, by charge creation date")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Summary retrieved successfully",
+                    content = @Content(schema = @Schema(implementation = UserSummaryDTO.class))),
+            @ApiResponse(responseCode = "400", description = "Invalid date range"),
+            @ApiResponse(responseCode = "404", description = "User not found"),
+            @ApiResponse(responseCode = "401", description = "Unauthorized")
+    })
+    public ResponseEntity<UserSummaryDTO> getSummary(
+            @PathVariable UUID id,
+            @Parameter(description = "First day, inclusive (ISO date); defaults to the start of the current month")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @Parameter(description = "Last day, inclusive (ISO date); defaults to today")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        
+        log.info("Getting charge summary for user {} between {} and {}", id, from, to);
+        
+        return ResponseEntity.ok(userUseCase.getUserSummary(id, from, to));
+    }
+}
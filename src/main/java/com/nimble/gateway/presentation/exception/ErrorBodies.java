@@ -0,0 +1,90 @@
+package com.nimble.gateway.presentation.exception;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// ErrorResponse bodies serialized once per distinct status, error and message. Only the timestamp changes between
+// two rejections of the same kind, and it is rendered once per second rather than per request
+@Component
+public class ErrorBodies {
+    
+    // Messages carrying ids or CPFs are one-off: Caffeine's frequency-based admission keeps the repeated ones and
+    // evicts those, so the cache neither grows for the life of the process nor fills up with bodies never asked again
+    private static final int MAX_CACHED_BODIES = 512;
+    
+    private final ObjectMapper objectMapper;
+    private final Cache<List<Object>, byte[]> cachedTails = Caffeine.newBuilder()
+            .maximumSize(MAX_CACHED_BODIES)
+            .executor(Runnable::run)
+            .build();
+    private volatile Timestamp timestamp = new Timestamp(LocalDateTime.MIN, new byte[0]);
+    
+    public ErrorBodies(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+    
+    public ResponseEntity<byte[]> of(HttpStatus status, String error, String message, String path) {
+        List<Object> key = List.of(status.value(), error, String.valueOf(message), path);
+        byte[] tail = cachedTails.get(key, ignored -> tail(status, error, message, path));
+        
+        byte[] head = currentTimestamp();
+        byte[] body = new byte[head.length + tail.length];
+        System.arraycopy(head, 0, body, 0, head.length);
+        System.arraycopy(tail, 0, body, head.length, tail.length);
+        return ResponseEntity.status(status).contentType(MediaType.APPLICATION_JSON).body(body);
+    }
+    
+    long cachedBodies() {
+        cachedTails.cleanUp();
+        return cachedTails.estimatedSize();
+    }
+    
+    // Same field order as ErrorResponse: the timestamp head is spliced in front of this, so the opening brace is dropped
+    private byte[] tail(HttpStatus status, String error, String message, String path) {
+        Map<String, Object> fields = new LinkedHashMap<>();
+        fields.put("status", status.value());
+        fields.put("error", error);
+        fields.put("message", message);
+        fields.put("path", path);
+        byte[] json = write(fields);
+        byte[] tail = new byte[json.length];
+        tail[0] = ',';
+        System.arraycopy(json, 1, tail, 1, json.length - 1);
+        return tail;
+    }
+    
+    private byte[] currentTimestamp() {
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+        Timestamp current = timestamp;
+        if (!current.second().equals(now)) {
+            current = new Timestamp(now, ("{\"timestamp\":" + new String(write(now), StandardCharsets.UTF_8)).getBytes(StandardCharsets.UTF_8));
+            timestamp = current;
+        }
+        return current.json();
+    }
+    
+    private byte[] write(Object value) {
+        try {
+            return objectMapper.writeValueAsBytes(value);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+    
+    private record Timestamp(LocalDateTime second, byte[] json) {
+    }
+}
@@ -0,0 +1,57 @@
+package com.nimble.gateway.presentation.exception;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Client errors are logged at DEBUG; at WARN, each kind is reported at most once per window with how many were skipped,
+// so a flood of bad requests costs a counter increment instead of a log line each
+@Slf4j
+@Component
+public class ErrorLogThrottle {
+    
+    private final long windowNanos;
+    private final Map<String, Window> windows = new ConcurrentHashMap<>();
+    
+    public ErrorLogThrottle(@Value("${app.errors.log.window-ms:10000}") long windowMs) {
+        this.windowNanos = windowMs * 1_000_000;
+    }
+    
+    public void log(String kind, String message) {
+        if (log.isDebugEnabled()) log.debug("{}: {}", kind, message);
+        if (!log.isWarnEnabled()) return;
+        
+        Window window = windows.computeIfAbsent(kind, k -> new Window());
+        long suppressed = window.tryOpen(System.nanoTime(), windowNanos);
+        if (suppressed < 0) return;
+        if (suppressed == 0) {
+            log.warn("{}: {}", kind, message);
+        } else {
+            log.warn("{}: {} ({} more in the last window)", kind, message, suppressed);
+        }
+    }
+    
+    private static final class Window {
+        
+        private final AtomicLong openedAt = new AtomicLong(Long.MIN_VALUE);
+        private final AtomicLong skipped = new AtomicLong();
+        
+        // Number of events skipped since the previous window when this call opens a new one, -1 otherwise
+        long tryOpen(long now, long windowNanos) {
+            long opened = openedAt.get();
+            if (opened != Long.MIN_VALUE && now - opened < windowNanos) {
+                skipped.incrementAndGet();
+                return -1;
+            }
+            if (!openedAt.compareAndSet(opened, now)) {
+                skipped.incrementAndGet();
+                return -1;
+            }
+            return skipped.getAndSet(0);
+        }
+    }
+}
@@ -1,10 +1,16 @@
 package com.nimble.gateway.presentation.exception;
 
+import com.nimble.gateway.domain.exception.BusinessRuleException;
 import com.nimble.gateway.domain.exception.InsufficientBalanceException;
 import com.nimble.gateway.domain.exception.UserNotFoundException;
 import com.nimble.gateway.domain.exception.ConflictException;
 import com.nimble.gateway.domain.exception.PaymentAuthorizationException;
+import com.nimble.gateway.infrastructure.persistence.GroupCommitBusyException;
+import com.nimble.gateway.infrastructure.security.PasswordHashingBusyException;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.AccessDeniedException;
@@ -23,41 +29,36 @@ import java.util.Map;
 
 @Slf4j
 @RestControllerAdvice
+@RequiredArgsConstructor
 public class GlobalExceptionHandler {
     
+    private final ErrorBodies errorBodies;
+    private final ErrorLogThrottle errorLogThrottle;
+    
     @ExceptionHandler(UserNotFoundException.class)
-    public ResponseEntity<ErrorResponse> handleUserNotFoundException(UserNotFoundException ex) {
-        log.error("User not found: {}", ex.getMessage());
-        
-        ErrorResponse error = ErrorResponse.builder()
-                .timestamp(LocalDateTime.now())
-                .status(HttpStatus.NOT_FOUND.value())
-                .error("User Not Found")
-                .message(ex.getMessage())
-                .path(getCurrentPath())
-                .build();
+    public ResponseEntity<byte[]> handleUserNotFoundException(UserNotFoundException ex) {
+        errorLogThrottle.log("User not found", ex.getMessage());
         
-        return ResponseEntity.status(HttpStatus.NOT_FOUND).body(error);
+        return errorBodies.of(HttpStatus.NOT_FOUND, "User Not Found", ex.getMessage(), getCurrentPath());
     }
     
     @ExceptionHandler(InsufficientBalanceException.class)
-    public ResponseEntity<ErrorResponse> handleInsufficientBalanceException(InsufficientBalanceException ex) {
-        log.error("Insufficient balance: {}", ex.getMessage());
+    public ResponseEntity<byte[]> handleInsufficientBalanceException(InsufficientBalanceException ex) {
+        errorLogThrottle.log("Insufficient balance", ex.getMessage());
         
-        ErrorResponse error = ErrorResponse.builder()
-                .timestamp(LocalDateTime.now())
-                .status(HttpStatus.UNPROCESSABLE_ENTITY.value())
-                .error("Unprocessable Entity")
-                .message(ex.getMessage())
-                .path(getCurrentPath())
-                .build();
+        return errorBodies.of(HttpStatus.UNPROCESSABLE_ENTITY, "Unprocessable Entity", ex.getMessage(), getCurrentPath());
+    }
+    
+    @ExceptionHandler(BusinessRuleException.class)
+    public ResponseEntity<byte[]> handleBusinessRuleException(BusinessRuleException ex) {
+        errorLogThrottle.log("Business rule violated", ex.getMessage());
         
-        return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY).body(error);
+        return errorBodies.of(HttpStatus.BAD_REQUEST, "Bad Request", ex.getMessage(), getCurrentPath());
     }
     
     @ExceptionHandler(BadCredentialsException.class)
     public ResponseEntity<ErrorResponse> handleBadCredentialsException(BadCredentialsException ex) {
-        log.error("Bad credentials: {}", ex.getMessage());
+        errorLogThrottle.log("Bad credentials", ex.getMessage());
         
         ErrorResponse error = ErrorResponse.builder()
                 .timestamp(LocalDateTime.now())
@@ -72,7 +73,7 @@ public class GlobalExceptionHandler {
     
     @ExceptionHandler(IllegalArgumentException.class)
     public ResponseEntity<ErrorResponse> handleIllegalArgumentException(IllegalArgumentException ex) {
-        log.error("Illegal argument: {}", ex.getMessage());
+        errorLogThrottle.log("Illegal argument", ex.getMessage());
         
         ErrorResponse error = ErrorResponse.builder()
                 .timestamp(LocalDateTime.now())
@@ -87,7 +88,7 @@ public class GlobalExceptionHandler {
     
     @ExceptionHandler(MethodArgumentNotValidException.class)
     public ResponseEntity<ValidationErrorResponse> handleValidationException(MethodArgumentNotValidException ex) {
-        log.error("Validation error: {}", ex.getMessage());
+        errorLogThrottle.log("Validation error", ex.getMessage());
         
         Map<String, String> errors = new HashMap<>();
         ex.getBindingResult().getAllErrors().forEach((error) -> {
@@ -110,7 +111,7 @@ public class GlobalExceptionHandler {
     
     @ExceptionHandler(AccessDeniedException.class)
     public ResponseEntity<ErrorResponse> handleAccessDeniedException(AccessDeniedException ex) {
-        log.error("Access denied: {}", ex.getMessage());
+        errorLogThrottle.log("Access denied", ex.getMessage());
         
         ErrorResponse error = ErrorResponse.builder()
                 .timestamp(LocalDateTime.now())
@@ -124,38 +125,30 @@ public class GlobalExceptionHandler {
     }
     
     @ExceptionHandler(ConflictException.class)
-    public ResponseEntity<ErrorResponse> handleConflictException(ConflictException ex) {
-        log.error("Conflict: {}", ex.getMessage());
+    public ResponseEntity<byte[]> handleConflictException(ConflictException ex) {
+        errorLogThrottle.log("Conflict", ex.getMessage());
         
-        ErrorResponse error = ErrorResponse.builder()
-                .timestamp(LocalDateTime.now())
-                .status(HttpStatus.CONFLICT.value())
-                .error("Conflict")
-                .message(ex.getMessage())
-                .path(getCurrentPath())
-                .build();
+        return errorBodies.of(HttpStatus.CONFLICT, "Conflict", ex.getMessage(), getCurrentPath());
+    }
+    
+    // A concurrent update on a path without a retry policy; the client can safely repeat the request
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<byte[]> handleOptimisticLockingFailureException(OptimisticLockingFailureException ex) {
+        errorLogThrottle.log("Concurrent update", ex.getMessage());
         
-        return ResponseEntity.status(HttpStatus.CONFLICT).body(error);
+        return errorBodies.of(HttpStatus.CONFLICT, "Conflict", "The resource was modified concurrently, please retry", getCurrentPath());
     }
     
     @ExceptionHandler(PaymentAuthorizationException.class)
-    public ResponseEntity<ErrorResponse> handlePaymentAuthorizationException(PaymentAuthorizationException ex) {
-        log.error("Payment authorization failed: {}", ex.getMessage());
-        
-        ErrorResponse error = ErrorResponse.builder()
-                .timestamp(LocalDateTime.now())
-                .status(HttpStatus.PAYMENT_REQUIRED.value())
-                .error("Payment Required")
-                .message(ex.getMessage())
-                .path(getCurrentPath())
-                .build();
+    public ResponseEntity<byte[]> handlePaymentAuthorizationException(PaymentAuthorizationException ex) {
+        errorLogThrottle.log("Payment authorization failed", ex.getMessage());
         
-        return ResponseEntity.status(HttpStatus.PAYMENT_REQUIRED).body(error);
+        return errorBodies.of(HttpStatus.PAYMENT_REQUIRED, "Payment Required", ex.getMessage(), getCurrentPath());
     }
     
     @ExceptionHandler(IllegalStateException.class)
     public ResponseEntity<ErrorResponse> handleIllegalStateException(IllegalStateException ex) {
-        log.error("Illegal state: {}", ex.getMessage());
+        errorLogThrottle.log("Illegal state", ex.getMessage());
         
         ErrorResponse error = ErrorResponse.builder()
                 .timestamp(LocalDateTime.now())
@@ -168,6 +161,30 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.CONFLICT).body(error);
     }
     
+    // Login shed by the bounded hashing pool: the client should back off briefly rather than treat it as bad credentials
+    @ExceptionHandler(PasswordHashingBusyException.class)
+    public ResponseEntity<byte[]> handlePasswordHashingBusyException(PasswordHashingBusyException ex) {
+        errorLogThrottle.log("Password hashing saturated", ex.getMessage());
+        
+        ResponseEntity<byte[]> response = errorBodies.of(HttpStatus.SERVICE_UNAVAILABLE, "Service Unavailable", ex.getMessage(), getCurrentPath());
+        return ResponseEntity.status(response.getStatusCode())
+                .headers(response.getHeaders())
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(response.getBody());
+    }
+    
+    // A group-commit shard queue is full: like a saturated hashing pool, the client backs off briefly and retries
+    @ExceptionHandler(GroupCommitBusyException.class)
+    public ResponseEntity<byte[]> handleGroupCommitBusyException(GroupCommitBusyException ex) {
+        errorLogThrottle.log("Group commit saturated", ex.getMessage());
+        
+        ResponseEntity<byte[]> response = errorBodies.of(HttpStatus.SERVICE_UNAVAILABLE, "Service Unavailable", ex.getMessage(), getCurrentPath());
+        return ResponseEntity.status(response.getStatusCode())
+                .headers(response.getHeaders())
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(response.getBody());
+    }
+    
     @ExceptionHandler(ResourceAccessException.class)
     public ResponseEntity<ErrorResponse> handleResourceAccessException(ResourceAccessException ex) {
         log.error("External service unavailable: {}", ex.getMessage());
@@ -0,0 +1,17 @@
+-- =====================================================
+-- Migration: Transactional outbox for charge events
+-- Version: V003
+-- Description: Charge state changes written in the same transaction as the charge, relayed in batches
+-- =====================================================
+
+CREATE TABLE outbox_events (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    aggregate_id BINARY(16) NOT NULL,
+    event_type VARCHAR(20) NOT NULL,
+    payload VARBINARY(128) NOT NULL,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    published_at TIMESTAMP NULL,
+
+    INDEX idx_outbox_unpublished (published_at, id),
+    INDEX idx_outbox_aggregate (aggregate_id, id)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
@@ -0,0 +1,142 @@
+-- =====================================================
+-- Migration: Monthly partitioning and archive tables for transaction history
+-- Version: V004
+-- Description: Range-partitions charges, payments and audit_logs by created_at month and adds
+--              compressed archive tables that settled history is moved to by the archival job
+-- =====================================================
+
+-- 1. Partitioned InnoDB tables cannot take part in foreign keys, and every unique key must
+-- include the partitioning column. Referential integrity stays with the application (JPA).
+ALTER TABLE payments DROP FOREIGN KEY payments_ibfk_1, DROP FOREIGN KEY payments_ibfk_2;
+ALTER TABLE charges DROP FOREIGN KEY charges_ibfk_1, DROP FOREIGN KEY charges_ibfk_2;
+ALTER TABLE audit_logs DROP FOREIGN KEY audit_logs_ibfk_1;
+
+-- 2. Charges: (party, created_at) indexes let date-ranged history reads prune partitions
+ALTER TABLE charges
+    DROP PRIMARY KEY,
+    ADD PRIMARY KEY (id, created_at),
+    DROP INDEX idx_charge_originator,
+    DROP INDEX idx_charge_recipient,
+    ADD INDEX idx_charge_originator (originator_id, created_at),
+    ADD INDEX idx_charge_recipient (recipient_id, created_at);
+
+ALTER TABLE charges PARTITION BY RANGE (UNIX_TIMESTAMP(created_at)) (
+    PARTITION p_history VALUES LESS THAN (UNIX_TIMESTAMP('2026-01-01 00:00:00')),
+    PARTITION p2026_01 VALUES LESS THAN (UNIX_TIMESTAMP('2026-02-01 00:00:00')),
+    PARTITION p2026_02 VALUES LESS THAN (UNIX_TIMESTAMP('2026-03-01 00:00:00')),
+    PARTITION p2026_03 VALUES LESS THAN (UNIX_TIMESTAMP('2026-04-01 00:00:00')),
+    PARTITION p2026_04 VALUES LESS THAN (UNIX_TIMESTAMP('2026-05-01 00:00:00')),
+    PARTITION p2026_05 VALUES LESS THAN (UNIX_TIMESTAMP('2026-06-01 00:00:00')),
+    PARTITION p2026_06 VALUES LESS THAN (UNIX_TIMESTAMP('2026-07-01 00:00:00')),
+    PARTITION p2026_07 VALUES LESS THAN (UNIX_TIMESTAMP('2026-08-01 00:00:00')),
+    PARTITION p2026_08 VALUES LESS THAN (UNIX_TIMESTAMP('2026-09-01 00:00:00')),
+    PARTITION p2026_09 VALUES LESS THAN (UNIX_TIMESTAMP('2026-10-01 00:00:00')),
+    PARTITION p2026_10 VALUES LESS THAN (UNIX_TIMESTAMP('2026-11-01 00:00:00')),
+    PARTITION p2026_11 VALUES LESS THAN (UNIX_TIMESTAMP('2026-12-01 00:00:00')),
+    PARTITION p2026_12 VALUES LESS THAN (UNIX_TIMESTAMP('2027-01-01 00:00:00')),
+    PARTITION p_future VALUES LESS THAN MAXVALUE
+);
+
+-- 3. Payments
+ALTER TABLE payments
+    DROP PRIMARY KEY,
+    ADD PRIMARY KEY (id, created_at),
+    DROP INDEX idx_payment_payer,
+    ADD INDEX idx_payment_payer (payer_id, created_at);
+
+ALTER TABLE payments PARTITION BY RANGE (UNIX_TIMESTAMP(created_at)) (
+    PARTITION p_history VALUES LESS THAN (UNIX_TIMESTAMP('2026-01-01 00:00:00')),
+    PARTITION p2026_01 VALUES LESS THAN (UNIX_TIMESTAMP('2026-02-01 00:00:00')),
+    PARTITION p2026_02 VALUES LESS THAN (UNIX_TIMESTAMP('2026-03-01 00:00:00')),
+    PARTITION p2026_03 VALUES LESS THAN (UNIX_TIMESTAMP('2026-04-01 00:00:00')),
+    PARTITION p2026_04 VALUES LESS THAN (UNIX_TIMESTAMP('2026-05-01 00:00:00')),
+    PARTITION p2026_05 VALUES LESS THAN (UNIX_TIMESTAMP('2026-06-01 00:00:00')),
+    PARTITION p2026_06 VALUES LESS THAN (UNIX_TIMESTAMP('2026-07-01 00:00:00')),
+    PARTITION p2026_07 VALUES LESS THAN (UNIX_TIMESTAMP('2026-08-01 00:00:00')),
+    PARTITION p2026_08 VALUES LESS THAN (UNIX_TIMESTAMP('2026-09-01 00:00:00')),
+    PARTITION p2026_09 VALUES LESS THAN (UNIX_TIMESTAMP('2026-10-01 00:00:00')),
+    PARTITION p2026_10 VALUES LESS THAN (UNIX_TIMESTAMP('2026-11-01 00:00:00')),
+    PARTITION p2026_11 VALUES LESS THAN (UNIX_TIMESTAMP('2026-12-01 00:00:00')),
+    PARTITION p2026_12 VALUES LESS THAN (UNIX_TIMESTAMP('2027-01-01 00:00:00')),
+    PARTITION p_future VALUES LESS THAN MAXVALUE
+);
+
+-- 4. Audit logs
+ALTER TABLE audit_logs
+    DROP PRIMARY KEY,
+    ADD PRIMARY KEY (id, created_at);
+
+ALTER TABLE audit_logs PARTITION BY RANGE (UNIX_TIMESTAMP(created_at)) (
+    PARTITION p_history VALUES LESS THAN (UNIX_TIMESTAMP('2026-01-01 00:00:00')),
+    PARTITION p2026_01 VALUES LESS THAN (UNIX_TIMESTAMP('2026-02-01 00:00:00')),
+    PARTITION p2026_02 VALUES LESS THAN (UNIX_TIMESTAMP('2026-03-01 00:00:00')),
+    PARTITION p2026_03 VALUES LESS THAN (UNIX_TIMESTAMP('2026-04-01 00:00:00')),
+    PARTITION p2026_04 VALUES LESS THAN (UNIX_TIMESTAMP('2026-05-01 00:00:00')),
+    PARTITION p2026_05 VALUES LESS THAN (UNIX_TIMESTAMP('2026-06-01 00:00:00')),
+    PARTITION p2026_06 VALUES LESS THAN (UNIX_TIMESTAMP('2026-07-01 00:00:00')),
+    PARTITION p2026_07 VALUES LESS THAN (UNIX_TIMESTAMP('2026-08-01 00:00:00')),
+    PARTITION p2026_08 VALUES LESS THAN (UNIX_TIMESTAMP('2026-09-01 00:00:00')),
+    PARTITION p2026_09 VALUES LESS THAN (UNIX_TIMESTAMP('2026-10-01 00:00:00')),
+    PARTITION p2026_10 VALUES LESS THAN (UNIX_TIMESTAMP('2026-11-01 00:00:00')),
+    PARTITION p2026_11 VALUES LESS THAN (UNIX_TIMESTAMP('2026-12-01 00:00:00')),
+    PARTITION p2026_12 VALUES LESS THAN (UNIX_TIMESTAMP('2027-01-01 00:00:00')),
+    PARTITION p_future VALUES LESS THAN MAXVALUE
+);
+
+-- 5. Archive tables: settled rows only, never updated, so compressed pages are cheap to keep
+CREATE TABLE charges_archive (
+    id BINARY(16) PRIMARY KEY,
+    originator_id BINARY(16) NOT NULL,
+    recipient_id BINARY(16) NOT NULL,
+    amount DECIMAL(10,2) NOT NULL,
+    description VARCHAR(500),
+    status VARCHAR(20) NOT NULL,
+    payment_method VARCHAR(20),
+    created_at TIMESTAMP NOT NULL,
+    updated_at TIMESTAMP NULL,
+    paid_at TIMESTAMP NULL,
+    cancelled_at TIMESTAMP NULL,
+    archived_at TIMESTAMP NOT NULL,
+
+    INDEX idx_charge_archive_originator (originator_id, created_at),
+    INDEX idx_charge_archive_recipient (recipient_id, created_at),
+    INDEX idx_charge_archive_created_at (created_at)
+) ENGINE=InnoDB ROW_FORMAT=COMPRESSED DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+-- Card number, expiry and CVV are not carried over into the archive
+CREATE TABLE payments_archive (
+    id BINARY(16) PRIMARY KEY,
+    charge_id BINARY(16) NULL,
+    payer_id BINARY(16) NOT NULL,
+    amount DECIMAL(10,2) NOT NULL,
+    status VARCHAR(20) NOT NULL,
+    method VARCHAR(20) NOT NULL,
+    external_transaction_id VARCHAR(100),
+    authorization_code VARCHAR(50),
+    created_at TIMESTAMP NOT NULL,
+    payment_date TIMESTAMP NOT NULL,
+    processed_at TIMESTAMP NULL,
+    failed_at TIMESTAMP NULL,
+    failure_reason VARCHAR(500),
+    archived_at TIMESTAMP NOT NULL,
+
+    INDEX idx_payment_archive_charge (charge_id),
+    INDEX idx_payment_archive_payer (payer_id, created_at)
+) ENGINE=InnoDB ROW_FORMAT=COMPRESSED DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+CREATE TABLE audit_logs_archive (
+    id BINARY(16) PRIMARY KEY,
+    user_id BINARY(16),
+    action VARCHAR(100) NOT NULL,
+    entity_type VARCHAR(50) NOT NULL,
+    entity_id BINARY(16) NOT NULL,
+    old_values JSON,
+    new_values JSON,
+    ip_address VARCHAR(45),
+    user_agent TEXT,
+    created_at TIMESTAMP NOT NULL,
+    archived_at TIMESTAMP NOT NULL,
+
+    INDEX idx_audit_archive_entity (entity_type, entity_id),
+    INDEX idx_audit_archive_created_at (created_at)
+) ENGINE=InnoDB ROW_FORMAT=COMPRESSED DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
@@ -0,0 +1,40 @@
+-- =====================================================
+-- Migration: Per-user daily charge summaries
+-- Version: V005
+-- Description: Counts and sums of sent and received charges per status per day, kept up to date on
+--              every charge transition so user summaries read O(days) rows instead of O(charges)
+-- =====================================================
+
+CREATE TABLE user_charge_summaries (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    user_id BINARY(16) NOT NULL,
+    role VARCHAR(10) NOT NULL,
+    summary_date DATE NOT NULL,
+    pending_count BIGINT NOT NULL DEFAULT 0,
+    pending_amount DECIMAL(14,2) NOT NULL DEFAULT 0.00,
+    paid_count BIGINT NOT NULL DEFAULT 0,
+    paid_amount DECIMAL(14,2) NOT NULL DEFAULT 0.00,
+    cancelled_count BIGINT NOT NULL DEFAULT 0,
+    cancelled_amount DECIMAL(14,2) NOT NULL DEFAULT 0.00,
+
+    UNIQUE KEY uk_user_charge_summary (user_id, role, summary_date),
+    INDEX idx_user_charge_summary_date (summary_date)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+-- Backfill from live and archived charges, bucketed by the day each charge was created
+INSERT INTO user_charge_summaries (user_id, role, summary_date, pending_count, pending_amount,
+                                   paid_count, paid_amount, cancelled_count, cancelled_amount)
+SELECT user_id, role, summary_date,
+       SUM(status = 'PENDING'), SUM(IF(status = 'PENDING', amount, 0)),
+       SUM(status = 'PAID'), SUM(IF(status = 'PAID', amount, 0)),
+       SUM(status = 'CANCELLED'), SUM(IF(status = 'CANCELLED', amount, 0))
+FROM (
+    SELECT originator_id AS user_id, 'SENT' AS role, DATE(created_at) AS summary_date, status, amount FROM charges
+    UNION ALL
+    SELECT recipient_id, 'RECEIVED', DATE(created_at), status, amount FROM charges
+    UNION ALL
+    SELECT originator_id, 'SENT', DATE(created_at), status, amount FROM charges_archive
+    UNION ALL
+    SELECT recipient_id, 'RECEIVED', DATE(created_at), status, amount FROM charges_archive
+) transitions
+GROUP BY user_id, role, summary_date;
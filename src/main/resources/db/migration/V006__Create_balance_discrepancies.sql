@@ -0,0 +1,19 @@
+-- =====================================================
+-- Migration: Balance reconciliation report
+-- Version: V006
+-- Description: Users whose users.balance differs from the balance recomputed from deposits,
+--              payments and charges, one row per user per reconciliation run
+-- =====================================================
+
+CREATE TABLE balance_discrepancies (
+    id BINARY(16) PRIMARY KEY,
+    run_id BINARY(16) NOT NULL,
+    user_id BINARY(16) NOT NULL,
+    recorded_balance DECIMAL(14,2) NOT NULL,
+    expected_balance DECIMAL(14,2) NOT NULL,
+    difference DECIMAL(14,2) NOT NULL,
+    detected_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+
+    INDEX idx_balance_discrepancy_run (run_id),
+    INDEX idx_balance_discrepancy_user (user_id, detected_at)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
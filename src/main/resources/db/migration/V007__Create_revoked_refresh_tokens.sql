@@ -0,0 +1,16 @@
+-- =====================================================
+-- Migration: Refresh token revocations
+-- Version: V007
+-- Description: Refresh tokens already rotated and token families revoked after reuse; rows are only needed
+--              until the token they refer to would have expired anyway
+-- =====================================================
+
+CREATE TABLE revoked_refresh_tokens (
+    id BINARY(16) PRIMARY KEY,
+    user_id BINARY(16) NOT NULL,
+    kind VARCHAR(10) NOT NULL,
+    expires_at TIMESTAMP NOT NULL,
+    revoked_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+
+    INDEX idx_revoked_refresh_token_expiry (expires_at)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
@@ -0,0 +1,18 @@
+-- =====================================================
+-- Migration: JWT signing key ring
+-- Version: V008
+-- Description: Asymmetric keys tokens are signed with, shared by every instance; private keys are stored
+--              encrypted, public keys are published at /.well-known/jwks.json until the key expires
+-- =====================================================
+
+CREATE TABLE jwt_signing_keys (
+    kid VARCHAR(36) PRIMARY KEY,
+    algorithm VARCHAR(10) NOT NULL,
+    public_key VARBINARY(512) NOT NULL,
+    private_key VARBINARY(512) NOT NULL,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    activates_at TIMESTAMP NOT NULL,
+    expires_at TIMESTAMP NOT NULL,
+
+    INDEX idx_jwt_signing_key_expiry (expires_at)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
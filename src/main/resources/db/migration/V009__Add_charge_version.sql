@@ -0,0 +1,8 @@
+-- =====================================================
+-- Migration: Optimistic locking on charges
+-- Version: V009
+-- Description: Version column checked by every JPA update of a charge, so a pay or cancellation decided on
+--              a stale read fails instead of overwriting a concurrent transition
+-- =====================================================
+
+ALTER TABLE charges ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
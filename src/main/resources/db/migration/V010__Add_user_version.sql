@@ -0,0 +1,8 @@
+-- =====================================================
+-- Migration: Optimistic locking on users
+-- Version: V010
+-- Description: Version column checked by every JPA update of a user, so concurrent balance changes decided on
+--              stale reads fail and are retried instead of losing one of the updates
+-- =====================================================
+
+ALTER TABLE users ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
@@ -0,0 +1,98 @@
+-- =====================================================
+-- Migration: Payment stored procedures on BINARY(16) ids
+-- Version: V011
+-- Description: Recreates sp_process_payment and sp_process_deposit for the stored-procedure payment engine
+--              (app.payments.engine). The V002 versions took CHAR(36) ids, which never match the BINARY(16) keys,
+--              and opened and committed their own transaction, which would commit the caller's work half done
+-- =====================================================
+
+-- 1. The application also writes REFUNDED, which V001 left out of the column
+ALTER TABLE payments MODIFY COLUMN status ENUM('PENDING', 'PROCESSED', 'FAILED', 'REFUNDED') NOT NULL DEFAULT 'PENDING';
+
+DROP PROCEDURE IF EXISTS sp_process_payment;
+DROP PROCEDURE IF EXISTS sp_process_deposit;
+
+-- 2. Balance payment of a charge by its recipient, with the checks of the JPA path in the same order. Runs in the
+-- caller's transaction, which writes the charge event next to it, and bumps the optimistic locking versions
+-- (V009, V010) so JPA writers holding the same rows fail their check. Refusals write nothing. Card details are no
+-- longer taken: card payments need the authorizer first and stay on the JPA path
+DELIMITER //
+CREATE PROCEDURE sp_process_payment (
+    IN p_payment_id BINARY(16),
+    IN p_charge_id BINARY(16),
+    IN p_payer_id BINARY(16),
+    IN p_paid_at TIMESTAMP
+)
+BEGIN
+    DECLARE v_originator_id BINARY(16);
+    DECLARE v_recipient_id BINARY(16);
+    DECLARE v_amount DECIMAL(10,2);
+    DECLARE v_status VARCHAR(20);
+    DECLARE v_created_at TIMESTAMP;
+    DECLARE v_version BIGINT;
+    DECLARE v_payer_name VARCHAR(100);
+    DECLARE v_payer_balance DECIMAL(10,2);
+    DECLARE v_outcome VARCHAR(30) DEFAULT 'PROCESSED';
+    -- A missing row leaves its variables NULL, which the checks below report
+    DECLARE CONTINUE HANDLER FOR NOT FOUND BEGIN END;
+
+    SELECT originator_id, recipient_id, amount, status, created_at, version
+      INTO v_originator_id, v_recipient_id, v_amount, v_status, v_created_at, v_version
+      FROM charges WHERE id = p_charge_id FOR UPDATE;
+    SELECT name, balance INTO v_payer_name, v_payer_balance FROM users WHERE id = p_payer_id FOR UPDATE;
+
+    IF v_status IS NULL THEN
+        SET v_outcome = 'CHARGE_NOT_FOUND';
+    ELSEIF v_status <> 'PENDING' THEN
+        SET v_outcome = 'NOT_PENDING';
+    ELSEIF v_payer_name IS NULL THEN
+        SET v_outcome = 'PAYER_NOT_FOUND';
+    ELSEIF v_recipient_id <> p_payer_id THEN
+        SET v_outcome = 'NOT_RECIPIENT';
+    ELSEIF v_payer_balance < v_amount THEN
+        SET v_outcome = 'INSUFFICIENT_BALANCE';
+    END IF;
+
+    IF v_outcome = 'PROCESSED' THEN
+        UPDATE users SET balance = balance - v_amount, version = version + 1, updated_at = p_paid_at WHERE id = p_payer_id;
+        UPDATE users SET balance = balance + v_amount, version = version + 1, updated_at = p_paid_at WHERE id = v_recipient_id;
+        UPDATE charges SET status = 'PAID', payment_method = 'BALANCE', paid_at = p_paid_at, version = version + 1,
+                           updated_at = p_paid_at
+         WHERE id = p_charge_id;
+        INSERT INTO payments (id, charge_id, payer_id, amount, status, method, created_at, payment_date, processed_at)
+        VALUES (p_payment_id, p_charge_id, p_payer_id, v_amount, 'PROCESSED', 'BALANCE', p_paid_at, p_paid_at, p_paid_at);
+        SET v_status = 'PAID';
+        SET v_version = v_version + 1;
+    END IF;
+
+    -- Everything the caller needs for the charge event and the response, so nothing is read back
+    SELECT v_outcome AS outcome, v_originator_id AS originator_id, v_recipient_id AS recipient_id, v_amount AS amount,
+           v_status AS status, v_created_at AS created_at, v_version AS version, v_payer_name AS payer_name;
+END //
+DELIMITER ;
+
+-- 3. Authorized deposit: credits the user and writes the same charge-less payment row as the JPA path, rather
+-- than the deposits row V002 wrote, so both engines leave the same history behind
+DELIMITER //
+CREATE PROCEDURE sp_process_deposit (
+    IN p_payment_id BINARY(16),
+    IN p_user_id BINARY(16),
+    IN p_amount DECIMAL(10,2),
+    IN p_deposited_at TIMESTAMP
+)
+BEGIN
+    DECLARE v_user_name VARCHAR(100);
+    DECLARE v_outcome VARCHAR(30) DEFAULT 'PROCESSED';
+    DECLARE CONTINUE HANDLER FOR NOT FOUND SET v_outcome = 'USER_NOT_FOUND';
+
+    SELECT name INTO v_user_name FROM users WHERE id = p_user_id FOR UPDATE;
+
+    IF v_outcome = 'PROCESSED' THEN
+        UPDATE users SET balance = balance + p_amount, version = version + 1, updated_at = p_deposited_at WHERE id = p_user_id;
+        INSERT INTO payments (id, charge_id, payer_id, amount, status, method, created_at, payment_date, processed_at)
+        VALUES (p_payment_id, NULL, p_user_id, p_amount, 'PROCESSED', 'BALANCE', p_deposited_at, p_deposited_at, p_deposited_at);
+    END IF;
+
+    SELECT v_outcome AS outcome, v_user_name AS payer_name;
+END //
+DELIMITER ;
@@ -3,18 +3,27 @@ package com.nimble.gateway.application.usecase;
 import com.nimble.gateway.domain.entity.Charge;
 import com.nimble.gateway.domain.entity.Payment;
 import com.nimble.gateway.domain.entity.User;
+import com.nimble.gateway.domain.event.ChargeEvent;
 import com.nimble.gateway.domain.repository.ChargeRepository;
 import com.nimble.gateway.domain.repository.PaymentRepository;
 import com.nimble.gateway.domain.repository.UserRepository;
+import com.nimble.gateway.infrastructure.cache.PendingChargeIndex;
 import com.nimble.gateway.infrastructure.external.AuthorizerService;
+import com.nimble.gateway.infrastructure.outbox.ChargeEventOutbox;
+import com.nimble.gateway.infrastructure.persistence.ConflictRetry;
+import com.nimble.gateway.infrastructure.persistence.JpaPaymentEngine;
+import com.nimble.gateway.infrastructure.metrics.PaymentMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.support.TransactionOperations;
 import reactor.core.publisher.Mono;
 
 import java.math.BigDecimal;
@@ -22,6 +31,7 @@ import java.time.LocalDateTime;
 import java.util.Optional;
 import java.util.UUID;
 
+import com.nimble.gateway.domain.exception.BusinessRuleException;
 import com.nimble.gateway.domain.exception.ConflictException;
 import com.nimble.gateway.domain.exception.PaymentAuthorizationException;
 import com.nimble.gateway.domain.exception.UserNotFoundException;
@@ -42,8 +52,18 @@ class ChargeCancellationTest {
     private UserRepository userRepository;
     @Mock
     private AuthorizerService authorizerService;
+    @Mock
+    private ChargeEventOutbox chargeEventOutbox;
+    @Spy
+    private TransactionOperations transactionOperations = TransactionOperations.withoutTransaction();
+
+    @Spy
+    private PaymentMetrics paymentMetrics = new PaymentMetrics(new SimpleMeterRegistry());
+    @Spy
+    private PendingChargeIndex pendingChargeIndex = new PendingChargeIndex(mock(ChargeRepository.class), new SimpleMeterRegistry(), true, 16, 1_000);
+    @Spy
+    private ConflictRetry conflictRetry = new ConflictRetry(new SimpleMeterRegistry(), 3, 1, 5);
 
-    @InjectMocks
     private PaymentUseCase paymentUseCase;
 
     private User originator;
@@ -54,6 +74,10 @@ class ChargeCancellationTest {
 
     @BeforeEach
     void setUp() {
+        paymentUseCase = new PaymentUseCase(chargeRepository, paymentRepository, userRepository, authorizerService, chargeEventOutbox,
+                transactionOperations, paymentMetrics, pendingChargeIndex, conflictRetry, new JpaPaymentEngine(userRepository,
+                chargeRepository, paymentRepository, chargeEventOutbox, pendingChargeIndex, transactionOperations, conflictRetry));
+
         originator = User.builder()
                 .id(UUID.randomUUID())
                 .name("Originator User")
@@ -308,7 +332,7 @@ class ChargeCancellationTest {
 
 
             assertThatThrownBy(() -> paymentUseCase.cancelCharge(chargeId, originatorId).block())
-                    .isInstanceOf(IllegalArgumentException.class)
+                    .isInstanceOf(BusinessRuleException.class)
                     .hasMessage("Payment not found");
 
             verify(chargeRepository).findById(chargeId);
@@ -317,4 +341,56 @@ class ChargeCancellationTest {
             verify(chargeRepository, never()).save(any(Charge.class));
         }
     }
-}
\ No newline at end of file
+
+    @Nested
+    @DisplayName("Concurrent Update Scenarios")
+    class ConcurrentUpdateScenarios {
+
+        @Test
+        @DisplayName("GIVEN a pay committed between the read and the write WHEN cancelling THEN should retry from a fresh read and refund")
+        void givenPayWonTheRace_whenCancelling_thenShouldRetryAndRefund() {
+
+            UUID chargeId = pendingCharge.getId();
+            when(chargeRepository.findById(chargeId)).thenReturn(Optional.of(pendingCharge), Optional.of(paidCharge));
+            when(chargeRepository.save(any(Charge.class)))
+                    .thenThrow(new ObjectOptimisticLockingFailureException(Charge.class, chargeId))
+                    .thenReturn(paidCharge);
+            when(paymentRepository.findByCharge(paidCharge)).thenReturn(Optional.of(testPayment));
+
+
+            paymentUseCase.cancelCharge(chargeId, originator.getId()).block();
+
+
+            verify(chargeRepository, times(2)).findById(chargeId);
+            verify(paymentRepository).findByCharge(paidCharge);
+            verify(chargeEventOutbox, times(1)).record(paidCharge, ChargeEvent.Type.CANCELLED);
+        }
+
+        @Test
+        @DisplayName("GIVEN an authorized card cancellation WHEN its write conflicts THEN should report a conflict without authorizing again")
+        void givenAuthorizedCardCancellation_whenWriteConflicts_thenShouldNotRetry() {
+
+            Charge creditCardCharge = Charge.builder()
+                    .id(UUID.randomUUID())
+                    .originator(originator)
+                    .recipient(recipient)
+                    .amount(new BigDecimal("300.00"))
+                    .status(Charge.ChargeStatus.PAID)
+                    .paymentMethod(Charge.PaymentMethod.CREDIT_CARD)
+                    .createdAt(LocalDateTime.now())
+                    .build();
+            when(chargeRepository.findById(creditCardCharge.getId())).thenReturn(Optional.of(creditCardCharge));
+            when(authorizerService.authorizeCancellation(any(BigDecimal.class))).thenReturn(Mono.just(true));
+            when(chargeRepository.save(any(Charge.class))).thenThrow(new ObjectOptimisticLockingFailureException(Charge.class, creditCardCharge.getId()));
+
+
+            assertThatThrownBy(() -> paymentUseCase.cancelCharge(creditCardCharge.getId(), originator.getId()).block())
+                    .isInstanceOf(ConflictException.class)
+                    .hasMessage("The resource was modified concurrently, please retry");
+
+
+            verify(chargeRepository, times(1)).findById(creditCardCharge.getId());
+            verify(authorizerService, times(1)).authorizeCancellation(any(BigDecimal.class));
+        }
+    }
+}
@@ -4,9 +4,15 @@ import com.nimble.gateway.application.dto.ChargeDTO;
 import com.nimble.gateway.application.dto.CreateChargeDTO;
 import com.nimble.gateway.domain.entity.Charge;
 import com.nimble.gateway.domain.entity.User;
+import com.nimble.gateway.domain.exception.BusinessRuleException;
 import com.nimble.gateway.domain.exception.UserNotFoundException;
 import com.nimble.gateway.domain.repository.ChargeRepository;
 import com.nimble.gateway.domain.repository.UserRepository;
+import com.nimble.gateway.domain.valueobject.UserIdentity;
+import com.nimble.gateway.infrastructure.cache.UserIdentityCache;
+import com.nimble.gateway.infrastructure.outbox.ChargeEventOutbox;
+import com.nimble.gateway.infrastructure.metrics.PaymentMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
@@ -14,6 +20,7 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.math.BigDecimal;
@@ -36,6 +43,13 @@ class ChargeManagementTest {
     private ChargeRepository chargeRepository;
     @Mock
     private UserRepository userRepository;
+    @Mock
+    private UserIdentityCache userIdentityCache;
+    @Mock
+    private ChargeEventOutbox chargeEventOutbox;
+
+    @Spy
+    private PaymentMetrics paymentMetrics = new PaymentMetrics(new SimpleMeterRegistry());
 
     @InjectMocks
     private ChargeUseCase chargeUseCase;
@@ -107,8 +121,8 @@ class ChargeManagementTest {
         @DisplayName("GIVEN valid charge data WHEN creating charge THEN should create charge successfully")
         void givenValidChargeData_whenCreatingCharge_thenShouldCreateChargeSuccessfully() {
 
-            when(userRepository.findById(originator.getId())).thenReturn(Optional.of(originator));
-            when(userRepository.findByCpf(createChargeDTO.getRecipientCpf())).thenReturn(Optional.of(recipient));
+            when(userIdentityCache.findById(originator.getId())).thenReturn(Optional.of(UserIdentity.of(originator)));
+            when(userIdentityCache.findByCpf(createChargeDTO.getRecipientCpf())).thenReturn(Optional.of(UserIdentity.of(recipient)));
             when(chargeRepository.save(any(Charge.class))).thenReturn(pendingCharge);
 
 
@@ -120,8 +134,8 @@ class ChargeManagementTest {
             assertThat(result.getDescription()).isEqualTo(createChargeDTO.getDescription());
             assertThat(result.getStatus()).isEqualTo("PENDING");
 
-            verify(userRepository).findById(originator.getId());
-            verify(userRepository).findByCpf(createChargeDTO.getRecipientCpf());
+            verify(userIdentityCache).findById(originator.getId());
+            verify(userIdentityCache).findByCpf(createChargeDTO.getRecipientCpf());
             verify(chargeRepository).save(any(Charge.class));
         }
 
@@ -129,16 +143,16 @@ class ChargeManagementTest {
         @DisplayName("GIVEN non-existing recipient CPF WHEN creating charge THEN should throw exception")
         void givenNonExistingRecipientCpf_whenCreatingCharge_thenShouldThrowException() {
 
-            when(userRepository.findById(originator.getId())).thenReturn(Optional.of(originator));
-            when(userRepository.findByCpf(createChargeDTO.getRecipientCpf())).thenReturn(Optional.empty());
+            when(userIdentityCache.findById(originator.getId())).thenReturn(Optional.of(UserIdentity.of(originator)));
+            when(userIdentityCache.findByCpf(createChargeDTO.getRecipientCpf())).thenReturn(Optional.empty());
 
 
             assertThatThrownBy(() -> chargeUseCase.createCharge(createChargeDTO, originator.getId()))
                     .isInstanceOf(UserNotFoundException.class)
                     .hasMessage("Recipient not found with CPF: " + createChargeDTO.getRecipientCpf());
 
-            verify(userRepository).findById(originator.getId());
-            verify(userRepository).findByCpf(createChargeDTO.getRecipientCpf());
+            verify(userIdentityCache).findById(originator.getId());
+            verify(userIdentityCache).findByCpf(createChargeDTO.getRecipientCpf());
             verify(chargeRepository, never()).save(any(Charge.class));
         }
 
@@ -152,16 +166,16 @@ class ChargeManagementTest {
                     .description("Self charge")
                     .build();
 
-            when(userRepository.findById(originator.getId())).thenReturn(Optional.of(originator));
-            when(userRepository.findByCpf(selfChargeDTO.getRecipientCpf())).thenReturn(Optional.of(originator));
+            when(userIdentityCache.findById(originator.getId())).thenReturn(Optional.of(UserIdentity.of(originator)));
+            when(userIdentityCache.findByCpf(selfChargeDTO.getRecipientCpf())).thenReturn(Optional.of(UserIdentity.of(originator)));
 
 
             assertThatThrownBy(() -> chargeUseCase.createCharge(selfChargeDTO, originator.getId()))
-                    .isInstanceOf(IllegalArgumentException.class)
+                    .isInstanceOf(BusinessRuleException.class)
                     .hasMessage("Cannot create charge to yourself");
 
-            verify(userRepository).findById(originator.getId());
-            verify(userRepository).findByCpf(selfChargeDTO.getRecipientCpf());
+            verify(userIdentityCache).findById(originator.getId());
+            verify(userIdentityCache).findByCpf(selfChargeDTO.getRecipientCpf());
             verify(chargeRepository, never()).save(any(Charge.class));
         }
     }
@@ -195,7 +209,7 @@ class ChargeManagementTest {
 
 
             assertThatThrownBy(() -> chargeUseCase.getChargeById(chargeId, originator.getId()))
-                    .isInstanceOf(IllegalArgumentException.class)
+                    .isInstanceOf(BusinessRuleException.class)
                     .hasMessage("Charge not found");
 
             verify(chargeRepository).findById(chargeId);
@@ -211,7 +225,7 @@ class ChargeManagementTest {
 
 
             assertThatThrownBy(() -> chargeUseCase.getChargeById(chargeId, unauthorizedUserId))
-                    .isInstanceOf(IllegalArgumentException.class)
+                    .isInstanceOf(BusinessRuleException.class)
                     .hasMessage("Access denied to this charge");
 
             verify(chargeRepository).findById(chargeId);
@@ -227,7 +241,8 @@ class ChargeManagementTest {
         void givenPendingCharges_whenQueryingSentChargesByStatus_thenShouldReturnPendingCharges() {
 
             List<Charge> charges = Arrays.asList(pendingCharge);
-            when(userRepository.findById(originator.getId())).thenReturn(Optional.of(originator));
+            when(userIdentityCache.findById(originator.getId())).thenReturn(Optional.of(UserIdentity.of(originator)));
+            when(userRepository.getReferenceById(originator.getId())).thenReturn(originator);
             when(chargeRepository.findByOriginatorAndStatus(originator, Charge.ChargeStatus.PENDING)).thenReturn(charges);
 
 
@@ -237,7 +252,7 @@ class ChargeManagementTest {
             assertThat(result).isNotNull().hasSize(1);
             assertThat(result.get(0).getStatus()).isEqualTo("PENDING");
 
-            verify(userRepository).findById(originator.getId());
+            verify(userIdentityCache).findById(originator.getId());
             verify(chargeRepository).findByOriginatorAndStatus(originator, Charge.ChargeStatus.PENDING);
         }
 
@@ -246,7 +261,8 @@ class ChargeManagementTest {
         void givenPaidCharges_whenQueryingReceivedChargesByStatus_thenShouldReturnPaidCharges() {
 
             List<Charge> charges = Arrays.asList(paidCharge);
-            when(userRepository.findById(recipient.getId())).thenReturn(Optional.of(recipient));
+            when(userIdentityCache.findById(recipient.getId())).thenReturn(Optional.of(UserIdentity.of(recipient)));
+            when(userRepository.getReferenceById(recipient.getId())).thenReturn(recipient);
             when(chargeRepository.findByRecipientAndStatus(recipient, Charge.ChargeStatus.PAID)).thenReturn(charges);
 
 
@@ -256,7 +272,7 @@ class ChargeManagementTest {
             assertThat(result).isNotNull().hasSize(1);
             assertThat(result.get(0).getStatus()).isEqualTo("PAID");
 
-            verify(userRepository).findById(recipient.getId());
+            verify(userIdentityCache).findById(recipient.getId());
             verify(chargeRepository).findByRecipientAndStatus(recipient, Charge.ChargeStatus.PAID);
         }
 
@@ -265,7 +281,8 @@ class ChargeManagementTest {
         void givenNoStatusFilter_whenQueryingCharges_thenShouldReturnAllCharges() {
 
             List<Charge> charges = Arrays.asList(pendingCharge, paidCharge);
-            when(userRepository.findById(originator.getId())).thenReturn(Optional.of(originator));
+            when(userIdentityCache.findById(originator.getId())).thenReturn(Optional.of(UserIdentity.of(originator)));
+            when(userRepository.getReferenceById(originator.getId())).thenReturn(originator);
             when(chargeRepository.findByOriginator(originator)).thenReturn(charges);
 
 
@@ -274,7 +291,7 @@ class ChargeManagementTest {
 
             assertThat(result).isNotNull().hasSize(2);
 
-            verify(userRepository).findById(originator.getId());
+            verify(userIdentityCache).findById(originator.getId());
             verify(chargeRepository).findByOriginator(originator);
         }
     }
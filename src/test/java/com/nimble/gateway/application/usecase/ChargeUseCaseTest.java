@@ -6,7 +6,13 @@ import com.nimble.gateway.domain.entity.Charge;
 import com.nimble.gateway.domain.entity.User;
 import com.nimble.gateway.domain.repository.ChargeRepository;
 import com.nimble.gateway.domain.repository.UserRepository;
+import com.nimble.gateway.domain.valueobject.UserIdentity;
+import com.nimble.gateway.infrastructure.cache.UserIdentityCache;
+import com.nimble.gateway.domain.exception.BusinessRuleException;
 import com.nimble.gateway.domain.exception.UserNotFoundException;
+import com.nimble.gateway.infrastructure.outbox.ChargeEventOutbox;
+import com.nimble.gateway.infrastructure.metrics.PaymentMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
@@ -14,6 +20,7 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.math.BigDecimal;
@@ -37,6 +44,15 @@ class ChargeUseCaseTest {
     @Mock
     private UserRepository userRepository;
 
+    @Mock
+    private UserIdentityCache userIdentityCache;
+
+    @Mock
+    private ChargeEventOutbox chargeEventOutbox;
+
+    @Spy
+    private PaymentMetrics paymentMetrics = new PaymentMetrics(new SimpleMeterRegistry());
+
     @InjectMocks
     private ChargeUseCase chargeUseCase;
 
@@ -96,8 +112,8 @@ class ChargeUseCaseTest {
         @DisplayName("Given valid data, when creating charge, then should return ChargeDTO")
         void givenValidData_whenCreateCharge_thenShouldReturnChargeDTO() {
 
-            when(userRepository.findById(originator.getId())).thenReturn(Optional.of(originator));
-            when(userRepository.findByCpf("98765432100")).thenReturn(Optional.of(recipient));
+            when(userIdentityCache.findById(originator.getId())).thenReturn(Optional.of(UserIdentity.of(originator)));
+            when(userIdentityCache.findByCpf("98765432100")).thenReturn(Optional.of(UserIdentity.of(recipient)));
             when(chargeRepository.save(any(Charge.class))).thenReturn(testCharge);
 
             ChargeDTO result = chargeUseCase.createCharge(createChargeDTO, originator.getId());
@@ -111,8 +127,8 @@ class ChargeUseCaseTest {
             assertThat(result.getDescription()).isEqualTo("Pagamento de serviços");
             assertThat(result.getStatus()).isEqualTo("PENDING");
 
-            verify(userRepository).findById(originator.getId());
-            verify(userRepository).findByCpf("98765432100");
+            verify(userIdentityCache).findById(originator.getId());
+            verify(userIdentityCache).findByCpf("98765432100");
             verify(chargeRepository).save(any(Charge.class));
         }
 
@@ -121,14 +137,14 @@ class ChargeUseCaseTest {
         void givenNonExistentOriginator_whenCreateCharge_thenShouldThrowException() {
 
             UUID nonExistentUserId = UUID.fromString("99999999-9999-9999-9999-999999999999");
-            when(userRepository.findById(nonExistentUserId)).thenReturn(Optional.empty());
+            when(userIdentityCache.findById(nonExistentUserId)).thenReturn(Optional.empty());
 
             assertThatThrownBy(() -> chargeUseCase.createCharge(createChargeDTO, nonExistentUserId))
                     .isInstanceOf(UserNotFoundException.class)
                     .hasMessage("Originator not found");
 
-            verify(userRepository).findById(any(UUID.class));
-            verify(userRepository, never()).findByCpf(anyString());
+            verify(userIdentityCache).findById(any(UUID.class));
+            verify(userIdentityCache, never()).findByCpf(anyString());
             verify(chargeRepository, never()).save(any(Charge.class));
         }
 
@@ -136,8 +152,8 @@ class ChargeUseCaseTest {
         @DisplayName("Given non-existent recipient, when creating charge, then should throw exception")
         void givenNonExistentRecipient_whenCreateCharge_thenShouldThrowException() {
 
-            when(userRepository.findById(originator.getId())).thenReturn(Optional.of(originator));
-            when(userRepository.findByCpf("99999999999")).thenReturn(Optional.empty());
+            when(userIdentityCache.findById(originator.getId())).thenReturn(Optional.of(UserIdentity.of(originator)));
+            when(userIdentityCache.findByCpf("99999999999")).thenReturn(Optional.empty());
 
             CreateChargeDTO invalidDTO = CreateChargeDTO.builder()
                     .recipientCpf("99999999999")
@@ -149,8 +165,8 @@ class ChargeUseCaseTest {
                     .isInstanceOf(UserNotFoundException.class)
                     .hasMessage("Recipient not found with CPF: 99999999999");
 
-            verify(userRepository).findById(originator.getId());
-            verify(userRepository).findByCpf("99999999999");
+            verify(userIdentityCache).findById(originator.getId());
+            verify(userIdentityCache).findByCpf("99999999999");
             verify(chargeRepository, never()).save(any(Charge.class));
         }
 
@@ -158,8 +174,8 @@ class ChargeUseCaseTest {
         @DisplayName("Given originator trying to create charge for himself, when creating charge, then should throw exception")
         void givenOriginatorCreatingChargeForHimself_whenCreateCharge_thenShouldThrowException() {
 
-            when(userRepository.findById(originator.getId())).thenReturn(Optional.of(originator));
-            when(userRepository.findByCpf("12345678901")).thenReturn(Optional.of(originator));
+            when(userIdentityCache.findById(originator.getId())).thenReturn(Optional.of(UserIdentity.of(originator)));
+            when(userIdentityCache.findByCpf("12345678901")).thenReturn(Optional.of(UserIdentity.of(originator)));
 
             CreateChargeDTO selfChargeDTO = CreateChargeDTO.builder()
                     .recipientCpf("12345678901")
@@ -168,11 +184,11 @@ class ChargeUseCaseTest {
                     .build();
 
             assertThatThrownBy(() -> chargeUseCase.createCharge(selfChargeDTO, originator.getId()))
-                    .isInstanceOf(IllegalArgumentException.class)
+                    .isInstanceOf(BusinessRuleException.class)
                     .hasMessage("Cannot create charge to yourself");
 
-            verify(userRepository).findById(originator.getId());
-            verify(userRepository).findByCpf("12345678901");
+            verify(userIdentityCache).findById(originator.getId());
+            verify(userIdentityCache).findByCpf("12345678901");
             verify(chargeRepository, never()).save(any(Charge.class));
         }
     }
@@ -185,7 +201,8 @@ class ChargeUseCaseTest {
         @DisplayName("Given valid originator, when getting sent charges, then should return ChargeDTO list")
         void givenValidOriginator_whenGetChargesByOriginator_thenShouldReturnChargeDTOList() {
 
-            when(userRepository.findById(originator.getId())).thenReturn(Optional.of(originator));
+            when(userIdentityCache.findById(originator.getId())).thenReturn(Optional.of(UserIdentity.of(originator)));
+            when(userRepository.getReferenceById(originator.getId())).thenReturn(originator);
             when(chargeRepository.findByOriginator(originator)).thenReturn(Arrays.asList(testCharge));
 
             List<ChargeDTO> result = chargeUseCase.getChargesByOriginator(originator.getId(), null);
@@ -195,7 +212,7 @@ class ChargeUseCaseTest {
             assertThat(result.get(0).getRecipientId()).isEqualTo(recipient.getId());
             assertThat(result.get(0).getStatus()).isEqualTo("PENDING");
 
-            verify(userRepository).findById(originator.getId());
+            verify(userIdentityCache).findById(originator.getId());
             verify(chargeRepository).findByOriginator(originator);
         }
 
@@ -203,7 +220,8 @@ class ChargeUseCaseTest {
         @DisplayName("Given valid originator with status filter, when getting sent charges, then should return filtered list")
         void givenValidOriginatorWithStatusFilter_whenGetChargesByOriginator_thenShouldReturnFilteredList() {
 
-            when(userRepository.findById(originator.getId())).thenReturn(Optional.of(originator));
+            when(userIdentityCache.findById(originator.getId())).thenReturn(Optional.of(UserIdentity.of(originator)));
+            when(userRepository.getReferenceById(originator.getId())).thenReturn(originator);
             when(chargeRepository.findByOriginatorAndStatus(originator, Charge.ChargeStatus.PENDING))
                     .thenReturn(Arrays.asList(testCharge));
 
@@ -212,7 +230,7 @@ class ChargeUseCaseTest {
             assertThat(result).hasSize(1);
             assertThat(result.get(0).getStatus()).isEqualTo("PENDING");
 
-            verify(userRepository).findById(originator.getId());
+            verify(userIdentityCache).findById(originator.getId());
             verify(chargeRepository).findByOriginatorAndStatus(originator, Charge.ChargeStatus.PENDING);
         }
 
@@ -221,13 +239,13 @@ class ChargeUseCaseTest {
         void givenNonExistentOriginator_whenGetChargesByOriginator_thenShouldThrowException() {
 
             UUID nonExistentUserId = UUID.fromString("99999999-9999-9999-9999-999999999999");
-            when(userRepository.findById(nonExistentUserId)).thenReturn(Optional.empty());
+            when(userIdentityCache.findById(nonExistentUserId)).thenReturn(Optional.empty());
 
             assertThatThrownBy(() -> chargeUseCase.getChargesByOriginator(nonExistentUserId, null))
                     .isInstanceOf(UserNotFoundException.class)
                     .hasMessage("User not found with ID: 99999999-9999-9999-9999-999999999999");
 
-            verify(userRepository).findById(any(UUID.class));
+            verify(userIdentityCache).findById(any(UUID.class));
             verify(chargeRepository, never()).findByOriginator(any(User.class));
         }
     }
@@ -240,7 +258,8 @@ class ChargeUseCaseTest {
         @DisplayName("Given valid recipient, when getting received charges, then should return ChargeDTO list")
         void givenValidRecipient_whenGetChargesByRecipient_thenShouldReturnChargeDTOList() {
 
-            when(userRepository.findById(recipient.getId())).thenReturn(Optional.of(recipient));
+            when(userIdentityCache.findById(recipient.getId())).thenReturn(Optional.of(UserIdentity.of(recipient)));
+            when(userRepository.getReferenceById(recipient.getId())).thenReturn(recipient);
             when(chargeRepository.findByRecipient(recipient)).thenReturn(Arrays.asList(testCharge));
 
             List<ChargeDTO> result = chargeUseCase.getChargesByRecipient(recipient.getId(), null);
@@ -250,7 +269,7 @@ class ChargeUseCaseTest {
             assertThat(result.get(0).getRecipientId()).isEqualTo(recipient.getId());
             assertThat(result.get(0).getStatus()).isEqualTo("PENDING");
 
-            verify(userRepository).findById(recipient.getId());
+            verify(userIdentityCache).findById(recipient.getId());
             verify(chargeRepository).findByRecipient(recipient);
         }
 
@@ -258,7 +277,8 @@ class ChargeUseCaseTest {
         @DisplayName("Given valid recipient with status filter, when getting received charges, then should return filtered list")
         void givenValidRecipientWithStatusFilter_whenGetChargesByRecipient_thenShouldReturnFilteredList() {
 
-            when(userRepository.findById(recipient.getId())).thenReturn(Optional.of(recipient));
+            when(userIdentityCache.findById(recipient.getId())).thenReturn(Optional.of(UserIdentity.of(recipient)));
+            when(userRepository.getReferenceById(recipient.getId())).thenReturn(recipient);
             when(chargeRepository.findByRecipientAndStatus(recipient, Charge.ChargeStatus.PENDING))
                     .thenReturn(Arrays.asList(testCharge));
 
@@ -267,7 +287,7 @@ class ChargeUseCaseTest {
             assertThat(result).hasSize(1);
             assertThat(result.get(0).getStatus()).isEqualTo("PENDING");
 
-            verify(userRepository).findById(recipient.getId());
+            verify(userIdentityCache).findById(recipient.getId());
             verify(chargeRepository).findByRecipientAndStatus(recipient, Charge.ChargeStatus.PENDING);
         }
     }
@@ -301,7 +321,7 @@ class ChargeUseCaseTest {
             when(chargeRepository.findById(nonExistentChargeId)).thenReturn(Optional.empty());
 
             assertThatThrownBy(() -> chargeUseCase.getChargeById(nonExistentChargeId, originator.getId()))
-                    .isInstanceOf(IllegalArgumentException.class)
+                    .isInstanceOf(BusinessRuleException.class)
                     .hasMessage("Charge not found");
 
             verify(chargeRepository).findById(any(UUID.class));
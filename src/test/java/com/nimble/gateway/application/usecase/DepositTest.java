@@ -4,19 +4,29 @@ import com.nimble.gateway.application.dto.DepositDTO;
 import com.nimble.gateway.application.dto.PaymentDTO;
 import com.nimble.gateway.domain.entity.Payment;
 import com.nimble.gateway.domain.entity.User;
+import com.nimble.gateway.domain.exception.ConflictException;
 import com.nimble.gateway.domain.exception.PaymentAuthorizationException;
 import com.nimble.gateway.domain.exception.UserNotFoundException;
+import com.nimble.gateway.domain.repository.ChargeRepository;
 import com.nimble.gateway.domain.repository.PaymentRepository;
 import com.nimble.gateway.domain.repository.UserRepository;
+import com.nimble.gateway.infrastructure.cache.PendingChargeIndex;
 import com.nimble.gateway.infrastructure.external.AuthorizerService;
+import com.nimble.gateway.infrastructure.outbox.ChargeEventOutbox;
+import com.nimble.gateway.infrastructure.persistence.ConflictRetry;
+import com.nimble.gateway.infrastructure.persistence.JpaPaymentEngine;
+import com.nimble.gateway.infrastructure.metrics.PaymentMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.support.TransactionOperations;
 import reactor.core.publisher.Mono;
 
 import java.math.BigDecimal;
@@ -36,11 +46,23 @@ class DepositTest {
     @Mock
     private UserRepository userRepository;
     @Mock
+    private ChargeRepository chargeRepository;
+    @Mock
     private PaymentRepository paymentRepository;
     @Mock
     private AuthorizerService authorizerService;
+    @Mock
+    private ChargeEventOutbox chargeEventOutbox;
+    @Spy
+    private TransactionOperations transactionOperations = TransactionOperations.withoutTransaction();
+
+    @Spy
+    private PaymentMetrics paymentMetrics = new PaymentMetrics(new SimpleMeterRegistry());
+    @Spy
+    private PendingChargeIndex pendingChargeIndex = new PendingChargeIndex(mock(ChargeRepository.class), new SimpleMeterRegistry(), true, 16, 1_000);
+    @Spy
+    private ConflictRetry conflictRetry = new ConflictRetry(new SimpleMeterRegistry(), 3, 1, 5);
 
-    @InjectMocks
     private PaymentUseCase paymentUseCase;
 
     private User testUser;
@@ -49,6 +71,10 @@ class DepositTest {
 
     @BeforeEach
     void setUp() {
+        paymentUseCase = new PaymentUseCase(chargeRepository, paymentRepository, userRepository, authorizerService, chargeEventOutbox,
+                transactionOperations, paymentMetrics, pendingChargeIndex, conflictRetry, new JpaPaymentEngine(userRepository,
+                chargeRepository, paymentRepository, chargeEventOutbox, pendingChargeIndex, transactionOperations, conflictRetry));
+
         UUID testUserId = UUID.fromString("11111111-1111-1111-1111-111111111111");
         testUser = User.builder()
                 .id(testUserId)
@@ -437,4 +463,52 @@ class DepositTest {
             verify(paymentRepository, never()).save(any(Payment.class));
         }
     }
+
+    @Nested
+    @DisplayName("Concurrent Update Scenarios")
+    class ConcurrentUpdateScenarios {
+
+        @Test
+        @DisplayName("GIVEN a balance changed between the read and the write WHEN depositing THEN should reload the user and retry without authorizing again")
+        void givenConcurrentBalanceChange_whenDepositing_thenShouldRetryFromFreshUser() {
+            // Given
+            User fresh = User.builder()
+                    .id(testUser.getId())
+                    .name(testUser.getName())
+                    .balance(new BigDecimal("150.00"))
+                    .build();
+            when(userRepository.findById(testUser.getId())).thenReturn(Optional.of(testUser), Optional.of(fresh));
+            when(authorizerService.authorizeDeposit(any(BigDecimal.class))).thenReturn(Mono.just(true));
+            when(userRepository.save(any(User.class)))
+                    .thenThrow(new ObjectOptimisticLockingFailureException(User.class, testUser.getId()))
+                    .thenReturn(fresh);
+            when(paymentRepository.save(any(Payment.class))).thenReturn(testDepositPayment);
+
+            // When
+            PaymentDTO result = paymentUseCase.deposit(validDepositDTO, testUser.getId()).block();
+
+            // Then
+            assertThat(result).isNotNull();
+            assertThat(fresh.getBalance()).isEqualByComparingTo("350.00");
+            verify(userRepository, times(2)).findById(testUser.getId());
+            verify(authorizerService, times(1)).authorizeDeposit(any(BigDecimal.class));
+        }
+
+        @Test
+        @DisplayName("GIVEN a user updated on every attempt WHEN depositing THEN should give up after the bounded attempts with a conflict")
+        void givenPersistentConflict_whenDepositing_thenShouldReportConflict() {
+            // Given
+            when(userRepository.findById(testUser.getId())).thenReturn(Optional.of(testUser));
+            when(authorizerService.authorizeDeposit(any(BigDecimal.class))).thenReturn(Mono.just(true));
+            when(paymentRepository.save(any(Payment.class))).thenAnswer(invocation -> invocation.getArgument(0));
+            when(userRepository.save(any(User.class))).thenThrow(new ObjectOptimisticLockingFailureException(User.class, testUser.getId()));
+
+            // When / Then
+            assertThatThrownBy(() -> paymentUseCase.deposit(validDepositDTO, testUser.getId()).block())
+                    .isInstanceOf(ConflictException.class)
+                    .hasCauseInstanceOf(ObjectOptimisticLockingFailureException.class);
+            verify(userRepository, times(3)).save(any(User.class));
+            verify(authorizerService, times(1)).authorizeDeposit(any(BigDecimal.class));
+        }
+    }
 }
@@ -6,27 +6,47 @@ import com.nimble.gateway.application.dto.PaymentDTO;
 import com.nimble.gateway.domain.entity.Charge;
 import com.nimble.gateway.domain.entity.Payment;
 import com.nimble.gateway.domain.entity.User;
+import com.nimble.gateway.domain.event.ChargeEvent;
+import com.nimble.gateway.domain.exception.BusinessRuleException;
+import com.nimble.gateway.domain.exception.ConflictException;
 import com.nimble.gateway.domain.exception.InsufficientBalanceException;
 import com.nimble.gateway.domain.exception.PaymentAuthorizationException;
 import com.nimble.gateway.domain.exception.UserNotFoundException;
 import com.nimble.gateway.domain.repository.ChargeRepository;
 import com.nimble.gateway.domain.repository.PaymentRepository;
 import com.nimble.gateway.domain.repository.UserRepository;
+import com.nimble.gateway.infrastructure.balance.InMemoryBalanceEngine;
+import com.nimble.gateway.infrastructure.balance.InMemoryPaymentEngine;
+import com.nimble.gateway.infrastructure.cache.PendingChargeIndex;
 import com.nimble.gateway.infrastructure.external.AuthorizerService;
+import com.nimble.gateway.infrastructure.outbox.ChargeEventOutbox;
+import com.nimble.gateway.infrastructure.persistence.ConflictRetry;
+import com.nimble.gateway.infrastructure.persistence.GroupCommitExecutor;
+import com.nimble.gateway.infrastructure.persistence.GroupCommitPaymentEngine;
+import com.nimble.gateway.infrastructure.persistence.JpaPaymentEngine;
+import com.nimble.gateway.infrastructure.persistence.PaymentEngine;
+import com.nimble.gateway.infrastructure.persistence.StoredProcedurePaymentEngine;
+import com.nimble.gateway.infrastructure.metrics.PaymentMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.support.TransactionOperations;
 import reactor.core.publisher.Mono;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
@@ -45,8 +65,21 @@ class PaymentTest {
     private UserRepository userRepository;
     @Mock
     private AuthorizerService authorizerService;
+    @Mock
+    private ChargeEventOutbox chargeEventOutbox;
+    @Spy
+    private TransactionOperations transactionOperations = TransactionOperations.withoutTransaction();
+    @Spy
+    private PaymentMetrics paymentMetrics = new PaymentMetrics(new SimpleMeterRegistry());
+    @Spy
+    private PendingChargeIndex pendingChargeIndex = new PendingChargeIndex(mock(ChargeRepository.class), new SimpleMeterRegistry(), true, 16, 1_000);
+    @Spy
+    private ConflictRetry conflictRetry = new ConflictRetry(new SimpleMeterRegistry(), 3, 1, 5);
+    @Mock
+    private GroupCommitExecutor groupCommitExecutor;
+    @Mock
+    private InMemoryBalanceEngine inMemoryBalanceEngine;
 
-    @InjectMocks
     private PaymentUseCase paymentUseCase;
 
     private User payer;
@@ -57,6 +90,8 @@ class PaymentTest {
 
     @BeforeEach
     void setUp() {
+        paymentUseCase = useCase(jpaEngine());
+
         UUID payerId = UUID.fromString("11111111-1111-1111-1111-111111111111");
         UUID recipientId = UUID.fromString("22222222-2222-2222-2222-222222222222");
         UUID chargeId = UUID.fromString("33333333-3333-3333-3333-333333333333");
@@ -191,7 +226,7 @@ class PaymentTest {
             when(chargeRepository.findById(nonExistentChargeId)).thenReturn(Optional.empty());
 
             assertThatThrownBy(() -> paymentUseCase.payCharge(payChargeDTO, payer.getId()).block())
-                    .isInstanceOf(IllegalArgumentException.class)
+                    .isInstanceOf(BusinessRuleException.class)
                     .hasMessage("Charge not found");
 
             verify(chargeRepository).findById(nonExistentChargeId);
@@ -220,7 +255,7 @@ class PaymentTest {
             when(chargeRepository.findById(payer.getId())).thenReturn(Optional.of(paidCharge));
 
             assertThatThrownBy(() -> paymentUseCase.payCharge(payChargeDTO, payer.getId()).block())
-                    .isInstanceOf(IllegalArgumentException.class)
+                    .isInstanceOf(BusinessRuleException.class)
                     .hasMessage("Charge is not pending");
 
             verify(chargeRepository).findById(payer.getId());
@@ -241,7 +276,7 @@ class PaymentTest {
             when(userRepository.findById(unauthorizedUserId)).thenReturn(Optional.of(payer));
 
             assertThatThrownBy(() -> paymentUseCase.payCharge(payChargeDTO, unauthorizedUserId).block())
-                    .isInstanceOf(IllegalArgumentException.class)
+                    .isInstanceOf(BusinessRuleException.class)
                     .hasMessage("Only the recipient can pay this charge");
 
             verify(chargeRepository).findById(payer.getId());
@@ -302,7 +337,7 @@ class PaymentTest {
             when(userRepository.findById(payer.getId())).thenReturn(Optional.of(payer));
 
             assertThatThrownBy(() -> paymentUseCase.payCharge(payChargeDTO, payer.getId()).block())
-                    .isInstanceOf(IllegalArgumentException.class)
+                    .isInstanceOf(BusinessRuleException.class)
                     .hasMessage("Credit card information is required");
 
             verify(chargeRepository).findById(payer.getId());
@@ -417,4 +452,390 @@ class PaymentTest {
             verify(authorizerService, never()).authorizeDeposit();
         }
     }
-}
\ No newline at end of file
+
+    @Nested
+    @DisplayName("Pending Charge Index Scenarios")
+    class PendingChargeIndexScenarios {
+
+        @Test
+        @DisplayName("GIVEN an indexed charge for another recipient WHEN paying THEN should refuse without reading the charge")
+        void givenIndexedChargeForAnotherRecipient_whenPaying_thenShouldRefuseWithoutDatabase() {
+
+            pendingChargeIndex.applyAfterCommit(List.of(testCharge), ChargeEvent.Type.CREATED);
+            PayChargeDTO payChargeDTO = PayChargeDTO.builder()
+                    .chargeId(testCharge.getId())
+                    .method("BALANCE")
+                    .build();
+
+            assertThatThrownBy(() -> paymentUseCase.payCharge(payChargeDTO, recipient.getId()).block())
+                    .isInstanceOf(BusinessRuleException.class)
+                    .hasMessage("Only the recipient can pay this charge");
+
+            verify(chargeRepository, never()).findById(any(UUID.class));
+        }
+
+        @Test
+        @DisplayName("GIVEN a charge already paid WHEN paying it again THEN should refuse without reading the charge")
+        void givenPaidCharge_whenPayingAgain_thenShouldRefuseWithoutDatabase() {
+
+            testCharge.setStatus(Charge.ChargeStatus.PAID);
+            pendingChargeIndex.applyAfterCommit(List.of(testCharge), ChargeEvent.Type.PAID);
+            PayChargeDTO payChargeDTO = PayChargeDTO.builder()
+                    .chargeId(testCharge.getId())
+                    .method("BALANCE")
+                    .build();
+
+            assertThatThrownBy(() -> paymentUseCase.payCharge(payChargeDTO, payer.getId()).block())
+                    .isInstanceOf(BusinessRuleException.class)
+                    .hasMessage("Charge is not pending");
+
+            verify(chargeRepository, never()).findById(any(UUID.class));
+            verify(userRepository, never()).findById(any(UUID.class));
+        }
+
+        @Test
+        @DisplayName("GIVEN an indexed charge paid elsewhere WHEN paying THEN should let the database decide and correct the index")
+        void givenStaleIndexedCharge_whenPaying_thenShouldTrustDatabase() {
+
+            pendingChargeIndex.applyAfterCommit(List.of(testCharge), ChargeEvent.Type.CREATED);
+            testCharge.setStatus(Charge.ChargeStatus.PAID);
+            when(chargeRepository.findById(testCharge.getId())).thenReturn(Optional.of(testCharge));
+            PayChargeDTO payChargeDTO = PayChargeDTO.builder()
+                    .chargeId(testCharge.getId())
+                    .method("BALANCE")
+                    .build();
+
+            assertThatThrownBy(() -> paymentUseCase.payCharge(payChargeDTO, payer.getId()).block())
+                    .isInstanceOf(BusinessRuleException.class);
+
+            assertThat(pendingChargeIndex.check(testCharge.getId(), payer.getId())).isEqualTo(PendingChargeIndex.Verdict.NOT_PENDING);
+        }
+    }
+
+    @Nested
+    @DisplayName("Concurrent Update Scenarios")
+    class ConcurrentUpdateScenarios {
+
+        @Test
+        @DisplayName("GIVEN a payer updated between the read and the write WHEN paying by balance THEN should retry from a fresh read")
+        void givenConcurrentPayerUpdate_whenPayingByBalance_thenShouldRetry() {
+
+            PayChargeDTO payChargeDTO = PayChargeDTO.builder()
+                    .chargeId(testCharge.getId())
+                    .method("BALANCE")
+                    .build();
+            when(chargeRepository.findById(testCharge.getId())).thenReturn(Optional.of(testCharge));
+            when(userRepository.findById(payer.getId())).thenReturn(Optional.of(payer));
+            when(userRepository.save(any(User.class)))
+                    .thenThrow(new ObjectOptimisticLockingFailureException(User.class, payer.getId()))
+                    .thenReturn(payer);
+            when(paymentRepository.save(any(Payment.class))).thenReturn(testPaymentBalance);
+
+            PaymentDTO result = paymentUseCase.payCharge(payChargeDTO, payer.getId()).block();
+
+            assertThat(result).isNotNull();
+            verify(chargeRepository, times(2)).findById(testCharge.getId());
+            verify(userRepository, times(2)).findById(payer.getId());
+            verify(paymentRepository, times(2)).save(any(Payment.class));
+        }
+
+        @Test
+        @DisplayName("GIVEN an authorized card payment WHEN its write conflicts THEN should report a conflict without authorizing again")
+        void givenAuthorizedCardPayment_whenWriteConflicts_thenShouldNotRetry() {
+
+            PayChargeDTO payChargeDTO = PayChargeDTO.builder()
+                    .chargeId(testCharge.getId())
+                    .method("CREDIT_CARD")
+                    .cardNumber("4111111111111111")
+                    .expiryDate("12/30")
+                    .cvv("123")
+                    .build();
+            when(chargeRepository.findById(testCharge.getId())).thenReturn(Optional.of(testCharge));
+            when(userRepository.findById(payer.getId())).thenReturn(Optional.of(payer));
+            when(authorizerService.authorizePayment(any(BigDecimal.class))).thenReturn(Mono.just(true));
+            when(paymentRepository.save(any(Payment.class))).thenReturn(testPaymentCreditCard);
+            when(userRepository.save(any(User.class))).thenThrow(new ObjectOptimisticLockingFailureException(User.class, payer.getId()));
+
+            assertThatThrownBy(() -> paymentUseCase.payCharge(payChargeDTO, payer.getId()).block())
+                    .isInstanceOf(ConflictException.class);
+
+            verify(authorizerService, times(1)).authorizePayment(any(BigDecimal.class));
+            verify(paymentRepository, times(1)).save(any(Payment.class));
+        }
+    }
+
+    private PaymentUseCase useCase(PaymentEngine engine) {
+        return new PaymentUseCase(chargeRepository, paymentRepository, userRepository, authorizerService, chargeEventOutbox,
+                transactionOperations, paymentMetrics, pendingChargeIndex, conflictRetry, engine);
+    }
+
+    private JpaPaymentEngine jpaEngine() {
+        return new JpaPaymentEngine(userRepository, chargeRepository, paymentRepository, chargeEventOutbox, pendingChargeIndex,
+                transactionOperations, conflictRetry);
+    }
+
+    @Nested
+    @DisplayName("Stored Procedure Engine Scenarios")
+    class StoredProcedureEngineScenarios {
+
+        private StoredProcedurePaymentEngine storedProcedurePaymentEngine;
+
+        @BeforeEach
+        void enableEngine() {
+            storedProcedurePaymentEngine = spy(new StoredProcedurePaymentEngine(mock(JdbcTemplate.class), userRepository, chargeRepository,
+                    paymentRepository, chargeEventOutbox, pendingChargeIndex, transactionOperations, conflictRetry));
+            paymentUseCase = useCase(storedProcedurePaymentEngine);
+        }
+
+        @Test
+        @DisplayName("GIVEN the stored-procedure engine WHEN paying by balance THEN should pay in one procedure call without loading entities")
+        void givenStoredProcedureEngine_whenPayingByBalance_thenShouldCallProcedureOnly() {
+
+            PayChargeDTO payChargeDTO = PayChargeDTO.builder()
+                    .chargeId(testCharge.getId())
+                    .method("BALANCE")
+                    .build();
+            doReturn(Mono.just(testPaymentBalance)).when(storedProcedurePaymentEngine).payWithBalance(testCharge.getId(), payer.getId());
+
+            PaymentDTO result = paymentUseCase.payCharge(payChargeDTO, payer.getId()).block();
+
+            assertThat(result).isNotNull();
+            assertThat(result.getId()).isEqualTo(testPaymentBalance.getId());
+            assertThat(result.getChargeId()).isEqualTo(testCharge.getId());
+            assertThat(result.getPayerName()).isEqualTo(payer.getName());
+            assertThat(result.getMethod()).isEqualTo("BALANCE");
+            verifyNoInteractions(chargeRepository, userRepository, paymentRepository, chargeEventOutbox);
+        }
+
+        @Test
+        @DisplayName("GIVEN the stored-procedure engine WHEN the procedure refuses the pay THEN should fail with the same error as the JPA path")
+        void givenStoredProcedureEngine_whenProcedureRefuses_thenShouldPropagateError() {
+
+            PayChargeDTO payChargeDTO = PayChargeDTO.builder()
+                    .chargeId(testCharge.getId())
+                    .method("BALANCE")
+                    .build();
+            doReturn(Mono.error(new InsufficientBalanceException("Insufficient balance")))
+                    .when(storedProcedurePaymentEngine).payWithBalance(testCharge.getId(), payer.getId());
+
+            assertThatThrownBy(() -> paymentUseCase.payCharge(payChargeDTO, payer.getId()).block())
+                    .isInstanceOf(InsufficientBalanceException.class)
+                    .hasMessage("Insufficient balance");
+        }
+
+        @Test
+        @DisplayName("GIVEN the stored-procedure engine WHEN the index already knows the charge is paid THEN should refuse without calling the procedure")
+        void givenStoredProcedureEngineAndPaidCharge_whenPaying_thenShouldNotCallProcedure() {
+
+            testCharge.setStatus(Charge.ChargeStatus.PAID);
+            pendingChargeIndex.applyAfterCommit(List.of(testCharge), ChargeEvent.Type.PAID);
+            PayChargeDTO payChargeDTO = PayChargeDTO.builder()
+                    .chargeId(testCharge.getId())
+                    .method("BALANCE")
+                    .build();
+
+            assertThatThrownBy(() -> paymentUseCase.payCharge(payChargeDTO, payer.getId()).block())
+                    .isInstanceOf(BusinessRuleException.class)
+                    .hasMessage("Charge is not pending");
+
+            verify(storedProcedurePaymentEngine, never()).payWithBalance(any(), any());
+        }
+
+        @Test
+        @DisplayName("GIVEN the stored-procedure engine WHEN paying by credit card THEN should stay on the JPA path")
+        void givenStoredProcedureEngine_whenPayingByCreditCard_thenShouldUseJpaPath() {
+
+            PayChargeDTO payChargeDTO = PayChargeDTO.builder()
+                    .chargeId(testCharge.getId())
+                    .method("CREDIT_CARD")
+                    .cardNumber("4111111111111111")
+                    .expiryDate("12/30")
+                    .cvv("123")
+                    .build();
+            when(chargeRepository.findById(testCharge.getId())).thenReturn(Optional.of(testCharge));
+            when(userRepository.findById(payer.getId())).thenReturn(Optional.of(payer));
+            when(authorizerService.authorizePayment(any(BigDecimal.class))).thenReturn(Mono.just(true));
+            when(paymentRepository.save(any(Payment.class))).thenReturn(testPaymentCreditCard);
+
+            PaymentDTO result = paymentUseCase.payCharge(payChargeDTO, payer.getId()).block();
+
+            assertThat(result).isNotNull();
+            assertThat(result.getMethod()).isEqualTo("CREDIT_CARD");
+            verify(storedProcedurePaymentEngine, never()).payWithBalance(any(), any());
+        }
+
+        @Test
+        @DisplayName("GIVEN the stored-procedure engine WHEN depositing THEN should credit the user in one procedure call")
+        void givenStoredProcedureEngine_whenDepositing_thenShouldCallProcedure() {
+
+            DepositDTO depositDTO = DepositDTO.builder().amount(new BigDecimal("50.00")).build();
+            Payment deposited = Payment.builder()
+                    .id(UUID.randomUUID())
+                    .payer(payer)
+                    .amount(new BigDecimal("50.00"))
+                    .method(Payment.PaymentMethod.BALANCE)
+                    .paymentDate(LocalDateTime.now())
+                    .build();
+            when(userRepository.findById(payer.getId())).thenReturn(Optional.of(payer));
+            when(authorizerService.authorizeDeposit(any(BigDecimal.class))).thenReturn(Mono.just(true));
+            doReturn(Mono.just(deposited)).when(storedProcedurePaymentEngine).deposit(payer, new BigDecimal("50.00"));
+
+            PaymentDTO result = paymentUseCase.deposit(depositDTO, payer.getId()).block();
+
+            assertThat(result).isNotNull();
+            assertThat(result.getId()).isEqualTo(deposited.getId());
+            assertThat(result.getChargeId()).isNull();
+            assertThat(result.getAmount()).isEqualByComparingTo("50.00");
+            verify(userRepository, never()).save(any(User.class));
+            verify(paymentRepository, never()).save(any(Payment.class));
+        }
+    }
+
+    @Nested
+    @DisplayName("Group Commit Engine Scenarios")
+    class GroupCommitEngineScenarios {
+
+        @BeforeEach
+        void enableEngine() {
+            paymentUseCase = useCase(new GroupCommitPaymentEngine(groupCommitExecutor, userRepository, chargeRepository, paymentRepository,
+                    chargeEventOutbox, pendingChargeIndex, transactionOperations, conflictRetry));
+        }
+
+        @Test
+        @DisplayName("GIVEN the group-commit engine WHEN paying by balance THEN should hand the pay to the shard writer without loading entities")
+        void givenGroupCommitEngine_whenPayingByBalance_thenShouldSubmitToWriter() {
+
+            PayChargeDTO payChargeDTO = PayChargeDTO.builder()
+                    .chargeId(testCharge.getId())
+                    .method("BALANCE")
+                    .build();
+            when(groupCommitExecutor.payWithBalance(testCharge.getId(), payer.getId()))
+                    .thenReturn(CompletableFuture.completedFuture(testPaymentBalance));
+
+            PaymentDTO result = paymentUseCase.payCharge(payChargeDTO, payer.getId()).block();
+
+            assertThat(result).isNotNull();
+            assertThat(result.getId()).isEqualTo(testPaymentBalance.getId());
+            assertThat(result.getChargeId()).isEqualTo(testCharge.getId());
+            assertThat(result.getMethod()).isEqualTo("BALANCE");
+            verifyNoInteractions(chargeRepository, userRepository, paymentRepository, chargeEventOutbox);
+        }
+
+        @Test
+        @DisplayName("GIVEN the group-commit engine WHEN the writer refuses the pay THEN should fail with the same error as the JPA path")
+        void givenGroupCommitEngine_whenWriterRefuses_thenShouldPropagateError() {
+
+            PayChargeDTO payChargeDTO = PayChargeDTO.builder()
+                    .chargeId(testCharge.getId())
+                    .method("BALANCE")
+                    .build();
+            when(groupCommitExecutor.payWithBalance(testCharge.getId(), payer.getId()))
+                    .thenReturn(CompletableFuture.failedFuture(new InsufficientBalanceException("Insufficient balance")));
+
+            assertThatThrownBy(() -> paymentUseCase.payCharge(payChargeDTO, payer.getId()).block())
+                    .isInstanceOf(InsufficientBalanceException.class)
+                    .hasMessage("Insufficient balance");
+        }
+
+        @Test
+        @DisplayName("GIVEN the group-commit engine WHEN depositing THEN should credit the user through the shard writer once authorized")
+        void givenGroupCommitEngine_whenDepositing_thenShouldSubmitToWriter() {
+
+            DepositDTO depositDTO = DepositDTO.builder().amount(new BigDecimal("50.00")).build();
+            Payment deposited = Payment.builder()
+                    .id(UUID.randomUUID())
+                    .payer(payer)
+                    .amount(new BigDecimal("50.00"))
+                    .method(Payment.PaymentMethod.BALANCE)
+                    .paymentDate(LocalDateTime.now())
+                    .build();
+            when(userRepository.findById(payer.getId())).thenReturn(Optional.of(payer));
+            when(authorizerService.authorizeDeposit(any(BigDecimal.class))).thenReturn(Mono.just(true));
+            when(groupCommitExecutor.deposit(payer.getId(), new BigDecimal("50.00")))
+                    .thenReturn(CompletableFuture.completedFuture(deposited));
+
+            PaymentDTO result = paymentUseCase.deposit(depositDTO, payer.getId()).block();
+
+            assertThat(result).isNotNull();
+            assertThat(result.getId()).isEqualTo(deposited.getId());
+            assertThat(result.getChargeId()).isNull();
+            verify(userRepository, never()).save(any(User.class));
+            verify(paymentRepository, never()).save(any(Payment.class));
+        }
+    }
+
+    @Nested
+    @DisplayName("In-Memory Balance Engine Scenarios")
+    class InMemoryBalanceEngineScenarios {
+
+        @BeforeEach
+        void enableEngine() {
+            paymentUseCase = useCase(new InMemoryPaymentEngine(inMemoryBalanceEngine, userRepository, chargeRepository, paymentRepository,
+                    chargeEventOutbox, pendingChargeIndex, transactionOperations, conflictRetry));
+        }
+
+        @Test
+        @DisplayName("GIVEN the in-memory engine WHEN paying by balance THEN should move the amount through the engine and write only the charge and payment")
+        void givenInMemoryEngine_whenPayingByBalance_thenShouldTransferThroughEngine() {
+
+            PayChargeDTO payChargeDTO = PayChargeDTO.builder()
+                    .chargeId(testCharge.getId())
+                    .method("BALANCE")
+                    .build();
+            when(chargeRepository.findById(testCharge.getId())).thenReturn(Optional.of(testCharge));
+            when(userRepository.findById(payer.getId())).thenReturn(Optional.of(payer));
+            when(paymentRepository.save(any(Payment.class))).thenReturn(testPaymentBalance);
+
+            PaymentDTO result = paymentUseCase.payCharge(payChargeDTO, payer.getId()).block();
+
+            assertThat(result).isNotNull();
+            assertThat(result.getMethod()).isEqualTo("BALANCE");
+            assertThat(testCharge.getStatus()).isEqualTo(Charge.ChargeStatus.PAID);
+            verify(inMemoryBalanceEngine).transfer(testPaymentBalance.getId(), payer.getId(), payer.getId(), new BigDecimal("100.00"), true);
+            verify(userRepository, never()).save(any(User.class));
+            assertThat(payer.getBalance()).isEqualByComparingTo("500.00");
+        }
+
+        @Test
+        @DisplayName("GIVEN the in-memory engine WHEN it refuses the debit THEN should fail with insufficient balance and leave the charge pending")
+        void givenInMemoryEngine_whenEngineRefuses_thenShouldPropagateError() {
+
+            PayChargeDTO payChargeDTO = PayChargeDTO.builder()
+                    .chargeId(testCharge.getId())
+                    .method("BALANCE")
+                    .build();
+            when(chargeRepository.findById(testCharge.getId())).thenReturn(Optional.of(testCharge));
+            when(userRepository.findById(payer.getId())).thenReturn(Optional.of(payer));
+            when(paymentRepository.save(any(Payment.class))).thenReturn(testPaymentBalance);
+            doThrow(new InsufficientBalanceException("Insufficient balance"))
+                    .when(inMemoryBalanceEngine).transfer(testPaymentBalance.getId(), payer.getId(), payer.getId(), new BigDecimal("100.00"), true);
+
+            assertThatThrownBy(() -> paymentUseCase.payCharge(payChargeDTO, payer.getId()).block())
+                    .isInstanceOf(InsufficientBalanceException.class)
+                    .hasMessage("Insufficient balance");
+            assertThat(testCharge.getStatus()).isEqualTo(Charge.ChargeStatus.PENDING);
+            verify(chargeRepository, never()).save(any(Charge.class));
+        }
+
+        @Test
+        @DisplayName("GIVEN the in-memory engine WHEN depositing THEN should credit the user from outside through the engine once authorized")
+        void givenInMemoryEngine_whenDepositing_thenShouldTransferFromOutside() {
+
+            DepositDTO depositDTO = DepositDTO.builder().amount(new BigDecimal("50.00")).build();
+            when(userRepository.findById(payer.getId())).thenReturn(Optional.of(payer));
+            when(authorizerService.authorizeDeposit(any(BigDecimal.class))).thenReturn(Mono.just(true));
+            when(paymentRepository.save(any(Payment.class))).thenAnswer(invocation -> {
+                Payment payment = invocation.getArgument(0);
+                payment.setId(UUID.randomUUID());
+                return payment;
+            });
+
+            PaymentDTO result = paymentUseCase.deposit(depositDTO, payer.getId()).block();
+
+            assertThat(result).isNotNull();
+            assertThat(result.getAmount()).isEqualByComparingTo("50.00");
+            verify(inMemoryBalanceEngine).transfer(result.getId(), null, payer.getId(), new BigDecimal("50.00"), false);
+            verify(userRepository, never()).save(any(User.class));
+        }
+    }
+}
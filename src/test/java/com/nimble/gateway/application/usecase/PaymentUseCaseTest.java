@@ -9,19 +9,27 @@ import com.nimble.gateway.domain.entity.User;
 import com.nimble.gateway.domain.repository.ChargeRepository;
 import com.nimble.gateway.domain.repository.PaymentRepository;
 import com.nimble.gateway.domain.repository.UserRepository;
+import com.nimble.gateway.domain.exception.BusinessRuleException;
 import com.nimble.gateway.domain.exception.UserNotFoundException;
 import com.nimble.gateway.domain.exception.InsufficientBalanceException;
 import com.nimble.gateway.domain.exception.PaymentAuthorizationException;
 import com.nimble.gateway.domain.exception.ConflictException;
+import com.nimble.gateway.infrastructure.cache.PendingChargeIndex;
 import com.nimble.gateway.infrastructure.external.AuthorizerService;
+import com.nimble.gateway.infrastructure.outbox.ChargeEventOutbox;
+import com.nimble.gateway.infrastructure.persistence.ConflictRetry;
+import com.nimble.gateway.infrastructure.persistence.JpaPaymentEngine;
+import com.nimble.gateway.infrastructure.metrics.PaymentMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionOperations;
 import reactor.core.publisher.Mono;
 
 import java.math.BigDecimal;
@@ -49,7 +57,19 @@ class PaymentUseCaseTest {
     @Mock
     private AuthorizerService authorizerService;
 
-    @InjectMocks
+    @Mock
+    private ChargeEventOutbox chargeEventOutbox;
+
+    @Spy
+    private TransactionOperations transactionOperations = TransactionOperations.withoutTransaction();
+
+    @Spy
+    private PaymentMetrics paymentMetrics = new PaymentMetrics(new SimpleMeterRegistry());
+    @Spy
+    private PendingChargeIndex pendingChargeIndex = new PendingChargeIndex(mock(ChargeRepository.class), new SimpleMeterRegistry(), true, 16, 1_000);
+    @Spy
+    private ConflictRetry conflictRetry = new ConflictRetry(new SimpleMeterRegistry(), 3, 1, 5);
+
     private PaymentUseCase paymentUseCase;
 
     private User payer;
@@ -60,6 +80,10 @@ class PaymentUseCaseTest {
 
     @BeforeEach
     void setUp() {
+        paymentUseCase = new PaymentUseCase(chargeRepository, paymentRepository, userRepository, authorizerService, chargeEventOutbox,
+                transactionOperations, paymentMetrics, pendingChargeIndex, conflictRetry, new JpaPaymentEngine(userRepository,
+                chargeRepository, paymentRepository, chargeEventOutbox, pendingChargeIndex, transactionOperations, conflictRetry));
+
         UUID payerId = UUID.fromString("11111111-1111-1111-1111-111111111111");
         UUID recipientId = UUID.fromString("22222222-2222-2222-2222-222222222222");
         UUID chargeId = UUID.fromString("33333333-3333-3333-3333-333333333333");
@@ -168,7 +192,7 @@ class PaymentUseCaseTest {
             when(chargeRepository.findById(testCharge.getId())).thenReturn(Optional.of(testCharge));
 
             assertThatThrownBy(() -> paymentUseCase.payCharge(payChargeDTO, payer.getId()).block())
-                    .isInstanceOf(IllegalArgumentException.class)
+                    .isInstanceOf(BusinessRuleException.class)
                     .hasMessage("Charge is not pending");
 
             verify(chargeRepository).findById(testCharge.getId());
@@ -184,7 +208,7 @@ class PaymentUseCaseTest {
 
 
             assertThatThrownBy(() -> paymentUseCase.payCharge(payChargeDTO, recipient.getId()).block())
-                    .isInstanceOf(IllegalArgumentException.class)
+                    .isInstanceOf(BusinessRuleException.class)
                     .hasMessage("Only the recipient can pay this charge");
 
             verify(chargeRepository).findById(testCharge.getId());
@@ -275,7 +299,7 @@ class PaymentUseCaseTest {
 
 
             assertThatThrownBy(() -> paymentUseCase.payCharge(incompleteDTO, payer.getId()).block())
-                    .isInstanceOf(IllegalArgumentException.class)
+                    .isInstanceOf(BusinessRuleException.class)
                     .hasMessage("Credit card information is required");
 
             verify(authorizerService, never()).authorizePayment(any(BigDecimal.class));
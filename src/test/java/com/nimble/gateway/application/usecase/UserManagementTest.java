@@ -3,11 +3,18 @@ package com.nimble.gateway.application.usecase;
 import com.nimble.gateway.application.dto.AuthResponseDTO;
 import com.nimble.gateway.application.dto.CreateUserDTO;
 import com.nimble.gateway.application.dto.LoginDTO;
+import com.nimble.gateway.application.dto.RefreshTokenDTO;
 import com.nimble.gateway.application.dto.UserDTO;
 import com.nimble.gateway.domain.entity.User;
 import com.nimble.gateway.domain.exception.UserNotFoundException;
 import com.nimble.gateway.domain.repository.UserRepository;
+import com.nimble.gateway.domain.valueobject.UserIdentity;
+import com.nimble.gateway.infrastructure.cache.UserIdentityCache;
+import com.nimble.gateway.infrastructure.persistence.PaymentEngine;
 import com.nimble.gateway.infrastructure.security.JwtTokenProvider;
+import com.nimble.gateway.infrastructure.security.RefreshTokenRevocations;
+import com.nimble.gateway.infrastructure.metrics.UserMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
@@ -15,13 +22,17 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import io.jsonwebtoken.MalformedJwtException;
 import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
 import java.math.BigDecimal;
+import java.time.Instant;
 import java.time.LocalDateTime;
 import java.util.Optional;
 import java.util.UUID;
@@ -39,11 +50,20 @@ class UserManagementTest {
     @Mock
     private UserRepository userRepository;
     @Mock
+    private UserIdentityCache userIdentityCache;
+    @Mock
     private PasswordEncoder passwordEncoder;
     @Mock
     private JwtTokenProvider jwtTokenProvider;
     @Mock
     private AuthenticationManager authenticationManager;
+    @Mock
+    private RefreshTokenRevocations refreshTokenRevocations;
+    @Mock
+    private PaymentEngine paymentEngine;
+
+    @Spy
+    private UserMetrics userMetrics = new UserMetrics(new SimpleMeterRegistry());
 
     @InjectMocks
     private UserUseCase userUseCase;
@@ -53,6 +73,8 @@ class UserManagementTest {
 
     @BeforeEach
     void setUp() {
+        lenient().when(paymentEngine.balanceOf(any(User.class))).thenAnswer(invocation -> invocation.getArgument(0, User.class).getBalance());
+
         testUser = User.builder()
                 .id(UUID.randomUUID())
                 .name("João Silva")
@@ -159,7 +181,8 @@ class UserManagementTest {
         void givenExistingUsername_whenGettingUserByUsername_thenShouldReturnUserDTO() {
 
             String username = "joao@teste.com";
-            when(userRepository.findByEmail(username)).thenReturn(Optional.of(testUser));
+            when(userIdentityCache.findByUsername(username)).thenReturn(Optional.of(UserIdentity.of(testUser)));
+            when(userRepository.findById(testUser.getId())).thenReturn(Optional.of(testUser));
 
 
             UserDTO result = userUseCase.getUserByUsername(username);
@@ -169,7 +192,8 @@ class UserManagementTest {
             assertThat(result.getEmail()).isEqualTo(username);
             assertThat(result.getName()).isEqualTo(testUser.getName());
 
-            verify(userRepository).findByEmail(username);
+            verify(userIdentityCache).findByUsername(username);
+            verify(userRepository).findById(testUser.getId());
         }
 
         @Test
@@ -177,8 +201,8 @@ class UserManagementTest {
         void givenExistingCpfAsUsername_whenGettingUserByUsername_thenShouldReturnUserDTO() {
 
             String cpfUsername = "12345678901";
-            when(userRepository.findByEmail(cpfUsername)).thenReturn(Optional.empty());
-            when(userRepository.findByCpf(cpfUsername)).thenReturn(Optional.of(testUser));
+            when(userIdentityCache.findByUsername(cpfUsername)).thenReturn(Optional.of(UserIdentity.of(testUser)));
+            when(userRepository.findById(testUser.getId())).thenReturn(Optional.of(testUser));
 
 
             UserDTO result = userUseCase.getUserByUsername(cpfUsername);
@@ -188,8 +212,8 @@ class UserManagementTest {
             assertThat(result.getCpf()).isEqualTo(cpfUsername);
             assertThat(result.getName()).isEqualTo(testUser.getName());
 
-            verify(userRepository).findByEmail(cpfUsername);
-            verify(userRepository).findByCpf(cpfUsername);
+            verify(userIdentityCache).findByUsername(cpfUsername);
+            verify(userRepository).findById(testUser.getId());
         }
 
         @Test
@@ -197,14 +221,14 @@ class UserManagementTest {
         void givenNonExistingUsername_whenGettingUserByUsername_thenShouldThrowUserNotFoundException() {
 
             String username = "nonexistent@test.com";
-            when(userRepository.findByEmail(username)).thenReturn(Optional.empty());
+            when(userIdentityCache.findByUsername(username)).thenReturn(Optional.empty());
 
 
             assertThatThrownBy(() -> userUseCase.getUserByUsername(username))
                     .isInstanceOf(UserNotFoundException.class)
                     .hasMessage("User not found");
 
-            verify(userRepository).findByEmail(username);
+            verify(userIdentityCache).findByUsername(username);
         }
     }
 
@@ -226,8 +250,9 @@ class UserManagementTest {
             when(authenticationManager.authenticate(any(UsernamePasswordAuthenticationToken.class)))
                     .thenReturn(mockAuth);
             when(jwtTokenProvider.generateToken(mockAuth)).thenReturn("access-token");
-            when(jwtTokenProvider.generateRefreshToken("joao@teste.com")).thenReturn("refresh-token");
-            when(userRepository.findByEmail("joao@teste.com")).thenReturn(Optional.of(testUser));
+            when(jwtTokenProvider.generateRefreshToken(testUser.getId(), "joao@teste.com")).thenReturn("refresh-token");
+            when(userIdentityCache.findByUsername("joao@teste.com")).thenReturn(Optional.of(UserIdentity.of(testUser)));
+            when(userRepository.findById(testUser.getId())).thenReturn(Optional.of(testUser));
 
 
             AuthResponseDTO result = userUseCase.login(loginDTO);
@@ -242,8 +267,9 @@ class UserManagementTest {
 
             verify(authenticationManager).authenticate(any(UsernamePasswordAuthenticationToken.class));
             verify(jwtTokenProvider).generateToken(mockAuth);
-            verify(jwtTokenProvider).generateRefreshToken("joao@teste.com");
-            verify(userRepository).findByEmail("joao@teste.com");
+            verify(jwtTokenProvider).generateRefreshToken(testUser.getId(), "joao@teste.com");
+            verify(userIdentityCache).findByUsername("joao@teste.com");
+            verify(userRepository).findById(testUser.getId());
         }
 
         @Test
@@ -265,7 +291,88 @@ class UserManagementTest {
 
             verify(authenticationManager).authenticate(any(UsernamePasswordAuthenticationToken.class));
             verify(jwtTokenProvider, never()).generateToken(any());
-            verify(userRepository, never()).findByEmail(anyString());
+            verify(userIdentityCache, never()).findByUsername(anyString());
+        }
+    }
+
+    @Nested
+    @DisplayName("Token Refresh Scenarios")
+    class TokenRefreshScenarios {
+
+        private final UUID familyId = UUID.randomUUID();
+        private JwtTokenProvider.RefreshToken presented;
+        private RefreshTokenDTO refreshTokenDTO;
+
+        @BeforeEach
+        void setUp() {
+            presented = new JwtTokenProvider.RefreshToken(UUID.randomUUID(), familyId, testUser.getId(), "joao@teste.com", Instant.now().plusSeconds(600));
+            refreshTokenDTO = RefreshTokenDTO.builder().refreshToken("refresh-token").build();
+        }
+
+        @Test
+        @DisplayName("GIVEN an unused refresh token WHEN refreshing THEN should rotate it within the same family without checking a password")
+        void givenUnusedRefreshToken_whenRefreshing_thenShouldRotateWithinFamily() {
+
+            when(jwtTokenProvider.parseRefreshToken("refresh-token")).thenReturn(presented);
+            when(refreshTokenRevocations.isRevoked(familyId)).thenReturn(false);
+            when(refreshTokenRevocations.consume(presented.id(), testUser.getId(), presented.expiresAt())).thenReturn(true);
+            when(userIdentityCache.findById(testUser.getId())).thenReturn(Optional.of(UserIdentity.of(testUser)));
+            when(jwtTokenProvider.generateToken(testUser.getId(), "joao@teste.com")).thenReturn("access-token-2");
+            when(jwtTokenProvider.generateRefreshToken(testUser.getId(), "joao@teste.com", familyId)).thenReturn("refresh-token-2");
+
+
+            AuthResponseDTO result = userUseCase.refresh(refreshTokenDTO);
+
+
+            assertThat(result.getToken()).isEqualTo("access-token-2");
+            assertThat(result.getRefreshToken()).isEqualTo("refresh-token-2");
+            assertThat(result.getType()).isEqualTo("Bearer");
+            verifyNoInteractions(authenticationManager, passwordEncoder, userRepository);
+        }
+
+        @Test
+        @DisplayName("GIVEN a refresh token that was already rotated WHEN refreshing THEN should revoke its family and reject it")
+        void givenReusedRefreshToken_whenRefreshing_thenShouldRevokeFamily() {
+
+            when(jwtTokenProvider.parseRefreshToken("refresh-token")).thenReturn(presented);
+            when(refreshTokenRevocations.consume(presented.id(), testUser.getId(), presented.expiresAt())).thenReturn(false);
+
+
+            assertThatThrownBy(() -> userUseCase.refresh(refreshTokenDTO))
+                    .isInstanceOf(BadCredentialsException.class)
+                    .hasMessage("Refresh token already used");
+
+            verify(refreshTokenRevocations).revokeFamily(familyId, testUser.getId());
+            verify(jwtTokenProvider, never()).generateRefreshToken(any(), any(), any());
+        }
+
+        @Test
+        @DisplayName("GIVEN a refresh token of a revoked family WHEN refreshing THEN should reject it without consuming it")
+        void givenRevokedFamily_whenRefreshing_thenShouldReject() {
+
+            when(jwtTokenProvider.parseRefreshToken("refresh-token")).thenReturn(presented);
+            when(refreshTokenRevocations.isRevoked(familyId)).thenReturn(true);
+
+
+            assertThatThrownBy(() -> userUseCase.refresh(refreshTokenDTO))
+                    .isInstanceOf(BadCredentialsException.class)
+                    .hasMessage("Refresh token revoked");
+
+            verify(refreshTokenRevocations, never()).consume(any(), any(), any());
+        }
+
+        @Test
+        @DisplayName("GIVEN a token that is not a valid refresh token WHEN refreshing THEN should reject it as invalid")
+        void givenInvalidToken_whenRefreshing_thenShouldReject() {
+
+            when(jwtTokenProvider.parseRefreshToken("refresh-token")).thenThrow(new MalformedJwtException("Not a refresh token"));
+
+
+            assertThatThrownBy(() -> userUseCase.refresh(refreshTokenDTO))
+                    .isInstanceOf(BadCredentialsException.class)
+                    .hasMessage("Invalid refresh token");
+
+            verifyNoInteractions(refreshTokenRevocations);
         }
     }
-}
\ No newline at end of file
+}
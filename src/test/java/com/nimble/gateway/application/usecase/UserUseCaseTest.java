@@ -5,7 +5,12 @@ import com.nimble.gateway.application.dto.LoginDTO;
 import com.nimble.gateway.application.dto.UserDTO;
 import com.nimble.gateway.domain.entity.User;
 import com.nimble.gateway.domain.repository.UserRepository;
+import com.nimble.gateway.domain.valueobject.UserIdentity;
+import com.nimble.gateway.infrastructure.cache.UserIdentityCache;
 import com.nimble.gateway.domain.exception.UserNotFoundException;
+import com.nimble.gateway.infrastructure.metrics.UserMetrics;
+import com.nimble.gateway.infrastructure.persistence.PaymentEngine;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
@@ -13,6 +18,7 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
@@ -33,9 +39,18 @@ class UserUseCaseTest {
     @Mock
     private UserRepository userRepository;
 
+    @Mock
+    private UserIdentityCache userIdentityCache;
+
     @Mock
     private PasswordEncoder passwordEncoder;
 
+    @Mock
+    private PaymentEngine paymentEngine;
+
+    @Spy
+    private UserMetrics userMetrics = new UserMetrics(new SimpleMeterRegistry());
+
     @InjectMocks
     private UserUseCase userUseCase;
 
@@ -44,6 +59,8 @@ class UserUseCaseTest {
 
     @BeforeEach
     void setUp() {
+        lenient().when(paymentEngine.balanceOf(any(User.class))).thenAnswer(invocation -> invocation.getArgument(0, User.class).getBalance());
+
         testUser = User.builder()
                 .id(UUID.randomUUID())
                 .name("João Silva")
@@ -150,7 +167,8 @@ class UserUseCaseTest {
         @DisplayName("Given a valid email, when getting user by username, then should return UserDTO")
         void givenValidEmail_whenGetUserByUsername_thenShouldReturnUserDTO() {
 
-            when(userRepository.findByEmail("joao@teste.com")).thenReturn(Optional.of(testUser));
+            when(userIdentityCache.findByUsername("joao@teste.com")).thenReturn(Optional.of(UserIdentity.of(testUser)));
+            when(userRepository.findById(testUser.getId())).thenReturn(Optional.of(testUser));
 
             UserDTO result = userUseCase.getUserByUsername("joao@teste.com");
 
@@ -158,15 +176,16 @@ class UserUseCaseTest {
             assertThat(result.getEmail()).isEqualTo("joao@teste.com");
             assertThat(result.getName()).isEqualTo("João Silva");
 
-            verify(userRepository).findByEmail("joao@teste.com");
+            verify(userIdentityCache).findByUsername("joao@teste.com");
+            verify(userRepository).findById(testUser.getId());
         }
 
         @Test
         @DisplayName("Given a valid CPF, when getting user by username, then should return UserDTO")
         void givenValidCpf_whenGetUserByUsername_thenShouldReturnUserDTO() {
 
-            when(userRepository.findByEmail("12345678901")).thenReturn(Optional.empty());
-            when(userRepository.findByCpf("12345678901")).thenReturn(Optional.of(testUser));
+            when(userIdentityCache.findByUsername("12345678901")).thenReturn(Optional.of(UserIdentity.of(testUser)));
+            when(userRepository.findById(testUser.getId())).thenReturn(Optional.of(testUser));
 
 
             UserDTO result = userUseCase.getUserByUsername("12345678901");
@@ -176,22 +195,22 @@ class UserUseCaseTest {
             assertThat(result.getCpf()).isEqualTo("12345678901");
             assertThat(result.getName()).isEqualTo("João Silva");
 
-            verify(userRepository).findByEmail("12345678901");
-            verify(userRepository).findByCpf("12345678901");
+            verify(userIdentityCache).findByUsername("12345678901");
+            verify(userRepository).findById(testUser.getId());
         }
 
         @Test
         @DisplayName("Given a non-existent username, when getting user by username, then should throw exception")
         void givenNonExistentUsername_whenGetUserByUsername_thenShouldThrowException() {
 
-            when(userRepository.findByEmail("inexistente@teste.com")).thenReturn(Optional.empty());
+            when(userIdentityCache.findByUsername("inexistente@teste.com")).thenReturn(Optional.empty());
 
 
             assertThatThrownBy(() -> userUseCase.getUserByUsername("inexistente@teste.com"))
                     .isInstanceOf(UserNotFoundException.class)
                     .hasMessage("User not found");
 
-            verify(userRepository).findByEmail("inexistente@teste.com");
+            verify(userIdentityCache).findByUsername("inexistente@teste.com");
         }
     }
 
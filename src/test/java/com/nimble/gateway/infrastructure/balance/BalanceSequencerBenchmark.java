@@ -0,0 +1,124 @@
+package com.nimble.gateway.infrastructure.balance;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+// Transfers per second on the balance engine's single writer: the off-heap table alone, which is the ceiling for one
+// core, and the whole sequencer - ring handoff, journal append and table update - with and without forcing the
+// journal once per batch. The sequencer runs are fed by one producer keeping a ring-sized batch in flight.
+//   mvn -B test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt
+//   java -cp target/test-classes:target/classes:$(cat target/cp.txt) org.openjdk.jmh.Main BalanceSequencerBenchmark
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BalanceSequencerBenchmark {
+
+    private static final int IN_FLIGHT = 4096;
+    private static final int PAIRS = 1 << 16;
+
+    @Param({"10000", "1000000"})
+    public int users;
+
+    @Param({"false", "true"})
+    public boolean fsync;
+
+    private long[] his;
+    private long[] los;
+    private int[] from;
+    private int[] to;
+    private int next;
+    private BalanceTable table;
+    private Path directory;
+    private BalanceSequencer sequencer;
+    private final Answered answered = new Answered();
+    private long submitted;
+
+    @Setup
+    public void setUp() throws IOException {
+        SplittableRandom random = new SplittableRandom(42);
+        his = new long[users];
+        los = new long[users];
+        for (int i = 0; i < users; i++) {
+            his[i] = random.nextLong() | 1;
+            los[i] = random.nextLong();
+        }
+        from = new int[PAIRS];
+        to = new int[PAIRS];
+        for (int i = 0; i < PAIRS; i++) {
+            from[i] = random.nextInt(users);
+            to[i] = random.nextInt(users);
+        }
+
+        table = new BalanceTable(users);
+        for (int i = 0; i < users; i++) table.put(his[i], los[i], Long.MAX_VALUE / 4);
+
+        directory = Files.createTempDirectory("balance-benchmark");
+        sequencer = new BalanceSequencer(directory, 1 << 20, fsync, IN_FLIGHT * 2, 1_000_000, users);
+        sequencer.recover(seeded -> {
+            for (int i = 0; i < users; i++) seeded.put(his[i], los[i], Long.MAX_VALUE / 4);
+        }, hold -> false);
+        sequencer.start();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        sequencer.close();
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path path : files.sorted(Comparator.reverseOrder()).toList()) Files.delete(path);
+        }
+    }
+
+    @Benchmark
+    public long table() {
+        int pair = next++ & (PAIRS - 1);
+        int payer = from[pair];
+        int payee = to[pair];
+        if (table.get(his[payer], los[payer]) < 1) return -1;
+        table.add(his[payer], los[payer], -1);
+        return table.add(his[payee], los[payee], 1);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(IN_FLIGHT)
+    public long sequencer() {
+        for (int i = 0; i < IN_FLIGHT; i++) {
+            int pair = next++ & (PAIRS - 1);
+            sequencer.transfer(his[from[pair]], los[from[pair]], his[to[pair]], los[to[pair]], 1, true, answered);
+        }
+        // Lets the snapshots trim the journal as the projection would, so a long run does not fill the disk
+        sequencer.projected(sequencer.applied(), answered);
+        submitted += IN_FLIGHT + 1;
+        while (answered.count < submitted) Thread.onSpinWait();
+        if (answered.error != null) throw new IllegalStateException(answered.error);
+        return sequencer.applied();
+    }
+
+    // Answered by the writer thread only, so a plain increment published through the volatile is enough
+    private static final class Answered implements BalanceSequencer.Completion {
+
+        private volatile long count;
+
+        private volatile Throwable error;
+
+        @Override
+        public void complete(long value) {
+            count++;
+        }
+
+        @Override
+        public void fail(Throwable error) {
+            this.error = error;
+            count++;
+        }
+    }
+}
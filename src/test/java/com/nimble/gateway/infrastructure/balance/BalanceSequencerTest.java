@@ -0,0 +1,282 @@
+package com.nimble.gateway.infrastructure.balance;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DisplayName("Balance Sequencer - Unit Tests")
+class BalanceSequencerTest {
+
+    private static final UUID OUTSIDE = new UUID(0, 0);
+
+    @TempDir
+    private Path directory;
+
+    private final UUID alice = UUID.randomUUID();
+    private final UUID bob = UUID.randomUUID();
+    private final List<BalanceSequencer> started = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() throws IOException {
+        for (BalanceSequencer sequencer : started) sequencer.close();
+    }
+
+    private BalanceSequencer start(int segmentEntries, long snapshotEvery) throws IOException {
+        BalanceSequencer sequencer = new BalanceSequencer(directory, segmentEntries, false, 64, snapshotEvery, 16);
+        sequencer.recover(table -> table.put(alice.getMostSignificantBits(), alice.getLeastSignificantBits(), 10_000), hold -> false);
+        sequencer.start();
+        started.add(sequencer);
+        return sequencer;
+    }
+
+    private static long call(Consumer<BalanceSequencer.Completion> submit) throws Exception {
+        CompletableFuture<Long> result = new CompletableFuture<>();
+        submit.accept(new BalanceSequencer.Completion() {
+            @Override
+            public void complete(long value) {
+                result.complete(value);
+            }
+
+            @Override
+            public void fail(Throwable error) {
+                result.completeExceptionally(error);
+            }
+        });
+        return result.get(5, TimeUnit.SECONDS);
+    }
+
+    private static long transfer(BalanceSequencer sequencer, UUID from, UUID to, long cents, boolean checked) throws Exception {
+        return call(completion -> sequencer.transfer(from.getMostSignificantBits(), from.getLeastSignificantBits(),
+                to.getMostSignificantBits(), to.getLeastSignificantBits(), cents, checked, completion));
+    }
+
+    private static long balance(BalanceSequencer sequencer, UUID user) throws Exception {
+        return call(completion -> sequencer.balance(user.getMostSignificantBits(), user.getLeastSignificantBits(), completion));
+    }
+
+    // Closing writes a snapshot; putting back the ones from before leaves the disk as a crash before shutdown would
+    private void crash(BalanceSequencer sequencer) throws IOException {
+        Map<Path, byte[]> snapshots = new HashMap<>();
+        for (Path snapshot : snapshots()) snapshots.put(snapshot, Files.readAllBytes(snapshot));
+        sequencer.close();
+        started.remove(sequencer);
+        for (Path snapshot : snapshots()) Files.delete(snapshot);
+        for (Map.Entry<Path, byte[]> snapshot : snapshots.entrySet()) Files.write(snapshot.getKey(), snapshot.getValue());
+    }
+
+    private List<Path> snapshots() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> path.getFileName().toString().startsWith("snapshot-")).toList();
+        }
+    }
+
+    private List<Path> journalSegments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> path.getFileName().toString().startsWith("journal-")).sorted().toList();
+        }
+    }
+
+    @Nested
+    @DisplayName("Scenario: Applying transfers")
+    class TransferTests {
+
+        @Test
+        @DisplayName("Given a checked transfer above the payer's balance, when applied, then should be refused and change nothing")
+        void givenInsufficientBalance_whenCheckedTransfer_thenShouldRefuse() throws Exception {
+
+            BalanceSequencer sequencer = start(1024, 1_000_000);
+
+            assertThat(transfer(sequencer, alice, bob, 10_001, true)).isEqualTo(BalanceSequencer.REFUSED);
+            assertThat(transfer(sequencer, alice, bob, 2_500, true)).isEqualTo(1);
+            // A credit from outside is never checked and never gives the outside a balance
+            assertThat(transfer(sequencer, OUTSIDE, bob, 100, false)).isEqualTo(2);
+
+            assertThat(balance(sequencer, alice)).isEqualTo(7_500);
+            assertThat(balance(sequencer, bob)).isEqualTo(2_600);
+            assertThat(balance(sequencer, OUTSIDE)).isZero();
+            assertThat(sequencer.applied()).isEqualTo(2);
+        }
+
+        @Test
+        @DisplayName("Given transfers from many threads, when all are answered, then no transfer should be lost or applied twice")
+        void givenConcurrentProducers_whenTransferring_thenShouldApplyEachOnce() throws Exception {
+
+            BalanceSequencer sequencer = start(1024, 1_000_000);
+            ExecutorService producers = Executors.newFixedThreadPool(4);
+            try {
+                List<Future<?>> runs = new ArrayList<>();
+                for (int thread = 0; thread < 4; thread++) {
+                    runs.add(producers.submit(() -> {
+                        for (int i = 0; i < 500; i++) {
+                            transfer(sequencer, OUTSIDE, bob, 1, false);
+                            transfer(sequencer, bob, alice, 1, false);
+                        }
+                        return null;
+                    }));
+                }
+                for (Future<?> run : runs) run.get(30, TimeUnit.SECONDS);
+            } finally {
+                producers.shutdownNow();
+            }
+
+            assertThat(balance(sequencer, alice)).isEqualTo(12_000);
+            assertThat(balance(sequencer, bob)).isZero();
+            assertThat(sequencer.applied()).isEqualTo(4_000);
+        }
+
+        @Test
+        @DisplayName("Given more users than the tables were sized for, when transferring to each, then should grow and keep every balance")
+        void givenManyUsers_whenTransferring_thenShouldGrowTables() throws Exception {
+
+            BalanceSequencer sequencer = start(4096, 1_000_000);
+            List<UUID> payees = new ArrayList<>();
+            for (int i = 0; i < 3_000; i++) {
+                UUID payee = UUID.randomUUID();
+                payees.add(payee);
+                transfer(sequencer, OUTSIDE, payee, i + 1, false);
+            }
+
+            for (int i = 0; i < payees.size(); i++) assertThat(balance(sequencer, payees.get(i))).isEqualTo(i + 1);
+            BalanceSequencer.Drain drain = new BalanceSequencer.Drain();
+            call(completion -> sequencer.drain(drain, completion));
+            assertThat(drain.count).isEqualTo(3_000);
+        }
+    }
+
+    @Nested
+    @DisplayName("Scenario: Recovering after a crash")
+    class RecoveryTests {
+
+        @Test
+        @DisplayName("Given transfers in the journal past the last snapshot, when restarted, then should replay them and mark them for projection")
+        void givenJournalAfterSnapshot_whenRecovering_thenShouldReplayIt() throws Exception {
+
+            BalanceSequencer first = start(4, 1_000_000);
+            for (int i = 0; i < 10; i++) transfer(first, alice, bob, 100, true);
+            crash(first);
+            assertThat(journalSegments()).hasSize(3);
+
+            BalanceSequencer second = start(4, 1_000_000);
+            assertThat(second.applied()).isEqualTo(10);
+            assertThat(balance(second, alice)).isEqualTo(9_000);
+            assertThat(balance(second, bob)).isEqualTo(1_000);
+
+            BalanceSequencer.Drain drain = new BalanceSequencer.Drain();
+            call(completion -> second.drain(drain, completion));
+            assertThat(drain.count).isEqualTo(2);
+            assertThat(drain.sequence).isEqualTo(10);
+        }
+
+        @Test
+        @DisplayName("Given a last entry torn by the crash, when restarted, then should recover up to it and append in its place")
+        void givenTornLastEntry_whenRecovering_thenShouldStopBeforeIt() throws Exception {
+
+            BalanceSequencer first = start(1024, 1_000_000);
+            transfer(first, alice, bob, 100, true);
+            transfer(first, alice, bob, 200, true);
+            crash(first);
+            try (FileChannel channel = FileChannel.open(journalSegments().get(0), StandardOpenOption.WRITE)) {
+                channel.write(ByteBuffer.wrap(new byte[]{1, 2, 3}), BalanceJournal.ENTRY_BYTES + 40);
+            }
+
+            BalanceSequencer second = start(1024, 1_000_000);
+            assertThat(second.applied()).isEqualTo(1);
+            assertThat(balance(second, bob)).isEqualTo(100);
+            assertThat(transfer(second, alice, bob, 300, true)).isEqualTo(2);
+            crash(second);
+
+            BalanceSequencer third = start(1024, 1_000_000);
+            assertThat(balance(third, alice)).isEqualTo(9_600);
+            assertThat(balance(third, bob)).isEqualTo(400);
+        }
+
+        @Test
+        @DisplayName("Given snapshots and a projection that caught up, when restarted, then should trim the journal and recover from the snapshot")
+        void givenProjectedSnapshot_whenRecovering_thenShouldNeedOnlyTheJournalTail() throws Exception {
+
+            BalanceSequencer first = start(4, 8);
+            for (int i = 0; i < 20; i++) {
+                transfer(first, alice, bob, 10, true);
+                long applied = first.applied();
+                call(completion -> first.projected(applied, completion));
+            }
+            first.close();
+            started.remove(first);
+            assertThat(journalSegments()).hasSize(1);
+
+            BalanceSequencer second = start(4, 8);
+            assertThat(second.applied()).isEqualTo(20);
+            assertThat(balance(second, alice)).isEqualTo(9_800);
+            BalanceSequencer.Drain drain = new BalanceSequencer.Drain();
+            call(completion -> second.drain(drain, completion));
+            assertThat(drain.count).isZero();
+        }
+
+        @Test
+        @DisplayName("Given a journal whose snapshots are gone, when restarted, then should refuse to guess the balances")
+        void givenJournalWithoutSnapshot_whenRecovering_thenShouldFail() throws Exception {
+
+            BalanceSequencer first = start(1024, 1_000_000);
+            transfer(first, OUTSIDE, bob, 100, false);
+            crash(first);
+            for (Path snapshot : snapshots()) Files.delete(snapshot);
+
+            BalanceSequencer second = new BalanceSequencer(directory, 1024, false, 64, 1_000_000, 16);
+            assertThatThrownBy(() -> second.recover(table -> { }, hold -> false))
+                    .isInstanceOf(IllegalStateException.class)
+                    .hasMessageContaining("no snapshot");
+        }
+    }
+
+    @Nested
+    @DisplayName("Scenario: Draining for the projection")
+    class DrainTests {
+
+        @Test
+        @DisplayName("Given transfers since the last drain, when drained, then should hand over each touched balance once and requeue on request")
+        void givenTouchedBalances_whenDrained_thenShouldHandThemOverOnce() throws Exception {
+
+            BalanceSequencer sequencer = start(1024, 1_000_000);
+            transfer(sequencer, alice, bob, 100, true);
+            transfer(sequencer, alice, bob, 100, true);
+
+            BalanceSequencer.Drain drain = new BalanceSequencer.Drain();
+            call(completion -> sequencer.drain(drain, completion));
+            assertThat(drain.count).isEqualTo(2);
+            assertThat(List.of(drain.cents[0], drain.cents[1])).containsExactlyInAnyOrder(9_800L, 200L);
+
+            BalanceSequencer.Drain empty = new BalanceSequencer.Drain();
+            call(completion -> sequencer.drain(empty, completion));
+            assertThat(empty.count).isZero();
+
+            call(completion -> sequencer.requeue(drain, completion));
+            BalanceSequencer.Drain requeued = new BalanceSequencer.Drain();
+            call(completion -> sequencer.drain(requeued, completion));
+            assertThat(requeued.count).isEqualTo(2);
+        }
+    }
+}
@@ -0,0 +1,302 @@
+package com.nimble.gateway.infrastructure.balance;
+
+import com.nimble.gateway.domain.exception.InsufficientBalanceException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.ResultSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@DisplayName("In-Memory Balance Engine - Unit Tests")
+class InMemoryBalanceEngineTest {
+
+    @TempDir
+    private Path directory;
+
+    private JdbcTemplate jdbcTemplate;
+    private SimpleMeterRegistry meterRegistry;
+    private InMemoryBalanceEngine engine;
+    private UUID seeded;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        jdbcTemplate = mock(JdbcTemplate.class);
+        meterRegistry = new SimpleMeterRegistry();
+        seeded = UUID.randomUUID();
+
+        ResultSet row = mock(ResultSet.class);
+        when(row.getBytes("id")).thenReturn(ByteBuffer.allocate(16)
+                .putLong(seeded.getMostSignificantBits()).putLong(seeded.getLeastSignificantBits()).array());
+        when(row.getBigDecimal("balance")).thenReturn(new BigDecimal("50.00"));
+        doAnswer(invocation -> {
+            invocation.getArgument(1, RowCallbackHandler.class).processRow(row);
+            return null;
+        }).when(jdbcTemplate).query(anyString(), any(RowCallbackHandler.class));
+
+        engine = new InMemoryBalanceEngine(jdbcTemplate, meterRegistry, directory.toString(),
+                1024, 64, 1_000_000, false, 16);
+        engine.recover();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        engine.close();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) TransactionSynchronizationManager.clearSynchronization();
+    }
+
+    @Nested
+    @DisplayName("Scenario: Moving balances")
+    class TransferTests {
+
+        @Test
+        @DisplayName("Given a fresh start, when recovered, then should hold the balances of the users table")
+        void givenFreshStart_whenRecovered_thenShouldSeedFromUsersTable() {
+
+            assertThat(engine.balanceOf(seeded)).isEqualByComparingTo("50.00");
+            assertThat(engine.balanceOf(UUID.randomUUID())).isEqualByComparingTo("0.00");
+        }
+
+        @Test
+        @DisplayName("Given a payment above the payer's balance, when transferred, then should refuse it and leave both balances")
+        void givenInsufficientBalance_whenTransferring_thenShouldRefuse() {
+
+            UUID recipient = UUID.randomUUID();
+
+            assertThatThrownBy(() -> engine.transfer(UUID.randomUUID(), seeded, recipient, new BigDecimal("50.01"), true))
+                    .isInstanceOf(InsufficientBalanceException.class);
+            engine.transfer(UUID.randomUUID(), seeded, recipient, new BigDecimal("20.00"), true);
+            engine.transfer(UUID.randomUUID(), null, recipient, new BigDecimal("0.05"), false);
+
+            assertThat(engine.balanceOf(seeded)).isEqualByComparingTo("30.00");
+            assertThat(engine.balanceOf(recipient)).isEqualByComparingTo("20.05");
+            assertThat(meterRegistry.get("payment.in_memory.refused").counter().count()).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("Given a transfer made inside a transaction, when it rolls back, then should return the held debit and credit nothing")
+        void givenTransaction_whenRolledBack_thenShouldReleaseHold() {
+
+            UUID recipient = UUID.randomUUID();
+            TransactionSynchronizationManager.initSynchronization();
+            engine.transfer(UUID.randomUUID(), seeded, recipient, new BigDecimal("20.00"), true);
+            engine.transfer(UUID.randomUUID(), null, recipient, new BigDecimal("5.00"), false);
+            assertThat(engine.balanceOf(seeded)).isEqualByComparingTo("30.00");
+
+            complete(TransactionSynchronization.STATUS_ROLLED_BACK);
+
+            assertThat(engine.balanceOf(seeded)).isEqualByComparingTo("50.00");
+            assertThat(engine.balanceOf(recipient)).isEqualByComparingTo("0.00");
+            assertThat(meterRegistry.get("payment.in_memory.compensated").counter().count()).isEqualTo(2);
+        }
+
+        @Test
+        @DisplayName("Given a credit from a transaction not yet committed, when the recipient spends it, then should refuse until the commit")
+        void givenUncommittedCredit_whenSpent_thenShouldRefuseUntilCommit() {
+
+            UUID recipient = UUID.randomUUID();
+            TransactionSynchronizationManager.initSynchronization();
+            engine.transfer(UUID.randomUUID(), seeded, recipient, new BigDecimal("20.00"), true);
+            engine.transfer(UUID.randomUUID(), null, recipient, new BigDecimal("5.00"), false);
+
+            assertThat(engine.balanceOf(recipient)).isEqualByComparingTo("0.00");
+            assertThatThrownBy(() -> engine.transfer(UUID.randomUUID(), recipient, seeded, new BigDecimal("0.01"), true))
+                    .isInstanceOf(InsufficientBalanceException.class);
+
+            complete(TransactionSynchronization.STATUS_COMMITTED);
+
+            assertThat(engine.balanceOf(seeded)).isEqualByComparingTo("30.00");
+            assertThat(engine.balanceOf(recipient)).isEqualByComparingTo("25.00");
+            assertThat(meterRegistry.get("payment.in_memory.compensated").counter().count()).isZero();
+        }
+
+        @Test
+        @DisplayName("Given charges paid to oneself inside a transaction, when transferred, then should only check each against the balance")
+        void givenSelfTransfers_whenTransferring_thenShouldOnlyCheck() {
+
+            TransactionSynchronizationManager.initSynchronization();
+            engine.transfer(UUID.randomUUID(), seeded, seeded, new BigDecimal("40.00"), true);
+            engine.transfer(UUID.randomUUID(), seeded, seeded, new BigDecimal("45.00"), true);
+
+            assertThatThrownBy(() -> engine.transfer(UUID.randomUUID(), seeded, seeded, new BigDecimal("50.01"), true))
+                    .isInstanceOf(InsufficientBalanceException.class);
+            assertThat(engine.balanceOf(seeded)).isEqualByComparingTo("50.00");
+            assertThat(TransactionSynchronizationManager.getSynchronizations()).isEmpty();
+        }
+    }
+
+    @Nested
+    @DisplayName("Scenario: Recovering holds after a crash")
+    class CrashRecoveryTests {
+
+        private static final UUID HELD = new UUID(0, 1);
+
+        private EmbeddedDatabase database;
+        private Path journal;
+        private UUID payer;
+        private UUID recipient;
+
+        @BeforeEach
+        void setUp() throws Exception {
+            engine.close();
+            database = new EmbeddedDatabaseBuilder().setType(EmbeddedDatabaseType.H2).generateUniqueName(true).build();
+            database().execute("CREATE TABLE users (id BINARY(16) PRIMARY KEY, balance DECIMAL(10, 2) NOT NULL)");
+            database().execute("CREATE TABLE charges (id BINARY(16) PRIMARY KEY, status VARCHAR(20) NOT NULL)");
+            database().execute("CREATE TABLE payments (id BINARY(16) PRIMARY KEY, charge_id BINARY(16))");
+            payer = UUID.randomUUID();
+            recipient = UUID.randomUUID();
+            database().update("INSERT INTO users (id, balance) VALUES (?, ?), (?, ?)", bytes(payer), new BigDecimal("50.00"), bytes(recipient), BigDecimal.ZERO);
+            journal = directory.resolve("crash");
+            engine = start();
+        }
+
+        @AfterEach
+        void shutDown() {
+            database.shutdown();
+        }
+
+        @Test
+        @DisplayName("Given holds whose transactions never committed, when killed between the hold and the commit, then recovery should release them")
+        void givenUncommittedHolds_whenKilledBeforeCommit_thenShouldReleaseThem() throws Exception {
+
+            TransactionSynchronizationManager.initSynchronization();
+            engine.transfer(UUID.randomUUID(), payer, recipient, new BigDecimal("20.00"), true);
+            engine.transfer(UUID.randomUUID(), null, recipient, new BigDecimal("5.00"), false);
+            assertThat(engine.balanceOf(payer)).isEqualByComparingTo("30.00");
+
+            kill();
+            engine = start();
+
+            assertThat(engine.balanceOf(payer)).isEqualByComparingTo("50.00");
+            assertThat(engine.balanceOf(recipient)).isEqualByComparingTo("0.00");
+            assertThat(engine.balanceOf(HELD)).isEqualByComparingTo("0.00");
+        }
+
+        @Test
+        @DisplayName("Given a hold whose payment row committed, when killed before the credit, then recovery should credit it once")
+        void givenCommittedPayment_whenKilledBeforeCredit_thenShouldCreditOnce() throws Exception {
+
+            UUID payment = UUID.randomUUID();
+            TransactionSynchronizationManager.initSynchronization();
+            engine.transfer(payment, payer, recipient, new BigDecimal("20.00"), true);
+            database().update("INSERT INTO payments (id) VALUES (?)", (Object) bytes(payment));
+
+            kill();
+            engine = start();
+            assertThat(engine.balanceOf(payer)).isEqualByComparingTo("30.00");
+            assertThat(engine.balanceOf(recipient)).isEqualByComparingTo("20.00");
+
+            kill();
+            engine = start();
+            assertThat(engine.balanceOf(recipient)).isEqualByComparingTo("20.00");
+            assertThat(engine.balanceOf(HELD)).isEqualByComparingTo("0.00");
+        }
+
+        @Test
+        @DisplayName("Given a refund whose cancellation committed, when killed before the credit, then recovery should give the payer back the amount")
+        void givenCommittedCancellation_whenKilledBeforeRefundCredit_thenShouldRefund() throws Exception {
+
+            UUID charge = UUID.randomUUID();
+            UUID payment = UUID.randomUUID();
+            database().update("INSERT INTO charges (id, status) VALUES (?, 'PAID')", (Object) bytes(charge));
+            database().update("INSERT INTO payments (id, charge_id) VALUES (?, ?)", bytes(payment), bytes(charge));
+            TransactionSynchronizationManager.initSynchronization();
+            engine.transfer(payment, payer, recipient, new BigDecimal("20.00"), true);
+            complete(TransactionSynchronization.STATUS_COMMITTED);
+
+            TransactionSynchronizationManager.initSynchronization();
+            engine.refund(payment, recipient, payer, new BigDecimal("20.00"));
+            database().update("UPDATE charges SET status = 'CANCELLED' WHERE id = ?", (Object) bytes(charge));
+
+            kill();
+            engine = start();
+
+            assertThat(engine.balanceOf(payer)).isEqualByComparingTo("50.00");
+            assertThat(engine.balanceOf(recipient)).isEqualByComparingTo("0.00");
+            assertThat(engine.balanceOf(HELD)).isEqualByComparingTo("0.00");
+        }
+
+        @Test
+        @DisplayName("Given a hold still open at a clean shutdown, when restarted, then should settle it from the snapshot")
+        void givenHoldOpenAtShutdown_whenRestarted_thenShouldSettleFromSnapshot() throws Exception {
+
+            UUID payment = UUID.randomUUID();
+            TransactionSynchronizationManager.initSynchronization();
+            engine.transfer(payment, payer, recipient, new BigDecimal("20.00"), true);
+            database().update("INSERT INTO payments (id) VALUES (?)", (Object) bytes(payment));
+
+            engine.close();
+            engine = start();
+
+            assertThat(engine.balanceOf(payer)).isEqualByComparingTo("30.00");
+            assertThat(engine.balanceOf(recipient)).isEqualByComparingTo("20.00");
+        }
+
+        private JdbcTemplate database() {
+            return new JdbcTemplate(database);
+        }
+
+        private InMemoryBalanceEngine start() throws IOException {
+            InMemoryBalanceEngine started = new InMemoryBalanceEngine(database(), new SimpleMeterRegistry(), journal.toString(),
+                    1024, 64, 1_000_000, false, 16);
+            started.recover();
+            return started;
+        }
+
+        // Closing writes a snapshot; putting back the ones from before leaves the disk as killing the process would.
+        // The transaction the holds were made in never completes
+        private void kill() throws IOException {
+            Map<Path, byte[]> snapshots = new HashMap<>();
+            for (Path snapshot : snapshots()) snapshots.put(snapshot, Files.readAllBytes(snapshot));
+            engine.close();
+            for (Path snapshot : snapshots()) Files.delete(snapshot);
+            for (Map.Entry<Path, byte[]> snapshot : snapshots.entrySet()) Files.write(snapshot.getKey(), snapshot.getValue());
+            if (TransactionSynchronizationManager.isSynchronizationActive()) TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        private List<Path> snapshots() throws IOException {
+            try (Stream<Path> files = Files.list(journal)) {
+                return files.filter(path -> path.getFileName().toString().startsWith("snapshot-")).toList();
+            }
+        }
+    }
+
+    private static byte[] bytes(UUID id) {
+        return ByteBuffer.allocate(16).putLong(id.getMostSignificantBits()).putLong(id.getLeastSignificantBits()).array();
+    }
+
+    private static void complete(int status) {
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            synchronization.afterCompletion(status);
+        }
+        TransactionSynchronizationManager.clearSynchronization();
+    }
+}
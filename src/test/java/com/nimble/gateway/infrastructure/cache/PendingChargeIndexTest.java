@@ -0,0 +1,243 @@
+package com.nimble.gateway.infrastructure.cache;
+
+import com.nimble.gateway.domain.entity.Charge;
+import com.nimble.gateway.domain.entity.User;
+import com.nimble.gateway.domain.event.ChargeEvent;
+import com.nimble.gateway.domain.repository.ChargeRepository;
+import com.nimble.gateway.domain.valueobject.PendingCharge;
+import com.nimble.gateway.infrastructure.cache.PendingChargeIndex.Verdict;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Pending Charge Index - Unit Tests")
+class PendingChargeIndexTest {
+
+    @Mock
+    private ChargeRepository chargeRepository;
+
+    private SimpleMeterRegistry meterRegistry;
+    private PendingChargeIndex index;
+    private UUID recipientId;
+    private UUID otherId;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        index = new PendingChargeIndex(chargeRepository, meterRegistry, true, 16, 1_000);
+        recipientId = UUID.randomUUID();
+        otherId = UUID.randomUUID();
+    }
+
+    private Charge charge(UUID id, Charge.ChargeStatus status, long version) {
+        return Charge.builder()
+                .id(id)
+                .originator(User.builder().id(otherId).build())
+                .recipient(User.builder().id(recipientId).build())
+                .amount(new BigDecimal("100.00"))
+                .status(status)
+                .version(version)
+                .build();
+    }
+
+    private double lookups(Verdict verdict) {
+        return meterRegistry.get("charge.pending.index.lookups").tag("verdict", verdict.name().toLowerCase()).counter().count();
+    }
+
+    @Nested
+    @DisplayName("Scenario: Checking a pay against the index")
+    class CheckTests {
+
+        @Test
+        @DisplayName("Given a charge the index has never seen, when checking, then should leave the decision to the database")
+        void givenUnknownCharge_whenChecking_thenShouldBeUnknown() {
+
+            assertThat(index.check(UUID.randomUUID(), recipientId)).isEqualTo(Verdict.UNKNOWN);
+            assertThat(lookups(Verdict.UNKNOWN)).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("Given a created charge, when its recipient or someone else checks, then should tell them apart")
+        void givenCreatedCharge_whenChecking_thenShouldMatchRecipient() {
+
+            UUID chargeId = UUID.randomUUID();
+            index.applyAfterCommit(List.of(charge(chargeId, Charge.ChargeStatus.PENDING, 0)), ChargeEvent.Type.CREATED);
+
+            assertThat(index.check(chargeId, recipientId)).isEqualTo(Verdict.PENDING);
+            assertThat(index.check(chargeId, otherId)).isEqualTo(Verdict.NOT_RECIPIENT);
+        }
+
+        @Test
+        @DisplayName("Given a paid or cancelled charge, when checking, then should refuse it as not pending")
+        void givenSettledCharge_whenChecking_thenShouldBeNotPending() {
+
+            UUID paid = UUID.randomUUID();
+            UUID cancelled = UUID.randomUUID();
+            index.applyAfterCommit(List.of(charge(paid, Charge.ChargeStatus.PENDING, 0), charge(cancelled, Charge.ChargeStatus.PENDING, 0)), ChargeEvent.Type.CREATED);
+            index.applyAfterCommit(List.of(charge(paid, Charge.ChargeStatus.PAID, 1)), ChargeEvent.Type.PAID);
+            index.applyAfterCommit(List.of(charge(cancelled, Charge.ChargeStatus.CANCELLED, 1)), ChargeEvent.Type.CANCELLED);
+
+            assertThat(index.check(paid, recipientId)).isEqualTo(Verdict.NOT_PENDING);
+            assertThat(index.check(cancelled, recipientId)).isEqualTo(Verdict.NOT_PENDING);
+            assertThat(meterRegistry.get("charge.pending.index.size").gauge().value()).isZero();
+        }
+
+        @Test
+        @DisplayName("Given a disabled index, when charges are created, then every check should go to the database")
+        void givenDisabledIndex_whenChecking_thenShouldBeUnknown() {
+
+            PendingChargeIndex disabled = new PendingChargeIndex(chargeRepository, new SimpleMeterRegistry(), false, 16, 1_000);
+            UUID chargeId = UUID.randomUUID();
+            disabled.applyAfterCommit(List.of(charge(chargeId, Charge.ChargeStatus.PENDING, 0)), ChargeEvent.Type.CREATED);
+            disabled.warm();
+
+            assertThat(disabled.check(chargeId, otherId)).isEqualTo(Verdict.UNKNOWN);
+            verify(chargeRepository, never()).findAllPending();
+        }
+    }
+
+    @Nested
+    @DisplayName("Scenario: Keeping the index in line with the database")
+    class ConsistencyTests {
+
+        @Test
+        @DisplayName("Given pending charges in the database, when warming, then should not overwrite transitions already applied")
+        void givenPendingCharges_whenWarming_thenShouldKeepNewerSlots() {
+
+            UUID pending = UUID.randomUUID();
+            UUID settledMeanwhile = UUID.randomUUID();
+            index.applyAfterCommit(List.of(charge(settledMeanwhile, Charge.ChargeStatus.PAID, 1)), ChargeEvent.Type.PAID);
+            when(chargeRepository.findAllPending()).thenReturn(List.of(
+                    new PendingCharge(pending, recipientId, new BigDecimal("10.00"), 0),
+                    new PendingCharge(settledMeanwhile, recipientId, new BigDecimal("10.00"), 0)));
+
+            index.warm();
+
+            assertThat(index.check(pending, recipientId)).isEqualTo(Verdict.PENDING);
+            assertThat(index.check(settledMeanwhile, recipientId)).isEqualTo(Verdict.NOT_PENDING);
+        }
+
+        @Test
+        @DisplayName("Given a charge settled by another instance, when the pay path reads it, then should correct the slot")
+        void givenStaleSlot_whenReconciling_thenShouldCountCorrection() {
+
+            UUID chargeId = UUID.randomUUID();
+            index.applyAfterCommit(List.of(charge(chargeId, Charge.ChargeStatus.PENDING, 0)), ChargeEvent.Type.CREATED);
+
+            index.reconcile(charge(chargeId, Charge.ChargeStatus.PENDING, 0));
+            assertThat(meterRegistry.get("charge.pending.index.corrections").counter().count()).isZero();
+
+            index.reconcile(charge(chargeId, Charge.ChargeStatus.PAID, 1));
+
+            assertThat(index.check(chargeId, recipientId)).isEqualTo(Verdict.NOT_PENDING);
+            assertThat(meterRegistry.get("charge.pending.index.corrections").counter().count()).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("Given a charge created by another instance, when the pay path reads it, then should index it without a correction")
+        void givenUnindexedCharge_whenReconciling_thenShouldIndexIt() {
+
+            UUID chargeId = UUID.randomUUID();
+
+            index.reconcile(charge(chargeId, Charge.ChargeStatus.PENDING, 0));
+
+            assertThat(index.check(chargeId, otherId)).isEqualTo(Verdict.NOT_RECIPIENT);
+            assertThat(meterRegistry.get("charge.pending.index.corrections").counter().count()).isZero();
+        }
+    }
+
+    @Nested
+    @DisplayName("Scenario: Bounding and growing the table")
+    class CapacityTests {
+
+        @Test
+        @DisplayName("Given more settled charges than the bound, when settling, then should drop settled slots and keep pending ones")
+        void givenTooManySettled_whenSettling_thenShouldDropSettledOnly() {
+
+            PendingChargeIndex bounded = new PendingChargeIndex(chargeRepository, new SimpleMeterRegistry(), true, 16, 10);
+            UUID pending = UUID.randomUUID();
+            bounded.applyAfterCommit(List.of(charge(pending, Charge.ChargeStatus.PENDING, 0)), ChargeEvent.Type.CREATED);
+            List<UUID> settled = new ArrayList<>();
+            for (int i = 0; i < 11; i++) {
+                UUID id = UUID.randomUUID();
+                settled.add(id);
+                bounded.applyAfterCommit(List.of(charge(id, Charge.ChargeStatus.PAID, 1)), ChargeEvent.Type.PAID);
+            }
+
+            assertThat(bounded.check(pending, recipientId)).isEqualTo(Verdict.PENDING);
+            assertThat(settled).allSatisfy(id -> assertThat(bounded.check(id, recipientId)).isEqualTo(Verdict.UNKNOWN));
+        }
+
+        @Test
+        @DisplayName("Given far more charges than the expected size, when indexing, then should grow and find every one")
+        void givenManyCharges_whenIndexing_thenShouldResize() {
+
+            List<UUID> ids = new ArrayList<>();
+            for (int i = 0; i < 5_000; i++) {
+                UUID id = UUID.randomUUID();
+                ids.add(id);
+                index.applyAfterCommit(List.of(charge(id, Charge.ChargeStatus.PENDING, 0)), ChargeEvent.Type.CREATED);
+            }
+
+            assertThat(ids).allSatisfy(id -> assertThat(index.check(id, recipientId)).isEqualTo(Verdict.PENDING));
+            assertThat(meterRegistry.get("charge.pending.index.size").gauge().value()).isEqualTo(5_000);
+        }
+
+        @Test
+        @DisplayName("Given readers checking while a writer grows the table, when running concurrently, then no reader should see a wrong answer")
+        void givenConcurrentWriter_whenReading_thenShouldStayConsistent() throws Exception {
+
+            List<UUID> stable = new ArrayList<>();
+            for (int i = 0; i < 100; i++) {
+                UUID id = UUID.randomUUID();
+                stable.add(id);
+                index.applyAfterCommit(List.of(charge(id, Charge.ChargeStatus.PENDING, 0)), ChargeEvent.Type.CREATED);
+            }
+            ExecutorService executor = Executors.newFixedThreadPool(4);
+            AtomicBoolean writing = new AtomicBoolean(true);
+            try {
+                List<Future<Long>> readers = new ArrayList<>();
+                for (int r = 0; r < 3; r++) {
+                    readers.add(executor.submit(() -> {
+                        long wrong = 0;
+                        while (writing.get()) {
+                            for (UUID id : stable) if (index.check(id, recipientId) != Verdict.PENDING) wrong++;
+                        }
+                        return wrong;
+                    }));
+                }
+                executor.submit(() -> {
+                    for (int i = 0; i < 20_000; i++) {
+                        index.applyAfterCommit(List.of(charge(UUID.randomUUID(), Charge.ChargeStatus.PENDING, 0)), ChargeEvent.Type.CREATED);
+                    }
+                    writing.set(false);
+                }).get();
+
+                for (Future<Long> reader : readers) assertThat(reader.get()).isZero();
+            } finally {
+                writing.set(false);
+                executor.shutdownNow();
+            }
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package com.nimble.gateway.infrastructure.cache;
+
+import com.nimble.gateway.domain.entity.User;
+import com.nimble.gateway.domain.repository.UserRepository;
+import com.nimble.gateway.domain.valueobject.UserIdentity;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("UserIdentityCache - Unit Tests")
+class UserIdentityCacheTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    private SimpleMeterRegistry meterRegistry;
+    private UserIdentityCache userIdentityCache;
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        userIdentityCache = new UserIdentityCache(userRepository, meterRegistry, 100, 600);
+        user = User.builder()
+                .id(UUID.randomUUID())
+                .name("João Silva")
+                .cpf("12345678901")
+                .email("joao@teste.com")
+                .balance(new BigDecimal("1000.00"))
+                .isActive(true)
+                .build();
+    }
+
+    @Nested
+    @DisplayName("Scenario: Read-through lookups")
+    class ReadThroughTests {
+
+        @Test
+        @DisplayName("Given a user loaded by email, when looking it up by id, email and CPF, then should hit the database once")
+        void givenUserLoadedByEmail_whenLookingUpByAnyKey_thenShouldHitDatabaseOnce() {
+
+            when(userRepository.findByEmail("joao@teste.com")).thenReturn(Optional.of(user));
+
+            userIdentityCache.findByEmail("joao@teste.com");
+            Optional<UserIdentity> byId = userIdentityCache.findById(user.getId());
+            Optional<UserIdentity> byCpf = userIdentityCache.findByCpf("12345678901");
+            Optional<UserIdentity> byEmail = userIdentityCache.findByEmail("joao@teste.com");
+
+            assertThat(byId).contains(UserIdentity.of(user));
+            assertThat(byCpf).contains(UserIdentity.of(user));
+            assertThat(byEmail).contains(UserIdentity.of(user));
+            verify(userRepository, times(1)).findByEmail("joao@teste.com");
+            verify(userRepository, never()).findById(any());
+            verify(userRepository, never()).findByCpf(anyString());
+            assertThat(lookups("email", "miss")).isEqualTo(1);
+            assertThat(lookups("email", "hit")).isEqualTo(1);
+            assertThat(lookups("id", "hit")).isEqualTo(1);
+            assertThat(lookups("cpf", "hit")).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("Given a CPF username not registered as email, when looking up by username, then should fall back to CPF")
+        void givenCpfUsername_whenLookingUpByUsername_thenShouldFallBackToCpf() {
+
+            when(userRepository.findByEmail("12345678901")).thenReturn(Optional.empty());
+            when(userRepository.findByCpf("12345678901")).thenReturn(Optional.of(user));
+
+            Optional<UserIdentity> result = userIdentityCache.findByUsername("12345678901");
+
+            assertThat(result).map(UserIdentity::id).contains(user.getId());
+        }
+
+        @Test
+        @DisplayName("Given an unknown user, when looking it up twice, then should not cache the miss")
+        void givenUnknownUser_whenLookingUpTwice_thenShouldNotCacheMiss() {
+
+            UUID unknownId = UUID.randomUUID();
+            when(userRepository.findById(unknownId)).thenReturn(Optional.empty());
+
+            assertThat(userIdentityCache.findById(unknownId)).isEmpty();
+            assertThat(userIdentityCache.findById(unknownId)).isEmpty();
+
+            verify(userRepository, times(2)).findById(unknownId);
+        }
+
+        @Test
+        @DisplayName("Given a cached user, when building its principal, then should carry no balance or password")
+        void givenCachedUser_whenBuildingPrincipal_thenShouldCarryNoBalanceOrPassword() {
+
+            when(userRepository.findById(user.getId())).thenReturn(Optional.of(user));
+
+            User principal = userIdentityCache.findById(user.getId()).orElseThrow().toPrincipal();
+
+            assertThat(principal.getId()).isEqualTo(user.getId());
+            assertThat(principal.getUsername()).isEqualTo("joao@teste.com");
+            assertThat(principal.getBalance()).isNull();
+            assertThat(principal.getPassword()).isNull();
+        }
+    }
+
+    @Nested
+    @DisplayName("Scenario: Invalidation")
+    class InvalidationTests {
+
+        @Test
+        @DisplayName("Given a cached user, when only its balance changes, then should keep the cached identity")
+        void givenCachedUser_whenOnlyBalanceChanges_thenShouldKeepCachedIdentity() {
+
+            when(userRepository.findById(user.getId())).thenReturn(Optional.of(user));
+            userIdentityCache.findById(user.getId());
+
+            user.credit(new BigDecimal("50.00"));
+            userIdentityCache.evictIfChanged(user);
+            userIdentityCache.findById(user.getId());
+
+            verify(userRepository, times(1)).findById(user.getId());
+        }
+
+        @Test
+        @DisplayName("Given a cached user, when its email changes, then should evict it and stop resolving the old email")
+        void givenCachedUser_whenEmailChanges_thenShouldEvictIt() {
+
+            when(userRepository.findByEmail("joao@teste.com")).thenReturn(Optional.of(user));
+            userIdentityCache.findByEmail("joao@teste.com");
+
+            user.setEmail("joao.silva@teste.com");
+            userIdentityCache.evictIfChanged(user);
+            when(userRepository.findByEmail("joao@teste.com")).thenReturn(Optional.empty());
+
+            assertThat(userIdentityCache.findByEmail("joao@teste.com")).isEmpty();
+            verify(userRepository, times(2)).findByEmail("joao@teste.com");
+        }
+    }
+
+    private double lookups(String key, String result) {
+        return meterRegistry.get("user.identity.cache.lookups").tag("key", key).tag("result", result).counter().count();
+    }
+}
@@ -0,0 +1,121 @@
+package com.nimble.gateway.infrastructure.config;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.aot.generate.ClassNameGenerator;
+import org.springframework.aot.generate.DefaultGenerationContext;
+import org.springframework.aot.generate.GeneratedFiles;
+import org.springframework.aot.generate.InMemoryGeneratedFiles;
+import org.springframework.beans.factory.aot.BeanFactoryInitializationCode;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.ClassPathScanningCandidateComponentProvider;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.core.env.Environment;
+import org.springframework.javapoet.ClassName;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.util.StringUtils;
+
+import java.io.StringReader;
+import java.lang.reflect.AnnotatedElement;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatNoException;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+
+@DisplayName("AotBuildProperties - Unit Tests")
+class AotBuildPropertiesTest {
+
+    @Nested
+    @DisplayName("Scenario: Recording the build")
+    class RecordTests {
+
+        @Test
+        @DisplayName("Given the conditional beans, when listing the build-time properties, then every condition's property should be listed")
+        void givenConditionalBeans_whenListing_thenEveryPropertyShouldBeListed() throws Exception {
+
+            ClassPathScanningCandidateComponentProvider scanner = new ClassPathScanningCandidateComponentProvider(false);
+            scanner.addIncludeFilter((reader, factory) -> true);
+            List<String> conditioned = new ArrayList<>();
+            for (BeanDefinition candidate : scanner.findCandidateComponents("com.nimble.gateway")) {
+                Class<?> type = Class.forName(candidate.getBeanClassName(), false, getClass().getClassLoader());
+                conditioned.addAll(properties(type));
+                for (Method method : type.getDeclaredMethods()) {
+                    conditioned.addAll(properties(method));
+                }
+            }
+
+            assertThat(conditioned).isNotEmpty();
+            assertThat(AotBuildProperties.BUILD_TIME).containsAll(conditioned);
+        }
+
+        @Test
+        @DisplayName("Given a build environment, when processed ahead of time, then should package the values it was built with")
+        void givenBuildEnvironment_whenProcessedAheadOfTime_thenShouldPackageValues() throws Exception {
+
+            DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+            beanFactory.registerSingleton("environment", new MockEnvironment().withProperty("app.payments.engine", "in-memory"));
+            InMemoryGeneratedFiles files = new InMemoryGeneratedFiles();
+
+            new AotBuildProperties().processAheadOfTime(beanFactory)
+                    .applyTo(new DefaultGenerationContext(new ClassNameGenerator(ClassName.get(getClass())), files),
+                            mock(BeanFactoryInitializationCode.class));
+
+            Properties recorded = new Properties();
+            recorded.load(new StringReader(files.getGeneratedFileContent(GeneratedFiles.Kind.RESOURCE, AotBuildProperties.RESOURCE)));
+            assertThat(recorded).containsOnlyKeys("app.payments.engine").containsEntry("app.payments.engine", "in-memory");
+        }
+    }
+
+    @Nested
+    @DisplayName("Scenario: Starting an AOT build")
+    class CheckTests {
+
+        @Test
+        @DisplayName("Given the values it was built with, when starting, then should start")
+        void givenBuildValues_whenStarting_thenShouldStart() {
+
+            Properties built = built(new MockEnvironment().withProperty("app.outbox.sink", "broker"));
+
+            assertThatNoException().isThrownBy(() ->
+                    AotBuildProperties.check(built, new MockEnvironment().withProperty("app.outbox.sink", "broker")));
+        }
+
+        @Test
+        @DisplayName("Given another payment engine than the build's, when starting, then should refuse to start")
+        void givenOtherEngine_whenStarting_thenShouldRefuse() {
+
+            Properties built = built(new MockEnvironment());
+
+            assertThatThrownBy(() -> AotBuildProperties.check(built, new MockEnvironment().withProperty("app.payments.engine", "in-memory")))
+                    .isInstanceOf(IllegalStateException.class)
+                    .hasMessageContaining("app.payments.engine (built with null, set to in-memory)");
+        }
+    }
+
+    private static Properties built(Environment environment) {
+        Properties properties = new Properties();
+        try {
+            properties.load(new StringReader(AotBuildProperties.record(environment)));
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+        return properties;
+    }
+
+    private static List<String> properties(AnnotatedElement element) {
+        ConditionalOnProperty condition = AnnotatedElementUtils.findMergedAnnotation(element, ConditionalOnProperty.class);
+        if (condition == null) return List.of();
+        String prefix = StringUtils.hasText(condition.prefix()) ? condition.prefix() + "." : "";
+        String[] names = condition.name().length > 0 ? condition.name() : condition.value();
+        return Arrays.stream(names).map(name -> prefix + name).toList();
+    }
+}
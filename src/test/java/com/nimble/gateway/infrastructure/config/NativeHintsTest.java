@@ -0,0 +1,81 @@
+package com.nimble.gateway.infrastructure.config;
+
+import com.nimble.gateway.domain.event.ChargeEvent;
+import com.nimble.gateway.infrastructure.external.AuthorizerResponse;
+import com.nimble.gateway.infrastructure.external.AuthorizerService;
+import com.nimble.gateway.infrastructure.profiling.RecordingSummary;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.TypeReference;
+import org.springframework.aot.hint.predicate.RuntimeHintsPredicates;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("NativeHints - Unit Tests")
+class NativeHintsTest {
+
+    private RuntimeHints hints;
+
+    @BeforeEach
+    void setUp() {
+        hints = new RuntimeHints();
+        new NativeHints().registerHints(hints, getClass().getClassLoader());
+    }
+
+    @Nested
+    @DisplayName("Scenario: Libraries loading classes by name")
+    class LibraryTests {
+
+        @Test
+        @DisplayName("Given the hints, when jjwt looks up its implementation, then every class on the classpath should be instantiable")
+        void givenHints_whenJjwtLooksUpImplementation_thenShouldBeInstantiable() {
+
+            for (String type : NativeHints.JJWT_IMPLEMENTATIONS) {
+                assertThat(RuntimeHintsPredicates.reflection().onType(TypeReference.of(type))
+                        .withMemberCategory(MemberCategory.INVOKE_DECLARED_CONSTRUCTORS)).accepts(hints);
+            }
+            assertThat(RuntimeHintsPredicates.resource().forResource("META-INF/services/io.jsonwebtoken.io.Serializer")).accepts(hints);
+        }
+
+        @Test
+        @DisplayName("Given the hints, when logback builds the JSON encoder, then the nested providers should be instantiable")
+        void givenHints_whenLogbackBuildsEncoder_thenProvidersShouldBeInstantiable() {
+
+            for (String type : NativeHints.LOGSTASH_PROVIDERS) {
+                assertThat(RuntimeHintsPredicates.reflection().onType(TypeReference.of(type))
+                        .withMemberCategory(MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS)).accepts(hints);
+            }
+        }
+    }
+
+    @Nested
+    @DisplayName("Scenario: Types serialized outside controller signatures")
+    class BindingTests {
+
+        @Test
+        @DisplayName("Given the hints, when binding the authorizer response and charge events, then nested types should be covered")
+        void givenHints_whenBinding_thenNestedTypesShouldBeCovered() throws Exception {
+
+            assertThat(RuntimeHintsPredicates.reflection().onType(AuthorizerResponse.AuthorizerData.class)).accepts(hints);
+            assertThat(RuntimeHintsPredicates.reflection().onMethod(AuthorizerResponse.class.getMethod("getStatus"))).accepts(hints);
+            assertThat(RuntimeHintsPredicates.reflection().onType(ChargeEvent.class)).accepts(hints);
+            assertThat(RuntimeHintsPredicates.reflection().onType(RecordingSummary.AllocationSite.class)).accepts(hints);
+        }
+
+        @Test
+        @DisplayName("Given the hints, when the circuit breaker falls back, then the fallback method should be invocable")
+        void givenHints_whenFallingBack_thenFallbackShouldBeInvocable() throws Exception {
+
+            assertThat(RuntimeHintsPredicates.reflection()
+                    .onMethod(AuthorizerService.class.getMethod("handleAuthorizationFallback", Exception.class))).accepts(hints);
+            assertThat(RuntimeHintsPredicates.reflection()
+                    .onMethod(AuthorizerService.class.getMethod("authorizePayment", BigDecimal.class))).accepts(hints);
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.nimble.gateway.infrastructure.metrics;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DisplayName("PaymentMetrics - Unit Tests")
+class PaymentMetricsTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private PaymentMetrics paymentMetrics;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        paymentMetrics = new PaymentMetrics(meterRegistry);
+    }
+
+    @Nested
+    @DisplayName("Scenario: Timing operations")
+    class TimingTests {
+
+        @Test
+        @DisplayName("Given a successful balance payment, when timing it, then should record it under its method and outcome")
+        void givenSuccessfulPayment_whenTiming_thenShouldRecordUnderMethodAndOutcome() {
+
+            paymentMetrics.timePayment("BALANCE", Mono.just("paid")).block();
+
+            assertThat(timerCount("payment.processing.time", "method", "BALANCE", "outcome", "success")).isEqualTo(1);
+            assertThat(timerCount("payment.processing.time", "method", "BALANCE", "outcome", "failure")).isZero();
+        }
+
+        @Test
+        @DisplayName("Given a failing cancellation, when timing it, then should record it as a failure and propagate the error")
+        void givenFailingCancellation_whenTiming_thenShouldRecordFailure() {
+
+            Mono<Object> cancellation = paymentMetrics.timeCancellation(Mono.error(new IllegalStateException("boom")));
+
+            assertThatThrownBy(cancellation::block).isInstanceOf(IllegalStateException.class);
+            assertThat(timerCount("charge.cancellation.time", "outcome", "failure")).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("Given a declined authorization inside a profiled request, when timing it, then should record it and charge the request")
+        void givenDeclinedAuthorizationInRequest_whenTiming_thenShouldRecordAndChargeRequest() {
+
+            RequestProfile profile = RequestProfile.begin();
+            try {
+                // Completes on a timer thread, like a real authorizer response
+                paymentMetrics.timeAuthorization("deposit", Mono.just(false).delayElement(Duration.ofMillis(5))).block();
+            } finally {
+                profile.end();
+            }
+
+            assertThat(timerCount("authorization.time", "type", "deposit", "outcome", "declined")).isEqualTo(1);
+            assertThat(profile.authorizerNanos()).isGreaterThanOrEqualTo(Duration.ofMillis(5).toNanos());
+        }
+
+        @Test
+        @DisplayName("Given a batch of paid charges, when recording it, then should record its time and size")
+        void givenBatch_whenRecording_thenShouldRecordTimeAndSize() {
+
+            paymentMetrics.recordBatch(paymentMetrics.startBatch(), 7);
+
+            assertThat(meterRegistry.get("payment.batch.time").timer().count()).isEqualTo(1);
+            assertThat(meterRegistry.get("payment.batch.charges").summary().totalAmount()).isEqualTo(7);
+        }
+    }
+
+    @Nested
+    @DisplayName("Scenario: Meter registration")
+    class RegistrationTests {
+
+        @Test
+        @DisplayName("Given many recorded operations, when recording, then should not register any meter after construction")
+        void givenManyOperations_whenRecording_thenShouldNotRegisterNewMeters() {
+
+            int registered = meterRegistry.getMeters().size();
+
+            for (int i = 0; i < 100; i++) {
+                paymentMetrics.timePayment(i % 2 == 0 ? "BALANCE" : "CREDIT_CARD", Mono.just(i)).block();
+                paymentMetrics.timeDeposit(Mono.just(i)).block();
+                paymentMetrics.timeAuthorization("payment", Mono.just(true)).block();
+                paymentMetrics.recordChargeCreated();
+            }
+
+            assertThat(meterRegistry.getMeters()).hasSize(registered);
+        }
+
+        @Test
+        @DisplayName("Given an unknown payment method, when timing it, then should pass the payment through untimed")
+        void givenUnknownMethod_whenTiming_thenShouldPassThroughUntimed() {
+
+            int registered = meterRegistry.getMeters().size();
+
+            assertThat(paymentMetrics.timePayment("PIX", Mono.just("paid")).block()).isEqualTo("paid");
+            assertThat(meterRegistry.getMeters()).hasSize(registered);
+        }
+    }
+
+    private long timerCount(String name, String... tags) {
+        return meterRegistry.get(name).tags(tags).timer().count();
+    }
+}
@@ -0,0 +1,112 @@
+package com.nimble.gateway.infrastructure.persistence;
+
+import com.nimble.gateway.domain.entity.Charge;
+import com.nimble.gateway.domain.exception.BusinessRuleException;
+import com.nimble.gateway.domain.exception.ConflictException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DisplayName("Conflict Retry - Unit Tests")
+class ConflictRetryTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private ConflictRetry conflictRetry;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        conflictRetry = new ConflictRetry(meterRegistry, 4, 1, 4);
+    }
+
+    private static ObjectOptimisticLockingFailureException conflict() {
+        return new ObjectOptimisticLockingFailureException(Charge.class, UUID.randomUUID());
+    }
+
+    private double conflicts(String operation, String outcome) {
+        return meterRegistry.get("persistence.conflicts").tag("operation", operation).tag("outcome", outcome).counter().count();
+    }
+
+    @Nested
+    @DisplayName("Scenario: Retrying conflicting attempts")
+    class RetryTests {
+
+        @Test
+        @DisplayName("Given attempts that conflict twice, when executing, then should run again with increasing attempt numbers and succeed")
+        void givenTwoConflicts_whenExecuting_thenShouldSucceedOnThirdAttempt() {
+
+            List<Integer> attempts = new ArrayList<>();
+
+            String result = conflictRetry.execute("pay", attempt -> {
+                attempts.add(attempt);
+                return attempt < 2 ? Mono.error(conflict()) : Mono.just("paid");
+            }).block();
+
+            assertThat(result).isEqualTo("paid");
+            assertThat(attempts).containsExactly(0, 1, 2);
+            assertThat(conflicts("pay", "retried")).isEqualTo(2);
+            assertThat(conflicts("pay", "exhausted")).isZero();
+        }
+
+        @Test
+        @DisplayName("Given attempts that always conflict, when executing, then should give up after the bounded attempts with a conflict")
+        void givenPersistentConflict_whenExecuting_thenShouldThrowConflictException() {
+
+            AtomicInteger attempts = new AtomicInteger();
+
+            assertThatThrownBy(() -> conflictRetry.execute("deposit", attempt -> {
+                attempts.incrementAndGet();
+                return Mono.error(conflict());
+            }).block())
+                    .isInstanceOf(ConflictException.class)
+                    .hasCauseInstanceOf(ObjectOptimisticLockingFailureException.class);
+
+            assertThat(attempts).hasValue(4);
+            assertThat(conflicts("deposit", "retried")).isEqualTo(3);
+            assertThat(conflicts("deposit", "exhausted")).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("Given a business error, when executing, then should fail at once without retrying")
+        void givenBusinessError_whenExecuting_thenShouldNotRetry() {
+
+            AtomicInteger attempts = new AtomicInteger();
+
+            assertThatThrownBy(() -> conflictRetry.execute("cancel", attempt -> {
+                attempts.incrementAndGet();
+                return Mono.error(new BusinessRuleException("Charge is not pending"));
+            }).block())
+                    .isInstanceOf(BusinessRuleException.class);
+
+            assertThat(attempts).hasValue(1);
+        }
+
+        @Test
+        @DisplayName("Given a write that must not be repeated, when it conflicts, then should report the conflict without retrying")
+        void givenNonRepeatableWrite_whenConflicting_thenShouldOnlyReport() {
+
+            AtomicInteger attempts = new AtomicInteger();
+
+            assertThatThrownBy(() -> conflictRetry.detect("pay", Mono.defer(() -> {
+                attempts.incrementAndGet();
+                return Mono.error(conflict());
+            })).block())
+                    .isInstanceOf(ConflictException.class);
+
+            assertThat(attempts).hasValue(1);
+            assertThat(conflicts("pay", "exhausted")).isEqualTo(1);
+        }
+    }
+}
@@ -0,0 +1,280 @@
+package com.nimble.gateway.infrastructure.persistence;
+
+import com.nimble.gateway.domain.entity.Charge;
+import com.nimble.gateway.domain.entity.Payment;
+import com.nimble.gateway.domain.entity.User;
+import com.nimble.gateway.domain.event.ChargeEvent;
+import com.nimble.gateway.domain.exception.BusinessRuleException;
+import com.nimble.gateway.domain.exception.ConflictException;
+import com.nimble.gateway.domain.exception.InsufficientBalanceException;
+import com.nimble.gateway.domain.repository.ChargeRepository;
+import com.nimble.gateway.domain.repository.PaymentRepository;
+import com.nimble.gateway.domain.repository.UserRepository;
+import com.nimble.gateway.infrastructure.cache.PendingChargeIndex;
+import com.nimble.gateway.infrastructure.outbox.ChargeEventOutbox;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@DisplayName("Group Commit Executor - Unit Tests")
+class GroupCommitExecutorTest {
+
+    private UserRepository userRepository;
+    private ChargeRepository chargeRepository;
+    private PaymentRepository paymentRepository;
+    private ChargeEventOutbox chargeEventOutbox;
+    private RecordingTransactions transactions;
+    private SimpleMeterRegistry meterRegistry;
+    private GroupCommitExecutor executor;
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        userRepository = mock(UserRepository.class);
+        chargeRepository = mock(ChargeRepository.class);
+        paymentRepository = mock(PaymentRepository.class);
+        chargeEventOutbox = mock(ChargeEventOutbox.class);
+        transactions = new RecordingTransactions();
+        meterRegistry = new SimpleMeterRegistry();
+        user = User.builder().id(UUID.randomUUID()).name("Maria Santos").balance(new BigDecimal("10.00")).build();
+
+        when(userRepository.findAllById(any())).thenReturn(List.of(user));
+        when(paymentRepository.save(any(Payment.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        // One shard and no window: a batch is exactly what queued while the writer was busy
+        executor = new GroupCommitExecutor(userRepository, chargeRepository, paymentRepository, chargeEventOutbox,
+                mock(PendingChargeIndex.class), transactions, new ConflictRetry(meterRegistry, 3, 1, 5), meterRegistry, 1, 64, 0, 16);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdown();
+    }
+
+    private Charge pendingCharge(String amount) {
+        return Charge.builder()
+                .id(UUID.randomUUID())
+                .originator(User.builder().id(UUID.randomUUID()).build())
+                .recipient(user)
+                .amount(new BigDecimal(amount))
+                .status(Charge.ChargeStatus.PENDING)
+                .build();
+    }
+
+    @Nested
+    @DisplayName("Scenario: Grouping commands")
+    class GroupingTests {
+
+        @Test
+        @DisplayName("Given commands queued while the writer commits, when it is free, then should apply them all in one transaction")
+        void givenQueuedCommands_whenWriterIsFree_thenShouldCommitThemTogether() throws Exception {
+
+            CountDownLatch release = transactions.holdNext();
+            CompletableFuture<Payment> first = executor.deposit(user.getId(), new BigDecimal("1.00"));
+            assertThat(transactions.entered.await(5, TimeUnit.SECONDS)).isTrue();
+            List<CompletableFuture<Payment>> queued = List.of(
+                    executor.deposit(user.getId(), new BigDecimal("2.00")),
+                    executor.deposit(user.getId(), new BigDecimal("3.00")),
+                    executor.deposit(user.getId(), new BigDecimal("4.00")));
+            release.countDown();
+
+            assertThat(first.get(5, TimeUnit.SECONDS).getAmount()).isEqualByComparingTo("1.00");
+            for (CompletableFuture<Payment> future : queued) assertThat(future.get(5, TimeUnit.SECONDS).getPayer()).isSameAs(user);
+
+            assertThat(transactions.count.get()).isEqualTo(2);
+            verify(userRepository, times(2)).findAllById(any());
+            assertThat(user.getBalance()).isEqualByComparingTo("20.00");
+            assertThat(meterRegistry.get("payment.group_commit.batch.size").summary().max()).isEqualTo(3);
+        }
+
+        @Test
+        @DisplayName("Given pays in one batch, when applied, then each should see the balance the earlier ones left and one refusal should not fail the rest")
+        void givenPaysInOneBatch_whenApplied_thenShouldCheckEachAgainstRunningState() throws Exception {
+
+            Charge affordable = pendingCharge("8.00");
+            Charge tooLarge = pendingCharge("30.00");
+            UUID missing = UUID.randomUUID();
+            when(chargeRepository.findAllById(any())).thenReturn(List.of(affordable, tooLarge));
+
+            CountDownLatch release = transactions.holdNext();
+            executor.deposit(user.getId(), new BigDecimal("1.00"));
+            assertThat(transactions.entered.await(5, TimeUnit.SECONDS)).isTrue();
+            CompletableFuture<Payment> paid = executor.payWithBalance(affordable.getId(), user.getId());
+            CompletableFuture<Payment> repeated = executor.payWithBalance(affordable.getId(), user.getId());
+            CompletableFuture<Payment> insufficient = executor.payWithBalance(tooLarge.getId(), user.getId());
+            CompletableFuture<Payment> unknown = executor.payWithBalance(missing, user.getId());
+            release.countDown();
+
+            assertThat(paid.get(5, TimeUnit.SECONDS).getCharge()).isSameAs(affordable);
+            assertThatThrownBy(() -> repeated.get(5, TimeUnit.SECONDS))
+                    .isInstanceOf(ExecutionException.class)
+                    .hasCauseInstanceOf(BusinessRuleException.class)
+                    .hasRootCauseMessage("Charge is not pending");
+            assertThatThrownBy(() -> insufficient.get(5, TimeUnit.SECONDS)).hasCauseInstanceOf(InsufficientBalanceException.class);
+            assertThatThrownBy(() -> unknown.get(5, TimeUnit.SECONDS)).hasRootCauseMessage("Charge not found");
+
+            assertThat(transactions.count.get()).isEqualTo(2);
+            assertThat(affordable.getStatus()).isEqualTo(Charge.ChargeStatus.PAID);
+            assertThat(tooLarge.getStatus()).isEqualTo(Charge.ChargeStatus.PENDING);
+            // The payer is the recipient, so the pay leaves the balance where the deposit put it
+            assertThat(user.getBalance()).isEqualByComparingTo("11.00");
+            verify(chargeEventOutbox).recordAll(List.of(affordable), ChargeEvent.Type.PAID);
+        }
+    }
+
+    @Nested
+    @DisplayName("Scenario: Isolating failures")
+    class IsolationTests {
+
+        @Test
+        @DisplayName("Given a batch whose commit fails, when isolated, then should run each command in its own transaction")
+        void givenFailedCommit_whenIsolated_thenShouldCommitEachCommandAlone() throws Exception {
+
+            CountDownLatch release = transactions.holdNext();
+            executor.deposit(user.getId(), new BigDecimal("1.00"));
+            assertThat(transactions.entered.await(5, TimeUnit.SECONDS)).isTrue();
+            transactions.failNext = new ObjectOptimisticLockingFailureException(User.class, user.getId());
+            List<CompletableFuture<Payment>> queued = List.of(
+                    executor.deposit(user.getId(), new BigDecimal("2.00")),
+                    executor.deposit(user.getId(), new BigDecimal("3.00")));
+            release.countDown();
+
+            for (CompletableFuture<Payment> future : queued) assertThat(future.get(5, TimeUnit.SECONDS)).isNotNull();
+            assertThat(transactions.count.get()).isEqualTo(4);
+            assertThat(meterRegistry.get("payment.group_commit.isolated").counter().count()).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("Given a batch whose commands conflict again alone, when isolated, then should retry each from a fresh read")
+        void givenConflictsWhenIsolated_whenCommitted_thenShouldRetryEachCommand() throws Exception {
+
+            CountDownLatch release = transactions.holdNext();
+            executor.deposit(user.getId(), new BigDecimal("1.00"));
+            assertThat(transactions.entered.await(5, TimeUnit.SECONDS)).isTrue();
+            transactions.fail(new ObjectOptimisticLockingFailureException(User.class, user.getId()), 2);
+            List<CompletableFuture<Payment>> queued = List.of(
+                    executor.deposit(user.getId(), new BigDecimal("2.00")),
+                    executor.deposit(user.getId(), new BigDecimal("3.00")));
+            release.countDown();
+
+            for (CompletableFuture<Payment> future : queued) assertThat(future.get(5, TimeUnit.SECONDS)).isNotNull();
+            // The batch, the first command alone, its retry, then the second command
+            assertThat(transactions.count.get()).isEqualTo(5);
+            assertThat(meterRegistry.get("persistence.conflicts").tag("operation", "deposit").tag("outcome", "retried").counter().count())
+                    .isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("Given a single command that keeps conflicting, when committed, then should fail only that caller with a conflict once retries run out")
+        void givenSingleCommandConflicting_whenCommitted_thenShouldFailCallerWithConflict() {
+
+            transactions.fail(new ObjectOptimisticLockingFailureException(User.class, user.getId()), Integer.MAX_VALUE);
+
+            assertThatThrownBy(() -> executor.deposit(user.getId(), new BigDecimal("1.00")).get(5, TimeUnit.SECONDS))
+                    .hasCauseInstanceOf(ConflictException.class)
+                    .hasRootCauseInstanceOf(ObjectOptimisticLockingFailureException.class);
+            assertThat(transactions.count.get()).isEqualTo(3);
+        }
+    }
+
+    @Nested
+    @DisplayName("Scenario: Shutting down")
+    class ShutdownTests {
+
+        @Test
+        @DisplayName("Given callers submitting while the executor shuts down, when it stops, then every submitted command should complete")
+        void givenSubmitsDuringShutdown_whenStopped_thenEveryCommandShouldComplete() throws Exception {
+
+            List<CompletableFuture<Payment>> submitted = new CopyOnWriteArrayList<>();
+            CountDownLatch started = new CountDownLatch(4);
+            List<Thread> callers = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                Thread caller = new Thread(() -> {
+                    started.countDown();
+                    for (int n = 0; n < 2_000; n++) submitted.add(executor.deposit(user.getId(), BigDecimal.ONE));
+                });
+                caller.start();
+                callers.add(caller);
+            }
+            started.await(5, TimeUnit.SECONDS);
+            executor.shutdown();
+            for (Thread caller : callers) caller.join(TimeUnit.SECONDS.toMillis(10));
+
+            // A command offered after the writer's last drain used to stay incomplete forever
+            assertThat(submitted).hasSize(8_000);
+            CompletableFuture.allOf(submitted.toArray(CompletableFuture[]::new)).handle((ignored, failure) -> null).get(5, TimeUnit.SECONDS);
+            assertThat(submitted).allMatch(CompletableFuture::isDone);
+            assertThat(submitted).filteredOn(CompletableFuture::isCompletedExceptionally)
+                    .allSatisfy(future -> assertThatThrownBy(future::get).hasCauseInstanceOf(GroupCommitBusyException.class));
+        }
+    }
+
+    private static final class RecordingTransactions implements TransactionOperations {
+
+        private final AtomicInteger count = new AtomicInteger();
+        private volatile CountDownLatch entered = new CountDownLatch(1);
+        private volatile CountDownLatch hold;
+        private volatile RuntimeException failNext;
+        private final AtomicInteger failures = new AtomicInteger();
+
+        // Fails that many commits in a row; failNext set alone fails one
+        void fail(RuntimeException failure, int times) {
+            failNext = failure;
+            failures.set(times);
+        }
+
+        CountDownLatch holdNext() {
+            entered = new CountDownLatch(1);
+            hold = new CountDownLatch(1);
+            return hold;
+        }
+
+        @Override
+        public <T> T execute(TransactionCallback<T> action) {
+            count.incrementAndGet();
+            CountDownLatch gate = hold;
+            hold = null;
+            entered.countDown();
+            if (gate != null) {
+                try {
+                    gate.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            T result = action.doInTransaction(new SimpleTransactionStatus());
+            // Fails as the commit would, after the batch was applied
+            RuntimeException failure = failNext;
+            if (failure != null && gate == null) {
+                if (failures.decrementAndGet() <= 0) failNext = null;
+                throw failure;
+            }
+            return result;
+        }
+    }
+}
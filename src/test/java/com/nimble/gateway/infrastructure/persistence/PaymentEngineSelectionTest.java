@@ -0,0 +1,50 @@
+package com.nimble.gateway.infrastructure.persistence;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.mock.env.MockEnvironment;
+
+import static org.assertj.core.api.Assertions.assertThatNoException;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DisplayName("PaymentEngineSelection - Unit Tests")
+class PaymentEngineSelectionTest {
+
+    @Nested
+    @DisplayName("Scenario: Selecting the payment engine")
+    class SelectionTests {
+
+        @Test
+        @DisplayName("Given no engine set, when starting, then should start with the JPA engine")
+        void givenNoEngine_whenStarting_thenShouldStart() {
+
+            PaymentEngineSelection selection = new PaymentEngineSelection(new MockEnvironment());
+
+            assertThatNoException().isThrownBy(() -> selection.postProcessBeanFactory(new DefaultListableBeanFactory()));
+        }
+
+        @Test
+        @DisplayName("Given every known engine, when starting, then should start")
+        void givenKnownEngines_whenStarting_thenShouldStart() {
+
+            for (String engine : PaymentEngine.ENGINES) {
+                PaymentEngineSelection selection = new PaymentEngineSelection(new MockEnvironment().withProperty(PaymentEngine.PROPERTY, engine));
+
+                assertThatNoException().isThrownBy(() -> selection.postProcessBeanFactory(new DefaultListableBeanFactory()));
+            }
+        }
+
+        @Test
+        @DisplayName("Given an unknown engine, when starting, then should refuse to start naming the engines")
+        void givenUnknownEngine_whenStarting_thenShouldRefuse() {
+
+            PaymentEngineSelection selection = new PaymentEngineSelection(new MockEnvironment().withProperty(PaymentEngine.PROPERTY, "groupcommit"));
+
+            assertThatThrownBy(() -> selection.postProcessBeanFactory(new DefaultListableBeanFactory()))
+                    .isInstanceOf(IllegalArgumentException.class)
+                    .hasMessage("app.payments.engine must be one of jpa, stored-procedure, group-commit, in-memory, was groupcommit");
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.nimble.gateway.infrastructure.profiling;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import reactor.core.publisher.Mono;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+@DisplayName("Flight Recordings - Unit Tests")
+class FlightRecordingsTest {
+
+    @TempDir
+    Path directory;
+
+    private FlightRecordings flightRecordings;
+
+    @BeforeEach
+    void setUp() {
+        flightRecordings = new FlightRecordings(directory, 60, 120, 2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        flightRecordings.close();
+    }
+
+    @Nested
+    @DisplayName("Scenario: Recording the gateway's own events")
+    class CustomEventTests {
+
+        @Test
+        @DisplayName("Given no recording, when emitting events, then should leave monos untouched and record nothing")
+        void givenNoRecording_whenEmittingEvents_thenShouldBeNoOp() {
+
+            Mono<String> mono = Mono.just("paid");
+
+            assertThat(PaymentEvent.record("payment", "BALANCE", mono).block()).isEqualTo("paid");
+            assertThat(JdbcEvent.begin("execute")).isNull();
+        }
+
+        @Test
+        @DisplayName("Given a running recording, when stopping it, then should summarize payments, authorizations and JDBC phases")
+        void givenRunningRecording_whenStopping_thenShouldSummarizeOperations() {
+
+            assertThat(flightRecordings.start(null)).isPresent();
+            PaymentEvent.record("payment", "BALANCE", Mono.delay(Duration.ofMillis(5)).thenReturn("paid")).block();
+            PaymentEvent.record("payment", "BALANCE", Mono.error(new IllegalStateException())).onErrorComplete().block();
+            AuthorizationEvent.record("deposit", Mono.just(true), approved -> approved).block();
+            JdbcEvent.end(JdbcEvent.begin("execute"));
+            JdbcEvent.end(JdbcEvent.begin("execute"));
+
+            RecordingSummary summary = flightRecordings.stop().orElseThrow();
+
+            assertThat(summary.operations()).extracting(RecordingSummary.Operation::name, RecordingSummary.Operation::count)
+                    .contains(
+                            tuple("Payment payment BALANCE", 1L),
+                            tuple("Payment payment BALANCE (failed)", 1L),
+                            tuple("Authorization deposit", 1L),
+                            tuple("JDBC execute", 2L));
+            assertThat(summary.operations()).filteredOn(operation -> operation.name().equals("Payment payment BALANCE"))
+                    .allSatisfy(operation -> assertThat(operation.maxMs()).isGreaterThanOrEqualTo(5.0));
+            assertThat(summary.events()).isPositive();
+        }
+    }
+
+    @Nested
+    @DisplayName("Scenario: Managing recordings")
+    class LifecycleTests {
+
+        @Test
+        @DisplayName("Given a running recording, when starting another, then should refuse it")
+        void givenRunningRecording_whenStartingAnother_thenShouldRefuse() {
+
+            assertThat(flightRecordings.start(10)).isPresent();
+
+            assertThat(flightRecordings.start(10)).isEmpty();
+        }
+
+        @Test
+        @DisplayName("Given a duration above the maximum, when starting, then should cap it")
+        void givenLongDuration_whenStarting_thenShouldCapIt() {
+
+            assertThat(flightRecordings.start(3_600).orElseThrow().duration()).isEqualTo(Duration.ofSeconds(120));
+        }
+
+        @Test
+        @DisplayName("Given more finished recordings than retained, when starting another, then should delete the oldest file")
+        void givenMoreRecordingsThanRetained_whenStarting_thenShouldDeleteOldest() {
+
+            long first = flightRecordings.start(null).orElseThrow().id();
+            flightRecordings.stop();
+            Path firstFile = flightRecordings.file(first).orElseThrow();
+            assertThat(firstFile).exists();
+            flightRecordings.start(null);
+            flightRecordings.stop();
+            flightRecordings.start(null);
+            flightRecordings.stop();
+
+            assertThat(flightRecordings.list()).hasSize(2);
+            assertThat(flightRecordings.file(first)).isEmpty();
+            assertThat(Files.exists(firstFile)).isFalse();
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.nimble.gateway.infrastructure.security;
+
+import com.nimble.gateway.domain.entity.JwtSigningKey;
+import com.nimble.gateway.domain.repository.JwtSigningKeyRepository;
+
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+class InMemoryJwtSigningKeyRepository implements JwtSigningKeyRepository {
+
+    final List<JwtSigningKey> keys = new CopyOnWriteArrayList<>();
+
+    @Override
+    public void insert(JwtSigningKey key) {
+        keys.add(key);
+    }
+
+    @Override
+    public List<JwtSigningKey> findUnexpired(LocalDateTime now) {
+        return keys.stream()
+                .filter(key -> key.getExpiresAt().isAfter(now))
+                .sorted(Comparator.comparing(JwtSigningKey::getActivatesAt))
+                .toList();
+    }
+
+    @Override
+    public int deleteExpiredBefore(LocalDateTime now) {
+        int before = keys.size();
+        keys.removeIf(key -> !key.getExpiresAt().isAfter(now));
+        return before - keys.size();
+    }
+}
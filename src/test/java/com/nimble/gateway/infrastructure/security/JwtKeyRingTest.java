@@ -0,0 +1,221 @@
+package com.nimble.gateway.infrastructure.security;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.UnsupportedJwtException;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Date;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DisplayName("JWT Key Ring - Unit Tests")
+class JwtKeyRingTest {
+
+    private static final String SECRET = "mySecretKey123456789012345678901234567890mySecretKey1234567890";
+
+    private static final ObjectMapper HEADER_READER = new ObjectMapper();
+
+    private final InMemoryJwtSigningKeyRepository repository = new InMemoryJwtSigningKeyRepository();
+
+    private JwtKeyRing ring(String algorithm, Duration rotationPeriod, Duration publishAhead) {
+        return new JwtKeyRing(repository, SECRET, algorithm, rotationPeriod, publishAhead, Duration.ofHours(1));
+    }
+
+    private JwtTokenProvider provider(JwtKeyRing ring, boolean acceptHs512) {
+        return new JwtTokenProvider(ring, SECRET, acceptHs512, 60_000, 120_000);
+    }
+
+    private static String kidOf(String token) throws IOException {
+        return HEADER_READER.readTree(Base64.getUrlDecoder().decode(token.substring(0, token.indexOf('.')))).get("kid").asText();
+    }
+
+    @Nested
+    @DisplayName("Scenario: Signing and verifying with the ring")
+    class SigningTests {
+
+        @Test
+        @DisplayName("Given an empty key table, when signing the first token, then should create a key and name it in the header")
+        void givenEmptyTable_whenSigning_thenShouldBootstrapKeyAndSetKid() throws IOException {
+
+            JwtKeyRing ring = ring("ES256", Duration.ofDays(7), Duration.ofMinutes(10));
+            JwtTokenProvider provider = provider(ring, true);
+
+            String token = provider.generateTokenFromUsername("user@teste.com");
+
+            assertThat(repository.keys).hasSize(1);
+            assertThat(kidOf(token)).isEqualTo(repository.keys.get(0).getKid());
+            assertThat(provider.resolveUsername(token)).isEqualTo("user@teste.com");
+        }
+
+        @Test
+        @DisplayName("Given EdDSA keys, when signing, then should verify with the stored public key")
+        void givenEdDsa_whenSigning_thenShouldVerify() {
+
+            JwtTokenProvider provider = provider(ring("EdDSA", Duration.ofDays(7), Duration.ofMinutes(10)), true);
+
+            String token = provider.generateTokenFromUsername("user@teste.com");
+
+            assertThat(repository.keys.get(0).getAlgorithm()).isEqualTo("EdDSA");
+            assertThat(provider.resolveUsername(token)).isEqualTo("user@teste.com");
+        }
+
+        @Test
+        @DisplayName("Given a key stored by another instance, when verifying its token, then should load it and accept it")
+        void givenKeyFromOtherInstance_whenVerifying_thenShouldAccept() throws InterruptedException {
+
+            JwtTokenProvider first = provider(ring("ES256", Duration.ofDays(7), Duration.ofMinutes(10)), true);
+            first.generateTokenFromUsername("warm-up@teste.com");
+            JwtKeyRing other = ring("ES256", Duration.ZERO, Duration.ZERO);
+            other.maintain();
+            String token = provider(other, true).generateTokenFromUsername("user@teste.com");
+            Thread.sleep(1_100);
+
+            assertThat(first.resolveUsername(token)).isEqualTo("user@teste.com");
+        }
+
+        @Test
+        @DisplayName("Given a token naming an unknown key, when verifying, then should reject it")
+        void givenUnknownKid_whenVerifying_thenShouldReject() {
+
+            JwtTokenProvider provider = provider(ring("ES256", Duration.ofDays(7), Duration.ofMinutes(10)), true);
+            String forged = Jwts.builder()
+                    .header().keyId(UUID.randomUUID().toString()).and()
+                    .subject("admin@teste.com")
+                    .signWith(Jwts.SIG.ES256.keyPair().build().getPrivate(), Jwts.SIG.ES256)
+                    .compact();
+
+            assertThat(provider.resolveUsername(forged)).isNull();
+            assertThatThrownBy(() -> provider.getUsernameFromToken(forged)).isInstanceOf(UnsupportedJwtException.class);
+        }
+
+        @Test
+        @DisplayName("Given a token signed with an existing kid but another key, when verifying, then should reject it")
+        void givenKnownKidWrongKey_whenVerifying_thenShouldReject() throws IOException {
+
+            JwtTokenProvider provider = provider(ring("ES256", Duration.ofDays(7), Duration.ofMinutes(10)), true);
+            String kid = kidOf(provider.generateTokenFromUsername("user@teste.com"));
+            String forged = Jwts.builder()
+                    .header().keyId(kid).and()
+                    .subject("admin@teste.com")
+                    .signWith(Jwts.SIG.ES256.keyPair().build().getPrivate(), Jwts.SIG.ES256)
+                    .compact();
+
+            assertThat(provider.resolveUsername(forged)).isNull();
+        }
+    }
+
+    @Nested
+    @DisplayName("Scenario: Rotating keys")
+    class RotationTests {
+
+        @Test
+        @DisplayName("Given a key due for rotation, when maintaining, then should publish the next key before signing with it")
+        void givenDueKey_whenMaintaining_thenShouldPublishAheadAndSwitchAfterActivation() throws Exception {
+
+            JwtKeyRing ring = ring("ES256", Duration.ofSeconds(1), Duration.ofSeconds(1));
+            JwtTokenProvider provider = provider(ring, true);
+            String oldToken = provider.generateTokenFromUsername("user@teste.com");
+            String oldKid = kidOf(oldToken);
+
+            ring.maintain();
+
+            assertThat(repository.keys).hasSize(2);
+            String nextKid = repository.keys.get(1).getKid();
+            assertThat(ring.publishedKeys()).<Object>extracting(key -> key.get("kid")).containsExactly(oldKid, nextKid);
+            assertThat(kidOf(provider.generateTokenFromUsername("user@teste.com"))).isEqualTo(oldKid);
+
+            Thread.sleep(1_100);
+
+            String newToken = provider.generateTokenFromUsername("user@teste.com");
+            assertThat(kidOf(newToken)).isEqualTo(nextKid);
+            assertThat(provider.resolveUsername(oldToken)).isEqualTo("user@teste.com");
+            assertThat(provider.resolveUsername(newToken)).isEqualTo("user@teste.com");
+        }
+
+        @Test
+        @DisplayName("Given a fresh key, when maintaining, then should leave the ring alone")
+        void givenFreshKey_whenMaintaining_thenShouldNotRotate() {
+
+            JwtKeyRing ring = ring("ES256", Duration.ofDays(7), Duration.ofMinutes(10));
+            ring.signingKey();
+
+            ring.maintain();
+
+            assertThat(repository.keys).hasSize(1);
+        }
+
+        @Test
+        @DisplayName("Given published keys, when listing them, then should expose only public parameters")
+        void givenKeys_whenPublishing_thenShouldOmitPrivateParameters() {
+
+            JwtKeyRing ring = ring("ES256", Duration.ofDays(7), Duration.ofMinutes(10));
+
+            Map<String, Object> jwk = Map.copyOf(ring.publishedKeys().get(0));
+
+            assertThat(jwk).containsEntry("kty", "EC").containsEntry("alg", "ES256").containsEntry("use", "sig")
+                    .containsKeys("kid", "crv", "x", "y").doesNotContainKey("d");
+            assertThat(ring.publishedKeysMaxAge()).isEqualTo(Duration.ofMinutes(5));
+        }
+    }
+
+    @Nested
+    @DisplayName("Scenario: Tokens signed with the shared secret")
+    class LegacyTokenTests {
+
+        private String legacyToken() {
+            return Jwts.builder()
+                    .subject("user@teste.com")
+                    .expiration(new Date(System.currentTimeMillis() + 60_000))
+                    .signWith(Keys.hmacShaKeyFor(SECRET.getBytes()))
+                    .compact();
+        }
+
+        @Test
+        @DisplayName("Given HS512 tokens are still accepted, when verifying one, then should resolve its user")
+        void givenLegacyAccepted_whenVerifying_thenShouldAccept() {
+
+            JwtTokenProvider provider = provider(ring("ES256", Duration.ofDays(7), Duration.ofMinutes(10)), true);
+
+            assertThat(provider.resolveUsername(legacyToken())).isEqualTo("user@teste.com");
+        }
+
+        @Test
+        @DisplayName("Given HS512 tokens are refused, when verifying one, then should reject it")
+        void givenLegacyRefused_whenVerifying_thenShouldReject() {
+
+            JwtTokenProvider provider = provider(ring("ES256", Duration.ofDays(7), Duration.ofMinutes(10)), false);
+
+            assertThat(provider.resolveUsername(legacyToken())).isNull();
+        }
+    }
+
+    @Nested
+    @DisplayName("Scenario: Storing private keys")
+    class PrivateKeyCipherTests {
+
+        @Test
+        @DisplayName("Given an encrypted private key, when decrypting with another kid or secret, then should fail")
+        void givenEncryptedKey_whenDecryptingWithOtherContext_thenShouldFail() {
+
+            PrivateKeyCipher cipher = new PrivateKeyCipher(SECRET);
+            byte[] plain = "private-key-bytes".getBytes();
+
+            byte[] sealed = cipher.encrypt(plain, "kid-1");
+
+            assertThat(cipher.decrypt(sealed, "kid-1")).isEqualTo(plain);
+            assertThatThrownBy(() -> cipher.decrypt(sealed, "kid-2")).isInstanceOf(IllegalStateException.class);
+            assertThatThrownBy(() -> new PrivateKeyCipher("another-secret").decrypt(sealed, "kid-1"))
+                    .isInstanceOf(IllegalStateException.class);
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.nimble.gateway.infrastructure.security;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+
+import javax.crypto.SecretKey;
+import java.time.Duration;
+import java.util.Date;
+import java.util.function.Function;
+
+// Verification cost per access token: the old HS512 path that built a parser on every call, HS512 with a cached
+// parser, and the key ring's cached ES256 and EdDSA parsers selected by kid. Not run by surefire:
+//   mvn -B test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt
+//   java -cp target/test-classes:target/classes:$(cat target/cp.txt) com.nimble.gateway.infrastructure.security.JwtVerificationBenchmark
+class JwtVerificationBenchmark {
+
+    private static final String SECRET = "mySecretKey123456789012345678901234567890mySecretKey1234567890";
+    private static final int WARM_UP = 5_000;
+    private static final int ITERATIONS = 20_000;
+
+    public static void main(String[] args) {
+        SecretKey hmacKey = Keys.hmacShaKeyFor(SECRET.getBytes());
+        String hs512 = Jwts.builder()
+                .subject("user@teste.com")
+                .expiration(new Date(System.currentTimeMillis() + 3_600_000))
+                .signWith(hmacKey)
+                .compact();
+        var cachedHs512 = Jwts.parser().verifyWith(hmacKey).build();
+
+        run("HS512, parser per call", hs512, token ->
+                Jwts.parser().verifyWith(Keys.hmacShaKeyFor(SECRET.getBytes())).build().parseSignedClaims(token).getPayload().getSubject());
+        run("HS512, cached parser", hs512, token -> cachedHs512.parseSignedClaims(token).getPayload().getSubject());
+        run("ES256, key ring", "ES256");
+        run("EdDSA, key ring", "EdDSA");
+    }
+
+    private static void run(String name, String algorithm) {
+        JwtTokenProvider provider = new JwtTokenProvider(
+                new JwtKeyRing(new InMemoryJwtSigningKeyRepository(), SECRET, algorithm, Duration.ofDays(7), Duration.ofMinutes(10), Duration.ofDays(7)),
+                SECRET, true, 3_600_000, 7_200_000);
+        run(name, provider.generateTokenFromUsername("user@teste.com"), provider::resolveUsername);
+    }
+
+    private static void run(String name, String token, Function<String, String> verify) {
+        for (int i = 0; i < WARM_UP; i++) verify.apply(token);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            if (!"user@teste.com".equals(verify.apply(token))) throw new IllegalStateException(name + " failed to verify");
+        }
+        long elapsed = System.nanoTime() - start;
+        System.out.printf("%-24s %8.1f us/op  %9.0f ops/s  (%d bytes)%n",
+                name, elapsed / 1_000.0 / ITERATIONS, ITERATIONS * 1e9 / elapsed, token.length());
+    }
+}
@@ -0,0 +1,144 @@
+package com.nimble.gateway.infrastructure.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DisplayName("Password Hashing Executor - Unit Tests")
+class PasswordHashingExecutorTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ExecutorService callers = Executors.newCachedThreadPool();
+    private PasswordHashingExecutor executor;
+
+    @AfterEach
+    void tearDown() {
+        if (executor != null) executor.shutdown();
+        callers.shutdownNow();
+    }
+
+    @Nested
+    @DisplayName("Scenario: Sizing the hashing pool")
+    class SizingTests {
+
+        @Test
+        @DisplayName("Given a CPU share, when sizing the pool, then should take that share of the cores and never less than one thread")
+        void givenCpuShare_whenSizing_thenShouldTakeShareOfCores() {
+
+            assertThat(PasswordHashingExecutor.threadsFor(0.25, 16)).isEqualTo(4);
+            assertThat(PasswordHashingExecutor.threadsFor(0.25, 2)).isEqualTo(1);
+            assertThat(PasswordHashingExecutor.threadsFor(0.0, 8)).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("Given a fixed thread count, when sizing the pool, then should ignore the CPU share")
+        void givenFixedThreads_whenSizing_thenShouldIgnoreCpuShare() {
+
+            executor = new PasswordHashingExecutor(3, 0.01, 0, 1000, meterRegistry);
+
+            assertThat(executor.threads()).isEqualTo(3);
+        }
+    }
+
+    @Nested
+    @DisplayName("Scenario: Shedding hashes under load")
+    class SheddingTests {
+
+        @Test
+        @DisplayName("Given every thread and queue slot taken, when hashing, then should refuse at once and count a full queue")
+        void givenSaturatedPool_whenHashing_thenShouldRefuse() throws Exception {
+
+            executor = new PasswordHashingExecutor(1, 0, 1, 60_000, meterRegistry);
+            CountDownLatch release = new CountDownLatch(1);
+            CompletableFuture<String> running = CompletableFuture.supplyAsync(() -> executor.execute(() -> await(release)), callers);
+            waitUntilPending(1);
+            CompletableFuture<String> queued = CompletableFuture.supplyAsync(() -> executor.execute(() -> "queued"), callers);
+            waitUntilPending(2);
+
+            assertThatThrownBy(() -> executor.execute(() -> "refused"))
+                    .isInstanceOf(PasswordHashingBusyException.class);
+            assertThat(rejected("queue_full")).isEqualTo(1.0);
+
+            release.countDown();
+            assertThat(running.get(5, TimeUnit.SECONDS)).isEqualTo("released");
+            assertThat(queued.get(5, TimeUnit.SECONDS)).isEqualTo("queued");
+            assertThat(executor.execute(() -> "admitted")).isEqualTo("admitted");
+        }
+
+        @Test
+        @DisplayName("Given a hash that waited past the queue timeout, when its turn comes, then should drop it without computing it")
+        void givenStaleHash_whenItsTurnComes_thenShouldDropIt() throws Exception {
+
+            executor = new PasswordHashingExecutor(1, 0, 4, 50, meterRegistry);
+            CountDownLatch release = new CountDownLatch(1);
+            AtomicInteger computed = new AtomicInteger();
+            CompletableFuture<String> running = CompletableFuture.supplyAsync(() -> executor.execute(() -> await(release)), callers);
+            waitUntilPending(1);
+            CompletableFuture<Integer> stale = CompletableFuture.supplyAsync(() -> executor.execute(computed::incrementAndGet), callers);
+            waitUntilPending(2);
+
+            Thread.sleep(100);
+            release.countDown();
+
+            assertThat(running.get(5, TimeUnit.SECONDS)).isEqualTo("released");
+            assertThat(stale).failsWithin(5, TimeUnit.SECONDS)
+                    .withThrowableOfType(Exception.class)
+                    .withRootCauseInstanceOf(PasswordHashingBusyException.class);
+            assertThat(computed).hasValue(0);
+            assertThat(rejected("timed_out")).isEqualTo(1.0);
+        }
+    }
+
+    @Nested
+    @DisplayName("Scenario: Encoding passwords through the pool")
+    class EncoderTests {
+
+        @Test
+        @DisplayName("Given a bounded encoder, when encoding and matching, then should hash on the pool and flag weaker hashes for upgrade")
+        void givenBoundedEncoder_whenEncodingAndMatching_thenShouldDelegate() {
+
+            executor = new PasswordHashingExecutor(1, 0, 1, 1000, meterRegistry);
+            BoundedPasswordEncoder encoder = new BoundedPasswordEncoder(new BCryptPasswordEncoder(5), executor);
+
+            String hash = encoder.encode("password123");
+
+            assertThat(hash).startsWith("$2a$05$");
+            assertThat(encoder.matches("password123", hash)).isTrue();
+            assertThat(encoder.matches("wrong", hash)).isFalse();
+            assertThat(encoder.upgradeEncoding(new BCryptPasswordEncoder(4).encode("password123"))).isTrue();
+            assertThat(encoder.upgradeEncoding(hash)).isFalse();
+        }
+    }
+
+    private String await(CountDownLatch release) {
+        try {
+            release.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return "released";
+    }
+
+    private void waitUntilPending(int pending) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (executor.pending() < pending && System.nanoTime() < deadline) Thread.sleep(5);
+        assertThat(executor.pending()).isEqualTo(pending);
+    }
+
+    private double rejected(String reason) {
+        return meterRegistry.get("password.hashing.rejected").tag("reason", reason).counter().count();
+    }
+}
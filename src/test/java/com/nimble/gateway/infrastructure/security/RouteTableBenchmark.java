@@ -0,0 +1,84 @@
+package com.nimble.gateway.infrastructure.security;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
+import org.springframework.security.web.util.matcher.RequestMatcher;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Cost of classifying a request: the route table, once per request, against what ran before - the startsWith
+// chains in the JWT filter and rate limiter plus SecurityConfig's own ant patterns, tried in order.
+//   mvn -B test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt
+//   java -cp target/test-classes:target/classes:$(cat target/cp.txt) org.openjdk.jmh.Main RouteTableBenchmark
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RouteTableBenchmark {
+
+    @Param({"/api/payments/3f2b8c1e-6f4a-4d7e-9a52-0c3d1e2f4a5b", "/api/auth/login", "/actuator/metrics/http.server.requests", "/swagger-ui/index.html"})
+    public String path;
+
+    private RouteTable routeTable;
+    private List<RequestMatcher> securityRules;
+    private MockHttpServletRequest request;
+
+    @Setup
+    public void setUp() {
+        routeTable = new RouteTable();
+        securityRules = List.of("/api/auth/login", "/api/auth/register", "/api/auth/refresh", "/.well-known/jwks.json",
+                "/api/health/**", "/actuator/jfr", "/actuator/jfr/**", "/actuator/**", "/swagger-ui.html", "/swagger-ui/**",
+                "/v3/api-docs/**", "/swagger-resources/**", "/webjars/**").stream()
+                .<RequestMatcher>map(AntPathRequestMatcher::antMatcher)
+                .toList();
+        request = new MockHttpServletRequest("GET", path);
+    }
+
+    @Benchmark
+    public RouteTable.Route routeTable() {
+        request.removeAttribute(RouteTable.ROUTE_ATTRIBUTE);
+        return routeTable.classify(request);
+    }
+
+    // What a request paid before: the JWT filter's and the rate limiter's checks, then the first matching security rule
+    @Benchmark
+    public void prefixChains(Blackhole blackhole) {
+        blackhole.consume(jwtFilterIsPublic(path));
+        blackhole.consume(rateLimiterIsPublic(path));
+        blackhole.consume(path.contains("/api/auth/login"));
+        for (RequestMatcher rule : securityRules) {
+            if (rule.matches(request)) {
+                blackhole.consume(rule);
+                return;
+            }
+        }
+    }
+
+    private static boolean jwtFilterIsPublic(String requestURI) {
+        return requestURI.equals("/api/auth/login") ||
+               requestURI.equals("/api/auth/register") ||
+               requestURI.equals("/api/auth/refresh") ||
+               requestURI.equals("/.well-known/jwks.json") ||
+               (requestURI.startsWith("/actuator/") && !requestURI.startsWith("/actuator/jfr")) ||
+               requestURI.startsWith("/swagger-ui") ||
+               requestURI.equals("/swagger-ui.html") ||
+               requestURI.startsWith("/v3/api-docs") ||
+               requestURI.startsWith("/swagger-resources") ||
+               requestURI.startsWith("/webjars");
+    }
+
+    private static boolean rateLimiterIsPublic(String requestPath) {
+        return requestPath.startsWith("/actuator/") ||
+               requestPath.startsWith("/swagger-ui") ||
+               requestPath.equals("/swagger-ui.html") ||
+               requestPath.startsWith("/v3/api-docs") ||
+               requestPath.startsWith("/swagger-resources") ||
+               requestPath.startsWith("/webjars") ||
+               (requestPath.startsWith("/api/auth/") && !requestPath.contains("/login"));
+    }
+}
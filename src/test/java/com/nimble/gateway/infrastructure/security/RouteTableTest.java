@@ -0,0 +1,162 @@
+package com.nimble.gateway.infrastructure.security;
+
+import com.nimble.gateway.infrastructure.security.RouteTable.Access;
+import com.nimble.gateway.infrastructure.security.RouteTable.RateLimit;
+import com.nimble.gateway.infrastructure.security.RouteTable.Route;
+import jakarta.servlet.DispatcherType;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.userdetails.UserDetailsService;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Route Table - Unit Tests")
+class RouteTableTest {
+
+    private final RouteTable routeTable = new RouteTable();
+
+    @Mock
+    private JwtTokenProvider jwtTokenProvider;
+
+    @Mock
+    private UserDetailsService userDetailsService;
+
+    private static MockHttpServletRequest request(String path) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", path);
+        request.addHeader("Authorization", "Bearer token");
+        return request;
+    }
+
+    @Nested
+    @DisplayName("Scenario: Classifying paths")
+    class ClassificationTests {
+
+        @Test
+        @DisplayName("Given exact and wildcard routes, when classifying paths, then should pick the most specific route")
+        void givenRoutes_whenClassifying_thenShouldPickMostSpecific() {
+
+            assertThat(routeTable.classify("/api/auth/login")).extracting(Route::access, Route::rateLimit).containsExactly(Access.PUBLIC, RateLimit.LOGIN);
+            assertThat(routeTable.classify("/api/auth/register").access()).isEqualTo(Access.PUBLIC);
+            assertThat(routeTable.classify("/api/auth/me")).extracting(Route::access, Route::rateLimit).containsExactly(Access.AUTHENTICATED, RateLimit.NONE);
+            assertThat(routeTable.classify("/api/health/database").access()).isEqualTo(Access.PUBLIC);
+            assertThat(routeTable.classify("/actuator").access()).isEqualTo(Access.PUBLIC);
+            assertThat(routeTable.classify("/actuator/metrics/jvm.memory.used").access()).isEqualTo(Access.PUBLIC);
+            assertThat(routeTable.classify("/actuator/jfr").access()).isEqualTo(Access.ADMIN);
+            assertThat(routeTable.classify("/actuator/jfr/1/summary").access()).isEqualTo(Access.ADMIN);
+            assertThat(routeTable.classify("/actuator/traces").access()).isEqualTo(Access.ADMIN);
+            assertThat(routeTable.classify("/v3/api-docs").access()).isEqualTo(Access.PUBLIC);
+            assertThat(routeTable.classify("/.well-known/jwks.json")).extracting(Route::access, Route::rateLimit).containsExactly(Access.PUBLIC, RateLimit.GENERAL);
+        }
+
+        @Test
+        @DisplayName("Given paths that only share a prefix with a public route, when classifying, then should require authentication")
+        void givenLookalikePaths_whenClassifying_thenShouldFallBackToDefault() {
+
+            assertThat(List.of("/", "", "/api/users", "/api/auth/login/", "/api/auth/loginx", "/swagger-uix",
+                    "/actuatorx/env", "/api/healthcheck", "/v3/api-docs-private", "/.well-known/jwks.json/x"))
+                    .allSatisfy(path -> assertThat(routeTable.classify(path).access())
+                            .as(path).isIn(Access.AUTHENTICATED));
+            assertThat(routeTable.classify("/api/payments/123")).isSameAs(RouteTable.DEFAULT);
+        }
+
+        @Test
+        @DisplayName("Given a context path, when classifying a request, then should match the path within the application")
+        void givenContextPath_whenClassifying_thenShouldStripIt() {
+
+            MockHttpServletRequest request = new MockHttpServletRequest("GET", "/gateway/api/auth/login");
+            request.setContextPath("/gateway");
+
+            assertThat(routeTable.classify(request).rateLimit()).isEqualTo(RateLimit.LOGIN);
+        }
+
+        @Test
+        @DisplayName("Given a percent-encoded or parameterized admin path, when classifying a request, then should still be admin only")
+        void givenEncodedAdminPath_whenClassifying_thenShouldBeAdmin() {
+
+            assertThat(routeTable.classify(request("/actuator/%6Afr/1/summary")).access()).isEqualTo(Access.ADMIN);
+            assertThat(routeTable.classify(request("/actuator/%6A%66%72")).access()).isEqualTo(Access.ADMIN);
+            assertThat(routeTable.classify(request("/actuator/jfr;x=y/1")).access()).isEqualTo(Access.ADMIN);
+            assertThat(routeTable.classify(request("/api/auth/%6Cogin")).rateLimit()).isEqualTo(RateLimit.LOGIN);
+        }
+    }
+
+    @Nested
+    @DisplayName("Scenario: Sharing the classification between filters")
+    class SharedClassificationTests {
+
+        @Test
+        @DisplayName("Given a classified request, when a later filter asks, then should reuse the stored route")
+        void givenClassifiedRequest_whenAskedAgain_thenShouldReuseAttribute() {
+
+            MockHttpServletRequest request = request("/api/auth/login");
+
+            Route first = routeTable.classify(request);
+            request.setRequestURI("/api/users");
+
+            assertThat(request.getAttribute(RouteTable.ROUTE_ATTRIBUTE)).isSameAs(first);
+            assertThat(routeTable.classify(request)).isSameAs(first);
+        }
+
+        @Test
+        @DisplayName("Given an error dispatch, when classifying, then should use the error path rather than the stored route")
+        void givenErrorDispatch_whenClassifying_thenShouldClassifyAgain() {
+
+            MockHttpServletRequest request = request("/api/auth/login");
+            routeTable.classify(request);
+            request.setDispatcherType(DispatcherType.ERROR);
+            request.setRequestURI("/error");
+
+            assertThat(routeTable.classify(request)).isSameAs(RouteTable.DEFAULT);
+        }
+
+        @Test
+        @DisplayName("Given every route, when the JWT filter and the security rules see it, then should agree on what is public")
+        void givenEveryRoute_whenFiltering_thenJwtFilterShouldAgreeWithSecurityRules() throws Exception {
+
+            JwtAuthenticationFilter jwtFilter = new JwtAuthenticationFilter(jwtTokenProvider, userDetailsService, routeTable);
+
+            for (Route route : RouteTable.ROUTES) {
+                String path = route.pattern().replace("/**", "/sample");
+                MockHttpServletRequest request = request(path);
+                clearInvocations(jwtTokenProvider);
+
+                jwtFilter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+
+                boolean permitted = routeTable.matcher(Access.PUBLIC).matches(request);
+                assertThat(permitted).as(path).isEqualTo(route.isPublic());
+                verify(jwtTokenProvider, times(permitted ? 0 : 1)).resolveUsername(anyString());
+            }
+        }
+
+        @Test
+        @DisplayName("Given routes without a rate limit, when flooding them, then the rate limiter should never reject")
+        void givenUnlimitedRoutes_whenFlooding_thenRateLimiterShouldPassThrough() throws Exception {
+
+            RateLimitingFilter rateLimitingFilter = new RateLimitingFilter(routeTable);
+
+            for (int i = 0; i < 1_100; i++) {
+                MockHttpServletResponse actuator = new MockHttpServletResponse();
+                rateLimitingFilter.doFilter(request("/actuator/health"), actuator, new MockFilterChain());
+                assertThat(actuator.getStatus()).isEqualTo(200);
+            }
+            MockHttpServletResponse login = new MockHttpServletResponse();
+            for (int i = 0; i < 51; i++) {
+                login = new MockHttpServletResponse();
+                rateLimitingFilter.doFilter(request("/api/auth/login"), login, new MockFilterChain());
+            }
+            assertThat(login.getStatus()).isEqualTo(429);
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.nimble.gateway.infrastructure.security;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("UUID Bloom Filter - Unit Tests")
+class UuidBloomFilterTest {
+
+    @Nested
+    @DisplayName("Scenario: Checking revoked token ids")
+    class MembershipTests {
+
+        @Test
+        @DisplayName("Given ids put in the filter, when checking them, then should never miss one")
+        void givenPutIds_whenChecking_thenShouldFindAll() {
+
+            UuidBloomFilter filter = new UuidBloomFilter(10_000, 0.01);
+            List<UUID> ids = new ArrayList<>();
+            for (int i = 0; i < 10_000; i++) ids.add(UUID.randomUUID());
+
+            ids.forEach(filter::put);
+
+            assertThat(ids).allMatch(filter::mightContain);
+        }
+
+        @Test
+        @DisplayName("Given a filter at its expected size, when checking unknown ids, then should flag about the configured share")
+        void givenFullFilter_whenCheckingUnknownIds_thenShouldStayNearFalsePositiveRate() {
+
+            UuidBloomFilter filter = new UuidBloomFilter(10_000, 0.01);
+            for (int i = 0; i < 10_000; i++) filter.put(UUID.randomUUID());
+
+            long flagged = 0;
+            for (int i = 0; i < 100_000; i++) if (filter.mightContain(UUID.randomUUID())) flagged++;
+
+            assertThat(flagged).isLessThan(2_000);
+            assertThat(filter.bitSize()).isBetween(90_000L, 100_000L);
+        }
+    }
+}
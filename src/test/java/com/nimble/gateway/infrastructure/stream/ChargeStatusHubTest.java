@@ -0,0 +1,146 @@
+package com.nimble.gateway.infrastructure.stream;
+
+import com.nimble.gateway.domain.event.ChargeEvent;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+@DisplayName("ChargeStatusHub - Unit Tests")
+class ChargeStatusHubTest {
+
+    private ChargeStatusHub hub;
+    private UUID originatorId;
+    private UUID recipientId;
+
+    @BeforeEach
+    void setUp() {
+        hub = new ChargeStatusHub(2, 60_000);
+        originatorId = UUID.randomUUID();
+        recipientId = UUID.randomUUID();
+    }
+
+    @AfterEach
+    void tearDown() {
+        hub.shutdown();
+    }
+
+    @Nested
+    @DisplayName("Scenario: Fan-out")
+    class FanOutTests {
+
+        @Test
+        @DisplayName("Given originator, recipient and stranger subscribed, when a charge is paid, then only originator and recipient receive it")
+        void givenSubscribers_whenChargePaid_thenOnlyPartiesReceiveIt() {
+            RecordingEmitter originatorStream = new RecordingEmitter();
+            RecordingEmitter recipientStream = new RecordingEmitter();
+            RecordingEmitter strangerStream = new RecordingEmitter();
+            hub.register(originatorId, originatorStream);
+            hub.register(recipientId, recipientStream);
+            hub.register(UUID.randomUUID(), strangerStream);
+
+            hub.publish(event(ChargeEvent.Type.PAID));
+
+            await().atMost(Duration.ofSeconds(2)).until(() -> originatorStream.sent.size() == 1 && recipientStream.sent.size() == 1);
+            assertThat(strangerStream.sent).isEmpty();
+        }
+
+        @Test
+        @DisplayName("Given an active transaction, when publishing after commit, then delivery waits for the commit")
+        void givenActiveTransaction_whenPublishingAfterCommit_thenDeliveryWaitsForCommit() {
+            RecordingEmitter originatorStream = new RecordingEmitter();
+            hub.register(originatorId, originatorStream);
+
+            TransactionSynchronizationManager.initSynchronization();
+            try {
+                hub.publishAfterCommit(event(ChargeEvent.Type.CANCELLED));
+                assertThat(originatorStream.sent).isEmpty();
+
+                TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+            } finally {
+                TransactionSynchronizationManager.clearSynchronization();
+            }
+
+            await().atMost(Duration.ofSeconds(2)).until(() -> originatorStream.sent.size() == 1);
+        }
+    }
+
+    @Nested
+    @DisplayName("Scenario: Slow consumers")
+    class SlowConsumerTests {
+
+        @Test
+        @DisplayName("Given a consumer that stopped reading, when its buffer overflows, then it should be evicted")
+        void givenStalledConsumer_whenBufferOverflows_thenShouldBeEvicted() {
+            CountDownLatch release = new CountDownLatch(1);
+            RecordingEmitter stalledStream = new RecordingEmitter(release);
+            hub.register(originatorId, stalledStream);
+
+            hub.publish(event(ChargeEvent.Type.CREATED));
+            await().atMost(Duration.ofSeconds(2)).until(() -> stalledStream.attempts.size() == 1);
+
+            hub.publish(event(ChargeEvent.Type.PAID));
+            hub.publish(event(ChargeEvent.Type.PAID));
+            assertThat(hub.connectionCount()).isEqualTo(1);
+
+            hub.publish(event(ChargeEvent.Type.CANCELLED));
+
+            assertThat(hub.connectionCount()).isZero();
+            release.countDown();
+        }
+    }
+
+    private ChargeEvent event(ChargeEvent.Type type) {
+        return ChargeEvent.builder()
+                .type(type)
+                .chargeId(UUID.randomUUID())
+                .originatorId(originatorId)
+                .recipientId(recipientId)
+                .amount(new BigDecimal("100.00"))
+                .occurredAt(Instant.now())
+                .build();
+    }
+
+    private static class RecordingEmitter extends SseEmitter {
+
+        private final List<SseEventBuilder> attempts = new CopyOnWriteArrayList<>();
+        private final List<SseEventBuilder> sent = new CopyOnWriteArrayList<>();
+        private final CountDownLatch release;
+
+        RecordingEmitter() {
+            this(new CountDownLatch(0));
+        }
+
+        RecordingEmitter(CountDownLatch release) {
+            this.release = release;
+        }
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            attempts.add(builder);
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException(e);
+            }
+            sent.add(builder);
+        }
+    }
+}
@@ -0,0 +1,210 @@
+package com.nimble.gateway.infrastructure.summary;
+
+import com.nimble.gateway.domain.entity.Charge;
+import com.nimble.gateway.domain.entity.User;
+import com.nimble.gateway.domain.entity.UserChargeSummary;
+import com.nimble.gateway.domain.event.ChargeEvent;
+import com.nimble.gateway.domain.repository.UserChargeSummaryRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("ChargeSummaryRecorder - Unit Tests")
+class ChargeSummaryRecorderTest {
+
+    @Mock
+    private UserChargeSummaryRepository userChargeSummaryRepository;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    private ChargeSummaryRecorder chargeSummaryRecorder;
+    private Charge charge;
+
+    @BeforeEach
+    void setUp() {
+        chargeSummaryRecorder = new ChargeSummaryRecorder(userChargeSummaryRepository, jdbcTemplate);
+        charge = Charge.builder()
+                .id(UUID.randomUUID())
+                .originator(User.builder().id(UUID.randomUUID()).build())
+                .recipient(User.builder().id(UUID.randomUUID()).build())
+                .amount(new BigDecimal("100.00"))
+                .createdAt(LocalDateTime.of(2026, 3, 14, 23, 50))
+                .build();
+    }
+
+    @Nested
+    @DisplayName("Scenario: Status transitions")
+    class TransitionTests {
+
+        @Test
+        @DisplayName("Given a created charge, when recording, then should add it as pending for both parties on its creation day")
+        void givenCreatedCharge_whenRecording_thenShouldAddPendingForBothParties() {
+
+            when(userChargeSummaryRepository.addDelta(any())).thenReturn(true);
+
+            chargeSummaryRecorder.record(charge, ChargeEvent.Type.CREATED);
+
+            List<UserChargeSummary> deltas = recordedDeltas(2);
+            assertThat(deltas).extracting(UserChargeSummary::getUserId, UserChargeSummary::getRole)
+                    .containsExactly(
+                            tuple(charge.getOriginator().getId(), UserChargeSummary.Role.SENT),
+                            tuple(charge.getRecipient().getId(), UserChargeSummary.Role.RECEIVED));
+            assertThat(deltas).allSatisfy(delta -> {
+                assertThat(delta.getSummaryDate()).isEqualTo(LocalDate.of(2026, 3, 14));
+                assertThat(delta.getPendingCount()).isEqualTo(1);
+                assertThat(delta.getPendingAmount()).isEqualByComparingTo("100.00");
+                assertThat(delta.getPaidCount()).isZero();
+                assertThat(delta.getCancelledCount()).isZero();
+            });
+        }
+
+        @Test
+        @DisplayName("Given a paid charge, when recording, then should move it from pending to paid")
+        void givenPaidCharge_whenRecording_thenShouldMoveFromPendingToPaid() {
+
+            charge.markAsPaid();
+            when(userChargeSummaryRepository.addDelta(any())).thenReturn(true);
+
+            chargeSummaryRecorder.record(charge, ChargeEvent.Type.PAID);
+
+            assertThat(recordedDeltas(2)).allSatisfy(delta -> {
+                assertThat(delta.getPendingCount()).isEqualTo(-1);
+                assertThat(delta.getPendingAmount()).isEqualByComparingTo("-100.00");
+                assertThat(delta.getPaidCount()).isEqualTo(1);
+                assertThat(delta.getPaidAmount()).isEqualByComparingTo("100.00");
+            });
+        }
+
+        @Test
+        @DisplayName("Given a paid charge that is cancelled, when recording, then should move it from paid to cancelled")
+        void givenPaidChargeCancelled_whenRecording_thenShouldMoveFromPaidToCancelled() {
+
+            charge.markAsPaid();
+            charge.cancel();
+            when(userChargeSummaryRepository.addDelta(any())).thenReturn(true);
+
+            chargeSummaryRecorder.record(charge, ChargeEvent.Type.CANCELLED);
+
+            assertThat(recordedDeltas(2)).allSatisfy(delta -> {
+                assertThat(delta.getPendingCount()).isZero();
+                assertThat(delta.getPaidCount()).isEqualTo(-1);
+                assertThat(delta.getCancelledCount()).isEqualTo(1);
+                assertThat(delta.getCancelledAmount()).isEqualByComparingTo("100.00");
+            });
+        }
+
+        @Test
+        @DisplayName("Given a pending charge that is cancelled, when recording, then should move it from pending to cancelled")
+        void givenPendingChargeCancelled_whenRecording_thenShouldMoveFromPendingToCancelled() {
+
+            charge.cancel();
+            when(userChargeSummaryRepository.addDelta(any())).thenReturn(true);
+
+            chargeSummaryRecorder.record(charge, ChargeEvent.Type.CANCELLED);
+
+            assertThat(recordedDeltas(2)).allSatisfy(delta -> {
+                assertThat(delta.getPendingCount()).isEqualTo(-1);
+                assertThat(delta.getPaidCount()).isZero();
+                assertThat(delta.getCancelledCount()).isEqualTo(1);
+            });
+        }
+    }
+
+    @Nested
+    @DisplayName("Scenario: Batched transitions")
+    class BatchTests {
+
+        @Test
+        @DisplayName("Given paid charges of the same parties and day, when recording them together, then should apply one merged delta per party")
+        void givenChargesOfSamePartiesAndDay_whenRecordingAll_thenShouldMergeDeltas() {
+
+            Charge second = Charge.builder()
+                    .id(UUID.randomUUID())
+                    .originator(charge.getOriginator())
+                    .recipient(charge.getRecipient())
+                    .amount(new BigDecimal("50.00"))
+                    .createdAt(LocalDateTime.of(2026, 3, 14, 8, 0))
+                    .build();
+            charge.markAsPaid();
+            second.markAsPaid();
+            when(userChargeSummaryRepository.addDelta(any())).thenReturn(true);
+
+            chargeSummaryRecorder.recordAll(List.of(charge, second), ChargeEvent.Type.PAID);
+
+            assertThat(recordedDeltas(2)).allSatisfy(delta -> {
+                assertThat(delta.getPendingCount()).isEqualTo(-2);
+                assertThat(delta.getPendingAmount()).isEqualByComparingTo("-150.00");
+                assertThat(delta.getPaidCount()).isEqualTo(2);
+                assertThat(delta.getPaidAmount()).isEqualByComparingTo("150.00");
+            });
+        }
+    }
+
+    @Nested
+    @DisplayName("Scenario: First charge of the day")
+    class RowCreationTests {
+
+        @Test
+        @DisplayName("Given no summary row yet, when recording, then should create an empty row and apply the delta to it")
+        void givenNoRow_whenRecording_thenShouldCreateRowAndApplyDelta() {
+
+            when(userChargeSummaryRepository.addDelta(any())).thenReturn(false, true, true);
+
+            chargeSummaryRecorder.record(charge, ChargeEvent.Type.CREATED);
+
+            verify(jdbcTemplate).update(anyString(), any(byte[].class), eq("SENT"), eq(LocalDate.of(2026, 3, 14)));
+            verify(userChargeSummaryRepository, times(3)).addDelta(any());
+        }
+
+        @Test
+        @DisplayName("Given a row created concurrently, when recording, then should still apply the delta")
+        void givenRowCreatedConcurrently_whenRecording_thenShouldStillApplyDelta() {
+
+            when(userChargeSummaryRepository.addDelta(any())).thenReturn(false, true, true);
+            when(jdbcTemplate.update(anyString(), any(byte[].class), any(), any())).thenThrow(new DuplicateKeyException("duplicate"));
+
+            chargeSummaryRecorder.record(charge, ChargeEvent.Type.CREATED);
+
+            verify(userChargeSummaryRepository, times(3)).addDelta(any());
+        }
+
+        @Test
+        @DisplayName("Given a row that cannot be found after creation, when recording, then should fail the transition")
+        void givenRowStillMissing_whenRecording_thenShouldFail() {
+
+            when(userChargeSummaryRepository.addDelta(any())).thenReturn(false);
+
+            assertThatThrownBy(() -> chargeSummaryRecorder.record(charge, ChargeEvent.Type.CREATED))
+                    .isInstanceOf(IllegalStateException.class);
+        }
+    }
+
+    private List<UserChargeSummary> recordedDeltas(int expected) {
+        ArgumentCaptor<UserChargeSummary> deltas = ArgumentCaptor.forClass(UserChargeSummary.class);
+        verify(userChargeSummaryRepository, times(expected)).addDelta(deltas.capture());
+        return deltas.getAllValues();
+    }
+}
@@ -0,0 +1,139 @@
+package com.nimble.gateway.infrastructure.tracing;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+@DisplayName("Tracing - Unit Tests")
+class TracingTest {
+
+    @AfterEach
+    void tearDown() {
+        Tracing.end();
+    }
+
+    @Nested
+    @DisplayName("Scenario: Recording spans")
+    class SpanTests {
+
+        @Test
+        @DisplayName("Given no sampled request, when starting spans, then should record nothing and leave monos untouched")
+        void givenNoTrace_whenStartingSpans_thenShouldBeNoOp() {
+
+            Mono<String> mono = Mono.just("paid");
+
+            assertThat(Tracing.start(Tracing.REPOSITORY, "UserRepository.findById")).isSameAs(Span.NOOP);
+            assertThat(Tracing.span(Tracing.USE_CASE, "PaymentUseCase.payCharge", mono)).isSameAs(mono);
+            assertThat(Tracing.remote(Tracing.AUTHORIZER, "GET /authorizer", mono)).isSameAs(mono);
+        }
+
+        @Test
+        @DisplayName("Given nested spans, when finishing the trace, then should keep the tree and split the time by stage")
+        void givenNestedSpans_whenFinishing_thenShouldKeepTreeAndSplitTimeByStage() {
+
+            Trace trace = Tracing.begin("POST", 16);
+            try (Span useCase = Tracing.start(Tracing.USE_CASE, "PaymentUseCase.payCharge")) {
+                try (Span repository = Tracing.start(Tracing.REPOSITORY, "ChargeRepository.findById")) {
+                    busy(Duration.ofMillis(2));
+                }
+                busy(Duration.ofMillis(1));
+            }
+            trace.finish("/api/payments/pay", 201, System.nanoTime());
+
+            assertThat(trace.spans()).extracting(Span.View::stage, Span.View::name, Span.View::depth)
+                    .containsExactly(
+                            tuple(Tracing.USE_CASE, "PaymentUseCase.payCharge", 0),
+                            tuple(Tracing.REPOSITORY, "ChargeRepository.findById", 1));
+            Map<String, Long> stages = trace.stageNanos();
+            assertThat(stages).containsOnlyKeys(Tracing.USE_CASE, Tracing.REPOSITORY, Trace.OTHER);
+            assertThat(stages.get(Tracing.REPOSITORY)).isGreaterThanOrEqualTo(Duration.ofMillis(2).toNanos());
+            assertThat(stages.get(Tracing.USE_CASE)).isGreaterThanOrEqualTo(Duration.ofMillis(1).toNanos());
+            assertThat(stages.values().stream().mapToLong(Long::longValue).sum()).isEqualTo(trace.getDurationNanos());
+        }
+
+        @Test
+        @DisplayName("Given more spans than the limit, when recording, then should count the extra spans as dropped")
+        void givenTooManySpans_whenRecording_thenShouldCountDropped() {
+
+            Trace trace = Tracing.begin("GET", 2);
+            IntStream.range(0, 5).forEach(i -> Tracing.start(Tracing.REPOSITORY, "UserRepository.findById").close());
+            trace.finish("/api/users/{id}", 200, System.nanoTime());
+
+            assertThat(trace.spans()).hasSize(2);
+            assertThat(trace.getDroppedSpans()).isEqualTo(3);
+        }
+    }
+
+    @Nested
+    @DisplayName("Scenario: Reactive chains")
+    class ReactiveTests {
+
+        @Test
+        @DisplayName("Given a remote call answered on another thread, when the chain continues there, then should keep recording into the request's trace")
+        void givenRemoteAnsweredOnAnotherThread_whenChainContinues_thenShouldKeepRecording() {
+
+            Trace trace = Tracing.begin("POST", 16);
+            String requestThread = Thread.currentThread().getName();
+
+            String answeringThread = Tracing.span(Tracing.USE_CASE, "PaymentUseCase.deposit",
+                    Tracing.remote(Tracing.AUTHORIZER, "GET /authorizer?type=deposit", Mono.just(true).delayElement(Duration.ofMillis(5)))
+                            .map(authorized -> {
+                                Tracing.start(Tracing.REPOSITORY, "PaymentRepository.save").close();
+                                return Thread.currentThread().getName();
+                            }))
+                    .block();
+            trace.finish("/api/payments/deposit", 201, System.nanoTime());
+
+            assertThat(answeringThread).isNotEqualTo(requestThread);
+            List<Span.View> spans = trace.spans();
+            assertThat(spans).extracting(Span.View::name, Span.View::depth)
+                    .containsExactly(
+                            tuple("PaymentUseCase.deposit", 0),
+                            tuple("GET /authorizer?type=deposit", 1),
+                            tuple("PaymentRepository.save", 1));
+            assertThat(spans.get(1).durationNanos()).isGreaterThanOrEqualTo(Duration.ofMillis(5).toNanos());
+        }
+    }
+
+    @Nested
+    @DisplayName("Scenario: Adaptive sampling")
+    class SamplingTests {
+
+        @Test
+        @DisplayName("Given a burst above the target, when sampling, then should record no more than the target per second")
+        void givenBurst_whenSampling_thenShouldCapAtTarget() {
+
+            AdaptiveSampler sampler = new AdaptiveSampler(5);
+
+            long sampled = IntStream.range(0, 100).filter(i -> sampler.sample()).count();
+
+            assertThat(sampled).isEqualTo(5);
+        }
+
+        @Test
+        @DisplayName("Given a target of zero, when sampling, then should never record")
+        void givenZeroTarget_whenSampling_thenShouldNeverRecord() {
+
+            AdaptiveSampler sampler = new AdaptiveSampler(0);
+
+            assertThat(IntStream.range(0, 10).noneMatch(i -> sampler.sample())).isTrue();
+        }
+    }
+
+    private static void busy(Duration duration) {
+        long end = System.nanoTime() + duration.toNanos();
+        while (System.nanoTime() < end) {
+            Thread.onSpinWait();
+        }
+    }
+}
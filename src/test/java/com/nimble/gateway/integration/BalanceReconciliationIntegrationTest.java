@@ -0,0 +1,250 @@
+package com.nimble.gateway.integration;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nimble.gateway.application.dto.*;
+import com.nimble.gateway.domain.entity.BalanceDiscrepancy;
+import com.nimble.gateway.domain.repository.BalanceDiscrepancyRepository;
+import com.nimble.gateway.infrastructure.archive.HistoryArchiver;
+import com.nimble.gateway.infrastructure.reconciliation.BalanceReconciler;
+import com.nimble.gateway.infrastructure.reconciliation.ReconciliationReport;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.*;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "app.outbox.relay.enabled=false",
+        "app.reconciliation.partitions=7",
+        "app.reconciliation.parallelism=3"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.ANY)
+@ActiveProfiles("test")
+@Import(TestConfig.class)
+@DisplayName("Balance Reconciliation - Integration Tests")
+class BalanceReconciliationIntegrationTest {
+
+    private static final AtomicInteger USER_SEQUENCE = new AtomicInteger();
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private TransactionOperations transactionOperations;
+
+    @Autowired
+    private BalanceReconciler balanceReconciler;
+
+    @Autowired
+    private BalanceDiscrepancyRepository balanceDiscrepancyRepository;
+
+    @Autowired
+    private HistoryArchiver historyArchiver;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @LocalServerPort
+    private int port;
+
+    private String baseUrl;
+    private UserDTO originator;
+    private UserDTO recipient;
+    private String originatorToken;
+    private String recipientToken;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        baseUrl = "http://localhost:" + port;
+        // The context is shared across tests, so each test registers its own pair of users
+        originator = registerUser("João Silva", "senha123");
+        recipient = registerUser("Maria Santos", "senha456");
+        originatorToken = authenticateUser(originator.getEmail(), "senha123");
+        recipientToken = authenticateUser(recipient.getEmail(), "senha456");
+    }
+
+    @Test
+    @DisplayName("GIVEN deposits, payments and cancellations WHEN reconciling THEN should check every user once and find no discrepancy for them")
+    void givenConsistentHistory_whenReconciling_thenShouldCheckEveryUserOnceWithoutDiscrepancies() throws Exception {
+        // Given
+        deposit("200.00");
+        pay(createCharge("30.00"), "BALANCE");
+        pay(createCharge("45.00"), "CREDIT_CARD");
+        ChargeDTO refunded = createCharge("20.00");
+        pay(refunded, "BALANCE");
+        cancel(refunded);
+        ChargeDTO cardCancelled = createCharge("15.00");
+        pay(cardCancelled, "CREDIT_CARD");
+        cancel(cardCancelled);
+        cancel(createCharge("50.00"));
+
+        // When
+        ReconciliationReport report = balanceReconciler.reconcile().orElseThrow();
+
+        // Then
+        assertThat(report.partitions()).isEqualTo(7);
+        assertThat(report.usersChecked()).isEqualTo(userCount());
+        assertThat(userIds(report.discrepancies())).doesNotContain(originator.getId(), recipient.getId());
+        assertThat(meterRegistry.get("reconciliation.partitions.completed").gauge().value()).isEqualTo(7);
+    }
+
+    @Test
+    @DisplayName("GIVEN a balance changed outside the ledger WHEN reconciling THEN should report and persist the difference")
+    void givenBalanceChangedOutsideLedger_whenReconciling_thenShouldReportAndPersistDifference() throws Exception {
+        // Given
+        deposit("100.00");
+        pay(createCharge("40.00"), "BALANCE");
+        transactionOperations.executeWithoutResult(status -> entityManager
+                .createQuery("UPDATE User u SET u.balance = u.balance + 7 WHERE u.id = :id")
+                .setParameter("id", recipient.getId())
+                .executeUpdate());
+
+        // When
+        ReconciliationReport report = balanceReconciler.reconcile().orElseThrow();
+
+        // Then
+        List<BalanceDiscrepancy> stored = balanceDiscrepancyRepository.findByRunId(report.runId());
+        assertThat(userIds(stored)).containsExactlyInAnyOrderElementsOf(userIds(report.discrepancies()));
+        BalanceDiscrepancy discrepancy = stored.stream()
+                .filter(d -> d.getUserId().equals(recipient.getId()))
+                .findFirst().orElseThrow();
+        assertThat(discrepancy.getRecordedBalance()).isEqualByComparingTo("107.00");
+        assertThat(discrepancy.getExpectedBalance()).isEqualByComparingTo("100.00");
+        assertThat(discrepancy.getDifference()).isEqualByComparingTo("7.00");
+        assertThat(userIds(stored)).doesNotContain(originator.getId());
+    }
+
+    @Test
+    @DisplayName("GIVEN settled history moved to the archive WHEN reconciling THEN should still explain the balances")
+    void givenArchivedHistory_whenReconciling_thenShouldStillExplainBalances() throws Exception {
+        // Given
+        deposit("300.00");
+        pay(createCharge("60.00"), "BALANCE");
+        pay(createCharge("25.00"), "CREDIT_CARD");
+        ChargeDTO refunded = createCharge("35.00");
+        pay(refunded, "BALANCE");
+        cancel(refunded);
+        transactionOperations.executeWithoutResult(status -> entityManager
+                .createQuery("UPDATE Charge c SET c.createdAt = :createdAt WHERE c.originator.id = :originatorId")
+                .setParameter("createdAt", LocalDateTime.now().minusDays(200))
+                .setParameter("originatorId", originator.getId())
+                .executeUpdate());
+        historyArchiver.archive();
+
+        // When
+        ReconciliationReport report = balanceReconciler.reconcile().orElseThrow();
+
+        // Then
+        long liveCharges = transactionOperations.execute(status -> entityManager
+                .createQuery("SELECT COUNT(c) FROM Charge c WHERE c.originator.id = :originatorId", Long.class)
+                .setParameter("originatorId", originator.getId())
+                .getSingleResult());
+        assertThat(liveCharges).isZero();
+        assertThat(userIds(report.discrepancies())).doesNotContain(originator.getId(), recipient.getId());
+    }
+
+    private long userCount() {
+        return transactionOperations.execute(status -> entityManager
+                .createQuery("SELECT COUNT(u) FROM User u", Long.class)
+                .getSingleResult());
+    }
+
+    private List<UUID> userIds(List<BalanceDiscrepancy> discrepancies) {
+        return discrepancies.stream().map(BalanceDiscrepancy::getUserId).toList();
+    }
+
+    private ChargeDTO createCharge(String amount) {
+        ResponseEntity<ChargeDTO> response = restTemplate.exchange(
+                baseUrl + "/api/charges?originatorId=" + originator.getId(), HttpMethod.POST,
+                createAuthenticatedRequest(CreateChargeDTO.builder()
+                        .recipientCpf(recipient.getCpf())
+                        .amount(new BigDecimal(amount))
+                        .build(), originatorToken),
+                ChargeDTO.class);
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+        return response.getBody();
+    }
+
+    private void deposit(String amount) {
+        ResponseEntity<String> response = restTemplate.exchange(
+                baseUrl + "/api/payments/deposit?userId=" + recipient.getId(), HttpMethod.POST,
+                createAuthenticatedRequest(DepositDTO.builder().amount(new BigDecimal(amount)).build(), recipientToken),
+                String.class);
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+    }
+
+    private void pay(ChargeDTO charge, String method) {
+        PayChargeDTO.PayChargeDTOBuilder payment = PayChargeDTO.builder().chargeId(charge.getId()).method(method);
+        if ("CREDIT_CARD".equals(method)) payment.cardNumber("4111111111111111").expiryDate("12/30").cvv("123");
+        ResponseEntity<String> response = restTemplate.exchange(
+                baseUrl + "/api/payments/pay?payerId=" + recipient.getId(), HttpMethod.POST,
+                createAuthenticatedRequest(payment.build(), recipientToken),
+                String.class);
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+    }
+
+    private void cancel(ChargeDTO charge) {
+        ResponseEntity<String> response = restTemplate.exchange(
+                baseUrl + "/api/payments/cancel/" + charge.getId() + "?userId=" + originator.getId(), HttpMethod.POST,
+                createAuthenticatedRequest(null, originatorToken),
+                String.class);
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+    }
+
+    private UserDTO registerUser(String name, String password) throws Exception {
+        int sequence = USER_SEQUENCE.incrementAndGet();
+        CreateUserDTO createUserDTO = CreateUserDTO.builder()
+                .name(name)
+                .cpf(String.format("%011d", sequence))
+                .email("user" + sequence + "@teste.com")
+                .password(password)
+                .build();
+
+        ResponseEntity<String> response = restTemplate.postForEntity(baseUrl + "/api/auth/register", createUserDTO, String.class);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+        return objectMapper.readValue(response.getBody(), UserDTO.class);
+    }
+
+    private String authenticateUser(String email, String password) throws Exception {
+        LoginDTO loginDTO = LoginDTO.builder()
+                .username(email)
+                .password(password)
+                .build();
+
+        ResponseEntity<String> response = restTemplate.postForEntity(baseUrl + "/api/auth/login", loginDTO, String.class);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        return objectMapper.readValue(response.getBody(), AuthResponseDTO.class).getToken();
+    }
+
+    private <T> HttpEntity<T> createAuthenticatedRequest(T body, String token) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        headers.setBearerAuth(token);
+        return new HttpEntity<>(body, headers);
+    }
+}
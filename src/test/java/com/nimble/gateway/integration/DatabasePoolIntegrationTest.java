@@ -0,0 +1,146 @@
+package com.nimble.gateway.integration;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nimble.gateway.application.dto.*;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.*;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "app.outbox.relay.enabled=false",
+        "app.datasource.write.maximum-pool-size=4",
+        "app.datasource.write.minimum-idle=1",
+        "app.datasource.read.maximum-pool-size=4",
+        "app.datasource.read.minimum-idle=1",
+        "app.datasource.write.connection-timeout=" + DatabasePoolIntegrationTest.CONNECTION_TIMEOUT_MS,
+        "app.datasource.read.connection-timeout=" + DatabasePoolIntegrationTest.CONNECTION_TIMEOUT_MS
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+@Import(TestConfig.class)
+@DisplayName("Database Pools - Integration Tests")
+class DatabasePoolIntegrationTest {
+
+    private static final int CONCURRENCY = 32;
+    private static final int REQUESTS = 256;
+    static final long CONNECTION_TIMEOUT_MS = 3000;
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @LocalServerPort
+    private int port;
+
+    private String baseUrl;
+
+    @BeforeEach
+    void setUp() {
+        baseUrl = "http://localhost:" + port;
+    }
+
+    @Test
+    @DisplayName("GIVEN small pools WHEN reads and writes run at target concurrency THEN should route them to separate pools without acquisition timeouts")
+    void givenSmallPools_whenLoadedAtTargetConcurrency_thenShouldRouteToSeparatePoolsWithoutTimeouts() throws Exception {
+        // Given
+        UserDTO originator = registerUser("João Silva", "12345678901", "joao@teste.com", "senha123");
+        registerUser("Maria Santos", "98765432100", "maria@teste.com", "senha456");
+        String token = authenticateUser("joao@teste.com", "senha123");
+        long readAcquisitionsBefore = acquisitions("read-pool");
+        long writeAcquisitionsBefore = acquisitions("write-pool");
+
+        // When
+        ExecutorService executor = Executors.newFixedThreadPool(CONCURRENCY);
+        List<Future<HttpStatusCode>> responses = new ArrayList<>();
+        try {
+            for (int i = 0; i < REQUESTS; i++) {
+                boolean write = i % 8 == 0;
+                responses.add(executor.submit(() -> write
+                        ? restTemplate.exchange(baseUrl + "/api/charges?originatorId=" + originator.getId(), HttpMethod.POST,
+                                createAuthenticatedRequest(CreateChargeDTO.builder().recipientCpf("98765432100").amount(new BigDecimal("10.00")).build(), token),
+                                String.class).getStatusCode()
+                        : restTemplate.exchange(baseUrl + "/api/charges/sent?userId=" + originator.getId(), HttpMethod.GET,
+                                createAuthenticatedRequest(null, token), String.class).getStatusCode()));
+            }
+            for (Future<HttpStatusCode> response : responses) {
+                assertThat(response.get(30, TimeUnit.SECONDS).is2xxSuccessful()).isTrue();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // Then
+        assertThat(acquisitions("read-pool") - readAcquisitionsBefore).isGreaterThanOrEqualTo(REQUESTS - REQUESTS / 8);
+        assertThat(acquisitions("write-pool") - writeAcquisitionsBefore).isGreaterThanOrEqualTo(REQUESTS / 8);
+
+        JsonNode pools = objectMapper.readTree(
+                restTemplate.getForEntity(baseUrl + "/api/health/db-pool", String.class).getBody()).get("pools");
+        for (String pool : List.of("write-pool", "read-pool")) {
+            assertThat(pools.get(pool).get("maximumPoolSize").asInt()).isEqualTo(4);
+            assertThat(pools.get(pool).get("timeouts").asLong()).isZero();
+            assertThat(pools.get(pool).get("acquisition").get("p99Ms").asDouble()).isLessThan(CONNECTION_TIMEOUT_MS);
+        }
+    }
+
+    private long acquisitions(String pool) {
+        // Pool meters are registered when the pool hands out its first connection
+        Timer timer = meterRegistry.find("hikaricp.connections.acquire").tag("pool", pool).timer();
+        return timer != null ? timer.count() : 0;
+    }
+
+    private UserDTO registerUser(String name, String cpf, String email, String password) throws Exception {
+        CreateUserDTO createUserDTO = CreateUserDTO.builder()
+                .name(name)
+                .cpf(cpf)
+                .email(email)
+                .password(password)
+                .build();
+
+        ResponseEntity<String> response = restTemplate.postForEntity(baseUrl + "/api/auth/register", createUserDTO, String.class);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+        return objectMapper.readValue(response.getBody(), UserDTO.class);
+    }
+
+    private String authenticateUser(String email, String password) throws Exception {
+        LoginDTO loginDTO = LoginDTO.builder()
+                .username(email)
+                .password(password)
+                .build();
+
+        ResponseEntity<String> response = restTemplate.postForEntity(baseUrl + "/api/auth/login", loginDTO, String.class);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        return objectMapper.readValue(response.getBody(), AuthResponseDTO.class).getToken();
+    }
+
+    private <T> HttpEntity<T> createAuthenticatedRequest(T body, String token) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        headers.setBearerAuth(token);
+        return new HttpEntity<>(body, headers);
+    }
+}
@@ -0,0 +1,177 @@
+package com.nimble.gateway.integration;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nimble.gateway.application.dto.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.*;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "app.outbox.relay.enabled=false",
+        "app.admin.emails=" + FlightRecorderIntegrationTest.ADMIN_EMAIL
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.ANY)
+@ActiveProfiles("test")
+@Import(TestConfig.class)
+@DisplayName("Flight Recorder - Integration Tests")
+class FlightRecorderIntegrationTest {
+
+    static final String ADMIN_EMAIL = "jfr.admin@teste.com";
+
+    private static final AtomicInteger USER_SEQUENCE = new AtomicInteger(800_000);
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @LocalServerPort
+    private int port;
+
+    private String baseUrl;
+    private UserDTO user;
+    private String userToken;
+    private String adminToken;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        baseUrl = "http://localhost:" + port;
+        user = registerUser("João Silva", null, "senha123");
+        userToken = authenticateUser(user.getEmail(), "senha123");
+        // Registered by the first test; later tests only log in
+        registerUser("Admin", ADMIN_EMAIL, "senha456");
+        adminToken = authenticateUser(ADMIN_EMAIL, "senha456");
+        restTemplate.exchange(baseUrl + "/actuator/jfr", HttpMethod.DELETE, authenticated(null, adminToken), String.class);
+    }
+
+    @Test
+    @DisplayName("GIVEN no token WHEN listing recordings THEN should return 401")
+    void givenNoToken_whenListingRecordings_thenShouldReturn401() {
+        // When
+        ResponseEntity<String> response = restTemplate.getForEntity(baseUrl + "/actuator/jfr", String.class);
+
+        // Then
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.UNAUTHORIZED);
+    }
+
+    @Test
+    @DisplayName("GIVEN no token WHEN listing recordings through a percent-encoded path THEN should return 401")
+    void givenNoToken_whenListingRecordingsThroughEncodedPath_thenShouldReturn401() {
+        // When: %6A is "j", decoded by the container before the endpoint sees it
+        ResponseEntity<String> response = restTemplate.exchange(URI.create(baseUrl + "/actuator/%6Afr"), HttpMethod.GET,
+                null, String.class);
+
+        // Then
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.UNAUTHORIZED);
+    }
+
+    @Test
+    @DisplayName("GIVEN a regular user WHEN starting a recording THEN should return 403")
+    void givenRegularUser_whenStartingRecording_thenShouldReturn403() {
+        // When
+        ResponseEntity<String> response = restTemplate.exchange(baseUrl + "/actuator/jfr", HttpMethod.POST,
+                authenticated(Map.of("seconds", 10), userToken), String.class);
+
+        // Then
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.FORBIDDEN);
+    }
+
+    @Test
+    @DisplayName("GIVEN an admin recording WHEN deposits are made and the recording stops THEN should summarize them and serve the file")
+    void givenAdminRecording_whenDepositsAreMade_thenShouldSummarizeAndServeFile() throws Exception {
+        // Given
+        ResponseEntity<String> started = restTemplate.exchange(baseUrl + "/actuator/jfr", HttpMethod.POST,
+                authenticated(Map.of("seconds", 60), adminToken), String.class);
+        assertThat(started.getStatusCode()).isEqualTo(HttpStatus.OK);
+        long id = objectMapper.readTree(started.getBody()).get("id").asLong();
+        ResponseEntity<String> second = restTemplate.exchange(baseUrl + "/actuator/jfr", HttpMethod.POST,
+                authenticated(Map.of("seconds", 60), adminToken), String.class);
+        assertThat(second.getStatusCode()).isEqualTo(HttpStatus.CONFLICT);
+
+        // When
+        deposit("10.00");
+        deposit("15.00");
+        ResponseEntity<String> stopped = restTemplate.exchange(baseUrl + "/actuator/jfr", HttpMethod.DELETE,
+                authenticated(null, adminToken), String.class);
+
+        // Then
+        assertThat(stopped.getStatusCode()).isEqualTo(HttpStatus.OK);
+        JsonNode summary = objectMapper.readTree(stopped.getBody());
+        assertThat(summary.get("id").asLong()).isEqualTo(id);
+        assertThat(names(summary.get("operations"))).contains("Payment deposit");
+        assertThat(names(summary.get("operations"))).anyMatch(name -> name.startsWith("JDBC "));
+
+        ResponseEntity<byte[]> file = restTemplate.exchange(baseUrl + "/actuator/jfr/" + id, HttpMethod.GET,
+                authenticated(null, adminToken), byte[].class);
+        assertThat(file.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(new String(Arrays.copyOf(file.getBody(), 3), StandardCharsets.US_ASCII)).isEqualTo("FLR");
+    }
+
+    private List<String> names(JsonNode operations) {
+        List<String> names = new ArrayList<>();
+        operations.forEach(operation -> names.add(operation.get("name").asText()));
+        return names;
+    }
+
+    private void deposit(String amount) {
+        ResponseEntity<String> response = restTemplate.exchange(
+                baseUrl + "/api/payments/deposit?userId=" + user.getId(), HttpMethod.POST,
+                authenticated(DepositDTO.builder().amount(new BigDecimal(amount)).build(), userToken),
+                String.class);
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+    }
+
+    private UserDTO registerUser(String name, String email, String password) throws Exception {
+        int sequence = USER_SEQUENCE.incrementAndGet();
+        CreateUserDTO createUserDTO = CreateUserDTO.builder()
+                .name(name)
+                .cpf(String.format("%011d", sequence))
+                .email(email != null ? email : "user" + sequence + "@teste.com")
+                .password(password)
+                .build();
+
+        ResponseEntity<String> response = restTemplate.postForEntity(baseUrl + "/api/auth/register", createUserDTO, String.class);
+
+        return response.getStatusCode() == HttpStatus.CREATED ? objectMapper.readValue(response.getBody(), UserDTO.class) : null;
+    }
+
+    private String authenticateUser(String email, String password) throws Exception {
+        LoginDTO loginDTO = LoginDTO.builder()
+                .username(email)
+                .password(password)
+                .build();
+
+        ResponseEntity<String> response = restTemplate.postForEntity(baseUrl + "/api/auth/login", loginDTO, String.class);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        return objectMapper.readValue(response.getBody(), AuthResponseDTO.class).getToken();
+    }
+
+    private <T> HttpEntity<T> authenticated(T body, String token) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        headers.setBearerAuth(token);
+        return new HttpEntity<>(body, headers);
+    }
+}
@@ -0,0 +1,131 @@
+package com.nimble.gateway.integration;
+
+import org.h2.tools.SimpleResultSet;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.Arrays;
+
+// H2 stand-ins for the V011 MySQL procedures, so the stored-procedure payment engine runs against the test
+// database: the same statements, checks and outcome row, on the caller's connection and transaction
+public final class H2PaymentProcedures {
+
+    private H2PaymentProcedures() {
+    }
+
+    public static void register(JdbcTemplate jdbcTemplate) {
+        jdbcTemplate.execute("CREATE ALIAS IF NOT EXISTS sp_process_payment FOR '" + H2PaymentProcedures.class.getName() + ".processPayment'");
+        jdbcTemplate.execute("CREATE ALIAS IF NOT EXISTS sp_process_deposit FOR '" + H2PaymentProcedures.class.getName() + ".processDeposit'");
+    }
+
+    public static ResultSet processPayment(Connection connection, byte[] paymentId, byte[] chargeId, byte[] payerId,
+                                           Timestamp paidAt) throws SQLException {
+        SimpleResultSet result = new SimpleResultSet();
+        result.addColumn("outcome", Types.VARCHAR, 30, 0);
+        result.addColumn("originator_id", Types.BINARY, 16, 0);
+        result.addColumn("recipient_id", Types.BINARY, 16, 0);
+        result.addColumn("amount", Types.DECIMAL, 10, 2);
+        result.addColumn("status", Types.VARCHAR, 20, 0);
+        result.addColumn("created_at", Types.TIMESTAMP, 0, 0);
+        result.addColumn("version", Types.BIGINT, 19, 0);
+        result.addColumn("payer_name", Types.VARCHAR, 100, 0);
+        if (columnListOnly(connection)) return result;
+
+        byte[] originatorId = null;
+        byte[] recipientId = null;
+        BigDecimal amount = null;
+        String status = null;
+        Timestamp createdAt = null;
+        Long version = null;
+        try (PreparedStatement select = connection.prepareStatement(
+                "SELECT originator_id, recipient_id, amount, status, created_at, version FROM charges WHERE id = ? FOR UPDATE")) {
+            select.setBytes(1, chargeId);
+            try (ResultSet rs = select.executeQuery()) {
+                if (rs.next()) {
+                    originatorId = rs.getBytes(1);
+                    recipientId = rs.getBytes(2);
+                    amount = rs.getBigDecimal(3);
+                    status = rs.getString(4);
+                    createdAt = rs.getTimestamp(5);
+                    version = rs.getLong(6);
+                }
+            }
+        }
+        String payerName = null;
+        BigDecimal payerBalance = null;
+        try (PreparedStatement select = connection.prepareStatement("SELECT name, balance FROM users WHERE id = ? FOR UPDATE")) {
+            select.setBytes(1, payerId);
+            try (ResultSet rs = select.executeQuery()) {
+                if (rs.next()) {
+                    payerName = rs.getString(1);
+                    payerBalance = rs.getBigDecimal(2);
+                }
+            }
+        }
+
+        String outcome = "PROCESSED";
+        if (status == null) outcome = "CHARGE_NOT_FOUND";
+        else if (!"PENDING".equals(status)) outcome = "NOT_PENDING";
+        else if (payerName == null) outcome = "PAYER_NOT_FOUND";
+        else if (!Arrays.equals(recipientId, payerId)) outcome = "NOT_RECIPIENT";
+        else if (payerBalance.compareTo(amount) < 0) outcome = "INSUFFICIENT_BALANCE";
+
+        if ("PROCESSED".equals(outcome)) {
+            update(connection, "UPDATE users SET balance = balance - ?, version = version + 1, updated_at = ? WHERE id = ?", amount, paidAt, payerId);
+            update(connection, "UPDATE users SET balance = balance + ?, version = version + 1, updated_at = ? WHERE id = ?", amount, paidAt, recipientId);
+            update(connection, "UPDATE charges SET status = 'PAID', payment_method = 'BALANCE', paid_at = ?, version = version + 1, " +
+                    "updated_at = ? WHERE id = ?", paidAt, paidAt, chargeId);
+            update(connection, "INSERT INTO payments (id, charge_id, payer_id, amount, status, method, created_at, payment_date, processed_at) " +
+                    "VALUES (?, ?, ?, ?, 'PROCESSED', 'BALANCE', ?, ?, ?)", paymentId, chargeId, payerId, amount, paidAt, paidAt, paidAt);
+            status = "PAID";
+            version = version + 1;
+        }
+
+        result.addRow(outcome, originatorId, recipientId, amount, status, createdAt, version, payerName);
+        return result;
+    }
+
+    public static ResultSet processDeposit(Connection connection, byte[] paymentId, byte[] userId, BigDecimal amount,
+                                           Timestamp depositedAt) throws SQLException {
+        SimpleResultSet result = new SimpleResultSet();
+        result.addColumn("outcome", Types.VARCHAR, 30, 0);
+        result.addColumn("payer_name", Types.VARCHAR, 100, 0);
+        if (columnListOnly(connection)) return result;
+
+        String userName = null;
+        try (PreparedStatement select = connection.prepareStatement("SELECT name FROM users WHERE id = ? FOR UPDATE")) {
+            select.setBytes(1, userId);
+            try (ResultSet rs = select.executeQuery()) {
+                if (rs.next()) userName = rs.getString(1);
+            }
+        }
+
+        String outcome = userName != null ? "PROCESSED" : "USER_NOT_FOUND";
+        if (userName != null) {
+            update(connection, "UPDATE users SET balance = balance + ?, version = version + 1, updated_at = ? WHERE id = ?", amount, depositedAt, userId);
+            update(connection, "INSERT INTO payments (id, charge_id, payer_id, amount, status, method, created_at, payment_date, processed_at) " +
+                    "VALUES (?, NULL, ?, ?, 'PROCESSED', 'BALANCE', ?, ?, ?)", paymentId, userId, amount, depositedAt, depositedAt, depositedAt);
+        }
+
+        result.addRow(outcome, userName);
+        return result;
+    }
+
+    // H2 calls a result set function once with this URL to learn its columns before running it
+    private static boolean columnListOnly(Connection connection) throws SQLException {
+        return "jdbc:columnlist:connection".equals(connection.getMetaData().getURL());
+    }
+
+    private static void update(Connection connection, String sql, Object... args) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            for (int i = 0; i < args.length; i++) statement.setObject(i + 1, args[i]);
+            statement.executeUpdate();
+        }
+    }
+}
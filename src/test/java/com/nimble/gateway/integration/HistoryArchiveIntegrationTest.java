@@ -0,0 +1,339 @@
+package com.nimble.gateway.integration;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nimble.gateway.application.dto.*;
+import com.nimble.gateway.domain.entity.AuditLog;
+import com.nimble.gateway.domain.entity.Charge;
+import com.nimble.gateway.domain.entity.Payment;
+import com.nimble.gateway.domain.entity.User;
+import com.nimble.gateway.domain.repository.AuditLogRepository;
+import com.nimble.gateway.domain.repository.ChargeRepository;
+import com.nimble.gateway.domain.repository.PaymentRepository;
+import com.nimble.gateway.domain.repository.UserRepository;
+import com.nimble.gateway.infrastructure.archive.HistoryArchiver;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.*;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "app.outbox.relay.enabled=false",
+        "app.archive.retention-days=90",
+        "app.archive.batch-size=500"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.ANY)
+@ActiveProfiles("test")
+@Import(TestConfig.class)
+@DisplayName("History Archive - Integration Tests")
+class HistoryArchiveIntegrationTest {
+
+    private static final AtomicInteger USER_SEQUENCE = new AtomicInteger();
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private TransactionOperations transactionOperations;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ChargeRepository chargeRepository;
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    @Autowired
+    private AuditLogRepository auditLogRepository;
+
+    @Autowired
+    private HistoryArchiver historyArchiver;
+
+    @LocalServerPort
+    private int port;
+
+    private String baseUrl;
+    private Statistics statistics;
+    private UserDTO originator;
+    private UserDTO recipient;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        baseUrl = "http://localhost:" + port;
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        // The context is shared across tests, so each test registers its own pair of users
+        originator = registerUser("João Silva", "senha123");
+        recipient = registerUser("Maria Santos", "senha456");
+    }
+
+    @Test
+    @DisplayName("GIVEN old settled, old pending and recent charges WHEN archiving THEN should move only old settled charges with their payments")
+    void givenMixedHistory_whenArchiving_thenShouldMoveOnlyOldSettledChargesWithTheirPayments() {
+        // Given
+        UUID oldPaid = seedCharge(Charge.ChargeStatus.PAID, 200, true);
+        UUID oldCancelled = seedCharge(Charge.ChargeStatus.CANCELLED, 150, false);
+        UUID oldPending = seedCharge(Charge.ChargeStatus.PENDING, 200, false);
+        UUID recentPaid = seedCharge(Charge.ChargeStatus.PAID, 5, true);
+
+        // When
+        historyArchiver.archive();
+
+        // Then
+        assertThat(liveChargeIds()).containsExactlyInAnyOrder(oldPending, recentPaid);
+        assertThat(count("SELECT COUNT(a) FROM ArchivedCharge a WHERE a.id IN :ids", List.of(oldPaid, oldCancelled))).isEqualTo(2);
+        assertThat(count("SELECT COUNT(p) FROM Payment p WHERE p.charge.id IN :ids", List.of(oldPaid))).isZero();
+        assertThat(count("SELECT COUNT(a) FROM ArchivedPayment a WHERE a.chargeId IN :ids", List.of(oldPaid))).isEqualTo(1);
+        assertThat(count("SELECT COUNT(p) FROM Payment p WHERE p.charge.id IN :ids", List.of(recentPaid))).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("GIVEN archived charges WHEN listing sent charges with a date range THEN should merge live and archived charges newest first")
+    void givenArchivedCharges_whenListingWithDateRange_thenShouldMergeArchive() throws Exception {
+        // Given
+        seedCharge(Charge.ChargeStatus.PAID, 200, true);
+        seedCharge(Charge.ChargeStatus.CANCELLED, 150, false);
+        seedCharge(Charge.ChargeStatus.PENDING, 100, false);
+        seedCharge(Charge.ChargeStatus.PAID, 5, true);
+        historyArchiver.archive();
+        String token = authenticateUser(originator.getEmail(), "senha123");
+        String range = "&from=" + LocalDateTime.now().minusDays(365) + "&to=" + LocalDateTime.now().plusDays(1);
+
+        // When
+        JsonNode withoutRange = sentCharges("", token);
+        JsonNode withRange = sentCharges(range, token);
+        JsonNode paidWithRange = sentCharges(range + "&status=PAID", token);
+
+        // Then
+        assertThat(withoutRange).hasSize(2);
+        assertThat(withRange).hasSize(4);
+        assertThat(createdAts(withRange)).isSortedAccordingTo((a, b) -> b.compareTo(a));
+        assertThat(withRange.get(3).get("status").asText()).isEqualTo("PAID");
+        assertThat(withRange.get(3).get("recipientName").asText()).isEqualTo("Maria Santos");
+        assertThat(paidWithRange).hasSize(2);
+    }
+
+    @Test
+    @DisplayName("GIVEN archived history WHEN reading a range newer than the archive THEN should not query the archive")
+    void givenArchivedHistory_whenReadingRecentRange_thenShouldNotQueryArchive() {
+        // Given
+        seedCharge(Charge.ChargeStatus.PAID, 200, false);
+        seedCharge(Charge.ChargeStatus.PAID, 5, false);
+        historyArchiver.archive();
+
+        // When
+        long recentStatements = statements(() -> assertThat(history(LocalDateTime.now().minusDays(30))).hasSize(1));
+        long fullStatements = statements(() -> assertThat(history(LocalDateTime.now().minusDays(365))).hasSize(2));
+
+        // Then
+        assertThat(recentStatements).isEqualTo(2);
+        assertThat(fullStatements).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("GIVEN old audit entries WHEN archived THEN range queries should still return them")
+    void givenOldAuditEntries_whenArchived_thenRangeQueriesShouldStillReturnThem() {
+        // Given
+        String entityId = UUID.randomUUID().toString();
+        seedAuditLog(entityId, 200);
+        seedAuditLog(entityId, 1);
+
+        // When
+        historyArchiver.archive();
+
+        // Then
+        assertThat(auditLogRepository.findByEntityTypeAndEntityId("Charge", entityId)).hasSize(1);
+        List<AuditLog> range = transactionOperations.execute(status ->
+                auditLogRepository.findByCreatedAtBetween(LocalDateTime.now().minusDays(365), LocalDateTime.now().plusDays(1)));
+        assertThat(range).filteredOn(auditLog -> auditLog.getEntityId().equals(entityId)).hasSize(2)
+                .allSatisfy(auditLog -> assertThat(auditLog.getUser().getId()).isEqualTo(originator.getId()));
+    }
+
+    @Test
+    @DisplayName("GIVEN ten times more settled history WHEN archived THEN recent range reads should keep the same cost")
+    void givenGrowingHistory_whenArchived_thenRecentRangeLatencyShouldStayFlat() throws Exception {
+        // Given
+        Benchmark small = benchmark(200);
+        originator = registerUser("Ana Souza", "senha123");
+        Benchmark large = benchmark(2000);
+
+        // Then
+        assertThat(small.liveRows()).isEqualTo(10);
+        assertThat(large.liveRows()).isEqualTo(10);
+        assertThat(large.statements()).isEqualTo(small.statements());
+        // Generous bound: latency must not scale with the 10x history, not be equal to the microsecond
+        assertThat(large.medianNanos()).isLessThan(small.medianNanos() * 3 + 2_000_000);
+    }
+
+    private Benchmark benchmark(int historySize) {
+        transactionOperations.executeWithoutResult(status -> {
+            User originatorUser = userRepository.getReferenceById(originator.getId());
+            User recipientUser = userRepository.getReferenceById(recipient.getId());
+            for (int i = 0; i < historySize; i++) {
+                chargeRepository.save(charge(originatorUser, recipientUser, Charge.ChargeStatus.PAID, 100 + i % 200));
+            }
+            for (int i = 0; i < 10; i++) {
+                chargeRepository.save(charge(originatorUser, recipientUser, Charge.ChargeStatus.PAID, 1 + i));
+            }
+        });
+        historyArchiver.archive();
+
+        LocalDateTime from = LocalDateTime.now().minusDays(30);
+        for (int i = 0; i < 20; i++) history(from);
+
+        long[] samples = new long[50];
+        for (int i = 0; i < samples.length; i++) {
+            long start = System.nanoTime();
+            history(from);
+            samples[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(samples);
+        long statements = statements(() -> history(from));
+        return new Benchmark(liveChargeIds().size(), statements, samples[samples.length / 2]);
+    }
+
+    private List<Charge> history(LocalDateTime from) {
+        return transactionOperations.execute(status -> chargeRepository.findHistoryByOriginator(
+                userRepository.getReferenceById(originator.getId()), from, LocalDateTime.now().plusDays(1)));
+    }
+
+    private long statements(Runnable action) {
+        long before = statistics.getPrepareStatementCount();
+        action.run();
+        return statistics.getPrepareStatementCount() - before;
+    }
+
+    private UUID seedCharge(Charge.ChargeStatus status, int daysAgo, boolean withPayment) {
+        return transactionOperations.execute(txStatus -> {
+            User originatorUser = userRepository.getReferenceById(originator.getId());
+            User recipientUser = userRepository.getReferenceById(recipient.getId());
+            Charge charge = chargeRepository.save(charge(originatorUser, recipientUser, status, daysAgo));
+            if (withPayment) {
+                paymentRepository.save(Payment.builder()
+                        .charge(charge)
+                        .payer(recipientUser)
+                        .amount(charge.getAmount())
+                        .method(Payment.PaymentMethod.BALANCE)
+                        .status(Payment.PaymentStatus.PROCESSED)
+                        .createdAt(charge.getCreatedAt())
+                        .paymentDate(charge.getCreatedAt())
+                        .build());
+            }
+            return charge.getId();
+        });
+    }
+
+    private Charge charge(User originatorUser, User recipientUser, Charge.ChargeStatus status, int daysAgo) {
+        LocalDateTime createdAt = LocalDateTime.now().minusDays(daysAgo);
+        return Charge.builder()
+                .originator(originatorUser)
+                .recipient(recipientUser)
+                .amount(new BigDecimal("10.00"))
+                .description("Seeded charge")
+                .status(status)
+                .createdAt(createdAt)
+                .paidAt(status == Charge.ChargeStatus.PAID ? createdAt : null)
+                .cancelledAt(status == Charge.ChargeStatus.CANCELLED ? createdAt : null)
+                .build();
+    }
+
+    private void seedAuditLog(String entityId, int daysAgo) {
+        transactionOperations.executeWithoutResult(status -> auditLogRepository.save(AuditLog.builder()
+                .user(userRepository.getReferenceById(originator.getId()))
+                .action("CHARGE_CREATED")
+                .entityType("Charge")
+                .entityId(entityId)
+                .createdAt(LocalDateTime.now().minusDays(daysAgo))
+                .build()));
+    }
+
+    private List<UUID> liveChargeIds() {
+        return transactionOperations.execute(status -> chargeRepository
+                .findByOriginator(userRepository.getReferenceById(originator.getId()))
+                .stream().map(Charge::getId).toList());
+    }
+
+    private long count(String query, List<UUID> ids) {
+        return entityManager.createQuery(query, Long.class).setParameter("ids", ids).getSingleResult();
+    }
+
+    private JsonNode sentCharges(String query, String token) throws Exception {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setBearerAuth(token);
+        ResponseEntity<String> response = restTemplate.exchange(
+                baseUrl + "/api/charges/sent?userId=" + originator.getId() + query,
+                HttpMethod.GET, new HttpEntity<>(headers), String.class);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        return objectMapper.readTree(response.getBody());
+    }
+
+    private List<String> createdAts(JsonNode charges) {
+        List<String> createdAts = new ArrayList<>();
+        charges.forEach(charge -> createdAts.add(charge.get("createdAt").asText()));
+        return createdAts;
+    }
+
+    private UserDTO registerUser(String name, String password) throws Exception {
+        int sequence = USER_SEQUENCE.incrementAndGet();
+        CreateUserDTO createUserDTO = CreateUserDTO.builder()
+                .name(name)
+                .cpf(String.format("%011d", sequence))
+                .email("user" + sequence + "@teste.com")
+                .password(password)
+                .build();
+
+        ResponseEntity<String> response = restTemplate.postForEntity(baseUrl + "/api/auth/register", createUserDTO, String.class);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+        return objectMapper.readValue(response.getBody(), UserDTO.class);
+    }
+
+    private String authenticateUser(String email, String password) throws Exception {
+        LoginDTO loginDTO = LoginDTO.builder()
+                .username(email)
+                .password(password)
+                .build();
+
+        ResponseEntity<String> response = restTemplate.postForEntity(baseUrl + "/api/auth/login", loginDTO, String.class);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        return objectMapper.readValue(response.getBody(), AuthResponseDTO.class).getToken();
+    }
+
+    private record Benchmark(int liveRows, long statements, long medianNanos) {
+    }
+}
@@ -0,0 +1,262 @@
+package com.nimble.gateway.integration;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nimble.gateway.application.dto.*;
+import com.nimble.gateway.domain.entity.Charge;
+import com.nimble.gateway.domain.entity.User;
+import com.nimble.gateway.domain.repository.ChargeRepository;
+import com.nimble.gateway.domain.repository.PaymentRepository;
+import com.nimble.gateway.domain.repository.UserRepository;
+import com.nimble.gateway.infrastructure.balance.BalanceProjection;
+import com.nimble.gateway.infrastructure.balance.InMemoryBalanceEngine;
+import com.nimble.gateway.infrastructure.balance.InMemoryPaymentEngine;
+import com.nimble.gateway.infrastructure.persistence.PaymentEngine;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.*;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "app.payments.engine=in-memory",
+        "app.payments.in-memory.directory=${java.io.tmpdir}/nimble-balance-${random.uuid}",
+        "app.payments.in-memory.fsync=false",
+        "app.payments.in-memory.ring-size=1024",
+        // Projected by the tests themselves, so they do not race the scheduler for what users.balance holds
+        "app.payments.in-memory.projection-interval-ms=3600000",
+        "app.outbox.relay.enabled=false"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.ANY)
+@ActiveProfiles("test")
+@Import(TestConfig.class)
+@DisplayName("In-Memory Balance Engine - Integration Tests")
+class InMemoryBalanceIntegrationTest {
+
+    private static final AtomicInteger USER_SEQUENCE = new AtomicInteger(1_600_000);
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private InMemoryBalanceEngine inMemoryBalanceEngine;
+
+    @Autowired
+    private PaymentEngine paymentEngine;
+
+    @Autowired
+    private BalanceProjection balanceProjection;
+
+    @Autowired
+    private ChargeRepository chargeRepository;
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @LocalServerPort
+    private int port;
+
+    private String baseUrl;
+    private UserDTO originator;
+    private UserDTO recipient;
+    private String originatorToken;
+    private String recipientToken;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        baseUrl = "http://localhost:" + port;
+        originator = registerUser("João Silva", "senha123");
+        recipient = registerUser("Maria Santos", "senha456");
+        originatorToken = authenticateUser(originator.getEmail(), "senha123");
+        recipientToken = authenticateUser(recipient.getEmail(), "senha456");
+    }
+
+    @Test
+    @DisplayName("GIVEN a pending charge WHEN paying with balance THEN the engine should move the balance and the projection should write it back")
+    void givenPendingCharge_whenPayingWithBalance_thenShouldPayThroughEngine() throws Exception {
+        // Given
+        deposit("50.00");
+        UUID chargeId = createCharge("10.00");
+        assertThat(paymentEngine).isInstanceOf(InMemoryPaymentEngine.class);
+
+        // When
+        ResponseEntity<String> response = pay(chargeId);
+
+        // Then
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+        PaymentDTO payment = objectMapper.readValue(response.getBody(), PaymentDTO.class);
+        assertThat(payment.getAmount()).isEqualByComparingTo("10.00");
+        Charge charge = chargeRepository.findById(chargeId).orElseThrow();
+        assertThat(charge.getStatus()).isEqualTo(Charge.ChargeStatus.PAID);
+        assertThat(pay(chargeId).getBody()).contains("Charge is not pending");
+
+        // The row trails the engine until the projection runs; reads go to the engine
+        User beforeProjection = userRepository.findById(recipient.getId()).orElseThrow();
+        assertThat(beforeProjection.getBalance()).isEqualByComparingTo("0.00");
+        assertThat(currentUser().getBalance()).isEqualByComparingTo("50.00");
+
+        balanceProjection.project();
+        User projected = userRepository.findById(recipient.getId()).orElseThrow();
+        assertThat(projected.getBalance()).isEqualByComparingTo("50.00");
+        assertThat(projected.getVersion()).isGreaterThan(beforeProjection.getVersion());
+    }
+
+    @Test
+    @DisplayName("GIVEN a balance too low WHEN paying THEN the engine should refuse and nothing should be written")
+    void givenLowBalance_whenPaying_thenShouldRefuse() {
+        // Given
+        UUID chargeId = createCharge("10.00");
+
+        // When
+        ResponseEntity<String> response = pay(chargeId);
+
+        // Then
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.UNPROCESSABLE_ENTITY);
+        assertThat(response.getBody()).contains("Insufficient balance");
+        Charge charge = chargeRepository.findById(chargeId).orElseThrow();
+        assertThat(charge.getStatus()).isEqualTo(Charge.ChargeStatus.PENDING);
+        assertThat(paymentRepository.findByCharge(charge)).isEmpty();
+        assertThat(inMemoryBalanceEngine.balanceOf(recipient.getId())).isEqualByComparingTo("0.00");
+    }
+
+    @Test
+    @DisplayName("GIVEN concurrent deposits of one user WHEN the single writer applies them THEN none should be lost in the engine or the projection")
+    void givenConcurrentDeposits_whenApplied_thenShouldCreditEveryOne() throws Exception {
+        // Given
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+
+        // When
+        List<Future<ResponseEntity<String>>> responses = new ArrayList<>();
+        try {
+            for (int i = 0; i < 64; i++) responses.add(executor.submit(() -> postDeposit("1.00")));
+            for (Future<ResponseEntity<String>> response : responses) {
+                assertThat(response.get().getStatusCode()).isEqualTo(HttpStatus.CREATED);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // Then
+        assertThat(inMemoryBalanceEngine.balanceOf(recipient.getId())).isEqualByComparingTo("64.00");
+        balanceProjection.project();
+        assertThat(userRepository.findById(recipient.getId()).orElseThrow().getBalance()).isEqualByComparingTo("64.00");
+    }
+
+    @Test
+    @DisplayName("GIVEN pending charges WHEN paying them in a batch THEN each leg should be checked by the engine and all should be paid")
+    void givenPendingCharges_whenPayingBatch_thenShouldPayEveryCharge() {
+        // Given
+        deposit("15.00");
+        List<UUID> chargeIds = List.of(createCharge("10.00"), createCharge("12.00"));
+
+        // When
+        ResponseEntity<BatchPaymentDTO> response = restTemplate.exchange(
+                baseUrl + "/api/payments/pay-batch?payerId=" + recipient.getId(), HttpMethod.POST,
+                createAuthenticatedRequest(PayBatchDTO.builder().chargeIds(chargeIds).build(), recipientToken),
+                BatchPaymentDTO.class);
+
+        // Then
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+        assertThat(response.getBody().getPaidCount()).isEqualTo(2);
+        for (UUID chargeId : chargeIds) {
+            assertThat(chargeRepository.findById(chargeId).orElseThrow().getStatus()).isEqualTo(Charge.ChargeStatus.PAID);
+        }
+        assertThat(inMemoryBalanceEngine.balanceOf(recipient.getId())).isEqualByComparingTo("15.00");
+    }
+
+    private UUID createCharge(String amount) {
+        ResponseEntity<ChargeDTO> response = restTemplate.exchange(
+                baseUrl + "/api/charges?originatorId=" + originator.getId(), HttpMethod.POST,
+                createAuthenticatedRequest(CreateChargeDTO.builder()
+                        .recipientCpf(recipient.getCpf())
+                        .amount(new BigDecimal(amount))
+                        .build(), originatorToken),
+                ChargeDTO.class);
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+        return response.getBody().getId();
+    }
+
+    private void deposit(String amount) {
+        assertThat(postDeposit(amount).getStatusCode()).isEqualTo(HttpStatus.CREATED);
+    }
+
+    private ResponseEntity<String> postDeposit(String amount) {
+        return restTemplate.exchange(
+                baseUrl + "/api/payments/deposit?userId=" + recipient.getId(), HttpMethod.POST,
+                createAuthenticatedRequest(DepositDTO.builder().amount(new BigDecimal(amount)).build(), recipientToken),
+                String.class);
+    }
+
+    private ResponseEntity<String> pay(UUID chargeId) {
+        return restTemplate.exchange(
+                baseUrl + "/api/payments/pay?payerId=" + recipient.getId(), HttpMethod.POST,
+                createAuthenticatedRequest(PayChargeDTO.builder().chargeId(chargeId).method("BALANCE").build(), recipientToken),
+                String.class);
+    }
+
+    private UserDTO currentUser() {
+        ResponseEntity<UserDTO> response = restTemplate.exchange(
+                baseUrl + "/api/auth/me", HttpMethod.GET, createAuthenticatedRequest(null, recipientToken), UserDTO.class);
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        return response.getBody();
+    }
+
+    private UserDTO registerUser(String name, String password) throws Exception {
+        int sequence = USER_SEQUENCE.incrementAndGet();
+        CreateUserDTO createUserDTO = CreateUserDTO.builder()
+                .name(name)
+                .cpf(String.format("%011d", sequence))
+                .email("user" + sequence + "@teste.com")
+                .password(password)
+                .build();
+
+        ResponseEntity<String> response = restTemplate.postForEntity(baseUrl + "/api/auth/register", createUserDTO, String.class);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+        return objectMapper.readValue(response.getBody(), UserDTO.class);
+    }
+
+    private String authenticateUser(String email, String password) throws Exception {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        headers.set("X-Forwarded-For", "10.7.0." + USER_SEQUENCE.get() % 250);
+        LoginDTO loginDTO = LoginDTO.builder()
+                .username(email)
+                .password(password)
+                .build();
+
+        ResponseEntity<String> response = restTemplate.postForEntity(baseUrl + "/api/auth/login", new HttpEntity<>(loginDTO, headers), String.class);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        return objectMapper.readValue(response.getBody(), AuthResponseDTO.class).getToken();
+    }
+
+    private <T> HttpEntity<T> createAuthenticatedRequest(T body, String token) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        headers.setBearerAuth(token);
+        return new HttpEntity<>(body, headers);
+    }
+}
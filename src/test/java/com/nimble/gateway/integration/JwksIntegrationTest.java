@@ -0,0 +1,99 @@
+package com.nimble.gateway.integration;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nimble.gateway.application.dto.*;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Jwk;
+import io.jsonwebtoken.security.Jwks;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.*;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.security.PublicKey;
+import java.util.Base64;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "app.outbox.relay.enabled=false"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.ANY)
+@ActiveProfiles("test")
+@Import(TestConfig.class)
+@DisplayName("JWKS - Integration Tests")
+class JwksIntegrationTest {
+
+    private static final AtomicInteger USER_SEQUENCE = new AtomicInteger(1_100_000);
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @LocalServerPort
+    private int port;
+
+    private String baseUrl;
+    private AuthResponseDTO login;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        baseUrl = "http://localhost:" + port;
+        int sequence = USER_SEQUENCE.incrementAndGet();
+        CreateUserDTO createUserDTO = CreateUserDTO.builder()
+                .name("João Silva")
+                .cpf(String.format("%011d", sequence))
+                .email("user" + sequence + "@teste.com")
+                .password("senha123")
+                .build();
+        ResponseEntity<String> registered = restTemplate.postForEntity(baseUrl + "/api/auth/register", createUserDTO, String.class);
+        assertThat(registered.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        headers.set("X-Forwarded-For", "10.2.0." + sequence % 250);
+        LoginDTO loginDTO = LoginDTO.builder()
+                .username(createUserDTO.getEmail())
+                .password("senha123")
+                .build();
+        ResponseEntity<String> response = restTemplate.postForEntity(baseUrl + "/api/auth/login", new HttpEntity<>(loginDTO, headers), String.class);
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        login = objectMapper.readValue(response.getBody(), AuthResponseDTO.class);
+    }
+
+    @Test
+    @DisplayName("GIVEN a token from login WHEN fetching the key set anonymously THEN should find its kid and verify it with the published key")
+    void givenTokenFromLogin_whenFetchingKeySet_thenShouldVerifyWithPublishedKey() throws Exception {
+        // Given
+        String kid = objectMapper.readTree(Base64.getUrlDecoder().decode(login.getToken().split("\\.")[0])).get("kid").asText();
+
+        // When
+        ResponseEntity<String> response = restTemplate.getForEntity(baseUrl + "/.well-known/jwks.json", String.class);
+
+        // Then
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getHeaders().getCacheControl()).contains("max-age=").contains("public");
+        JsonNode published = null;
+        for (JsonNode key : objectMapper.readTree(response.getBody()).get("keys")) {
+            assertThat(key.has("d")).isFalse();
+            if (kid.equals(key.get("kid").asText())) published = key;
+        }
+        assertThat(published).isNotNull();
+
+        Jwk<?> jwk = Jwks.parser().build().parse(published.toString());
+        String subject = Jwts.parser().verifyWith((PublicKey) jwk.toKey()).build()
+                .parseSignedClaims(login.getToken()).getPayload().getSubject();
+        assertThat(subject).isEqualTo(login.getUser().getEmail());
+    }
+}
@@ -0,0 +1,181 @@
+package com.nimble.gateway.integration;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nimble.gateway.application.dto.*;
+import com.nimble.gateway.infrastructure.persistence.ReplicaLagMonitor;
+import com.nimble.gateway.infrastructure.persistence.ReplicaLagProbe;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.context.annotation.Primary;
+import org.springframework.http.*;
+import org.springframework.test.context.ActiveProfiles;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// The replica is a database that has replicated nothing while its probe reports it in sync: the lag the guard cannot
+// see. Commands must never read it, or they would find neither the users nor the charges they act on
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "app.outbox.relay.enabled=false",
+        "spring.datasource.url=jdbc:h2:mem:lagging-primary;DB_CLOSE_DELAY=-1",
+        "app.datasource.replicas[0].name=stale",
+        "app.datasource.replicas[0].url=jdbc:h2:mem:lagging-replica;DB_CLOSE_DELAY=-1",
+        "app.datasource.replica-lag.max-lag-ms=1000",
+        "app.datasource.replica-lag.check-interval-ms=3600000"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+@Import({TestConfig.class, LaggingReplicaIntegrationTest.InSyncProbeConfig.class})
+@DisplayName("Lagging Replica - Integration Tests")
+class LaggingReplicaIntegrationTest {
+
+    private static final String STALE_REPLICA = "read-pool-stale";
+    private static final AtomicInteger USER_SEQUENCE = new AtomicInteger(1_700_000);
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private ReplicaLagMonitor replicaLagMonitor;
+
+    @LocalServerPort
+    private int port;
+
+    private String baseUrl;
+    private UserDTO originator;
+    private UserDTO payer;
+    private String originatorToken;
+    private String payerToken;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        baseUrl = "http://localhost:" + port;
+        replicaLagMonitor.check();
+        originator = registerUser("João Silva", "senha123");
+        payer = registerUser("Maria Santos", "senha456");
+        originatorToken = authenticateUser(originator.getEmail(), "senha123");
+        payerToken = authenticateUser(payer.getEmail(), "senha456");
+    }
+
+    @Test
+    @DisplayName("GIVEN a replica behind the primary WHEN depositing, paying and cancelling THEN every check should read the primary")
+    void givenLaggingReplica_whenRunningCommands_thenShouldReadThePrimary() {
+        // Given
+        long replica = acquisitions(STALE_REPLICA);
+
+        // When
+        ResponseEntity<String> deposit = restTemplate.exchange(
+                baseUrl + "/api/payments/deposit?userId=" + payer.getId(), HttpMethod.POST,
+                createAuthenticatedRequest(DepositDTO.builder().amount(new BigDecimal("30.00")).build(), payerToken),
+                String.class);
+        UUID paid = createCharge("10.00");
+        ResponseEntity<String> pay = pay(paid);
+        UUID cancelled = createCharge("5.00");
+        ResponseEntity<String> cancel = restTemplate.exchange(
+                baseUrl + "/api/payments/cancel/" + cancelled + "?userId=" + originator.getId(), HttpMethod.POST,
+                createAuthenticatedRequest(null, originatorToken), String.class);
+
+        // Then
+        assertThat(deposit.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+        assertThat(pay.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+        assertThat(cancel.getStatusCode()).isEqualTo(HttpStatus.OK);
+        // The index learnt the charge's real state, not the replica's
+        assertThat(pay(paid).getBody()).contains("Charge is not pending");
+        assertThat(acquisitions(STALE_REPLICA) - replica).isZero();
+    }
+
+    private UUID createCharge(String amount) {
+        ResponseEntity<ChargeDTO> response = restTemplate.exchange(
+                baseUrl + "/api/charges?originatorId=" + originator.getId(), HttpMethod.POST,
+                createAuthenticatedRequest(CreateChargeDTO.builder()
+                        .recipientCpf(payer.getCpf())
+                        .amount(new BigDecimal(amount))
+                        .build(), originatorToken),
+                ChargeDTO.class);
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+        return response.getBody().getId();
+    }
+
+    private ResponseEntity<String> pay(UUID chargeId) {
+        return restTemplate.exchange(
+                baseUrl + "/api/payments/pay?payerId=" + payer.getId(), HttpMethod.POST,
+                createAuthenticatedRequest(PayChargeDTO.builder().chargeId(chargeId).method("BALANCE").build(), payerToken),
+                String.class);
+    }
+
+    private long acquisitions(String pool) {
+        // Pool meters are registered when the pool hands out its first connection
+        Timer timer = meterRegistry.find("hikaricp.connections.acquire").tag("pool", pool).timer();
+        return timer != null ? timer.count() : 0;
+    }
+
+    private UserDTO registerUser(String name, String password) throws Exception {
+        int sequence = USER_SEQUENCE.incrementAndGet();
+        CreateUserDTO createUserDTO = CreateUserDTO.builder()
+                .name(name)
+                .cpf(String.format("%011d", sequence))
+                .email("user" + sequence + "@teste.com")
+                .password(password)
+                .build();
+
+        ResponseEntity<String> response = restTemplate.postForEntity(baseUrl + "/api/auth/register", createUserDTO, String.class);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+        return objectMapper.readValue(response.getBody(), UserDTO.class);
+    }
+
+    private String authenticateUser(String email, String password) throws Exception {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        headers.set("X-Forwarded-For", "10.8.0." + USER_SEQUENCE.get() % 250);
+        LoginDTO loginDTO = LoginDTO.builder()
+                .username(email)
+                .password(password)
+                .build();
+
+        ResponseEntity<String> response = restTemplate.postForEntity(baseUrl + "/api/auth/login", new HttpEntity<>(loginDTO, headers), String.class);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        return objectMapper.readValue(response.getBody(), AuthResponseDTO.class).getToken();
+    }
+
+    private <T> HttpEntity<T> createAuthenticatedRequest(T body, String token) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        headers.setBearerAuth(token);
+        return new HttpEntity<>(body, headers);
+    }
+
+    @TestConfiguration
+    static class InSyncProbeConfig {
+
+        @Bean
+        @Primary
+        ReplicaLagProbe inSyncReplicaLagProbe() {
+            return (replica, dataSource) -> Optional.of(Duration.ZERO);
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package com.nimble.gateway.integration;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nimble.gateway.application.dto.*;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.*;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "app.outbox.relay.enabled=false"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.ANY)
+// Test contexts only get the in-memory registry unless exporters are switched back on
+@AutoConfigureObservability(tracing = false)
+@ActiveProfiles("test")
+@Import(TestConfig.class)
+@DisplayName("Metrics - Integration Tests")
+class MetricsIntegrationTest {
+
+    private static final AtomicInteger USER_SEQUENCE = new AtomicInteger(600_000);
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @LocalServerPort
+    private int port;
+
+    private String baseUrl;
+    private UserDTO originator;
+    private UserDTO recipient;
+    private String originatorToken;
+    private String recipientToken;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        baseUrl = "http://localhost:" + port;
+        originator = registerUser("João Silva", "senha123");
+        recipient = registerUser("Maria Santos", "senha456");
+        originatorToken = authenticateUser(originator.getEmail(), "senha123");
+        recipientToken = authenticateUser(recipient.getEmail(), "senha456");
+    }
+
+    @Test
+    @DisplayName("GIVEN a paid charge WHEN scraping prometheus THEN should expose latency histograms and the per-request breakdown")
+    void givenPaidCharge_whenScrapingPrometheus_thenShouldExposeHistogramsAndBreakdown() {
+        // Given
+        deposit("50.00");
+        pay(createCharge("20.00"));
+
+        // When
+        String scrape = restTemplate.getForObject(baseUrl + "/actuator/prometheus", String.class);
+
+        // Then
+        assertThat(scrape)
+                .containsPattern("payment_processing_time_seconds_bucket\\{[^}]*method=\"BALANCE\"[^}]*outcome=\"success\"")
+                .containsPattern("deposit_processing_time_seconds_bucket\\{[^}]*outcome=\"success\"")
+                .containsPattern("http_server_requests_seconds_bucket\\{[^}]*uri=\"/api/payments/pay\"")
+                .containsPattern("http_server_requests_db_seconds_bucket\\{[^}]*uri=\"/api/payments/pay\"")
+                .containsPattern("http_server_requests_cpu_seconds_count\\{[^}]*uri=\"/api/payments/pay\"")
+                .containsPattern("charge_creations_total [1-9]");
+        assertThat(meterRegistry.get("http.server.requests.db").tag("uri", "/api/payments/pay").timer().totalTime(TimeUnit.NANOSECONDS))
+                .isPositive();
+    }
+
+    @Test
+    @DisplayName("GIVEN repeated payments WHEN recording metrics THEN should not register new meters per request")
+    void givenRepeatedPayments_whenRecordingMetrics_thenShouldNotRegisterNewMeters() {
+        // Given
+        deposit("100.00");
+        pay(createCharge("1.00"));
+        int registered = meterRegistry.getMeters().size();
+
+        // When
+        for (int i = 0; i < 10; i++) {
+            pay(createCharge("1.00"));
+        }
+
+        // Then
+        assertThat(meterRegistry.getMeters()).hasSize(registered);
+    }
+
+    private ChargeDTO createCharge(String amount) {
+        ResponseEntity<ChargeDTO> response = restTemplate.exchange(
+                baseUrl + "/api/charges?originatorId=" + originator.getId(), HttpMethod.POST,
+                createAuthenticatedRequest(CreateChargeDTO.builder()
+                        .recipientCpf(recipient.getCpf())
+                        .amount(new BigDecimal(amount))
+                        .build(), originatorToken),
+                ChargeDTO.class);
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+        return response.getBody();
+    }
+
+    private void deposit(String amount) {
+        ResponseEntity<String> response = restTemplate.exchange(
+                baseUrl + "/api/payments/deposit?userId=" + recipient.getId(), HttpMethod.POST,
+                createAuthenticatedRequest(DepositDTO.builder().amount(new BigDecimal(amount)).build(), recipientToken),
+                String.class);
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+    }
+
+    private void pay(ChargeDTO charge) {
+        ResponseEntity<String> response = restTemplate.exchange(
+                baseUrl + "/api/payments/pay?payerId=" + recipient.getId(), HttpMethod.POST,
+                createAuthenticatedRequest(PayChargeDTO.builder().chargeId(charge.getId()).method("BALANCE").build(), recipientToken),
+                String.class);
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+    }
+
+    private UserDTO registerUser(String name, String password) throws Exception {
+        int sequence = USER_SEQUENCE.incrementAndGet();
+        CreateUserDTO createUserDTO = CreateUserDTO.builder()
+                .name(name)
+                .cpf(String.format("%011d", sequence))
+                .email("user" + sequence + "@teste.com")
+                .password(password)
+                .build();
+
+        ResponseEntity<String> response = restTemplate.postForEntity(baseUrl + "/api/auth/register", createUserDTO, String.class);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+        return objectMapper.readValue(response.getBody(), UserDTO.class);
+    }
+
+    private String authenticateUser(String email, String password) throws Exception {
+        LoginDTO loginDTO = LoginDTO.builder()
+                .username(email)
+                .password(password)
+                .build();
+
+        ResponseEntity<String> response = restTemplate.postForEntity(baseUrl + "/api/auth/login", loginDTO, String.class);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        return objectMapper.readValue(response.getBody(), AuthResponseDTO.class).getToken();
+    }
+
+    private <T> HttpEntity<T> createAuthenticatedRequest(T body, String token) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        headers.setBearerAuth(token);
+        return new HttpEntity<>(body, headers);
+    }
+}
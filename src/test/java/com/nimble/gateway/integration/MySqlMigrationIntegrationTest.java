@@ -0,0 +1,173 @@
+package com.nimble.gateway.integration;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.testcontainers.containers.MySQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// The rest of the suite runs on H2 with Flyway off, so this is the only run of the migrations themselves: the
+// foreign key drops, primary key rewrites and partitioning of V004 included, and of the V011 procedures the
+// stored-procedure payment engine calls. Skipped where Docker is not available
+@Testcontainers(disabledWithoutDocker = true)
+@DisplayName("MySQL Migrations - Integration Tests")
+class MySqlMigrationIntegrationTest {
+
+    @Container
+    private static final MySQLContainer<?> MYSQL = new MySQLContainer<>("mysql:8")
+            .withDatabaseName("nimble")
+            .withUsername("root")
+            .withPassword("root123")
+            .withCommand("--character-set-server=utf8mb4", "--collation-server=utf8mb4_unicode_ci");
+
+    private static JdbcTemplate jdbcTemplate;
+
+    @BeforeAll
+    static void migrate() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(MYSQL.getJdbcUrl(), MYSQL.getUsername(), MYSQL.getPassword());
+        Flyway.configure().dataSource(dataSource).locations("classpath:db/migration").load().migrate();
+        jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    @Test
+    @DisplayName("GIVEN the history tables WHEN migrated THEN should be partitioned by month")
+    void givenHistoryTables_whenMigrated_thenShouldBePartitioned() {
+        for (String table : List.of("charges", "payments", "audit_logs")) {
+            Integer partitions = jdbcTemplate.queryForObject(
+                    "SELECT COUNT(*) FROM information_schema.PARTITIONS WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ?",
+                    Integer.class, table);
+            assertThat(partitions).as(table).isGreaterThan(1);
+        }
+    }
+
+    @Test
+    @DisplayName("GIVEN each archive table WHEN migrated THEN should keep the column types of the table it archives")
+    void givenArchiveTables_whenMigrated_thenShouldMatchSourceColumns() {
+        for (String table : List.of("charges", "payments", "audit_logs")) {
+            Map<String, String> source = columnTypes(table);
+            Map<String, String> archive = columnTypes(table + "_archive");
+            for (Map.Entry<String, String> column : archive.entrySet()) {
+                String sourceType = source.get(column.getKey());
+                if (sourceType == null) continue;
+                // Enums are archived as text, so a value added later still fits rows archived before it
+                if (sourceType.startsWith("enum")) {
+                    assertThat(column.getValue()).as(table + "." + column.getKey()).startsWith("varchar");
+                } else {
+                    assertThat(column.getValue()).as(table + "." + column.getKey()).isEqualTo(sourceType);
+                }
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("GIVEN an audit entry WHEN copied to the archive THEN should join back to the entity it names")
+    void givenAuditEntry_whenArchived_thenShouldJoinBack() {
+        UUID entityId = UUID.randomUUID();
+        jdbcTemplate.update("INSERT INTO audit_logs (id, action, entity_type, entity_id, created_at) " +
+                "VALUES (UUID_TO_BIN(UUID()), 'PAY', 'CHARGE', UUID_TO_BIN(?), NOW())", entityId.toString());
+
+        jdbcTemplate.update("INSERT INTO audit_logs_archive (id, user_id, action, entity_type, entity_id, old_values, new_values, " +
+                "ip_address, user_agent, created_at, archived_at) " +
+                "SELECT id, user_id, action, entity_type, entity_id, old_values, new_values, ip_address, user_agent, created_at, NOW() " +
+                "FROM audit_logs WHERE entity_id = UUID_TO_BIN(?)", entityId.toString());
+
+        Integer joined = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM audit_logs_archive archived " +
+                "JOIN audit_logs live ON live.entity_id = archived.entity_id WHERE archived.entity_id = UUID_TO_BIN(?)",
+                Integer.class, entityId.toString());
+        assertThat(joined).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("GIVEN a pending charge WHEN paid by its recipient through sp_process_payment THEN should mark it paid and write the payment under the given id")
+    void givenPendingCharge_whenPaidThroughProcedure_thenShouldWritePayment() {
+        UUID originatorId = user(BigDecimal.ZERO);
+        UUID recipientId = user(new BigDecimal("100.00"));
+        UUID chargeId = charge(originatorId, recipientId, new BigDecimal("60.00"));
+        UUID paymentId = UUID.randomUUID();
+
+        Map<String, Object> outcome = jdbcTemplate.queryForMap("CALL sp_process_payment(UUID_TO_BIN(?), UUID_TO_BIN(?), UUID_TO_BIN(?), NOW())",
+                paymentId.toString(), chargeId.toString(), recipientId.toString());
+
+        assertThat(outcome).containsEntry("outcome", "PROCESSED").containsEntry("status", "PAID").containsEntry("version", 1L);
+        Map<String, Object> charge = jdbcTemplate.queryForMap("SELECT status, payment_method, version FROM charges WHERE id = UUID_TO_BIN(?)", chargeId.toString());
+        assertThat(charge).containsEntry("status", "PAID").containsEntry("payment_method", "BALANCE").containsEntry("version", 1L);
+        Map<String, Object> payment = jdbcTemplate.queryForMap("SELECT status, method, amount FROM payments " +
+                "WHERE id = UUID_TO_BIN(?) AND charge_id = UUID_TO_BIN(?)", paymentId.toString(), chargeId.toString());
+        assertThat(payment).containsEntry("status", "PROCESSED").containsEntry("method", "BALANCE");
+        assertThat((BigDecimal) payment.get("amount")).isEqualByComparingTo("60.00");
+        assertThat(jdbcTemplate.queryForObject("SELECT version FROM users WHERE id = UUID_TO_BIN(?)", Long.class, recipientId.toString())).isEqualTo(2L);
+    }
+
+    @Test
+    @DisplayName("GIVEN a recipient without enough balance WHEN paying through sp_process_payment THEN should report the refusal and write nothing")
+    void givenInsufficientBalance_whenPaidThroughProcedure_thenShouldWriteNothing() {
+        UUID originatorId = user(BigDecimal.ZERO);
+        UUID recipientId = user(new BigDecimal("10.00"));
+        UUID chargeId = charge(originatorId, recipientId, new BigDecimal("60.00"));
+        UUID paymentId = UUID.randomUUID();
+
+        Map<String, Object> outcome = jdbcTemplate.queryForMap("CALL sp_process_payment(UUID_TO_BIN(?), UUID_TO_BIN(?), UUID_TO_BIN(?), NOW())",
+                paymentId.toString(), chargeId.toString(), recipientId.toString());
+
+        assertThat(outcome).containsEntry("outcome", "INSUFFICIENT_BALANCE").containsEntry("status", "PENDING");
+        assertThat(jdbcTemplate.queryForObject("SELECT status FROM charges WHERE id = UUID_TO_BIN(?)", String.class, chargeId.toString())).isEqualTo("PENDING");
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM payments WHERE id = UUID_TO_BIN(?)", Integer.class, paymentId.toString())).isZero();
+        assertThat(jdbcTemplate.queryForObject("SELECT version FROM users WHERE id = UUID_TO_BIN(?)", Long.class, recipientId.toString())).isZero();
+    }
+
+    @Test
+    @DisplayName("GIVEN a user WHEN depositing through sp_process_deposit THEN should credit them and write a payment without a charge")
+    void givenUser_whenDepositedThroughProcedure_thenShouldWriteChargelessPayment() {
+        UUID userId = user(BigDecimal.ZERO);
+        UUID paymentId = UUID.randomUUID();
+
+        Map<String, Object> outcome = jdbcTemplate.queryForMap("CALL sp_process_deposit(UUID_TO_BIN(?), UUID_TO_BIN(?), ?, NOW())",
+                paymentId.toString(), userId.toString(), new BigDecimal("25.50"));
+        Map<String, Object> missing = jdbcTemplate.queryForMap("CALL sp_process_deposit(UUID_TO_BIN(?), UUID_TO_BIN(?), ?, NOW())",
+                UUID.randomUUID().toString(), UUID.randomUUID().toString(), BigDecimal.ONE);
+
+        assertThat(outcome).containsEntry("outcome", "PROCESSED");
+        assertThat(missing).containsEntry("outcome", "USER_NOT_FOUND");
+        assertThat(jdbcTemplate.queryForObject("SELECT balance FROM users WHERE id = UUID_TO_BIN(?)", BigDecimal.class, userId.toString()))
+                .isEqualByComparingTo("25.50");
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM payments WHERE id = UUID_TO_BIN(?) AND charge_id IS NULL",
+                Integer.class, paymentId.toString())).isEqualTo(1);
+    }
+
+    private static UUID user(BigDecimal balance) {
+        UUID id = UUID.randomUUID();
+        String cpf = String.format("%011d", ThreadLocalRandom.current().nextLong(100_000_000_000L));
+        jdbcTemplate.update("INSERT INTO users (id, name, cpf, email, password, balance) VALUES (UUID_TO_BIN(?), 'User', ?, ?, 'secret', ?)",
+                id.toString(), cpf, id + "@nimble.com", balance);
+        return id;
+    }
+
+    private static UUID charge(UUID originatorId, UUID recipientId, BigDecimal amount) {
+        UUID id = UUID.randomUUID();
+        jdbcTemplate.update("INSERT INTO charges (id, originator_id, recipient_id, amount) VALUES (UUID_TO_BIN(?), UUID_TO_BIN(?), UUID_TO_BIN(?), ?)",
+                id.toString(), originatorId.toString(), recipientId.toString(), amount);
+        return id;
+    }
+
+    private static Map<String, String> columnTypes(String table) {
+        Map<String, String> types = new HashMap<>();
+        jdbcTemplate.query("SELECT COLUMN_NAME, COLUMN_TYPE FROM information_schema.COLUMNS WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ?",
+                row -> {
+                    types.put(row.getString("COLUMN_NAME"), row.getString("COLUMN_TYPE"));
+                }, table);
+        return types;
+    }
+}
@@ -0,0 +1,225 @@
+package com.nimble.gateway.integration;
+
+import com.nimble.gateway.infrastructure.persistence.MySqlReplicaLagProbe;
+import com.nimble.gateway.infrastructure.persistence.ReadWriteRoutingDataSource;
+import com.nimble.gateway.infrastructure.persistence.ReplicaDataSources;
+import com.nimble.gateway.infrastructure.persistence.ReplicaLagMonitor;
+import com.nimble.gateway.infrastructure.persistence.ReplicaReads;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.MySQLContainer;
+import org.testcontainers.containers.Network;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// A GTID source and replica pair, so routing, the lag fallback and MySqlReplicaLagProbe's reading of SHOW REPLICA
+// STATUS run against real replication rather than a stubbed probe. Pinned to 8.4 for the replication statements it
+// issues. Skipped where Docker is not available
+@Testcontainers(disabledWithoutDocker = true)
+@DisplayName("MySQL Replica Routing - Integration Tests")
+class MySqlReplicaIntegrationTest {
+
+    private static final Network NETWORK = Network.newNetwork();
+    private static final int SOURCE_ID = 1;
+    private static final int REPLICA_ID = 2;
+    private static final long MAX_LAG_MS = 1000;
+
+    @Container
+    private static final MySQLContainer<?> SOURCE = new MySQLContainer<>("mysql:8.4")
+            .withNetwork(NETWORK)
+            .withNetworkAliases("source")
+            .withDatabaseName("nimble")
+            .withUsername("root")
+            .withPassword("root123")
+            .withCommand("--server-id=" + SOURCE_ID, "--gtid-mode=ON", "--enforce-gtid-consistency=ON");
+
+    @Container
+    private static final MySQLContainer<?> REPLICA = new MySQLContainer<>("mysql:8.4")
+            .withNetwork(NETWORK)
+            .withDatabaseName("nimble")
+            .withUsername("root")
+            .withPassword("root123")
+            .withCommand("--server-id=" + REPLICA_ID, "--gtid-mode=ON", "--enforce-gtid-consistency=ON");
+
+    private static HikariDataSource sourcePool;
+    private static HikariDataSource replicaPool;
+    private static JdbcTemplate source;
+    private static JdbcTemplate replica;
+
+    private SimpleMeterRegistry meterRegistry;
+    private ReplicaLagMonitor replicaLagMonitor;
+    private DataSource dataSource;
+
+    @BeforeAll
+    static void replicate() {
+        sourcePool = pool(SOURCE);
+        replicaPool = pool(REPLICA);
+        source = new JdbcTemplate(sourcePool);
+        replica = new JdbcTemplate(replicaPool);
+
+        // Both servers created the same schema on their own, so the replica starts from everything the source has done
+        String executed = source.queryForObject("SELECT @@GLOBAL.gtid_executed", String.class);
+        replica.execute("RESET BINARY LOGS AND GTIDS");
+        replica.execute("SET GLOBAL gtid_purged = '" + executed + "'");
+        replica.execute("CHANGE REPLICATION SOURCE TO SOURCE_HOST = 'source', SOURCE_PORT = 3306, SOURCE_USER = 'root', " +
+                "SOURCE_PASSWORD = 'root123', SOURCE_AUTO_POSITION = 1, GET_SOURCE_PUBLIC_KEY = 1");
+        replica.execute("START REPLICA");
+
+        source.execute("CREATE TABLE replicated (id BINARY(16) PRIMARY KEY)");
+        waitUntil(() -> replica.queryForObject("SELECT COUNT(*) FROM information_schema.TABLES " +
+                "WHERE TABLE_SCHEMA = 'nimble' AND TABLE_NAME = 'replicated'", Integer.class) == 1);
+    }
+
+    @AfterAll
+    static void closePools() {
+        if (replicaPool != null) replicaPool.close();
+        if (sourcePool != null) sourcePool.close();
+    }
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        ReplicaDataSources replicas = new ReplicaDataSources(Map.of("replica", replicaPool), false);
+        replicaLagMonitor = new ReplicaLagMonitor(replicas, new MySqlReplicaLagProbe(), meterRegistry, MAX_LAG_MS);
+        waitUntil(() -> {
+            replicaLagMonitor.check();
+            return replicaLagMonitor.isEligible("replica");
+        });
+
+        ReadWriteRoutingDataSource routing = new ReadWriteRoutingDataSource(sourcePool, replicas.pools(), replicaLagMonitor::isEligible, meterRegistry);
+        routing.afterPropertiesSet();
+        dataSource = new LazyConnectionDataSourceProxy(routing);
+    }
+
+    @Test
+    @DisplayName("GIVEN a replica that is caught up WHEN probed THEN should read its lag from SHOW REPLICA STATUS and none from the source")
+    void givenCaughtUpReplica_whenProbed_thenShouldReadSecondsBehindSource() throws Exception {
+
+        Optional<Duration> lag = new MySqlReplicaLagProbe().lag("replica", replicaPool);
+
+        assertThat(lag).isPresent();
+        assertThat(lag.get()).isGreaterThanOrEqualTo(Duration.ZERO);
+        assertThat(new MySqlReplicaLagProbe().lag("source", sourcePool)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("GIVEN a caught up replica WHEN reading THEN should serve marked read-only reads from the replica and the rest from the source")
+    void givenCaughtUpReplica_whenReading_thenShouldRouteMarkedReadsToReplica() {
+
+        UUID id = UUID.randomUUID();
+        source.update("INSERT INTO replicated (id) VALUES (UUID_TO_BIN(?))", id.toString());
+        waitUntil(() -> replica.queryForObject("SELECT COUNT(*) FROM replicated WHERE id = UUID_TO_BIN(?)", Integer.class, id.toString()) == 1);
+
+        assertThat(replicaRead(() -> serverId(true))).isEqualTo(REPLICA_ID);
+        assertThat(replicaRead(() -> serverId(false))).isEqualTo(SOURCE_ID);
+        assertThat(serverId(true)).isEqualTo(SOURCE_ID);
+        Integer replicated = replicaRead(() -> transaction(true).execute(status -> new JdbcTemplate(dataSource)
+                .queryForObject("SELECT COUNT(*) FROM replicated WHERE id = UUID_TO_BIN(?)", Integer.class, id.toString())));
+        assertThat(replicated).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("GIVEN a replica whose SQL thread is stopped WHEN probed THEN should report no lag and route reads to the source until it resumes")
+    void givenStoppedReplica_whenProbed_thenShouldFallBackToSource() {
+
+        replica.execute("STOP REPLICA SQL_THREAD");
+        try {
+            replicaLagMonitor.check();
+
+            assertThat(replicaLagMonitor.isEligible("replica")).isFalse();
+            assertThat(replicaRead(() -> serverId(true))).isEqualTo(SOURCE_ID);
+            assertThat(meterRegistry.get("datasource.read.fallbacks").tag("reason", "replication-lag").counter().count()).isEqualTo(1);
+        } finally {
+            replica.execute("START REPLICA SQL_THREAD");
+        }
+
+        waitUntil(() -> {
+            replicaLagMonitor.check();
+            return replicaLagMonitor.isEligible("replica");
+        });
+        assertThat(replicaRead(() -> serverId(true))).isEqualTo(REPLICA_ID);
+    }
+
+    @Test
+    @DisplayName("GIVEN a replica applying changes behind the source WHEN probed THEN should read the seconds behind and route reads to the source")
+    void givenDelayedReplica_whenProbed_thenShouldReadLagAndFallBack() {
+
+        replica.execute("STOP REPLICA SQL_THREAD");
+        replica.execute("CHANGE REPLICATION SOURCE TO SOURCE_DELAY = 60");
+        replica.execute("START REPLICA SQL_THREAD");
+        try {
+            source.update("INSERT INTO replicated (id) VALUES (UUID_TO_BIN(?))", UUID.randomUUID().toString());
+
+            waitUntil(() -> {
+                replicaLagMonitor.check();
+                return replicaLagMonitor.lagMillis("replica") >= 2 * MAX_LAG_MS;
+            });
+            assertThat(replicaLagMonitor.isEligible("replica")).isFalse();
+            assertThat(replicaRead(() -> serverId(true))).isEqualTo(SOURCE_ID);
+        } finally {
+            replica.execute("STOP REPLICA SQL_THREAD");
+            replica.execute("CHANGE REPLICATION SOURCE TO SOURCE_DELAY = 0");
+            replica.execute("START REPLICA SQL_THREAD");
+        }
+    }
+
+    private int serverId(boolean readOnly) {
+        return transaction(readOnly).execute(status -> new JdbcTemplate(dataSource).queryForObject("SELECT @@server_id", Integer.class));
+    }
+
+    private TransactionTemplate transaction(boolean readOnly) {
+        TransactionTemplate transaction = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        transaction.setReadOnly(readOnly);
+        return transaction;
+    }
+
+    // As a @ReplicaRead use case would: the mark is set around the call, outside its transaction
+    @SuppressWarnings("unchecked")
+    private static <T> T replicaRead(Supplier<T> read) {
+        ProxyFactory factory = new ProxyFactory(read);
+        factory.addAdvice(new ReplicaReads());
+        return ((Supplier<T>) factory.getProxy()).get();
+    }
+
+    private static HikariDataSource pool(MySQLContainer<?> mysql) {
+        HikariDataSource pool = new HikariDataSource();
+        pool.setJdbcUrl(mysql.getJdbcUrl());
+        pool.setUsername(mysql.getUsername());
+        pool.setPassword(mysql.getPassword());
+        pool.setMaximumPoolSize(4);
+        return pool;
+    }
+
+    private static void waitUntil(BooleanSupplier condition) {
+        long deadline = System.currentTimeMillis() + 30_000;
+        while (!condition.getAsBoolean()) {
+            assertThat(System.currentTimeMillis()).as("waited 30 s for replication").isLessThan(deadline);
+            try {
+                Thread.sleep(200);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+}
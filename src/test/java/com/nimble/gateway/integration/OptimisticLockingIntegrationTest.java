@@ -0,0 +1,339 @@
+package com.nimble.gateway.integration;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nimble.gateway.application.dto.*;
+import com.nimble.gateway.domain.entity.Charge;
+import com.nimble.gateway.domain.entity.Payment;
+import com.nimble.gateway.domain.entity.User;
+import com.nimble.gateway.domain.repository.ChargeRepository;
+import com.nimble.gateway.domain.repository.PaymentRepository;
+import com.nimble.gateway.domain.repository.UserRepository;
+import com.nimble.gateway.infrastructure.persistence.ConflictRetry;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.*;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionOperations;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "app.outbox.relay.enabled=false"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.ANY)
+@ActiveProfiles("test")
+@Import(TestConfig.class)
+@DisplayName("Optimistic Locking - Integration Tests")
+class OptimisticLockingIntegrationTest {
+
+    private static final AtomicInteger USER_SEQUENCE = new AtomicInteger(1_300_000);
+    private static final AtomicInteger CLIENT_SEQUENCE = new AtomicInteger();
+    private static final int PAYERS = 8;
+    private static final int THREADS = 16;
+    private static final BigDecimal INITIAL_BALANCE = new BigDecimal("10000.00");
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ChargeRepository chargeRepository;
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TransactionOperations transactionOperations;
+
+    @Autowired
+    private ConflictRetry conflictRetry;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @LocalServerPort
+    private int port;
+
+    private String baseUrl;
+    private UserDTO originator;
+    private String originatorToken;
+    private List<UserDTO> payers;
+    private List<String> payerTokens;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        baseUrl = "http://localhost:" + port;
+        originator = registerUser("João Silva");
+        originatorToken = authenticateUser(originator);
+        payers = new ArrayList<>();
+        payerTokens = new ArrayList<>();
+        for (int i = 0; i < PAYERS; i++) {
+            UserDTO payer = registerUser("Maria Santos " + i);
+            payers.add(payer);
+            payerTokens.add(authenticateUser(payer));
+            assertThat(deposit(i, INITIAL_BALANCE).getStatusCode()).isEqualTo(HttpStatus.CREATED);
+        }
+    }
+
+    @Test
+    @DisplayName("GIVEN a thousand charges WHEN each is paid and cancelled at once while deposits race THEN every outcome should be consistent")
+    void givenRacingPayAndCancel_whenRunConcurrently_thenShouldStayConsistent() throws Exception {
+        // Given
+        int pairs = 600;
+        int depositsPerPayer = 25;
+        List<UUID> chargeIds = new ArrayList<>();
+        for (int i = 0; i < pairs; i++) chargeIds.add(createCharge(i % PAYERS));
+        double retriedBefore = conflicts("retried");
+
+        // When
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<ResponseEntity<String>>> pays = new ArrayList<>();
+        List<Future<ResponseEntity<String>>> cancels = new ArrayList<>();
+        List<List<Future<ResponseEntity<String>>>> deposits = new ArrayList<>();
+        for (int p = 0; p < PAYERS; p++) deposits.add(new ArrayList<>());
+        try {
+            for (int i = 0; i < pairs; i++) {
+                int payer = i % PAYERS;
+                UUID chargeId = chargeIds.get(i);
+                // Alternate which side is submitted first, so both orders race
+                if (i % 2 == 0) {
+                    pays.add(executor.submit(() -> pay(chargeId, payer)));
+                    cancels.add(executor.submit(() -> cancel(chargeId)));
+                } else {
+                    cancels.add(executor.submit(() -> cancel(chargeId)));
+                    pays.add(executor.submit(() -> pay(chargeId, payer)));
+                }
+                if (i % (pairs / depositsPerPayer) == 0) {
+                    for (int p = 0; p < PAYERS; p++) {
+                        int depositor = p;
+                        deposits.get(p).add(executor.submit(() -> deposit(depositor, BigDecimal.ONE)));
+                    }
+                }
+            }
+
+            // Then
+            List<String> inconsistencies = new ArrayList<>();
+            Map<HttpStatusCode, Integer> outcomes = new TreeMap<>(Comparator.comparingInt(HttpStatusCode::value));
+            for (int i = 0; i < pairs; i++) {
+                ResponseEntity<String> pay = pays.get(i).get(60, TimeUnit.SECONDS);
+                ResponseEntity<String> cancel = cancels.get(i).get(60, TimeUnit.SECONDS);
+                outcomes.merge(pay.getStatusCode(), 1, Integer::sum);
+                outcomes.merge(cancel.getStatusCode(), 1, Integer::sum);
+                checkPair(chargeIds.get(i), pay.getStatusCode() == HttpStatus.CREATED, cancel.getStatusCode() == HttpStatus.OK, inconsistencies);
+            }
+            for (int p = 0; p < PAYERS; p++) {
+                int applied = 0;
+                for (Future<ResponseEntity<String>> deposit : deposits.get(p)) {
+                    if (deposit.get(60, TimeUnit.SECONDS).getStatusCode() == HttpStatus.CREATED) applied++;
+                }
+                // The payer is also the recipient of their charges, so pays and refunds leave the balance unchanged
+                BigDecimal expected = INITIAL_BALANCE.add(BigDecimal.valueOf(applied));
+                BigDecimal actual = userRepository.findById(payers.get(p).getId()).orElseThrow().getBalance();
+                if (actual.compareTo(expected) != 0) inconsistencies.add("payer " + p + ": balance " + actual + ", expected " + expected);
+            }
+
+            System.out.printf("pay/cancel race: %d pairs, responses %s, %.0f conflicting attempts retried%n",
+                    pairs, outcomes, conflicts("retried") - retriedBefore);
+            assertThat(inconsistencies).isEmpty();
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("GIVEN racing transitions WHEN run with version checks and with SELECT FOR UPDATE THEN both should stay consistent and report their throughput")
+    void givenRacingTransitions_whenComparingLockingStrategies_thenBothShouldStayConsistent() throws Exception {
+        int pairs = 2_000;
+
+        double optimistic = race(pairs, false);
+        double pessimistic = race(pairs, true);
+
+        System.out.printf("charge transitions with %d threads: optimistic %.0f/s, SELECT FOR UPDATE %.0f/s%n", THREADS, optimistic, pessimistic);
+        assertThat(optimistic).isPositive();
+        assertThat(pessimistic).isPositive();
+    }
+
+    // Races a pay-like and a cancel-like transition on every charge, then checks balances against the final statuses
+    private double race(int pairs, boolean forUpdate) throws Exception {
+        List<UUID> chargeIds = transactionOperations.execute(status -> {
+            User owner = userRepository.findById(originator.getId()).orElseThrow();
+            List<UUID> ids = new ArrayList<>();
+            for (int i = 0; i < pairs; i++) {
+                ids.add(chargeRepository.save(Charge.builder()
+                        .originator(owner)
+                        .recipient(userRepository.findById(payers.get(i % PAYERS).getId()).orElseThrow())
+                        .amount(BigDecimal.ONE)
+                        .status(Charge.ChargeStatus.PENDING)
+                        .build()).getId());
+            }
+            return ids;
+        });
+        Map<UUID, BigDecimal> before = balances();
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        long start = System.nanoTime();
+        try {
+            List<Future<?>> transitions = new ArrayList<>();
+            for (UUID chargeId : chargeIds) {
+                transitions.add(executor.submit(() -> transition(chargeId, true, forUpdate)));
+                transitions.add(executor.submit(() -> transition(chargeId, false, forUpdate)));
+            }
+            for (Future<?> transition : transitions) transition.get(60, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+        double throughput = pairs * 2 * 1e9 / (System.nanoTime() - start);
+
+        Map<UUID, BigDecimal> expected = new HashMap<>(before);
+        for (UUID chargeId : chargeIds) {
+            Charge charge = chargeRepository.findById(chargeId).orElseThrow();
+            assertThat(charge.getStatus()).isNotEqualTo(Charge.ChargeStatus.PENDING);
+            if (charge.getStatus() == Charge.ChargeStatus.PAID) {
+                expected.merge(payers.get(chargeIds.indexOf(chargeId) % PAYERS).getId(), BigDecimal.ONE.negate(), BigDecimal::add);
+            }
+        }
+        assertThat(balances()).allSatisfy((payerId, balance) -> assertThat(balance).isEqualByComparingTo(expected.get(payerId)));
+        return throughput;
+    }
+
+    private Boolean transition(UUID chargeId, boolean pay, boolean forUpdate) {
+        if (forUpdate) return transitionOnce(chargeId, pay, true);
+        // Unbounded here: a transition given up would leave a charge pending and the comparison would count less work
+        return Mono.defer(() -> conflictRetry.execute(pay ? "pay" : "cancel", attempt -> Mono.fromCallable(() -> transitionOnce(chargeId, pay, false))))
+                .retry()
+                .block();
+    }
+
+    private Boolean transitionOnce(UUID chargeId, boolean pay, boolean forUpdate) {
+        return transactionOperations.execute(status -> {
+            // Charge before payer on both sides, so the locking variant cannot deadlock
+            Charge charge = forUpdate
+                    ? chargeRepository.findAllByIdForUpdate(List.of(chargeId)).get(0)
+                    : chargeRepository.findById(chargeId).orElseThrow();
+            UUID payerId = charge.getRecipient().getId();
+            User payer = forUpdate
+                    ? userRepository.findByIdForUpdate(payerId).orElseThrow()
+                    : userRepository.findById(payerId).orElseThrow();
+            if (pay) {
+                if (!charge.isPending()) return false;
+                payer.setBalance(payer.getBalance().subtract(charge.getAmount()));
+                charge.setStatus(Charge.ChargeStatus.PAID);
+                charge.setPaidAt(LocalDateTime.now());
+            } else {
+                if (charge.getStatus() == Charge.ChargeStatus.CANCELLED) return false;
+                if (charge.getStatus() == Charge.ChargeStatus.PAID) payer.setBalance(payer.getBalance().add(charge.getAmount()));
+                charge.cancel();
+            }
+            return true;
+        });
+    }
+
+    private void checkPair(UUID chargeId, boolean paid, boolean cancelled, List<String> inconsistencies) {
+        Charge charge = chargeRepository.findById(chargeId).orElseThrow();
+        Optional<Payment> payment = paymentRepository.findByCharge(charge);
+        if (paid != payment.isPresent()) inconsistencies.add(chargeId + ": pay answered " + paid + " but payment present is " + payment.isPresent());
+        if (cancelled != (charge.getStatus() == Charge.ChargeStatus.CANCELLED)) inconsistencies.add(chargeId + ": cancel answered " + cancelled + " but status is " + charge.getStatus());
+        if (!paid && !cancelled && charge.getStatus() != Charge.ChargeStatus.PENDING) inconsistencies.add(chargeId + ": both refused but status is " + charge.getStatus());
+        // A cancellation that succeeded after a pay must have seen it, or it skipped the refund
+        if (paid && cancelled && charge.getPaidAt() == null) inconsistencies.add(chargeId + ": cancelled over a payment it did not see");
+    }
+
+    private Map<UUID, BigDecimal> balances() {
+        Map<UUID, BigDecimal> balances = new HashMap<>();
+        for (UserDTO payer : payers) balances.put(payer.getId(), userRepository.findById(payer.getId()).orElseThrow().getBalance());
+        return balances;
+    }
+
+    private double conflicts(String outcome) {
+        return meterRegistry.find("persistence.conflicts").tag("outcome", outcome).counters().stream().mapToDouble(counter -> counter.count()).sum();
+    }
+
+    private UUID createCharge(int payer) {
+        ResponseEntity<ChargeDTO> response = restTemplate.exchange(
+                baseUrl + "/api/charges?originatorId=" + originator.getId(), HttpMethod.POST,
+                request(CreateChargeDTO.builder()
+                        .recipientCpf(payers.get(payer).getCpf())
+                        .amount(BigDecimal.ONE)
+                        .build(), originatorToken),
+                ChargeDTO.class);
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+        return response.getBody().getId();
+    }
+
+    private ResponseEntity<String> pay(UUID chargeId, int payer) {
+        return restTemplate.exchange(
+                baseUrl + "/api/payments/pay?payerId=" + payers.get(payer).getId(), HttpMethod.POST,
+                request(PayChargeDTO.builder().chargeId(chargeId).method("BALANCE").build(), payerTokens.get(payer)),
+                String.class);
+    }
+
+    private ResponseEntity<String> cancel(UUID chargeId) {
+        return restTemplate.exchange(
+                baseUrl + "/api/payments/cancel/" + chargeId + "?userId=" + originator.getId(), HttpMethod.POST,
+                request(null, originatorToken), String.class);
+    }
+
+    private ResponseEntity<String> deposit(int payer, BigDecimal amount) {
+        return restTemplate.exchange(
+                baseUrl + "/api/payments/deposit?userId=" + payers.get(payer).getId(), HttpMethod.POST,
+                request(DepositDTO.builder().amount(amount).build(), payerTokens.get(payer)),
+                String.class);
+    }
+
+    private UserDTO registerUser(String name) throws Exception {
+        int sequence = USER_SEQUENCE.incrementAndGet();
+        CreateUserDTO createUserDTO = CreateUserDTO.builder()
+                .name(name)
+                .cpf(String.format("%011d", sequence))
+                .email("user" + sequence + "@teste.com")
+                .password("senha123")
+                .build();
+
+        ResponseEntity<String> response = restTemplate.postForEntity(baseUrl + "/api/auth/register", createUserDTO, String.class);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+        return objectMapper.readValue(response.getBody(), UserDTO.class);
+    }
+
+    private String authenticateUser(UserDTO user) throws Exception {
+        LoginDTO loginDTO = LoginDTO.builder()
+                .username(user.getEmail())
+                .password("senha123")
+                .build();
+
+        ResponseEntity<String> response = restTemplate.postForEntity(baseUrl + "/api/auth/login", request(loginDTO, null), String.class);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        return objectMapper.readValue(response.getBody(), AuthResponseDTO.class).getToken();
+    }
+
+    // Each request comes from its own client address, so the per-address rate limits never trip during the race
+    private <T> HttpEntity<T> request(T body, String token) {
+        int client = CLIENT_SEQUENCE.incrementAndGet();
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        headers.set("X-Forwarded-For", "10.4." + client / 250 % 250 + "." + client % 250);
+        if (token != null) headers.setBearerAuth(token);
+        return new HttpEntity<>(body, headers);
+    }
+}
@@ -0,0 +1,170 @@
+package com.nimble.gateway.integration;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nimble.gateway.application.dto.*;
+import com.nimble.gateway.domain.entity.OutboxEvent;
+import com.nimble.gateway.domain.event.ChargeEvent;
+import com.nimble.gateway.domain.repository.OutboxEventRepository;
+import com.nimble.gateway.infrastructure.outbox.OutboxRelay;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.*;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.ANY)
+@ActiveProfiles("test")
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+@Import({TestConfig.class, OutboxRelayIntegrationTest.ChargeEventCollectorConfig.class})
+@DisplayName("Outbox Relay - Integration Tests")
+class OutboxRelayIntegrationTest {
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    private OutboxRelay outboxRelay;
+
+    @Autowired
+    private ChargeEventCollector collector;
+
+    @LocalServerPort
+    private int port;
+
+    private String baseUrl;
+
+    @BeforeEach
+    void setUp() {
+        baseUrl = "http://localhost:" + port;
+        collector.events.clear();
+    }
+
+    @Test
+    @DisplayName("GIVEN a charge created, paid and cancelled WHEN relaying the outbox THEN should publish its events in order and mark them published")
+    void givenChargeLifecycle_whenRelayingOutbox_thenShouldPublishEventsInOrder() throws Exception {
+        // Given
+        UserDTO originator = registerUser("João Silva", "12345678901", "joao@teste.com", "senha123");
+        UserDTO recipient = registerUser("Maria Santos", "98765432100", "maria@teste.com", "senha456");
+        String originatorToken = authenticateUser("joao@teste.com", "senha123");
+        String recipientToken = authenticateUser("maria@teste.com", "senha456");
+
+        ChargeDTO charge = restTemplate.exchange(
+                baseUrl + "/api/charges?originatorId=" + originator.getId(),
+                HttpMethod.POST,
+                createAuthenticatedRequest(CreateChargeDTO.builder()
+                        .recipientCpf("98765432100")
+                        .amount(new BigDecimal("100.00"))
+                        .build(), originatorToken),
+                ChargeDTO.class).getBody();
+        assertThat(charge).isNotNull();
+
+        restTemplate.exchange(baseUrl + "/api/payments/deposit?userId=" + recipient.getId(), HttpMethod.POST,
+                createAuthenticatedRequest(DepositDTO.builder().amount(new BigDecimal("200.00")).build(), recipientToken),
+                String.class);
+
+        ResponseEntity<String> payResponse = restTemplate.exchange(
+                baseUrl + "/api/payments/pay?payerId=" + recipient.getId(), HttpMethod.POST,
+                createAuthenticatedRequest(PayChargeDTO.builder().chargeId(charge.getId()).method("BALANCE").build(), recipientToken),
+                String.class);
+        assertThat(payResponse.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+
+        ResponseEntity<String> cancelResponse = restTemplate.exchange(
+                baseUrl + "/api/payments/cancel/" + charge.getId() + "?userId=" + originator.getId(), HttpMethod.POST,
+                createAuthenticatedRequest(null, originatorToken),
+                String.class);
+        assertThat(cancelResponse.getStatusCode()).isEqualTo(HttpStatus.OK);
+
+        assertThat(outboxEventRepository.findByAggregateIdOrderByIdAsc(charge.getId()))
+                .extracting(OutboxEvent::getEventType)
+                .containsExactly("CREATED", "PAID", "CANCELLED");
+
+        // When
+        outboxRelay.relay();
+
+        // Then
+        assertThat(collector.events)
+                .filteredOn(event -> event.getChargeId().equals(charge.getId()))
+                .extracting(ChargeEvent::getType)
+                .containsExactly(ChargeEvent.Type.CREATED, ChargeEvent.Type.PAID, ChargeEvent.Type.CANCELLED);
+        assertThat(collector.events.get(0).getAmount()).isEqualByComparingTo("100.00");
+        assertThat(collector.events.get(0).getRecipientId()).isEqualTo(recipient.getId());
+        assertThat(outboxEventRepository.findByAggregateIdOrderByIdAsc(charge.getId()))
+                .allMatch(OutboxEvent::isPublished);
+        assertThat(outboxEventRepository.countByPublishedAtIsNull()).isZero();
+    }
+
+    @TestConfiguration
+    static class ChargeEventCollectorConfig {
+
+        @Bean
+        ChargeEventCollector chargeEventCollector() {
+            return new ChargeEventCollector();
+        }
+    }
+
+    static class ChargeEventCollector {
+
+        final List<ChargeEvent> events = new CopyOnWriteArrayList<>();
+
+        @EventListener
+        void on(ChargeEvent event) {
+            events.add(event);
+        }
+    }
+
+    private UserDTO registerUser(String name, String cpf, String email, String password) throws Exception {
+        CreateUserDTO createUserDTO = CreateUserDTO.builder()
+                .name(name)
+                .cpf(cpf)
+                .email(email)
+                .password(password)
+                .build();
+
+        ResponseEntity<String> response = restTemplate.postForEntity(baseUrl + "/api/auth/register", createUserDTO, String.class);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+        return objectMapper.readValue(response.getBody(), UserDTO.class);
+    }
+
+    private String authenticateUser(String email, String password) throws Exception {
+        LoginDTO loginDTO = LoginDTO.builder()
+                .username(email)
+                .password(password)
+                .build();
+
+        ResponseEntity<String> response = restTemplate.postForEntity(baseUrl + "/api/auth/login", loginDTO, String.class);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        return objectMapper.readValue(response.getBody(), AuthResponseDTO.class).getToken();
+    }
+
+    private <T> HttpEntity<T> createAuthenticatedRequest(T body, String token) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        headers.setBearerAuth(token);
+        return new HttpEntity<>(body, headers);
+    }
+}
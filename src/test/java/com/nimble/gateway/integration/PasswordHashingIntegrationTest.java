@@ -0,0 +1,142 @@
+package com.nimble.gateway.integration;
+
+import com.nimble.gateway.application.dto.*;
+import com.nimble.gateway.domain.entity.User;
+import com.nimble.gateway.domain.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.*;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "app.outbox.relay.enabled=false",
+        "app.security.password-hashing.threads=1",
+        "app.security.password-hashing.max-queued=0",
+        "app.security.password-hashing.bcrypt-strength=10"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.ANY)
+@ActiveProfiles("test")
+@Import(TestConfig.class)
+@DisplayName("Password Hashing - Integration Tests")
+class PasswordHashingIntegrationTest {
+
+    private static final AtomicInteger USER_SEQUENCE = new AtomicInteger(900_000);
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @LocalServerPort
+    private int port;
+
+    private String baseUrl;
+
+    @BeforeEach
+    void setUp() {
+        baseUrl = "http://localhost:" + port;
+    }
+
+    @Test
+    @DisplayName("GIVEN a password stored below the configured cost WHEN logging in THEN should succeed and store a rehashed password")
+    void givenWeakHash_whenLoggingIn_thenShouldRehashPassword() {
+        // Given
+        int sequence = USER_SEQUENCE.incrementAndGet();
+        String email = "user" + sequence + "@teste.com";
+        userRepository.save(User.builder()
+                .name("João Silva")
+                .cpf(String.format("%011d", sequence))
+                .email(email)
+                .password(new BCryptPasswordEncoder(4).encode("senha123"))
+                .balance(BigDecimal.ZERO)
+                .isActive(true)
+                .build());
+
+        // When
+        ResponseEntity<String> response = login(email, "senha123", "10.0.0.1");
+
+        // Then
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        String stored = userRepository.findByEmail(email).orElseThrow().getPassword();
+        assertThat(stored).startsWith("$2a$10$");
+        assertThat(new BCryptPasswordEncoder().matches("senha123", stored)).isTrue();
+        assertThat(login(email, "senha123", "10.0.0.1").getStatusCode()).isEqualTo(HttpStatus.OK);
+    }
+
+    @Test
+    @DisplayName("GIVEN a single hashing thread and no queue WHEN logins arrive together THEN should shed the excess with 503 and Retry-After")
+    void givenSaturatedHashing_whenLoginsArriveTogether_thenShouldShedExcess() throws Exception {
+        // Given
+        int sequence = USER_SEQUENCE.incrementAndGet();
+        String email = "user" + sequence + "@teste.com";
+        ResponseEntity<String> registered = restTemplate.postForEntity(baseUrl + "/api/auth/register", CreateUserDTO.builder()
+                .name("Maria Santos")
+                .cpf(String.format("%011d", sequence))
+                .email(email)
+                .password("senha123")
+                .build(), String.class);
+        assertThat(registered.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+
+        // When
+        int logins = 8;
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService clients = Executors.newFixedThreadPool(logins);
+        List<Future<ResponseEntity<String>>> responses = new ArrayList<>();
+        try {
+            for (int i = 0; i < logins; i++) {
+                String clientIp = "10.0.1." + i;
+                responses.add(clients.submit(() -> {
+                    start.await();
+                    return login(email, "senha123", clientIp);
+                }));
+            }
+            start.countDown();
+
+            // Then
+            List<ResponseEntity<String>> completed = new ArrayList<>();
+            for (Future<ResponseEntity<String>> response : responses) completed.add(response.get(30, TimeUnit.SECONDS));
+            assertThat(completed).extracting(ResponseEntity::getStatusCode)
+                    .containsOnly(HttpStatus.OK, HttpStatus.SERVICE_UNAVAILABLE)
+                    .contains(HttpStatus.OK, HttpStatus.SERVICE_UNAVAILABLE);
+            assertThat(completed).filteredOn(response -> response.getStatusCode() == HttpStatus.SERVICE_UNAVAILABLE)
+                    .allSatisfy(response -> assertThat(response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER)).isEqualTo("1"));
+        } finally {
+            clients.shutdownNow();
+        }
+        assertThat(login(email, "senha123", "10.0.2.1").getStatusCode()).isEqualTo(HttpStatus.OK);
+    }
+
+    // Each client gets its own address so the per-IP login limit is not what refuses them
+    private ResponseEntity<String> login(String email, String password, String clientIp) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        headers.set("X-Forwarded-For", clientIp);
+        LoginDTO loginDTO = LoginDTO.builder()
+                .username(email)
+                .password(password)
+                .build();
+
+        return restTemplate.postForEntity(baseUrl + "/api/auth/login", new HttpEntity<>(loginDTO, headers), String.class);
+    }
+}
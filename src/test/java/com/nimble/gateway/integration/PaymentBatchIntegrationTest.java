@@ -0,0 +1,306 @@
+package com.nimble.gateway.integration;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nimble.gateway.application.dto.*;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.*;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "app.outbox.relay.enabled=false"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.ANY)
+@ActiveProfiles("test")
+@Import(TestConfig.class)
+@DisplayName("Batch Payments - Integration Tests")
+class PaymentBatchIntegrationTest {
+
+    // Same properties as PersistenceRoundTripIntegrationTest, so both share a context and database: keep CPFs apart
+    private static final AtomicInteger USER_SEQUENCE = new AtomicInteger(500_000);
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @LocalServerPort
+    private int port;
+
+    private String baseUrl;
+    private Statistics statistics;
+    private UserDTO originator;
+    private UserDTO recipient;
+    private String originatorToken;
+    private String recipientToken;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        baseUrl = "http://localhost:" + port;
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        // The context is shared across tests, so each test registers its own pair of users
+        originator = registerUser("João Silva", "senha123");
+        recipient = registerUser("Maria Santos", "senha456");
+        originatorToken = authenticateUser(originator.getEmail(), "senha123");
+        recipientToken = authenticateUser(recipient.getEmail(), "senha456");
+    }
+
+    @Test
+    @DisplayName("GIVEN pending charges WHEN paying them in one batch THEN should pay all, keep balances consistent and update summaries")
+    void givenPendingCharges_whenPayingBatch_thenShouldPayAllCharges() {
+        // Given
+        deposit("100.00");
+        List<UUID> chargeIds = List.of(createCharge("10.00").getId(), createCharge("20.00").getId(), createCharge("30.00").getId());
+
+        // When
+        ResponseEntity<BatchPaymentDTO> response = payBatch(chargeIds, "ALL_OR_NOTHING");
+
+        // Then
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+        BatchPaymentDTO batch = response.getBody();
+        assertThat(batch.getPaidCount()).isEqualTo(3);
+        assertThat(batch.getFailedCount()).isZero();
+        assertThat(batch.getPaidAmount()).isEqualByComparingTo("60.00");
+        assertThat(batch.getResults()).extracting(BatchPaymentResultDTO::getChargeId).containsExactlyElementsOf(chargeIds);
+        assertThat(batch.getResults()).allSatisfy(result -> {
+            assertThat(result.getStatus()).isEqualTo(BatchPaymentResultDTO.Status.PAID);
+            assertThat(result.getPaymentId()).isNotNull();
+        });
+        assertThat(chargeStatuses(chargeIds)).containsOnly("PAID");
+        // The payer is also the recipient, so the debit and the credit cancel out as with single pays
+        assertThat(balance()).isEqualByComparingTo("100.00");
+        ChargeTotalsDTO received = summary().getReceived();
+        assertThat(received.getPaidCount()).isEqualTo(3);
+        assertThat(received.getPaidAmount()).isEqualByComparingTo("60.00");
+        assertThat(received.getPendingCount()).isZero();
+    }
+
+    @Test
+    @DisplayName("GIVEN a batch with invalid charges WHEN paying all or nothing THEN should pay none and report every charge")
+    void givenInvalidCharges_whenPayingAllOrNothing_thenShouldPayNone() {
+        // Given
+        deposit("50.00");
+        UUID payable = createCharge("10.00").getId();
+        UUID tooExpensive = createCharge("80.00").getId();
+        UUID unknown = UUID.randomUUID();
+
+        // When
+        ResponseEntity<BatchPaymentDTO> response = payBatch(List.of(payable, tooExpensive, unknown, payable), "ALL_OR_NOTHING");
+
+        // Then
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.UNPROCESSABLE_ENTITY);
+        assertThat(response.getBody().getPaidCount()).isZero();
+        assertThat(response.getBody().getResults())
+                .extracting(BatchPaymentResultDTO::getStatus, BatchPaymentResultDTO::getReason)
+                .containsExactly(
+                        tuple(BatchPaymentResultDTO.Status.NOT_APPLIED, "Batch rejected"),
+                        tuple(BatchPaymentResultDTO.Status.FAILED, "Insufficient balance"),
+                        tuple(BatchPaymentResultDTO.Status.FAILED, "Charge not found"),
+                        tuple(BatchPaymentResultDTO.Status.FAILED, "Duplicate charge in batch"));
+        assertThat(chargeStatuses(List.of(payable, tooExpensive))).containsOnly("PENDING");
+    }
+
+    @Test
+    @DisplayName("GIVEN a batch with invalid charges WHEN paying best effort THEN should pay the valid ones only")
+    void givenInvalidCharges_whenPayingBestEffort_thenShouldPayValidOnes() throws Exception {
+        // Given
+        deposit("50.00");
+        UUID payable = createCharge("10.00").getId();
+        UUID alreadyPaid = createCharge("15.00").getId();
+        payBatch(List.of(alreadyPaid), "ALL_OR_NOTHING");
+        UserDTO otherRecipient = registerUser("Ana Souza", "senha789");
+        UUID otherRecipientsCharge = createCharge("5.00", otherRecipient).getId();
+
+        // When
+        ResponseEntity<BatchPaymentDTO> response = payBatch(List.of(payable, alreadyPaid, otherRecipientsCharge), "BEST_EFFORT");
+
+        // Then
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+        BatchPaymentDTO batch = response.getBody();
+        assertThat(batch.getPaidCount()).isEqualTo(1);
+        assertThat(batch.getFailedCount()).isEqualTo(2);
+        assertThat(batch.getResults())
+                .extracting(BatchPaymentResultDTO::getStatus, BatchPaymentResultDTO::getReason)
+                .containsExactly(
+                        tuple(BatchPaymentResultDTO.Status.PAID, null),
+                        tuple(BatchPaymentResultDTO.Status.FAILED, "Charge is not pending"),
+                        tuple(BatchPaymentResultDTO.Status.FAILED, "Only the recipient can pay this charge"));
+        assertThat(chargeStatuses(List.of(payable, otherRecipientsCharge))).containsExactly("PAID", "PENDING");
+    }
+
+    @Test
+    @DisplayName("GIVEN an empty batch WHEN paying THEN should return bad request")
+    void givenEmptyBatch_whenPaying_thenShouldReturnBadRequest() {
+        ResponseEntity<String> response = restTemplate.exchange(
+                baseUrl + "/api/payments/pay-batch?payerId=" + recipient.getId(), HttpMethod.POST,
+                createAuthenticatedRequest(PayBatchDTO.builder().chargeIds(List.of()).build(), recipientToken),
+                String.class);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+    }
+
+    @Test
+    @DisplayName("GIVEN twenty pending charges WHEN paying them in one batch THEN should need far fewer statements and less time than twenty single pays")
+    void givenManyPendingCharges_whenComparingSinglePaysWithBatch_thenBatchShouldBeCheaper() {
+        // Given
+        int size = 20;
+        deposit("1000.00");
+        // Warm up both paths so class loading and statement caches do not skew the first measurement
+        pay(createCharge("1.00").getId());
+        payBatch(List.of(createCharge("1.00").getId()), "ALL_OR_NOTHING");
+        List<UUID> singles = createCharges(size);
+        List<UUID> batched = createCharges(size);
+
+        // When
+        statistics.clear();
+        long singleStart = System.nanoTime();
+        singles.forEach(this::pay);
+        long singleNanos = System.nanoTime() - singleStart;
+        long singleStatements = statistics.getPrepareStatementCount();
+
+        statistics.clear();
+        long batchStart = System.nanoTime();
+        ResponseEntity<BatchPaymentDTO> response = payBatch(batched, "ALL_OR_NOTHING");
+        long batchNanos = System.nanoTime() - batchStart;
+        long batchStatements = statistics.getPrepareStatementCount();
+
+        // Then
+        assertThat(response.getBody().getPaidCount()).isEqualTo(size);
+        assertThat(chargeStatuses(batched)).containsOnly("PAID");
+        assertThat(batchStatements).isLessThan(singleStatements / 2);
+        assertThat(statistics.getFlushCount()).isEqualTo(1);
+        // Generous bound: twenty requests with their own transactions against one
+        assertThat(batchNanos).isLessThan(singleNanos);
+    }
+
+    private List<UUID> createCharges(int count) {
+        List<UUID> ids = new ArrayList<>();
+        for (int i = 0; i < count; i++) ids.add(createCharge("1.00").getId());
+        return ids;
+    }
+
+    private ChargeDTO createCharge(String amount) {
+        return createCharge(amount, recipient);
+    }
+
+    private ChargeDTO createCharge(String amount, UserDTO chargeRecipient) {
+        ResponseEntity<ChargeDTO> response = restTemplate.exchange(
+                baseUrl + "/api/charges?originatorId=" + originator.getId(), HttpMethod.POST,
+                createAuthenticatedRequest(CreateChargeDTO.builder()
+                        .recipientCpf(chargeRecipient.getCpf())
+                        .amount(new BigDecimal(amount))
+                        .build(), originatorToken),
+                ChargeDTO.class);
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+        return response.getBody();
+    }
+
+    private void deposit(String amount) {
+        ResponseEntity<String> response = restTemplate.exchange(
+                baseUrl + "/api/payments/deposit?userId=" + recipient.getId(), HttpMethod.POST,
+                createAuthenticatedRequest(DepositDTO.builder().amount(new BigDecimal(amount)).build(), recipientToken),
+                String.class);
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+    }
+
+    private void pay(UUID chargeId) {
+        ResponseEntity<String> response = restTemplate.exchange(
+                baseUrl + "/api/payments/pay?payerId=" + recipient.getId(), HttpMethod.POST,
+                createAuthenticatedRequest(PayChargeDTO.builder().chargeId(chargeId).method("BALANCE").build(), recipientToken),
+                String.class);
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+    }
+
+    private ResponseEntity<BatchPaymentDTO> payBatch(List<UUID> chargeIds, String mode) {
+        return restTemplate.exchange(
+                baseUrl + "/api/payments/pay-batch?payerId=" + recipient.getId(), HttpMethod.POST,
+                createAuthenticatedRequest(PayBatchDTO.builder().chargeIds(chargeIds).mode(mode).build(), recipientToken),
+                BatchPaymentDTO.class);
+    }
+
+    private List<String> chargeStatuses(List<UUID> chargeIds) {
+        List<String> statuses = new ArrayList<>();
+        for (UUID chargeId : chargeIds) {
+            ResponseEntity<ChargeDTO> response = restTemplate.exchange(
+                    baseUrl + "/api/charges/" + chargeId + "?userId=" + originator.getId(), HttpMethod.GET,
+                    createAuthenticatedRequest(null, originatorToken), ChargeDTO.class);
+            assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+            statuses.add(response.getBody().getStatus());
+        }
+        return statuses;
+    }
+
+    private BigDecimal balance() {
+        ResponseEntity<UserDTO> response = restTemplate.exchange(
+                baseUrl + "/api/auth/me", HttpMethod.GET,
+                createAuthenticatedRequest(null, recipientToken), UserDTO.class);
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        return response.getBody().getBalance();
+    }
+
+    private UserSummaryDTO summary() {
+        ResponseEntity<UserSummaryDTO> response = restTemplate.exchange(
+                baseUrl + "/api/users/" + recipient.getId() + "/summary", HttpMethod.GET,
+                createAuthenticatedRequest(null, recipientToken), UserSummaryDTO.class);
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        return response.getBody();
+    }
+
+    private UserDTO registerUser(String name, String password) throws Exception {
+        int sequence = USER_SEQUENCE.incrementAndGet();
+        CreateUserDTO createUserDTO = CreateUserDTO.builder()
+                .name(name)
+                .cpf(String.format("%011d", sequence))
+                .email("user" + sequence + "@teste.com")
+                .password(password)
+                .build();
+
+        ResponseEntity<String> response = restTemplate.postForEntity(baseUrl + "/api/auth/register", createUserDTO, String.class);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+        return objectMapper.readValue(response.getBody(), UserDTO.class);
+    }
+
+    private String authenticateUser(String email, String password) throws Exception {
+        LoginDTO loginDTO = LoginDTO.builder()
+                .username(email)
+                .password(password)
+                .build();
+
+        ResponseEntity<String> response = restTemplate.postForEntity(baseUrl + "/api/auth/login", loginDTO, String.class);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        return objectMapper.readValue(response.getBody(), AuthResponseDTO.class).getToken();
+    }
+
+    private <T> HttpEntity<T> createAuthenticatedRequest(T body, String token) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        headers.setBearerAuth(token);
+        return new HttpEntity<>(body, headers);
+    }
+}
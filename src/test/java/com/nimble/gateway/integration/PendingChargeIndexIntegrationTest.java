@@ -0,0 +1,185 @@
+package com.nimble.gateway.integration;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nimble.gateway.application.dto.*;
+import com.nimble.gateway.domain.repository.ChargeRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.*;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "app.outbox.relay.enabled=false"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.ANY)
+@ActiveProfiles("test")
+@Import(TestConfig.class)
+@DisplayName("Pending Charge Index - Integration Tests")
+class PendingChargeIndexIntegrationTest {
+
+    private static final AtomicInteger USER_SEQUENCE = new AtomicInteger(1_200_000);
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private ChargeRepository chargeRepository;
+
+    @LocalServerPort
+    private int port;
+
+    private String baseUrl;
+    private Statistics statistics;
+    private UserDTO originator;
+    private UserDTO recipient;
+    private String originatorToken;
+    private String recipientToken;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        baseUrl = "http://localhost:" + port;
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        originator = registerUser("João Silva", "senha123");
+        recipient = registerUser("Maria Santos", "senha456");
+        originatorToken = authenticateUser(originator.getEmail(), "senha123");
+        recipientToken = authenticateUser(recipient.getEmail(), "senha456");
+    }
+
+    @Test
+    @DisplayName("GIVEN a paid charge WHEN paying it again or by someone else THEN should refuse without loading the charge")
+    void givenPaidCharge_whenPayingAgain_thenShouldRefuseWithoutLoadingCharge() {
+        // Given
+        deposit("50.00");
+        UUID chargeId = createCharge("10.00");
+        UUID otherChargeId = createCharge("10.00");
+        assertThat(pay(chargeId, recipient, recipientToken).getStatusCode()).isEqualTo(HttpStatus.CREATED);
+        assertThat(chargeRepository.findById(chargeId)).get().extracting(charge -> charge.getVersion()).isEqualTo(1L);
+        double notPending = lookups("not_pending");
+        double notRecipient = lookups("not_recipient");
+        statistics.clear();
+
+        // When
+        ResponseEntity<String> repeated = pay(chargeId, recipient, recipientToken);
+        ResponseEntity<String> stranger = pay(otherChargeId, originator, originatorToken);
+
+        // Then
+        assertThat(repeated.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+        assertThat(repeated.getBody()).contains("Charge is not pending");
+        assertThat(stranger.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+        assertThat(stranger.getBody()).contains("Only the recipient can pay this charge");
+        assertThat(statistics.getEntityStatistics("com.nimble.gateway.domain.entity.Charge").getLoadCount()).isZero();
+        assertThat(lookups("not_pending")).isEqualTo(notPending + 1);
+        assertThat(lookups("not_recipient")).isEqualTo(notRecipient + 1);
+    }
+
+    @Test
+    @DisplayName("GIVEN a pending charge in the index WHEN its recipient pays THEN the database should still decide")
+    void givenIndexedPendingCharge_whenPaying_thenShouldPayThroughDatabase() {
+        // Given
+        deposit("50.00");
+        UUID chargeId = createCharge("10.00");
+        double pending = lookups("pending");
+
+        // When
+        ResponseEntity<String> response = pay(chargeId, recipient, recipientToken);
+
+        // Then
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+        assertThat(lookups("pending")).isEqualTo(pending + 1);
+    }
+
+    private double lookups(String verdict) {
+        return meterRegistry.get("charge.pending.index.lookups").tag("verdict", verdict).counter().count();
+    }
+
+    private UUID createCharge(String amount) {
+        ResponseEntity<ChargeDTO> response = restTemplate.exchange(
+                baseUrl + "/api/charges?originatorId=" + originator.getId(), HttpMethod.POST,
+                createAuthenticatedRequest(CreateChargeDTO.builder()
+                        .recipientCpf(recipient.getCpf())
+                        .amount(new BigDecimal(amount))
+                        .build(), originatorToken),
+                ChargeDTO.class);
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+        return response.getBody().getId();
+    }
+
+    private void deposit(String amount) {
+        ResponseEntity<String> response = restTemplate.exchange(
+                baseUrl + "/api/payments/deposit?userId=" + recipient.getId(), HttpMethod.POST,
+                createAuthenticatedRequest(DepositDTO.builder().amount(new BigDecimal(amount)).build(), recipientToken),
+                String.class);
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+    }
+
+    private ResponseEntity<String> pay(UUID chargeId, UserDTO payer, String token) {
+        return restTemplate.exchange(
+                baseUrl + "/api/payments/pay?payerId=" + payer.getId(), HttpMethod.POST,
+                createAuthenticatedRequest(PayChargeDTO.builder().chargeId(chargeId).method("BALANCE").build(), token),
+                String.class);
+    }
+
+    private UserDTO registerUser(String name, String password) throws Exception {
+        int sequence = USER_SEQUENCE.incrementAndGet();
+        CreateUserDTO createUserDTO = CreateUserDTO.builder()
+                .name(name)
+                .cpf(String.format("%011d", sequence))
+                .email("user" + sequence + "@teste.com")
+                .password(password)
+                .build();
+
+        ResponseEntity<String> response = restTemplate.postForEntity(baseUrl + "/api/auth/register", createUserDTO, String.class);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+        return objectMapper.readValue(response.getBody(), UserDTO.class);
+    }
+
+    private String authenticateUser(String email, String password) throws Exception {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        headers.set("X-Forwarded-For", "10.3.0." + USER_SEQUENCE.get() % 250);
+        LoginDTO loginDTO = LoginDTO.builder()
+                .username(email)
+                .password(password)
+                .build();
+
+        ResponseEntity<String> response = restTemplate.postForEntity(baseUrl + "/api/auth/login", new HttpEntity<>(loginDTO, headers), String.class);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        return objectMapper.readValue(response.getBody(), AuthResponseDTO.class).getToken();
+    }
+
+    private <T> HttpEntity<T> createAuthenticatedRequest(T body, String token) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        headers.setBearerAuth(token);
+        return new HttpEntity<>(body, headers);
+    }
+}
@@ -0,0 +1,214 @@
+package com.nimble.gateway.integration;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nimble.gateway.application.dto.*;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.*;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "app.outbox.relay.enabled=false"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.ANY)
+@ActiveProfiles("test")
+@Import(TestConfig.class)
+@DisplayName("Persistence Round Trips - Integration Tests")
+class PersistenceRoundTripIntegrationTest {
+
+    private static final AtomicInteger USER_SEQUENCE = new AtomicInteger();
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @LocalServerPort
+    private int port;
+
+    private String baseUrl;
+    private Statistics statistics;
+    private UserDTO originator;
+    private UserDTO recipient;
+    private String originatorToken;
+    private String recipientToken;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        baseUrl = "http://localhost:" + port;
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        // The context is shared across tests, so each test registers its own pair of users
+        originator = registerUser("João Silva", "senha123");
+        recipient = registerUser("Maria Santos", "senha456");
+        originatorToken = authenticateUser(originator.getEmail(), "senha123");
+        recipientToken = authenticateUser(recipient.getEmail(), "senha456");
+    }
+
+    @Test
+    @DisplayName("GIVEN two users WHEN creating a charge THEN should insert charge and outbox row in a single flush and bump both summaries without loading users")
+    void givenTwoUsers_whenCreatingCharge_thenShouldInsertInSingleFlush() {
+        // The first charge of the day creates both parties' summary rows
+        createCharge();
+
+        RoundTrips roundTrips = measure(this::createCharge);
+
+        assertThat(roundTrips.statements()).isLessThanOrEqualTo(4);
+        assertThat(roundTrips.loads()).isZero();
+        assertThat(roundTrips.flushes()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("GIVEN a user WHEN depositing THEN should update balance and insert payment in a single flush")
+    void givenUser_whenDepositing_thenShouldWriteInSingleFlush() {
+        RoundTrips roundTrips = measure(() -> deposit("200.00"));
+
+        assertThat(roundTrips.statements()).isLessThanOrEqualTo(3);
+        assertThat(roundTrips.updates()).isEqualTo(1);
+        assertThat(roundTrips.inserts()).isEqualTo(1);
+        assertThat(roundTrips.flushes()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("GIVEN a pending charge WHEN paying with balance THEN should flush user, charge, payment and outbox writes together")
+    void givenPendingCharge_whenPayingWithBalance_thenShouldFlushWritesTogether() {
+        ChargeDTO charge = createCharge();
+        deposit("200.00");
+
+        RoundTrips roundTrips = measure(() -> pay(charge, "BALANCE"));
+
+        assertThat(roundTrips.statements()).isLessThanOrEqualTo(8);
+        assertThat(roundTrips.updates()).isEqualTo(2);
+        assertThat(roundTrips.inserts()).isEqualTo(2);
+        assertThat(roundTrips.flushes()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("GIVEN a pending charge WHEN paying with credit card THEN should flush recipient, charge, payment and outbox writes together")
+    void givenPendingCharge_whenPayingWithCreditCard_thenShouldFlushWritesTogether() {
+        ChargeDTO charge = createCharge();
+
+        RoundTrips roundTrips = measure(() -> pay(charge, "CREDIT_CARD"));
+
+        assertThat(roundTrips.statements()).isLessThanOrEqualTo(8);
+        assertThat(roundTrips.updates()).isEqualTo(2);
+        assertThat(roundTrips.inserts()).isEqualTo(2);
+        assertThat(roundTrips.flushes()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("GIVEN a charge paid with balance WHEN cancelling THEN should flush refund and cancellation together")
+    void givenChargePaidWithBalance_whenCancelling_thenShouldFlushRefundAndCancellationTogether() {
+        ChargeDTO charge = createCharge();
+        deposit("200.00");
+        pay(charge, "BALANCE");
+
+        RoundTrips roundTrips = measure(() -> cancel(charge));
+
+        assertThat(roundTrips.statements()).isLessThanOrEqualTo(8);
+        assertThat(roundTrips.updates()).isEqualTo(2);
+        assertThat(roundTrips.inserts()).isEqualTo(1);
+        assertThat(roundTrips.flushes()).isEqualTo(1);
+    }
+
+    private record RoundTrips(long statements, long inserts, long updates, long loads, long flushes) {
+    }
+
+    private RoundTrips measure(Runnable action) {
+        statistics.clear();
+        action.run();
+        return new RoundTrips(statistics.getPrepareStatementCount(), statistics.getEntityInsertCount(),
+                statistics.getEntityUpdateCount(), statistics.getEntityLoadCount(), statistics.getFlushCount());
+    }
+
+    private ChargeDTO createCharge() {
+        ResponseEntity<ChargeDTO> response = restTemplate.exchange(
+                baseUrl + "/api/charges?originatorId=" + originator.getId(), HttpMethod.POST,
+                createAuthenticatedRequest(CreateChargeDTO.builder()
+                        .recipientCpf(recipient.getCpf())
+                        .amount(new BigDecimal("100.00"))
+                        .build(), originatorToken),
+                ChargeDTO.class);
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+        return response.getBody();
+    }
+
+    private void deposit(String amount) {
+        ResponseEntity<String> response = restTemplate.exchange(
+                baseUrl + "/api/payments/deposit?userId=" + recipient.getId(), HttpMethod.POST,
+                createAuthenticatedRequest(DepositDTO.builder().amount(new BigDecimal(amount)).build(), recipientToken),
+                String.class);
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+    }
+
+    private void pay(ChargeDTO charge, String method) {
+        PayChargeDTO.PayChargeDTOBuilder payment = PayChargeDTO.builder().chargeId(charge.getId()).method(method);
+        if ("CREDIT_CARD".equals(method)) payment.cardNumber("4111111111111111").expiryDate("12/30").cvv("123");
+        ResponseEntity<String> response = restTemplate.exchange(
+                baseUrl + "/api/payments/pay?payerId=" + recipient.getId(), HttpMethod.POST,
+                createAuthenticatedRequest(payment.build(), recipientToken),
+                String.class);
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+    }
+
+    private void cancel(ChargeDTO charge) {
+        ResponseEntity<String> response = restTemplate.exchange(
+                baseUrl + "/api/payments/cancel/" + charge.getId() + "?userId=" + originator.getId(), HttpMethod.POST,
+                createAuthenticatedRequest(null, originatorToken),
+                String.class);
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+    }
+
+    private UserDTO registerUser(String name, String password) throws Exception {
+        int sequence = USER_SEQUENCE.incrementAndGet();
+        CreateUserDTO createUserDTO = CreateUserDTO.builder()
+                .name(name)
+                .cpf(String.format("%011d", sequence))
+                .email("user" + sequence + "@teste.com")
+                .password(password)
+                .build();
+
+        ResponseEntity<String> response = restTemplate.postForEntity(baseUrl + "/api/auth/register", createUserDTO, String.class);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+        return objectMapper.readValue(response.getBody(), UserDTO.class);
+    }
+
+    private String authenticateUser(String email, String password) throws Exception {
+        LoginDTO loginDTO = LoginDTO.builder()
+                .username(email)
+                .password(password)
+                .build();
+
+        ResponseEntity<String> response = restTemplate.postForEntity(baseUrl + "/api/auth/login", loginDTO, String.class);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        return objectMapper.readValue(response.getBody(), AuthResponseDTO.class).getToken();
+    }
+
+    private <T> HttpEntity<T> createAuthenticatedRequest(T body, String token) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        headers.setBearerAuth(token);
+        return new HttpEntity<>(body, headers);
+    }
+}
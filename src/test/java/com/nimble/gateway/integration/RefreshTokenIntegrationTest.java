@@ -0,0 +1,159 @@
+package com.nimble.gateway.integration;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nimble.gateway.application.dto.*;
+import com.nimble.gateway.domain.repository.RevokedRefreshTokenRepository;
+import com.nimble.gateway.infrastructure.security.JwtTokenProvider;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.*;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "app.outbox.relay.enabled=false"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.ANY)
+@ActiveProfiles("test")
+@Import(TestConfig.class)
+@DisplayName("Refresh Token - Integration Tests")
+class RefreshTokenIntegrationTest {
+
+    private static final AtomicInteger USER_SEQUENCE = new AtomicInteger(1_000_000);
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private JwtTokenProvider jwtTokenProvider;
+
+    @Autowired
+    private RevokedRefreshTokenRepository revokedRefreshTokenRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @LocalServerPort
+    private int port;
+
+    private String baseUrl;
+    private UserDTO user;
+    private AuthResponseDTO login;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        baseUrl = "http://localhost:" + port;
+        int sequence = USER_SEQUENCE.incrementAndGet();
+        CreateUserDTO createUserDTO = CreateUserDTO.builder()
+                .name("João Silva")
+                .cpf(String.format("%011d", sequence))
+                .email("user" + sequence + "@teste.com")
+                .password("senha123")
+                .build();
+        ResponseEntity<String> registered = restTemplate.postForEntity(baseUrl + "/api/auth/register", createUserDTO, String.class);
+        assertThat(registered.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+        user = objectMapper.readValue(registered.getBody(), UserDTO.class);
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        headers.set("X-Forwarded-For", "10.1.0." + sequence % 250);
+        LoginDTO loginDTO = LoginDTO.builder()
+                .username(user.getEmail())
+                .password("senha123")
+                .build();
+        ResponseEntity<String> response = restTemplate.postForEntity(baseUrl + "/api/auth/login", new HttpEntity<>(loginDTO, headers), String.class);
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        login = objectMapper.readValue(response.getBody(), AuthResponseDTO.class);
+    }
+
+    @Test
+    @DisplayName("GIVEN a refresh token from login WHEN refreshing THEN should return a working access token and a new refresh token")
+    void givenRefreshTokenFromLogin_whenRefreshing_thenShouldReturnWorkingTokens() throws Exception {
+        // When
+        ResponseEntity<String> response = refresh(login.getRefreshToken());
+
+        // Then
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        AuthResponseDTO refreshed = objectMapper.readValue(response.getBody(), AuthResponseDTO.class);
+        assertThat(refreshed.getType()).isEqualTo("Bearer");
+        assertThat(refreshed.getRefreshToken()).isNotEqualTo(login.getRefreshToken());
+
+        ResponseEntity<String> me = me(refreshed.getToken());
+        assertThat(me.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(objectMapper.readValue(me.getBody(), UserDTO.class).getId()).isEqualTo(user.getId());
+
+        assertThat(refresh(refreshed.getRefreshToken()).getStatusCode()).isEqualTo(HttpStatus.OK);
+    }
+
+    @Test
+    @DisplayName("GIVEN a refresh token used twice WHEN refreshing THEN should reject the replay and every token of its family")
+    void givenReplayedRefreshToken_whenRefreshing_thenShouldRevokeFamily() throws Exception {
+        // Given
+        AuthResponseDTO rotated = objectMapper.readValue(refresh(login.getRefreshToken()).getBody(), AuthResponseDTO.class);
+
+        // When
+        ResponseEntity<String> replay = refresh(login.getRefreshToken());
+
+        // Then
+        assertThat(replay.getStatusCode()).isEqualTo(HttpStatus.UNAUTHORIZED);
+        assertThat(refresh(rotated.getRefreshToken()).getStatusCode()).isEqualTo(HttpStatus.UNAUTHORIZED);
+    }
+
+    @Test
+    @DisplayName("GIVEN a revoked family WHEN the replayed token's expiry is purged THEN should still reject a younger token of the family")
+    void givenRevokedFamily_whenReplayedTokenPurged_thenShouldRejectYoungerToken() throws Exception {
+        // Given: the rotated token is issued a second later, so it expires a second after the login's
+        Thread.sleep(1_100);
+        AuthResponseDTO rotated = objectMapper.readValue(refresh(login.getRefreshToken()).getBody(), AuthResponseDTO.class);
+        assertThat(refresh(login.getRefreshToken()).getStatusCode()).isEqualTo(HttpStatus.UNAUTHORIZED);
+
+        // When: the periodic purge runs once the replayed token has expired and the rotated one has not
+        Instant replayedExpiry = jwtTokenProvider.parseRefreshToken(login.getRefreshToken()).expiresAt();
+        assertThat(jwtTokenProvider.parseRefreshToken(rotated.getRefreshToken()).expiresAt()).isAfter(replayedExpiry.plusMillis(500));
+        transactionTemplate.executeWithoutResult(status -> revokedRefreshTokenRepository.deleteExpiredBefore(
+                LocalDateTime.ofInstant(replayedExpiry.plusMillis(500), ZoneId.systemDefault())));
+
+        // Then
+        assertThat(refresh(rotated.getRefreshToken()).getStatusCode()).isEqualTo(HttpStatus.UNAUTHORIZED);
+    }
+
+    @Test
+    @DisplayName("GIVEN tokens of the wrong kind WHEN swapping them THEN should reject a refresh token as bearer and an access token as refresh")
+    void givenTokensOfWrongKind_whenSwapped_thenShouldReject() {
+        // When & Then
+        assertThat(me(login.getRefreshToken()).getStatusCode()).isEqualTo(HttpStatus.UNAUTHORIZED);
+        assertThat(refresh(login.getToken()).getStatusCode()).isEqualTo(HttpStatus.UNAUTHORIZED);
+        assertThat(refresh("not-a-token").getStatusCode()).isEqualTo(HttpStatus.UNAUTHORIZED);
+    }
+
+    private ResponseEntity<String> refresh(String refreshToken) {
+        RefreshTokenDTO refreshTokenDTO = RefreshTokenDTO.builder()
+                .refreshToken(refreshToken)
+                .build();
+
+        return restTemplate.postForEntity(baseUrl + "/api/auth/refresh", refreshTokenDTO, String.class);
+    }
+
+    private ResponseEntity<String> me(String token) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setBearerAuth(token);
+        return restTemplate.exchange(baseUrl + "/api/auth/me", HttpMethod.GET, new HttpEntity<>(headers), String.class);
+    }
+}
@@ -0,0 +1,270 @@
+package com.nimble.gateway.integration;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nimble.gateway.application.dto.*;
+import com.nimble.gateway.infrastructure.persistence.ReadYourWritesFilter;
+import com.nimble.gateway.infrastructure.persistence.ReplicaLagMonitor;
+import com.nimble.gateway.infrastructure.persistence.ReplicaLagProbe;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.context.annotation.Primary;
+import org.springframework.http.*;
+import org.springframework.test.context.ActiveProfiles;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Two replica pools over the primary's database stand in for replica servers; lag comes from a stub probe
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "app.outbox.relay.enabled=false",
+        "spring.datasource.url=jdbc:h2:mem:replicas;DB_CLOSE_DELAY=-1",
+        "app.datasource.replicas[0].name=a",
+        "app.datasource.replicas[0].url=jdbc:h2:mem:replicas;DB_CLOSE_DELAY=-1",
+        "app.datasource.replicas[1].name=b",
+        "app.datasource.replicas[1].url=jdbc:h2:mem:replicas;DB_CLOSE_DELAY=-1",
+        "app.datasource.replica-lag.max-lag-ms=1000",
+        "app.datasource.replica-lag.check-interval-ms=3600000"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+@Import({TestConfig.class, ReplicaRoutingIntegrationTest.ReplicaLagConfig.class})
+@DisplayName("Replica Routing - Integration Tests")
+class ReplicaRoutingIntegrationTest {
+
+    private static final String REPLICA_A = "read-pool-a";
+    private static final String REPLICA_B = "read-pool-b";
+    private static final int READS = 20;
+    private static final AtomicInteger USER_SEQUENCE = new AtomicInteger();
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private StubReplicaLagProbe replicaLagProbe;
+
+    @Autowired
+    private ReplicaLagMonitor replicaLagMonitor;
+
+    @LocalServerPort
+    private int port;
+
+    private String baseUrl;
+    private UserDTO originator;
+    private String token;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        baseUrl = "http://localhost:" + port;
+        replicaLagProbe.lags.clear();
+        replicaLagMonitor.check();
+
+        originator = registerUser("João Silva", "senha123");
+        UserDTO recipient = registerUser("Maria Santos", "senha456");
+        token = authenticateUser(originator.getEmail(), "senha123");
+        createCharge(recipient.getCpf());
+    }
+
+    @Test
+    @DisplayName("GIVEN healthy replicas WHEN reading charges THEN should spread reads across replicas and keep them off the primary")
+    void givenHealthyReplicas_whenReadingCharges_thenShouldSpreadReadsAcrossReplicas() {
+        // Given
+        long replicaA = acquisitions(REPLICA_A);
+        long replicaB = acquisitions(REPLICA_B);
+        long primary = acquisitions("write-pool");
+
+        // When
+        readSentCharges(READS, null);
+
+        // Then
+        assertThat(acquisitions(REPLICA_A) - replicaA).isPositive();
+        assertThat(acquisitions(REPLICA_B) - replicaB).isPositive();
+        assertThat(acquisitions(REPLICA_A) - replicaA + acquisitions(REPLICA_B) - replicaB).isGreaterThanOrEqualTo(READS);
+        assertThat(acquisitions("write-pool") - primary).isZero();
+    }
+
+    @Test
+    @DisplayName("GIVEN one replica lagging beyond the threshold WHEN reading charges THEN should route reads to the other replica")
+    void givenLaggingReplica_whenReadingCharges_thenShouldSkipLaggingReplica() throws Exception {
+        // Given
+        replicaLagProbe.lags.put(REPLICA_A, Duration.ofSeconds(5));
+        replicaLagMonitor.check();
+        long replicaA = acquisitions(REPLICA_A);
+        long replicaB = acquisitions(REPLICA_B);
+
+        // When
+        readSentCharges(READS, null);
+
+        // Then
+        assertThat(acquisitions(REPLICA_A) - replicaA).isZero();
+        assertThat(acquisitions(REPLICA_B) - replicaB).isGreaterThanOrEqualTo(READS);
+
+        JsonNode pools = objectMapper.readTree(
+                restTemplate.getForEntity(baseUrl + "/api/health/db-pool", String.class).getBody()).get("pools");
+        assertThat(pools.get(REPLICA_A).get("replicaLagMs").asLong()).isEqualTo(5000);
+        assertThat(pools.get(REPLICA_A).get("eligible").asBoolean()).isFalse();
+        assertThat(pools.get(REPLICA_B).get("eligible").asBoolean()).isTrue();
+    }
+
+    @Test
+    @DisplayName("GIVEN every replica lagging WHEN reading charges THEN should fall back to the primary")
+    void givenAllReplicasLagging_whenReadingCharges_thenShouldFallBackToPrimary() {
+        // Given
+        replicaLagProbe.lags.put(REPLICA_A, Duration.ofSeconds(5));
+        replicaLagProbe.lags.put(REPLICA_B, Duration.ofSeconds(30));
+        replicaLagMonitor.check();
+        long replicas = acquisitions(REPLICA_A) + acquisitions(REPLICA_B);
+        long primary = acquisitions("write-pool");
+        double fallbacks = fallbacks("replication-lag");
+
+        // When
+        readSentCharges(READS, null);
+
+        // Then
+        assertThat(acquisitions(REPLICA_A) + acquisitions(REPLICA_B) - replicas).isZero();
+        assertThat(acquisitions("write-pool") - primary).isGreaterThanOrEqualTo(READS);
+        assertThat(fallbacks("replication-lag") - fallbacks).isGreaterThanOrEqualTo(READS);
+    }
+
+    @Test
+    @DisplayName("GIVEN a caller that just wrote WHEN reading with its consistency token THEN should read from the primary")
+    void givenRecentWrite_whenReadingWithConsistencyToken_thenShouldReadFromPrimary() throws Exception {
+        // Given
+        UserDTO recipient = registerUser("Pedro Costa", "senha789");
+        String consistencyToken = createCharge(recipient.getCpf());
+        long replicas = acquisitions(REPLICA_A) + acquisitions(REPLICA_B);
+        long primary = acquisitions("write-pool");
+        double fallbacks = fallbacks("read-your-writes");
+
+        // When
+        ResponseEntity<String> response = readSentCharges(1, consistencyToken);
+
+        // Then
+        assertThat(consistencyToken).isNotNull();
+        assertThat(objectMapper.readTree(response.getBody())).hasSize(2);
+        assertThat(acquisitions(REPLICA_A) + acquisitions(REPLICA_B) - replicas).isZero();
+        assertThat(acquisitions("write-pool") - primary).isPositive();
+        assertThat(fallbacks("read-your-writes") - fallbacks).isPositive();
+
+        // And without the token the same read goes back to the replicas
+        readSentCharges(1, null);
+        assertThat(acquisitions(REPLICA_A) + acquisitions(REPLICA_B) - replicas).isPositive();
+    }
+
+    private ResponseEntity<String> readSentCharges(int times, String consistencyToken) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setBearerAuth(token);
+        if (consistencyToken != null) headers.set(ReadYourWritesFilter.CONSISTENCY_TOKEN_HEADER, consistencyToken);
+
+        ResponseEntity<String> response = null;
+        for (int i = 0; i < times; i++) {
+            response = restTemplate.exchange(baseUrl + "/api/charges/sent?userId=" + originator.getId(),
+                    HttpMethod.GET, new HttpEntity<>(headers), String.class);
+            assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        }
+        return response;
+    }
+
+    private String createCharge(String recipientCpf) {
+        CreateChargeDTO createChargeDTO = CreateChargeDTO.builder()
+                .recipientCpf(recipientCpf)
+                .amount(new BigDecimal("10.00"))
+                .build();
+
+        ResponseEntity<String> response = restTemplate.exchange(baseUrl + "/api/charges?originatorId=" + originator.getId(),
+                HttpMethod.POST, createAuthenticatedRequest(createChargeDTO, token), String.class);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+        return response.getHeaders().getFirst(ReadYourWritesFilter.CONSISTENCY_TOKEN_HEADER);
+    }
+
+    private long acquisitions(String pool) {
+        // Pool meters are registered when the pool hands out its first connection
+        Timer timer = meterRegistry.find("hikaricp.connections.acquire").tag("pool", pool).timer();
+        return timer != null ? timer.count() : 0;
+    }
+
+    private double fallbacks(String reason) {
+        Counter counter = meterRegistry.find("datasource.read.fallbacks").tag("reason", reason).counter();
+        return counter != null ? counter.count() : 0;
+    }
+
+    private UserDTO registerUser(String name, String password) throws Exception {
+        int sequence = USER_SEQUENCE.incrementAndGet();
+        CreateUserDTO createUserDTO = CreateUserDTO.builder()
+                .name(name)
+                .cpf(String.format("%011d", sequence))
+                .email("user" + sequence + "@teste.com")
+                .password(password)
+                .build();
+
+        ResponseEntity<String> response = restTemplate.postForEntity(baseUrl + "/api/auth/register", createUserDTO, String.class);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+        return objectMapper.readValue(response.getBody(), UserDTO.class);
+    }
+
+    private String authenticateUser(String email, String password) throws Exception {
+        LoginDTO loginDTO = LoginDTO.builder()
+                .username(email)
+                .password(password)
+                .build();
+
+        ResponseEntity<String> response = restTemplate.postForEntity(baseUrl + "/api/auth/login", loginDTO, String.class);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        return objectMapper.readValue(response.getBody(), AuthResponseDTO.class).getToken();
+    }
+
+    private <T> HttpEntity<T> createAuthenticatedRequest(T body, String token) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        headers.setBearerAuth(token);
+        return new HttpEntity<>(body, headers);
+    }
+
+    @TestConfiguration
+    static class ReplicaLagConfig {
+
+        @Bean
+        @Primary
+        StubReplicaLagProbe stubReplicaLagProbe() {
+            return new StubReplicaLagProbe();
+        }
+    }
+
+    static class StubReplicaLagProbe implements ReplicaLagProbe {
+
+        final Map<String, Duration> lags = new ConcurrentHashMap<>();
+
+        @Override
+        public Optional<Duration> lag(String replica, DataSource dataSource) {
+            return Optional.of(lags.getOrDefault(replica, Duration.ZERO));
+        }
+    }
+}
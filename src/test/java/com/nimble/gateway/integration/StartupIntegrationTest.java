@@ -0,0 +1,61 @@
+package com.nimble.gateway.integration;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Its own context (the properties differ from the other integration tests), so no earlier test has touched the beans
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "app.outbox.relay.enabled=false",
+        "app.startup.lazy-non-critical=true"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.ANY)
+@ActiveProfiles("test")
+@Import(TestConfig.class)
+@DisplayName("Startup - Integration Tests")
+class StartupIntegrationTest {
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private ConfigurableListableBeanFactory beanFactory;
+
+    @LocalServerPort
+    private int port;
+
+    @Test
+    @DisplayName("GIVEN a started application WHEN the docs and health checks are first requested THEN should create their beans only then")
+    void givenStartedApplication_whenDocsAndHealthRequested_thenShouldCreateBeansOnlyThen() {
+        // Given
+        assertThat(beanFactory.getBeanDefinition("healthController").isLazyInit()).isTrue();
+        assertThat(beanFactory.getBeanDefinition("customOpenAPI").isLazyInit()).isTrue();
+        assertThat(beanFactory.containsSingleton("healthController")).isFalse();
+        assertThat(beanFactory.containsSingleton("databasePoolMonitor")).isFalse();
+        assertThat(beanFactory.containsSingleton("customOpenAPI")).isFalse();
+        // Beans on the request path are still created at startup
+        assertThat(beanFactory.containsSingleton("paymentController")).isTrue();
+
+        // When
+        ResponseEntity<String> docs = restTemplate.getForEntity("http://localhost:" + port + "/v3/api-docs", String.class);
+        ResponseEntity<String> pool = restTemplate.getForEntity("http://localhost:" + port + "/api/health/db-pool", String.class);
+
+        // Then
+        assertThat(docs.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(docs.getBody()).contains("Nimble Gateway API");
+        assertThat(pool.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(beanFactory.containsSingleton("healthController")).isTrue();
+        assertThat(beanFactory.containsSingleton("customOpenAPI")).isTrue();
+    }
+}
@@ -0,0 +1,254 @@
+package com.nimble.gateway.integration;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nimble.gateway.application.dto.*;
+import com.nimble.gateway.domain.entity.Charge;
+import com.nimble.gateway.domain.entity.Payment;
+import com.nimble.gateway.domain.repository.ChargeRepository;
+import com.nimble.gateway.domain.repository.PaymentRepository;
+import com.nimble.gateway.domain.repository.UserRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.*;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "app.payments.engine=stored-procedure",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "app.outbox.relay.enabled=false"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.ANY)
+@ActiveProfiles("test")
+@Import(TestConfig.class)
+@DisplayName("Stored Procedure Payment Engine - Integration Tests")
+class StoredProcedurePaymentIntegrationTest {
+
+    private static final AtomicInteger USER_SEQUENCE = new AtomicInteger(1_400_000);
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ChargeRepository chargeRepository;
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @LocalServerPort
+    private int port;
+
+    private String baseUrl;
+    private Statistics statistics;
+    private UserDTO originator;
+    private UserDTO recipient;
+    private String originatorToken;
+    private String recipientToken;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        baseUrl = "http://localhost:" + port;
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        H2PaymentProcedures.register(jdbcTemplate);
+        originator = registerUser("João Silva", "senha123");
+        recipient = registerUser("Maria Santos", "senha456");
+        originatorToken = authenticateUser(originator.getEmail(), "senha123");
+        recipientToken = authenticateUser(recipient.getEmail(), "senha456");
+    }
+
+    @Test
+    @DisplayName("GIVEN a pending charge WHEN paying with balance THEN the procedure should write users, charge and payment while Hibernate only writes the event")
+    void givenPendingCharge_whenPayingWithBalance_thenShouldPayThroughProcedure() throws Exception {
+        // Given
+        deposit("50.00");
+        UUID chargeId = createCharge("10.00");
+        statistics.clear();
+
+        // When
+        ResponseEntity<String> response = pay(chargeId, recipient, recipientToken);
+
+        // Then
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+        assertThat(statistics.getEntityStatistics(Charge.class.getName()).getLoadCount()).isZero();
+        assertThat(statistics.getEntityUpdateCount()).isZero();
+        assertThat(statistics.getEntityInsertCount()).isEqualTo(1);
+
+        PaymentDTO payment = objectMapper.readValue(response.getBody(), PaymentDTO.class);
+        assertThat(payment.getChargeId()).isEqualTo(chargeId);
+        assertThat(payment.getPayerName()).isEqualTo("Maria Santos");
+        assertThat(payment.getAmount()).isEqualByComparingTo("10.00");
+
+        Charge charge = chargeRepository.findById(chargeId).orElseThrow();
+        assertThat(charge.getStatus()).isEqualTo(Charge.ChargeStatus.PAID);
+        assertThat(charge.getPaymentMethod()).isEqualTo(Charge.PaymentMethod.BALANCE);
+        assertThat(charge.getPaidAt()).isEqualTo(payment.getPaymentDate());
+        assertThat(charge.getVersion()).isEqualTo(1L);
+        Payment stored = paymentRepository.findById(payment.getId()).orElseThrow();
+        assertThat(stored.getStatus()).isEqualTo(Payment.PaymentStatus.PROCESSED);
+        assertThat(stored.getMethod()).isEqualTo(Payment.PaymentMethod.BALANCE);
+        // The recipient pays, so the debit and the credit land on the same balance
+        assertThat(userRepository.findById(recipient.getId()).orElseThrow().getBalance()).isEqualByComparingTo("50.00");
+
+        assertThat(pay(chargeId, recipient, recipientToken).getBody()).contains("Charge is not pending");
+    }
+
+    @Test
+    @DisplayName("GIVEN pays the procedure refuses WHEN paying THEN should answer like the JPA path and write nothing")
+    void givenRefusedPays_whenPaying_thenShouldAnswerLikeJpaPath() {
+        // Given
+        UUID chargeId = createCharge("10.00");
+
+        // When
+        ResponseEntity<String> insufficient = pay(chargeId, recipient, recipientToken);
+        ResponseEntity<String> unknown = pay(UUID.randomUUID(), recipient, recipientToken);
+
+        // Then
+        assertThat(insufficient.getStatusCode()).isEqualTo(HttpStatus.UNPROCESSABLE_ENTITY);
+        assertThat(insufficient.getBody()).contains("Insufficient balance");
+        assertThat(unknown.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+        assertThat(unknown.getBody()).contains("Charge not found");
+
+        Charge charge = chargeRepository.findById(chargeId).orElseThrow();
+        assertThat(charge.getStatus()).isEqualTo(Charge.ChargeStatus.PENDING);
+        assertThat(paymentRepository.findByCharge(charge)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("GIVEN a user WHEN depositing THEN should credit the balance and record a payment without a charge")
+    void givenUser_whenDepositing_thenShouldCreditThroughProcedure() throws Exception {
+        // When
+        ResponseEntity<String> response = deposit("25.50");
+
+        // Then
+        PaymentDTO payment = objectMapper.readValue(response.getBody(), PaymentDTO.class);
+        assertThat(payment.getChargeId()).isNull();
+        assertThat(payment.getPayerId()).isEqualTo(recipient.getId());
+        assertThat(payment.getPayerName()).isEqualTo("Maria Santos");
+        Payment stored = paymentRepository.findById(payment.getId()).orElseThrow();
+        assertThat(stored.getCharge()).isNull();
+        assertThat(stored.getAmount()).isEqualByComparingTo("25.50");
+        assertThat(userRepository.findById(recipient.getId()).orElseThrow().getBalance()).isEqualByComparingTo("25.50");
+    }
+
+    @Test
+    @DisplayName("GIVEN concurrent pays of one charge WHEN the procedure locks the charge THEN exactly one should pay it")
+    void givenConcurrentPays_whenPaying_thenExactlyOneShouldSucceed() throws Exception {
+        // Given
+        deposit("50.00");
+        UUID chargeId = createCharge("10.00");
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+
+        // When
+        List<Future<ResponseEntity<String>>> responses = new ArrayList<>();
+        try {
+            for (int i = 0; i < 8; i++) responses.add(executor.submit(() -> pay(chargeId, recipient, recipientToken)));
+            List<HttpStatusCode> statuses = new ArrayList<>();
+            for (Future<ResponseEntity<String>> response : responses) statuses.add(response.get().getStatusCode());
+
+            // Then
+            assertThat(statuses).filteredOn(HttpStatus.CREATED::equals).hasSize(1);
+            assertThat(statuses).filteredOn(HttpStatus.BAD_REQUEST::equals).hasSize(7);
+        } finally {
+            executor.shutdownNow();
+        }
+        assertThat(userRepository.findById(recipient.getId()).orElseThrow().getBalance()).isEqualByComparingTo("50.00");
+    }
+
+    private UUID createCharge(String amount) {
+        ResponseEntity<ChargeDTO> response = restTemplate.exchange(
+                baseUrl + "/api/charges?originatorId=" + originator.getId(), HttpMethod.POST,
+                createAuthenticatedRequest(CreateChargeDTO.builder()
+                        .recipientCpf(recipient.getCpf())
+                        .amount(new BigDecimal(amount))
+                        .build(), originatorToken),
+                ChargeDTO.class);
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+        return response.getBody().getId();
+    }
+
+    private ResponseEntity<String> deposit(String amount) {
+        ResponseEntity<String> response = restTemplate.exchange(
+                baseUrl + "/api/payments/deposit?userId=" + recipient.getId(), HttpMethod.POST,
+                createAuthenticatedRequest(DepositDTO.builder().amount(new BigDecimal(amount)).build(), recipientToken),
+                String.class);
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+        return response;
+    }
+
+    private ResponseEntity<String> pay(UUID chargeId, UserDTO payer, String token) {
+        return restTemplate.exchange(
+                baseUrl + "/api/payments/pay?payerId=" + payer.getId(), HttpMethod.POST,
+                createAuthenticatedRequest(PayChargeDTO.builder().chargeId(chargeId).method("BALANCE").build(), token),
+                String.class);
+    }
+
+    private UserDTO registerUser(String name, String password) throws Exception {
+        int sequence = USER_SEQUENCE.incrementAndGet();
+        CreateUserDTO createUserDTO = CreateUserDTO.builder()
+                .name(name)
+                .cpf(String.format("%011d", sequence))
+                .email("user" + sequence + "@teste.com")
+                .password(password)
+                .build();
+
+        ResponseEntity<String> response = restTemplate.postForEntity(baseUrl + "/api/auth/register", createUserDTO, String.class);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+        return objectMapper.readValue(response.getBody(), UserDTO.class);
+    }
+
+    private String authenticateUser(String email, String password) throws Exception {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        headers.set("X-Forwarded-For", "10.5.0." + USER_SEQUENCE.get() % 250);
+        LoginDTO loginDTO = LoginDTO.builder()
+                .username(email)
+                .password(password)
+                .build();
+
+        ResponseEntity<String> response = restTemplate.postForEntity(baseUrl + "/api/auth/login", new HttpEntity<>(loginDTO, headers), String.class);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        return objectMapper.readValue(response.getBody(), AuthResponseDTO.class).getToken();
+    }
+
+    private <T> HttpEntity<T> createAuthenticatedRequest(T body, String token) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        headers.setBearerAuth(token);
+        return new HttpEntity<>(body, headers);
+    }
+}
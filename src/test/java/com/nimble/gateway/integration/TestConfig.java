@@ -14,7 +14,7 @@ public class TestConfig {
     @Bean
     @Primary
     public AuthorizerService mockAuthorizerService() {
-        return new AuthorizerService(null) {
+        return new AuthorizerService(null, null) {
             @Override
             public Mono<Boolean> authorizePayment(java.math.BigDecimal amount) {
                 return Mono.just(true);
@@ -0,0 +1,214 @@
+package com.nimble.gateway.integration;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nimble.gateway.application.dto.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.*;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "app.outbox.relay.enabled=false",
+        "app.tracing.sampling.per-second=1000",
+        "app.admin.emails=" + TracingIntegrationTest.ADMIN_EMAIL
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.ANY)
+@ActiveProfiles("test")
+@Import(TestConfig.class)
+@DisplayName("Tracing - Integration Tests")
+class TracingIntegrationTest {
+
+    static final String ADMIN_EMAIL = "traces.admin@teste.com";
+    private static final AtomicInteger USER_SEQUENCE = new AtomicInteger(700_000);
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @LocalServerPort
+    private int port;
+
+    private String baseUrl;
+    private UserDTO originator;
+    private UserDTO recipient;
+    private String originatorToken;
+    private String recipientToken;
+    private String adminToken;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        baseUrl = "http://localhost:" + port;
+        originator = registerUser("João Silva", "senha123");
+        recipient = registerUser("Maria Santos", "senha456");
+        originatorToken = authenticateUser(originator.getEmail(), "senha123");
+        recipientToken = authenticateUser(recipient.getEmail(), "senha456");
+        // Registered by the first test; later ones only log in
+        restTemplate.postForEntity(baseUrl + "/api/auth/register", CreateUserDTO.builder()
+                .name("Admin")
+                .cpf(String.format("%011d", 699_999))
+                .email(ADMIN_EMAIL)
+                .password("senha789")
+                .build(), String.class);
+        adminToken = authenticateUser(ADMIN_EMAIL, "senha789");
+    }
+
+    @Test
+    @DisplayName("GIVEN no token or a regular user's WHEN listing traces THEN should refuse both")
+    void givenNoTokenOrRegularUser_whenListingTraces_thenShouldRefuse() {
+        // When
+        ResponseEntity<String> anonymous = restTemplate.getForEntity(baseUrl + "/actuator/traces", String.class);
+        ResponseEntity<String> regular = restTemplate.exchange(baseUrl + "/actuator/traces", HttpMethod.GET,
+                createAuthenticatedRequest(null, originatorToken), String.class);
+
+        // Then
+        assertThat(anonymous.getStatusCode()).isEqualTo(HttpStatus.UNAUTHORIZED);
+        assertThat(regular.getStatusCode()).isEqualTo(HttpStatus.FORBIDDEN);
+    }
+
+    @Test
+    @DisplayName("GIVEN a paid charge WHEN listing the slowest traces THEN should break the payment down into filter, use case and repository spans")
+    void givenPaidCharge_whenListingSlowestTraces_thenShouldBreakPaymentDown() throws Exception {
+        // Given
+        deposit("50.00");
+        pay(createCharge("20.00"));
+
+        // When
+        JsonNode trace = slowestTraces("/api/payments/pay").get(0);
+
+        // Then
+        assertThat(trace.get("method").asText()).isEqualTo("POST");
+        assertThat(trace.get("status").asInt()).isEqualTo(201);
+        assertThat(names(trace, "filter")).contains("RateLimitingFilter", "JwtAuthenticationFilter");
+        assertThat(names(trace, "usecase")).containsExactly("PaymentUseCase.payCharge");
+        assertThat(names(trace, "repository")).contains("ChargeRepository.findById", "UserRepository.findById", "PaymentRepository.save");
+        assertThat(trace.get("stagesMs").has("repository")).isTrue();
+        assertThat(trace.get("stagesMs").has("other")).isTrue();
+        // Repository calls made by the use case are nested under it
+        for (JsonNode span : trace.get("spans")) {
+            if (span.get("name").asText().equals("ChargeRepository.findById")) {
+                assertThat(span.get("depth").asInt()).isPositive();
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("GIVEN a login WHEN listing the slowest traces THEN should show the password check as its own stage")
+    void givenLogin_whenListingSlowestTraces_thenShouldShowBcryptStage() throws Exception {
+        // When
+        JsonNode trace = slowestTraces("/api/auth/login").get(0);
+
+        // Then
+        assertThat(names(trace, "bcrypt")).contains("PasswordEncoder.matches");
+        assertThat(names(trace, "usecase")).containsExactly("UserUseCase.login");
+        assertThat(trace.get("stagesMs").get("bcrypt").asDouble()).isPositive();
+    }
+
+    @Test
+    @DisplayName("GIVEN traced requests WHEN limiting the listing THEN should return the slowest first")
+    void givenTracedRequests_whenLimiting_thenShouldReturnSlowestFirst() throws Exception {
+        // When
+        JsonNode traces = objectMapper.readTree(restTemplate.exchange(baseUrl + "/actuator/traces?limit=3", HttpMethod.GET,
+                createAuthenticatedRequest(null, adminToken), String.class).getBody()).get("traces");
+
+        // Then
+        assertThat(traces).hasSize(3);
+        assertThat(traces.get(0).get("durationMs").asDouble()).isGreaterThanOrEqualTo(traces.get(1).get("durationMs").asDouble());
+        assertThat(traces.get(1).get("durationMs").asDouble()).isGreaterThanOrEqualTo(traces.get(2).get("durationMs").asDouble());
+    }
+
+    private JsonNode slowestTraces(String uri) throws Exception {
+        ResponseEntity<String> response = restTemplate.exchange(baseUrl + "/actuator/traces?uri={uri}", HttpMethod.GET,
+                createAuthenticatedRequest(null, adminToken), String.class, uri);
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        JsonNode traces = objectMapper.readTree(response.getBody()).get("traces");
+        assertThat(traces).isNotEmpty();
+        return traces;
+    }
+
+    private List<String> names(JsonNode trace, String stage) {
+        List<String> names = new ArrayList<>();
+        for (JsonNode span : trace.get("spans")) {
+            if (span.get("stage").asText().equals(stage)) names.add(span.get("name").asText());
+        }
+        return names;
+    }
+
+    private ChargeDTO createCharge(String amount) {
+        ResponseEntity<ChargeDTO> response = restTemplate.exchange(
+                baseUrl + "/api/charges?originatorId=" + originator.getId(), HttpMethod.POST,
+                createAuthenticatedRequest(CreateChargeDTO.builder()
+                        .recipientCpf(recipient.getCpf())
+                        .amount(new BigDecimal(amount))
+                        .build(), originatorToken),
+                ChargeDTO.class);
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+        return response.getBody();
+    }
+
+    private void deposit(String amount) {
+        ResponseEntity<String> response = restTemplate.exchange(
+                baseUrl + "/api/payments/deposit?userId=" + recipient.getId(), HttpMethod.POST,
+                createAuthenticatedRequest(DepositDTO.builder().amount(new BigDecimal(amount)).build(), recipientToken),
+                String.class);
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+    }
+
+    private void pay(ChargeDTO charge) {
+        ResponseEntity<String> response = restTemplate.exchange(
+                baseUrl + "/api/payments/pay?payerId=" + recipient.getId(), HttpMethod.POST,
+                createAuthenticatedRequest(PayChargeDTO.builder().chargeId(charge.getId()).method("BALANCE").build(), recipientToken),
+                String.class);
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+    }
+
+    private UserDTO registerUser(String name, String password) throws Exception {
+        int sequence = USER_SEQUENCE.incrementAndGet();
+        CreateUserDTO createUserDTO = CreateUserDTO.builder()
+                .name(name)
+                .cpf(String.format("%011d", sequence))
+                .email("user" + sequence + "@teste.com")
+                .password(password)
+                .build();
+
+        ResponseEntity<String> response = restTemplate.postForEntity(baseUrl + "/api/auth/register", createUserDTO, String.class);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+        return objectMapper.readValue(response.getBody(), UserDTO.class);
+    }
+
+    private String authenticateUser(String email, String password) throws Exception {
+        LoginDTO loginDTO = LoginDTO.builder()
+                .username(email)
+                .password(password)
+                .build();
+
+        ResponseEntity<String> response = restTemplate.postForEntity(baseUrl + "/api/auth/login", loginDTO, String.class);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        return objectMapper.readValue(response.getBody(), AuthResponseDTO.class).getToken();
+    }
+
+    private <T> HttpEntity<T> createAuthenticatedRequest(T body, String token) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        headers.setBearerAuth(token);
+        return new HttpEntity<>(body, headers);
+    }
+}
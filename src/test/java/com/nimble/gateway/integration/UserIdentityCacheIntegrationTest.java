@@ -0,0 +1,147 @@
+package com.nimble.gateway.integration;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nimble.gateway.application.dto.*;
+import com.nimble.gateway.domain.repository.UserRepository;
+import com.nimble.gateway.infrastructure.cache.UserIdentityCache;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.*;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "app.outbox.relay.enabled=false"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.ANY)
+@ActiveProfiles("test")
+@Import(TestConfig.class)
+@DisplayName("User Identity Cache - Integration Tests")
+class UserIdentityCacheIntegrationTest {
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private UserIdentityCache userIdentityCache;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @LocalServerPort
+    private int port;
+
+    private String baseUrl;
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        baseUrl = "http://localhost:" + port;
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    @DisplayName("GIVEN a warm identity cache WHEN depositing and reading the current user repeatedly THEN balance should be fresh and no identity queries should run")
+    void givenWarmIdentityCache_whenDepositingAndReadingRepeatedly_thenBalanceShouldBeFreshWithoutIdentityQueries() throws Exception {
+        // Given
+        UserDTO user = registerUser("João Silva", "12345678901", "joao@teste.com", "senha123");
+        String token = authenticateUser("joao@teste.com", "senha123");
+        statistics.clear();
+
+        // When / Then
+        for (int i = 1; i <= 5; i++) {
+            ResponseEntity<String> depositResponse = restTemplate.exchange(
+                    baseUrl + "/api/payments/deposit?userId=" + user.getId(), HttpMethod.POST,
+                    createAuthenticatedRequest(DepositDTO.builder().amount(new BigDecimal("10.00")).build(), token),
+                    String.class);
+            assertThat(depositResponse.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+
+            ResponseEntity<UserDTO> meResponse = restTemplate.exchange(
+                    baseUrl + "/api/auth/me", HttpMethod.GET, createAuthenticatedRequest(null, token), UserDTO.class);
+            assertThat(meResponse.getStatusCode()).isEqualTo(HttpStatus.OK);
+            assertThat(meResponse.getBody().getBalance()).isEqualByComparingTo(new BigDecimal("10.00").multiply(BigDecimal.valueOf(i)));
+        }
+
+        // Email/CPF lookups are JPQL queries; the fresh balance reads are primary-key loads
+        assertThat(statistics.getQueryExecutionCount()).isZero();
+        assertThat(statistics.getEntityStatistics("com.nimble.gateway.domain.entity.User").getLoadCount()).isEqualTo(10);
+    }
+
+    @Test
+    @DisplayName("GIVEN a cached identity WHEN the user's email is changed and then the user deleted THEN the cache should follow both writes")
+    void givenCachedIdentity_whenEmailChangedAndUserDeleted_thenCacheShouldFollowWrites() throws Exception {
+        // Given
+        UserDTO user = registerUser("Ana Costa", "12345678902", "ana@teste.com", "senha123");
+        assertThat(userIdentityCache.findByEmail("ana@teste.com")).isPresent();
+
+        // When
+        transactionTemplate.executeWithoutResult(status -> userRepository.findById(user.getId()).orElseThrow().setEmail("ana.costa@teste.com"));
+
+        // Then
+        assertThat(userIdentityCache.findByEmail("ana@teste.com")).isEmpty();
+        assertThat(userIdentityCache.findById(user.getId())).hasValueSatisfying(identity -> assertThat(identity.email()).isEqualTo("ana.costa@teste.com"));
+
+        // When
+        transactionTemplate.executeWithoutResult(status -> userRepository.deleteById(user.getId()));
+
+        // Then
+        assertThat(userIdentityCache.findById(user.getId())).isEmpty();
+    }
+
+    private UserDTO registerUser(String name, String cpf, String email, String password) throws Exception {
+        CreateUserDTO createUserDTO = CreateUserDTO.builder()
+                .name(name)
+                .cpf(cpf)
+                .email(email)
+                .password(password)
+                .build();
+
+        ResponseEntity<String> response = restTemplate.postForEntity(baseUrl + "/api/auth/register", createUserDTO, String.class);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+        return objectMapper.readValue(response.getBody(), UserDTO.class);
+    }
+
+    private String authenticateUser(String email, String password) throws Exception {
+        LoginDTO loginDTO = LoginDTO.builder()
+                .username(email)
+                .password(password)
+                .build();
+
+        ResponseEntity<String> response = restTemplate.postForEntity(baseUrl + "/api/auth/login", loginDTO, String.class);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        return objectMapper.readValue(response.getBody(), AuthResponseDTO.class).getToken();
+    }
+
+    private <T> HttpEntity<T> createAuthenticatedRequest(T body, String token) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        headers.setBearerAuth(token);
+        return new HttpEntity<>(body, headers);
+    }
+}
@@ -0,0 +1,266 @@
+package com.nimble.gateway.integration;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nimble.gateway.application.dto.*;
+import com.nimble.gateway.infrastructure.summary.ChargeSummaryConsistencyChecker;
+import com.nimble.gateway.infrastructure.summary.ChargeSummaryRebuilder;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.*;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "app.outbox.relay.enabled=false",
+        "app.users.summary.rebuild.chunk-days=2",
+        "app.users.summary.check.days=7"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.ANY)
+@ActiveProfiles("test")
+@Import(TestConfig.class)
+@DisplayName("User Summary - Integration Tests")
+class UserSummaryIntegrationTest {
+
+    private static final AtomicInteger USER_SEQUENCE = new AtomicInteger();
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private TransactionOperations transactionOperations;
+
+    @Autowired
+    private ChargeSummaryRebuilder chargeSummaryRebuilder;
+
+    @Autowired
+    private ChargeSummaryConsistencyChecker chargeSummaryConsistencyChecker;
+
+    @LocalServerPort
+    private int port;
+
+    private String baseUrl;
+    private UserDTO originator;
+    private UserDTO recipient;
+    private String originatorToken;
+    private String recipientToken;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        baseUrl = "http://localhost:" + port;
+        // The context is shared across tests, so each test registers its own pair of users
+        originator = registerUser("João Silva", "senha123");
+        recipient = registerUser("Maria Santos", "senha456");
+        originatorToken = authenticateUser(originator.getEmail(), "senha123");
+        recipientToken = authenticateUser(recipient.getEmail(), "senha456");
+    }
+
+    @Test
+    @DisplayName("GIVEN charges created, paid and cancelled WHEN getting summaries THEN should count each charge once under its current status")
+    void givenChargeTransitions_whenGettingSummaries_thenShouldCountEachChargeUnderItsCurrentStatus() throws Exception {
+        // Given
+        createCharge("10.00");
+        ChargeDTO paid = createCharge("20.00");
+        ChargeDTO cancelledPending = createCharge("30.00");
+        ChargeDTO cancelledPaid = createCharge("40.00");
+        deposit("100.00");
+        pay(paid);
+        pay(cancelledPaid);
+        cancel(cancelledPending);
+        cancel(cancelledPaid);
+
+        // When
+        UserSummaryDTO sent = summary(originator.getId(), originatorToken);
+        UserSummaryDTO received = summary(recipient.getId(), recipientToken);
+
+        // Then
+        assertTotals(sent.getSent(), 1, "10.00", 1, "20.00", 2, "70.00");
+        assertTotals(sent.getReceived(), 0, "0", 0, "0", 0, "0");
+        assertTotals(received.getReceived(), 1, "10.00", 1, "20.00", 2, "70.00");
+        assertTotals(received.getSent(), 0, "0", 0, "0", 0, "0");
+        assertThat(sent.getFrom()).isEqualTo(LocalDate.now().withDayOfMonth(1));
+        assertThat(sent.getTo()).isEqualTo(LocalDate.now());
+    }
+
+    @Test
+    @DisplayName("GIVEN a summary row that drifted WHEN checking and rebuilding THEN should report the day and restore the totals")
+    void givenDriftedSummary_whenCheckingAndRebuilding_thenShouldReportDayAndRestoreTotals() throws Exception {
+        // Given
+        ChargeDTO charge = createCharge("25.00");
+        createCharge("5.00");
+        deposit("100.00");
+        pay(charge);
+        transactionOperations.executeWithoutResult(status -> entityManager
+                .createQuery("UPDATE UserChargeSummary s SET s.paidCount = 99 WHERE s.userId = :userId")
+                .setParameter("userId", originator.getId())
+                .executeUpdate());
+        LocalDate today = LocalDate.now();
+
+        // When
+        assertThat(chargeSummaryRebuilder.findDrift(today, today)).containsExactly(today);
+        chargeSummaryRebuilder.rebuild(today, today);
+
+        // Then
+        assertThat(chargeSummaryRebuilder.findDrift(today, today)).isEmpty();
+        assertTotals(summary(originator.getId(), originatorToken).getSent(), 1, "5.00", 1, "25.00", 0, "0");
+    }
+
+    @Test
+    @DisplayName("GIVEN charges moved to earlier days WHEN running the consistency check THEN should repair those days from the charges tables")
+    void givenBackdatedCharges_whenRunningConsistencyCheck_thenShouldRepairThoseDays() throws Exception {
+        // Given
+        ChargeDTO charge = createCharge("12.50");
+        createCharge("7.50");
+        deposit("100.00");
+        pay(charge);
+        LocalDate threeDaysAgo = LocalDate.now().minusDays(3);
+        transactionOperations.executeWithoutResult(status -> entityManager
+                .createQuery("UPDATE Charge c SET c.createdAt = :createdAt WHERE c.originator.id = :originatorId")
+                .setParameter("createdAt", threeDaysAgo.atTime(10, 0))
+                .setParameter("originatorId", originator.getId())
+                .executeUpdate());
+
+        // When
+        assertThat(chargeSummaryConsistencyChecker.check()).contains(threeDaysAgo);
+
+        // Then
+        assertThat(chargeSummaryRebuilder.findDrift(threeDaysAgo, threeDaysAgo)).isEmpty();
+        UserSummaryDTO summary = summary(recipient.getId(), recipientToken, threeDaysAgo, threeDaysAgo);
+        assertTotals(summary.getReceived(), 1, "7.50", 1, "12.50", 0, "0");
+    }
+
+    @Test
+    @DisplayName("GIVEN an unknown user WHEN getting the summary THEN should return not found")
+    void givenUnknownUser_whenGettingSummary_thenShouldReturnNotFound() {
+        ResponseEntity<String> response = restTemplate.exchange(
+                baseUrl + "/api/users/" + UUID.randomUUID() + "/summary", HttpMethod.GET,
+                createAuthenticatedRequest(null, originatorToken), String.class);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+    }
+
+    @Test
+    @DisplayName("GIVEN a start date after the end date WHEN getting the summary THEN should return bad request")
+    void givenInvertedRange_whenGettingSummary_thenShouldReturnBadRequest() {
+        ResponseEntity<String> response = restTemplate.exchange(
+                baseUrl + "/api/users/" + originator.getId() + "/summary?from=2026-02-01&to=2026-01-01", HttpMethod.GET,
+                createAuthenticatedRequest(null, originatorToken), String.class);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+    }
+
+    private void assertTotals(ChargeTotalsDTO totals, long pendingCount, String pendingAmount,
+                              long paidCount, String paidAmount, long cancelledCount, String cancelledAmount) {
+        assertThat(totals.getPendingCount()).isEqualTo(pendingCount);
+        assertThat(totals.getPendingAmount()).isEqualByComparingTo(pendingAmount);
+        assertThat(totals.getPaidCount()).isEqualTo(paidCount);
+        assertThat(totals.getPaidAmount()).isEqualByComparingTo(paidAmount);
+        assertThat(totals.getCancelledCount()).isEqualTo(cancelledCount);
+        assertThat(totals.getCancelledAmount()).isEqualByComparingTo(cancelledAmount);
+    }
+
+    private UserSummaryDTO summary(UUID userId, String token) {
+        return summary(baseUrl + "/api/users/" + userId + "/summary", token);
+    }
+
+    private UserSummaryDTO summary(UUID userId, String token, LocalDate from, LocalDate to) {
+        return summary(baseUrl + "/api/users/" + userId + "/summary?from=" + from + "&to=" + to, token);
+    }
+
+    private UserSummaryDTO summary(String url, String token) {
+        ResponseEntity<UserSummaryDTO> response = restTemplate.exchange(
+                url, HttpMethod.GET, createAuthenticatedRequest(null, token), UserSummaryDTO.class);
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        return response.getBody();
+    }
+
+    private ChargeDTO createCharge(String amount) {
+        ResponseEntity<ChargeDTO> response = restTemplate.exchange(
+                baseUrl + "/api/charges?originatorId=" + originator.getId(), HttpMethod.POST,
+                createAuthenticatedRequest(CreateChargeDTO.builder()
+                        .recipientCpf(recipient.getCpf())
+                        .amount(new BigDecimal(amount))
+                        .build(), originatorToken),
+                ChargeDTO.class);
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+        return response.getBody();
+    }
+
+    private void deposit(String amount) {
+        ResponseEntity<String> response = restTemplate.exchange(
+                baseUrl + "/api/payments/deposit?userId=" + recipient.getId(), HttpMethod.POST,
+                createAuthenticatedRequest(DepositDTO.builder().amount(new BigDecimal(amount)).build(), recipientToken),
+                String.class);
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+    }
+
+    private void pay(ChargeDTO charge) {
+        ResponseEntity<String> response = restTemplate.exchange(
+                baseUrl + "/api/payments/pay?payerId=" + recipient.getId(), HttpMethod.POST,
+                createAuthenticatedRequest(PayChargeDTO.builder().chargeId(charge.getId()).method("BALANCE").build(), recipientToken),
+                String.class);
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+    }
+
+    private void cancel(ChargeDTO charge) {
+        ResponseEntity<String> response = restTemplate.exchange(
+                baseUrl + "/api/payments/cancel/" + charge.getId() + "?userId=" + originator.getId(), HttpMethod.POST,
+                createAuthenticatedRequest(null, originatorToken),
+                String.class);
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+    }
+
+    private UserDTO registerUser(String name, String password) throws Exception {
+        int sequence = USER_SEQUENCE.incrementAndGet();
+        CreateUserDTO createUserDTO = CreateUserDTO.builder()
+                .name(name)
+                .cpf(String.format("%011d", sequence))
+                .email("user" + sequence + "@teste.com")
+                .password(password)
+                .build();
+
+        ResponseEntity<String> response = restTemplate.postForEntity(baseUrl + "/api/auth/register", createUserDTO, String.class);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+        return objectMapper.readValue(response.getBody(), UserDTO.class);
+    }
+
+    private String authenticateUser(String email, String password) throws Exception {
+        LoginDTO loginDTO = LoginDTO.builder()
+                .username(email)
+                .password(password)
+                .build();
+
+        ResponseEntity<String> response = restTemplate.postForEntity(baseUrl + "/api/auth/login", loginDTO, String.class);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        return objectMapper.readValue(response.getBody(), AuthResponseDTO.class).getToken();
+    }
+
+    private <T> HttpEntity<T> createAuthenticatedRequest(T body, String token) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        headers.setBearerAuth(token);
+        return new HttpEntity<>(body, headers);
+    }
+}
@@ -0,0 +1,117 @@
+package com.nimble.gateway.presentation.controller;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import com.nimble.gateway.application.dto.PayChargeDTO;
+import com.nimble.gateway.application.dto.PaymentDTO;
+import com.nimble.gateway.application.usecase.PaymentUseCase;
+import com.nimble.gateway.domain.exception.BusinessRuleException;
+import com.nimble.gateway.presentation.exception.ErrorBodies;
+import com.nimble.gateway.presentation.exception.ErrorLogThrottle;
+import com.nimble.gateway.presentation.exception.GlobalExceptionHandler;
+import jakarta.validation.Valid;
+import org.openjdk.jmh.annotations.*;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+// A rejected pay through the dispatcher, argument binding, controller and exception handler: PaymentController as
+// it is, waiting with Await, against the same controller waiting with block(). MockMvc has no servlet container or
+// security filter chain in front, so a real request is deeper, and block()'s stack-filled exception dearer.
+// The controllers' INFO line is silenced so the console appender is not what gets measured. awaited and blocked
+// take the same rejection without the dispatcher, which is the whole difference between the two paths.
+//   mvn -B test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt
+//   java -cp target/test-classes:target/classes:$(cat target/cp.txt) org.openjdk.jmh.Main PaymentControllerBenchmark
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PaymentControllerBenchmark {
+
+    @Param({"/api/payments/pay", "/blocking/pay"})
+    public String path;
+
+    private MockMvc mockMvc;
+    private PaymentUseCase paymentUseCase;
+    private final String body = "{\"chargeId\":\"" + UUID.randomUUID() + "\",\"method\":\"BALANCE\"}";
+    private final String payerId = UUID.randomUUID().toString();
+
+    @Setup
+    public void setUp() {
+        ((Logger) LoggerFactory.getLogger("com.nimble.gateway")).setLevel(Level.WARN);
+        // Stub-only: a regular mock records every call and would make each iteration slower than the last
+        paymentUseCase = mock(PaymentUseCase.class, withSettings().stubOnly());
+        when(paymentUseCase.payCharge(any(), any())).thenAnswer(invocation -> rejection());
+        mockMvc = MockMvcBuilders
+                .standaloneSetup(new PaymentController(paymentUseCase), new BlockingPaymentController(paymentUseCase))
+                .setControllerAdvice(new GlobalExceptionHandler(
+                        new ErrorBodies(Jackson2ObjectMapperBuilder.json().build()), new ErrorLogThrottle(10_000)))
+                .build();
+    }
+
+    @Benchmark
+    public MvcResult rejectedPay() throws Exception {
+        return mockMvc.perform(post(path).param("payerId", payerId).contentType(MediaType.APPLICATION_JSON).content(body))
+                .andReturn();
+    }
+
+    @Benchmark
+    public Object awaited() {
+        try {
+            return Await.result(rejection());
+        } catch (BusinessRuleException e) {
+            return e;
+        }
+    }
+
+    @Benchmark
+    public Object blocked() {
+        try {
+            return rejection().block();
+        } catch (BusinessRuleException e) {
+            return e;
+        }
+    }
+
+    // Shaped like the use case's chains: a lookup, then a check that turns into an error signal. A bare
+    // Mono.fromCallable would not do, since block() on it calls the callable directly
+    private static Mono<PaymentDTO> rejection() {
+        return Mono.fromCallable(UUID::randomUUID)
+                .flatMap(chargeId -> Mono.error(new BusinessRuleException("Charge is not pending")));
+    }
+
+    // PaymentController before Await: the same use case call, waited on with block()
+    @RestController
+    public static class BlockingPaymentController {
+
+        private final PaymentUseCase paymentUseCase;
+
+        BlockingPaymentController(PaymentUseCase paymentUseCase) {
+            this.paymentUseCase = paymentUseCase;
+        }
+
+        @PostMapping("/blocking/pay")
+        public PaymentDTO payCharge(@Valid @RequestBody PayChargeDTO payChargeDTO, @RequestParam UUID payerId) {
+            return paymentUseCase.payCharge(payChargeDTO, payerId).block();
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.nimble.gateway.presentation.controller;
+
+import com.nimble.gateway.application.usecase.PaymentUseCase;
+import com.nimble.gateway.domain.exception.BusinessRuleException;
+import com.nimble.gateway.presentation.exception.ErrorBodies;
+import com.nimble.gateway.presentation.exception.ErrorLogThrottle;
+import com.nimble.gateway.presentation.exception.GlobalExceptionHandler;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import reactor.core.publisher.Mono;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@DisplayName("PaymentController - Unit Tests")
+class PaymentControllerTest {
+
+    private static final UUID PAYER_ID = UUID.randomUUID();
+    private static final String BODY = "{\"chargeId\":\"" + UUID.randomUUID() + "\",\"method\":\"BALANCE\"}";
+
+    private PaymentUseCase paymentUseCase;
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        paymentUseCase = mock(PaymentUseCase.class);
+        // Rejected on subscription, like the use case's own checks
+        when(paymentUseCase.payCharge(any(), any())).thenAnswer(invocation ->
+                Mono.fromCallable(() -> {
+                    throw new BusinessRuleException("Charge is not pending");
+                }));
+        mockMvc = MockMvcBuilders
+                .standaloneSetup(new PaymentController(paymentUseCase))
+                .setControllerAdvice(new GlobalExceptionHandler(
+                        new ErrorBodies(Jackson2ObjectMapperBuilder.json().build()), new ErrorLogThrottle(10_000)))
+                .build();
+    }
+
+    @Nested
+    @DisplayName("Scenario: Rejected requests")
+    class RejectionTests {
+
+        @Test
+        @DisplayName("Given a use case that rejects, when awaited, then should rethrow the domain exception itself")
+        void givenRejection_whenAwaited_thenShouldRethrowDomainException() {
+
+            BusinessRuleException rejection = new BusinessRuleException("Charge is not pending");
+
+            assertThatThrownBy(() -> Await.result(Mono.error(rejection))).isSameAs(rejection);
+            assertThat(Await.result(Mono.just("paid"))).isEqualTo("paid");
+            assertThat(Await.<String>result(Mono.empty())).isNull();
+        }
+
+        @Test
+        @DisplayName("Given a use case that rejects, when paying through the controller, then should answer with the domain error")
+        void givenRejection_whenPaying_thenShouldAnswerWithDomainError() throws Exception {
+
+            mockMvc.perform(pay("/api/payments/pay"))
+                    .andExpect(status().isBadRequest())
+                    .andExpect(jsonPath("$.message").value("Charge is not pending"));
+        }
+    }
+
+    private static RequestBuilder pay(String path) {
+        return post(path).param("payerId", PAYER_ID.toString()).contentType(MediaType.APPLICATION_JSON).content(BODY);
+    }
+}
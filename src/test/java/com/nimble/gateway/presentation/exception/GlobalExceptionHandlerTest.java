@@ -0,0 +1,169 @@
+package com.nimble.gateway.presentation.exception;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nimble.gateway.domain.exception.BusinessRuleException;
+import com.nimble.gateway.domain.exception.InsufficientBalanceException;
+import com.nimble.gateway.domain.exception.UserNotFoundException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.time.LocalDateTime;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("GlobalExceptionHandler - Unit Tests")
+class GlobalExceptionHandlerTest {
+
+    private ObjectMapper objectMapper;
+    private ErrorBodies errorBodies;
+    private GlobalExceptionHandler globalExceptionHandler;
+
+    @BeforeEach
+    void setUp() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        errorBodies = new ErrorBodies(objectMapper);
+        globalExceptionHandler = new GlobalExceptionHandler(errorBodies, new ErrorLogThrottle(10_000));
+    }
+
+    @Nested
+    @DisplayName("Scenario: Domain exceptions")
+    class DomainExceptionTests {
+
+        @Test
+        @DisplayName("Given a domain exception, when created, then should carry no stack trace")
+        void givenDomainException_whenCreated_thenShouldCarryNoStackTrace() {
+
+            UserNotFoundException exception = new UserNotFoundException("User not found");
+
+            assertThat(exception.getStackTrace()).isEmpty();
+            assertThat(exception.getMessage()).isEqualTo("User not found");
+        }
+
+        @Test
+        @DisplayName("Given a domain exception, when handled, then should render the same fields as an ErrorResponse")
+        void givenDomainException_whenHandled_thenShouldRenderErrorResponseFields() throws Exception {
+
+            ResponseEntity<byte[]> response = globalExceptionHandler.handleInsufficientBalanceException(
+                    new InsufficientBalanceException("Insufficient balance"));
+
+            assertThat(response.getStatusCode()).isEqualTo(HttpStatus.UNPROCESSABLE_ENTITY);
+            assertThat(response.getHeaders().getContentType()).isEqualTo(MediaType.APPLICATION_JSON);
+            ErrorResponse body = objectMapper.readValue(response.getBody(), ErrorResponse.class);
+            assertThat(body.getStatus()).isEqualTo(422);
+            assertThat(body.getError()).isEqualTo("Unprocessable Entity");
+            assertThat(body.getMessage()).isEqualTo("Insufficient balance");
+            assertThat(body.getPath()).isEqualTo("/api");
+            assertThat(body.getTimestamp()).isBetween(LocalDateTime.now().minusSeconds(2), LocalDateTime.now());
+        }
+
+        @Test
+        @DisplayName("Given the same rejection twice, when handled, then should reuse the serialized body")
+        void givenSameRejectionTwice_whenHandled_thenShouldReuseSerializedBody() throws Exception {
+
+            globalExceptionHandler.handleBusinessRuleException(new BusinessRuleException("Charge not found"));
+            ResponseEntity<byte[]> response = globalExceptionHandler.handleBusinessRuleException(new BusinessRuleException("Charge not found"));
+
+            assertThat(errorBodies.cachedBodies()).isEqualTo(1);
+            JsonNode body = objectMapper.readTree(response.getBody());
+            assertThat(body.get("status").asInt()).isEqualTo(400);
+            assertThat(body.get("message").asText()).isEqualTo("Charge not found");
+        }
+
+        @Test
+        @DisplayName("Given rejections whose messages carry ids, when handled, then should keep the cache bounded")
+        void givenMessagesWithIds_whenHandled_thenShouldKeepCacheBounded() throws Exception {
+
+            for (int i = 0; i < 2_000; i++) {
+                globalExceptionHandler.handleUserNotFoundException(new UserNotFoundException("User not found with ID: " + UUID.randomUUID()));
+                globalExceptionHandler.handleBusinessRuleException(new BusinessRuleException("Charge not found"));
+            }
+            ResponseEntity<byte[]> response = globalExceptionHandler.handleBusinessRuleException(new BusinessRuleException("Charge not found"));
+
+            assertThat(errorBodies.cachedBodies()).isLessThanOrEqualTo(512);
+            assertThat(objectMapper.readTree(response.getBody()).get("message").asText()).isEqualTo("Charge not found");
+        }
+
+        @Test
+        @DisplayName("Given a message with quotes, when handled, then should still produce valid JSON")
+        void givenMessageWithQuotes_whenHandled_thenShouldProduceValidJson() throws Exception {
+
+            ResponseEntity<byte[]> response = globalExceptionHandler.handleUserNotFoundException(
+                    new UserNotFoundException("Recipient not found with CPF: \"1\"\\"));
+
+            assertThat(objectMapper.readTree(response.getBody()).get("message").asText())
+                    .isEqualTo("Recipient not found with CPF: \"1\"\\");
+        }
+    }
+
+    @Nested
+    @DisplayName("Scenario: Cost of a rejected request")
+    class BenchmarkTests {
+
+        private static final int CALL_DEPTH = 120;
+        private static final int ITERATIONS = 20_000;
+
+        @Test
+        @DisplayName("Given rejections raised deep in a request, when handled, then stackless exceptions with cached bodies should cost far less CPU")
+        void givenDeepRejections_whenHandled_thenStacklessWithCachedBodiesShouldCostLessCpu() {
+
+            // What every rejection used to cost: a filled stack trace and an ErrorResponse serialized from scratch
+            Supplier<Object> before = () -> {
+                IllegalArgumentException ex = raise(CALL_DEPTH, () -> new IllegalArgumentException("Charge not found"));
+                try {
+                    return objectMapper.writeValueAsBytes(ErrorResponse.builder()
+                            .timestamp(LocalDateTime.now())
+                            .status(HttpStatus.BAD_REQUEST.value())
+                            .error("Bad Request")
+                            .message(ex.getMessage())
+                            .path("/api")
+                            .build());
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+            };
+            Supplier<Object> after = () -> globalExceptionHandler.handleBusinessRuleException(
+                    raise(CALL_DEPTH, () -> new BusinessRuleException("Charge not found")));
+
+            cpuNanosPerCall(before);
+            cpuNanosPerCall(after);
+            long beforeNanos = cpuNanosPerCall(before);
+            long afterNanos = cpuNanosPerCall(after);
+
+            assertThat(afterNanos).isLessThan(beforeNanos / 2);
+        }
+
+        private long cpuNanosPerCall(Supplier<Object> call) {
+            ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+            long sink = 0;
+            long start = threads.getCurrentThreadCpuTime();
+            for (int i = 0; i < ITERATIONS; i++) sink += call.get().hashCode();
+            long elapsed = threads.getCurrentThreadCpuTime() - start;
+            assertThat(sink).isNotNull();
+            return elapsed / ITERATIONS;
+        }
+
+        // Stands in for the filter chain, dispatcher and proxies between the servlet container and the use case
+        private <T extends RuntimeException> T raise(int depth, Supplier<T> exception) {
+            if (depth == 0) {
+                try {
+                    throw exception.get();
+                } catch (RuntimeException e) {
+                    @SuppressWarnings("unchecked") T caught = (T) e;
+                    return caught;
+                }
+            }
+            return raise(depth - 1, exception);
+        }
+    }
+}